@@ -221,6 +221,18 @@ public class ConfigurationDBRef implements Serializable
         dataCacheDesc = new ConfigurationExpiryTimeCache(maxAgeSeconds, purgeIntervalSeconds, cacheReferenceType);
     }
 
+    /**
+     * Configures a concurrent cache that admits query results by access frequency (W-TinyLFU).
+     * <p>
+     * The cache settings provide the bound by number of entries or estimated size in bytes, and
+     * optionally the maximum age, refresh-ahead age and whether to cache empty results.
+     * @param tinyLFUCache cache settings
+     */
+    public void setTinyLFUCache(ConfigurationTinyLFUCache tinyLFUCache)
+    {
+        dataCacheDesc = tinyLFUCache;
+    }
+
     /**
      * Return a query result data cache descriptor.
      * @return cache descriptor
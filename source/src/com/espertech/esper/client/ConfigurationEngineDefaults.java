@@ -12,7 +12,9 @@ import com.espertech.esper.client.soda.StreamSelector;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Provides access to engine configuration defaults for modification.
@@ -291,6 +293,13 @@ public class ConfigurationEngineDefaults implements Serializable
         private Integer threadPoolInboundCapacity;
         private Integer threadPoolRouteExecCapacity;
         private Integer threadPoolOutboundCapacity;
+        private ThreadPoolQueueType threadPoolQueueType;
+        private ThreadPoolWaitStrategy threadPoolWaitStrategy;
+        private boolean threadPoolInboundSingleProducer;
+        private Map<String, String> threadPoolInboundPartitionProperties;
+        private boolean isThreadPoolFireAndForget;
+        private int threadPoolFireAndForgetNumThreads;
+        private int threadPoolHistoricalJoinNumThreads;
 
         private boolean engineFairlock;
 
@@ -319,6 +328,12 @@ public class ConfigurationEngineDefaults implements Serializable
             threadPoolInboundNumThreads = 2;
             threadPoolRouteExecNumThreads = 2;
             threadPoolOutboundNumThreads = 2;
+            threadPoolFireAndForgetNumThreads = 2;
+            threadPoolHistoricalJoinNumThreads = 2;
+
+            threadPoolQueueType = ThreadPoolQueueType.BLOCKING_QUEUE;
+            threadPoolWaitStrategy = ThreadPoolWaitStrategy.BLOCK;
+            threadPoolInboundPartitionProperties = new LinkedHashMap<String, String>();
         }
 
         /**
@@ -704,6 +719,162 @@ public class ConfigurationEngineDefaults implements Serializable
             this.threadPoolOutboundCapacity = capacity;
         }
 
+        /**
+         * Returns the kind of queue that the inbound, outbound, timer execution and route execution
+         * thread pools use to hand work to their threads, the default is {@link ThreadPoolQueueType#BLOCKING_QUEUE}.
+         * @return queue type
+         */
+        public ThreadPoolQueueType getThreadPoolQueueType()
+        {
+            return threadPoolQueueType;
+        }
+
+        /**
+         * Sets the kind of queue that the inbound, outbound, timer execution and route execution
+         * thread pools use to hand work to their threads.
+         * <p>
+         * For {@link ThreadPoolQueueType#RING_BUFFER} the capacity of each pool is rounded up to a power of 2,
+         * and an unbounded capacity becomes 8192 slots. A thread that submits work to a full pool waits for capacity,
+         * unless it is a thread of that same pool, such as a route execution thread routing an event: such work
+         * runs on the submitting thread, since the pool threads could otherwise all wait with none left to free capacity.
+         * @param threadPoolQueueType queue type
+         */
+        public void setThreadPoolQueueType(ThreadPoolQueueType threadPoolQueueType)
+        {
+            this.threadPoolQueueType = threadPoolQueueType;
+        }
+
+        /**
+         * Returns the strategy by which ring buffer thread pools wait for work and for free capacity,
+         * the default is {@link ThreadPoolWaitStrategy#BLOCK}.
+         * @return wait strategy
+         */
+        public ThreadPoolWaitStrategy getThreadPoolWaitStrategy()
+        {
+            return threadPoolWaitStrategy;
+        }
+
+        /**
+         * Sets the strategy by which ring buffer thread pools wait for work and for free capacity.
+         * Only applicable to the {@link ThreadPoolQueueType#RING_BUFFER} queue type.
+         * @param threadPoolWaitStrategy wait strategy
+         */
+        public void setThreadPoolWaitStrategy(ThreadPoolWaitStrategy threadPoolWaitStrategy)
+        {
+            this.threadPoolWaitStrategy = threadPoolWaitStrategy;
+        }
+
+        /**
+         * Returns true if the application sends events from a single thread only, allowing the inbound
+         * ring buffer to claim slots without compare-and-set (default is false).
+         * @return single producer indicator
+         */
+        public boolean isThreadPoolInboundSingleProducer()
+        {
+            return threadPoolInboundSingleProducer;
+        }
+
+        /**
+         * Set to true to indicate that the application sends events from a single thread only, allowing the inbound
+         * ring buffer to claim slots without compare-and-set.
+         * Only applicable to the {@link ThreadPoolQueueType#RING_BUFFER} queue type.
+         * @param threadPoolInboundSingleProducer single producer indicator
+         */
+        public void setThreadPoolInboundSingleProducer(boolean threadPoolInboundSingleProducer)
+        {
+            this.threadPoolInboundSingleProducer = threadPoolInboundSingleProducer;
+        }
+
+        /**
+         * Returns the key property per event type name for partitioning inbound threading, empty by default.
+         * @return map of event type name and property name
+         */
+        public Map<String, String> getThreadPoolInboundPartitionProperties()
+        {
+            return threadPoolInboundPartitionProperties;
+        }
+
+        /**
+         * Partitions inbound threading by the value of the given property for events of the given type.
+         * <p>
+         * When at least one partition property is configured, each inbound thread has its own queue
+         * and events with the same key value are always processed by the same thread in the order sent.
+         * Use the partition or hash property of a context to have each context partition processed
+         * by a single thread. Events of other types are assigned to threads round-robin.
+         * @param eventTypeName event type name
+         * @param propertyName property providing the key
+         */
+        public void addThreadPoolInboundPartitionProperty(String eventTypeName, String propertyName)
+        {
+            threadPoolInboundPartitionProperties.put(eventTypeName, propertyName);
+        }
+
+        /**
+         * Returns true for parallel execution of fire-and-forget queries enabled, the default is false for not enabled.
+         * @return indicator whether fire-and-forget query threading is enabled
+         */
+        public boolean isThreadPoolFireAndForget()
+        {
+            return isThreadPoolFireAndForget;
+        }
+
+        /**
+         * Set to true for parallel execution of fire-and-forget queries enabled, the default is false for not enabled.
+         * <p>
+         * When enabled, fire-and-forget queries against a large named window split the snapshot of the window
+         * into chunks and evaluate the where-clause for the chunks by the threads of a separate thread pool,
+         * while the thread executing the query waits. Expressions in the where-clause must be safe
+         * for evaluation by multiple threads, as is the case for built-in functions. Where-clauses that use
+         * expression declarations, enumeration methods or scripts are evaluated by the thread executing the query.
+         * @param threadPoolFireAndForget indicator whether fire-and-forget query threading is enabled
+         */
+        public void setThreadPoolFireAndForget(boolean threadPoolFireAndForget)
+        {
+            isThreadPoolFireAndForget = threadPoolFireAndForget;
+        }
+
+        /**
+         * Returns the number of threads in the fire-and-forget query thread pool.
+         * @return number of threads
+         */
+        public int getThreadPoolFireAndForgetNumThreads()
+        {
+            return threadPoolFireAndForgetNumThreads;
+        }
+
+        /**
+         * Sets the number of threads in the thread pool for fire-and-forget queries.
+         * @param num number of threads
+         */
+        public void setThreadPoolFireAndForgetNumThreads(int num)
+        {
+            this.threadPoolFireAndForgetNumThreads = num;
+        }
+
+        /**
+         * Returns the number of threads in the thread pool completing joins for statements with historical streams
+         * that specify the HISTORICAL_ASYNC hint, the default is 2.
+         * @return number of threads
+         */
+        public int getThreadPoolHistoricalJoinNumThreads()
+        {
+            return threadPoolHistoricalJoinNumThreads;
+        }
+
+        /**
+         * Sets the number of threads in the thread pool completing joins for statements with historical streams
+         * that specify the HISTORICAL_ASYNC hint.
+         * <p>
+         * The pool is shared by all such statements and is started when the first such statement starts.
+         * Joins of the same statement are completed one at a time and in the order the statement received the events.
+         * The pool also performs the concurrent polls of historical streams ahead of such joins.
+         * @param num number of threads
+         */
+        public void setThreadPoolHistoricalJoinNumThreads(int num)
+        {
+            this.threadPoolHistoricalJoinNumThreads = num;
+        }
+
         /**
          * Returns true if the engine-level lock is configured as a fair lock (default is false).
          * <p>
@@ -745,6 +916,44 @@ public class ConfigurationEngineDefaults implements Serializable
              */
             SUSPEND
         }
+
+        /**
+         * Enumeration of queues for use by thread pools.
+         */
+        public enum ThreadPoolQueueType
+        {
+            /**
+             * Thread pool executor with a linked blocking queue, or an array blocking queue when a capacity is set.
+             */
+            BLOCKING_QUEUE,
+
+            /**
+             * Pre-allocated ring buffer of reusable slots, avoiding the queue locks and per-entry allocation
+             * of blocking queues.
+             */
+            RING_BUFFER
+        }
+
+        /**
+         * Enumeration of wait strategies for ring buffer thread pools.
+         */
+        public enum ThreadPoolWaitStrategy
+        {
+            /**
+             * Spin without giving up the CPU, for lowest latency when threads have a dedicated core each.
+             */
+            BUSY_SPIN,
+
+            /**
+             * Spin yielding the CPU to other threads.
+             */
+            YIELD,
+
+            /**
+             * Spin and yield shortly, then suspend until notified, using the least CPU when idle.
+             */
+            BLOCK
+        }
     }
 
     /**
@@ -1416,6 +1625,10 @@ public class ConfigurationEngineDefaults implements Serializable
         private boolean fairlock;
         private boolean disableLocking;
         private ThreadingProfile threadingProfile = ThreadingProfile.NORMAL;
+        private SchedulingServiceType schedulingServiceType = SchedulingServiceType.SORTED;
+        private FilterServiceType filterServiceType = FilterServiceType.LOCKING;
+        private int joinReplanInterval;
+        private int namedWindowConsumerDispatchThreads;
 
         private static final long serialVersionUID = 0L;
 
@@ -1498,6 +1711,84 @@ public class ConfigurationEngineDefaults implements Serializable
         public void setThreadingProfile(ThreadingProfile threadingProfile) {
             this.threadingProfile = threadingProfile;
         }
+
+        /**
+         * Returns the scheduling service type.
+         * @return scheduling service type
+         */
+        public SchedulingServiceType getSchedulingServiceType() {
+            return schedulingServiceType;
+        }
+
+        /**
+         * Sets the scheduling service type, the default is the sorted scheduling service.
+         * @param schedulingServiceType scheduling service type
+         */
+        public void setSchedulingServiceType(SchedulingServiceType schedulingServiceType) {
+            this.schedulingServiceType = schedulingServiceType;
+        }
+
+        /**
+         * Returns the filter service type.
+         * @return filter service type
+         */
+        public FilterServiceType getFilterServiceType() {
+            return filterServiceType;
+        }
+
+        /**
+         * Sets the filter service type, the default is the locking filter service.
+         * @param filterServiceType filter service type
+         */
+        public void setFilterServiceType(FilterServiceType filterServiceType) {
+            this.filterServiceType = filterServiceType;
+        }
+
+        /**
+         * Returns the number of join executions after which joins of 3 or more streams check the
+         * statistics of their indexes and re-plan the lookup order, or zero (the default) to plan
+         * the lookup order once when the statement starts.
+         * @return re-planning interval in join executions, or zero for no re-planning
+         */
+        public int getJoinReplanInterval() {
+            return joinReplanInterval;
+        }
+
+        /**
+         * Sets the number of join executions after which joins of 3 or more streams check the
+         * statistics of their indexes and re-plan the lookup order, or zero (the default) to plan
+         * the lookup order once when the statement starts.
+         * <p>
+         * Joins that re-plan keep the indexes for every lookup order, and not only for the initial lookup order.
+         * @param joinReplanInterval re-planning interval in join executions, or zero for no re-planning
+         */
+        public void setJoinReplanInterval(int joinReplanInterval) {
+            this.joinReplanInterval = joinReplanInterval;
+        }
+
+        /**
+         * Returns the number of threads that dispatch named window insert and remove stream events
+         * to consuming statements in parallel with the thread processing the event, or zero (the default)
+         * for the thread processing the event to dispatch to all consuming statements.
+         * @return number of dispatch threads, or zero for no parallel dispatch
+         */
+        public int getNamedWindowConsumerDispatchThreads() {
+            return namedWindowConsumerDispatchThreads;
+        }
+
+        /**
+         * Sets the number of threads that dispatch named window insert and remove stream events
+         * to consuming statements in parallel with the thread processing the event, or zero (the default)
+         * for the thread processing the event to dispatch to all consuming statements.
+         * <p>
+         * Each consuming statement is always dispatched to by the same thread, so that a consuming statement
+         * receives events in the same order as when dispatching sequentially. The thread processing the event
+         * waits until all consuming statements processed the events.
+         * @param namedWindowConsumerDispatchThreads number of dispatch threads, or zero for no parallel dispatch
+         */
+        public void setNamedWindowConsumerDispatchThreads(int namedWindowConsumerDispatchThreads) {
+            this.namedWindowConsumerDispatchThreads = namedWindowConsumerDispatchThreads;
+        }
     }
 
     /**
@@ -1516,6 +1807,40 @@ public class ConfigurationEngineDefaults implements Serializable
         NORMAL
     }
 
+    /**
+     * Scheduling service type.
+     */
+    public enum SchedulingServiceType
+    {
+        /**
+         * Scheduling service keeping a sorted map of trigger times, the default.
+         */
+        SORTED,
+
+        /**
+         * Scheduling service based on a hierarchical timing wheel with constant-time add and remove,
+         * for use with a large number of schedules.
+         */
+        TIMING_WHEEL
+    }
+
+    /**
+     * Filter service type.
+     */
+    public enum FilterServiceType
+    {
+        /**
+         * Filter service locking each filter index for reading and writing, the default.
+         */
+        LOCKING,
+
+        /**
+         * Filter service that evaluates events against a copy of the filter indexes without locking
+         * and copies changed indexes when filters are added or removed, for use when filters change infrequently.
+         */
+        COPY_ON_WRITE
+    }
+
     /**
      * Time source type.
      */
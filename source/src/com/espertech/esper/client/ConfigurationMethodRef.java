@@ -52,6 +52,18 @@ public class ConfigurationMethodRef implements Serializable
         dataCacheDesc = new ConfigurationExpiryTimeCache(maxAgeSeconds, purgeIntervalSeconds, cacheReferenceType);
     }
 
+    /**
+     * Configures a concurrent cache that admits method invocation results by access frequency (W-TinyLFU).
+     * <p>
+     * The cache settings provide the bound by number of entries or estimated size in bytes, and
+     * optionally the maximum age, refresh-ahead age and whether to cache empty results.
+     * @param tinyLFUCache cache settings
+     */
+    public void setTinyLFUCache(ConfigurationTinyLFUCache tinyLFUCache)
+    {
+        dataCacheDesc = tinyLFUCache;
+    }
+
     /**
      * Return a method invocation result data cache descriptor.
      * @return cache descriptor
@@ -21,6 +21,8 @@ public class ConfigurationMetricsReporting implements Serializable
 {
     private boolean enableMetricsReporting;
     private boolean isThreading;
+    private boolean enableInstrumentation;
+    private String instrumentationClassName;
     private long engineInterval;
     private long statementInterval;
     private Map<String, StmtGroupMetrics> statementGroups;
@@ -90,6 +92,48 @@ public class ConfigurationMetricsReporting implements Serializable
         isThreading = threading;
     }
 
+    /**
+     * Returns true if instrumentation of event processing stages is turned on, false if not.
+     * @return indicator whether instrumentation is turned on
+     */
+    public boolean isEnableInstrumentation()
+    {
+        return enableInstrumentation;
+    }
+
+    /**
+     * Set to true to turn on instrumentation of event processing stages, or false to turn instrumentation off.
+     * <p>
+     * When turned on and metrics reporting is enabled, the built-in instrumentation produces
+     * {@link com.espertech.esper.client.metric.StageMetric} events at the engine metrics production interval.
+     * This setting applies to all engines in a VM, taking effect at engine initialization time.
+     * @param enableInstrumentation indicator whether instrumentation should be turned on
+     */
+    public void setEnableInstrumentation(boolean enableInstrumentation)
+    {
+        this.enableInstrumentation = enableInstrumentation;
+    }
+
+    /**
+     * Returns the class name of the instrumentation implementation, or null for the built-in stage timers.
+     * @return instrumentation class name
+     */
+    public String getInstrumentationClassName()
+    {
+        return instrumentationClassName;
+    }
+
+    /**
+     * Sets the class name of an implementation of {@link com.espertech.esper.epl.metric.Instrumentation}
+     * to receive instrumentation hooks, or null for the built-in stage timers. The class must have a public
+     * no-argument constructor.
+     * @param instrumentationClassName instrumentation class name
+     */
+    public void setInstrumentationClassName(String instrumentationClassName)
+    {
+        this.instrumentationClassName = instrumentationClassName;
+    }
+
     /**
      * Returns the engine metrics production interval in milliseconds.
      * @return engine metrics production interval
@@ -580,6 +580,10 @@ class ConfigurationParser {
                 String size = getRequiredAttribute(subElement, "size");
                 configDBRef.setLRUCache(Integer.parseInt(size));
             }
+            else if (subElement.getNodeName().equals("tinylfu-cache"))
+            {
+                configDBRef.setTinyLFUCache(parseTinyLFUCache(subElement));
+            }
         }
     }
 
@@ -610,7 +614,35 @@ class ConfigurationParser {
                 String size = getRequiredAttribute(subElement, "size");
                 configMethodRef.setLRUCache(Integer.parseInt(size));
             }
+            else if (subElement.getNodeName().equals("tinylfu-cache"))
+            {
+                configMethodRef.setTinyLFUCache(parseTinyLFUCache(subElement));
+            }
+        }
+    }
+
+    private static ConfigurationTinyLFUCache parseTinyLFUCache(Element element)
+    {
+        String maxSize = getOptionalAttribute(element, "max-size");
+        String maxWeight = getOptionalAttribute(element, "max-weight-bytes");
+        ConfigurationTinyLFUCache cacheDesc = new ConfigurationTinyLFUCache(maxSize == null ? 0 : Integer.parseInt(maxSize),
+                maxWeight == null ? 0 : Long.parseLong(maxWeight));
+        String maxAge = getOptionalAttribute(element, "max-age-seconds");
+        if (maxAge != null)
+        {
+            cacheDesc.setMaxAgeSeconds(Double.parseDouble(maxAge));
         }
+        String refreshAhead = getOptionalAttribute(element, "refresh-ahead-seconds");
+        if (refreshAhead != null)
+        {
+            cacheDesc.setRefreshAheadSeconds(Double.parseDouble(refreshAhead));
+        }
+        String cacheEmpty = getOptionalAttribute(element, "cache-empty");
+        if (cacheEmpty != null)
+        {
+            cacheDesc.setCacheEmptyResults(Boolean.parseBoolean(cacheEmpty));
+        }
+        return cacheDesc;
     }
 
     private static void handlePlugInView(Configuration configuration, Element element)
@@ -1095,6 +1127,18 @@ class ConfigurationParser {
                 configuration.getEngineDefaults().getThreading().setThreadPoolInbound(result.isEnabled());
                 configuration.getEngineDefaults().getThreading().setThreadPoolInboundNumThreads(result.getNumThreads());
                 configuration.getEngineDefaults().getThreading().setThreadPoolInboundCapacity(result.getCapacity());
+
+                DOMElementIterator partitionIterator = new DOMElementIterator(subElement.getChildNodes());
+                while (partitionIterator.hasNext())
+                {
+                    Element partitionElement = partitionIterator.next();
+                    if (partitionElement.getNodeName().equals("partition-property"))
+                    {
+                        String eventTypeName = getRequiredAttribute(partitionElement, "event-type");
+                        String propertyName = getRequiredAttribute(partitionElement, "property");
+                        configuration.getEngineDefaults().getThreading().addThreadPoolInboundPartitionProperty(eventTypeName, propertyName);
+                    }
+                }
             }
             if (subElement.getNodeName().equals("threadpool-outbound"))
             {
@@ -1117,6 +1161,23 @@ class ConfigurationParser {
                 configuration.getEngineDefaults().getThreading().setThreadPoolRouteExecNumThreads(result.getNumThreads());
                 configuration.getEngineDefaults().getThreading().setThreadPoolRouteExecCapacity(result.getCapacity());
             }
+            if (subElement.getNodeName().equals("threadpool-queue"))
+            {
+                String typeText = getRequiredAttribute(subElement, "type");
+                configuration.getEngineDefaults().getThreading().setThreadPoolQueueType(
+                        ConfigurationEngineDefaults.Threading.ThreadPoolQueueType.valueOf(typeText.toUpperCase()));
+                String waitStrategyText = getOptionalAttribute(subElement, "wait-strategy");
+                if (waitStrategyText != null)
+                {
+                    configuration.getEngineDefaults().getThreading().setThreadPoolWaitStrategy(
+                            ConfigurationEngineDefaults.Threading.ThreadPoolWaitStrategy.valueOf(waitStrategyText.toUpperCase()));
+                }
+                String singleProducerText = getOptionalAttribute(subElement, "inbound-single-producer");
+                if (singleProducerText != null)
+                {
+                    configuration.getEngineDefaults().getThreading().setThreadPoolInboundSingleProducer(Boolean.parseBoolean(singleProducerText));
+                }
+            }
         }
     }
 
@@ -1323,6 +1384,18 @@ class ConfigurationParser {
             configuration.getEngineDefaults().getMetricsReporting().setThreading(Boolean.parseBoolean(threading));
         }
 
+        String instrumentation = getOptionalAttribute(parentElement, "instrumentation");
+        if (instrumentation != null)
+        {
+            configuration.getEngineDefaults().getMetricsReporting().setEnableInstrumentation(Boolean.parseBoolean(instrumentation));
+        }
+
+        String instrumentationClass = getOptionalAttribute(parentElement, "instrumentation-class");
+        if (instrumentationClass != null)
+        {
+            configuration.getEngineDefaults().getMetricsReporting().setInstrumentationClassName(instrumentationClass);
+        }
+
         DOMElementIterator nodeIterator = new DOMElementIterator(parentElement.getChildNodes());
         while (nodeIterator.hasNext())
         {
@@ -1435,6 +1508,28 @@ class ConfigurationParser {
             ConfigurationEngineDefaults.ThreadingProfile profile = ConfigurationEngineDefaults.ThreadingProfile.valueOf(threadingProfileStr.toUpperCase());
             configuration.getEngineDefaults().getExecution().setThreadingProfile(profile);
         }
+        String schedulingServiceTypeStr = getOptionalAttribute(parentElement, "scheduling-service-type");
+        if (schedulingServiceTypeStr != null)
+        {
+            ConfigurationEngineDefaults.SchedulingServiceType type = ConfigurationEngineDefaults.SchedulingServiceType.valueOf(schedulingServiceTypeStr.toUpperCase());
+            configuration.getEngineDefaults().getExecution().setSchedulingServiceType(type);
+        }
+        String filterServiceTypeStr = getOptionalAttribute(parentElement, "filter-service-type");
+        if (filterServiceTypeStr != null)
+        {
+            ConfigurationEngineDefaults.FilterServiceType type = ConfigurationEngineDefaults.FilterServiceType.valueOf(filterServiceTypeStr.toUpperCase());
+            configuration.getEngineDefaults().getExecution().setFilterServiceType(type);
+        }
+        String joinReplanIntervalStr = getOptionalAttribute(parentElement, "join-replan-interval");
+        if (joinReplanIntervalStr != null)
+        {
+            configuration.getEngineDefaults().getExecution().setJoinReplanInterval(Integer.parseInt(joinReplanIntervalStr));
+        }
+        String namedWindowDispatchThreadsStr = getOptionalAttribute(parentElement, "named-window-consumer-dispatch-threads");
+        if (namedWindowDispatchThreadsStr != null)
+        {
+            configuration.getEngineDefaults().getExecution().setNamedWindowConsumerDispatchThreads(Integer.parseInt(namedWindowDispatchThreadsStr));
+        }
     }
 
     private static void handleDefaultScriptConfig(Configuration configuration, Element parentElement)
@@ -0,0 +1,116 @@
+/**************************************************************************************
+ * Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ * http://esper.codehaus.org                                                          *
+ * http://www.espertech.com                                                           *
+ * ---------------------------------------------------------------------------------- *
+ * The software in this package is published under the terms of the GPL license       *
+ * a copy of which has been included with this distribution in the license.txt file.  *
+ **************************************************************************************/
+package com.espertech.esper.client;
+
+import java.io.Serializable;
+
+/**
+ * Settings for a concurrent cache that admits query results by access frequency (W-TinyLFU), bounded
+ * either by the number of entries or by the estimated size in bytes of the entries.
+ */
+public class ConfigurationTinyLFUCache implements ConfigurationDataCache, Serializable
+{
+    private int maxSize;
+    private long maxWeightBytes;
+    private double maxAgeSeconds;
+    private double refreshAheadSeconds;
+    private boolean cacheEmptyResults = true;
+    private static final long serialVersionUID = -3281457913065285136L;
+
+    /**
+     * Ctor.
+     * @param maxSize is the maximum number of entries, or zero when bounded by weight
+     * @param maxWeightBytes is the maximum estimated size in bytes of all entries, or zero when bounded by number of entries
+     */
+    public ConfigurationTinyLFUCache(int maxSize, long maxWeightBytes)
+    {
+        this.maxSize = maxSize;
+        this.maxWeightBytes = maxWeightBytes;
+    }
+
+    /**
+     * Returns the maximum number of entries, or zero when bounded by weight.
+     * @return max cache size
+     */
+    public int getMaxSize()
+    {
+        return maxSize;
+    }
+
+    /**
+     * Returns the maximum estimated size in bytes of all entries, or zero when bounded by number of entries.
+     * @return max weight in bytes
+     */
+    public long getMaxWeightBytes()
+    {
+        return maxWeightBytes;
+    }
+
+    /**
+     * Returns the maximum age in seconds of an entry, or zero if entries do not become stale.
+     * @return number of seconds
+     */
+    public double getMaxAgeSeconds()
+    {
+        return maxAgeSeconds;
+    }
+
+    /**
+     * Sets the maximum age in seconds of an entry, or zero if entries do not become stale.
+     * @param maxAgeSeconds number of seconds
+     */
+    public void setMaxAgeSeconds(double maxAgeSeconds)
+    {
+        this.maxAgeSeconds = maxAgeSeconds;
+    }
+
+    /**
+     * Returns the age in seconds after which a frequently used entry is reloaded ahead of becoming stale,
+     * or zero for no refresh-ahead.
+     * @return number of seconds
+     */
+    public double getRefreshAheadSeconds()
+    {
+        return refreshAheadSeconds;
+    }
+
+    /**
+     * Sets the age in seconds after which a frequently used entry is reloaded ahead of becoming stale,
+     * or zero for no refresh-ahead.
+     * @param refreshAheadSeconds number of seconds, less then the maximum age
+     */
+    public void setRefreshAheadSeconds(double refreshAheadSeconds)
+    {
+        this.refreshAheadSeconds = refreshAheadSeconds;
+    }
+
+    /**
+     * Returns indicator whether query results without rows are cached.
+     * @return true to cache empty results (the default)
+     */
+    public boolean isCacheEmptyResults()
+    {
+        return cacheEmptyResults;
+    }
+
+    /**
+     * Sets indicator whether query results without rows are cached.
+     * @param cacheEmptyResults true to cache empty results
+     */
+    public void setCacheEmptyResults(boolean cacheEmptyResults)
+    {
+        this.cacheEmptyResults = cacheEmptyResults;
+    }
+
+    public String toString()
+    {
+        return "TinyLFUCacheDesc maxSize=" + maxSize + " maxWeightBytes=" + maxWeightBytes + " maxAgeSeconds=" + maxAgeSeconds +
+                " refreshAheadSeconds=" + refreshAheadSeconds + " cacheEmptyResults=" + cacheEmptyResults;
+    }
+}
@@ -13,6 +13,7 @@ import com.espertech.esper.client.dataflow.EPDataFlowRuntime;
 import com.espertech.esper.client.util.EventRenderer;
 
 import java.net.URI;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -69,6 +70,54 @@ public interface EPRuntime
      */
     public void sendEvent(org.w3c.dom.Node node) throws EPException;
 
+    /**
+     * Send a batch of events represented by plain Java objects to the event stream processing runtime.
+     * <p>
+     * The result is the same as calling sendEvent for each event in array order: listeners receive the output
+     * of each event before the next event is processed and routed or inserted-into events are processed
+     * between events. The runtime however acquires the event processing lock once for each run of events that
+     * does not produce output, reducing per-event overhead for large batches.
+     * <p>
+     * Use the route method for sending events into the runtime from within UpdateListener code.
+     *
+     * @param objects are the events to send to the runtime, null elements are ignored
+     * @throws EPException is thrown when the processing of an event lead to an error
+     */
+    public void sendEvents(Object[] objects) throws EPException;
+
+    /**
+     * Send a batch of events represented by plain Java objects to the event stream processing runtime,
+     * in the iteration order of the list.
+     * <p>
+     * Equivalent to {@link #sendEvents(Object[])}.
+     *
+     * @param objects are the events to send to the runtime, null elements are ignored
+     * @throws EPException is thrown when the processing of an event lead to an error
+     */
+    public void sendEvents(List<?> objects) throws EPException;
+
+    /**
+     * Send a batch of maps containing event property values to the event stream processing runtime.
+     * <p>
+     * Equivalent to calling sendEvent for each map in array order, see {@link #sendEvents(Object[])}.
+     *
+     * @param maps - maps that contain event property values, all of the given Map event type
+     * @param mapEventTypeName - the name for the Map event type that was previously configured
+     * @throws EPException - when the processing of an event leads to an error
+     */
+    public void sendEvents(Map[] maps, String mapEventTypeName) throws EPException;
+
+    /**
+     * Send a batch of object arrays containing event property values to the event stream processing runtime.
+     * <p>
+     * Equivalent to calling sendEvent for each object array in array order, see {@link #sendEvents(Object[])}.
+     *
+     * @param objectarrays - arrays that contain event property values, all of the given Object-array event type
+     * @param objectArrayEventTypeName - the name for the Object-array event type that was previously configured
+     * @throws EPException - when the processing of an event leads to an error
+     */
+    public void sendEvents(Object[][] objectarrays, String objectArrayEventTypeName) throws EPException;
+
     /**
      * Number of events evaluated over the lifetime of the event stream processing runtime,
      * or since the last resetStats() call.
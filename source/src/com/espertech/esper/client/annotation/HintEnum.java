@@ -79,10 +79,35 @@ public enum HintEnum
      */
     PREFER_MERGE_JOIN("PREFER_MERGE_JOIN", false, false, false),
 
+    /**
+     * For use with inner joins that require the remove stream, such as joins of batch windows, to maintain the join result
+     * and compute the remove stream from the maintained result instead of by joining the removed events.
+     */
+    INCREMENTAL_JOIN("INCREMENTAL_JOIN", false, false, false),
+
+    /**
+     * For use with joins of SQL or method-invocation historical streams, to complete joins on a separate thread per statement
+     * and poll historical data ahead of joins. The number of concurrent polls per historical stream.
+     */
+    HISTORICAL_ASYNC("HISTORICAL_ASYNC", true, true, false),
+
+    /**
+     * For use with create-named-window statements for data windows that are not batch windows, to keep named window
+     * contents as multiple versions such that iterating and fire-and-forget queries read a consistent version
+     * without locking out on-merge, on-update and on-delete statements. Rows are then returned in the order of insertion.
+     */
+    SNAPSHOT_READS("SNAPSHOT_READS", false, false, false),
+
     /**
      * For use everywhere where indexes are used (subquery, joins, fire-and-forget, onl-select etc.), index hint.
      */
-    INDEX("INDEX", false, false, true);
+    INDEX("INDEX", false, false, true),
+
+    /**
+     * For use with create-named-window statements and the keep-all data window, the value "offheap" to keep
+     * events of a Map or object-array event type in columnar storage outside of the Java heap.
+     */
+    STORAGE("STORAGE", true, true, false);
 
     private final String value;
     private final boolean acceptsParameters;
@@ -0,0 +1,147 @@
+/**************************************************************************************
+ * Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ * http://esper.codehaus.org                                                          *
+ * http://www.espertech.com                                                           *
+ * ---------------------------------------------------------------------------------- *
+ * The software in this package is published under the terms of the GPL license       *
+ * a copy of which has been included with this distribution in the license.txt file.  *
+ **************************************************************************************/
+package com.espertech.esper.client.metric;
+
+/**
+ * Reports the time spent per stage of event processing for a statement, or for the engine in the
+ * case of filter matching, as measured by engine instrumentation.
+ * <p>
+ * Times are in nanoseconds since the last report. The time of a stage excludes the time of stages nested
+ * in it, for example output processing time excludes aggregation time. Produced at the engine metrics interval
+ * when instrumentation is enabled.
+ */
+public class StageMetric extends MetricEvent
+{
+    private final String statementName;
+    private final long timestamp;
+    private final long numInvocations;
+    private final long filterTime;
+    private final long statementTime;
+    private final long viewTime;
+    private final long aggregationTime;
+    private final long outputTime;
+    private final long dispatchTime;
+
+    /**
+     * Ctor.
+     * @param engineURI engine URI
+     * @param statementName statement name, or null for processing not specific to a statement
+     * @param timestamp engine timestamp
+     * @param numInvocations number of times the statement was processed
+     * @param filterTime filter matching time
+     * @param statementTime statement processing time not part of another stage
+     * @param viewTime view update time
+     * @param aggregationTime aggregation time
+     * @param outputTime output processing time
+     * @param dispatchTime listener and subscriber dispatch time
+     */
+    public StageMetric(String engineURI, String statementName, long timestamp, long numInvocations, long filterTime, long statementTime, long viewTime, long aggregationTime, long outputTime, long dispatchTime)
+    {
+        super(engineURI);
+        this.statementName = statementName;
+        this.timestamp = timestamp;
+        this.numInvocations = numInvocations;
+        this.filterTime = filterTime;
+        this.statementTime = statementTime;
+        this.viewTime = viewTime;
+        this.aggregationTime = aggregationTime;
+        this.outputTime = outputTime;
+        this.dispatchTime = dispatchTime;
+    }
+
+    /**
+     * Returns the statement name, or null for processing not specific to a statement such as filter matching.
+     * @return statement name
+     */
+    public String getStatementName()
+    {
+        return statementName;
+    }
+
+    /**
+     * Returns engine timestamp.
+     * @return timestamp
+     */
+    public long getTimestamp()
+    {
+        return timestamp;
+    }
+
+    /**
+     * Returns the number of times the statement was processed.
+     * @return number of invocations
+     */
+    public long getNumInvocations()
+    {
+        return numInvocations;
+    }
+
+    /**
+     * Returns the time matching events against the filters of all statements.
+     * @return filter matching time in nanoseconds
+     */
+    public long getFilterTime()
+    {
+        return filterTime;
+    }
+
+    /**
+     * Returns the time processing the statement that is not part of another stage.
+     * @return statement processing time in nanoseconds
+     */
+    public long getStatementTime()
+    {
+        return statementTime;
+    }
+
+    /**
+     * Returns the time updating views.
+     * @return view update time in nanoseconds
+     */
+    public long getViewTime()
+    {
+        return viewTime;
+    }
+
+    /**
+     * Returns the time applying events to aggregation functions.
+     * @return aggregation time in nanoseconds
+     */
+    public long getAggregationTime()
+    {
+        return aggregationTime;
+    }
+
+    /**
+     * Returns the time processing the result set, output rate limiting and output conditions.
+     * @return output processing time in nanoseconds
+     */
+    public long getOutputTime()
+    {
+        return outputTime;
+    }
+
+    /**
+     * Returns the time dispatching to listeners and subscribers.
+     * @return dispatch time in nanoseconds
+     */
+    public long getDispatchTime()
+    {
+        return dispatchTime;
+    }
+
+    /**
+     * Returns the total time of all stages.
+     * @return total time in nanoseconds
+     */
+    public long getTotalTime()
+    {
+        return filterTime + statementTime + viewTime + aggregationTime + outputTime + dispatchTime;
+    }
+}
@@ -9,12 +9,21 @@
 package com.espertech.esper.client.metric;
 
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Reports statement-level instrumentation values.
  */
 public class StatementMetric extends MetricEvent
 {
+    // latency histogram buckets: exact below 8 nanoseconds, then 8 buckets per power of two, up to 2^41 nanoseconds
+    private static final int LATENCY_SUB_BUCKET_BITS = 3;
+    private static final int LATENCY_SUB_BUCKETS = 1 << LATENCY_SUB_BUCKET_BITS;
+    private static final int LATENCY_MAX_EXPONENT = 40;
+    private static final int LATENCY_NUM_BUCKETS = (LATENCY_MAX_EXPONENT - LATENCY_SUB_BUCKET_BITS + 2) * LATENCY_SUB_BUCKETS;
+    private static final long LATENCY_MAX_VALUE = (1L << (LATENCY_MAX_EXPONENT + 1)) - 1;
+
     private long timestamp;
     private String statementName;
     private AtomicLong cpuTime;
@@ -22,6 +31,12 @@ public class StatementMetric extends MetricEvent
     private AtomicLong numInput;
     private AtomicLong numOutputRStream;
     private AtomicLong numOutputIStream;
+    private AtomicLong numDataCacheHits;
+    private AtomicLong numDataCacheMisses;
+    private AtomicLong numDataCacheEvictions;
+    private AtomicLong dataCacheLoadTime;
+    private AtomicLong numLatencies;
+    private AtomicReference<AtomicLongArray> latencyBuckets;
 
     /**
      * Ctor.
@@ -37,6 +52,12 @@ public class StatementMetric extends MetricEvent
         this.numOutputIStream = new AtomicLong();
         this.numOutputRStream = new AtomicLong();
         this.numInput = new AtomicLong();
+        this.numDataCacheHits = new AtomicLong();
+        this.numDataCacheMisses = new AtomicLong();
+        this.numDataCacheEvictions = new AtomicLong();
+        this.dataCacheLoadTime = new AtomicLong();
+        this.numLatencies = new AtomicLong();
+        this.latencyBuckets = new AtomicReference<AtomicLongArray>();
     }
 
     /**
@@ -154,4 +175,186 @@ public class StatementMetric extends MetricEvent
     {
         numInput.addAndGet(numInputAdd);
     }
+
+    /**
+     * Returns the number of lookups of historical data found in the data cache.
+     * @return number of cache hits
+     */
+    public long getNumDataCacheHits()
+    {
+        return numDataCacheHits.get();
+    }
+
+    /**
+     * Returns the number of lookups of historical data not found in the data cache.
+     * @return number of cache misses
+     */
+    public long getNumDataCacheMisses()
+    {
+        return numDataCacheMisses.get();
+    }
+
+    /**
+     * Returns the number of entries evicted from the data cache, including stale entries.
+     * @return number of cache evictions
+     */
+    public long getNumDataCacheEvictions()
+    {
+        return numDataCacheEvictions.get();
+    }
+
+    /**
+     * Returns the time in nanoseconds spent loading historical data not found in the data cache.
+     * @return load time
+     */
+    public long getDataCacheLoadTime()
+    {
+        return dataCacheLoadTime.get();
+    }
+
+    /**
+     * Adds data cache counters.
+     * @param numHits number of cache hits to add
+     * @param numMisses number of cache misses to add
+     * @param numEvictions number of evictions to add
+     * @param loadTime load time in nanoseconds to add
+     */
+    public void addDataCache(long numHits, long numMisses, long numEvictions, long loadTime)
+    {
+        if (numHits != 0)
+        {
+            numDataCacheHits.addAndGet(numHits);
+        }
+        if (numMisses != 0)
+        {
+            numDataCacheMisses.addAndGet(numMisses);
+        }
+        if (numEvictions != 0)
+        {
+            numDataCacheEvictions.addAndGet(numEvictions);
+        }
+        if (loadTime != 0)
+        {
+            dataCacheLoadTime.addAndGet(loadTime);
+        }
+    }
+
+    /**
+     * Adds the wall time of a single delivery of events to the statement to the latency histogram.
+     * @param wall wall time in nanoseconds
+     */
+    public void addLatency(long wall)
+    {
+        AtomicLongArray buckets = latencyBuckets.get();
+        if (buckets == null)
+        {
+            latencyBuckets.compareAndSet(null, new AtomicLongArray(LATENCY_NUM_BUCKETS));
+            buckets = latencyBuckets.get();
+        }
+        buckets.incrementAndGet(getLatencyBucket(wall));
+        numLatencies.incrementAndGet();
+    }
+
+    /**
+     * Returns the number of deliveries of events to the statement in the latency histogram.
+     * @return number of deliveries
+     */
+    public long getNumLatencies()
+    {
+        return numLatencies.get();
+    }
+
+    /**
+     * Returns the median wall time of a delivery of events to the statement, in nanoseconds.
+     * @return 50th percentile wall time
+     */
+    public long getWallTimeP50()
+    {
+        return getWallTimePercentile(50);
+    }
+
+    /**
+     * Returns the 99th percentile wall time of a delivery of events to the statement, in nanoseconds.
+     * @return 99th percentile wall time
+     */
+    public long getWallTimeP99()
+    {
+        return getWallTimePercentile(99);
+    }
+
+    /**
+     * Returns the 99.9th percentile wall time of a delivery of events to the statement, in nanoseconds.
+     * @return 99.9th percentile wall time
+     */
+    public long getWallTimeP999()
+    {
+        return getWallTimePercentile(99.9);
+    }
+
+    /**
+     * Returns the wall time of a delivery of events to the statement at the percentile, in nanoseconds.
+     * <p>
+     * The value is the highest value of the histogram bucket the percentile falls into,
+     * which is within 12.5% of the actual value.
+     * @param percentile percentile between 0 and 100
+     * @return wall time at percentile, or zero if no deliveries
+     */
+    public long getWallTimePercentile(double percentile)
+    {
+        AtomicLongArray buckets = latencyBuckets.get();
+        if (buckets == null)
+        {
+            return 0;
+        }
+        long total = 0;
+        long[] counts = new long[LATENCY_NUM_BUCKETS];
+        for (int i = 0; i < LATENCY_NUM_BUCKETS; i++)
+        {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        if (total == 0)
+        {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100d * total));
+        long count = 0;
+        for (int i = 0; i < LATENCY_NUM_BUCKETS; i++)
+        {
+            count += counts[i];
+            if (count >= rank)
+            {
+                return getLatencyBucketHighestValue(i);
+            }
+        }
+        return getLatencyBucketHighestValue(LATENCY_NUM_BUCKETS - 1);
+    }
+
+    private static int getLatencyBucket(long value)
+    {
+        if (value < LATENCY_SUB_BUCKETS)
+        {
+            return value < 0 ? 0 : (int) value;
+        }
+        if (value > LATENCY_MAX_VALUE)
+        {
+            value = LATENCY_MAX_VALUE;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - LATENCY_SUB_BUCKET_BITS)) & (LATENCY_SUB_BUCKETS - 1);
+        return (exponent - LATENCY_SUB_BUCKET_BITS + 1) * LATENCY_SUB_BUCKETS + subBucket;
+    }
+
+    private static long getLatencyBucketHighestValue(int bucket)
+    {
+        if (bucket < LATENCY_SUB_BUCKETS)
+        {
+            return bucket;
+        }
+        int exponent = bucket / LATENCY_SUB_BUCKETS + LATENCY_SUB_BUCKET_BITS - 1;
+        long subBucket = bucket % LATENCY_SUB_BUCKETS;
+        long lowest = (LATENCY_SUB_BUCKETS + subBucket) << (exponent - LATENCY_SUB_BUCKET_BITS);
+        return lowest + (1L << (exponent - LATENCY_SUB_BUCKET_BITS)) - 1;
+    }
 }
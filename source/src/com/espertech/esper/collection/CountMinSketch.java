@@ -0,0 +1,118 @@
+/**************************************************************************************
+ * Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ * http://esper.codehaus.org                                                          *
+ * http://www.espertech.com                                                           *
+ * ---------------------------------------------------------------------------------- *
+ * The software in this package is published under the terms of the GPL license       *
+ * a copy of which has been included with this distribution in the license.txt file.  *
+ **************************************************************************************/
+package com.espertech.esper.collection;
+
+import java.util.Arrays;
+
+/**
+ * Count-Min sketch estimating the frequency of values in constant memory.
+ * <p>
+ * The sketch has a row of counters per hash function, the estimate being the minimum over the rows of the counter
+ * the value hashes to. Estimates never fall below the actual frequency, and exceed it by at most e / width times the
+ * total count with probability 1 - exp(-depth). As long as only values previously added are removed,
+ * removal keeps these guarantees. Sketches of the same dimensions can be merged, for example to combine
+ * the sketches of context partitions.
+ */
+public class CountMinSketch
+{
+    private final int depth;
+    private final int mask;
+    private final int[] counters;
+    private long totalCount;
+
+    /**
+     * Ctor.
+     * @param depth number of hash functions
+     * @param width minimum number of counters per hash function, rounded up to a power of 2
+     */
+    public CountMinSketch(int depth, int width)
+    {
+        int size = 1;
+        while (size < width)
+        {
+            size <<= 1;
+        }
+        this.depth = depth;
+        this.mask = size - 1;
+        this.counters = new int[depth * size];
+    }
+
+    /**
+     * Removes all values.
+     */
+    public void clear()
+    {
+        Arrays.fill(counters, 0);
+        totalCount = 0;
+    }
+
+    /**
+     * Adds to the frequency of a value.
+     * @param hash 64-bit hash of the value, see {@link SketchHash}
+     * @param count count to add, negative to remove
+     */
+    public void add(long hash, int count)
+    {
+        int hash1 = (int) hash;
+        int hash2 = (int) (hash >>> 32);
+        for (int i = 0; i < depth; i++)
+        {
+            counters[i * (mask + 1) + ((hash1 + i * hash2) & mask)] += count;
+        }
+        totalCount += count;
+    }
+
+    /**
+     * Returns the estimated frequency of a value.
+     * @param hash 64-bit hash of the value, see {@link SketchHash}
+     * @return estimate
+     */
+    public int estimate(long hash)
+    {
+        int hash1 = (int) hash;
+        int hash2 = (int) (hash >>> 32);
+        int min = Integer.MAX_VALUE;
+        for (int i = 0; i < depth; i++)
+        {
+            int count = counters[i * (mask + 1) + ((hash1 + i * hash2) & mask)];
+            if (count < min)
+            {
+                min = count;
+            }
+        }
+        return min;
+    }
+
+    /**
+     * Returns the sum of all counts added.
+     * @return total count
+     */
+    public long getTotalCount()
+    {
+        return totalCount;
+    }
+
+    /**
+     * Merges the counts of another sketch into this sketch, by adding the counters.
+     * @param other sketch of the same dimensions
+     * @throws IllegalArgumentException if the dimensions differ
+     */
+    public void merge(CountMinSketch other)
+    {
+        if ((other.depth != depth) || (other.mask != mask))
+        {
+            throw new IllegalArgumentException("Cannot merge sketches of different dimensions");
+        }
+        for (int i = 0; i < counters.length; i++)
+        {
+            counters[i] += other.counters[i];
+        }
+        totalCount += other.totalCount;
+    }
+}
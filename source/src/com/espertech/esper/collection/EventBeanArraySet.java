@@ -0,0 +1,176 @@
+/**************************************************************************************
+ * Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ * http://esper.codehaus.org                                                          *
+ * http://www.espertech.com                                                           *
+ * ---------------------------------------------------------------------------------- *
+ * The software in this package is published under the terms of the GPL license       *
+ * a copy of which has been included with this distribution in the license.txt file.  *
+ **************************************************************************************/
+package com.espertech.esper.collection;
+
+import com.espertech.esper.client.EventBean;
+
+import java.util.AbstractSet;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Set of events backed by an array, keeping events in insertion order.
+ * <p>
+ * Membership tests and removal scan the array, therefore the set is meant for a small number of events
+ * such as the events for a single key of an index, where it takes much less memory then a hash set.
+ * Removing the oldest event, as is typical for data windows, finds the event at the first position.
+ */
+public final class EventBeanArraySet extends AbstractSet<EventBean>
+{
+    private EventBean[] events;
+    private int size;
+    private int modCount;
+
+    /**
+     * Ctor.
+     * @param first first event
+     * @param second second event
+     */
+    public EventBeanArraySet(EventBean first, EventBean second)
+    {
+        events = new EventBean[] {first, second};
+        size = 2;
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    public boolean contains(Object o)
+    {
+        return indexOf(o) != -1;
+    }
+
+    public boolean add(EventBean theEvent)
+    {
+        if (indexOf(theEvent) != -1)
+        {
+            return false;
+        }
+        if (size == events.length)
+        {
+            EventBean[] grown = new EventBean[size + (size >> 1) + 1];
+            System.arraycopy(events, 0, grown, 0, size);
+            events = grown;
+        }
+        events[size++] = theEvent;
+        modCount++;
+        return true;
+    }
+
+    public boolean remove(Object o)
+    {
+        int index = indexOf(o);
+        if (index == -1)
+        {
+            return false;
+        }
+        removeAt(index);
+        return true;
+    }
+
+    public void clear()
+    {
+        for (int i = 0; i < size; i++)
+        {
+            events[i] = null;
+        }
+        size = 0;
+        modCount++;
+    }
+
+    /**
+     * Returns the event at the given position in insertion order.
+     * @param index position
+     * @return event
+     */
+    public EventBean get(int index)
+    {
+        if (index >= size)
+        {
+            throw new IndexOutOfBoundsException("Index " + index + " not within size " + size);
+        }
+        return events[index];
+    }
+
+    public Iterator<EventBean> iterator()
+    {
+        return new Iterator<EventBean>()
+        {
+            private int index;
+            private int last = -1;
+            private int expectedModCount = modCount;
+
+            public boolean hasNext()
+            {
+                return index < size;
+            }
+
+            public EventBean next()
+            {
+                if (modCount != expectedModCount)
+                {
+                    throw new ConcurrentModificationException();
+                }
+                if (index >= size)
+                {
+                    throw new NoSuchElementException();
+                }
+                last = index;
+                return events[index++];
+            }
+
+            public void remove()
+            {
+                if (last == -1)
+                {
+                    throw new IllegalStateException();
+                }
+                if (modCount != expectedModCount)
+                {
+                    throw new ConcurrentModificationException();
+                }
+                removeAt(last);
+                index = last;
+                last = -1;
+                expectedModCount = modCount;
+            }
+        };
+    }
+
+    private int indexOf(Object o)
+    {
+        for (int i = 0; i < size; i++)
+        {
+            if (events[i].equals(o))
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void removeAt(int index)
+    {
+        int moved = size - index - 1;
+        if (moved > 0)
+        {
+            System.arraycopy(events, index + 1, events, index, moved);
+        }
+        events[--size] = null;
+        modCount++;
+    }
+}
@@ -0,0 +1,273 @@
+/**************************************************************************************
+ * Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ * http://esper.codehaus.org                                                          *
+ * http://www.espertech.com                                                           *
+ * ---------------------------------------------------------------------------------- *
+ * The software in this package is published under the terms of the GPL license       *
+ * a copy of which has been included with this distribution in the license.txt file.  *
+ **************************************************************************************/
+package com.espertech.esper.collection;
+
+import java.util.Arrays;
+
+/**
+ * HyperLogLog sketch estimating the number of distinct values added, in constant memory.
+ * <p>
+ * The sketch has 2^precision one-byte registers and a relative standard error of about
+ * 1.04 / sqrt(2^precision), i.e. 1.6% for a precision of 12 using 4 kB.
+ * Hashes are 64 bits wide so that no large-range correction is required, and small cardinalities are
+ * estimated by linear counting. The sum used for the estimate is maintained as registers change so that
+ * obtaining the estimate takes constant time.
+ * <p>
+ * A sketch constructed as removable additionally counts, per register, the values added at each rank. Removing a
+ * value decrements its count, and a register falls back to the next lower rank still counted once no value of
+ * its rank remains. The estimate then equals that of a sketch of the remaining values only, at the cost of a count
+ * array per register sized by the highest rank seen, typically a few hundred bytes for each register.
+ * <p>
+ * Sketches of the same precision can be merged, for example to combine the sketches of context partitions.
+ */
+public class HyperLogLog
+{
+    private final int precision;
+    private final byte[] registers;
+    private final int[][] rankCounts;
+    private final double alphaMM;
+    private double inverseSum;
+    private int numZeroRegisters;
+
+    /**
+     * Ctor.
+     * @param precision number of bits addressing the registers, between 4 and 18
+     */
+    public HyperLogLog(int precision)
+    {
+        this(precision, false);
+    }
+
+    /**
+     * Ctor.
+     * @param precision number of bits addressing the registers, between 4 and 18
+     * @param removable true to allow removal of values
+     */
+    public HyperLogLog(int precision, boolean removable)
+    {
+        if ((precision < 4) || (precision > 18))
+        {
+            throw new IllegalArgumentException("Precision must be between 4 and 18");
+        }
+        this.precision = precision;
+        int numRegisters = 1 << precision;
+        this.registers = new byte[numRegisters];
+        this.rankCounts = removable ? new int[numRegisters][] : null;
+
+        double alpha;
+        if (numRegisters == 16)
+        {
+            alpha = 0.673;
+        }
+        else if (numRegisters == 32)
+        {
+            alpha = 0.697;
+        }
+        else if (numRegisters == 64)
+        {
+            alpha = 0.709;
+        }
+        else
+        {
+            alpha = 0.7213 / (1 + 1.079 / numRegisters);
+        }
+        this.alphaMM = alpha * numRegisters * numRegisters;
+        clear();
+    }
+
+    /**
+     * Removes all values.
+     */
+    public void clear()
+    {
+        Arrays.fill(registers, (byte) 0);
+        if (rankCounts != null)
+        {
+            Arrays.fill(rankCounts, null);
+        }
+        inverseSum = registers.length;
+        numZeroRegisters = registers.length;
+    }
+
+    /**
+     * Adds a value by its hash.
+     * @param hash 64-bit hash of the value, see {@link SketchHash}
+     */
+    public void add(long hash)
+    {
+        int index = index(hash);
+        int rank = rank(hash);
+        if (rankCounts != null)
+        {
+            int[] counts = rankCounts[index];
+            if (counts == null)
+            {
+                counts = new int[rank + 1];
+                rankCounts[index] = counts;
+            }
+            else if (counts.length <= rank)
+            {
+                counts = Arrays.copyOf(counts, rank + 1);
+                rankCounts[index] = counts;
+            }
+            counts[rank]++;
+        }
+        if (rank > registers[index])
+        {
+            setRegister(index, rank);
+        }
+    }
+
+    /**
+     * Removes a value by its hash, the value must have been added before.
+     * @param hash 64-bit hash of the value, see {@link SketchHash}
+     * @throws UnsupportedOperationException if the sketch is not removable
+     * @throws IllegalStateException if no value of the same register and rank was added
+     */
+    public void remove(long hash)
+    {
+        if (rankCounts == null)
+        {
+            throw new UnsupportedOperationException("Sketch is not removable");
+        }
+        int index = index(hash);
+        int rank = rank(hash);
+        int[] counts = rankCounts[index];
+        if ((counts == null) || (counts.length <= rank) || (counts[rank] == 0))
+        {
+            throw new IllegalStateException("Value to be removed was not added");
+        }
+        counts[rank]--;
+        if ((counts[rank] > 0) || (rank < registers[index]))
+        {
+            return;
+        }
+        int lower = rank - 1;
+        while ((lower > 0) && (counts[lower] == 0))
+        {
+            lower--;
+        }
+        if (lower == 0)
+        {
+            rankCounts[index] = null;
+        }
+        setRegister(index, lower);
+    }
+
+    /**
+     * Returns the estimated number of distinct values.
+     * @return estimate
+     */
+    public long estimate()
+    {
+        int numRegisters = registers.length;
+        double estimate = alphaMM / inverseSum;
+        if ((estimate <= 2.5 * numRegisters) && (numZeroRegisters > 0))
+        {
+            estimate = numRegisters * Math.log((double) numRegisters / numZeroRegisters);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * Merges the values of another sketch into this sketch, by taking the maximum rank of each register.
+     * <p>
+     * A removable sketch merges only removable sketches, adding their counts per rank so that the merged values remain removable.
+     * @param other sketch of the same precision
+     * @throws IllegalArgumentException if the precision differs, or this sketch is removable and the other is not
+     */
+    public void merge(HyperLogLog other)
+    {
+        if (other.precision != precision)
+        {
+            throw new IllegalArgumentException("Cannot merge sketches of different precision");
+        }
+        if ((rankCounts != null) && (other.rankCounts == null))
+        {
+            throw new IllegalArgumentException("Cannot merge a sketch that is not removable into a removable sketch");
+        }
+        if (other == this)
+        {
+            throw new IllegalArgumentException("Cannot merge a sketch into itself");
+        }
+        for (int i = 0; i < registers.length; i++)
+        {
+            if (rankCounts != null)
+            {
+                int[] otherCounts = other.rankCounts[i];
+                if (otherCounts != null)
+                {
+                    int[] counts = rankCounts[i];
+                    if (counts == null)
+                    {
+                        counts = new int[otherCounts.length];
+                    }
+                    else if (counts.length < otherCounts.length)
+                    {
+                        counts = Arrays.copyOf(counts, otherCounts.length);
+                    }
+                    for (int rank = 0; rank < otherCounts.length; rank++)
+                    {
+                        counts[rank] += otherCounts[rank];
+                    }
+                    rankCounts[i] = counts;
+                }
+            }
+            if (other.registers[i] > registers[i])
+            {
+                setRegister(i, other.registers[i]);
+            }
+        }
+    }
+
+    /**
+     * Returns the precision.
+     * @return precision
+     */
+    public int getPrecision()
+    {
+        return precision;
+    }
+
+    /**
+     * Returns true if values can be removed.
+     * @return removable indicator
+     */
+    public boolean isRemovable()
+    {
+        return rankCounts != null;
+    }
+
+    private int index(long hash)
+    {
+        return (int) (hash >>> (64 - precision));
+    }
+
+    private int rank(long hash)
+    {
+        // the sentinel bit bounds the rank for hashes whose remaining bits are all zero
+        long remaining = (hash << precision) | (1L << (precision - 1));
+        return Long.numberOfLeadingZeros(remaining) + 1;
+    }
+
+    private void setRegister(int index, int rank)
+    {
+        int current = registers[index];
+        registers[index] = (byte) rank;
+        inverseSum += Math.scalb(1d, -rank) - Math.scalb(1d, -current);
+        if (current == 0)
+        {
+            numZeroRegisters--;
+        }
+        if (rank == 0)
+        {
+            numZeroRegisters++;
+        }
+    }
+}
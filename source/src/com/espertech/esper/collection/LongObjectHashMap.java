@@ -0,0 +1,272 @@
+/**************************************************************************************
+ * Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ * http://esper.codehaus.org                                                          *
+ * http://www.espertech.com                                                           *
+ * ---------------------------------------------------------------------------------- *
+ * The software in this package is published under the terms of the GPL license       *
+ * a copy of which has been included with this distribution in the license.txt file.  *
+ **************************************************************************************/
+package com.espertech.esper.collection;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Hash map keyed by primitive long values, using open addressing with linear probing.
+ * <p>
+ * Keys are stored in a long array and are never boxed, lookups do not allocate.
+ * Null values are not allowed. The map is not thread-safe.
+ */
+public final class LongObjectHashMap<V>
+{
+    private static final int MIN_CAPACITY = 8;
+
+    private long[] keys;
+    private Object[] values;
+    private int mask;
+    private int resizeThreshold;
+    private int size;
+
+    /**
+     * Ctor.
+     */
+    public LongObjectHashMap()
+    {
+        this(MIN_CAPACITY / 2);
+    }
+
+    /**
+     * Ctor.
+     * @param expectedSize number of entries to size the map for
+     */
+    public LongObjectHashMap(int expectedSize)
+    {
+        int capacity = MIN_CAPACITY;
+        while (capacity < expectedSize * 2)
+        {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    /**
+     * Returns the value for the key, or null if the key is not in the map.
+     * @param key to look up
+     * @return value or null if not found
+     */
+    public V get(long key)
+    {
+        int index = slot(key);
+        Object value;
+        while ((value = values[index]) != null)
+        {
+            if (keys[index] == key)
+            {
+                return (V) value;
+            }
+            index = (index + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * Puts a value for the key, replacing any existing value.
+     * @param key to put
+     * @param value to put, not null
+     * @return value previously stored for the key, or null if none
+     */
+    public V put(long key, V value)
+    {
+        if (value == null)
+        {
+            throw new IllegalArgumentException("Null values are not supported");
+        }
+
+        int index = slot(key);
+        Object existing;
+        while ((existing = values[index]) != null)
+        {
+            if (keys[index] == key)
+            {
+                values[index] = value;
+                return (V) existing;
+            }
+            index = (index + 1) & mask;
+        }
+
+        keys[index] = key;
+        values[index] = value;
+        size++;
+        if (size > resizeThreshold)
+        {
+            rehash(values.length << 1);
+        }
+        return null;
+    }
+
+    /**
+     * Removes the key.
+     * @param key to remove
+     * @return value that was stored for the key, or null if not found
+     */
+    public V remove(long key)
+    {
+        int index = slot(key);
+        Object existing;
+        while ((existing = values[index]) != null)
+        {
+            if (keys[index] == key)
+            {
+                values[index] = null;
+                size--;
+                closeGap(index);
+                return (V) existing;
+            }
+            index = (index + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the number of entries.
+     * @return size
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Returns true if the map has no entries.
+     * @return indicator
+     */
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public void clear()
+    {
+        for (int i = 0; i < values.length; i++)
+        {
+            values[i] = null;
+        }
+        size = 0;
+    }
+
+    /**
+     * Returns a new array holding the keys, in no particular order.
+     * @return keys
+     */
+    public long[] keys()
+    {
+        long[] result = new long[size];
+        int count = 0;
+        for (int i = 0; i < values.length; i++)
+        {
+            if (values[i] != null)
+            {
+                result[count++] = keys[i];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns an iterator over the values, in no particular order.
+     * The map must not be modified while iterating.
+     * @return values iterator
+     */
+    public Iterator<V> valueIterator()
+    {
+        return new Iterator<V>()
+        {
+            private int index = advance(0);
+
+            public boolean hasNext()
+            {
+                return index < values.length;
+            }
+
+            public V next()
+            {
+                if (index >= values.length)
+                {
+                    throw new NoSuchElementException();
+                }
+                V value = (V) values[index];
+                index = advance(index + 1);
+                return value;
+            }
+
+            public void remove()
+            {
+                throw new UnsupportedOperationException();
+            }
+
+            private int advance(int from)
+            {
+                while (from < values.length && values[from] == null)
+                {
+                    from++;
+                }
+                return from;
+            }
+        };
+    }
+
+    private int slot(long key)
+    {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    // Backward-shift deletion: moves the following entries of the probe sequence into the freed slot
+    private void closeGap(int free)
+    {
+        int index = (free + 1) & mask;
+        while (values[index] != null)
+        {
+            int home = slot(keys[index]);
+            if (((index - home) & mask) >= ((index - free) & mask))
+            {
+                keys[free] = keys[index];
+                values[free] = values[index];
+                values[index] = null;
+                free = index;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    private void rehash(int capacity)
+    {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldValues.length; i++)
+        {
+            if (oldValues[i] != null)
+            {
+                int index = slot(oldKeys[i]);
+                while (values[index] != null)
+                {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity)
+    {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        resizeThreshold = capacity / 2;
+    }
+}
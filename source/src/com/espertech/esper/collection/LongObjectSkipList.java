@@ -0,0 +1,313 @@
+/**************************************************************************************
+ * Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ * http://esper.codehaus.org                                                          *
+ * http://www.espertech.com                                                           *
+ * ---------------------------------------------------------------------------------- *
+ * The software in this package is published under the terms of the GPL license       *
+ * a copy of which has been included with this distribution in the license.txt file.  *
+ **************************************************************************************/
+package com.espertech.esper.collection;
+
+/**
+ * Sorted map keyed by primitive long values, based on a skip list.
+ * <p>
+ * Keys are never boxed. Entries are navigated by nodes, a node serving as a cursor
+ * for iterating entries in ascending key order starting at a given key.
+ * <p>
+ * A node that is removed keeps its links, therefore a cursor remains valid when the entry it is positioned on,
+ * or any other entry, is removed while iterating: iteration continues with the next entry that was not removed.
+ * Entries added while iterating may or may not be returned.
+ * Null values are not allowed. The map is not thread-safe for modification.
+ */
+public final class LongObjectSkipList<V>
+{
+    private static final int MAX_LEVEL = 32;
+
+    private final Node<V> head;
+    private int level;
+    private int size;
+    private int seed;
+    private final Node<V>[] update;
+
+    /**
+     * Ctor.
+     */
+    public LongObjectSkipList()
+    {
+        head = new Node<V>(Long.MIN_VALUE, null, MAX_LEVEL);
+        level = 1;
+        seed = 0x2545F491;
+        update = new Node[MAX_LEVEL];
+    }
+
+    /**
+     * Returns the value for the key, or null if the key is not in the map.
+     * @param key to look up
+     * @return value or null if not found
+     */
+    public V get(long key)
+    {
+        Node<V> node = findGreaterOrEqual(key, null);
+        if (node != null && node.key == key)
+        {
+            return node.value;
+        }
+        return null;
+    }
+
+    /**
+     * Puts a value for the key, replacing any existing value.
+     * @param key key
+     * @param value value, not null
+     * @return previous value or null if the key was not in the map
+     */
+    public V put(long key, V value)
+    {
+        Node<V> node = putIfAbsent(key, value);
+        if (node == null)
+        {
+            return null;
+        }
+        V existing = node.value;
+        node.value = value;
+        return existing;
+    }
+
+    /**
+     * Returns the node for the key, or null if the key is not in the map.
+     * @param key to look up
+     * @return node or null if not found
+     */
+    public Node<V> getNode(long key)
+    {
+        Node<V> node = findGreaterOrEqual(key, null);
+        if (node != null && node.key == key)
+        {
+            return node;
+        }
+        return null;
+    }
+
+    /**
+     * Puts a value for the key unless the key is already in the map.
+     * @param key key
+     * @param value value, not null
+     * @return node of the key if the key was already in the map, or null if the value was put
+     */
+    public Node<V> putIfAbsent(long key, V value)
+    {
+        Node<V> node = findGreaterOrEqual(key, update);
+        if (node != null && node.key == key)
+        {
+            return node;
+        }
+
+        int nodeLevel = randomLevel();
+        if (nodeLevel > level)
+        {
+            for (int i = level; i < nodeLevel; i++)
+            {
+                update[i] = head;
+            }
+            level = nodeLevel;
+        }
+        Node<V> inserted = new Node<V>(key, value, nodeLevel);
+        for (int i = 0; i < nodeLevel; i++)
+        {
+            inserted.next[i] = update[i].next[i];
+            update[i].next[i] = inserted;
+        }
+        size++;
+        return null;
+    }
+
+    /**
+     * Removes the key.
+     * @param key to remove
+     * @return value that was stored for the key, or null if not found
+     */
+    public V remove(long key)
+    {
+        Node<V> node = findGreaterOrEqual(key, update);
+        if (node == null || node.key != key)
+        {
+            return null;
+        }
+        for (int i = 0; i < node.next.length; i++)
+        {
+            update[i].next[i] = node.next[i];
+        }
+        while (level > 1 && head.next[level - 1] == null)
+        {
+            level--;
+        }
+        V existing = node.value;
+        node.removed = true;
+        size--;
+        return existing;
+    }
+
+    /**
+     * Returns the first node, or null if the map is empty.
+     * @return node with the lowest key
+     */
+    public Node<V> first()
+    {
+        return head.next[0];
+    }
+
+    /**
+     * Returns the node with the lowest key greater then, or greater or equal to, the given key.
+     * @param key key
+     * @param inclusive true to include a node of the key itself
+     * @return node or null if there is no such node
+     */
+    public Node<V> ceiling(long key, boolean inclusive)
+    {
+        Node<V> node = findGreaterOrEqual(key, null);
+        if (!inclusive && node != null && node.key == key)
+        {
+            return node.next[0];
+        }
+        return node;
+    }
+
+    /**
+     * Returns the number of entries.
+     * @return size
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Returns true if the map has no entries.
+     * @return indicator
+     */
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    /**
+     * Removes all entries. Existing cursors end.
+     */
+    public void clear()
+    {
+        for (Node<V> node = head.next[0]; node != null; node = node.next[0])
+        {
+            node.removed = true;
+        }
+        for (int i = 0; i < MAX_LEVEL; i++)
+        {
+            head.next[i] = null;
+        }
+        level = 1;
+        size = 0;
+    }
+
+    private Node<V> findGreaterOrEqual(long key, Node<V>[] predecessors)
+    {
+        Node<V> node = head;
+        for (int i = level - 1; i >= 0; i--)
+        {
+            Node<V> next = node.next[i];
+            while (next != null && next.key < key)
+            {
+                node = next;
+                next = node.next[i];
+            }
+            if (predecessors != null)
+            {
+                predecessors[i] = node;
+            }
+        }
+        return node.next[0];
+    }
+
+    // Level with probability 1/4 for each level above the first, from a xorshift generator
+    private int randomLevel()
+    {
+        int x = seed;
+        x ^= x << 13;
+        x ^= x >>> 17;
+        x ^= x << 5;
+        seed = x;
+        int nodeLevel = 1;
+        while ((x & 3) == 0 && nodeLevel < MAX_LEVEL)
+        {
+            nodeLevel++;
+            x >>>= 2;
+        }
+        return nodeLevel;
+    }
+
+    /**
+     * Entry of the map, serving as a cursor.
+     */
+    public static final class Node<V>
+    {
+        private final long key;
+        private V value;
+        private final Node<V>[] next;
+        private boolean removed;
+
+        private Node(long key, V value, int level)
+        {
+            this.key = key;
+            this.value = value;
+            this.next = new Node[level];
+        }
+
+        /**
+         * Returns the key.
+         * @return key
+         */
+        public long getKey()
+        {
+            return key;
+        }
+
+        /**
+         * Returns the value.
+         * @return value
+         */
+        public V getValue()
+        {
+            return value;
+        }
+
+        /**
+         * Sets the value.
+         * @param value value, not null
+         */
+        public void setValue(V value)
+        {
+            this.value = value;
+        }
+
+        /**
+         * Returns true if the entry was removed from the map.
+         * @return indicator
+         */
+        public boolean isRemoved()
+        {
+            return removed;
+        }
+
+        /**
+         * Returns the node with the next higher key that was not removed, or null if there is none.
+         * @return next node
+         */
+        public Node<V> getNext()
+        {
+            Node<V> node = next[0];
+            while (node != null && node.removed)
+            {
+                node = node.next[0];
+            }
+            return node;
+        }
+    }
+}
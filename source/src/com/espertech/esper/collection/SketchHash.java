@@ -0,0 +1,72 @@
+/**************************************************************************************
+ * Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ * http://esper.codehaus.org                                                          *
+ * http://www.espertech.com                                                           *
+ * ---------------------------------------------------------------------------------- *
+ * The software in this package is published under the terms of the GPL license       *
+ * a copy of which has been included with this distribution in the license.txt file.  *
+ **************************************************************************************/
+package com.espertech.esper.collection;
+
+/**
+ * 64-bit hash of values for use by probabilistic sketches such as {@link HyperLogLog} and {@link CountMinSketch}.
+ * <p>
+ * Strings and primitive wrappers hash their full content to 64 bits, other values hash their hash code.
+ * Integral numbers hash by long value, so that the same number hashes the same regardless of its boxed type.
+ */
+public final class SketchHash
+{
+    private SketchHash()
+    {
+    }
+
+    /**
+     * Returns the 64-bit hash of a value.
+     * @param value to hash, not null
+     * @return hash
+     */
+    public static long hash(Object value)
+    {
+        if (value instanceof String)
+        {
+            String text = (String) value;
+            long hash = 0xcbf29ce484222325L;
+            for (int i = 0; i < text.length(); i++)
+            {
+                hash ^= text.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+            return mix(hash);
+        }
+        if ((value instanceof Long) || (value instanceof Integer) || (value instanceof Short) || (value instanceof Byte))
+        {
+            return mix(((Number) value).longValue());
+        }
+        if ((value instanceof Double) || (value instanceof Float))
+        {
+            return mix(Double.doubleToLongBits(((Number) value).doubleValue()));
+        }
+        return mix(value.hashCode());
+    }
+
+    /**
+     * Returns the 64-bit hash of a double value.
+     * @param value to hash
+     * @return hash
+     */
+    public static long hash(double value)
+    {
+        return mix(Double.doubleToLongBits(value));
+    }
+
+    // finalizer of MurmurHash3, each input bit affects each output bit
+    private static long mix(long hash)
+    {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,309 @@
+/**************************************************************************************
+ * Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ * http://esper.codehaus.org                                                          *
+ * http://www.espertech.com                                                           *
+ * ---------------------------------------------------------------------------------- *
+ * The software in this package is published under the terms of the GPL license       *
+ * a copy of which has been included with this distribution in the license.txt file.  *
+ **************************************************************************************/
+package com.espertech.esper.collection;
+
+/**
+ * Sorted, reference-counting multiset of double values that provides the value at a given rank.
+ * <p>
+ * Same contract as {@link SortedDoubleVector} however adding and removing a value and obtaining the value at
+ * an index take logarithmic rather then linear time. The multiset is a treap of distinct values kept in parallel
+ * primitive arrays, each node carrying the number of times its value was added and the total count of its subtree.
+ * Released nodes are reused so that adding and removing values does not allocate once the arrays have grown.
+ */
+public class SortedDoubleTree
+{
+    private static final int INITIAL_CAPACITY = 16;
+
+    // node 0 is the empty subtree
+    private double[] keys;
+    private int[] counts;
+    private int[] sizes;
+    private int[] lefts;
+    private int[] rights;
+    private int[] priorities;
+    private int root;
+    private int numNodes;
+    private int freeList;
+    private int seed = 0x2545F491;
+
+    /**
+     * Constructor.
+     */
+    public SortedDoubleTree()
+    {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Clear out the collection.
+     */
+    public void clear()
+    {
+        if (keys.length > INITIAL_CAPACITY)
+        {
+            allocate(INITIAL_CAPACITY);
+        }
+        root = 0;
+        numNodes = 0;
+        freeList = 0;
+    }
+
+    /**
+     * Returns the number of items in the collection.
+     * @return size
+     */
+    public int size()
+    {
+        return sizes[root];
+    }
+
+    /**
+     * Returns the value at a given index.
+     * @param index for which to return value for
+     * @return value at index
+     * @throws IndexOutOfBoundsException if the index is not less then the size
+     */
+    public double getValue(int index)
+    {
+        if ((index < 0) || (index >= sizes[root]))
+        {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + sizes[root]);
+        }
+        int node = root;
+        while (true)
+        {
+            int leftSize = sizes[lefts[node]];
+            if (index < leftSize)
+            {
+                node = lefts[node];
+            }
+            else if (index < leftSize + counts[node])
+            {
+                return keys[node];
+            }
+            else
+            {
+                index -= leftSize + counts[node];
+                node = rights[node];
+            }
+        }
+    }
+
+    /**
+     * Add a value to the collection.
+     * @param value is the double-type value to add
+     */
+    public void add(double value)
+    {
+        if (Double.isNaN(value))
+        {
+            return;
+        }
+        root = insert(root, value);
+    }
+
+    /**
+     * Remove a value from the collection.
+     * @param value to remove
+     * @throws IllegalStateException if the value has not been added
+     */
+    public void remove(double value)
+    {
+        if (Double.isNaN(value))
+        {
+            return;
+        }
+
+        // check presence first so that subtree sizes are only adjusted for a value that is found
+        int node = root;
+        while ((node != 0) && (keys[node] != value))
+        {
+            node = value < keys[node] ? lefts[node] : rights[node];
+        }
+        if (node == 0)
+        {
+            throw new IllegalStateException("Value not found in collection");
+        }
+        root = delete(root, value);
+    }
+
+    private int insert(int node, double value)
+    {
+        if (node == 0)
+        {
+            return newNode(value);
+        }
+        sizes[node]++;
+        if (value < keys[node])
+        {
+            int child = insert(lefts[node], value);
+            lefts[node] = child;
+            if (priorities[child] > priorities[node])
+            {
+                return rotateRight(node);
+            }
+        }
+        else if (value > keys[node])
+        {
+            int child = insert(rights[node], value);
+            rights[node] = child;
+            if (priorities[child] > priorities[node])
+            {
+                return rotateLeft(node);
+            }
+        }
+        else
+        {
+            counts[node]++;
+        }
+        return node;
+    }
+
+    private int delete(int node, double value)
+    {
+        sizes[node]--;
+        if (value < keys[node])
+        {
+            lefts[node] = delete(lefts[node], value);
+            return node;
+        }
+        if (value > keys[node])
+        {
+            rights[node] = delete(rights[node], value);
+            return node;
+        }
+        if (counts[node] > 1)
+        {
+            counts[node]--;
+            return node;
+        }
+        return unlink(node);
+    }
+
+    // removes the node by rotating it down until it has at most one child
+    private int unlink(int node)
+    {
+        int left = lefts[node];
+        int right = rights[node];
+        if (left == 0)
+        {
+            release(node);
+            return right;
+        }
+        if (right == 0)
+        {
+            release(node);
+            return left;
+        }
+        int top;
+        if (priorities[left] > priorities[right])
+        {
+            top = rotateRight(node);
+            rights[top] = unlink(node);
+        }
+        else
+        {
+            top = rotateLeft(node);
+            lefts[top] = unlink(node);
+        }
+        sizes[top] = sizes[lefts[top]] + sizes[rights[top]] + counts[top];
+        return top;
+    }
+
+    private int rotateRight(int node)
+    {
+        int left = lefts[node];
+        lefts[node] = rights[left];
+        rights[left] = node;
+        sizes[left] = sizes[node];
+        sizes[node] = sizes[lefts[node]] + sizes[rights[node]] + counts[node];
+        return left;
+    }
+
+    private int rotateLeft(int node)
+    {
+        int right = rights[node];
+        rights[node] = lefts[right];
+        lefts[right] = node;
+        sizes[right] = sizes[node];
+        sizes[node] = sizes[lefts[node]] + sizes[rights[node]] + counts[node];
+        return right;
+    }
+
+    private int newNode(double value)
+    {
+        int node;
+        if (freeList != 0)
+        {
+            node = freeList;
+            freeList = lefts[node];
+        }
+        else
+        {
+            if (numNodes + 1 == keys.length)
+            {
+                grow();
+            }
+            node = ++numNodes;
+        }
+        keys[node] = value;
+        counts[node] = 1;
+        sizes[node] = 1;
+        lefts[node] = 0;
+        rights[node] = 0;
+
+        // xorshift, the priorities need only be independent of the values for the tree to be balanced
+        seed ^= seed << 13;
+        seed ^= seed >>> 17;
+        seed ^= seed << 5;
+        priorities[node] = seed;
+        return node;
+    }
+
+    private void release(int node)
+    {
+        lefts[node] = freeList;
+        freeList = node;
+    }
+
+    private void allocate(int capacity)
+    {
+        keys = new double[capacity];
+        counts = new int[capacity];
+        sizes = new int[capacity];
+        lefts = new int[capacity];
+        rights = new int[capacity];
+        priorities = new int[capacity];
+    }
+
+    private void grow()
+    {
+        int capacity = keys.length << 1;
+        keys = copy(keys, capacity);
+        counts = copy(counts, capacity);
+        sizes = copy(sizes, capacity);
+        lefts = copy(lefts, capacity);
+        rights = copy(rights, capacity);
+        priorities = copy(priorities, capacity);
+    }
+
+    private static double[] copy(double[] array, int capacity)
+    {
+        double[] result = new double[capacity];
+        System.arraycopy(array, 0, result, 0, array.length);
+        return result;
+    }
+
+    private static int[] copy(int[] array, int capacity)
+    {
+        int[] result = new int[capacity];
+        System.arraycopy(array, 0, result, 0, array.length);
+        return result;
+    }
+}
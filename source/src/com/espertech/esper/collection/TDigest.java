@@ -0,0 +1,278 @@
+/**************************************************************************************
+ * Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ * http://esper.codehaus.org                                                          *
+ * http://www.espertech.com                                                           *
+ * ---------------------------------------------------------------------------------- *
+ * The software in this package is published under the terms of the GPL license       *
+ * a copy of which has been included with this distribution in the license.txt file.  *
+ **************************************************************************************/
+package com.espertech.esper.collection;
+
+/**
+ * Merging t-digest estimating quantiles of the values added, in memory bounded by the compression.
+ * <p>
+ * Values are summarized by centroids, each a mean and a weight, kept in ascending order of mean. The scale function
+ * limits centroids near the tails to small weights, so that extreme quantiles are more accurate then the median.
+ * Added values are buffered and merged into the centroids when the buffer is full or a quantile is requested,
+ * so that adding a value takes amortized constant time and does not allocate.
+ * <p>
+ * Values cannot be removed. Digests can be merged, for example to combine the digests of context partitions.
+ */
+public class TDigest
+{
+    /**
+     * Default compression.
+     */
+    public static final double DEFAULT_COMPRESSION = 100;
+
+    private final double compression;
+    private double[] means;
+    private double[] weights;
+    private int numCentroids;
+    private final double[] bufferMeans;
+    private final double[] bufferWeights;
+    private int numBuffered;
+    private double totalWeight;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    /**
+     * Ctor.
+     * @param compression accuracy versus size, the number of centroids being at most about twice the compression
+     */
+    public TDigest(double compression)
+    {
+        this.compression = compression;
+        int capacity = (int) Math.ceil(2 * compression) + 10;
+        this.means = new double[capacity];
+        this.weights = new double[capacity];
+        this.bufferMeans = new double[capacity * 3];
+        this.bufferWeights = new double[capacity * 3];
+    }
+
+    /**
+     * Removes all values.
+     */
+    public void clear()
+    {
+        numCentroids = 0;
+        numBuffered = 0;
+        totalWeight = 0;
+        min = Double.POSITIVE_INFINITY;
+        max = Double.NEGATIVE_INFINITY;
+    }
+
+    /**
+     * Adds a value.
+     * @param value to add, NaN is ignored
+     */
+    public void add(double value)
+    {
+        add(value, 1);
+    }
+
+    /**
+     * Returns the number of values added.
+     * @return count
+     */
+    public long size()
+    {
+        return Math.round(totalWeight);
+    }
+
+    /**
+     * Returns the estimated value at a quantile.
+     * @param quantile between 0 and 1
+     * @return estimate, or NaN if no values were added
+     */
+    public double quantile(double quantile)
+    {
+        compress();
+        if (numCentroids == 0)
+        {
+            return Double.NaN;
+        }
+        if (numCentroids == 1)
+        {
+            return means[0];
+        }
+
+        double index = quantile * totalWeight;
+        if (index <= weights[0] / 2)
+        {
+            // between the minimum and the center of the first centroid
+            return min + (means[0] - min) * index / (weights[0] / 2);
+        }
+
+        double center = weights[0] / 2;
+        for (int i = 0; i < numCentroids - 1; i++)
+        {
+            double nextCenter = center + (weights[i] + weights[i + 1]) / 2;
+            if (index <= nextCenter)
+            {
+                double fraction = (index - center) / (nextCenter - center);
+                return means[i] + (means[i + 1] - means[i]) * fraction;
+            }
+            center = nextCenter;
+        }
+
+        // between the center of the last centroid and the maximum
+        int last = numCentroids - 1;
+        double fraction = (index - center) / (weights[last] / 2);
+        return means[last] + (max - means[last]) * Math.min(1, fraction);
+    }
+
+    /**
+     * Merges the values of another digest into this digest, by adding the centroids of the other digest.
+     * @param other digest, which is compressed
+     * @throws IllegalArgumentException if the other digest is this digest
+     */
+    public void merge(TDigest other)
+    {
+        if (other == this)
+        {
+            throw new IllegalArgumentException("Cannot merge a digest into itself");
+        }
+        other.compress();
+        for (int i = 0; i < other.numCentroids; i++)
+        {
+            add(other.means[i], other.weights[i]);
+        }
+        if (other.numCentroids > 0)
+        {
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+        }
+    }
+
+    private void add(double value, double weight)
+    {
+        if (Double.isNaN(value))
+        {
+            return;
+        }
+        if (numBuffered == bufferMeans.length - means.length)
+        {
+            compress();
+        }
+        bufferMeans[numBuffered] = value;
+        bufferWeights[numBuffered] = weight;
+        numBuffered++;
+        totalWeight += weight;
+        if (value < min)
+        {
+            min = value;
+        }
+        if (value > max)
+        {
+            max = value;
+        }
+    }
+
+    // merges the buffered values and the centroids into new centroids
+    private void compress()
+    {
+        if (numBuffered == 0)
+        {
+            return;
+        }
+
+        // the centroids are appended to the buffer, which is flushed while it still has room for them
+        System.arraycopy(means, 0, bufferMeans, numBuffered, numCentroids);
+        System.arraycopy(weights, 0, bufferWeights, numBuffered, numCentroids);
+        int count = numBuffered + numCentroids;
+        sort(bufferMeans, bufferWeights, 0, count - 1);
+
+        int current = 0;
+        means[0] = bufferMeans[0];
+        weights[0] = bufferWeights[0];
+        double weightSoFar = 0;
+        double weightLimit = totalWeight * limit(0);
+        for (int i = 1; i < count; i++)
+        {
+            double proposed = weights[current] + bufferWeights[i];
+            if (weightSoFar + proposed <= weightLimit)
+            {
+                weights[current] = proposed;
+                means[current] += (bufferMeans[i] - means[current]) * bufferWeights[i] / proposed;
+            }
+            else
+            {
+                weightSoFar += weights[current];
+                weightLimit = totalWeight * limit(weightSoFar / totalWeight);
+                current++;
+                means[current] = bufferMeans[i];
+                weights[current] = bufferWeights[i];
+            }
+        }
+        numCentroids = current + 1;
+        numBuffered = 0;
+    }
+
+    // returns the quantile up to which the centroid starting at the given quantile may extend,
+    // using the scale function k(q) = compression / (2 pi) * asin(2q - 1)
+    private double limit(double quantile)
+    {
+        double k = compression / (2 * Math.PI) * Math.asin(2 * quantile - 1) + 1;
+        if (k >= compression / 4)
+        {
+            return 1;
+        }
+        return (Math.sin(k * 2 * Math.PI / compression) + 1) / 2;
+    }
+
+    private static void sort(double[] keys, double[] values, int low, int high)
+    {
+        while (high - low > 16)
+        {
+            double pivot = keys[(low + high) >>> 1];
+            int i = low;
+            int j = high;
+            while (i <= j)
+            {
+                while (keys[i] < pivot)
+                {
+                    i++;
+                }
+                while (keys[j] > pivot)
+                {
+                    j--;
+                }
+                if (i <= j)
+                {
+                    swap(keys, values, i, j);
+                    i++;
+                    j--;
+                }
+            }
+            // recurse into the smaller part to bound the stack depth
+            if (j - low < high - i)
+            {
+                sort(keys, values, low, j);
+                low = i;
+            }
+            else
+            {
+                sort(keys, values, i, high);
+                high = j;
+            }
+        }
+        for (int i = low + 1; i <= high; i++)
+        {
+            for (int j = i; (j > low) && (keys[j - 1] > keys[j]); j--)
+            {
+                swap(keys, values, j, j - 1);
+            }
+        }
+    }
+
+    private static void swap(double[] keys, double[] values, int i, int j)
+    {
+        double key = keys[i];
+        keys[i] = keys[j];
+        keys[j] = key;
+        double value = values[i];
+        values[i] = values[j];
+        values[j] = value;
+    }
+}
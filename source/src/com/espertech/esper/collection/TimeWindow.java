@@ -10,7 +10,8 @@ package com.espertech.esper.collection;
 
 import com.espertech.esper.client.EventBean;
 
-import java.util.*;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 /**
  * Container for events per time slot. The time is provided as long milliseconds by client classes.
@@ -21,11 +22,24 @@ import java.util.*;
  *
  * It is assumed that the timestamp passed to the add method is ascending. The window is backed by a
  * collection reflecting the timestamp order rather then any sorted map or linked hash map for performance reasons.
+ * <p>
+ * The collection is a growable ring buffer of parallel timestamp and event arrays, so that adding and expiring
+ * events does not allocate once the buffer has grown to the window's size. Removed events leave an empty slot
+ * that is skipped by iteration and released by expiry. The optional reverse index for removal maps each event to its
+ * position using open addressing and does not allocate per event either.
  */
 public final class TimeWindow implements Iterable
 {
-    private ArrayDeque<TimeWindowPair> window;
-    private Map<EventBean, TimeWindowPair> reverseIndex;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private long[] timestamps;
+    private EventBean[] events;
+    private int mask;
+    private int head;
+    private int count;
+    private long headSequence;
+    private int numEvents;
+    private final ReverseIndex reverseIndex;
 
     /**
      * Ctor.
@@ -34,11 +48,17 @@ public final class TimeWindow implements Iterable
      */
     public TimeWindow(boolean isSupportRemoveStream)
     {
-        this.window = new ArrayDeque<TimeWindowPair>();
+        this.timestamps = new long[INITIAL_CAPACITY];
+        this.events = new EventBean[INITIAL_CAPACITY];
+        this.mask = INITIAL_CAPACITY - 1;
 
         if (isSupportRemoveStream)
         {
-            reverseIndex = new HashMap<EventBean, TimeWindowPair>();
+            reverseIndex = new ReverseIndex();
+        }
+        else
+        {
+            reverseIndex = null;
         }
     }
 
@@ -48,9 +68,9 @@ public final class TimeWindow implements Iterable
      */
     public void adjust(long delta)
     {
-        for (TimeWindowPair data : window)
+        for (int i = 0; i < count; i++)
         {
-            data.setTimestamp(data.getTimestamp() + delta);
+            timestamps[(head + i) & mask] += delta;
         }
     }
 
@@ -61,52 +81,20 @@ public final class TimeWindow implements Iterable
      */
     public final void add(long timestamp, EventBean bean)
     {
-        // Empty window
-        if (window.isEmpty())
+        if (count == events.length)
         {
-            TimeWindowPair pair = new TimeWindowPair(timestamp, bean);
-            window.add(pair);
-
-            if (reverseIndex != null)
-            {
-                reverseIndex.put(bean, pair);
-            }
-            return;
+            grow();
         }
 
-        TimeWindowPair lastPair = window.getLast();
-
-        // Windows last timestamp matches the one supplied
-        if (lastPair.getTimestamp() == timestamp)
-        {
-            if (lastPair.getEventHolder() instanceof List) {
-                List<EventBean> list = (List<EventBean>) lastPair.getEventHolder();
-                list.add(bean);
-            }
-            else if (lastPair.getEventHolder() == null) {
-                lastPair.setEventHolder(bean);
-            }
-            else {
-                EventBean existing = (EventBean) lastPair.getEventHolder();
-                List<EventBean> list = new ArrayList<EventBean>(4);
-                list.add(existing);
-                list.add(bean);
-                lastPair.setEventHolder(list);
-            }
-            if (reverseIndex != null)
-            {
-                reverseIndex.put(bean, lastPair);
-            }
-            return;
-        }
-
-        // Append to window
-        TimeWindowPair pair = new TimeWindowPair(timestamp, bean);
+        int slot = (head + count) & mask;
+        timestamps[slot] = timestamp;
+        events[slot] = bean;
         if (reverseIndex != null)
         {
-            reverseIndex.put(bean, pair);
+            reverseIndex.put(bean, headSequence + count);
         }
-        window.add(pair);
+        count++;
+        numEvents++;
     }
 
     /**
@@ -119,74 +107,65 @@ public final class TimeWindow implements Iterable
         {
             throw new UnsupportedOperationException("Time window does not accept event removal");
         }
-        TimeWindowPair pair = reverseIndex.get(theEvent);
-        if (pair != null) {
-            if (pair.getEventHolder() != null && pair.getEventHolder().equals(theEvent)) {
-                pair.setEventHolder(null);
-            }
-            else if (pair.getEventHolder() != null) {
-                List<EventBean> list = (List<EventBean>) pair.getEventHolder();
-                list.remove(theEvent);
-            }
-            reverseIndex.remove(theEvent);
+        long sequence = reverseIndex.remove(theEvent);
+        if (sequence < 0)
+        {
+            return;
         }
+        int slot = (head + (int) (sequence - headSequence)) & mask;
+        // the slot stays until expired, its timestamp bounding expiry same as for an event that was not removed
+        events[slot] = null;
+        numEvents--;
     }
 
     /**
      * Return and remove events in time-slots earlier (less) then the timestamp passed in,
-     * returning the list of events expired.
+     * returning the events expired.
      * @param expireBefore is the timestamp from which on to keep events in the window
-     * @return a list of events expired and removed from the window, or null if none expired
+     * @return array of events expired and removed from the window, or null if none expired
      */
-    public final ArrayDeque<EventBean> expireEvents(long expireBefore)
+    public final EventBean[] expireEvents(long expireBefore)
     {
-        if (window.isEmpty())
+        if ((count == 0) || (timestamps[head] >= expireBefore))
         {
             return null;
         }
 
-        TimeWindowPair pair = window.getFirst();
-
-        // If the first entry's timestamp is after the expiry date, nothing to expire
-        if (pair.getTimestamp() >= expireBefore)
-        {
-            return null;
-        }
-
-        ArrayDeque<EventBean> resultBeans = new ArrayDeque<EventBean>();
-
-        // Repeat until the window is empty or the timestamp is above the expiry time
-        do
+        // Count the expiring events first, to allocate the result only at its exact size
+        int numSlots = 0;
+        int numExpired = 0;
+        while ((numSlots < count) && (timestamps[(head + numSlots) & mask] < expireBefore))
         {
-            if (pair.getEventHolder() != null) {
-                if (pair.getEventHolder() instanceof EventBean) {
-                    resultBeans.add((EventBean) pair.getEventHolder());
-                }
-                else {
-                    resultBeans.addAll((List<EventBean>) pair.getEventHolder());
-                }
-            }
-
-            window.removeFirst();
-
-            if (window.isEmpty())
+            if (events[(head + numSlots) & mask] != null)
             {
-                break;
+                numExpired++;
             }
-
-            pair = window.getFirst();
+            numSlots++;
         }
-        while (pair.getTimestamp() < expireBefore);
 
-        if (reverseIndex != null)
+        EventBean[] result = numExpired == 0 ? null : new EventBean[numExpired];
+        int index = 0;
+        for (int i = 0; i < numSlots; i++)
         {
-            for (EventBean expired : resultBeans)
+            int slot = (head + i) & mask;
+            EventBean theEvent = events[slot];
+            if (theEvent != null)
             {
-                reverseIndex.remove(expired);
+                result[index++] = theEvent;
+                if (reverseIndex != null)
+                {
+                    reverseIndex.remove(theEvent, headSequence + i);
+                }
+                events[slot] = null;
             }
         }
 
-        return resultBeans;
+        head = (head + numSlots) & mask;
+        count -= numSlots;
+        headSequence += numSlots;
+        numEvents -= numExpired;
+
+        return result;
     }
 
     /**
@@ -195,7 +174,7 @@ public final class TimeWindow implements Iterable
      */
     public final Iterator<EventBean> iterator()
     {
-        return new TimeWindowIterator(window);
+        return new TimeWindowIterator();
     }
 
     /**
@@ -205,15 +184,16 @@ public final class TimeWindow implements Iterable
      */
     public final Long getOldestTimestamp()
     {
-        if (window.isEmpty()) {
+        if (numEvents == 0)
+        {
             return null;
         }
-        if (window.getFirst().getEventHolder() != null) {
-            return window.getFirst().getTimestamp();
-        }
-        for (TimeWindowPair pair : window) {
-            if (pair.getEventHolder() != null) {
-                return pair.getTimestamp();
+        for (int i = 0; i < count; i++)
+        {
+            int slot = (head + i) & mask;
+            if (events[slot] != null)
+            {
+                return timestamps[slot];
             }
         }
         return null;
@@ -225,26 +205,192 @@ public final class TimeWindow implements Iterable
      */
     public final boolean isEmpty()
     {
-        return getOldestTimestamp() == null;
+        return numEvents == 0;
     }
 
     /**
-     * Returns the reverse index, for testing purposes.
-     * @return reverse index
+     * Returns the number of events in the window.
+     * @return number of events
      */
-    public Map<EventBean, TimeWindowPair> getReverseIndex() {
-        return reverseIndex;
+    public final int size()
+    {
+        return numEvents;
     }
 
-    public ArrayDeque<TimeWindowPair> getWindow() {
-        return window;
+    private void grow()
+    {
+        int capacity = events.length << 1;
+        long[] newTimestamps = new long[capacity];
+        EventBean[] newEvents = new EventBean[capacity];
+        for (int i = 0; i < count; i++)
+        {
+            int slot = (head + i) & mask;
+            newTimestamps[i] = timestamps[slot];
+            newEvents[i] = events[slot];
+        }
+        timestamps = newTimestamps;
+        events = newEvents;
+        mask = capacity - 1;
+        head = 0;
     }
 
-    public void setWindow(ArrayDeque<TimeWindowPair> window) {
-        this.window = window;
+    private final class TimeWindowIterator implements Iterator<EventBean>
+    {
+        private int position;
+        private EventBean next;
+
+        private TimeWindowIterator()
+        {
+            advance();
+        }
+
+        public boolean hasNext()
+        {
+            return next != null;
+        }
+
+        public EventBean next()
+        {
+            if (next == null)
+            {
+                throw new NoSuchElementException();
+            }
+            EventBean result = next;
+            advance();
+            return result;
+        }
+
+        public void remove()
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        private void advance()
+        {
+            next = null;
+            while (position < count)
+            {
+                EventBean theEvent = events[(head + position) & mask];
+                position++;
+                if (theEvent != null)
+                {
+                    next = theEvent;
+                    return;
+                }
+            }
+        }
     }
 
-    public void setReverseIndex(Map<EventBean, TimeWindowPair> reverseIndex) {
-        this.reverseIndex = reverseIndex;
+    /**
+     * Open-addressing identity map of event to window sequence number, with linear probing
+     * and backward-shift deletion.
+     */
+    private static final class ReverseIndex
+    {
+        private EventBean[] keys = new EventBean[INITIAL_CAPACITY];
+        private long[] values = new long[INITIAL_CAPACITY];
+        private int size;
+
+        private void put(EventBean key, long value)
+        {
+            if ((size + 1) * 2 > keys.length)
+            {
+                rehash(keys.length << 1);
+            }
+            int mask = keys.length - 1;
+            int index = hash(key) & mask;
+            while (keys[index] != null)
+            {
+                if (keys[index] == key)
+                {
+                    values[index] = value;
+                    return;
+                }
+                index = (index + 1) & mask;
+            }
+            keys[index] = key;
+            values[index] = value;
+            size++;
+        }
+
+        private long remove(EventBean key)
+        {
+            int index = find(key);
+            if (index < 0)
+            {
+                return -1;
+            }
+            long value = values[index];
+            delete(index);
+            return value;
+        }
+
+        // removes the entry only if it still refers to the given sequence, as the same event may have been added again
+        private void remove(EventBean key, long value)
+        {
+            int index = find(key);
+            if ((index >= 0) && (values[index] == value))
+            {
+                delete(index);
+            }
+        }
+
+        private int find(EventBean key)
+        {
+            int mask = keys.length - 1;
+            int index = hash(key) & mask;
+            while (keys[index] != null)
+            {
+                if (keys[index] == key)
+                {
+                    return index;
+                }
+                index = (index + 1) & mask;
+            }
+            return -1;
+        }
+
+        private void delete(int index)
+        {
+            int mask = keys.length - 1;
+            int gap = index;
+            int current = (index + 1) & mask;
+            while (keys[current] != null)
+            {
+                int home = hash(keys[current]) & mask;
+                // move the entry into the gap unless its home slot lies cyclically within (gap, current]
+                if (((current - home) & mask) >= ((current - gap) & mask))
+                {
+                    keys[gap] = keys[current];
+                    values[gap] = values[current];
+                    gap = current;
+                }
+                current = (current + 1) & mask;
+            }
+            keys[gap] = null;
+            size--;
+        }
+
+        private void rehash(int capacity)
+        {
+            EventBean[] oldKeys = keys;
+            long[] oldValues = values;
+            keys = new EventBean[capacity];
+            values = new long[capacity];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++)
+            {
+                if (oldKeys[i] != null)
+                {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        private static int hash(EventBean key)
+        {
+            int h = System.identityHashCode(key) * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
     }
 }
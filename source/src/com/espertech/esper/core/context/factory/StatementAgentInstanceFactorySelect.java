@@ -13,6 +13,7 @@ package com.espertech.esper.core.context.factory;
 
 import com.espertech.esper.client.EventBean;
 import com.espertech.esper.client.EventType;
+import com.espertech.esper.client.annotation.HintEnum;
 import com.espertech.esper.collection.Pair;
 import com.espertech.esper.core.context.activator.ViewableActivationResult;
 import com.espertech.esper.core.context.activator.ViewableActivator;
@@ -48,6 +49,7 @@ import com.espertech.esper.pattern.EvalRootState;
 import com.espertech.esper.util.StopCallback;
 import com.espertech.esper.view.ViewFactory;
 import com.espertech.esper.view.ViewFactoryChain;
+import com.espertech.esper.view.HistoricalEventViewable;
 import com.espertech.esper.view.ViewServiceCreateResult;
 import com.espertech.esper.view.Viewable;
 import com.espertech.esper.view.internal.BufferView;
@@ -358,6 +360,28 @@ public class StatementAgentInstanceFactorySelect implements StatementAgentInstan
         // Create strategy for join execution
         JoinExecutionStrategy execution = new JoinExecutionStrategyImpl(joinSetComposerDesc.getJoinSetComposer(), filter, indicatorView, agentInstanceContext);
 
+        // Complete joins with historical streams on a separate thread, if requested
+        if (HintEnum.HISTORICAL_ASYNC.getHint(statementSpec.getAnnotations()) != null)
+        {
+            HistoricalEventViewable[] historicalPerStream = new HistoricalEventViewable[streamViews.length];
+            boolean hasHistorical = false;
+            for (int i = 0; i < streamViews.length; i++)
+            {
+                if (streamViews[i] instanceof HistoricalEventViewable)
+                {
+                    historicalPerStream[i] = (HistoricalEventViewable) streamViews[i];
+                    hasHistorical = true;
+                }
+            }
+            if (hasHistorical)
+            {
+                JoinExecutionStrategyAsync asyncExecution = new JoinExecutionStrategyAsync(execution, historicalPerStream, agentInstanceContext.getEpStatementAgentInstanceHandle(),
+                        services.getStatementLockFactory(), services.getDispatchService(), services.getExceptionHandlingService(), services.getVariableService(), services.getThreadingService().getHistoricalJoinThreadPool());
+                stopCallbacks.add(asyncExecution);
+                execution = asyncExecution;
+            }
+        }
+
         // The view needs a reference to the join execution to pull iterator values
         indicatorView.setJoinExecutionStrategy(execution);
 
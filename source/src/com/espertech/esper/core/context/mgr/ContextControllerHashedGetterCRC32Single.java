@@ -31,7 +31,16 @@ public class ContextControllerHashedGetterCRC32Single implements EventPropertyGe
     public Object get(EventBean eventBean) throws PropertyAccessException {
         EventBean[] events = new EventBean[] {eventBean};
         String code = (String) eval.evaluate(events, true, null);
+        return stringToCRC32Hash(code, granularity);
+    }
 
+    /**
+     * Returns the CRC32 hash of a string, as computed by consistent_hash_crc32, modulo the granularity.
+     * @param code string to hash, or null
+     * @param granularity number of buckets
+     * @return hash between zero and the granularity minus one, zero for null
+     */
+    public static int stringToCRC32Hash(String code, int granularity) {
         long value;
         if (code == null) {
             value = 0;
@@ -28,6 +28,7 @@ import com.espertech.esper.epl.declexpr.ExprDeclaredNode;
 import com.espertech.esper.epl.expression.ExprEvaluatorContext;
 import com.espertech.esper.epl.expression.ExprNodeSubselectDeclaredDotVisitor;
 import com.espertech.esper.epl.expression.ExprValidationException;
+import com.espertech.esper.epl.metric.InstrumentationPath;
 import com.espertech.esper.epl.metric.MetricReportingPath;
 import com.espertech.esper.epl.script.AgentInstanceScriptContext;
 import com.espertech.esper.epl.spec.SelectClauseStreamSelectorEnum;
@@ -190,7 +191,7 @@ public class EPRuntimeImpl implements EPRuntimeSPI, EPRuntimeEventSender, TimerC
         // Process event
         if ((ThreadingOption.isThreadingEnabled) && (services.getThreadingService().isInboundThreading()))
         {
-            services.getThreadingService().submitInbound(new InboundUnitSendEvent(theEvent, this));
+            services.getThreadingService().submitInboundEvent(theEvent, this);
         }
         else
         {
@@ -260,7 +261,7 @@ public class EPRuntimeImpl implements EPRuntimeSPI, EPRuntimeEventSender, TimerC
 
         if ((ThreadingOption.isThreadingEnabled) && (services.getThreadingService().isInboundThreading()))
         {
-            services.getThreadingService().submitInbound(new InboundUnitSendMap(map, mapEventTypeName, services, this));
+            services.getThreadingService().submitInboundMap(map, mapEventTypeName, this);
         }
         else
         {
@@ -284,7 +285,7 @@ public class EPRuntimeImpl implements EPRuntimeSPI, EPRuntimeEventSender, TimerC
 
         if ((ThreadingOption.isThreadingEnabled) && (services.getThreadingService().isInboundThreading()))
         {
-            services.getThreadingService().submitInbound(new InboundUnitSendObjectArray(propertyValues, objectArrayEventTypeName, services, this));
+            services.getThreadingService().submitInboundObjectArray(propertyValues, objectArrayEventTypeName, this);
         }
         else
         {
@@ -294,6 +295,144 @@ public class EPRuntimeImpl implements EPRuntimeSPI, EPRuntimeEventSender, TimerC
         }
     }
 
+    public void sendEvents(Object[] events) throws EPException
+    {
+        if (events == null)
+        {
+            throw new IllegalArgumentException("Invalid null event array");
+        }
+
+        if ((ExecutionPathDebugLog.isDebugEnabled) && (log.isDebugEnabled()))
+        {
+            log.debug(".sendEvents Processing " + events.length + " events");
+        }
+
+        if ((ThreadingOption.isThreadingEnabled) && (services.getThreadingService().isInboundThreading()))
+        {
+            for (Object theEvent : events)
+            {
+                if (theEvent == null)
+                {
+                    log.fatal(".sendEvents Null object supplied");
+                    continue;
+                }
+                services.getThreadingService().submitInboundEvent(theEvent, this);
+            }
+            return;
+        }
+
+        EventBean[] eventBeans = new EventBean[events.length];
+        int count = 0;
+        for (Object theEvent : events)
+        {
+            if (theEvent == null)
+            {
+                log.fatal(".sendEvents Null object supplied");
+                continue;
+            }
+
+            // time events are processed in order relative to the other events of the batch
+            if (theEvent instanceof TimerEvent)
+            {
+                processWrappedEvents(eventBeans, count);
+                count = 0;
+                processTimeEvent((TimerEvent) theEvent);
+                continue;
+            }
+
+            if (theEvent instanceof EventBean)
+            {
+                eventBeans[count++] = (EventBean) theEvent;
+            }
+            else
+            {
+                eventBeans[count++] = wrapEvent(theEvent);
+            }
+        }
+        processWrappedEvents(eventBeans, count);
+    }
+
+    public void sendEvents(List<?> events) throws EPException
+    {
+        if (events == null)
+        {
+            throw new IllegalArgumentException("Invalid null event list");
+        }
+        sendEvents(events.toArray());
+    }
+
+    public void sendEvents(Map[] maps, String mapEventTypeName) throws EPException
+    {
+        if (maps == null)
+        {
+            throw new IllegalArgumentException("Invalid null event array");
+        }
+        for (Map map : maps)
+        {
+            if (map == null)
+            {
+                throw new IllegalArgumentException("Invalid null event object");
+            }
+        }
+
+        if ((ExecutionPathDebugLog.isDebugEnabled) && (log.isDebugEnabled()))
+        {
+            log.debug(".sendEvents Processing " + maps.length + " map events");
+        }
+
+        if ((ThreadingOption.isThreadingEnabled) && (services.getThreadingService().isInboundThreading()))
+        {
+            for (Map map : maps)
+            {
+                services.getThreadingService().submitInboundMap(map, mapEventTypeName, this);
+            }
+            return;
+        }
+
+        EventBean[] eventBeans = new EventBean[maps.length];
+        for (int i = 0; i < maps.length; i++)
+        {
+            eventBeans[i] = wrapEvent(maps[i], mapEventTypeName);
+        }
+        processWrappedEvents(eventBeans, eventBeans.length);
+    }
+
+    public void sendEvents(Object[][] propertyValuesArray, String objectArrayEventTypeName) throws EPException
+    {
+        if (propertyValuesArray == null)
+        {
+            throw new IllegalArgumentException("Invalid null event array");
+        }
+        for (Object[] propertyValues : propertyValuesArray)
+        {
+            if (propertyValues == null)
+            {
+                throw new IllegalArgumentException("Invalid null event object");
+            }
+        }
+
+        if ((ExecutionPathDebugLog.isDebugEnabled) && (log.isDebugEnabled()))
+        {
+            log.debug(".sendEvents Processing " + propertyValuesArray.length + " object-array events");
+        }
+
+        if ((ThreadingOption.isThreadingEnabled) && (services.getThreadingService().isInboundThreading()))
+        {
+            for (Object[] propertyValues : propertyValuesArray)
+            {
+                services.getThreadingService().submitInboundObjectArray(propertyValues, objectArrayEventTypeName, this);
+            }
+            return;
+        }
+
+        EventBean[] eventBeans = new EventBean[propertyValuesArray.length];
+        for (int i = 0; i < propertyValuesArray.length; i++)
+        {
+            eventBeans[i] = wrapEvent(propertyValuesArray[i], objectArrayEventTypeName);
+        }
+        processWrappedEvents(eventBeans, eventBeans.length);
+    }
+
     public EventBean wrapEvent(Map map, String eventTypeName) {
         return services.getEventAdapterService().adapterForMap(map, eventTypeName);
     }
@@ -477,6 +616,67 @@ public class EPRuntimeImpl implements EPRuntimeSPI, EPRuntimeEventSender, TimerC
         processThreadWorkQueue();
     }
 
+    /**
+     * Process a batch of wrapped events.
+     * <p>
+     * Events are evaluated in order under a single acquisition of the event processing lock until an event
+     * produces output to listeners, named window consumers or the thread work queue. The lock is then released
+     * to dispatch and work off the queue as for a single event, so that per-event ordering is retained.
+     * @param eventBeans events to process
+     * @param count number of events in the array to process, starting at index zero
+     */
+    public void processWrappedEvents(EventBean[] eventBeans, int count)
+    {
+        if (internalEventRouter.isHasPreprocessing())
+        {
+            for (int i = 0; i < count; i++)
+            {
+                processWrappedEvent(eventBeans[i]);
+            }
+            return;
+        }
+
+        int index = 0;
+        while (index < count)
+        {
+            // Acquire main processing lock which locks out statement management
+            services.getEventProcessingRWLock().acquireReadLock();
+            try
+            {
+                do
+                {
+                    processMatches(eventBeans[index++]);
+                }
+                while ((index < count) && (!isWorkPending()));
+            }
+            catch (RuntimeException ex)
+            {
+                matchesArrayThreadLocal.get().clear();
+                throw new EPException(ex);
+            }
+            finally
+            {
+                services.getEventProcessingRWLock().releaseReadLock();
+            }
+
+            // Dispatch results to listeners outside of the read-lock, same as for a single event
+            dispatch();
+
+            // Work off the event queue if any events accumulated in there via a route() or insert-into
+            processThreadWorkQueue();
+        }
+    }
+
+    private boolean isWorkPending()
+    {
+        if ((services.getDispatchService().isDispatchPending()) || (services.getNamedWindowService().isDispatchPending()))
+        {
+            return true;
+        }
+        DualWorkQueue queues = threadWorkQueue.getThreadQueue();
+        return (!queues.getFrontQueue().isEmpty()) || (!queues.getBackQueue().isEmpty());
+    }
+
     private void processTimeEvent(TimerEvent theEvent)
     {
         if (theEvent instanceof TimerControlEvent)
@@ -759,7 +959,7 @@ public class EPRuntimeImpl implements EPRuntimeSPI, EPRuntimeEventSender, TimerC
         DualWorkQueue queues = threadWorkQueue.getThreadQueue();
 
         if (queues.getFrontQueue().isEmpty()) {
-            boolean haveDispatched = services.getNamedWindowService().dispatch(engineFilterAndDispatchTimeContext);
+            boolean haveDispatched = services.getNamedWindowService().dispatch(engineFilterAndDispatchTimeContext, this);
             if (haveDispatched)
             {
                 // Dispatch results to listeners
@@ -790,7 +990,7 @@ public class EPRuntimeImpl implements EPRuntimeSPI, EPRuntimeEventSender, TimerC
                 processThreadWorkQueueUnlatched(item);
             }
 
-            boolean haveDispatched = services.getNamedWindowService().dispatch(engineFilterAndDispatchTimeContext);
+            boolean haveDispatched = services.getNamedWindowService().dispatch(engineFilterAndDispatchTimeContext, this);
             if (haveDispatched)
             {
                 dispatch();
@@ -819,7 +1019,7 @@ public class EPRuntimeImpl implements EPRuntimeSPI, EPRuntimeEventSender, TimerC
                 processThreadWorkQueueUnlatched(item);
             }
 
-            boolean haveDispatched = services.getNamedWindowService().dispatch(engineFilterAndDispatchTimeContext);
+            boolean haveDispatched = services.getNamedWindowService().dispatch(engineFilterAndDispatchTimeContext, this);
             if (haveDispatched)
             {
                 dispatch();
@@ -909,7 +1109,15 @@ public class EPRuntimeImpl implements EPRuntimeSPI, EPRuntimeEventSender, TimerC
     {
         // get matching filters
         ArrayBackedCollection<FilterHandle> matches = matchesArrayThreadLocal.get();
+        if (InstrumentationPath.isInstrumentationEnabled)
+        {
+            InstrumentationPath.getInstrumentation().qFilter(services.getEngineURI());
+        }
         long version = services.getFilterService().evaluate(theEvent, matches);
+        if (InstrumentationPath.isInstrumentationEnabled)
+        {
+            InstrumentationPath.getInstrumentation().aFilter();
+        }
 
         if (ThreadLogUtil.ENABLED_TRACE)
         {
@@ -970,6 +1178,7 @@ public class EPRuntimeImpl implements EPRuntimeSPI, EPRuntimeEventSender, TimerC
                 long deltaCPU = cpuTimeAfter - cpuTimeBefore;
                 long deltaWall = wallTimeAfter - wallTimeBefore;
                 services.getMetricsReportingService().accountTime(handle.getStatementHandle().getMetricsHandle(), deltaCPU, deltaWall, 1);
+                services.getMetricsReportingService().accountLatency(handle.getStatementHandle().getMetricsHandle(), deltaWall);
             }
             else
             {
@@ -1006,6 +1215,7 @@ public class EPRuntimeImpl implements EPRuntimeSPI, EPRuntimeEventSender, TimerC
                 long deltaCPU = cpuTimeAfter - cpuTimeBefore;
                 long deltaWall = wallTimeAfter - wallTimeBefore;
                 services.getMetricsReportingService().accountTime(handle.getStatementHandle().getMetricsHandle(), deltaCPU, deltaWall, callbackList.size());
+                services.getMetricsReportingService().accountLatency(handle.getStatementHandle().getMetricsHandle(), deltaWall);
             }
             else
             {
@@ -1037,6 +1247,10 @@ public class EPRuntimeImpl implements EPRuntimeSPI, EPRuntimeEventSender, TimerC
     public static void processStatementScheduleMultiple(EPStatementAgentInstanceHandle handle, Object callbackObject, EPServicesContext services, ExprEvaluatorContext exprEvaluatorContext)
     {
         handle.getStatementAgentInstanceLock().acquireWriteLock(services.getStatementLockFactory());
+        if (InstrumentationPath.isInstrumentationEnabled)
+        {
+            InstrumentationPath.getInstrumentation().qStatement(services.getEngineURI(), handle.getStatementHandle().getStatementName());
+        }
         try
         {
             if (!handle.isDestroyed()) {
@@ -1068,6 +1282,10 @@ public class EPRuntimeImpl implements EPRuntimeSPI, EPRuntimeEventSender, TimerC
         }
         finally
         {
+            if (InstrumentationPath.isInstrumentationEnabled)
+            {
+                InstrumentationPath.getInstrumentation().aStatement();
+            }
             handle.getStatementAgentInstanceLock().releaseWriteLock(services.getStatementLockFactory());
         }
     }
@@ -1082,6 +1300,10 @@ public class EPRuntimeImpl implements EPRuntimeSPI, EPRuntimeEventSender, TimerC
     {
         StatementAgentInstanceLock statementLock = handle.getAgentInstanceHandle().getStatementAgentInstanceLock();
         statementLock.acquireWriteLock(services.getStatementLockFactory());
+        if (InstrumentationPath.isInstrumentationEnabled)
+        {
+            InstrumentationPath.getInstrumentation().qStatement(services.getEngineURI(), handle.getAgentInstanceHandle().getStatementHandle().getStatementName());
+        }
         try
         {
             if (!handle.getAgentInstanceHandle().isDestroyed()) {
@@ -1098,6 +1320,10 @@ public class EPRuntimeImpl implements EPRuntimeSPI, EPRuntimeEventSender, TimerC
         }
         finally
         {
+            if (InstrumentationPath.isInstrumentationEnabled)
+            {
+                InstrumentationPath.getInstrumentation().aStatement();
+            }
             handle.getAgentInstanceHandle().getStatementAgentInstanceLock().releaseWriteLock(services.getStatementLockFactory());
         }
     }
@@ -1112,6 +1338,10 @@ public class EPRuntimeImpl implements EPRuntimeSPI, EPRuntimeEventSender, TimerC
     public void processStatementFilterMultiple(EPStatementAgentInstanceHandle handle, ArrayDeque<FilterHandleCallback> callbackList, EventBean theEvent, long version)
     {
         handle.getStatementAgentInstanceLock().acquireWriteLock(services.getStatementLockFactory());
+        if (InstrumentationPath.isInstrumentationEnabled)
+        {
+            InstrumentationPath.getInstrumentation().qStatement(services.getEngineURI(), handle.getStatementHandle().getStatementName());
+        }
         try
         {
             if (handle.isHasVariables())
@@ -1179,6 +1409,10 @@ public class EPRuntimeImpl implements EPRuntimeSPI, EPRuntimeEventSender, TimerC
         }
         finally
         {
+            if (InstrumentationPath.isInstrumentationEnabled)
+            {
+                InstrumentationPath.getInstrumentation().aStatement();
+            }
             handle.getStatementAgentInstanceLock().releaseWriteLock(services.getStatementLockFactory());
         }
     }
@@ -1199,6 +1433,10 @@ public class EPRuntimeImpl implements EPRuntimeSPI, EPRuntimeEventSender, TimerC
     public void processStatementFilterSingle(EPStatementAgentInstanceHandle handle, EPStatementHandleCallback handleCallback, EventBean theEvent, long version)
     {
         handle.getStatementAgentInstanceLock().acquireWriteLock(services.getStatementLockFactory());
+        if (InstrumentationPath.isInstrumentationEnabled)
+        {
+            InstrumentationPath.getInstrumentation().qStatement(services.getEngineURI(), handle.getStatementHandle().getStatementName());
+        }
         try
         {
             if (handle.isHasVariables())
@@ -1229,6 +1467,10 @@ public class EPRuntimeImpl implements EPRuntimeSPI, EPRuntimeEventSender, TimerC
         }
         finally
         {
+            if (InstrumentationPath.isInstrumentationEnabled)
+            {
+                InstrumentationPath.getInstrumentation().aStatement();
+            }
             handleCallback.getAgentInstanceHandle().getStatementAgentInstanceLock().releaseWriteLock(services.getStatementLockFactory());
         }
     }
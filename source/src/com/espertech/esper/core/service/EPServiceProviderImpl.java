@@ -16,6 +16,8 @@ import com.espertech.esper.core.deploy.DeploymentStateService;
 import com.espertech.esper.core.thread.ThreadingOption;
 import com.espertech.esper.core.thread.ThreadingService;
 import com.espertech.esper.epl.core.EngineImportService;
+import com.espertech.esper.epl.metric.Instrumentation;
+import com.espertech.esper.epl.metric.InstrumentationPath;
 import com.espertech.esper.epl.metric.MetricReportingPath;
 import com.espertech.esper.epl.metric.MetricReportingService;
 import com.espertech.esper.epl.named.NamedWindowService;
@@ -32,7 +34,9 @@ import com.espertech.esper.schedule.TimeProvider;
 import com.espertech.esper.timer.TimerCallback;
 import com.espertech.esper.timer.TimerService;
 import com.espertech.esper.util.AuditPath;
+import com.espertech.esper.util.ClassInstantiationException;
 import com.espertech.esper.util.ExecutionPathDebugLog;
+import com.espertech.esper.util.JavaClassHelper;
 import com.espertech.esper.util.SerializableObjectCopier;
 import com.espertech.esper.util.Version;
 import org.apache.commons.logging.Log;
@@ -400,6 +404,22 @@ public class EPServiceProviderImpl implements EPServiceProviderSPI
         // This setting applies to all engines in a given VM
         MetricReportingPath.setMetricsEnabled(configSnapshot.getEngineDefaults().getMetricsReporting().isEnableMetricsReporting());
 
+        // This setting applies to all engines in a given VM
+        ConfigurationMetricsReporting metricsReporting = configSnapshot.getEngineDefaults().getMetricsReporting();
+        Instrumentation instrumentation = null;
+        if ((metricsReporting.isEnableInstrumentation()) && (metricsReporting.getInstrumentationClassName() != null))
+        {
+            try
+            {
+                instrumentation = (Instrumentation) JavaClassHelper.instantiate(Instrumentation.class, metricsReporting.getInstrumentationClassName());
+            }
+            catch (ClassInstantiationException ex)
+            {
+                throw new ConfigurationException("Failed to instantiate instrumentation: " + ex.getMessage(), ex);
+            }
+        }
+        InstrumentationPath.setInstrumentation(metricsReporting.isEnableInstrumentation(), instrumentation);
+
         // This setting applies to all engines in a given VM
         AuditPath.setAuditPattern(configSnapshot.getEngineDefaults().getLogging().getAuditPattern());
 
@@ -408,7 +428,8 @@ public class EPServiceProviderImpl implements EPServiceProviderSPI
                 configSnapshot.getEngineDefaults().getThreading().isThreadPoolTimerExec() ||
                 configSnapshot.getEngineDefaults().getThreading().isThreadPoolInbound() ||
                 configSnapshot.getEngineDefaults().getThreading().isThreadPoolRouteExec() ||
-                configSnapshot.getEngineDefaults().getThreading().isThreadPoolOutbound());
+                configSnapshot.getEngineDefaults().getThreading().isThreadPoolOutbound() ||
+                configSnapshot.getEngineDefaults().getThreading().isThreadPoolFireAndForget());
         
         if (engine != null)
         {
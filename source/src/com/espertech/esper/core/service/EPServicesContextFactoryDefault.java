@@ -20,6 +20,8 @@ import com.espertech.esper.core.thread.ThreadingService;
 import com.espertech.esper.core.thread.ThreadingServiceImpl;
 import com.espertech.esper.dataflow.core.DataFlowConfigurationStateServiceImpl;
 import com.espertech.esper.dataflow.core.DataFlowServiceImpl;
+import com.espertech.esper.epl.agg.aggregator.AggregatorApproxFactory;
+import com.espertech.esper.epl.agg.aggregator.AggregatorPercentileFactory;
 import com.espertech.esper.epl.core.EngineImportException;
 import com.espertech.esper.epl.core.EngineImportService;
 import com.espertech.esper.epl.core.EngineImportServiceImpl;
@@ -28,6 +30,7 @@ import com.espertech.esper.epl.db.DatabaseConfigService;
 import com.espertech.esper.epl.db.DatabaseConfigServiceImpl;
 import com.espertech.esper.epl.declexpr.ExprDeclaredServiceImpl;
 import com.espertech.esper.epl.metric.MetricReportingServiceImpl;
+import com.espertech.esper.epl.named.NamedWindowConsumerDispatchPool;
 import com.espertech.esper.epl.named.NamedWindowService;
 import com.espertech.esper.epl.named.NamedWindowServiceImpl;
 import com.espertech.esper.epl.spec.PluggableObjectCollection;
@@ -93,7 +96,7 @@ public class EPServicesContextFactoryDefault implements EPServicesContextFactory
         ManagedReadWriteLock eventProcessingRWLock = new ManagedReadWriteLock("EventProcLock", false);
 
         TimeSourceService timeSourceService = makeTimeSource(configSnapshot);
-        SchedulingServiceSPI schedulingService = SchedulingServiceProvider.newService(timeSourceService);
+        SchedulingServiceSPI schedulingService = SchedulingServiceProvider.newService(timeSourceService, configSnapshot.getEngineDefaults().getExecution().getSchedulingServiceType());
         SchedulingMgmtService schedulingMgmtService = new SchedulingMgmtServiceImpl();
         EngineImportService engineImportService = makeEngineImportService(configSnapshot);
         EngineSettingsService engineSettingsService = new EngineSettingsService(configSnapshot.getEngineDefaults(), configSnapshot.getPlugInEventTypeResolutionURIs());
@@ -134,9 +137,15 @@ public class EPServicesContextFactoryDefault implements EPServicesContextFactory
 
         StatementLockFactory statementLockFactory = new StatementLockFactoryImpl(configSnapshot.getEngineDefaults().getExecution().isFairlock(), configSnapshot.getEngineDefaults().getExecution().isDisableLocking());
         StreamFactoryService streamFactoryService = StreamFactoryServiceProvider.newService(epServiceProvider.getURI(), configSnapshot.getEngineDefaults().getViewResources().isShareViews());
-        FilterServiceSPI filterService = FilterServiceProvider.newService();
+        FilterServiceSPI filterService = FilterServiceProvider.newService(configSnapshot.getEngineDefaults().getExecution().getFilterServiceType());
         MetricReportingServiceImpl metricsReporting = new MetricReportingServiceImpl(configSnapshot.getEngineDefaults().getMetricsReporting(), epServiceProvider.getURI());
-        NamedWindowService namedWindowService = new NamedWindowServiceImpl(statementLockFactory, variableService, engineSettingsService.getEngineSettings().getExecution().isPrioritized(), eventProcessingRWLock, exceptionHandlingService, configSnapshot.getEngineDefaults().getLogging().isEnableQueryPlan(), metricsReporting);
+        NamedWindowConsumerDispatchPool namedWindowDispatchPool = null;
+        int namedWindowDispatchThreads = configSnapshot.getEngineDefaults().getExecution().getNamedWindowConsumerDispatchThreads();
+        if (namedWindowDispatchThreads > 0)
+        {
+            namedWindowDispatchPool = new NamedWindowConsumerDispatchPool(namedWindowDispatchThreads, epServiceProvider.getURI());
+        }
+        NamedWindowService namedWindowService = new NamedWindowServiceImpl(statementLockFactory, variableService, engineSettingsService.getEngineSettings().getExecution().isPrioritized(), eventProcessingRWLock, exceptionHandlingService, configSnapshot.getEngineDefaults().getLogging().isEnableQueryPlan(), metricsReporting, namedWindowDispatchPool);
 
         ValueAddEventService valueAddEventService = new ValueAddEventServiceImpl();
         valueAddEventService.init(configSnapshot.getRevisionEventTypes(), configSnapshot.getVariantStreams(), eventAdapterService, eventTypeIdGenerator);
@@ -537,6 +546,13 @@ public class EPServicesContextFactoryDefault implements EPServicesContextFactory
             {
                 engineImportService.addSingleRow(config.getName(), config.getFunctionClassName(), config.getFunctionMethodName(), config.getValueCache(), config.getFilterOptimizable(), config.isRethrowExceptions());
             }
+
+            // Add built-in aggregation functions that have no keyword, configured functions by the same name take precedence
+            addBuiltinAggregation(engineImportService, AggregatorPercentileFactory.PERCENTILE, AggregatorPercentileFactory.class);
+            addBuiltinAggregation(engineImportService, AggregatorPercentileFactory.PERCENTILES, AggregatorPercentileFactory.class);
+            addBuiltinAggregation(engineImportService, AggregatorApproxFactory.APPROX_COUNT_DISTINCT, AggregatorApproxFactory.class);
+            addBuiltinAggregation(engineImportService, AggregatorApproxFactory.APPROX_PERCENTILE, AggregatorApproxFactory.class);
+            addBuiltinAggregation(engineImportService, AggregatorApproxFactory.APPROX_TOPK, AggregatorApproxFactory.class);
         }
         catch (EngineImportException ex)
         {
@@ -546,6 +562,11 @@ public class EPServicesContextFactoryDefault implements EPServicesContextFactory
         return engineImportService;
     }
 
+    private static void addBuiltinAggregation(EngineImportServiceImpl engineImportService, String name, Class factoryClass)
+    {
+        engineImportService.addBuiltinAggregation(name, new ConfigurationPlugInAggregationFunction(name, null, factoryClass.getName()));
+    }
+
     /**
      * Creates the database config service.
      * @param configSnapshot is the config snapshot
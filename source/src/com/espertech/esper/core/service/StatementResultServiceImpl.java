@@ -18,6 +18,7 @@ import com.espertech.esper.core.thread.ThreadingOption;
 import com.espertech.esper.core.thread.ThreadingService;
 import com.espertech.esper.epl.expression.ExprEvaluator;
 import com.espertech.esper.epl.expression.ExprEvaluatorContext;
+import com.espertech.esper.epl.metric.InstrumentationPath;
 import com.espertech.esper.epl.metric.MetricReportingPath;
 import com.espertech.esper.epl.metric.MetricReportingService;
 import com.espertech.esper.epl.metric.MetricReportingServiceSPI;
@@ -217,6 +218,10 @@ public class StatementResultServiceImpl implements StatementResultService
 
     public void execute()
     {
+        if (InstrumentationPath.isInstrumentationEnabled)
+        {
+            InstrumentationPath.getInstrumentation().qDispatch(epServiceProvider.getURI(), statementName);
+        }
         ArrayDeque<UniformPair<EventBean[]>> dispatches = lastResults.get();
 
         UniformPair<EventBean[]> events = EventBeanUtility.flattenList(dispatches);
@@ -236,6 +241,10 @@ public class StatementResultServiceImpl implements StatementResultService
         }
 
         dispatches.clear();
+        if (InstrumentationPath.isInstrumentationEnabled)
+        {
+            InstrumentationPath.getInstrumentation().aDispatch();
+        }
     }
 
     /**
@@ -8,6 +8,7 @@
  **************************************************************************************/
 package com.espertech.esper.core.start;
 
+import com.espertech.esper.client.EPException;
 import com.espertech.esper.client.EventBean;
 import com.espertech.esper.client.EventType;
 import com.espertech.esper.client.context.ContextPartitionSelector;
@@ -25,6 +26,7 @@ import com.espertech.esper.core.service.StreamJoinAnalysisResult;
 import com.espertech.esper.epl.core.*;
 import com.espertech.esper.epl.expression.ExprEvaluator;
 import com.espertech.esper.epl.expression.ExprNode;
+import com.espertech.esper.epl.expression.ExprNodeContextStateVisitor;
 import com.espertech.esper.epl.expression.ExprNodeUtility;
 import com.espertech.esper.epl.expression.ExprValidationException;
 import com.espertech.esper.epl.join.base.*;
@@ -45,6 +47,10 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
 
 /**
  * Starts and provides the stop method for EPL statements.
@@ -54,6 +60,11 @@ public class EPPreparedExecuteMethod
     private static final Log queryPlanLog = LogFactory.getLog(AuditPath.QUERYPLAN_LOG);
     private static final Log log = LogFactory.getLog(EPPreparedExecuteMethod.class);
 
+    /**
+     * Minimum number of rows per chunk when filtering a snapshot in parallel.
+     */
+    protected static final int PARALLEL_MIN_CHUNK_ROWS = 8192;
+
     private final StatementSpecCompiled statementSpec;
     private final ResultSetProcessor resultSetProcessor;
     private final NamedWindowProcessor[] processors;
@@ -168,7 +179,7 @@ public class EPPreparedExecuteMethod
             boolean hasAggregations = !resultSetProcessorPrototype.getAggregationServiceFactoryDesc().getExpressions().isEmpty();
             joinSetComposerPrototype = JoinSetComposerPrototypeFactory.makeComposerPrototype(null, null,
                     statementSpec.getOuterJoinDescList(), statementSpec.getFilterRootNode(), typesPerStream, namesPerStream,
-                    streamJoinAnalysisResult, queryPlanLogging, statementContext.getAnnotations(), new HistoricalViewableDesc(numStreams), agentInstanceContext, false, hasAggregations);
+                    streamJoinAnalysisResult, queryPlanLogging, statementContext.getAnnotations(), new HistoricalViewableDesc(numStreams), agentInstanceContext, false, hasAggregations, 0);
         }
 
         // check context partition use
@@ -378,10 +389,89 @@ public class EPPreparedExecuteMethod
     }
 
     private List<EventBean> getFiltered(Collection<EventBean> snapshot, List<ExprNode> filterExpressions)
+    {
+        ExprEvaluator[] evaluators = ExprNodeUtility.getEvaluators(filterExpressions);
+        ThreadPoolExecutor pool = services.getThreadingService().getFireAndForgetThreadPool();
+        if (pool != null && snapshot.size() >= 2 * PARALLEL_MIN_CHUNK_ROWS && isParallelFilter(filterExpressions))
+        {
+            return getFilteredParallel(snapshot.toArray(new EventBean[snapshot.size()]), evaluators, pool);
+        }
+        return getFiltered(snapshot, evaluators, agentInstanceContext);
+    }
+
+    /**
+     * Returns true if the filter expressions can be evaluated by pool threads in parallel. As pool threads share
+     * the agent instance context of the query, filters with expressions that keep state in the context, such as declared
+     * expressions and enumeration methods, are evaluated by the querying thread only.
+     * @param filterExpressions filter expressions
+     * @return indicator
+     */
+    protected static boolean isParallelFilter(List<ExprNode> filterExpressions)
+    {
+        ExprNodeContextStateVisitor visitor = new ExprNodeContextStateVisitor();
+        for (ExprNode filterExpression : filterExpressions)
+        {
+            filterExpression.accept(visitor);
+        }
+        return visitor.getExprNodes().isEmpty();
+    }
+
+    // Splits the rows into chunks that the pool threads and the querying thread filter, keeping the order of rows
+    private List<EventBean> getFilteredParallel(final EventBean[] rows, final ExprEvaluator[] evaluators, ThreadPoolExecutor pool)
+    {
+        int numChunks = Math.min(pool.getMaximumPoolSize() * 4, rows.length / PARALLEL_MIN_CHUNK_ROWS);
+        int chunkSize = (rows.length + numChunks - 1) / numChunks;
+
+        List<Future<List<EventBean>>> futures = new ArrayList<Future<List<EventBean>>>(numChunks - 1);
+        for (int start = chunkSize; start < rows.length; start += chunkSize)
+        {
+            final List<EventBean> chunk = Arrays.asList(rows).subList(start, Math.min(start + chunkSize, rows.length));
+            futures.add(pool.submit(new Callable<List<EventBean>>()
+            {
+                public List<EventBean> call() throws Exception
+                {
+                    services.getVariableService().setLocalVersion();
+                    return getFiltered(chunk, evaluators, agentInstanceContext);
+                }
+            }));
+        }
+
+        List<EventBean> filteredSnapshot;
+        try
+        {
+            filteredSnapshot = getFiltered(Arrays.asList(rows).subList(0, chunkSize), evaluators, agentInstanceContext);
+            for (Future<List<EventBean>> future : futures)
+            {
+                filteredSnapshot.addAll(future.get());
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new EPException("Interrupted while waiting for fire-and-forget query execution", e);
+        }
+        catch (ExecutionException e)
+        {
+            if (e.getCause() instanceof RuntimeException)
+            {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new EPException(e.getCause());
+        }
+        finally
+        {
+            for (Future<List<EventBean>> future : futures)
+            {
+                future.cancel(false);
+            }
+        }
+        return filteredSnapshot;
+    }
+
+    private static List<EventBean> getFiltered(Collection<EventBean> snapshot, ExprEvaluator[] evaluators, AgentInstanceContext agentInstanceContext)
     {
         EventBean[] eventsPerStream = new EventBean[1];
         List<EventBean> filteredSnapshot = new ArrayList<EventBean>();
-        ExprEvaluator[] evaluators = ExprNodeUtility.getEvaluators(filterExpressions);
         for (EventBean row : snapshot)
         {
             boolean pass = true;
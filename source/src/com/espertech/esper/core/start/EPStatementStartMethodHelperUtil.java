@@ -22,6 +22,8 @@ import com.espertech.esper.epl.spec.StreamSpecCompiled;
 import com.espertech.esper.event.EventTypeUtility;
 import com.espertech.esper.pattern.EvalFactoryNode;
 import com.espertech.esper.pattern.EvalFilterFactoryNode;
+import com.espertech.esper.view.DataWindowViewFactoryFIFO;
+import com.espertech.esper.view.ViewFactory;
 import com.espertech.esper.view.ViewFactoryChain;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -81,6 +83,19 @@ public class EPStatementStartMethodHelperUtil
         return result;
     }
 
+    protected static boolean[] getHasFIFODataWindow(boolean[] isNamedWindow, ViewFactoryChain[] unmaterializedViewChain)
+    {
+        boolean[] result = new boolean[unmaterializedViewChain.length];
+        for (int i = 0; i < unmaterializedViewChain.length; i++) {
+            if (isNamedWindow[i]) {
+                continue;
+            }
+            List<ViewFactory> chain = unmaterializedViewChain[i].getViewFactoryChain();
+            result[i] = chain.size() == 1 && chain.get(0) instanceof DataWindowViewFactoryFIFO;
+        }
+        return result;
+    }
+
     protected static boolean determineSubquerySameStream(StatementSpecCompiled statementSpec, FilterStreamSpecCompiled filterStreamSpec) {
         for (ExprSubselectNode subselect : statementSpec.getSubSelectExpressions()) {
             StreamSpecCompiled streamSpec = subselect.getStatementSpecCompiled().getStreamSpecs().get(0);
@@ -27,6 +27,7 @@ import com.espertech.esper.epl.core.*;
 import com.espertech.esper.epl.db.DatabasePollingViewableFactory;
 import com.espertech.esper.epl.expression.ExprValidationException;
 import com.espertech.esper.epl.join.base.HistoricalViewableDesc;
+import com.espertech.esper.epl.join.base.JoinExecutionStrategyAsync;
 import com.espertech.esper.epl.join.base.JoinSetComposerPrototype;
 import com.espertech.esper.epl.join.base.JoinSetComposerPrototypeFactory;
 import com.espertech.esper.epl.named.*;
@@ -52,6 +53,7 @@ import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 
 /**
  * Starts and provides the stop method for EPL statements.
@@ -99,6 +101,10 @@ public class EPStatementStartMethodSelectUtil
         StreamJoinAnalysisResult joinAnalysisResult = verifyJoinViews(statementSpec, statementContext.getNamedWindowService(), defaultAgentInstanceContext);
         final ExprEvaluatorContextStatement evaluatorContextStmt = new ExprEvaluatorContextStatement(statementContext);
 
+        // historical streams of joins completed asynchronously poll ahead of the join
+        int numConcurrentPolls = isJoin ? JoinExecutionStrategyAsync.getNumConcurrentPolls(statementSpec.getAnnotations()) : 0;
+        ExecutorService prefetchExecutorService = numConcurrentPolls > 1 ? services.getThreadingService().getHistoricalJoinThreadPool() : null;
+
         for (int i = 0; i < statementSpec.getStreamSpecs().size(); i++)
         {
             StreamSpecCompiled streamSpec = statementSpec.getStreamSpecs().get(i);
@@ -165,7 +171,7 @@ public class EPStatementStartMethodSelectUtil
                 SQLOutputRowConversion outputRowConversionHook = (SQLOutputRowConversion) JavaClassHelper.getAnnotationHook(statementSpec.getAnnotations(), HookType.SQLROW, SQLOutputRowConversion.class, statementContext.getMethodResolutionService());
                 EPStatementAgentInstanceHandle epStatementAgentInstanceHandle = defaultAgentInstanceContext.getEpStatementAgentInstanceHandle();
                 final HistoricalEventViewable historicalEventViewable = DatabasePollingViewableFactory.createDBStatementView(statementContext.getStatementId(), i, sqlStreamSpec, services.getDatabaseRefService(), services.getEventAdapterService(), epStatementAgentInstanceHandle, typeConversionHook, outputRowConversionHook,
-                        statementContext.getConfigSnapshot().getEngineDefaults().getLogging().isEnableJDBC());
+                        statementContext.getConfigSnapshot().getEngineDefaults().getLogging().isEnableJDBC(), prefetchExecutorService, numConcurrentPolls, services.getMetricsReportingService());
                 historicalEventViewables[i] = historicalEventViewable;
                 unmaterializedViewChain[i] = new ViewFactoryChain(historicalEventViewable.getEventType(), new LinkedList<ViewFactory>());
                 eventStreamParentViewableActivators[i] = new ViewableActivator() {
@@ -185,7 +191,7 @@ public class EPStatementStartMethodSelectUtil
 
                 MethodStreamSpec methodStreamSpec = (MethodStreamSpec) streamSpec;
                 EPStatementAgentInstanceHandle epStatementAgentInstanceHandle = defaultAgentInstanceContext.getEpStatementAgentInstanceHandle();
-                final HistoricalEventViewable historicalEventViewable = MethodPollingViewableFactory.createPollMethodView(i, methodStreamSpec, services.getEventAdapterService(), epStatementAgentInstanceHandle, statementContext.getMethodResolutionService(), services.getEngineImportService(), statementContext.getSchedulingService(), statementContext.getScheduleBucket(), evaluatorContextStmt);
+                final HistoricalEventViewable historicalEventViewable = MethodPollingViewableFactory.createPollMethodView(i, methodStreamSpec, services.getEventAdapterService(), epStatementAgentInstanceHandle, statementContext.getMethodResolutionService(), services.getEngineImportService(), statementContext.getSchedulingService(), statementContext.getScheduleBucket(), evaluatorContextStmt, prefetchExecutorService, numConcurrentPolls, services.getMetricsReportingService());
                 historicalEventViewables[i] = historicalEventViewable;
                 unmaterializedViewChain[i] = new ViewFactoryChain(historicalEventViewable.getEventType(), new LinkedList<ViewFactory>());
                 eventStreamParentViewableActivators[i] = new ViewableActivator() {
@@ -248,7 +254,8 @@ public class EPStatementStartMethodSelectUtil
         SubSelectStrategyCollection subSelectStrategyCollection = EPStatementStartMethodHelperSubselect.planSubSelect(services, statementContext, queryPlanLogging, subSelectStreamDesc, streamNames, streamEventTypes, eventTypeNames, stopCallbacks, statementSpec.getAnnotations(), statementSpec.getDeclaredExpressions(), contextPropertyRegistry);
 
         // Construct type information per stream
-        StreamTypeService typeService = new StreamTypeServiceImpl(streamEventTypes, streamNames, EPStatementStartMethodHelperUtil.getHasIStreamOnly(isNamedWindow, unmaterializedViewChain), services.getEngineURI(), false);
+        StreamTypeServiceImpl typeService = new StreamTypeServiceImpl(streamEventTypes, streamNames, EPStatementStartMethodHelperUtil.getHasIStreamOnly(isNamedWindow, unmaterializedViewChain), services.getEngineURI(), false);
+        typeService.setFIFODataWindow(EPStatementStartMethodHelperUtil.getHasFIFODataWindow(isNamedWindow, unmaterializedViewChain));
         ViewResourceDelegateUnverified viewResourceDelegateUnverified = new ViewResourceDelegateUnverified();
 
         // Validate views that require validation, specifically streams that don't have
@@ -296,7 +303,7 @@ public class EPStatementStartMethodSelectUtil
                     statementContext.getStatementName(), statementContext.getStatementId(),
                     statementSpec.getOuterJoinDescList(), statementSpec.getFilterRootNode(), typeService.getEventTypes(), streamNames,
                     joinAnalysisResult, queryPlanLogging, statementContext.getAnnotations(), historicalViewableDesc, defaultAgentInstanceContext,
-                    selectsRemoveStream, hasAggregations);
+                    selectsRemoveStream, hasAggregations, services.getConfigSnapshot().getEngineDefaults().getExecution().getJoinReplanInterval());
         }
 
         // obtain factory for output limiting
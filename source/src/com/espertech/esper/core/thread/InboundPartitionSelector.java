@@ -0,0 +1,142 @@
+/*
+ * *************************************************************************************
+ *  Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ *  http://esper.codehaus.org                                                          *
+ *  http://www.espertech.com                                                           *
+ *  ---------------------------------------------------------------------------------- *
+ *  The software in this package is published under the terms of the GPL license       *
+ *  a copy of which has been included with this distribution in the license.txt file.  *
+ * *************************************************************************************
+ */
+
+package com.espertech.esper.core.thread;
+
+import com.espertech.esper.client.EventBean;
+import com.espertech.esper.client.EventPropertyGetter;
+import com.espertech.esper.client.EventType;
+import com.espertech.esper.client.PropertyAccessException;
+import com.espertech.esper.core.context.mgr.ContextControllerHashedGetterCRC32Single;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Assigns inbound events to a fixed partition by the value of a key property configured per event type name,
+ * so that all events with the same key are processed by the same inbound thread and in the order sent.
+ * <p>
+ * String keys are hashed using CRC32, same as the consistent_hash_crc32 function of hash-segmented contexts,
+ * other keys use their hash code. Events of types without a key property are assigned round-robin.
+ */
+public class InboundPartitionSelector
+{
+    private static final Log log = LogFactory.getLog(InboundPartitionSelector.class);
+    private static final EventPropertyGetter NO_KEY = new EventPropertyGetter()
+    {
+        public Object get(EventBean eventBean) throws PropertyAccessException
+        {
+            return null;
+        }
+
+        public boolean isExistsProperty(EventBean eventBean)
+        {
+            return false;
+        }
+
+        public Object getFragment(EventBean eventBean) throws PropertyAccessException
+        {
+            return null;
+        }
+    };
+
+    private final Map<String, String> keyProperties;
+    private final int numPartitions;
+    private final ConcurrentHashMap<EventType, EventPropertyGetter> getters = new ConcurrentHashMap<EventType, EventPropertyGetter>();
+    private final AtomicInteger roundRobin = new AtomicInteger();
+
+    /**
+     * Ctor.
+     * @param keyProperties key property name per event type name
+     * @param numPartitions number of partitions
+     */
+    public InboundPartitionSelector(Map<String, String> keyProperties, int numPartitions)
+    {
+        this.keyProperties = keyProperties;
+        this.numPartitions = numPartitions;
+    }
+
+    /**
+     * Returns the partition for an event.
+     * @param theEvent event
+     * @return partition number between zero and the number of partitions minus one
+     */
+    public int getPartition(EventBean theEvent)
+    {
+        EventPropertyGetter getter = getters.get(theEvent.getEventType());
+        if (getter == null)
+        {
+            getter = resolveGetter(theEvent.getEventType());
+            getters.put(theEvent.getEventType(), getter);
+        }
+        if (getter == NO_KEY)
+        {
+            return getPartitionRoundRobin();
+        }
+        return getPartition(getter.get(theEvent));
+    }
+
+    /**
+     * Returns the next partition for work that has no key.
+     * @return partition number
+     */
+    public int getPartitionRoundRobin()
+    {
+        int next = roundRobin.getAndIncrement() % numPartitions;
+        return next < 0 ? next + numPartitions : next;
+    }
+
+    /**
+     * Returns the number of partitions.
+     * @return partitions
+     */
+    public int getNumPartitions()
+    {
+        return numPartitions;
+    }
+
+    private int getPartition(Object key)
+    {
+        if (key == null)
+        {
+            return 0;
+        }
+        if (key instanceof String)
+        {
+            return ContextControllerHashedGetterCRC32Single.stringToCRC32Hash((String) key, numPartitions);
+        }
+        int partition = key.hashCode() % numPartitions;
+        return partition < 0 ? partition + numPartitions : partition;
+    }
+
+    private EventPropertyGetter resolveGetter(EventType eventType)
+    {
+        if (eventType.getName() == null)
+        {
+            return NO_KEY;
+        }
+        String property = keyProperties.get(eventType.getName());
+        if (property == null)
+        {
+            return NO_KEY;
+        }
+        EventPropertyGetter getter = eventType.getGetter(property);
+        if (getter == null)
+        {
+            log.warn("Inbound partition property '" + property + "' is not a valid property of event type '" + eventType.getName() + "', assigning events round-robin");
+            return NO_KEY;
+        }
+        return getter;
+    }
+}
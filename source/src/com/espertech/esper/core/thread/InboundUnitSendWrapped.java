@@ -36,6 +36,15 @@ public class InboundUnitSendWrapped implements InboundUnitRunnable
         this.runtime = runtime;
     }
 
+    /**
+     * Returns the event.
+     * @return inbound event
+     */
+    public EventBean getEventBean()
+    {
+        return eventBean;
+    }
+
     public void run()
     {
         try
@@ -0,0 +1,316 @@
+/*
+ * *************************************************************************************
+ *  Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ *  http://esper.codehaus.org                                                          *
+ *  http://www.espertech.com                                                           *
+ *  ---------------------------------------------------------------------------------- *
+ *  The software in this package is published under the terms of the GPL license       *
+ *  a copy of which has been included with this distribution in the license.txt file.  *
+ * *************************************************************************************
+ */
+
+package com.espertech.esper.core.thread;
+
+import com.espertech.esper.client.ConfigurationEngineDefaults;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded ring buffer of pre-allocated, reusable slots handing work from producer threads to consumer threads.
+ * <p>
+ * Each slot carries a sequence number that tells producers and consumers whether the slot is free for
+ * the current lap or holds published work, so that claiming a slot is a single compare-and-set (or a plain
+ * increment for a single producer) and the buffer allocates nothing after construction.
+ * <p>
+ * A producer claims a sequence using {@link #next()}, fills the slot returned by {@link #get(long)} and
+ * makes it available by {@link #publish(long)}. A consumer claims a sequence using {@link #take()},
+ * processes the slot and returns it by {@link #release(long)}.
+ */
+public class ThreadingRingBuffer
+{
+    private static final int SPIN_TRIES = 100;
+    private static final int YIELD_TRIES = 200;
+
+    private final ThreadingRingBufferSlot[] slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final boolean singleProducer;
+    private final ConfigurationEngineDefaults.Threading.ThreadPoolWaitStrategy waitStrategy;
+
+    private final AtomicLong producerSequence = new AtomicLong();
+    private final AtomicLong consumerSequence = new AtomicLong();
+
+    private final ReentrantLock waitLock = new ReentrantLock();
+    private final Condition waitCondition = waitLock.newCondition();
+    private final AtomicInteger numWaiting = new AtomicInteger();
+    private volatile boolean shutdown;
+
+    /**
+     * Ctor.
+     * @param capacity minimum number of slots, rounded up to a power of 2 of at least 2
+     * @param singleProducer true if only a single thread ever calls {@link #next()}
+     * @param waitStrategy strategy for waiting for a free or a published slot
+     */
+    public ThreadingRingBuffer(int capacity, boolean singleProducer, ConfigurationEngineDefaults.Threading.ThreadPoolWaitStrategy waitStrategy)
+    {
+        // at least 2 slots: with a single slot a published sequence would equal the free sequence of the next lap
+        int size = 2;
+        while (size < capacity)
+        {
+            size <<= 1;
+        }
+        this.slots = new ThreadingRingBufferSlot[size];
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++)
+        {
+            slots[i] = new ThreadingRingBufferSlot();
+            sequences.set(i, i);
+        }
+        this.mask = size - 1;
+        this.singleProducer = singleProducer;
+        this.waitStrategy = waitStrategy;
+    }
+
+    /**
+     * Claims the next slot for publishing, waiting while the buffer is full.
+     * @return sequence of the claimed slot, or -1 if the buffer was shut down
+     */
+    public long next()
+    {
+        int attempt = 0;
+        while (true)
+        {
+            if (shutdown)
+            {
+                return -1;
+            }
+            long position = producerSequence.get();
+            int index = (int) position & mask;
+            long sequence = sequences.get(index);
+            long difference = sequence - position;
+            if (difference == 0)
+            {
+                if (singleProducer)
+                {
+                    producerSequence.lazySet(position + 1);
+                    return position;
+                }
+                if (producerSequence.compareAndSet(position, position + 1))
+                {
+                    return position;
+                }
+            }
+            else if (difference < 0)
+            {
+                // full: the slot was not yet released by the consumer of the previous lap
+                waitWhile(index, sequence, attempt++);
+            }
+        }
+    }
+
+    /**
+     * Claims the next slot for publishing if one is free, without waiting.
+     * @return sequence of the claimed slot, or -1 if the buffer is full or was shut down
+     */
+    public long tryNext()
+    {
+        while (true)
+        {
+            if (shutdown)
+            {
+                return -1;
+            }
+            long position = producerSequence.get();
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference < 0)
+            {
+                return -1;
+            }
+            if (difference == 0)
+            {
+                if (singleProducer)
+                {
+                    producerSequence.lazySet(position + 1);
+                    return position;
+                }
+                if (producerSequence.compareAndSet(position, position + 1))
+                {
+                    return position;
+                }
+            }
+        }
+    }
+
+    /**
+     * Claims the next published slot for processing, waiting while the buffer is empty.
+     * @return sequence of the claimed slot, or -1 if the buffer was shut down
+     */
+    public long take()
+    {
+        int attempt = 0;
+        while (true)
+        {
+            if (shutdown)
+            {
+                return -1;
+            }
+            long position = consumerSequence.get();
+            int index = (int) position & mask;
+            long sequence = sequences.get(index);
+            long difference = sequence - (position + 1);
+            if (difference == 0)
+            {
+                if (consumerSequence.compareAndSet(position, position + 1))
+                {
+                    return position;
+                }
+            }
+            else if (difference < 0)
+            {
+                // empty: the slot was not yet published
+                waitWhile(index, sequence, attempt++);
+            }
+        }
+    }
+
+    /**
+     * Returns the slot for a claimed sequence.
+     * @param sequence claimed sequence
+     * @return slot
+     */
+    public ThreadingRingBufferSlot get(long sequence)
+    {
+        return slots[(int) sequence & mask];
+    }
+
+    /**
+     * Makes a filled slot available to consumers.
+     * @param sequence sequence returned by {@link #next()}
+     */
+    public void publish(long sequence)
+    {
+        sequences.set((int) sequence & mask, sequence + 1);
+        signal();
+    }
+
+    /**
+     * Returns a processed slot to producers.
+     * @param sequence sequence returned by {@link #take()}
+     */
+    public void release(long sequence)
+    {
+        slots[(int) sequence & mask].clear();
+        sequences.set((int) sequence & mask, sequence + mask + 1);
+        signal();
+    }
+
+    /**
+     * Returns the number of slots.
+     * @return capacity
+     */
+    public int getCapacity()
+    {
+        return mask + 1;
+    }
+
+    /**
+     * Returns the approximate number of published slots not yet claimed by consumers.
+     * @return backlog size
+     */
+    public int size()
+    {
+        long size = producerSequence.get() - consumerSequence.get();
+        return size < 0 ? 0 : (int) size;
+    }
+
+    /**
+     * Returns true after {@link #shutdown()}.
+     * @return shutdown indicator
+     */
+    public boolean isShutdown()
+    {
+        return shutdown;
+    }
+
+    /**
+     * Wakes all waiting threads and makes all subsequent claims return -1.
+     */
+    public void shutdown()
+    {
+        shutdown = true;
+        waitLock.lock();
+        try
+        {
+            waitCondition.signalAll();
+        }
+        finally
+        {
+            waitLock.unlock();
+        }
+    }
+
+    private void signal()
+    {
+        // the sequence write above and the read of the waiter count here pair with the
+        // increment and the sequence re-read of the waiting thread, so a wakeup cannot be missed
+        if (numWaiting.get() == 0)
+        {
+            return;
+        }
+        waitLock.lock();
+        try
+        {
+            waitCondition.signalAll();
+        }
+        finally
+        {
+            waitLock.unlock();
+        }
+    }
+
+    private void waitWhile(int index, long sequence, int attempt)
+    {
+        switch (waitStrategy)
+        {
+            case BUSY_SPIN:
+                return;
+            case YIELD:
+                Thread.yield();
+                return;
+            default:
+                if (attempt < SPIN_TRIES)
+                {
+                    return;
+                }
+                if (attempt < SPIN_TRIES + YIELD_TRIES)
+                {
+                    Thread.yield();
+                    return;
+                }
+                waitLock.lock();
+                numWaiting.incrementAndGet();
+                try
+                {
+                    if ((sequences.get(index) == sequence) && (!shutdown))
+                    {
+                        waitCondition.await(10, TimeUnit.MILLISECONDS);
+                    }
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+                finally
+                {
+                    numWaiting.decrementAndGet();
+                    waitLock.unlock();
+                }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * *************************************************************************************
+ *  Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ *  http://esper.codehaus.org                                                          *
+ *  http://www.espertech.com                                                           *
+ *  ---------------------------------------------------------------------------------- *
+ *  The software in this package is published under the terms of the GPL license       *
+ *  a copy of which has been included with this distribution in the license.txt file.  *
+ * *************************************************************************************
+ */
+
+package com.espertech.esper.core.thread;
+
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executor view of a {@link ThreadingRingBufferPool} for users of the thread pool getters of {@link ThreadingService}.
+ * <p>
+ * Executed work is submitted to the pool and run by the threads of the pool, this executor never starts threads itself.
+ * Its queue is the {@link ThreadingRingBufferQueue} of the pool. The pool shuts down the executor when it is destroyed.
+ */
+public class ThreadingRingBufferExecutor extends ThreadPoolExecutor
+{
+    private final ThreadingRingBufferPool pool;
+    private final int numThreads;
+
+    /**
+     * Ctor.
+     * @param pool to submit to
+     * @param numThreads number of threads of the pool
+     */
+    public ThreadingRingBufferExecutor(ThreadingRingBufferPool pool, int numThreads)
+    {
+        super(numThreads, numThreads, 1, TimeUnit.SECONDS, pool.getQueue());
+        this.pool = pool;
+        this.numThreads = numThreads;
+    }
+
+    public void execute(Runnable command)
+    {
+        if (command == null)
+        {
+            throw new NullPointerException();
+        }
+        if (isShutdown())
+        {
+            getRejectedExecutionHandler().rejectedExecution(command, this);
+            return;
+        }
+        pool.submit(command);
+    }
+
+    public int getPoolSize()
+    {
+        return isShutdown() ? 0 : numThreads;
+    }
+
+    public int getLargestPoolSize()
+    {
+        return numThreads;
+    }
+}
@@ -0,0 +1,315 @@
+/*
+ * *************************************************************************************
+ *  Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ *  http://esper.codehaus.org                                                          *
+ *  http://www.espertech.com                                                           *
+ *  ---------------------------------------------------------------------------------- *
+ *  The software in this package is published under the terms of the GPL license       *
+ *  a copy of which has been included with this distribution in the license.txt file.  *
+ * *************************************************************************************
+ */
+
+package com.espertech.esper.core.thread;
+
+import com.espertech.esper.client.ConfigurationEngineDefaults;
+import com.espertech.esper.client.EventBean;
+import com.espertech.esper.core.service.EPRuntimeImpl;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.Map;
+
+/**
+ * Fixed-size pool of threads consuming work from a {@link ThreadingRingBuffer}.
+ * <p>
+ * Submitting waits while the ring buffer is full, except when the submitting thread is a thread of this pool,
+ * for example a route execution thread routing another event: such work is run by the submitting thread,
+ * since all threads of the pool waiting for capacity would otherwise leave no thread to free it.
+ */
+public class ThreadingRingBufferPool
+{
+    private static final Log log = LogFactory.getLog(ThreadingRingBufferPool.class);
+    private static final long RUN_INLINE = -2;
+
+    private final String name;
+    private final ThreadingRingBuffer ringBuffer;
+    private final Thread[] threads;
+    private final ThreadingRingBufferQueue queue;
+    private final ThreadingRingBufferExecutor executor;
+
+    /**
+     * Ctor, starts the threads.
+     * @param engineURI engine URI
+     * @param name pool name
+     * @param capacity minimum number of slots
+     * @param numThreads number of threads
+     * @param singleProducer true if only a single thread submits
+     * @param waitStrategy wait strategy
+     */
+    public ThreadingRingBufferPool(String engineURI, String name, int capacity, int numThreads, boolean singleProducer, ConfigurationEngineDefaults.Threading.ThreadPoolWaitStrategy waitStrategy)
+    {
+        this.name = name;
+        this.ringBuffer = new ThreadingRingBuffer(capacity, singleProducer, waitStrategy);
+        this.queue = new ThreadingRingBufferQueue(this);
+        this.executor = new ThreadingRingBufferExecutor(this, numThreads);
+
+        if (log.isInfoEnabled())
+        {
+            log.info("Starting ring buffer pool " + name + " with " + numThreads + " threads and " + ringBuffer.getCapacity() + " slots");
+        }
+
+        String threadGroupName = "com.espertech.esper." + engineURI + "-" + name;
+        ThreadGroup threadGroup = new ThreadGroup(threadGroupName);
+        EngineThreadFactory threadFactory = new EngineThreadFactory(engineURI, name, threadGroup, Thread.NORM_PRIORITY);
+        threads = new Thread[numThreads];
+        for (int i = 0; i < numThreads; i++)
+        {
+            threads[i] = threadFactory.newThread(new Runnable()
+            {
+                public void run()
+                {
+                    consume();
+                }
+            });
+            threads[i].start();
+        }
+    }
+
+    /**
+     * Submit a work unit.
+     * @param unit to run
+     */
+    public void submit(Runnable unit)
+    {
+        long sequence = claim();
+        if (sequence == RUN_INLINE)
+        {
+            unit.run();
+            return;
+        }
+        if (sequence < 0)
+        {
+            return;
+        }
+        ringBuffer.get(sequence).setUnit(unit);
+        ringBuffer.publish(sequence);
+    }
+
+    /**
+     * Submit an unwrapped event.
+     * @param theEvent to process
+     * @param runtime to process
+     */
+    public void submitEvent(Object theEvent, EPRuntimeImpl runtime)
+    {
+        long sequence = claim();
+        if (sequence == RUN_INLINE)
+        {
+            ThreadingRingBufferSlot slot = new ThreadingRingBufferSlot();
+            slot.setEvent(theEvent, runtime);
+            slot.run();
+            return;
+        }
+        if (sequence < 0)
+        {
+            return;
+        }
+        ringBuffer.get(sequence).setEvent(theEvent, runtime);
+        ringBuffer.publish(sequence);
+    }
+
+    /**
+     * Submit a map event.
+     * @param map to process
+     * @param eventTypeName type name
+     * @param runtime to process
+     */
+    public void submitMap(Map map, String eventTypeName, EPRuntimeImpl runtime)
+    {
+        long sequence = claim();
+        if (sequence == RUN_INLINE)
+        {
+            ThreadingRingBufferSlot slot = new ThreadingRingBufferSlot();
+            slot.setMap(map, eventTypeName, runtime);
+            slot.run();
+            return;
+        }
+        if (sequence < 0)
+        {
+            return;
+        }
+        ringBuffer.get(sequence).setMap(map, eventTypeName, runtime);
+        ringBuffer.publish(sequence);
+    }
+
+    /**
+     * Submit an object-array event.
+     * @param properties to process
+     * @param eventTypeName type name
+     * @param runtime to process
+     */
+    public void submitObjectArray(Object[] properties, String eventTypeName, EPRuntimeImpl runtime)
+    {
+        long sequence = claim();
+        if (sequence == RUN_INLINE)
+        {
+            ThreadingRingBufferSlot slot = new ThreadingRingBufferSlot();
+            slot.setObjectArray(properties, eventTypeName, runtime);
+            slot.run();
+            return;
+        }
+        if (sequence < 0)
+        {
+            return;
+        }
+        ringBuffer.get(sequence).setObjectArray(properties, eventTypeName, runtime);
+        ringBuffer.publish(sequence);
+    }
+
+    /**
+     * Submit a wrapped event.
+     * @param eventBean to process
+     * @param runtime to process
+     */
+    public void submitEventBean(EventBean eventBean, EPRuntimeImpl runtime)
+    {
+        long sequence = claim();
+        if (sequence == RUN_INLINE)
+        {
+            ThreadingRingBufferSlot slot = new ThreadingRingBufferSlot();
+            slot.setEventBean(eventBean, runtime);
+            slot.run();
+            return;
+        }
+        if (sequence < 0)
+        {
+            return;
+        }
+        ringBuffer.get(sequence).setEventBean(eventBean, runtime);
+        ringBuffer.publish(sequence);
+    }
+
+    /**
+     * Returns the ring buffer.
+     * @return ring buffer
+     */
+    public ThreadingRingBuffer getRingBuffer()
+    {
+        return ringBuffer;
+    }
+
+    /**
+     * Returns a queue view reporting the backlog of the ring buffer and submitting added work to this pool.
+     * @return queue
+     */
+    public ThreadingRingBufferQueue getQueue()
+    {
+        return queue;
+    }
+
+    /**
+     * Returns an executor view submitting executed work to this pool.
+     * @return executor
+     */
+    public ThreadingRingBufferExecutor getExecutor()
+    {
+        return executor;
+    }
+
+    /**
+     * Returns the number of threads.
+     * @return threads
+     */
+    public int getNumThreads()
+    {
+        return threads.length;
+    }
+
+    /**
+     * Discards outstanding work and stops the threads, waiting up to 10 seconds for work in progress.
+     */
+    public void destroy()
+    {
+        if (log.isInfoEnabled())
+        {
+            log.info("Shutting down ring buffer pool " + name);
+        }
+
+        ringBuffer.shutdown();
+        executor.shutdownNow();
+        long deadline = System.currentTimeMillis() + 10000;
+        for (Thread thread : threads)
+        {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0)
+            {
+                break;
+            }
+            try
+            {
+                thread.join(remaining);
+            }
+            catch (InterruptedException e)
+            {
+                log.error("Interruped awaiting termination", e);
+                break;
+            }
+        }
+    }
+
+    private long claim()
+    {
+        long sequence = ringBuffer.tryNext();
+        if (sequence >= 0)
+        {
+            return sequence;
+        }
+        if ((!ringBuffer.isShutdown()) && (isPoolThread()))
+        {
+            return RUN_INLINE;
+        }
+        sequence = ringBuffer.next();
+        if (sequence < 0)
+        {
+            log.info("Submit to pool " + name + " after shutdown");
+        }
+        return sequence;
+    }
+
+    private boolean isPoolThread()
+    {
+        Thread current = Thread.currentThread();
+        for (Thread thread : threads)
+        {
+            if (thread == current)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void consume()
+    {
+        while (true)
+        {
+            long sequence = ringBuffer.take();
+            if (sequence < 0)
+            {
+                return;
+            }
+            try
+            {
+                ringBuffer.get(sequence).run();
+            }
+            catch (RuntimeException e)
+            {
+                log.error("Unexpected error in pool " + name + ": " + e.getMessage(), e);
+            }
+            finally
+            {
+                ringBuffer.release(sequence);
+            }
+        }
+    }
+}
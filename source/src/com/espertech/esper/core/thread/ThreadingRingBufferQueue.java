@@ -0,0 +1,105 @@
+/*
+ * *************************************************************************************
+ *  Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ *  http://esper.codehaus.org                                                          *
+ *  http://www.espertech.com                                                           *
+ *  ---------------------------------------------------------------------------------- *
+ *  The software in this package is published under the terms of the GPL license       *
+ *  a copy of which has been included with this distribution in the license.txt file.  *
+ * *************************************************************************************
+ */
+
+package com.espertech.esper.core.thread;
+
+import java.util.AbstractQueue;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Queue view of a {@link ThreadingRingBufferPool} for users of the queue getters of {@link ThreadingService}.
+ * <p>
+ * The size is the backlog of the ring buffer, and added work is submitted to the pool. The slots of the ring buffer
+ * are only consumed by the threads of the pool, therefore work cannot be taken or iterated and the view polls empty.
+ */
+public class ThreadingRingBufferQueue extends AbstractQueue<Runnable> implements BlockingQueue<Runnable>
+{
+    private final ThreadingRingBufferPool pool;
+
+    /**
+     * Ctor.
+     * @param pool to submit to
+     */
+    public ThreadingRingBufferQueue(ThreadingRingBufferPool pool)
+    {
+        this.pool = pool;
+    }
+
+    public int size()
+    {
+        return pool.getRingBuffer().size();
+    }
+
+    public Iterator<Runnable> iterator()
+    {
+        return Collections.<Runnable>emptyList().iterator();
+    }
+
+    public boolean offer(Runnable runnable)
+    {
+        if (runnable == null)
+        {
+            throw new NullPointerException();
+        }
+        pool.submit(runnable);
+        return true;
+    }
+
+    public void put(Runnable runnable) throws InterruptedException
+    {
+        offer(runnable);
+    }
+
+    public boolean offer(Runnable runnable, long timeout, TimeUnit unit) throws InterruptedException
+    {
+        return offer(runnable);
+    }
+
+    public Runnable take() throws InterruptedException
+    {
+        throw new UnsupportedOperationException("Work of a ring buffer pool can only be taken by the threads of the pool");
+    }
+
+    public Runnable poll(long timeout, TimeUnit unit) throws InterruptedException
+    {
+        return null;
+    }
+
+    public Runnable poll()
+    {
+        return null;
+    }
+
+    public Runnable peek()
+    {
+        return null;
+    }
+
+    public int remainingCapacity()
+    {
+        int remaining = pool.getRingBuffer().getCapacity() - size();
+        return remaining < 0 ? 0 : remaining;
+    }
+
+    public int drainTo(Collection<? super Runnable> c)
+    {
+        return 0;
+    }
+
+    public int drainTo(Collection<? super Runnable> c, int maxElements)
+    {
+        return 0;
+    }
+}
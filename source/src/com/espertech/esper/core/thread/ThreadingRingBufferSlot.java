@@ -0,0 +1,146 @@
+/*
+ * *************************************************************************************
+ *  Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ *  http://esper.codehaus.org                                                          *
+ *  http://www.espertech.com                                                           *
+ *  ---------------------------------------------------------------------------------- *
+ *  The software in this package is published under the terms of the GPL license       *
+ *  a copy of which has been included with this distribution in the license.txt file.  *
+ * *************************************************************************************
+ */
+
+package com.espertech.esper.core.thread;
+
+import com.espertech.esper.client.EventBean;
+import com.espertech.esper.core.service.EPRuntimeImpl;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.Map;
+
+/**
+ * Reusable slot of a {@link ThreadingRingBuffer}, holding either a work unit or an inbound event
+ * so that sending an event to the inbound ring buffer does not allocate a work unit.
+ */
+public class ThreadingRingBufferSlot implements Runnable
+{
+    private static final Log log = LogFactory.getLog(ThreadingRingBufferSlot.class);
+
+    private static final int KIND_UNIT = 0;
+    private static final int KIND_EVENT = 1;
+    private static final int KIND_MAP = 2;
+    private static final int KIND_OBJECTARRAY = 3;
+    private static final int KIND_WRAPPED = 4;
+
+    private int kind;
+    private Runnable unit;
+    private Object theEvent;
+    private String eventTypeName;
+    private EPRuntimeImpl runtime;
+
+    /**
+     * Sets a work unit.
+     * @param unit to run
+     */
+    public void setUnit(Runnable unit)
+    {
+        this.kind = KIND_UNIT;
+        this.unit = unit;
+    }
+
+    /**
+     * Sets an unwrapped event.
+     * @param theEvent to process
+     * @param runtime to process
+     */
+    public void setEvent(Object theEvent, EPRuntimeImpl runtime)
+    {
+        this.kind = KIND_EVENT;
+        this.theEvent = theEvent;
+        this.runtime = runtime;
+    }
+
+    /**
+     * Sets a map event.
+     * @param map to process
+     * @param eventTypeName type name
+     * @param runtime to process
+     */
+    public void setMap(Map map, String eventTypeName, EPRuntimeImpl runtime)
+    {
+        this.kind = KIND_MAP;
+        this.theEvent = map;
+        this.eventTypeName = eventTypeName;
+        this.runtime = runtime;
+    }
+
+    /**
+     * Sets an object-array event.
+     * @param properties to process
+     * @param eventTypeName type name
+     * @param runtime to process
+     */
+    public void setObjectArray(Object[] properties, String eventTypeName, EPRuntimeImpl runtime)
+    {
+        this.kind = KIND_OBJECTARRAY;
+        this.theEvent = properties;
+        this.eventTypeName = eventTypeName;
+        this.runtime = runtime;
+    }
+
+    /**
+     * Sets a wrapped event.
+     * @param eventBean to process
+     * @param runtime to process
+     */
+    public void setEventBean(EventBean eventBean, EPRuntimeImpl runtime)
+    {
+        this.kind = KIND_WRAPPED;
+        this.theEvent = eventBean;
+        this.runtime = runtime;
+    }
+
+    /**
+     * Releases references so that processed work can be garbage collected.
+     */
+    public void clear()
+    {
+        unit = null;
+        theEvent = null;
+        eventTypeName = null;
+        runtime = null;
+    }
+
+    public void run()
+    {
+        if (kind == KIND_UNIT)
+        {
+            unit.run();
+            return;
+        }
+
+        try
+        {
+            if (kind == KIND_WRAPPED)
+            {
+                runtime.processWrappedEvent((EventBean) theEvent);
+            }
+            else if (kind == KIND_EVENT)
+            {
+                runtime.processEvent(theEvent);
+            }
+            else if (kind == KIND_MAP)
+            {
+                runtime.processWrappedEvent(runtime.wrapEvent((Map) theEvent, eventTypeName));
+            }
+            else
+            {
+                runtime.processWrappedEvent(runtime.wrapEvent((Object[]) theEvent, eventTypeName));
+            }
+        }
+        catch (RuntimeException e)
+        {
+            log.error("Unexpected error processing inbound event: " + e.getMessage(), e);
+        }
+    }
+}
@@ -14,6 +14,7 @@ package com.espertech.esper.core.thread;
 import com.espertech.esper.core.service.EPRuntimeImpl;
 import com.espertech.esper.core.service.EPServicesContext;
 
+import java.util.Map;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 
@@ -58,6 +59,29 @@ public interface ThreadingService
      */
     public void submitInbound(InboundUnitRunnable unit);
 
+    /**
+     * Submit an unwrapped event for inbound processing.
+     * @param theEvent to process
+     * @param runtime to process
+     */
+    public void submitInboundEvent(Object theEvent, EPRuntimeImpl runtime);
+
+    /**
+     * Submit a map event for inbound processing.
+     * @param map to process
+     * @param eventTypeName type name
+     * @param runtime to process
+     */
+    public void submitInboundMap(Map map, String eventTypeName, EPRuntimeImpl runtime);
+
+    /**
+     * Submit an object-array event for inbound processing.
+     * @param properties to process
+     * @param eventTypeName type name
+     * @param runtime to process
+     */
+    public void submitInboundObjectArray(Object[] properties, String eventTypeName, EPRuntimeImpl runtime);
+
     /**
      * Returns true for route execution threading enabled.
      * @return indicator
@@ -84,6 +108,9 @@ public interface ThreadingService
 
     /**
      * Returns the outbound queue.
+     * <p>
+     * For ring buffer thread pools the queue and thread pool getters return views of the ring buffer pool,
+     * see {@link ThreadingRingBufferQueue} and {@link ThreadingRingBufferExecutor}.
      * @return queue
      */
     public BlockingQueue<Runnable> getOutboundQueue();
@@ -130,5 +157,24 @@ public interface ThreadingService
      */
     public ThreadPoolExecutor getInboundThreadPool();
 
+    /**
+     * Returns true for fire-and-forget query threading.
+     * @return indicator
+     */
+    public boolean isFireAndForgetThreading();
+
+    /**
+     * Returns the thread pool for parallel execution of fire-and-forget queries.
+     * @return pool, or null if not threading
+     */
+    public ThreadPoolExecutor getFireAndForgetThreadPool();
+
+    /**
+     * Returns the thread pool for completing joins with historical streams asynchronously and for polling ahead of such joins,
+     * starting the pool if not already started.
+     * @return pool
+     */
+    public ThreadPoolExecutor getHistoricalJoinThreadPool();
+
     public Thread makeEventSourceThread(String engineURI, String sourceName, Runnable runnable);
 }
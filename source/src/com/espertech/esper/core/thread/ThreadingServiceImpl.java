@@ -12,11 +12,15 @@
 package com.espertech.esper.core.thread;
 
 import com.espertech.esper.client.ConfigurationEngineDefaults;
+import com.espertech.esper.client.EventBean;
+import com.espertech.esper.client.time.TimerEvent;
 import com.espertech.esper.core.service.EPRuntimeImpl;
 import com.espertech.esper.core.service.EPServicesContext;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.*;
 
 /**
@@ -25,12 +29,14 @@ import java.util.concurrent.*;
 public class ThreadingServiceImpl implements ThreadingService
 {
     private static final Log log = LogFactory.getLog(ThreadingServiceImpl.class);
+    private static final int DEFAULT_RING_BUFFER_CAPACITY = 8192;
 
     private final ConfigurationEngineDefaults.Threading config;
     private final boolean isTimerThreading;
     private final boolean isInboundThreading;
     private final boolean isRouteThreading;
     private final boolean isOutboundThreading;
+    private final boolean isFireAndForgetThreading;
 
     private BlockingQueue<Runnable> timerQueue;
     private BlockingQueue<Runnable> inboundQueue;
@@ -41,6 +47,19 @@ public class ThreadingServiceImpl implements ThreadingService
     private ThreadPoolExecutor inboundThreadPool;
     private ThreadPoolExecutor routeThreadPool;
     private ThreadPoolExecutor outboundThreadPool;
+    private ThreadPoolExecutor fireAndForgetThreadPool;
+    private ThreadPoolExecutor historicalJoinThreadPool;
+
+    private ThreadingRingBufferPool timerRingBuffer;
+    private ThreadingRingBufferPool inboundRingBuffer;
+    private ThreadingRingBufferPool routeRingBuffer;
+    private ThreadingRingBufferPool outboundRingBuffer;
+
+    private InboundPartitionSelector inboundPartitionSelector;
+    private ThreadPoolExecutor[] inboundPartitionThreadPools;
+    private ThreadingRingBufferPool[] inboundPartitionRingBuffers;
+
+    private EPServicesContext services;
 
     /**
      * Ctor.
@@ -55,6 +74,7 @@ public class ThreadingServiceImpl implements ThreadingService
             isInboundThreading = threadingConfig.isThreadPoolInbound();
             isRouteThreading = threadingConfig.isThreadPoolRouteExec();
             isOutboundThreading = threadingConfig.isThreadPoolOutbound();
+            isFireAndForgetThreading = threadingConfig.isThreadPoolFireAndForget();
         }
         else
         {
@@ -62,6 +82,7 @@ public class ThreadingServiceImpl implements ThreadingService
             isInboundThreading = false;
             isRouteThreading = false;
             isOutboundThreading = false;
+            isFireAndForgetThreading = false;
         }
     }
 
@@ -85,9 +106,33 @@ public class ThreadingServiceImpl implements ThreadingService
         return isOutboundThreading;
     }
 
+    public boolean isFireAndForgetThreading()
+    {
+        return isFireAndForgetThreading;
+    }
+
     public void initThreading(EPServicesContext services, EPRuntimeImpl runtime)
     {
-        if (isInboundThreading)
+        this.services = services;
+        boolean isInboundPartitioned = isInboundThreading && !config.getThreadPoolInboundPartitionProperties().isEmpty();
+        if (isInboundPartitioned)
+        {
+            initInboundPartitions(services.getEngineURI());
+        }
+
+        // fire-and-forget query work is waited for by the querying thread, therefore the pool uses an unbounded queue regardless of queue type
+        if (isFireAndForgetThreading)
+        {
+            fireAndForgetThreadPool = getThreadPool(services.getEngineURI(), "FireAndForget", new LinkedBlockingQueue<Runnable>(), config.getThreadPoolFireAndForgetNumThreads());
+        }
+
+        if (config.getThreadPoolQueueType() == ConfigurationEngineDefaults.Threading.ThreadPoolQueueType.RING_BUFFER)
+        {
+            initRingBuffers(services.getEngineURI());
+            return;
+        }
+
+        if ((isInboundThreading) && (!isInboundPartitioned))
         {
             inboundQueue = makeQueue(config.getThreadPoolInboundCapacity());
             inboundThreadPool = getThreadPool(services.getEngineURI(), "Inbound", inboundQueue, config.getThreadPoolInboundNumThreads());
@@ -112,6 +157,80 @@ public class ThreadingServiceImpl implements ThreadingService
         }
     }
 
+    private void initRingBuffers(String engineURI)
+    {
+        if (engineURI == null)
+        {
+            engineURI = "default";
+        }
+        ConfigurationEngineDefaults.Threading.ThreadPoolWaitStrategy waitStrategy = config.getThreadPoolWaitStrategy();
+
+        if ((isInboundThreading) && (inboundPartitionSelector == null))
+        {
+            inboundRingBuffer = new ThreadingRingBufferPool(engineURI, "Inbound", getRingBufferCapacity(config.getThreadPoolInboundCapacity()),
+                    config.getThreadPoolInboundNumThreads(), config.isThreadPoolInboundSingleProducer(), waitStrategy);
+        }
+
+        if (isTimerThreading)
+        {
+            timerRingBuffer = new ThreadingRingBufferPool(engineURI, "TimerExec", getRingBufferCapacity(config.getThreadPoolTimerExecCapacity()),
+                    config.getThreadPoolTimerExecNumThreads(), false, waitStrategy);
+        }
+
+        if (isRouteThreading)
+        {
+            routeRingBuffer = new ThreadingRingBufferPool(engineURI, "RouteExec", getRingBufferCapacity(config.getThreadPoolRouteExecCapacity()),
+                    config.getThreadPoolRouteExecNumThreads(), false, waitStrategy);
+        }
+
+        if (isOutboundThreading)
+        {
+            outboundRingBuffer = new ThreadingRingBufferPool(engineURI, "Outbound", getRingBufferCapacity(config.getThreadPoolOutboundCapacity()),
+                    config.getThreadPoolOutboundNumThreads(), false, waitStrategy);
+        }
+    }
+
+    private void initInboundPartitions(String engineURI)
+    {
+        if (engineURI == null)
+        {
+            engineURI = "default";
+        }
+
+        // one single-threaded pool per partition, so that events of the same key are processed in order by one thread
+        int numPartitions = config.getThreadPoolInboundNumThreads();
+        inboundPartitionSelector = new InboundPartitionSelector(new HashMap<String, String>(config.getThreadPoolInboundPartitionProperties()), numPartitions);
+        if (config.getThreadPoolQueueType() == ConfigurationEngineDefaults.Threading.ThreadPoolQueueType.RING_BUFFER)
+        {
+            inboundPartitionRingBuffers = new ThreadingRingBufferPool[numPartitions];
+            for (int i = 0; i < numPartitions; i++)
+            {
+                inboundPartitionRingBuffers[i] = new ThreadingRingBufferPool(engineURI, "Inbound-" + i, getRingBufferCapacity(config.getThreadPoolInboundCapacity()),
+                        1, config.isThreadPoolInboundSingleProducer(), config.getThreadPoolWaitStrategy());
+            }
+        }
+        else
+        {
+            inboundPartitionThreadPools = new ThreadPoolExecutor[numPartitions];
+            for (int i = 0; i < numPartitions; i++)
+            {
+                inboundPartitionThreadPools[i] = getThreadPool(engineURI, "Inbound-" + i, makeQueue(config.getThreadPoolInboundCapacity()), 1);
+            }
+        }
+    }
+
+    private int getRingBufferCapacity(Integer capacity)
+    {
+        // a ring buffer is always bounded, an unbounded capacity becomes the default size
+        if ((capacity == null) ||
+            (capacity <= 0) ||
+            (capacity == Integer.MAX_VALUE))
+        {
+            return DEFAULT_RING_BUFFER_CAPACITY;
+        }
+        return capacity;
+    }
+
     private BlockingQueue<Runnable> makeQueue(Integer threadPoolTimerExecCapacity)
     {
         if ((threadPoolTimerExecCapacity == null) ||
@@ -128,6 +247,11 @@ public class ThreadingServiceImpl implements ThreadingService
 
     public void submitRoute(RouteUnitRunnable unit)
     {
+        if (routeRingBuffer != null)
+        {
+            routeRingBuffer.submit(unit);
+            return;
+        }
         try
         {
             routeQueue.put(unit);
@@ -140,6 +264,24 @@ public class ThreadingServiceImpl implements ThreadingService
 
     public void submitInbound(InboundUnitRunnable unit)
     {
+        if (inboundPartitionSelector != null)
+        {
+            if (unit instanceof InboundUnitSendWrapped)
+            {
+                EventBean eventBean = ((InboundUnitSendWrapped) unit).getEventBean();
+                submitInboundPartition(inboundPartitionSelector.getPartition(eventBean), unit);
+            }
+            else
+            {
+                submitInboundPartition(inboundPartitionSelector.getPartitionRoundRobin(), unit);
+            }
+            return;
+        }
+        if (inboundRingBuffer != null)
+        {
+            inboundRingBuffer.submit(unit);
+            return;
+        }
         try
         {
             inboundQueue.put(unit);
@@ -150,8 +292,97 @@ public class ThreadingServiceImpl implements ThreadingService
         }
     }
 
+    public void submitInboundEvent(Object theEvent, EPRuntimeImpl runtime)
+    {
+        if (inboundPartitionSelector != null)
+        {
+            if (theEvent instanceof TimerEvent)
+            {
+                submitInboundPartition(inboundPartitionSelector.getPartitionRoundRobin(), new InboundUnitSendEvent(theEvent, runtime));
+            }
+            else if (theEvent instanceof EventBean)
+            {
+                submitInboundPartitioned((EventBean) theEvent, runtime);
+            }
+            else
+            {
+                submitInboundPartitioned(runtime.wrapEvent(theEvent), runtime);
+            }
+            return;
+        }
+        if (inboundRingBuffer != null)
+        {
+            inboundRingBuffer.submitEvent(theEvent, runtime);
+            return;
+        }
+        submitInbound(new InboundUnitSendEvent(theEvent, runtime));
+    }
+
+    public void submitInboundMap(Map map, String eventTypeName, EPRuntimeImpl runtime)
+    {
+        if (inboundPartitionSelector != null)
+        {
+            submitInboundPartitioned(runtime.wrapEvent(map, eventTypeName), runtime);
+            return;
+        }
+        if (inboundRingBuffer != null)
+        {
+            inboundRingBuffer.submitMap(map, eventTypeName, runtime);
+            return;
+        }
+        submitInbound(new InboundUnitSendMap(map, eventTypeName, services, runtime));
+    }
+
+    public void submitInboundObjectArray(Object[] properties, String eventTypeName, EPRuntimeImpl runtime)
+    {
+        if (inboundPartitionSelector != null)
+        {
+            submitInboundPartitioned(runtime.wrapEvent(properties, eventTypeName), runtime);
+            return;
+        }
+        if (inboundRingBuffer != null)
+        {
+            inboundRingBuffer.submitObjectArray(properties, eventTypeName, runtime);
+            return;
+        }
+        submitInbound(new InboundUnitSendObjectArray(properties, eventTypeName, services, runtime));
+    }
+
+    private void submitInboundPartitioned(EventBean eventBean, EPRuntimeImpl runtime)
+    {
+        int partition = inboundPartitionSelector.getPartition(eventBean);
+        if (inboundPartitionRingBuffers != null)
+        {
+            inboundPartitionRingBuffers[partition].submitEventBean(eventBean, runtime);
+            return;
+        }
+        submitInboundPartition(partition, new InboundUnitSendWrapped(eventBean, runtime));
+    }
+
+    private void submitInboundPartition(int partition, Runnable unit)
+    {
+        if (inboundPartitionRingBuffers != null)
+        {
+            inboundPartitionRingBuffers[partition].submit(unit);
+            return;
+        }
+        try
+        {
+            inboundPartitionThreadPools[partition].getQueue().put(unit);
+        }
+        catch (InterruptedException e)
+        {
+            log.info("Submit interrupted:" + e);
+        }
+    }
+
     public void submitOutbound(OutboundUnitRunnable unit)
     {
+        if (outboundRingBuffer != null)
+        {
+            outboundRingBuffer.submit(unit);
+            return;
+        }
         try
         {
             outboundQueue.put(unit);
@@ -164,6 +395,11 @@ public class ThreadingServiceImpl implements ThreadingService
 
     public void submitTimerWork(TimerUnit unit)
     {
+        if (timerRingBuffer != null)
+        {
+            timerRingBuffer.submit(unit);
+            return;
+        }
         try
         {
             timerQueue.put(unit);
@@ -176,46 +412,109 @@ public class ThreadingServiceImpl implements ThreadingService
 
     public BlockingQueue<Runnable> getOutboundQueue()
     {
+        if (outboundRingBuffer != null)
+        {
+            return outboundRingBuffer.getQueue();
+        }
         return outboundQueue;
     }
 
     public ThreadPoolExecutor getOutboundThreadPool()
     {
+        if (outboundRingBuffer != null)
+        {
+            return outboundRingBuffer.getExecutor();
+        }
         return outboundThreadPool;
     }
 
     public BlockingQueue<Runnable> getRouteQueue()
     {
+        if (routeRingBuffer != null)
+        {
+            return routeRingBuffer.getQueue();
+        }
         return routeQueue;
     }
 
     public ThreadPoolExecutor getRouteThreadPool()
     {
+        if (routeRingBuffer != null)
+        {
+            return routeRingBuffer.getExecutor();
+        }
         return routeThreadPool;
     }
 
     public BlockingQueue<Runnable> getTimerQueue()
     {
+        if (timerRingBuffer != null)
+        {
+            return timerRingBuffer.getQueue();
+        }
         return timerQueue;
     }
 
     public ThreadPoolExecutor getTimerThreadPool()
     {
+        if (timerRingBuffer != null)
+        {
+            return timerRingBuffer.getExecutor();
+        }
         return timerThreadPool;
     }
 
     public BlockingQueue<Runnable> getInboundQueue()
     {
+        if (inboundRingBuffer != null)
+        {
+            return inboundRingBuffer.getQueue();
+        }
         return inboundQueue;
     }
 
     public ThreadPoolExecutor getInboundThreadPool()
     {
+        if (inboundRingBuffer != null)
+        {
+            return inboundRingBuffer.getExecutor();
+        }
         return inboundThreadPool;
     }
 
+    public ThreadPoolExecutor getFireAndForgetThreadPool()
+    {
+        return fireAndForgetThreadPool;
+    }
+
+    public synchronized ThreadPoolExecutor getHistoricalJoinThreadPool()
+    {
+        // each statement queues at most one join and its concurrent polls at a time, therefore the queue is bounded by the statements
+        if (historicalJoinThreadPool == null)
+        {
+            historicalJoinThreadPool = getThreadPool(services.getEngineURI(), "HistoricalJoin", new LinkedBlockingQueue<Runnable>(), config.getThreadPoolHistoricalJoinNumThreads());
+        }
+        return historicalJoinThreadPool;
+    }
+
     public void destroy()
     {
+        if (timerRingBuffer != null)
+        {
+            timerRingBuffer.destroy();
+        }
+        if (routeRingBuffer != null)
+        {
+            routeRingBuffer.destroy();
+        }
+        if (outboundRingBuffer != null)
+        {
+            outboundRingBuffer.destroy();
+        }
+        if (inboundRingBuffer != null)
+        {
+            inboundRingBuffer.destroy();
+        }
         if (timerThreadPool != null)
         {
             stopPool(timerThreadPool, timerQueue, "TimerExec");
@@ -232,6 +531,32 @@ public class ThreadingServiceImpl implements ThreadingService
         {
             stopPool(inboundThreadPool, inboundQueue, "Inbound");
         }
+        if (fireAndForgetThreadPool != null)
+        {
+            stopPool(fireAndForgetThreadPool, fireAndForgetThreadPool.getQueue(), "FireAndForget");
+        }
+        synchronized (this)
+        {
+            if (historicalJoinThreadPool != null)
+            {
+                stopPool(historicalJoinThreadPool, historicalJoinThreadPool.getQueue(), "HistoricalJoin");
+                historicalJoinThreadPool = null;
+            }
+        }
+        if (inboundPartitionRingBuffers != null)
+        {
+            for (ThreadingRingBufferPool partition : inboundPartitionRingBuffers)
+            {
+                partition.destroy();
+            }
+        }
+        if (inboundPartitionThreadPools != null)
+        {
+            for (int i = 0; i < inboundPartitionThreadPools.length; i++)
+            {
+                stopPool(inboundPartitionThreadPools[i], inboundPartitionThreadPools[i].getQueue(), "Inbound-" + i);
+            }
+        }
     }
 
     private ThreadPoolExecutor getThreadPool(String engineURI, String name, BlockingQueue<Runnable> queue, int numThreads)
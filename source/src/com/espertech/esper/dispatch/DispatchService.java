@@ -36,4 +36,11 @@ public interface DispatchService
      */
     public void dispatch();
 
+    /**
+     * Returns indicator whether Dispatchable implementations have been added for the current thread
+     * and not yet executed.
+     * @return true for pending dispatches, false when the queue is empty
+     */
+    public boolean isDispatchPending();
+
 }
@@ -0,0 +1,78 @@
+/**************************************************************************************
+ * Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ * http://esper.codehaus.org                                                          *
+ * http://www.espertech.com                                                           *
+ * ---------------------------------------------------------------------------------- *
+ * The software in this package is published under the terms of the GPL license       *
+ * a copy of which has been included with this distribution in the license.txt file.  *
+ **************************************************************************************/
+package com.espertech.esper.epl.agg.aggregator;
+
+import com.espertech.esper.collection.HyperLogLog;
+import com.espertech.esper.collection.SketchHash;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Approximate count of distinct values using a {@link HyperLogLog} sketch, in memory independent of the number
+ * of distinct values.
+ * <p>
+ * With a precision of 12 the sketch takes 4 kB and the relative standard error is about 1.6%.
+ * For data windows the sketch is removable, such that values leaving the window are removed from the sketch
+ * regardless of the order in which they leave.
+ */
+public class AggregatorApproxCountDistinct implements AggregationMethod
+{
+    private static final Log log = LogFactory.getLog(AggregatorApproxCountDistinct.class);
+    private static final int PRECISION = 12;
+
+    private final HyperLogLog sketch;
+
+    /**
+     * Ctor.
+     * @param removable true for data windows, where values leave
+     */
+    public AggregatorApproxCountDistinct(boolean removable)
+    {
+        this.sketch = new HyperLogLog(PRECISION, removable);
+    }
+
+    public void clear()
+    {
+        sketch.clear();
+    }
+
+    public void enter(Object value)
+    {
+        if (value == null)
+        {
+            return;
+        }
+        sketch.add(SketchHash.hash(value));
+    }
+
+    public void leave(Object value)
+    {
+        if (value == null)
+        {
+            return;
+        }
+        if (!sketch.isRemovable())
+        {
+            // no-op, no remove stream is expected without data windows
+            log.warn(".leave Received remove stream, none was expected");
+            return;
+        }
+        sketch.remove(SketchHash.hash(value));
+    }
+
+    public Object getValue()
+    {
+        return sketch.estimate();
+    }
+
+    public Class getValueType()
+    {
+        return Long.class;
+    }
+}
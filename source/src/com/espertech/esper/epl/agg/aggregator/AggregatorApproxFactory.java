@@ -0,0 +1,141 @@
+/**************************************************************************************
+ * Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ * http://esper.codehaus.org                                                          *
+ * http://www.espertech.com                                                           *
+ * ---------------------------------------------------------------------------------- *
+ * The software in this package is published under the terms of the GPL license       *
+ * a copy of which has been included with this distribution in the license.txt file.  *
+ **************************************************************************************/
+package com.espertech.esper.epl.agg.aggregator;
+
+import com.espertech.esper.client.hook.AggregationFunctionFactory;
+import com.espertech.esper.epl.agg.service.AggregationValidationContext;
+import com.espertech.esper.util.JavaClassHelper;
+
+import java.lang.reflect.Array;
+
+/**
+ * Factory for the built-in approximate aggregation functions, which the engine registers as plug-in aggregation
+ * functions unless the configuration provides a function by the same name:
+ * <ul>
+ * <li>"approx_count_distinct(expression)" returns the approximate number of distinct values</li>
+ * <li>"approx_percentile(expression, percent)" returns the approximate percentile, percent being between 0 and 100,
+ * not available for data windows as the digest cannot remove values</li>
+ * <li>"approx_topk(expression, k)" returns an array of the approximately k most frequent values</li>
+ * </ul>
+ */
+public class AggregatorApproxFactory implements AggregationFunctionFactory
+{
+    /**
+     * Name of the approximate distinct count function.
+     */
+    public static final String APPROX_COUNT_DISTINCT = "approx_count_distinct";
+
+    /**
+     * Name of the approximate percentile function.
+     */
+    public static final String APPROX_PERCENTILE = "approx_percentile";
+
+    /**
+     * Name of the approximate most frequent values function.
+     */
+    public static final String APPROX_TOPK = "approx_topk";
+
+    private String functionName;
+    private Class componentType;
+    private double percent;
+    private boolean windowed;
+    private int k;
+
+    public void setFunctionName(String functionName)
+    {
+        this.functionName = functionName;
+    }
+
+    public void validate(AggregationValidationContext validationContext)
+    {
+        Class[] parameterTypes = validationContext.getParameterTypes();
+        if (validationContext.isDistinct())
+        {
+            throw new IllegalArgumentException("The " + functionName + " aggregation function does not support distinct values");
+        }
+        windowed = validationContext.isWindowed();
+
+        if (APPROX_COUNT_DISTINCT.equalsIgnoreCase(functionName))
+        {
+            if (parameterTypes.length != 1)
+            {
+                throw new IllegalArgumentException("The " + functionName + " aggregation function requires a single parameter, an expression returning aggregation values");
+            }
+        }
+        else if (APPROX_PERCENTILE.equalsIgnoreCase(functionName))
+        {
+            String message = "The " + functionName + " aggregation function requires two parameters, an expression returning aggregation values and a numeric percentile constant between 0 and 100";
+            if ((parameterTypes.length != 2) || (!JavaClassHelper.isNumeric(parameterTypes[0])))
+            {
+                throw new IllegalArgumentException(message);
+            }
+            Number constant = getConstant(validationContext, message);
+            percent = constant.doubleValue();
+            if (!((percent >= 0) && (percent <= 100)))
+            {
+                throw new IllegalArgumentException(message);
+            }
+            if (windowed)
+            {
+                throw new IllegalArgumentException("The " + functionName + " aggregation function does not support data windows, use the percentile aggregation function instead");
+            }
+        }
+        else
+        {
+            String message = "The " + functionName + " aggregation function requires two parameters, an expression returning aggregation values and a positive numeric constant for the number of values";
+            if (parameterTypes.length != 2)
+            {
+                throw new IllegalArgumentException(message);
+            }
+            Number constant = getConstant(validationContext, message);
+            k = constant.intValue();
+            if (k <= 0)
+            {
+                throw new IllegalArgumentException(message);
+            }
+            componentType = parameterTypes[0] == null ? Object.class : JavaClassHelper.getBoxedType(parameterTypes[0]);
+        }
+    }
+
+    public AggregationMethod newAggregator()
+    {
+        if (APPROX_COUNT_DISTINCT.equalsIgnoreCase(functionName))
+        {
+            return new AggregatorApproxCountDistinct(windowed);
+        }
+        if (APPROX_PERCENTILE.equalsIgnoreCase(functionName))
+        {
+            return new AggregatorApproxPercentile(percent);
+        }
+        return new AggregatorApproxTopK(componentType, k);
+    }
+
+    public Class getValueType()
+    {
+        if (APPROX_COUNT_DISTINCT.equalsIgnoreCase(functionName))
+        {
+            return Long.class;
+        }
+        if (APPROX_PERCENTILE.equalsIgnoreCase(functionName))
+        {
+            return Double.class;
+        }
+        return Array.newInstance(componentType, 0).getClass();
+    }
+
+    private static Number getConstant(AggregationValidationContext validationContext, String message)
+    {
+        Object constant = validationContext.getConstantValues()[1];
+        if ((!validationContext.getIsConstantValue()[1]) || (!(constant instanceof Number)))
+        {
+            throw new IllegalArgumentException(message);
+        }
+        return (Number) constant;
+    }
+}
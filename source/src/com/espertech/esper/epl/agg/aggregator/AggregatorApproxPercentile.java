@@ -0,0 +1,72 @@
+/**************************************************************************************
+ * Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ * http://esper.codehaus.org                                                          *
+ * http://www.espertech.com                                                           *
+ * ---------------------------------------------------------------------------------- *
+ * The software in this package is published under the terms of the GPL license       *
+ * a copy of which has been included with this distribution in the license.txt file.  *
+ **************************************************************************************/
+package com.espertech.esper.epl.agg.aggregator;
+
+import com.espertech.esper.collection.TDigest;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Approximate percentile using a {@link TDigest}, in memory bounded by the digest compression
+ * regardless of the number of values.
+ * <p>
+ * Digests cannot remove values, therefore the function is only available without data windows.
+ */
+public class AggregatorApproxPercentile implements AggregationMethod
+{
+    private static final Log log = LogFactory.getLog(AggregatorApproxPercentile.class);
+
+    private final double quantile;
+    private final TDigest digest;
+
+    /**
+     * Ctor.
+     * @param percent percentile to return, between 0 and 100
+     */
+    public AggregatorApproxPercentile(double percent)
+    {
+        this.quantile = percent / 100d;
+        this.digest = new TDigest(TDigest.DEFAULT_COMPRESSION);
+    }
+
+    public void clear()
+    {
+        digest.clear();
+    }
+
+    public void enter(Object parameters)
+    {
+        Object value = ((Object[]) parameters)[0];
+        if (value == null)
+        {
+            return;
+        }
+        digest.add(((Number) value).doubleValue());
+    }
+
+    public void leave(Object parameters)
+    {
+        // no-op, validation rejects data windows
+        log.warn(".leave Received remove stream, none was expected");
+    }
+
+    public Object getValue()
+    {
+        if (digest.size() == 0)
+        {
+            return null;
+        }
+        return digest.quantile(quantile);
+    }
+
+    public Class getValueType()
+    {
+        return Double.class;
+    }
+}
@@ -0,0 +1,146 @@
+/**************************************************************************************
+ * Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ * http://esper.codehaus.org                                                          *
+ * http://www.espertech.com                                                           *
+ * ---------------------------------------------------------------------------------- *
+ * The software in this package is published under the terms of the GPL license       *
+ * a copy of which has been included with this distribution in the license.txt file.  *
+ **************************************************************************************/
+package com.espertech.esper.epl.agg.aggregator;
+
+import com.espertech.esper.collection.CountMinSketch;
+import com.espertech.esper.collection.SketchHash;
+
+import java.lang.reflect.Array;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Approximate most frequent values using a {@link CountMinSketch} for frequencies, returning an array of
+ * up to k values in descending order of estimated frequency.
+ * <p>
+ * Besides the sketch, a bounded set of candidate values is kept, a value entering replacing the candidate of least
+ * estimated frequency if its own estimate is higher. Values leaving are removed from the sketch.
+ */
+public class AggregatorApproxTopK implements AggregationMethod
+{
+    private static final int SKETCH_DEPTH = 4;
+    private static final int SKETCH_WIDTH = 1024;
+
+    private final Class componentType;
+    private final int k;
+    private final int maxCandidates;
+    private final CountMinSketch sketch;
+    private final Set<Object> candidates;
+
+    /**
+     * Ctor.
+     * @param componentType type of values
+     * @param k number of values to return
+     */
+    public AggregatorApproxTopK(Class componentType, int k)
+    {
+        this.componentType = componentType;
+        this.k = k;
+        this.maxCandidates = Math.max(k * 4, 32);
+        this.sketch = new CountMinSketch(SKETCH_DEPTH, SKETCH_WIDTH);
+        this.candidates = new HashSet<Object>();
+    }
+
+    public void clear()
+    {
+        sketch.clear();
+        candidates.clear();
+    }
+
+    public void enter(Object parameters)
+    {
+        Object value = ((Object[]) parameters)[0];
+        if (value == null)
+        {
+            return;
+        }
+        long hash = SketchHash.hash(value);
+        sketch.add(hash, 1);
+        if (candidates.contains(value))
+        {
+            return;
+        }
+        if (candidates.size() < maxCandidates)
+        {
+            candidates.add(value);
+            return;
+        }
+
+        int estimate = sketch.estimate(hash);
+        Object leastFrequent = null;
+        int leastEstimate = Integer.MAX_VALUE;
+        for (Object candidate : candidates)
+        {
+            int candidateEstimate = sketch.estimate(SketchHash.hash(candidate));
+            if (candidateEstimate < leastEstimate)
+            {
+                leastFrequent = candidate;
+                leastEstimate = candidateEstimate;
+            }
+        }
+        if (estimate > leastEstimate)
+        {
+            candidates.remove(leastFrequent);
+            candidates.add(value);
+        }
+    }
+
+    public void leave(Object parameters)
+    {
+        Object value = ((Object[]) parameters)[0];
+        if (value == null)
+        {
+            return;
+        }
+        long hash = SketchHash.hash(value);
+        sketch.add(hash, -1);
+        if (sketch.estimate(hash) <= 0)
+        {
+            candidates.remove(value);
+        }
+    }
+
+    public Object getValue()
+    {
+        // selection of the k most frequent candidates, the number of candidates being small
+        int size = Math.min(k, candidates.size());
+        Object[] values = new Object[size];
+        int[] estimates = new int[size];
+        int count = 0;
+        for (Object candidate : candidates)
+        {
+            int estimate = sketch.estimate(SketchHash.hash(candidate));
+            if ((count == size) && ((size == 0) || (estimate <= estimates[size - 1])))
+            {
+                continue;
+            }
+            int index = count == size ? size - 1 : count++;
+            while ((index > 0) && (estimates[index - 1] < estimate))
+            {
+                values[index] = values[index - 1];
+                estimates[index] = estimates[index - 1];
+                index--;
+            }
+            values[index] = candidate;
+            estimates[index] = estimate;
+        }
+
+        Object result = Array.newInstance(componentType, size);
+        for (int i = 0; i < size; i++)
+        {
+            Array.set(result, i, values[i]);
+        }
+        return result;
+    }
+
+    public Class getValueType()
+    {
+        return Array.newInstance(componentType, 0).getClass();
+    }
+}
@@ -8,14 +8,17 @@
  **************************************************************************************/
 package com.espertech.esper.epl.agg.aggregator;
 
-import com.espertech.esper.collection.SortedDoubleVector;
+import com.espertech.esper.collection.SortedDoubleTree;
 
 /**
  * Median aggregation.
+ * <p>
+ * Values are kept in an order-statistic tree so that entering and leaving a value and obtaining the median
+ * take logarithmic time.
  */
 public class AggregatorMedian implements AggregationMethod
 {
-    protected SortedDoubleVector vector;
+    protected SortedDoubleTree vector;
 
     public void clear()
     {
@@ -27,7 +30,7 @@ public class AggregatorMedian implements AggregationMethod
      */
     public AggregatorMedian()
     {
-        this.vector = new SortedDoubleVector();
+        this.vector = new SortedDoubleTree();
     }
 
     public void enter(Object object)
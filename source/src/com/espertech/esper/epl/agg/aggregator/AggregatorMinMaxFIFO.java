@@ -0,0 +1,250 @@
+/**************************************************************************************
+ * Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ * http://esper.codehaus.org                                                          *
+ * http://www.espertech.com                                                           *
+ * ---------------------------------------------------------------------------------- *
+ * The software in this package is published under the terms of the GPL license       *
+ * a copy of which has been included with this distribution in the license.txt file.  *
+ **************************************************************************************/
+package com.espertech.esper.epl.agg.aggregator;
+
+import com.espertech.esper.collection.SortedRefCountedSet;
+import com.espertech.esper.type.MinMaxTypeEnum;
+import com.espertech.esper.util.JavaClassHelper;
+
+/**
+ * Min/max aggregator for numeric values that leave the aggregation in the same order as they entered,
+ * such as for a single stream with a length or time window.
+ * <p>
+ * Keeps the values in a ring buffer of primitives and maintains a monotonic deque of the positions of
+ * those values that may still become the minimum or maximum, providing amortized constant time per value.
+ * <p>
+ * Should a value leave that is not the oldest value, continues with a sorted set of the remaining values
+ * same as {@link AggregatorMinMax}.
+ */
+public class AggregatorMinMaxFIFO implements AggregationMethod
+{
+    private static final int INITIAL_CAPACITY = 4;
+
+    protected final MinMaxTypeEnum minMaxTypeEnum;
+    protected final Class returnType;
+    private final Class boxedType;
+    private final boolean isDouble;
+
+    // values in order of arrival, double values are kept as long bits
+    private long[] values;
+    // positions of values in decreasing order (max) or increasing order (min), oldest first
+    private int[] deque;
+    private int mask;
+
+    // positions are sequence numbers that are masked to index into the arrays
+    private int first;
+    private int next;
+    private int dequeFirst;
+    private int dequeNext;
+
+    private SortedRefCountedSet<Object> refSet;
+
+    /**
+     * Ctor.
+     *
+     * @param minMaxTypeEnum - enum indicating to return minimum or maximum values
+     * @param returnType     - is the value type returned by aggregator
+     */
+    public AggregatorMinMaxFIFO(MinMaxTypeEnum minMaxTypeEnum, Class returnType)
+    {
+        if (!isSupported(returnType))
+        {
+            throw new IllegalArgumentException("Unsupported type for first-in first-out min/max aggregation: " + returnType);
+        }
+        this.minMaxTypeEnum = minMaxTypeEnum;
+        this.returnType = returnType;
+        this.boxedType = JavaClassHelper.getBoxedType(returnType);
+        this.isDouble = (boxedType == Double.class) || (boxedType == Float.class);
+        this.values = new long[INITIAL_CAPACITY];
+        this.deque = new int[INITIAL_CAPACITY];
+        this.mask = INITIAL_CAPACITY - 1;
+    }
+
+    /**
+     * Returns true if the value type can be aggregated by this aggregator.
+     * @param type value type
+     * @return indicator
+     */
+    public static boolean isSupported(Class type)
+    {
+        Class boxed = JavaClassHelper.getBoxedType(type);
+        return (boxed == Integer.class) || (boxed == Long.class) || (boxed == Short.class) || (boxed == Byte.class) ||
+               (boxed == Double.class) || (boxed == Float.class);
+    }
+
+    public void clear()
+    {
+        first = 0;
+        next = 0;
+        dequeFirst = 0;
+        dequeNext = 0;
+        refSet = null;
+    }
+
+    public void enter(Object object)
+    {
+        if (object == null)
+        {
+            return;
+        }
+        if (refSet != null)
+        {
+            refSet.add(toObject(toBits(object)));
+            return;
+        }
+        if (next - first == values.length)
+        {
+            grow();
+        }
+
+        // values older than the new value and not better than the new value can no longer become min/max
+        long value = toBits(object);
+        while (dequeNext != dequeFirst)
+        {
+            long last = values[deque[(dequeNext - 1) & mask] & mask];
+            int compared = compare(last, value);
+            if ((minMaxTypeEnum == MinMaxTypeEnum.MAX) ? compared > 0 : compared < 0)
+            {
+                break;
+            }
+            dequeNext--;
+        }
+
+        values[next & mask] = value;
+        deque[dequeNext & mask] = next;
+        dequeNext++;
+        next++;
+    }
+
+    public void leave(Object object)
+    {
+        if (object == null)
+        {
+            return;
+        }
+        if (refSet != null)
+        {
+            refSet.remove(toObject(toBits(object)));
+            return;
+        }
+
+        long value = toBits(object);
+        if ((first == next) || (values[first & mask] != value))
+        {
+            // not leaving in order of arrival, continue with the values remaining
+            refSet = new SortedRefCountedSet<Object>();
+            for (int i = first; i != next; i++)
+            {
+                refSet.add(toObject(values[i & mask]));
+            }
+            refSet.remove(toObject(value));
+            return;
+        }
+
+        if (deque[dequeFirst & mask] == first)
+        {
+            dequeFirst++;
+        }
+        first++;
+    }
+
+    public Object getValue()
+    {
+        if (refSet != null)
+        {
+            if (minMaxTypeEnum == MinMaxTypeEnum.MAX)
+            {
+                return refSet.maxValue();
+            }
+            return refSet.minValue();
+        }
+        if (first == next)
+        {
+            return null;
+        }
+        return toObject(values[deque[dequeFirst & mask] & mask]);
+    }
+
+    public Class getValueType()
+    {
+        return returnType;
+    }
+
+    /**
+     * Returns true if values did not leave in the order they entered and a sorted set is used instead.
+     * @return indicator
+     */
+    public boolean isSortedSetFallback()
+    {
+        return refSet != null;
+    }
+
+    private void grow()
+    {
+        int capacity = values.length << 1;
+        int newMask = capacity - 1;
+        long[] newValues = new long[capacity];
+        int[] newDeque = new int[capacity];
+        for (int i = first; i != next; i++)
+        {
+            newValues[i & newMask] = values[i & mask];
+        }
+        for (int i = dequeFirst; i != dequeNext; i++)
+        {
+            newDeque[i & newMask] = deque[i & mask];
+        }
+        values = newValues;
+        deque = newDeque;
+        mask = newMask;
+    }
+
+    private int compare(long valueOne, long valueTwo)
+    {
+        if (isDouble)
+        {
+            return Double.compare(Double.longBitsToDouble(valueOne), Double.longBitsToDouble(valueTwo));
+        }
+        return (valueOne < valueTwo) ? -1 : ((valueOne == valueTwo) ? 0 : 1);
+    }
+
+    private long toBits(Object object)
+    {
+        Number number = (Number) object;
+        if (isDouble)
+        {
+            return Double.doubleToLongBits(number.doubleValue());
+        }
+        return number.longValue();
+    }
+
+    private Object toObject(long bits)
+    {
+        if (boxedType == Double.class)
+        {
+            return Double.longBitsToDouble(bits);
+        }
+        if (boxedType == Float.class)
+        {
+            return (float) Double.longBitsToDouble(bits);
+        }
+        if (boxedType == Long.class)
+        {
+            return bits;
+        }
+        if (boxedType == Integer.class)
+        {
+            return (int) bits;
+        }
+        if (boxedType == Short.class)
+        {
+            return (short) bits;
+        }
+        return (byte) bits;
+    }
+}
@@ -0,0 +1,93 @@
+/**************************************************************************************
+ * Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ * http://esper.codehaus.org                                                          *
+ * http://www.espertech.com                                                           *
+ * ---------------------------------------------------------------------------------- *
+ * The software in this package is published under the terms of the GPL license       *
+ * a copy of which has been included with this distribution in the license.txt file.  *
+ **************************************************************************************/
+package com.espertech.esper.epl.agg.aggregator;
+
+import com.espertech.esper.collection.SortedDoubleTree;
+
+/**
+ * Percentile aggregation, the percentile being a constant between 0 and 100.
+ * <p>
+ * The percentile is interpolated linearly between the two closest ranks, such that the 50th percentile
+ * is the same as the median. Values are kept in an order-statistic tree so that entering and leaving a value
+ * and obtaining the percentile take logarithmic time.
+ */
+public class AggregatorPercentile implements AggregationMethod
+{
+    protected final SortedDoubleTree tree;
+    private final double percent;
+
+    /**
+     * Ctor.
+     * @param percent percentile to return, between 0 and 100
+     */
+    public AggregatorPercentile(double percent)
+    {
+        this.tree = new SortedDoubleTree();
+        this.percent = percent;
+    }
+
+    public void clear()
+    {
+        tree.clear();
+    }
+
+    public void enter(Object parameters)
+    {
+        Object value = ((Object[]) parameters)[0];
+        if (value == null)
+        {
+            return;
+        }
+        tree.add(((Number) value).doubleValue());
+    }
+
+    public void leave(Object parameters)
+    {
+        Object value = ((Object[]) parameters)[0];
+        if (value == null)
+        {
+            return;
+        }
+        tree.remove(((Number) value).doubleValue());
+    }
+
+    public Object getValue()
+    {
+        if (tree.size() == 0)
+        {
+            return null;
+        }
+        return getPercentile(tree, percent);
+    }
+
+    public Class getValueType()
+    {
+        return Double.class;
+    }
+
+    /**
+     * Returns the percentile of the values in a non-empty tree.
+     * @param tree values
+     * @param percent percentile between 0 and 100
+     * @return percentile value
+     */
+    protected static double getPercentile(SortedDoubleTree tree, double percent)
+    {
+        double rank = percent / 100d * (tree.size() - 1);
+        int lower = (int) rank;
+        double fraction = rank - lower;
+        double lowerValue = tree.getValue(lower);
+        if (fraction == 0)
+        {
+            return lowerValue;
+        }
+        double upperValue = tree.getValue(lower + 1);
+        return lowerValue + (upperValue - lowerValue) * fraction;
+    }
+}
@@ -0,0 +1,95 @@
+/**************************************************************************************
+ * Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ * http://esper.codehaus.org                                                          *
+ * http://www.espertech.com                                                           *
+ * ---------------------------------------------------------------------------------- *
+ * The software in this package is published under the terms of the GPL license       *
+ * a copy of which has been included with this distribution in the license.txt file.  *
+ **************************************************************************************/
+package com.espertech.esper.epl.agg.aggregator;
+
+import com.espertech.esper.client.hook.AggregationFunctionFactory;
+import com.espertech.esper.epl.agg.service.AggregationValidationContext;
+import com.espertech.esper.util.JavaClassHelper;
+
+/**
+ * Factory for the built-in "percentile(expression, percent)" and "percentiles(expression, percent [, percent ...])"
+ * aggregation functions, which the engine registers as plug-in aggregation functions unless the configuration
+ * provides a function by the same name.
+ */
+public class AggregatorPercentileFactory implements AggregationFunctionFactory
+{
+    /**
+     * Name of the single-percentile function.
+     */
+    public static final String PERCENTILE = "percentile";
+
+    /**
+     * Name of the multiple-percentile function.
+     */
+    public static final String PERCENTILES = "percentiles";
+
+    private String functionName;
+    private double[] percents;
+
+    public void setFunctionName(String functionName)
+    {
+        this.functionName = functionName;
+    }
+
+    public void validate(AggregationValidationContext validationContext)
+    {
+        boolean multiple = PERCENTILES.equalsIgnoreCase(functionName);
+        String message = multiple ?
+                "The " + functionName + " aggregation function requires an expression returning aggregation values and one or more numeric percentile constants between 0 and 100" :
+                "The " + functionName + " aggregation function requires two parameters, an expression returning aggregation values and a numeric percentile constant between 0 and 100";
+
+        Class[] parameterTypes = validationContext.getParameterTypes();
+        if ((parameterTypes.length < 2) || ((!multiple) && (parameterTypes.length != 2)))
+        {
+            throw new IllegalArgumentException(message);
+        }
+        if (!JavaClassHelper.isNumeric(parameterTypes[0]))
+        {
+            throw new IllegalArgumentException(message);
+        }
+        if (validationContext.isDistinct())
+        {
+            throw new IllegalArgumentException("The " + functionName + " aggregation function does not support distinct values");
+        }
+
+        percents = new double[parameterTypes.length - 1];
+        for (int i = 1; i < parameterTypes.length; i++)
+        {
+            Object constant = validationContext.getConstantValues()[i];
+            if ((!validationContext.getIsConstantValue()[i]) || (!(constant instanceof Number)))
+            {
+                throw new IllegalArgumentException(message);
+            }
+            double percent = ((Number) constant).doubleValue();
+            if (!((percent >= 0) && (percent <= 100)))
+            {
+                throw new IllegalArgumentException(message);
+            }
+            percents[i - 1] = percent;
+        }
+    }
+
+    public AggregationMethod newAggregator()
+    {
+        if (PERCENTILES.equalsIgnoreCase(functionName))
+        {
+            return new AggregatorPercentiles(percents);
+        }
+        return new AggregatorPercentile(percents[0]);
+    }
+
+    public Class getValueType()
+    {
+        if (PERCENTILES.equalsIgnoreCase(functionName))
+        {
+            return Double[].class;
+        }
+        return Double.class;
+    }
+}
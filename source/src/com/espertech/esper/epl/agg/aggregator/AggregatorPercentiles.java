@@ -0,0 +1,47 @@
+/**************************************************************************************
+ * Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ * http://esper.codehaus.org                                                          *
+ * http://www.espertech.com                                                           *
+ * ---------------------------------------------------------------------------------- *
+ * The software in this package is published under the terms of the GPL license       *
+ * a copy of which has been included with this distribution in the license.txt file.  *
+ **************************************************************************************/
+package com.espertech.esper.epl.agg.aggregator;
+
+/**
+ * Aggregation of multiple percentiles over the same values, returning an array of percentile values
+ * in the order of the percentiles provided.
+ */
+public class AggregatorPercentiles extends AggregatorPercentile
+{
+    private final double[] percents;
+
+    /**
+     * Ctor.
+     * @param percents percentiles to return, each between 0 and 100
+     */
+    public AggregatorPercentiles(double[] percents)
+    {
+        super(percents[0]);
+        this.percents = percents;
+    }
+
+    public Object getValue()
+    {
+        if (tree.size() == 0)
+        {
+            return null;
+        }
+        Double[] result = new Double[percents.length];
+        for (int i = 0; i < percents.length; i++)
+        {
+            result[i] = getPercentile(tree, percents[i]);
+        }
+        return result;
+    }
+
+    public Class getValueType()
+    {
+        return Double[].class;
+    }
+}
@@ -15,6 +15,8 @@ import com.espertech.esper.client.EventBean;
 import com.espertech.esper.epl.agg.access.AggregationAccess;
 import com.espertech.esper.epl.agg.access.AggregationAccessorSlotPair;
 import com.espertech.esper.epl.expression.ExprEvaluatorContext;
+import com.espertech.esper.epl.metric.InstrumentationPath;
+import com.espertech.esper.epl.metric.InstrumentationStage;
 
 import java.util.Collection;
 
@@ -33,16 +35,32 @@ public class AggSvcGroupAllAccessOnlyImpl implements AggregationService, Aggrega
 
     public void applyEnter(EventBean[] eventsPerStream, Object groupKey, ExprEvaluatorContext exprEvaluatorContext)
     {
+        if (InstrumentationPath.isInstrumentationEnabled)
+        {
+            InstrumentationPath.getInstrumentation().qStage(InstrumentationStage.AGGREGATION);
+        }
         for (AggregationAccess access : accesses) {
             access.applyEnter(eventsPerStream);
         }
+        if (InstrumentationPath.isInstrumentationEnabled)
+        {
+            InstrumentationPath.getInstrumentation().aStage(InstrumentationStage.AGGREGATION);
+        }
     }
 
     public void applyLeave(EventBean[] eventsPerStream, Object groupKey, ExprEvaluatorContext exprEvaluatorContext)
     {
+        if (InstrumentationPath.isInstrumentationEnabled)
+        {
+            InstrumentationPath.getInstrumentation().qStage(InstrumentationStage.AGGREGATION);
+        }
         for (AggregationAccess access : accesses) {
             access.applyLeave(eventsPerStream);
         }
+        if (InstrumentationPath.isInstrumentationEnabled)
+        {
+            InstrumentationPath.getInstrumentation().aStage(InstrumentationStage.AGGREGATION);
+        }
     }
 
     public void setCurrentAccess(Object groupKey, int agentInstanceId)
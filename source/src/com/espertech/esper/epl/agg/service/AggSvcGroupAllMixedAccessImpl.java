@@ -14,6 +14,8 @@ import com.espertech.esper.epl.agg.access.AggregationAccessorSlotPair;
 import com.espertech.esper.epl.agg.aggregator.AggregationMethod;
 import com.espertech.esper.epl.expression.ExprEvaluator;
 import com.espertech.esper.epl.expression.ExprEvaluatorContext;
+import com.espertech.esper.epl.metric.InstrumentationPath;
+import com.espertech.esper.epl.metric.InstrumentationStage;
 
 import java.util.Collection;
 
@@ -33,6 +35,10 @@ public class AggSvcGroupAllMixedAccessImpl extends AggregationServiceBaseUngroup
 
     public void applyEnter(EventBean[] eventsPerStream, Object optionalGroupKeyPerRow, ExprEvaluatorContext exprEvaluatorContext)
     {
+        if (InstrumentationPath.isInstrumentationEnabled)
+        {
+            InstrumentationPath.getInstrumentation().qStage(InstrumentationStage.AGGREGATION);
+        }
         for (int j = 0; j < evaluators.length; j++)
         {
             Object columnResult = evaluators[j].evaluate(eventsPerStream, true, exprEvaluatorContext);
@@ -42,10 +48,18 @@ public class AggSvcGroupAllMixedAccessImpl extends AggregationServiceBaseUngroup
         for (AggregationAccess access : accesses) {
             access.applyEnter(eventsPerStream);
         }
+        if (InstrumentationPath.isInstrumentationEnabled)
+        {
+            InstrumentationPath.getInstrumentation().aStage(InstrumentationStage.AGGREGATION);
+        }
     }
 
     public void applyLeave(EventBean[] eventsPerStream, Object optionalGroupKeyPerRow, ExprEvaluatorContext exprEvaluatorContext)
     {
+        if (InstrumentationPath.isInstrumentationEnabled)
+        {
+            InstrumentationPath.getInstrumentation().qStage(InstrumentationStage.AGGREGATION);
+        }
         for (int j = 0; j < evaluators.length; j++)
         {
             Object columnResult = evaluators[j].evaluate(eventsPerStream, false, exprEvaluatorContext);
@@ -55,6 +69,10 @@ public class AggSvcGroupAllMixedAccessImpl extends AggregationServiceBaseUngroup
         for (AggregationAccess access : accesses) {
             access.applyLeave(eventsPerStream);
         }        
+        if (InstrumentationPath.isInstrumentationEnabled)
+        {
+            InstrumentationPath.getInstrumentation().aStage(InstrumentationStage.AGGREGATION);
+        }
     }
 
     public void setCurrentAccess(Object groupKey, int agentInstanceId)
@@ -12,6 +12,8 @@ import com.espertech.esper.client.EventBean;
 import com.espertech.esper.epl.agg.aggregator.AggregationMethod;
 import com.espertech.esper.epl.expression.ExprEvaluator;
 import com.espertech.esper.epl.expression.ExprEvaluatorContext;
+import com.espertech.esper.epl.metric.InstrumentationPath;
+import com.espertech.esper.epl.metric.InstrumentationStage;
 
 import java.util.Collection;
 
@@ -32,20 +34,36 @@ public class AggSvcGroupAllNoAccessImpl extends AggregationServiceBaseUngrouped
 
     public void applyEnter(EventBean[] eventsPerStream, Object optionalGroupKeyPerRow, ExprEvaluatorContext exprEvaluatorContext)
     {
+        if (InstrumentationPath.isInstrumentationEnabled)
+        {
+            InstrumentationPath.getInstrumentation().qStage(InstrumentationStage.AGGREGATION);
+        }
         for (int j = 0; j < evaluators.length; j++)
         {
             Object columnResult = evaluators[j].evaluate(eventsPerStream, true, exprEvaluatorContext);
             aggregators[j].enter(columnResult);
         }
+        if (InstrumentationPath.isInstrumentationEnabled)
+        {
+            InstrumentationPath.getInstrumentation().aStage(InstrumentationStage.AGGREGATION);
+        }
     }
 
     public void applyLeave(EventBean[] eventsPerStream, Object optionalGroupKeyPerRow, ExprEvaluatorContext exprEvaluatorContext)
     {
+        if (InstrumentationPath.isInstrumentationEnabled)
+        {
+            InstrumentationPath.getInstrumentation().qStage(InstrumentationStage.AGGREGATION);
+        }
         for (int j = 0; j < evaluators.length; j++)
         {
             Object columnResult = evaluators[j].evaluate(eventsPerStream, false, exprEvaluatorContext);
             aggregators[j].leave(columnResult);
         }
+        if (InstrumentationPath.isInstrumentationEnabled)
+        {
+            InstrumentationPath.getInstrumentation().aStage(InstrumentationStage.AGGREGATION);
+        }
     }
 
     public void setCurrentAccess(Object groupKey, int agentInstanceId)
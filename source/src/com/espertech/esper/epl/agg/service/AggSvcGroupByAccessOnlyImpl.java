@@ -17,6 +17,8 @@ import com.espertech.esper.epl.agg.access.AggregationAccessUtil;
 import com.espertech.esper.epl.agg.access.AggregationAccessorSlotPair;
 import com.espertech.esper.epl.core.MethodResolutionService;
 import com.espertech.esper.epl.expression.ExprEvaluatorContext;
+import com.espertech.esper.epl.metric.InstrumentationPath;
+import com.espertech.esper.epl.metric.InstrumentationStage;
 
 import java.util.Collection;
 import java.util.HashMap;
@@ -56,18 +58,34 @@ public class AggSvcGroupByAccessOnlyImpl implements AggregationService, Aggregat
 
     public void applyEnter(EventBean[] eventsPerStream, Object groupKey, ExprEvaluatorContext exprEvaluatorContext)
     {
+        if (InstrumentationPath.isInstrumentationEnabled)
+        {
+            InstrumentationPath.getInstrumentation().qStage(InstrumentationStage.AGGREGATION);
+        }
         AggregationAccess[] row = getAssertRow(exprEvaluatorContext.getAgentInstanceId(), groupKey);
         for (AggregationAccess access : row) {
             access.applyEnter(eventsPerStream);
         }
+        if (InstrumentationPath.isInstrumentationEnabled)
+        {
+            InstrumentationPath.getInstrumentation().aStage(InstrumentationStage.AGGREGATION);
+        }
     }
 
     public void applyLeave(EventBean[] eventsPerStream, Object groupKey, ExprEvaluatorContext exprEvaluatorContext)
     {
+        if (InstrumentationPath.isInstrumentationEnabled)
+        {
+            InstrumentationPath.getInstrumentation().qStage(InstrumentationStage.AGGREGATION);
+        }
         AggregationAccess[] row = getAssertRow(exprEvaluatorContext.getAgentInstanceId(), groupKey);
         for (AggregationAccess access : row) {
             access.applyLeave(eventsPerStream);
         }
+        if (InstrumentationPath.isInstrumentationEnabled)
+        {
+            InstrumentationPath.getInstrumentation().aStage(InstrumentationStage.AGGREGATION);
+        }
     }
 
     public void setCurrentAccess(Object groupKey, int agentInstanceId)
@@ -13,6 +13,8 @@ import com.espertech.esper.epl.agg.aggregator.AggregationMethod;
 import com.espertech.esper.epl.core.MethodResolutionService;
 import com.espertech.esper.epl.expression.ExprEvaluator;
 import com.espertech.esper.epl.expression.ExprEvaluatorContext;
+import com.espertech.esper.epl.metric.InstrumentationPath;
+import com.espertech.esper.epl.metric.InstrumentationStage;
 
 import java.util.Collection;
 
@@ -49,6 +51,10 @@ public class AggSvcGroupByExperimental extends AggregationServiceBaseGrouped
 
     public void applyEnter(EventBean[] eventsPerStream, Object groupByKey, ExprEvaluatorContext exprEvaluatorContext)
     {
+        if (InstrumentationPath.isInstrumentationEnabled)
+        {
+            InstrumentationPath.getInstrumentation().qStage(InstrumentationStage.AGGREGATION);
+        }
         if (lastrow != null && lastrow.equals(groupByKey)) {
             // no action
         }
@@ -64,10 +70,18 @@ public class AggSvcGroupByExperimental extends AggregationServiceBaseGrouped
             Object columnResult = evaluators[j].evaluate(eventsPerStream, true, exprEvaluatorContext);
             currentAggregatorRow[j].enter(columnResult);
         }
+        if (InstrumentationPath.isInstrumentationEnabled)
+        {
+            InstrumentationPath.getInstrumentation().aStage(InstrumentationStage.AGGREGATION);
+        }
     }
 
     public void applyLeave(EventBean[] eventsPerStream, Object groupByKey, ExprEvaluatorContext exprEvaluatorContext)
     {
+        if (InstrumentationPath.isInstrumentationEnabled)
+        {
+            InstrumentationPath.getInstrumentation().qStage(InstrumentationStage.AGGREGATION);
+        }
         if (lastrow != null && lastrow.equals(groupByKey)) {
             // no action
         }
@@ -83,6 +97,10 @@ public class AggSvcGroupByExperimental extends AggregationServiceBaseGrouped
             Object columnResult = evaluators[j].evaluate(eventsPerStream, false, exprEvaluatorContext);
             currentAggregatorRow[j].leave(columnResult);
         }
+        if (InstrumentationPath.isInstrumentationEnabled)
+        {
+            InstrumentationPath.getInstrumentation().aStage(InstrumentationStage.AGGREGATION);
+        }
     }
 
     public void setCurrentAccess(Object groupByKey, int agentInstanceId)
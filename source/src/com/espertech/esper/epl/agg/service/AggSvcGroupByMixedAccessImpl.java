@@ -16,6 +16,8 @@ import com.espertech.esper.epl.agg.aggregator.AggregationMethod;
 import com.espertech.esper.epl.core.MethodResolutionService;
 import com.espertech.esper.epl.expression.ExprEvaluator;
 import com.espertech.esper.epl.expression.ExprEvaluatorContext;
+import com.espertech.esper.epl.metric.InstrumentationPath;
+import com.espertech.esper.epl.metric.InstrumentationStage;
 
 import java.util.Collection;
 import java.util.HashMap;
@@ -71,6 +73,10 @@ public class AggSvcGroupByMixedAccessImpl extends AggregationServiceBaseGrouped
 
     public void applyEnter(EventBean[] eventsPerStream, Object groupByKey, ExprEvaluatorContext exprEvaluatorContext)
     {
+        if (InstrumentationPath.isInstrumentationEnabled)
+        {
+            InstrumentationPath.getInstrumentation().qStage(InstrumentationStage.AGGREGATION);
+        }
         AggregationRowPair groupAggregators = aggregatorsPerGroup.get(groupByKey);
 
         // The aggregators for this group do not exist, need to create them from the prototypes
@@ -94,10 +100,18 @@ public class AggSvcGroupByMixedAccessImpl extends AggregationServiceBaseGrouped
             access.applyEnter(eventsPerStream);
         }
         internalHandleUpdated(groupByKey, groupAggregators);
+        if (InstrumentationPath.isInstrumentationEnabled)
+        {
+            InstrumentationPath.getInstrumentation().aStage(InstrumentationStage.AGGREGATION);
+        }
     }
 
     public void applyLeave(EventBean[] eventsPerStream, Object groupByKey, ExprEvaluatorContext exprEvaluatorContext)
     {
+        if (InstrumentationPath.isInstrumentationEnabled)
+        {
+            InstrumentationPath.getInstrumentation().qStage(InstrumentationStage.AGGREGATION);
+        }
         AggregationRowPair groupAggregators = aggregatorsPerGroup.get(groupByKey);
 
         // The aggregators for this group do not exist, need to create them from the prototypes
@@ -121,6 +135,10 @@ public class AggSvcGroupByMixedAccessImpl extends AggregationServiceBaseGrouped
             access.applyLeave(eventsPerStream);
         }
         internalHandleUpdated(groupByKey, groupAggregators);
+        if (InstrumentationPath.isInstrumentationEnabled)
+        {
+            InstrumentationPath.getInstrumentation().aStage(InstrumentationStage.AGGREGATION);
+        }
     }
 
     public void setCurrentAccess(Object groupByKey, int agentInstanceId)
@@ -0,0 +1,188 @@
+/**************************************************************************************
+ * Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ * http://esper.codehaus.org                                                          *
+ * http://www.espertech.com                                                           *
+ * ---------------------------------------------------------------------------------- *
+ * The software in this package is published under the terms of the GPL license       *
+ * a copy of which has been included with this distribution in the license.txt file.  *
+ **************************************************************************************/
+package com.espertech.esper.epl.agg.service;
+
+import com.espertech.esper.core.context.util.AgentInstanceContext;
+import com.espertech.esper.epl.core.MethodResolutionService;
+import com.espertech.esper.epl.expression.*;
+import com.espertech.esper.type.MinMaxTypeEnum;
+import com.espertech.esper.util.JavaClassHelper;
+
+/**
+ * Factory for the grouped aggregation service that keeps aggregation state in flattened primitive arrays,
+ * used when all aggregation functions are plain (non-distinct, non-filtered) numeric sum, count, avg, stddev or min/max-ever.
+ */
+public class AggSvcGroupByPrimitiveFactory extends AggregationServiceFactoryBase
+{
+    private final boolean isReclaim;
+    private final int[] kinds;
+    private final int[] longOffsets;
+    private final int[] doubleOffsets;
+    private final int numLongs;
+    private final int numDoubles;
+
+    /**
+     * Ctor.
+     * @param evaluators - evaluate the sub-expression within the aggregate function (ie. sum(4*myNum))
+     * @param prototypes - aggregation function factories, all of which must be supported as per {@link #isSupported}
+     * @param isReclaim - true to remove group rows when the last event for the group leaves, false to retain group rows
+     */
+    public AggSvcGroupByPrimitiveFactory(ExprEvaluator evaluators[], AggregationMethodFactory prototypes[], boolean isReclaim)
+    {
+        super(evaluators, prototypes);
+        this.isReclaim = isReclaim;
+
+        kinds = new int[prototypes.length];
+        longOffsets = new int[prototypes.length];
+        doubleOffsets = new int[prototypes.length];
+        int longs = 0;
+        int doubles = 0;
+        for (int i = 0; i < prototypes.length; i++)
+        {
+            kinds[i] = getKind(prototypes[i]);
+            if (kinds[i] == -1)
+            {
+                throw new IllegalArgumentException("Aggregation function factory " + prototypes[i].getClass().getSimpleName() + " is not supported by the primitive grouped aggregation service");
+            }
+            longOffsets[i] = longs;
+            doubleOffsets[i] = doubles;
+            longs += AggSvcGroupByPrimitiveImpl.NUM_LONGS[kinds[i]];
+            doubles += AggSvcGroupByPrimitiveImpl.NUM_DOUBLES[kinds[i]];
+        }
+        numLongs = longs;
+        numDoubles = doubles;
+    }
+
+    public AggregationService makeService(AgentInstanceContext agentInstanceContext, MethodResolutionService methodResolutionService) {
+        // a method resolution service that tracks aggregators requires the generic services, which obtain aggregators from it
+        if (methodResolutionService.isTrackAggregators())
+        {
+            if (isReclaim)
+            {
+                return new AggSvcGroupByRefcountedNoAccessImpl(evaluators, aggregators, methodResolutionService);
+            }
+            return new AggSvcGroupByNoAccessImpl(evaluators, aggregators, methodResolutionService);
+        }
+        return new AggSvcGroupByPrimitiveImpl(evaluators, aggregators, isReclaim, kinds, longOffsets, doubleOffsets, numLongs, numDoubles);
+    }
+
+    /**
+     * Returns true if all aggregation functions can be computed by the primitive grouped aggregation service.
+     * @param prototypes aggregation function factories
+     * @return indicator
+     */
+    public static boolean isSupported(AggregationMethodFactory prototypes[])
+    {
+        if (prototypes.length == 0)
+        {
+            return false;
+        }
+        for (AggregationMethodFactory prototype : prototypes)
+        {
+            if (getKind(prototype) == -1)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int getKind(AggregationMethodFactory prototype)
+    {
+        if (prototype instanceof ExprCountNodeFactory)
+        {
+            ExprCountNodeFactory count = (ExprCountNodeFactory) prototype;
+            if (count.isDistinct() || count.isHasFilter())
+            {
+                return -1;
+            }
+            return count.isIgnoreNulls() ? AggSvcGroupByPrimitiveImpl.COUNT_NONNULL : AggSvcGroupByPrimitiveImpl.COUNT;
+        }
+        if (prototype instanceof ExprSumNodeFactory)
+        {
+            ExprSumNodeFactory sum = (ExprSumNodeFactory) prototype;
+            if (sum.isDistinct() || sum.isHasFilter())
+            {
+                return -1;
+            }
+            Class type = JavaClassHelper.getBoxedType(sum.getInputValueType());
+            if ((type == Integer.class) || (type == Short.class) || (type == Byte.class))
+            {
+                return AggSvcGroupByPrimitiveImpl.SUM_INT;
+            }
+            if (type == Long.class)
+            {
+                return AggSvcGroupByPrimitiveImpl.SUM_LONG;
+            }
+            if (type == Double.class)
+            {
+                return AggSvcGroupByPrimitiveImpl.SUM_DOUBLE;
+            }
+            if (type == Float.class)
+            {
+                return AggSvcGroupByPrimitiveImpl.SUM_FLOAT;
+            }
+            return -1;
+        }
+        if (prototype instanceof ExprAvgNodeFactory)
+        {
+            ExprAvgNodeFactory avg = (ExprAvgNodeFactory) prototype;
+            if (avg.isDistinct() || avg.isHasFilter() || !isPrimitiveNumeric(avg.getChildType()))
+            {
+                return -1;
+            }
+            return AggSvcGroupByPrimitiveImpl.AVG;
+        }
+        if (prototype instanceof ExprStddevNodeFactory)
+        {
+            ExprStddevNodeFactory stddev = (ExprStddevNodeFactory) prototype;
+            if (stddev.isDistinct() || stddev.isHasFilter())
+            {
+                return -1;
+            }
+            return AggSvcGroupByPrimitiveImpl.STDDEV;
+        }
+        if (prototype instanceof ExprMinMaxAggrNodeFactory)
+        {
+            // min/max over data windows must retain all values to handle the remove stream, only the ever-variant qualifies
+            ExprMinMaxAggrNodeFactory minMax = (ExprMinMaxAggrNodeFactory) prototype;
+            if (minMax.isHasDataWindows() || minMax.isDistinct() || minMax.isHasFilter())
+            {
+                return -1;
+            }
+            boolean isMax = minMax.getMinMaxTypeEnum() == MinMaxTypeEnum.MAX;
+            Class type = JavaClassHelper.getBoxedType(minMax.getResultType());
+            if (type == Integer.class)
+            {
+                return isMax ? AggSvcGroupByPrimitiveImpl.MAX_INT : AggSvcGroupByPrimitiveImpl.MIN_INT;
+            }
+            if (type == Long.class)
+            {
+                return isMax ? AggSvcGroupByPrimitiveImpl.MAX_LONG : AggSvcGroupByPrimitiveImpl.MIN_LONG;
+            }
+            if (type == Double.class)
+            {
+                return isMax ? AggSvcGroupByPrimitiveImpl.MAX_DOUBLE : AggSvcGroupByPrimitiveImpl.MIN_DOUBLE;
+            }
+            return -1;
+        }
+        return -1;
+    }
+
+    private static boolean isPrimitiveNumeric(Class type)
+    {
+        if (type == null)
+        {
+            return false;
+        }
+        Class boxed = JavaClassHelper.getBoxedType(type);
+        return (boxed == Integer.class) || (boxed == Long.class) || (boxed == Double.class) ||
+               (boxed == Float.class) || (boxed == Short.class) || (boxed == Byte.class);
+    }
+}
@@ -0,0 +1,531 @@
+/**************************************************************************************
+ * Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ * http://esper.codehaus.org                                                          *
+ * http://www.espertech.com                                                           *
+ * ---------------------------------------------------------------------------------- *
+ * The software in this package is published under the terms of the GPL license       *
+ * a copy of which has been included with this distribution in the license.txt file.  *
+ **************************************************************************************/
+package com.espertech.esper.epl.agg.service;
+
+import com.espertech.esper.client.EventBean;
+import com.espertech.esper.epl.expression.ExprEvaluator;
+import com.espertech.esper.epl.expression.ExprEvaluatorContext;
+import com.espertech.esper.epl.metric.InstrumentationPath;
+import com.espertech.esper.epl.metric.InstrumentationStage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Implementation for handling aggregation with grouping by group-keys that keeps group keys in an open-addressing
+ * table and the aggregation state of all groups in flattened primitive arrays indexed by table slot.
+ * <p>
+ * Entering and leaving events for an existing group does not allocate. Only plain numeric aggregation functions
+ * are supported, see {@link AggSvcGroupByPrimitiveFactory#isSupported}. The results are the same as those
+ * of the aggregators created by the default method resolution service.
+ */
+public class AggSvcGroupByPrimitiveImpl extends AggregationServiceBaseGrouped
+{
+    /**
+     * Count of all values.
+     */
+    public static final int COUNT = 0;
+    /**
+     * Count of non-null values.
+     */
+    public static final int COUNT_NONNULL = 1;
+    /**
+     * Sum returning Integer.
+     */
+    public static final int SUM_INT = 2;
+    /**
+     * Sum returning Long.
+     */
+    public static final int SUM_LONG = 3;
+    /**
+     * Sum returning Double.
+     */
+    public static final int SUM_DOUBLE = 4;
+    /**
+     * Sum returning Float.
+     */
+    public static final int SUM_FLOAT = 5;
+    /**
+     * Average.
+     */
+    public static final int AVG = 6;
+    /**
+     * Standard deviation.
+     */
+    public static final int STDDEV = 7;
+    /**
+     * Minimum-ever of Integer values.
+     */
+    public static final int MIN_INT = 8;
+    /**
+     * Maximum-ever of Integer values.
+     */
+    public static final int MAX_INT = 9;
+    /**
+     * Minimum-ever of Long values.
+     */
+    public static final int MIN_LONG = 10;
+    /**
+     * Maximum-ever of Long values.
+     */
+    public static final int MAX_LONG = 11;
+    /**
+     * Minimum-ever of Double values.
+     */
+    public static final int MIN_DOUBLE = 12;
+    /**
+     * Maximum-ever of Double values.
+     */
+    public static final int MAX_DOUBLE = 13;
+
+    /**
+     * Number of long state values per group for each kind of aggregation, the first is the number of data points
+     * (or value present flag for min/max).
+     */
+    protected static final int[] NUM_LONGS = new int[] {1, 1, 2, 2, 1, 1, 1, 1, 2, 2, 2, 2, 1, 1};
+
+    /**
+     * Number of double state values per group for each kind of aggregation.
+     */
+    protected static final int[] NUM_DOUBLES = new int[] {0, 0, 0, 0, 1, 1, 1, 2, 0, 0, 0, 0, 1, 1};
+
+    private static final Object NULL_KEY = new Object();
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final boolean isReclaim;
+    private final int[] kinds;
+    private final int[] longOffsets;
+    private final int[] doubleOffsets;
+    private final int numLongs;
+    private final int numDoubles;
+
+    // open-addressing table with linear probing, a null key marks a free slot
+    private Object[] keys;
+    private int[] hashes;
+    private int[] refcounts;
+    private long[] longState;
+    private double[] doubleState;
+    private int mask;
+    private int size;
+    private int resizeThreshold;
+
+    // slot of the current row for random access into the aggregation state, -1 when the group has no row
+    private int currentSlot = -1;
+
+    private List<Object> removedKeys;
+
+    /**
+     * Ctor.
+     * @param evaluators - evaluate the sub-expression within the aggregate function (ie. sum(4*myNum))
+     * @param prototypes - aggregation function factories
+     * @param isReclaim - true to remove group rows when the last event for the group leaves
+     * @param kinds - kind of aggregation per column
+     * @param longOffsets - offset per column into the long state of a row
+     * @param doubleOffsets - offset per column into the double state of a row
+     * @param numLongs - number of long state values per row
+     * @param numDoubles - number of double state values per row
+     */
+    public AggSvcGroupByPrimitiveImpl(ExprEvaluator evaluators[],
+                                      AggregationMethodFactory prototypes[],
+                                      boolean isReclaim,
+                                      int[] kinds,
+                                      int[] longOffsets,
+                                      int[] doubleOffsets,
+                                      int numLongs,
+                                      int numDoubles)
+    {
+        super(evaluators, prototypes);
+        this.isReclaim = isReclaim;
+        this.kinds = kinds;
+        this.longOffsets = longOffsets;
+        this.doubleOffsets = doubleOffsets;
+        this.numLongs = numLongs;
+        this.numDoubles = numDoubles;
+        this.removedKeys = new ArrayList<Object>();
+        allocate(INITIAL_CAPACITY);
+    }
+
+    public void clearResults(ExprEvaluatorContext exprEvaluatorContext)
+    {
+        allocate(INITIAL_CAPACITY);
+        removedKeys.clear();
+        currentSlot = -1;
+    }
+
+    public void applyEnter(EventBean[] eventsPerStream, Object groupByKey, ExprEvaluatorContext exprEvaluatorContext)
+    {
+        if (InstrumentationPath.isInstrumentationEnabled)
+        {
+            InstrumentationPath.getInstrumentation().qStage(InstrumentationStage.AGGREGATION);
+        }
+        handleRemovedKeys();
+
+        Object key = groupByKey == null ? NULL_KEY : groupByKey;
+        int hash = hash(key);
+        int slot = findSlot(key, hash);
+        if (slot == -1)
+        {
+            slot = addSlot(key, hash);
+        }
+        else if (isReclaim)
+        {
+            refcounts[slot]++;
+        }
+        currentSlot = slot;
+
+        apply(slot, eventsPerStream, true, exprEvaluatorContext);
+        if (InstrumentationPath.isInstrumentationEnabled)
+        {
+            InstrumentationPath.getInstrumentation().aStage(InstrumentationStage.AGGREGATION);
+        }
+    }
+
+    public void applyLeave(EventBean[] eventsPerStream, Object groupByKey, ExprEvaluatorContext exprEvaluatorContext)
+    {
+        if (InstrumentationPath.isInstrumentationEnabled)
+        {
+            InstrumentationPath.getInstrumentation().qStage(InstrumentationStage.AGGREGATION);
+        }
+        Object key = groupByKey == null ? NULL_KEY : groupByKey;
+        int hash = hash(key);
+        int slot = findSlot(key, hash);
+        if (slot == -1)
+        {
+            slot = addSlot(key, hash);
+        }
+        currentSlot = slot;
+
+        apply(slot, eventsPerStream, false, exprEvaluatorContext);
+
+        if (isReclaim)
+        {
+            refcounts[slot]--;
+            if (refcounts[slot] <= 0)
+            {
+                removedKeys.add(key);
+            }
+        }
+        if (InstrumentationPath.isInstrumentationEnabled)
+        {
+            InstrumentationPath.getInstrumentation().aStage(InstrumentationStage.AGGREGATION);
+        }
+    }
+
+    public void setCurrentAccess(Object groupByKey, int agentInstanceId)
+    {
+        Object key = groupByKey == null ? NULL_KEY : groupByKey;
+        int hash = hash(key);
+        int slot = findSlot(key, hash);
+        if ((slot == -1) && (!isReclaim))
+        {
+            slot = addSlot(key, hash);
+        }
+        currentSlot = slot;
+    }
+
+    public Object getValue(int column, int agentInstanceId)
+    {
+        int slot = currentSlot;
+        int kind = kinds[column];
+        if (slot == -1)
+        {
+            return ((kind == COUNT) || (kind == COUNT_NONNULL)) ? 0L : null;
+        }
+
+        int l = slot * numLongs + longOffsets[column];
+        int d = slot * numDoubles + doubleOffsets[column];
+        long numDataPoints = longState[l];
+        switch (kind)
+        {
+            case COUNT:
+            case COUNT_NONNULL:
+                return numDataPoints;
+            case SUM_INT:
+                return numDataPoints == 0 ? null : (Integer) (int) longState[l + 1];
+            case SUM_LONG:
+                return numDataPoints == 0 ? null : (Long) longState[l + 1];
+            case SUM_DOUBLE:
+                return numDataPoints == 0 ? null : (Double) doubleState[d];
+            case SUM_FLOAT:
+                return numDataPoints == 0 ? null : (Float) (float) doubleState[d];
+            case AVG:
+                return numDataPoints == 0 ? null : (Double) (doubleState[d] / numDataPoints);
+            case STDDEV:
+                if (numDataPoints < 2)
+                {
+                    return null;
+                }
+                double sum = doubleState[d];
+                double sumSq = doubleState[d + 1];
+                double variance = (sumSq - sum * sum / numDataPoints) / (numDataPoints - 1);
+                return Math.sqrt(variance);
+            case MIN_INT:
+            case MAX_INT:
+                return numDataPoints == 0 ? null : (Integer) (int) longState[l + 1];
+            case MIN_LONG:
+            case MAX_LONG:
+                return numDataPoints == 0 ? null : (Long) longState[l + 1];
+            case MIN_DOUBLE:
+            case MAX_DOUBLE:
+                return numDataPoints == 0 ? null : (Double) doubleState[d];
+            default:
+                throw new IllegalStateException("Unrecognized aggregation kind " + kind);
+        }
+    }
+
+    public Collection<EventBean> getCollection(int column, ExprEvaluatorContext context) {
+        return null;
+    }
+
+    public EventBean getEventBean(int column, ExprEvaluatorContext context) {
+        return null;
+    }
+
+    public void setRemovedCallback(AggregationRowRemovedCallback callback) {
+        // not applicable
+    }
+
+    /**
+     * Returns the number of group rows.
+     * @return number of groups
+     */
+    public int getNumGroups()
+    {
+        return size;
+    }
+
+    private void apply(int slot, EventBean[] eventsPerStream, boolean isNewData, ExprEvaluatorContext exprEvaluatorContext)
+    {
+        int rowLong = slot * numLongs;
+        int rowDouble = slot * numDoubles;
+        int sign = isNewData ? 1 : -1;
+
+        for (int j = 0; j < evaluators.length; j++)
+        {
+            Object columnResult = evaluators[j].evaluate(eventsPerStream, isNewData, exprEvaluatorContext);
+            int kind = kinds[j];
+            if (kind == COUNT)
+            {
+                longState[rowLong + longOffsets[j]] += sign;
+                continue;
+            }
+            if (columnResult == null)
+            {
+                continue;
+            }
+
+            int l = rowLong + longOffsets[j];
+            int d = rowDouble + doubleOffsets[j];
+            switch (kind)
+            {
+                case COUNT_NONNULL:
+                    longState[l] += sign;
+                    break;
+                case SUM_INT:
+                    longState[l] += sign;
+                    longState[l + 1] = (int) longState[l + 1] + sign * ((Number) columnResult).intValue();
+                    break;
+                case SUM_LONG:
+                    longState[l] += sign;
+                    longState[l + 1] += sign * ((Number) columnResult).longValue();
+                    break;
+                case SUM_DOUBLE:
+                    longState[l] += sign;
+                    doubleState[d] += sign * ((Number) columnResult).doubleValue();
+                    break;
+                case SUM_FLOAT:
+                    longState[l] += sign;
+                    doubleState[d] = (float) doubleState[d] + sign * ((Number) columnResult).floatValue();
+                    break;
+                case AVG:
+                    longState[l] += sign;
+                    doubleState[d] += sign * ((Number) columnResult).doubleValue();
+                    break;
+                case STDDEV:
+                    double value = ((Number) columnResult).doubleValue();
+                    longState[l] += sign;
+                    doubleState[d] += sign * value;
+                    doubleState[d + 1] += sign * (value * value);
+                    break;
+                case MIN_INT:
+                case MIN_LONG:
+                case MAX_INT:
+                case MAX_LONG:
+                    if (isNewData)
+                    {
+                        long candidate = ((Number) columnResult).longValue();
+                        boolean isMax = (kind == MAX_INT) || (kind == MAX_LONG);
+                        if ((longState[l] == 0) || (isMax ? candidate > longState[l + 1] : candidate < longState[l + 1]))
+                        {
+                            longState[l] = 1;
+                            longState[l + 1] = candidate;
+                        }
+                    }
+                    break;
+                case MIN_DOUBLE:
+                case MAX_DOUBLE:
+                    if (isNewData)
+                    {
+                        // compare as Double.compareTo does to order NaN and signed zeros the same way
+                        double candidate = ((Number) columnResult).doubleValue();
+                        int compared = Double.compare(candidate, doubleState[d]);
+                        if ((longState[l] == 0) || (kind == MAX_DOUBLE ? compared > 0 : compared < 0))
+                        {
+                            longState[l] = 1;
+                            doubleState[d] = candidate;
+                        }
+                    }
+                    break;
+                default:
+                    throw new IllegalStateException("Unrecognized aggregation kind " + kind);
+            }
+        }
+    }
+
+    private void handleRemovedKeys() {
+        if (!removedKeys.isEmpty())     // we collect removed keys lazily on the next enter to reduce the chance of empty-group queries creating empty aggregators temporarily
+        {
+            for (Object removedKey : removedKeys)
+            {
+                int slot = findSlot(removedKey, hash(removedKey));
+                if (slot != -1)
+                {
+                    removeSlot(slot);
+                }
+            }
+            removedKeys.clear();
+            currentSlot = -1;
+        }
+    }
+
+    private static int hash(Object key)
+    {
+        // spread the hash code since the table index uses the low-order bits
+        int h = key.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private int findSlot(Object key, int hash)
+    {
+        int slot = hash & mask;
+        while (true)
+        {
+            Object existing = keys[slot];
+            if (existing == null)
+            {
+                return -1;
+            }
+            if ((hashes[slot] == hash) && ((existing == key) || existing.equals(key)))
+            {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private int addSlot(Object key, int hash)
+    {
+        if (size >= resizeThreshold)
+        {
+            grow();
+        }
+        int slot = hash & mask;
+        while (keys[slot] != null)
+        {
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        hashes[slot] = hash;
+        if (isReclaim)
+        {
+            refcounts[slot] = 1;
+        }
+        size++;
+        return slot;
+    }
+
+    // backward-shift deletion keeps probe sequences intact without tombstones
+    private void removeSlot(int slot)
+    {
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (keys[next] != null)
+        {
+            int home = hashes[next] & mask;
+            if (((next - home) & mask) >= ((next - gap) & mask))
+            {
+                moveSlot(next, gap);
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[gap] = null;
+        Arrays.fill(longState, gap * numLongs, (gap + 1) * numLongs, 0L);
+        Arrays.fill(doubleState, gap * numDoubles, (gap + 1) * numDoubles, 0d);
+        size--;
+    }
+
+    private void moveSlot(int from, int to)
+    {
+        keys[to] = keys[from];
+        hashes[to] = hashes[from];
+        if (isReclaim)
+        {
+            refcounts[to] = refcounts[from];
+        }
+        System.arraycopy(longState, from * numLongs, longState, to * numLongs, numLongs);
+        System.arraycopy(doubleState, from * numDoubles, doubleState, to * numDoubles, numDoubles);
+    }
+
+    private void grow()
+    {
+        Object[] oldKeys = keys;
+        int[] oldHashes = hashes;
+        int[] oldRefcounts = refcounts;
+        long[] oldLongState = longState;
+        double[] oldDoubleState = doubleState;
+
+        allocate(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++)
+        {
+            if (oldKeys[i] == null)
+            {
+                continue;
+            }
+            int slot = oldHashes[i] & mask;
+            while (keys[slot] != null)
+            {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = oldKeys[i];
+            hashes[slot] = oldHashes[i];
+            if (isReclaim)
+            {
+                refcounts[slot] = oldRefcounts[i];
+            }
+            System.arraycopy(oldLongState, i * numLongs, longState, slot * numLongs, numLongs);
+            System.arraycopy(oldDoubleState, i * numDoubles, doubleState, slot * numDoubles, numDoubles);
+            size++;
+        }
+    }
+
+    private void allocate(int capacity)
+    {
+        keys = new Object[capacity];
+        hashes = new int[capacity];
+        refcounts = isReclaim ? new int[capacity] : null;
+        longState = new long[capacity * numLongs];
+        doubleState = new double[capacity * numDoubles];
+        mask = capacity - 1;
+        size = 0;
+        resizeThreshold = capacity / 2;    // linear probing degrades quickly above half full
+    }
+}
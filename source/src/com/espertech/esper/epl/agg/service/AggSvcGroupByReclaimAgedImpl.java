@@ -16,6 +16,8 @@ import com.espertech.esper.epl.agg.aggregator.AggregationMethod;
 import com.espertech.esper.epl.core.MethodResolutionService;
 import com.espertech.esper.epl.expression.ExprEvaluator;
 import com.espertech.esper.epl.expression.ExprEvaluatorContext;
+import com.espertech.esper.epl.metric.InstrumentationPath;
+import com.espertech.esper.epl.metric.InstrumentationStage;
 import com.espertech.esper.util.ExecutionPathDebugLog;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -72,6 +74,10 @@ public class AggSvcGroupByReclaimAgedImpl extends AggregationServiceBaseGrouped
 
     public void applyEnter(EventBean[] eventsPerStream, Object groupByKey, ExprEvaluatorContext exprEvaluatorContext)
     {
+        if (InstrumentationPath.isInstrumentationEnabled)
+        {
+            InstrumentationPath.getInstrumentation().qStage(InstrumentationStage.AGGREGATION);
+        }
         long currentTime = exprEvaluatorContext.getTimeProvider().getTime();
         if ((nextSweepTime == null) || (nextSweepTime <= currentTime))
         {
@@ -120,6 +126,10 @@ public class AggSvcGroupByReclaimAgedImpl extends AggregationServiceBaseGrouped
             access.applyEnter(eventsPerStream);
         }
         internalHandleUpdated(groupByKey, row);
+        if (InstrumentationPath.isInstrumentationEnabled)
+        {
+            InstrumentationPath.getInstrumentation().aStage(InstrumentationStage.AGGREGATION);
+        }
     }
 
     private void sweep(long currentTime, long currentMaxAge)
@@ -164,6 +174,10 @@ public class AggSvcGroupByReclaimAgedImpl extends AggregationServiceBaseGrouped
 
     public void applyLeave(EventBean[] eventsPerStream, Object groupByKey, ExprEvaluatorContext exprEvaluatorContext)
     {
+        if (InstrumentationPath.isInstrumentationEnabled)
+        {
+            InstrumentationPath.getInstrumentation().qStage(InstrumentationStage.AGGREGATION);
+        }
         AggregationMethodRowAged row = aggregatorsPerGroup.get(groupByKey);
         long currentTime = exprEvaluatorContext.getTimeProvider().getTime();
 
@@ -204,6 +218,10 @@ public class AggSvcGroupByReclaimAgedImpl extends AggregationServiceBaseGrouped
             methodResolutionService.removeAggregators(exprEvaluatorContext.getAgentInstanceId(), groupByKey);  // allow persistence to remove keys already
         }
         internalHandleUpdated(groupByKey, row);
+        if (InstrumentationPath.isInstrumentationEnabled)
+        {
+            InstrumentationPath.getInstrumentation().aStage(InstrumentationStage.AGGREGATION);
+        }
     }
 
     public void setCurrentAccess(Object groupByKey, int agentInstanceId)
@@ -38,6 +38,9 @@ public class AggregationServiceFactoryServiceImpl implements AggregationServiceF
     }
 
     public AggregationServiceFactory getGroupedNoReclaimNoAccess(ExprEvaluator[] evaluatorsArr, AggregationMethodFactory[] aggregatorsArr) {
+        if (AggSvcGroupByPrimitiveFactory.isSupported(aggregatorsArr)) {
+            return new AggSvcGroupByPrimitiveFactory(evaluatorsArr, aggregatorsArr, false);
+        }
         return new AggSvcGroupByNoAccessFactory(evaluatorsArr, aggregatorsArr);
     }
 
@@ -54,6 +57,9 @@ public class AggregationServiceFactoryServiceImpl implements AggregationServiceF
     }
 
     public AggregationServiceFactory getGroupReclaimNoAccess(ExprEvaluator[] evaluatorsArr, AggregationMethodFactory[] aggregatorsArr, AggregationAccessorSlotPair[] pairs, int[] accessedStreams, boolean join) {
+        if (AggSvcGroupByPrimitiveFactory.isSupported(aggregatorsArr)) {
+            return new AggSvcGroupByPrimitiveFactory(evaluatorsArr, aggregatorsArr, true);
+        }
         return new AggSvcGroupByRefcountedNoAccessFactory(evaluatorsArr, aggregatorsArr);
     }
 
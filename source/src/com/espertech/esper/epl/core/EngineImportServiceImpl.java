@@ -37,6 +37,7 @@ public class EngineImportServiceImpl implements EngineImportService
 
 	private final List<String> imports;
     private final Map<String, ConfigurationPlugInAggregationFunction> aggregationFunctions;
+    private final Map<String, ConfigurationPlugInAggregationFunction> builtinAggregationFunctions;
     private final Map<String, EngineImportSingleRowDesc> singleRowFunctions;
     private final Map<String, ConfigurationMethodRef> methodInvocationRef;
     private final boolean allowExtendedAggregationFunc;
@@ -51,6 +52,7 @@ public class EngineImportServiceImpl implements EngineImportService
     {
         imports = new ArrayList<String>();
         aggregationFunctions = new HashMap<String, ConfigurationPlugInAggregationFunction>();
+        builtinAggregationFunctions = new HashMap<String, ConfigurationPlugInAggregationFunction>();
         singleRowFunctions = new HashMap<String, EngineImportSingleRowDesc>();
         methodInvocationRef = new HashMap<String, ConfigurationMethodRef>();
         this.allowExtendedAggregationFunc = allowExtendedAggregationFunc;
@@ -123,6 +125,17 @@ public class EngineImportServiceImpl implements EngineImportService
         aggregationFunctions.put(functionName.toLowerCase(), aggregationDesc);
     }
 
+    /**
+     * Adds a built-in aggregation function that has no keyword. Configured aggregation and single-row functions
+     * by the same name, including those added at runtime, take precedence over the built-in function.
+     * @param functionName function name
+     * @param aggregationDesc aggregation function factory
+     */
+    public void addBuiltinAggregation(String functionName, ConfigurationPlugInAggregationFunction aggregationDesc)
+    {
+        builtinAggregationFunctions.put(functionName.toLowerCase(), aggregationDesc);
+    }
+
     public void addSingleRow(String functionName, String singleRowFuncClass, String methodName, ConfigurationPlugInSingleRowFunction.ValueCache valueCache, ConfigurationPlugInSingleRowFunction.FilterOptimizable filterOptimizable, boolean rethrowExceptions) throws EngineImportException {
         EngineImportSingleRowDesc existing = singleRowFunctions.get(functionName);
         if (existing != null)
@@ -146,11 +159,7 @@ public class EngineImportServiceImpl implements EngineImportService
 
     public AggregationSupport resolveAggregation(String name) throws EngineImportException, EngineImportUndefinedException
     {
-        ConfigurationPlugInAggregationFunction desc = aggregationFunctions.get(name);
-        if (desc == null)
-        {
-            desc = aggregationFunctions.get(name.toLowerCase());
-        }
+        ConfigurationPlugInAggregationFunction desc = findAggregation(name);
         if (desc == null || desc.getFunctionClassName() == null)
         {
             throw new EngineImportUndefinedException("A function named '" + name + "' is not defined");
@@ -190,11 +199,7 @@ public class EngineImportServiceImpl implements EngineImportService
     }
 
     public AggregationFunctionFactory resolveAggregationFactory(String name) throws EngineImportUndefinedException, EngineImportException {
-        ConfigurationPlugInAggregationFunction desc = aggregationFunctions.get(name);
-        if (desc == null)
-        {
-            desc = aggregationFunctions.get(name.toLowerCase());
-        }
+        ConfigurationPlugInAggregationFunction desc = findAggregation(name);
         if (desc == null || desc.getFactoryClassName() == null)
         {
             throw new EngineImportUndefinedException("A function named '" + name + "' is not defined");
@@ -233,6 +238,20 @@ public class EngineImportServiceImpl implements EngineImportService
         return (AggregationFunctionFactory) object;
     }
 
+    private ConfigurationPlugInAggregationFunction findAggregation(String name)
+    {
+        ConfigurationPlugInAggregationFunction desc = aggregationFunctions.get(name);
+        if (desc == null)
+        {
+            desc = aggregationFunctions.get(name.toLowerCase());
+        }
+        if (desc == null)
+        {
+            desc = builtinAggregationFunctions.get(name.toLowerCase());
+        }
+        return desc;
+    }
+
     public Pair<Class, EngineImportSingleRowDesc> resolveSingleRow(String name) throws EngineImportException, EngineImportUndefinedException
     {
         EngineImportSingleRowDesc pair = singleRowFunctions.get(name);
@@ -13,8 +13,10 @@ import com.espertech.esper.client.EPException;
 import com.espertech.esper.client.EventBean;
 import com.espertech.esper.client.EventType;
 import com.espertech.esper.collection.IterablesArrayIterator;
+import com.espertech.esper.collection.MultiKeyUntyped;
 import com.espertech.esper.collection.Pair;
 import com.espertech.esper.epl.db.DataCache;
+import com.espertech.esper.epl.db.PollExecPrefetch;
 import com.espertech.esper.epl.db.PollExecStrategy;
 import com.espertech.esper.epl.expression.*;
 import com.espertech.esper.epl.join.pollindex.PollResultIndexingStrategy;
@@ -45,6 +47,7 @@ public class MethodPollingViewable implements HistoricalEventViewable
     private final EventType eventType;
     private final ThreadLocal<DataCache> dataCacheThreadLocal = new ThreadLocal<DataCache>();
     private final ExprEvaluatorContext exprEvaluatorContext;
+    private final PollExecPrefetch prefetch;
 
     private SortedSet<Integer> requiredStreams;
     private ExprEvaluator[] validatedExprNodes;
@@ -75,6 +78,7 @@ public class MethodPollingViewable implements HistoricalEventViewable
      * @param dataCache the cache to use
      * @param eventType the type of event returned
      * @param exprEvaluatorContext expression evaluation context
+     * @param prefetch for polling ahead of joins, or null if not polling ahead
      */
     public MethodPollingViewable(
                            MethodStreamSpec methodStreamSpec,
@@ -83,7 +87,8 @@ public class MethodPollingViewable implements HistoricalEventViewable
                            PollExecStrategy pollExecStrategy,
                            DataCache dataCache,
                            EventType eventType,
-                           ExprEvaluatorContext exprEvaluatorContext)
+                           ExprEvaluatorContext exprEvaluatorContext,
+                           PollExecPrefetch prefetch)
     {
         this.methodStreamSpec = methodStreamSpec;
         this.inputParameters = inputParameters;
@@ -91,11 +96,16 @@ public class MethodPollingViewable implements HistoricalEventViewable
         this.dataCache = dataCache;
         this.eventType = eventType;
         this.exprEvaluatorContext = exprEvaluatorContext;
+        this.prefetch = prefetch;
     }
 
     public void stop()
     {
         pollExecStrategy.destroy();
+        if (prefetch != null)
+        {
+            prefetch.destroy();
+        }
     }
 
     public ThreadLocal<DataCache> getDataCacheThreadLocal()
@@ -190,14 +200,24 @@ public class MethodPollingViewable implements HistoricalEventViewable
             {
                 try
                 {
-                    if (!strategyStarted)
+                    // Use the result polled ahead, if any
+                    List<EventBean> pollResult = null;
+                    if (prefetch != null)
                     {
-                        pollExecStrategy.start();
-                        strategyStarted = true;
+                        pollResult = prefetch.get(lookupValues);
                     }
 
-                    // Poll using the polling execution strategy and lookup values
-                    List<EventBean> pollResult = pollExecStrategy.poll(lookupValues);
+                    if (pollResult == null)
+                    {
+                        if (!strategyStarted)
+                        {
+                            pollExecStrategy.start();
+                            strategyStarted = true;
+                        }
+
+                        // Poll using the polling execution strategy and lookup values
+                        pollResult = pollExecStrategy.poll(lookupValues);
+                    }
 
                     // index the result, if required, using an indexing strategy
                     EventTable indexTable = indexingStrategy.index(pollResult, dataCache.isActive());
@@ -232,6 +252,34 @@ public class MethodPollingViewable implements HistoricalEventViewable
         return resultPerInputRow;
     }
 
+    public List<MultiKeyUntyped> prefetch(EventBean[][] lookupEventsPerStream, ExprEvaluatorContext exprEvaluatorContext)
+    {
+        if (prefetch == null)
+        {
+            return null;
+        }
+
+        List<Object[]> lookupValuesPerRow = new ArrayList<Object[]>(lookupEventsPerStream.length);
+        for (EventBean[] eventsPerStream : lookupEventsPerStream)
+        {
+            Object[] lookupValues = new Object[inputParameters.size()];
+            for (int valueNum = 0; valueNum < inputParameters.size(); valueNum++)
+            {
+                lookupValues[valueNum] = validatedExprNodes[valueNum].evaluate(eventsPerStream, true, exprEvaluatorContext);
+            }
+            lookupValuesPerRow.add(lookupValues);
+        }
+        return prefetch.prefetch(lookupValuesPerRow, dataCache);
+    }
+
+    public void releasePrefetched(List<MultiKeyUntyped> lookupKeys)
+    {
+        if ((prefetch != null) && (lookupKeys != null))
+        {
+            prefetch.release(lookupKeys);
+        }
+    }
+
     public View addView(View view)
     {
         view.setParent(this);
@@ -16,9 +16,11 @@ import com.espertech.esper.client.EventType;
 import com.espertech.esper.core.context.util.EPStatementAgentInstanceHandle;
 import com.espertech.esper.epl.db.DataCache;
 import com.espertech.esper.epl.db.DataCacheFactory;
+import com.espertech.esper.epl.db.PollExecPrefetch;
 import com.espertech.esper.epl.db.PollExecStrategy;
 import com.espertech.esper.epl.expression.ExprValidationException;
 import com.espertech.esper.epl.expression.ExprEvaluatorContext;
+import com.espertech.esper.epl.metric.MetricReportingService;
 import com.espertech.esper.epl.spec.MethodStreamSpec;
 import com.espertech.esper.event.EventAdapterService;
 import com.espertech.esper.schedule.ScheduleBucket;
@@ -28,6 +30,7 @@ import com.espertech.esper.view.HistoricalEventViewable;
 
 import java.lang.reflect.Method;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -50,6 +53,9 @@ public class MethodPollingViewableFactory
      * @param schedulingService for scheduling callbacks in expiry-time based caches
      * @param scheduleBucket for schedules within the statement
      * @param exprEvaluatorContext expression evaluation context
+     * @param prefetchExecutorService engine-level thread pool for concurrent polls ahead of joins, or null if polls are not concurrent
+     * @param numConcurrentPolls number of concurrent polls when polling ahead of joins, or zero to not poll ahead
+     * @param metricReportingService for reporting data cache activity
      * @return pollable view
      * @throws ExprValidationException if the expressions cannot be validated or the method descriptor
      * has incorrect class and method names, or parameter number and types don't match
@@ -62,7 +68,10 @@ public class MethodPollingViewableFactory
                                                                EngineImportService engineImportService,
                                                                SchedulingService schedulingService,
                                                                ScheduleBucket scheduleBucket,
-                                                               ExprEvaluatorContext exprEvaluatorContext)
+                                                               ExprEvaluatorContext exprEvaluatorContext,
+                                                               ExecutorService prefetchExecutorService,
+                                                               int numConcurrentPolls,
+                                                               MetricReportingService metricReportingService)
             throws ExprValidationException
     {
         // Try to resolve the method
@@ -145,9 +154,20 @@ public class MethodPollingViewableFactory
             configCache = engineImportService.getConfigurationMethodRef(declaringClass.getSimpleName());
         }
         ConfigurationDataCache dataCacheDesc = (configCache != null) ? configCache.getDataCacheDesc() : null;
-        DataCache dataCache = DataCacheFactory.getDataCache(dataCacheDesc, epStatementAgentInstanceHandle, schedulingService, scheduleBucket);
+        DataCache dataCache = DataCacheFactory.getDataCache(dataCacheDesc, epStatementAgentInstanceHandle, schedulingService, scheduleBucket, metricReportingService);
         PollExecStrategy methodPollStrategy = new MethodPollingExecStrategy(eventAdapterService, staticMethod, mapTypeName != null, eventType);
 
-        return new MethodPollingViewable(methodStreamSpec, streamNumber, methodStreamSpec.getExpressions(), methodPollStrategy, dataCache, eventType, exprEvaluatorContext);
+        PollExecPrefetch prefetch = null;
+        if (numConcurrentPolls > 0)
+        {
+            PollExecStrategy[] prefetchStrategies = new PollExecStrategy[numConcurrentPolls];
+            for (int i = 0; i < numConcurrentPolls; i++)
+            {
+                prefetchStrategies[i] = new MethodPollingExecStrategy(eventAdapterService, staticMethod, mapTypeName != null, eventType);
+            }
+            prefetch = new PollExecPrefetch(prefetchStrategies, prefetchExecutorService);
+        }
+
+        return new MethodPollingViewable(methodStreamSpec, streamNumber, methodStreamSpec.getExpressions(), methodPollStrategy, dataCache, eventType, exprEvaluatorContext, prefetch);
     }
 }
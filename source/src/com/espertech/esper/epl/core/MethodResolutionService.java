@@ -203,9 +203,11 @@ public interface MethodResolutionService
      *@param aggregationId
      * @param minMaxType dedicates whether to do min or max
      * @param targetType is the type to max or min
-     * @param isHasDataWindows true for has data windows    @return aggregator to use
+     * @param isHasDataWindows true for has data windows
+     * @param isFIFODataWindow true for values leaving in the same order as they entered
+     * @return aggregator to use
      */
-    public AggregationMethod makeMinMaxAggregator(int agentInstanceId, int groupId, int aggregationId, MinMaxTypeEnum minMaxType, Class targetType, boolean isHasDataWindows, boolean hasFilter);
+    public AggregationMethod makeMinMaxAggregator(int agentInstanceId, int groupId, int aggregationId, MinMaxTypeEnum minMaxType, Class targetType, boolean isHasDataWindows, boolean isFIFODataWindow, boolean hasFilter);
 
     /**
      * Makes a new stddev-aggregator.
@@ -281,6 +283,13 @@ public interface MethodResolutionService
      */
     public void removeAggregators(int agentInstanceId, Object groupKey);
 
+    /**
+     * Returns true if the service tracks or customizes the aggregators it makes, in which case aggregation services
+     * must obtain all aggregators from this service and report removed groups, and may not keep aggregation state of their own.
+     * @return indicator whether aggregators are tracked
+     */
+    public boolean isTrackAggregators();
+
     /**
      * Returns the current row count of an aggregation, for use with resilience.
      * @param aggregators aggregators
@@ -269,12 +269,15 @@ public class MethodResolutionServiceImpl implements MethodResolutionService
         return new AggregatorMedianFilter();
     }
 
-    public AggregationMethod makeMinMaxAggregator(int agentInstanceId, int groupId, int aggregationId, MinMaxTypeEnum minMaxTypeEnum, Class targetType, boolean isHasDataWindows, boolean hasFilter)
+    public AggregationMethod makeMinMaxAggregator(int agentInstanceId, int groupId, int aggregationId, MinMaxTypeEnum minMaxTypeEnum, Class targetType, boolean isHasDataWindows, boolean isFIFODataWindow, boolean hasFilter)
     {
         if (!hasFilter) {
             if (!isHasDataWindows) {
                 return new AggregatorMinMaxEver(minMaxTypeEnum, targetType);
             }
+            if (isFIFODataWindow && AggregatorMinMaxFIFO.isSupported(targetType)) {
+                return new AggregatorMinMaxFIFO(minMaxTypeEnum, targetType);
+            }
             return new AggregatorMinMax(minMaxTypeEnum, targetType);
         }
         else {
@@ -358,6 +361,12 @@ public class MethodResolutionServiceImpl implements MethodResolutionService
         // To be overridden by implementations that care when aggregators get removed
     }
 
+    public boolean isTrackAggregators()
+    {
+        // To be overridden by implementations that track or customize aggregators
+        return false;
+    }
+
     public AggregationAccess makeAccessStreamId(int agentInstanceId, boolean isJoin, int streamId, Object groupKey)
     {
         if (isJoin) {
@@ -58,6 +58,9 @@ public class ResultSetProcessorAggregateGrouped implements ResultSetProcessor, A
     private final Map<Object, EventBean[]> newGenerators = new HashMap<Object, EventBean[]>();
 	private final Map<Object, EventBean[]> oldGenerators = new HashMap<Object, EventBean[]>();
 
+    // reused between invocations to avoid allocating key arrays for each
+    private final ResultSetProcessorGroupKeyScratch groupKeyScratch = new ResultSetProcessorGroupKeyScratch();
+
     private final Map<Object, OutputConditionPolled> outputState = new HashMap<Object, OutputConditionPolled>();
 
     public ResultSetProcessorAggregateGrouped(ResultSetProcessorAggregateGroupedFactory prototype, SelectExprProcessor selectExprProcessor, OrderByProcessor orderByProcessor, AggregationService aggregationService, AgentInstanceContext agentInstanceContext) {
@@ -79,10 +82,23 @@ public class ResultSetProcessorAggregateGrouped implements ResultSetProcessor, A
     }
 
     public UniformPair<EventBean[]> processJoinResult(Set<MultiKey<EventBean>> newEvents, Set<MultiKey<EventBean>> oldEvents, boolean isSynthesize)
+    {
+        ResultSetProcessorGroupKeyScratch scratch = groupKeyScratch.acquire();
+        try
+        {
+            return processJoinResult(newEvents, oldEvents, isSynthesize, scratch);
+        }
+        finally
+        {
+            scratch.release();
+        }
+    }
+
+    private UniformPair<EventBean[]> processJoinResult(Set<MultiKey<EventBean>> newEvents, Set<MultiKey<EventBean>> oldEvents, boolean isSynthesize, ResultSetProcessorGroupKeyScratch scratch)
     {
         // Generate group-by keys for all events
-        Object[] newDataGroupByKeys = generateGroupKeys(newEvents, true);
-        Object[] oldDataGroupByKeys = generateGroupKeys(oldEvents, false);
+        Object[] newDataGroupByKeys = generateGroupKeys(newEvents, true, scratch.getNewKeys(newEvents.size()));
+        Object[] oldDataGroupByKeys = generateGroupKeys(oldEvents, false, scratch.getOldKeys(oldEvents.size()));
 
         // generate old events
         if (prototype.isUnidirectional())
@@ -127,13 +143,26 @@ public class ResultSetProcessorAggregateGrouped implements ResultSetProcessor, A
     }
 
     public UniformPair<EventBean[]> processViewResult(EventBean[] newData, EventBean[] oldData, boolean isSynthesize)
+    {
+        ResultSetProcessorGroupKeyScratch scratch = groupKeyScratch.acquire();
+        try
+        {
+            return processViewResult(newData, oldData, isSynthesize, scratch);
+        }
+        finally
+        {
+            scratch.release();
+        }
+    }
+
+    private UniformPair<EventBean[]> processViewResult(EventBean[] newData, EventBean[] oldData, boolean isSynthesize, ResultSetProcessorGroupKeyScratch scratch)
     {
         // Generate group-by keys for all events
-        Object[] newDataGroupByKeys = generateGroupKeys(newData, true);
-        Object[] oldDataGroupByKeys = generateGroupKeys(oldData, false);
+        Object[] newDataGroupByKeys = generateGroupKeys(newData, true, newData == null ? null : scratch.getNewKeys(newData.length));
+        Object[] oldDataGroupByKeys = generateGroupKeys(oldData, false, oldData == null ? null : scratch.getOldKeys(oldData.length));
 
         // update aggregates
-        EventBean[] eventsPerStream = new EventBean[1];
+        EventBean[] eventsPerStream = scratch.getEventsPerStream();
         if (newData != null)
         {
             // apply new data to aggregates
@@ -176,10 +205,11 @@ public class ResultSetProcessorAggregateGrouped implements ResultSetProcessor, A
 
         EventBean[] eventsPerStream = new EventBean[1];
         EventBean[] events = new EventBean[outputEvents.length];
-        Object[] keys = new Object[outputEvents.length];
+        Object[] keys = null;
         EventBean[][] currentGenerators = null;
         if(prototype.isSorting())
         {
+        	keys = new Object[outputEvents.length];
         	currentGenerators = new EventBean[outputEvents.length][];
         }
 
@@ -200,9 +230,9 @@ public class ResultSetProcessorAggregateGrouped implements ResultSetProcessor, A
             }
 
             events[count] = selectExprProcessor.process(eventsPerStream, isNewData, isSynthesize, agentInstanceContext);
-            keys[count] = groupByKeys[count];
             if(prototype.isSorting())
             {
+            	keys[count] = groupByKeys[count];
             	EventBean[] currentEventsPerStream = new EventBean[] { outputEvents[count] };
             	generators.put(keys[count], currentEventsPerStream);
             	currentGenerators[count] = currentEventsPerStream;
@@ -243,14 +273,17 @@ public class ResultSetProcessorAggregateGrouped implements ResultSetProcessor, A
     }
 
     private Object[] generateGroupKeys(Set<MultiKey<EventBean>> resultSet, boolean isNewData)
+    {
+        return generateGroupKeys(resultSet, isNewData, new Object[resultSet.size()]);
+    }
+
+    private Object[] generateGroupKeys(Set<MultiKey<EventBean>> resultSet, boolean isNewData, Object[] keys)
     {
         if (resultSet.isEmpty())
         {
             return null;
         }
 
-        Object keys[] = new Object[resultSet.size()];
-
         int count = 0;
         for (MultiKey<EventBean> eventsPerStream : resultSet)
         {
@@ -262,6 +295,11 @@ public class ResultSetProcessorAggregateGrouped implements ResultSetProcessor, A
     }
 
     private Object[] generateGroupKeys(EventBean[] events, boolean isNewData)
+    {
+        return generateGroupKeys(events, isNewData, events == null ? null : new Object[events.length]);
+    }
+
+    private Object[] generateGroupKeys(EventBean[] events, boolean isNewData, Object[] keys)
     {
         if (events == null)
         {
@@ -269,7 +307,6 @@ public class ResultSetProcessorAggregateGrouped implements ResultSetProcessor, A
         }
 
         EventBean[] eventsPerStream = new EventBean[1];
-        Object keys[] = new Object[events.length];
 
         for (int i = 0; i < events.length; i++)
         {
@@ -312,10 +349,11 @@ public class ResultSetProcessorAggregateGrouped implements ResultSetProcessor, A
         }
 
         EventBean[] events = new EventBean[resultSet.size()];
-        Object[] keys = new Object[resultSet.size()];
+        Object[] keys = null;
         EventBean[][] currentGenerators = null;
         if(prototype.isSorting())
         {
+        	keys = new Object[resultSet.size()];
         	currentGenerators = new EventBean[resultSet.size()][];
         }
 
@@ -337,9 +375,9 @@ public class ResultSetProcessorAggregateGrouped implements ResultSetProcessor, A
             }
 
             events[count] = selectExprProcessor.process(eventsPerStream, isNewData, isSynthesize, agentInstanceContext);
-            keys[count] = groupByKeys[count];
             if(prototype.isSorting())
             {
+            	keys[count] = groupByKeys[count];
             	generators.put(keys[count], eventsPerStream);
             	currentGenerators[count] = eventsPerStream;
             }
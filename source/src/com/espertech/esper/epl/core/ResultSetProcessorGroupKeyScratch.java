@@ -0,0 +1,141 @@
+/**************************************************************************************
+ * Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ * http://esper.codehaus.org                                                          *
+ * http://www.espertech.com                                                           *
+ * ---------------------------------------------------------------------------------- *
+ * The software in this package is published under the terms of the GPL license       *
+ * a copy of which has been included with this distribution in the license.txt file.  *
+ **************************************************************************************/
+package com.espertech.esper.epl.core;
+
+import com.espertech.esper.client.EventBean;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reusable per-invocation structures for grouped result set processors: the arrays receiving the group-by keys
+ * of new and old events, the map of distinct group-by key to representative event and a single-stream event row.
+ * <p>
+ * A result set processor exists per agent instance and is invoked under the agent instance lock, therefore a
+ * single scratch instance per processor suffices. Should the processor be re-entered while the scratch is in use,
+ * for example by a user-defined function sending an event, {@link #acquire} hands out a fresh instance.
+ */
+public class ResultSetProcessorGroupKeyScratch
+{
+    // the size up to which a HashMap of default capacity does not resize; a map that grew larger is replaced
+    // so that iteration order, and thereby output order, remains that of a map allocated per invocation
+    private static final int MAX_REUSE_SIZE = 12;
+
+    private Object[] newKeys = new Object[0];
+    private Object[] oldKeys = new Object[0];
+    private int numNewKeys;
+    private int numOldKeys;
+    private Map<Object, EventBean> keysAndEvents = new HashMap<Object, EventBean>();
+    private Map<Object, EventBean[]> keysAndEventsJoin = new HashMap<Object, EventBean[]>();
+    private final EventBean[] eventsPerStream = new EventBean[1];
+    private boolean inUse;
+
+    /**
+     * Returns this scratch marked as in-use, or a new scratch if this one is already in use.
+     * @return scratch to use and release
+     */
+    public ResultSetProcessorGroupKeyScratch acquire()
+    {
+        if (inUse)
+        {
+            ResultSetProcessorGroupKeyScratch scratch = new ResultSetProcessorGroupKeyScratch();
+            scratch.inUse = true;
+            return scratch;
+        }
+        inUse = true;
+        return this;
+    }
+
+    /**
+     * Clears the scratch structures, releasing references to keys and events, and makes the scratch available for reuse.
+     */
+    public void release()
+    {
+        Arrays.fill(newKeys, 0, numNewKeys, null);
+        Arrays.fill(oldKeys, 0, numOldKeys, null);
+        numNewKeys = 0;
+        numOldKeys = 0;
+        eventsPerStream[0] = null;
+        if (keysAndEvents.size() > MAX_REUSE_SIZE)
+        {
+            keysAndEvents = new HashMap<Object, EventBean>();
+        }
+        else
+        {
+            keysAndEvents.clear();
+        }
+        if (keysAndEventsJoin.size() > MAX_REUSE_SIZE)
+        {
+            keysAndEventsJoin = new HashMap<Object, EventBean[]>();
+        }
+        else
+        {
+            keysAndEventsJoin.clear();
+        }
+        inUse = false;
+    }
+
+    /**
+     * Returns an array for holding the group-by keys of new events.
+     * @param size number of keys
+     * @return array with at least the size
+     */
+    public Object[] getNewKeys(int size)
+    {
+        if (newKeys.length < size)
+        {
+            newKeys = new Object[size];
+        }
+        numNewKeys = size;
+        return newKeys;
+    }
+
+    /**
+     * Returns an array for holding the group-by keys of old events.
+     * @param size number of keys
+     * @return array with at least the size
+     */
+    public Object[] getOldKeys(int size)
+    {
+        if (oldKeys.length < size)
+        {
+            oldKeys = new Object[size];
+        }
+        numOldKeys = size;
+        return oldKeys;
+    }
+
+    /**
+     * Returns an event row for a single stream.
+     * @return events per stream
+     */
+    public EventBean[] getEventsPerStream()
+    {
+        return eventsPerStream;
+    }
+
+    /**
+     * Returns the empty map of group-by key and representative event, for use with a single stream.
+     * @return map
+     */
+    public Map<Object, EventBean> getKeysAndEvents()
+    {
+        return keysAndEvents;
+    }
+
+    /**
+     * Returns the empty map of group-by key and representative row of events, for use with joins.
+     * @return map
+     */
+    public Map<Object, EventBean[]> getKeysAndEventsJoin()
+    {
+        return keysAndEventsJoin;
+    }
+}
@@ -52,6 +52,9 @@ public class ResultSetProcessorRowPerGroup implements ResultSetProcessor, Aggreg
 
     private final Map<Object, OutputConditionPolled> outputState = new HashMap<Object, OutputConditionPolled>();
 
+    // reused between invocations to avoid allocating key arrays and key-event maps for each
+    protected final ResultSetProcessorGroupKeyScratch groupKeyScratch = new ResultSetProcessorGroupKeyScratch();
+
     public ResultSetProcessorRowPerGroup(ResultSetProcessorRowPerGroupFactory prototype, SelectExprProcessor selectExprProcessor, OrderByProcessor orderByProcessor, AggregationService aggregationService, AgentInstanceContext agentInstanceContext) {
         this.prototype = prototype;
         this.selectExprProcessor = selectExprProcessor;
@@ -71,11 +74,24 @@ public class ResultSetProcessorRowPerGroup implements ResultSetProcessor, Aggreg
     }
 
     public UniformPair<EventBean[]> processJoinResult(Set<MultiKey<EventBean>> newEvents, Set<MultiKey<EventBean>> oldEvents, boolean isSynthesize)
+    {
+        ResultSetProcessorGroupKeyScratch scratch = groupKeyScratch.acquire();
+        try
+        {
+            return processJoinResult(newEvents, oldEvents, isSynthesize, scratch);
+        }
+        finally
+        {
+            scratch.release();
+        }
+    }
+
+    private UniformPair<EventBean[]> processJoinResult(Set<MultiKey<EventBean>> newEvents, Set<MultiKey<EventBean>> oldEvents, boolean isSynthesize, ResultSetProcessorGroupKeyScratch scratch)
     {
         // Generate group-by keys for all events, collect all keys in a set for later event generation
-        Map<Object, EventBean[]> keysAndEvents = new HashMap<Object, EventBean[]>();
-        Object[] newDataMultiKey = generateGroupKeys(newEvents, keysAndEvents, true);
-        Object[] oldDataMultiKey = generateGroupKeys(oldEvents, keysAndEvents, false);
+        Map<Object, EventBean[]> keysAndEvents = scratch.getKeysAndEventsJoin();
+        Object[] newDataMultiKey = generateGroupKeys(newEvents, keysAndEvents, true, newEvents == null ? null : scratch.getNewKeys(newEvents.size()));
+        Object[] oldDataMultiKey = generateGroupKeys(oldEvents, keysAndEvents, false, oldEvents == null ? null : scratch.getOldKeys(oldEvents.size()));
 
         if (prototype.isUnidirectional())
         {
@@ -122,11 +138,24 @@ public class ResultSetProcessorRowPerGroup implements ResultSetProcessor, Aggreg
     }
 
     public UniformPair<EventBean[]> processViewResult(EventBean[] newData, EventBean[] oldData, boolean isSynthesize)
+    {
+        ResultSetProcessorGroupKeyScratch scratch = groupKeyScratch.acquire();
+        try
+        {
+            return processViewResult(newData, oldData, isSynthesize, scratch);
+        }
+        finally
+        {
+            scratch.release();
+        }
+    }
+
+    private UniformPair<EventBean[]> processViewResult(EventBean[] newData, EventBean[] oldData, boolean isSynthesize, ResultSetProcessorGroupKeyScratch scratch)
     {
         // Generate group-by keys for all events, collect all keys in a set for later event generation
-        Map<Object, EventBean> keysAndEvents = new HashMap<Object, EventBean>();
-        Object[] newDataMultiKey = generateGroupKeys(newData, keysAndEvents, true);
-        Object[] oldDataMultiKey = generateGroupKeys(oldData, keysAndEvents, false);
+        Map<Object, EventBean> keysAndEvents = scratch.getKeysAndEvents();
+        Object[] newDataMultiKey = generateGroupKeys(newData, keysAndEvents, true, newData == null ? null : scratch.getNewKeys(newData.length));
+        Object[] oldDataMultiKey = generateGroupKeys(oldData, keysAndEvents, false, oldData == null ? null : scratch.getOldKeys(oldData.length));
 
         EventBean[] selectOldEvents = null;
         if (prototype.isSelectRStream())
@@ -135,7 +164,7 @@ public class ResultSetProcessorRowPerGroup implements ResultSetProcessor, Aggreg
         }
 
         // update aggregates
-        EventBean[] eventsPerStream = new EventBean[1];
+        EventBean[] eventsPerStream = scratch.getEventsPerStream();
         if (newData != null)
         {
             // apply new data to aggregates
@@ -169,10 +198,11 @@ public class ResultSetProcessorRowPerGroup implements ResultSetProcessor, Aggreg
     {
         EventBean[] eventsPerStream = new EventBean[1];
         EventBean[] events = new EventBean[keysAndEvents.size()];
-        Object[] keys = new Object[keysAndEvents.size()];
+        Object[] keys = null;
         EventBean[][] currentGenerators = null;
         if(prototype.isSorting())
         {
+            keys = new Object[keysAndEvents.size()];
             currentGenerators = new EventBean[keysAndEvents.size()][];
         }
 
@@ -195,9 +225,9 @@ public class ResultSetProcessorRowPerGroup implements ResultSetProcessor, Aggreg
             }
 
             events[count] = selectExprProcessor.process(eventsPerStream, isNewData, isSynthesize, agentInstanceContext);
-            keys[count] = entry.getKey();
             if(prototype.isSorting())
             {
+                keys[count] = entry.getKey();
                 EventBean[] currentEventsPerStream = new EventBean[] { entry.getValue() };
                 currentGenerators[count] = currentEventsPerStream;
             }
@@ -300,10 +330,11 @@ public class ResultSetProcessorRowPerGroup implements ResultSetProcessor, Aggreg
     private EventBean[] generateOutputEventsJoin(Map<Object, EventBean[]> keysAndEvents, boolean isNewData, boolean isSynthesize)
     {
         EventBean[] events = new EventBean[keysAndEvents.size()];
-        Object[] keys = new Object[keysAndEvents.size()];
+        Object[] keys = null;
         EventBean[][] currentGenerators = null;
         if(prototype.isSorting())
         {
+            keys = new Object[keysAndEvents.size()];
             currentGenerators = new EventBean[keysAndEvents.size()][];
         }
 
@@ -324,9 +355,9 @@ public class ResultSetProcessorRowPerGroup implements ResultSetProcessor, Aggreg
             }
 
             events[count] = selectExprProcessor.process(eventsPerStream, isNewData, isSynthesize, agentInstanceContext);
-            keys[count] = entry.getKey();
             if(prototype.isSorting())
             {
+                keys[count] = entry.getKey();
                 currentGenerators[count] = eventsPerStream;
             }
 
@@ -384,6 +415,19 @@ public class ResultSetProcessorRowPerGroup implements ResultSetProcessor, Aggreg
     }
 
     protected Object[] generateGroupKeys(EventBean[] events, Map<Object, EventBean> eventPerKey, boolean isNewData)
+    {
+        return generateGroupKeys(events, eventPerKey, isNewData, events == null ? null : new Object[events.length]);
+    }
+
+    /**
+     * Generates the group-by keys for the events into the supplied array, and collects a representative event per key.
+     * @param events events to generate keys for
+     * @param eventPerKey map receiving the last event per group-by key
+     * @param isNewData true for new data
+     * @param keys array receiving the keys, at least the size of the events
+     * @return keys array or null if the events are null
+     */
+    protected Object[] generateGroupKeys(EventBean[] events, Map<Object, EventBean> eventPerKey, boolean isNewData, Object[] keys)
     {
         if (events == null)
         {
@@ -391,7 +435,6 @@ public class ResultSetProcessorRowPerGroup implements ResultSetProcessor, Aggreg
         }
 
         EventBean[] eventsPerStream = new EventBean[1];
-        Object keys[] = new Object[events.length];
 
         for (int i = 0; i < events.length; i++)
         {
@@ -404,14 +447,17 @@ public class ResultSetProcessorRowPerGroup implements ResultSetProcessor, Aggreg
     }
 
     private Object[] generateGroupKeys(Set<MultiKey<EventBean>> resultSet, Map<Object, EventBean[]> eventPerKey, boolean isNewData)
+    {
+        return generateGroupKeys(resultSet, eventPerKey, isNewData, resultSet == null ? null : new Object[resultSet.size()]);
+    }
+
+    private Object[] generateGroupKeys(Set<MultiKey<EventBean>> resultSet, Map<Object, EventBean[]> eventPerKey, boolean isNewData, Object[] keys)
     {
         if (resultSet == null || resultSet.isEmpty())
         {
             return null;
         }
 
-        Object keys[] = new Object[resultSet.size()];
-
         int count = 0;
         for (MultiKey<EventBean> eventsPerStream : resultSet)
         {
@@ -17,7 +17,6 @@ import com.espertech.esper.view.Viewable;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -35,11 +34,24 @@ public class ResultSetProcessorRowPerGroupSpecial extends ResultSetProcessorRowP
 
     @Override
     public UniformPair<EventBean[]> processViewResult(EventBean[] newData, EventBean[] oldData, boolean isSynthesize)
+    {
+        ResultSetProcessorGroupKeyScratch scratch = groupKeyScratch.acquire();
+        try
+        {
+            return processViewResult(newData, oldData, isSynthesize, scratch);
+        }
+        finally
+        {
+            scratch.release();
+        }
+    }
+
+    private UniformPair<EventBean[]> processViewResult(EventBean[] newData, EventBean[] oldData, boolean isSynthesize, ResultSetProcessorGroupKeyScratch scratch)
     {
         // Generate group-by keys for all events, collect all keys in a set for later event generation
-        Map<Object, EventBean> keysAndEvents = new HashMap<Object, EventBean>();
-        Object[] newDataMultiKey = generateGroupKeys(newData, keysAndEvents, true);
-        Object[] oldDataMultiKey = generateGroupKeys(oldData, keysAndEvents, false);
+        Map<Object, EventBean> keysAndEvents = scratch.getKeysAndEvents();
+        Object[] newDataMultiKey = generateGroupKeys(newData, keysAndEvents, true, newData == null ? null : scratch.getNewKeys(newData.length));
+        Object[] oldDataMultiKey = generateGroupKeys(oldData, keysAndEvents, false, oldData == null ? null : scratch.getOldKeys(oldData.length));
 
         EventBean[] selectOldEvents = null;
         if (prototype.isSelectRStream())
@@ -48,7 +60,7 @@ public class ResultSetProcessorRowPerGroupSpecial extends ResultSetProcessorRowP
         }
 
         // update aggregates
-        EventBean[] eventsPerStream = new EventBean[1];
+        EventBean[] eventsPerStream = scratch.getEventsPerStream();
         if (newData != null)
         {
             // apply new data to aggregates
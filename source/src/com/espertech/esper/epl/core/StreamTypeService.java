@@ -112,6 +112,12 @@ public interface StreamTypeService
      */
     public boolean[] getIStreamOnly();
 
+    /**
+     * Returns true for each stream that has a single data window removing events in arrival order.
+     * @return true for streams with a first-in first-out data window only.
+     */
+    public boolean[] getFIFODataWindow();
+
     public int getStreamNumForStreamName(String streamWildcard);
 
     public boolean isOnDemandStreams();
@@ -28,6 +28,7 @@ public class StreamTypeServiceImpl implements StreamTypeService
     private final EventType[] eventTypes;
     private final String[] streamNames;
     private final boolean[] isIStreamOnly;
+    private boolean[] isFIFODataWindow;
     private final String engineURIQualifier;
     private boolean isStreamZeroUnambigous;
     private boolean requireStreamNames;
@@ -68,6 +69,7 @@ public class StreamTypeServiceImpl implements StreamTypeService
         this.eventTypes = eventTypes;
         this.streamNames = streamNames;
         this.isIStreamOnly = isIStreamOnly;
+        this.isFIFODataWindow = new boolean[eventTypes.length];
         this.isOnDemandStreams = isOnDemandStreams;
 
         if (engineURI == null || EPServiceProviderSPI.DEFAULT_ENGINE_URI.equals(engineURI))
@@ -99,6 +101,7 @@ public class StreamTypeServiceImpl implements StreamTypeService
         this.requireStreamNames = requireStreamNames;
         this.engineURIQualifier = engineURI;
         this.isIStreamOnly = new boolean[namesAndTypes.size()];
+        this.isFIFODataWindow = new boolean[namesAndTypes.size()];
         eventTypes = new EventType[namesAndTypes.size()] ;
         streamNames = new String[namesAndTypes.size()] ;
         int count = 0;
@@ -132,6 +135,18 @@ public class StreamTypeServiceImpl implements StreamTypeService
         return isIStreamOnly;
     }
 
+    public boolean[] getFIFODataWindow() {
+        return isFIFODataWindow;
+    }
+
+    /**
+     * Sets the indicator per stream whether the stream has a single first-in first-out data window.
+     * @param isFIFODataWindow true for streams with a first-in first-out data window only
+     */
+    public void setFIFODataWindow(boolean[] isFIFODataWindow) {
+        this.isFIFODataWindow = isFIFODataWindow;
+    }
+
     public int getStreamNumForStreamName(String streamWildcard) {
         for (int i = 0; i < streamNames.length; i++) {
             if (streamWildcard.equals(streamNames[i])) {
@@ -41,4 +41,12 @@ public interface DataCache
      * @return true for caching enabled, false for no caching taking place
      */
     public boolean isActive();
+
+    /**
+     * Returns true if the cache can be looked up by threads not holding the statement lock, concurrently with
+     * lookups and puts by the thread holding the statement lock, or false if the cache must only be used
+     * under the statement lock.
+     * @return true for a cache safe for concurrent use
+     */
+    public boolean isConcurrent();
 }
@@ -47,6 +47,11 @@ public class DataCacheClearableMap implements DataCache
         return false;
     }
 
+    public boolean isConcurrent()
+    {
+        return false;
+    }
+
     /**
      * Clears the cache.
      */
@@ -136,6 +136,11 @@ public class DataCacheExpiringImpl implements DataCache, ScheduleHandleCallback
         return true;
     }
 
+    public boolean isConcurrent()
+    {
+        return false;
+    }
+
     /**
      * Returns the current cache size.
      * @return cache size
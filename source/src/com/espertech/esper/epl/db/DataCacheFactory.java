@@ -11,7 +11,10 @@ package com.espertech.esper.epl.db;
 import com.espertech.esper.client.ConfigurationDataCache;
 import com.espertech.esper.client.ConfigurationLRUCache;
 import com.espertech.esper.client.ConfigurationExpiryTimeCache;
+import com.espertech.esper.client.ConfigurationTinyLFUCache;
 import com.espertech.esper.core.context.util.EPStatementAgentInstanceHandle;
+import com.espertech.esper.epl.metric.MetricReportingService;
+import com.espertech.esper.epl.metric.StatementMetricHandle;
 import com.espertech.esper.schedule.ScheduleBucket;
 import com.espertech.esper.schedule.SchedulingService;
 
@@ -26,12 +29,14 @@ public class DataCacheFactory
      * @param epStatementAgentInstanceHandle statement handle for timer invocations
      * @param schedulingService scheduling service for time-based caches
      * @param scheduleBucket for ordered timer invokation
+     * @param metricReportingService for reporting cache activity
      * @return data cache implementation
      */
     public static DataCache getDataCache(ConfigurationDataCache cacheDesc,
                                          EPStatementAgentInstanceHandle epStatementAgentInstanceHandle,
                                          SchedulingService schedulingService,
-                                         ScheduleBucket scheduleBucket)
+                                         ScheduleBucket scheduleBucket,
+                                         MetricReportingService metricReportingService)
     {
         if (cacheDesc == null)
         {
@@ -51,6 +56,18 @@ public class DataCacheFactory
                     schedulingService, scheduleBucket.allocateSlot(), epStatementAgentInstanceHandle);
         }
 
+        if (cacheDesc instanceof ConfigurationTinyLFUCache)
+        {
+            ConfigurationTinyLFUCache tinyLFUCache = (ConfigurationTinyLFUCache) cacheDesc;
+            StatementMetricHandle metricsHandle = null;
+            if ((epStatementAgentInstanceHandle != null) && (metricReportingService != null))
+            {
+                metricsHandle = epStatementAgentInstanceHandle.getStatementHandle().getMetricsHandle();
+            }
+            return new DataCacheTinyLFUImpl(tinyLFUCache.getMaxSize(), tinyLFUCache.getMaxWeightBytes(), tinyLFUCache.getMaxAgeSeconds(),
+                    tinyLFUCache.getRefreshAheadSeconds(), tinyLFUCache.isCacheEmptyResults(), schedulingService, metricsHandle, metricReportingService);
+        }
+
         throw new IllegalStateException("Cache implementation class not configured");
     }
 }
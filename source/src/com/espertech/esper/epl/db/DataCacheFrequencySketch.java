@@ -0,0 +1,123 @@
+/**************************************************************************************
+ * Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ * http://esper.codehaus.org                                                          *
+ * http://www.espertech.com                                                           *
+ * ---------------------------------------------------------------------------------- *
+ * The software in this package is published under the terms of the GPL license       *
+ * a copy of which has been included with this distribution in the license.txt file.  *
+ **************************************************************************************/
+package com.espertech.esper.epl.db;
+
+/**
+ * Estimates the access frequency of cache keys within a recent sample of accesses, for use in deciding
+ * whether to admit a key into a cache in place of another key.
+ * <p>
+ * The sketch is a count-min sketch of 4-bit counters, with 16 counters packed into each long.
+ * A key is counted in four counters, and its frequency is the minimum of these counters.
+ * When the number of accesses counted reaches the sample size, all counters are halved so that
+ * the frequencies reflect recent accesses.
+ * <p>
+ * Not thread-safe.
+ */
+public class DataCacheFrequencySketch
+{
+    private static final long[] SEEDS = new long[] {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final long ONE_MASK = 0x1111111111111111L;
+
+    private final long[] table;
+    private final int tableMask;
+    private final int sampleSize;
+    private int size;
+
+    /**
+     * Ctor.
+     * @param expectedKeys the expected number of keys, for sizing the sketch
+     */
+    public DataCacheFrequencySketch(int expectedKeys)
+    {
+        int capacity = 8;
+        while ((capacity < expectedKeys) && (capacity < (1 << 30)))
+        {
+            capacity <<= 1;
+        }
+        table = new long[capacity];
+        tableMask = capacity - 1;
+        sampleSize = (capacity >= (Integer.MAX_VALUE / 10)) ? Integer.MAX_VALUE : capacity * 10;
+    }
+
+    /**
+     * Returns the estimated number of accesses of the key, at most 15.
+     * @param key key
+     * @return estimated frequency
+     */
+    public int frequency(Object key)
+    {
+        int hash = spread(key.hashCode());
+        int start = (hash & 3) << 2;
+        int frequency = Integer.MAX_VALUE;
+        for (int i = 0; i < 4; i++)
+        {
+            int index = indexOf(hash, i);
+            int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    /**
+     * Counts an access of the key.
+     * @param key key
+     */
+    public void increment(Object key)
+    {
+        int hash = spread(key.hashCode());
+        int start = (hash & 3) << 2;
+        boolean added = false;
+        for (int i = 0; i < 4; i++)
+        {
+            added |= incrementAt(indexOf(hash, i), start + i);
+        }
+        if (added && (++size == sampleSize))
+        {
+            reset();
+        }
+    }
+
+    private boolean incrementAt(int index, int counter)
+    {
+        int offset = counter << 2;
+        long mask = 0xfL << offset;
+        if ((table[index] & mask) != mask)
+        {
+            table[index] += 1L << offset;
+            return true;
+        }
+        return false;
+    }
+
+    private void reset()
+    {
+        int numOdd = 0;
+        for (int i = 0; i < table.length; i++)
+        {
+            numOdd += Long.bitCount(table[i] & ONE_MASK);
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        size = (size >>> 1) - (numOdd >>> 2);
+    }
+
+    private int indexOf(int hash, int i)
+    {
+        long value = (hash + SEEDS[i]) * SEEDS[i];
+        value += value >>> 32;
+        return ((int) value) & tableMask;
+    }
+
+    private static int spread(int x)
+    {
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        return (x >>> 16) ^ x;
+    }
+}
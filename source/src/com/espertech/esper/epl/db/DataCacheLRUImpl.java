@@ -80,4 +80,9 @@ public class DataCacheLRUImpl implements DataCache
     {
         return true;
     }
+
+    public boolean isConcurrent()
+    {
+        return false;
+    }
 }
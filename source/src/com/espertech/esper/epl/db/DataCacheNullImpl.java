@@ -29,4 +29,9 @@ public class DataCacheNullImpl implements DataCache
     {
         return false;
     }
+
+    public boolean isConcurrent()
+    {
+        return true;
+    }
 }
@@ -0,0 +1,630 @@
+/**************************************************************************************
+ * Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ * http://esper.codehaus.org                                                          *
+ * http://www.espertech.com                                                           *
+ * ---------------------------------------------------------------------------------- *
+ * The software in this package is published under the terms of the GPL license       *
+ * a copy of which has been included with this distribution in the license.txt file.  *
+ **************************************************************************************/
+package com.espertech.esper.epl.db;
+
+import com.espertech.esper.client.EventBean;
+import com.espertech.esper.client.EventPropertyDescriptor;
+import com.espertech.esper.client.EventType;
+import com.espertech.esper.epl.join.table.EventTable;
+import com.espertech.esper.epl.metric.MetricReportingPath;
+import com.espertech.esper.epl.metric.MetricReportingService;
+import com.espertech.esper.epl.metric.StatementMetricHandle;
+import com.espertech.esper.schedule.SchedulingService;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Query result data cache implementation that is safe for concurrent use and that admits query results by
+ * access frequency following the W-TinyLFU policy.
+ * <p>
+ * New entries enter a small window segment kept in least-recently-used order. Entries leaving the window
+ * are candidates for the main segment, and a candidate replaces the least-recently-used entry of the main segment
+ * only if a frequency sketch estimates that the candidate was accessed more often.
+ * The main segment keeps entries accessed more then once in a protected part.
+ * <p>
+ * The cache is bounded either by the number of entries or by the estimated size in bytes of the entries,
+ * estimated from the number of rows and the property types of the rows.
+ * <p>
+ * Lookups do not lock. Lookups record accesses only if no other thread currently updates the policy, so that under
+ * contention some accesses are not counted towards frequency and recency.
+ * <p>
+ * When a maximum age is set, stale entries are removed when looked up. When a refresh-ahead age is set,
+ * the first lookup of a protected entry older then the refresh-ahead age reports a miss so that the caller
+ * reloads the entry, while further lookups keep receiving the cached entry until the reload puts the new entry.
+ * <p>
+ * Cache hits, misses, evictions and the time between a miss and the put of the key are counted, and
+ * reported to metrics reporting for the statement if enabled.
+ */
+public class DataCacheTinyLFUImpl implements DataCache
+{
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+    private static final int REMOVED = 3;
+
+    private static final long ENTRY_OVERHEAD_BYTES = 96;
+    private static final long ROW_OVERHEAD_BYTES = 32;
+    private static final int MAX_PENDING_LOADS = 10000;
+    private static final Object NULL_KEY = new Object();
+
+    private final long maximum;
+    private final boolean isWeighBytes;
+    private final long windowMaximum;
+    private final long protectedMaximum;
+    private final long maxAgeMSec;
+    private final long refreshAheadMSec;
+    private final boolean isCacheEmptyResults;
+    private final SchedulingService schedulingService;
+    private final StatementMetricHandle metricsHandle;
+    private final MetricReportingService metricReportingService;
+
+    private final Map<Object, Node> data = new ConcurrentHashMap<Object, Node>();
+    private final Map<EventType, Long> rowWeights = new ConcurrentHashMap<EventType, Long>();
+    private final Map<Object, Long> pendingLoads = new ConcurrentHashMap<Object, Long>();
+    private final AtomicLong numHits = new AtomicLong();
+    private final AtomicLong numMisses = new AtomicLong();
+    private final AtomicLong numEvictions = new AtomicLong();
+    private final AtomicLong loadTimeNanos = new AtomicLong();
+
+    // guarded by the eviction lock
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final DataCacheFrequencySketch sketch;
+    private final LinkedHashSet<Node> window = new LinkedHashSet<Node>();
+    private final LinkedHashSet<Node> probation = new LinkedHashSet<Node>();
+    private final LinkedHashSet<Node> protectedSegment = new LinkedHashSet<Node>();
+    private long weightedSize;
+    private long windowWeightedSize;
+    private long protectedWeightedSize;
+
+    /**
+     * Ctor.
+     * @param maxSize is the maximum number of entries, or zero when bounded by weight
+     * @param maxWeightBytes is the maximum estimated size in bytes of all entries, or zero when bounded by number of entries
+     * @param maxAgeSec is the maximum age in seconds, or zero if entries do not become stale
+     * @param refreshAheadSec is the age in seconds after which protected entries are reloaded, or zero for no refresh-ahead
+     * @param cacheEmptyResults true to cache results without rows
+     * @param schedulingService provides the engine time for determining the age of entries
+     * @param metricsHandle statement metrics handle, or null if not reporting metrics
+     * @param metricReportingService for reporting cache activity, or null if not reporting metrics
+     */
+    public DataCacheTinyLFUImpl(int maxSize,
+                                long maxWeightBytes,
+                                double maxAgeSec,
+                                double refreshAheadSec,
+                                boolean cacheEmptyResults,
+                                SchedulingService schedulingService,
+                                StatementMetricHandle metricsHandle,
+                                MetricReportingService metricReportingService)
+    {
+        if ((maxSize <= 0) && (maxWeightBytes <= 0))
+        {
+            throw new IllegalArgumentException("Data cache requires a positive maximum size or maximum weight");
+        }
+        this.isWeighBytes = maxWeightBytes > 0;
+        this.maximum = isWeighBytes ? maxWeightBytes : maxSize;
+        this.windowMaximum = Math.max(1, maximum / 100);
+        this.protectedMaximum = (maximum - windowMaximum) * 4 / 5;
+        this.maxAgeMSec = (long) (maxAgeSec * 1000);
+        this.refreshAheadMSec = (long) (refreshAheadSec * 1000);
+        this.isCacheEmptyResults = cacheEmptyResults;
+        this.schedulingService = schedulingService;
+        this.metricsHandle = metricsHandle;
+        this.metricReportingService = metricReportingService;
+
+        long expectedKeys = isWeighBytes ? maximum / 1024 : maximum;
+        this.sketch = new DataCacheFrequencySketch((int) Math.min(expectedKeys, 1 << 24));
+    }
+
+    public EventTable getCached(Object[] lookupKeys)
+    {
+        Object key = getKey(lookupKeys);
+        Node node = data.get(key);
+        if (node == null)
+        {
+            recordAccess(key, null);
+            recordMiss(key);
+            return null;
+        }
+
+        if ((maxAgeMSec > 0) || (refreshAheadMSec > 0))
+        {
+            long age = schedulingService.getTime() - node.getLoadTime();
+            if ((maxAgeMSec > 0) && (age > maxAgeMSec))
+            {
+                long numExpired = expire(node);
+                recordMiss(key);
+                report(0, 0, numExpired, 0);
+                return null;
+            }
+
+            // the first lookup reloads a frequently used entry, other lookups receive the current entry
+            if ((refreshAheadMSec > 0) && (age > refreshAheadMSec) && (node.getSegment() == PROTECTED) && (node.getRefreshing().compareAndSet(false, true)))
+            {
+                recordAccess(key, node);
+                recordMiss(key);
+                return null;
+            }
+        }
+
+        recordAccess(key, node);
+        numHits.incrementAndGet();
+        report(1, 0, 0, 0);
+        return node.getValue();
+    }
+
+    public void put(Object[] lookupKeys, EventTable rows)
+    {
+        Object key = getKey(lookupKeys);
+        long loadTime = 0;
+        Long loadStart = pendingLoads.remove(key);
+        if (loadStart != null)
+        {
+            loadTime = System.nanoTime() - loadStart;
+            loadTimeNanos.addAndGet(loadTime);
+        }
+
+        long weight = weigh(rows);
+        if ((!isCacheEmptyResults && rows.isEmpty()) || (weight > maximum))
+        {
+            report(0, 0, 0, loadTime);
+            return;
+        }
+
+        long evicted;
+        evictionLock.lock();
+        try
+        {
+            Node node = new Node(key, rows, weight, schedulingService.getTime());
+            Node existing = data.put(key, node);
+            if (existing != null)
+            {
+                // a reloaded entry keeps its position in the policy
+                int segment = existing.getSegment();
+                unlink(existing);
+                link(node, segment);
+            }
+            else
+            {
+                link(node, WINDOW);
+            }
+            evicted = evict();
+        }
+        finally
+        {
+            evictionLock.unlock();
+        }
+
+        if (evicted != 0)
+        {
+            numEvictions.addAndGet(evicted);
+        }
+        report(0, 0, evicted, loadTime);
+    }
+
+    public boolean isActive()
+    {
+        return true;
+    }
+
+    public boolean isConcurrent()
+    {
+        return true;
+    }
+
+    /**
+     * Returns the number of lookups that found the key in the cache.
+     * @return number of hits
+     */
+    public long getNumHits()
+    {
+        return numHits.get();
+    }
+
+    /**
+     * Returns the number of lookups that did not find the key in the cache, or found a stale entry,
+     * or caused the entry to be refreshed.
+     * @return number of misses
+     */
+    public long getNumMisses()
+    {
+        return numMisses.get();
+    }
+
+    /**
+     * Returns the number of entries evicted for size or weight and the number of stale entries removed.
+     * @return number of evictions
+     */
+    public long getNumEvictions()
+    {
+        return numEvictions.get();
+    }
+
+    /**
+     * Returns the total time in nanoseconds between a lookup not finding a key and the put of the key.
+     * @return load time
+     */
+    public long getLoadTimeNanos()
+    {
+        return loadTimeNanos.get();
+    }
+
+    /**
+     * Returns the number of entries.
+     * @return number of entries
+     */
+    public int getSize()
+    {
+        return data.size();
+    }
+
+    /**
+     * Returns the number of entries when bounded by number of entries, or the estimated size in bytes
+     * of the entries when bounded by weight.
+     * @return weighted size
+     */
+    public long getWeightedSize()
+    {
+        evictionLock.lock();
+        try
+        {
+            return weightedSize;
+        }
+        finally
+        {
+            evictionLock.unlock();
+        }
+    }
+
+    private void recordMiss(Object key)
+    {
+        numMisses.incrementAndGet();
+        if (pendingLoads.size() >= MAX_PENDING_LOADS)
+        {
+            // keys that did not get loaded, for example as polling failed
+            pendingLoads.clear();
+        }
+        if (!pendingLoads.containsKey(key))
+        {
+            pendingLoads.put(key, System.nanoTime());
+        }
+        report(0, 1, 0, 0);
+    }
+
+    private void recordAccess(Object key, Node node)
+    {
+        if (!evictionLock.tryLock())
+        {
+            return;
+        }
+        try
+        {
+            sketch.increment(key);
+            if (node != null)
+            {
+                onHit(node);
+            }
+        }
+        finally
+        {
+            evictionLock.unlock();
+        }
+    }
+
+    private void report(long hits, long misses, long evictions, long loadTime)
+    {
+        if ((metricsHandle != null) && (MetricReportingPath.isMetricsEnabled) && (metricsHandle.isEnabled()))
+        {
+            metricReportingService.accountDataCache(metricsHandle, hits, misses, evictions, loadTime);
+        }
+    }
+
+    private long expire(Node node)
+    {
+        evictionLock.lock();
+        try
+        {
+            if (node.getSegment() == REMOVED)
+            {
+                return 0;
+            }
+            data.remove(node.getKey());
+            unlink(node);
+        }
+        finally
+        {
+            evictionLock.unlock();
+        }
+        numEvictions.incrementAndGet();
+        return 1;
+    }
+
+    private void onHit(Node node)
+    {
+        int segment = node.getSegment();
+        if (segment == WINDOW)
+        {
+            window.remove(node);
+            window.add(node);
+        }
+        else if (segment == PROBATION)
+        {
+            unlink(node);
+            link(node, PROTECTED);
+            while (protectedWeightedSize > protectedMaximum)
+            {
+                Node demoted = protectedSegment.iterator().next();
+                unlink(demoted);
+                link(demoted, PROBATION);
+            }
+        }
+        else if (segment == PROTECTED)
+        {
+            protectedSegment.remove(node);
+            protectedSegment.add(node);
+        }
+    }
+
+    private long evict()
+    {
+        long evicted = 0;
+
+        // entries leaving the window are admitted to the main segment if more frequently used then the victim
+        while (windowWeightedSize > windowMaximum)
+        {
+            Node candidate = window.iterator().next();
+            unlink(candidate);
+            link(candidate, PROBATION);
+
+            while (weightedSize > maximum)
+            {
+                Node victim = getVictim(candidate);
+                if ((victim == null) || (sketch.frequency(candidate.getKey()) <= sketch.frequency(victim.getKey())))
+                {
+                    evictNode(candidate);
+                    evicted++;
+                    break;
+                }
+                evictNode(victim);
+                evicted++;
+            }
+        }
+
+        // a reloaded entry may weigh more then the entry it replaced
+        while (weightedSize > maximum)
+        {
+            Node victim = first(probation);
+            if (victim == null)
+            {
+                victim = first(protectedSegment);
+            }
+            if (victim == null)
+            {
+                victim = first(window);
+            }
+            evictNode(victim);
+            evicted++;
+        }
+        return evicted;
+    }
+
+    private Node getVictim(Node candidate)
+    {
+        Node victim = first(probation);
+        if ((victim != null) && (victim != candidate))
+        {
+            return victim;
+        }
+        return first(protectedSegment);
+    }
+
+    private void evictNode(Node node)
+    {
+        data.remove(node.getKey());
+        unlink(node);
+    }
+
+    private void link(Node node, int segment)
+    {
+        node.setSegment(segment);
+        weightedSize += node.getWeight();
+        if (segment == WINDOW)
+        {
+            window.add(node);
+            windowWeightedSize += node.getWeight();
+        }
+        else if (segment == PROBATION)
+        {
+            probation.add(node);
+        }
+        else
+        {
+            protectedSegment.add(node);
+            protectedWeightedSize += node.getWeight();
+        }
+    }
+
+    private void unlink(Node node)
+    {
+        int segment = node.getSegment();
+        if (segment == REMOVED)
+        {
+            return;
+        }
+        node.setSegment(REMOVED);
+        weightedSize -= node.getWeight();
+        if (segment == WINDOW)
+        {
+            window.remove(node);
+            windowWeightedSize -= node.getWeight();
+        }
+        else if (segment == PROBATION)
+        {
+            probation.remove(node);
+        }
+        else
+        {
+            protectedSegment.remove(node);
+            protectedWeightedSize -= node.getWeight();
+        }
+    }
+
+    private long weigh(EventTable rows)
+    {
+        if (!isWeighBytes)
+        {
+            return 1;
+        }
+        Iterator<EventBean> it = rows.iterator();
+        if (!it.hasNext())
+        {
+            return ENTRY_OVERHEAD_BYTES;
+        }
+        EventBean first = it.next();
+        int numRows = rows.getNumberOfEvents();
+        if (numRows < 0)
+        {
+            numRows = 1;
+            while (it.hasNext())
+            {
+                it.next();
+                numRows++;
+            }
+        }
+        return ENTRY_OVERHEAD_BYTES + numRows * getRowWeight(first.getEventType());
+    }
+
+    private long getRowWeight(EventType eventType)
+    {
+        Long weight = rowWeights.get(eventType);
+        if (weight == null)
+        {
+            long bytes = ROW_OVERHEAD_BYTES;
+            for (EventPropertyDescriptor desc : eventType.getPropertyDescriptors())
+            {
+                bytes += getPropertyWeight(desc.getPropertyType());
+            }
+            weight = bytes;
+            rowWeights.put(eventType, weight);
+        }
+        return weight;
+    }
+
+    /**
+     * Returns the estimated size in bytes of a property value of the given type.
+     * @param type property type
+     * @return estimated size in bytes
+     */
+    protected static long getPropertyWeight(Class type)
+    {
+        if ((type == boolean.class) || (type == byte.class))
+        {
+            return 1;
+        }
+        if ((type == short.class) || (type == char.class))
+        {
+            return 2;
+        }
+        if ((type == int.class) || (type == float.class))
+        {
+            return 4;
+        }
+        if ((type == long.class) || (type == double.class))
+        {
+            return 8;
+        }
+        if ((type == Boolean.class) || (type == Byte.class) || (type == Short.class) || (type == Character.class) ||
+            (type == Integer.class) || (type == Float.class))
+        {
+            return 16;
+        }
+        if ((type == Long.class) || (type == Double.class))
+        {
+            return 24;
+        }
+        if (type == String.class)
+        {
+            return 56;
+        }
+        return 32;
+    }
+
+    private static Node first(LinkedHashSet<Node> segment)
+    {
+        if (segment.isEmpty())
+        {
+            return null;
+        }
+        return segment.iterator().next();
+    }
+
+    private static Object getKey(Object[] lookupKeys)
+    {
+        Object key = DataCacheUtil.getLookupKey(lookupKeys);
+        return key == null ? NULL_KEY : key;
+    }
+
+    private static class Node
+    {
+        private final Object key;
+        private final EventTable value;
+        private final long weight;
+        private final long loadTime;
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+        private volatile int segment;
+
+        private Node(Object key, EventTable value, long weight, long loadTime)
+        {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+            this.loadTime = loadTime;
+        }
+
+        public Object getKey()
+        {
+            return key;
+        }
+
+        public EventTable getValue()
+        {
+            return value;
+        }
+
+        public long getWeight()
+        {
+            return weight;
+        }
+
+        public long getLoadTime()
+        {
+            return loadTime;
+        }
+
+        public AtomicBoolean getRefreshing()
+        {
+            return refreshing;
+        }
+
+        public int getSegment()
+        {
+            return segment;
+        }
+
+        public void setSegment(int segment)
+        {
+            this.segment = segment;
+        }
+    }
+}
@@ -9,6 +9,7 @@
 package com.espertech.esper.epl.db;
 
 import com.espertech.esper.core.context.util.EPStatementAgentInstanceHandle;
+import com.espertech.esper.epl.metric.MetricReportingService;
 
 /**
  * Service providing database connection factory and configuration information
@@ -45,8 +46,9 @@ public interface DatabaseConfigService
      * Returns a new cache implementation for this database.
      * @param databaseName is the name of the database to return a new cache implementation for for
      * @param epStatementAgentInstanceHandle is the statements-own handle for use in registering callbacks with services
+     * @param metricReportingService for reporting cache activity
      * @return cache implementation
      * @throws DatabaseConfigException is thrown to indicate database configuration errors
      */
-    public DataCache getDataCache(String databaseName, EPStatementAgentInstanceHandle epStatementAgentInstanceHandle) throws DatabaseConfigException;
+    public DataCache getDataCache(String databaseName, EPStatementAgentInstanceHandle epStatementAgentInstanceHandle, MetricReportingService metricReportingService) throws DatabaseConfigException;
 }
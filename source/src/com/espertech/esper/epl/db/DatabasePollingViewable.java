@@ -13,6 +13,7 @@ import com.espertech.esper.client.EPException;
 import com.espertech.esper.client.EventBean;
 import com.espertech.esper.client.EventType;
 import com.espertech.esper.collection.IterablesArrayIterator;
+import com.espertech.esper.collection.MultiKeyUntyped;
 import com.espertech.esper.epl.core.EngineImportService;
 import com.espertech.esper.epl.core.MethodResolutionService;
 import com.espertech.esper.epl.core.StreamTypeService;
@@ -41,6 +42,7 @@ public class DatabasePollingViewable implements HistoricalEventViewable
     private final List<String> inputParameters;
     private final DataCache dataCache;
     private final EventType eventType;
+    private final PollExecPrefetch prefetch;
     private final ThreadLocal<DataCache> dataCacheThreadLocal = new ThreadLocal<DataCache>();
 
     private ExprEvaluator[] evaluators;
@@ -71,23 +73,30 @@ public class DatabasePollingViewable implements HistoricalEventViewable
      * @param pollExecStrategy is the strategy to use for retrieving results
      * @param dataCache is looked up before using the strategy
      * @param eventType is the type of events generated by the view
+     * @param prefetch for polling ahead of joins, or null if not polling ahead
      */
     public DatabasePollingViewable(int myStreamNumber,
                            List<String> inputParameters,
                            PollExecStrategy pollExecStrategy,
                            DataCache dataCache,
-                           EventType eventType)
+                           EventType eventType,
+                           PollExecPrefetch prefetch)
     {
         this.myStreamNumber = myStreamNumber;
         this.inputParameters = inputParameters;
         this.pollExecStrategy = pollExecStrategy;
         this.dataCache = dataCache;
         this.eventType = eventType;
+        this.prefetch = prefetch;
     }
 
     public void stop()
     {
         pollExecStrategy.destroy();
+        if (prefetch != null)
+        {
+            prefetch.destroy();
+        }
     }
 
     public void validate(EngineImportService engineImportService,
@@ -179,14 +188,24 @@ public class DatabasePollingViewable implements HistoricalEventViewable
             {
                 try
                 {
-                    if (!strategyStarted)
+                    // Use the result polled ahead, if any
+                    List<EventBean> pollResult = null;
+                    if (prefetch != null)
                     {
-                        pollExecStrategy.start();
-                        strategyStarted = true;
+                        pollResult = prefetch.get(lookupValues);
                     }
 
-                    // Poll using the polling execution strategy and lookup values
-                    List<EventBean> pollResult = pollExecStrategy.poll(lookupValues);
+                    if (pollResult == null)
+                    {
+                        if (!strategyStarted)
+                        {
+                            pollExecStrategy.start();
+                            strategyStarted = true;
+                        }
+
+                        // Poll using the polling execution strategy and lookup values
+                        pollResult = pollExecStrategy.poll(lookupValues);
+                    }
 
                     // index the result, if required, using an indexing strategy
                     EventTable indexTable = indexingStrategy.index(pollResult, dataCache.isActive());
@@ -221,6 +240,34 @@ public class DatabasePollingViewable implements HistoricalEventViewable
         return resultPerInputRow;
     }
 
+    public List<MultiKeyUntyped> prefetch(EventBean[][] lookupEventsPerStream, ExprEvaluatorContext exprEvaluatorContext)
+    {
+        if (prefetch == null)
+        {
+            return null;
+        }
+
+        List<Object[]> lookupValuesPerRow = new ArrayList<Object[]>(lookupEventsPerStream.length);
+        for (EventBean[] eventsPerStream : lookupEventsPerStream)
+        {
+            Object[] lookupValues = new Object[inputParameters.size()];
+            for (int valueNum = 0; valueNum < inputParameters.size(); valueNum++)
+            {
+                lookupValues[valueNum] = evaluators[valueNum].evaluate(eventsPerStream, true, exprEvaluatorContext);
+            }
+            lookupValuesPerRow.add(lookupValues);
+        }
+        return prefetch.prefetch(lookupValuesPerRow, dataCache);
+    }
+
+    public void releasePrefetched(List<MultiKeyUntyped> lookupKeys)
+    {
+        if ((prefetch != null) && (lookupKeys != null))
+        {
+            prefetch.release(lookupKeys);
+        }
+    }
+
     public View addView(View view)
     {
         view.setParent(this);
@@ -17,6 +17,7 @@ import com.espertech.esper.client.hook.SQLOutputRowConversion;
 import com.espertech.esper.client.hook.SQLOutputRowTypeContext;
 import com.espertech.esper.core.context.util.EPStatementAgentInstanceHandle;
 import com.espertech.esper.epl.expression.ExprValidationException;
+import com.espertech.esper.epl.metric.MetricReportingService;
 import com.espertech.esper.epl.generated.EsperEPL2GrammarLexer;
 import com.espertech.esper.epl.spec.DBStatementStreamSpec;
 import com.espertech.esper.event.EventAdapterService;
@@ -33,6 +34,7 @@ import java.io.StringReader;
 import java.io.StringWriter;
 import java.sql.*;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
 
 /**
  * Factory for a view onto historical data via SQL statement.
@@ -54,6 +56,9 @@ public class DatabasePollingViewableFactory
      * @param columnTypeConversionHook hook for statement-specific column conversion
      * @param outputRowConversionHook hook for statement-specific row conversion
      * @param enableJDBCLogging indicator to enable JDBC logging
+     * @param prefetchExecutorService engine-level thread pool for concurrent polls ahead of joins, or null if polls are not concurrent
+     * @param numConcurrentPolls number of concurrent polls when polling ahead of joins, or zero to not poll ahead
+     * @param metricReportingService for reporting data cache activity
      * @return viewable providing poll functionality
      * @throws ExprValidationException if the validation failed
      */
@@ -65,7 +70,10 @@ public class DatabasePollingViewableFactory
                                                                  EPStatementAgentInstanceHandle epStatementAgentInstanceHandle,
                                                                  SQLColumnTypeConversion columnTypeConversionHook,
                                                                  SQLOutputRowConversion outputRowConversionHook,
-                                                                 boolean enableJDBCLogging)
+                                                                 boolean enableJDBCLogging,
+                                                                 ExecutorService prefetchExecutorService,
+                                                                 int numConcurrentPolls,
+                                                                 MetricReportingService metricReportingService)
             throws ExprValidationException
     {
         // Parse the SQL for placeholders and text fragments
@@ -251,7 +259,7 @@ public class DatabasePollingViewableFactory
         try
         {
             connectionCache = databaseConfigService.getConnectionCache(databaseName, preparedStatementText);
-            dataCache = databaseConfigService.getDataCache(databaseName, epStatementAgentInstanceHandle);
+            dataCache = databaseConfigService.getDataCache(databaseName, epStatementAgentInstanceHandle, metricReportingService);
         }
         catch (DatabaseConfigException e)
         {
@@ -263,7 +271,31 @@ public class DatabasePollingViewableFactory
         PollExecStrategyDBQuery dbPollStrategy = new PollExecStrategyDBQuery(eventAdapterService,
                 eventType, connectionCache, preparedStatementText, queryMetaData.getOutputParameters(), columnTypeConversionHook, outputRowConversionHook, enableJDBCLogging);
 
-        return new DatabasePollingViewable(streamNumber, queryMetaData.getInputParameters(), dbPollStrategy, dataCache, eventType);
+        // Polling ahead uses a connection for each concurrent poll
+        PollExecPrefetch prefetch = null;
+        if (numConcurrentPolls > 0)
+        {
+            PollExecStrategy[] prefetchStrategies = new PollExecStrategy[numConcurrentPolls];
+            for (int i = 0; i < numConcurrentPolls; i++)
+            {
+                ConnectionCache prefetchConnectionCache;
+                try
+                {
+                    prefetchConnectionCache = databaseConfigService.getConnectionCache(databaseName, preparedStatementText);
+                }
+                catch (DatabaseConfigException e)
+                {
+                    String text = "Error obtaining cache configuration";
+                    log.error(text, e);
+                    throw new ExprValidationException(text + ", reason: " + e.getMessage());
+                }
+                prefetchStrategies[i] = new PollExecStrategyDBQuery(eventAdapterService,
+                    eventType, prefetchConnectionCache, preparedStatementText, queryMetaData.getOutputParameters(), columnTypeConversionHook, outputRowConversionHook, enableJDBCLogging);
+            }
+            prefetch = new PollExecPrefetch(prefetchStrategies, prefetchExecutorService);
+        }
+
+        return new DatabasePollingViewable(streamNumber, queryMetaData.getInputParameters(), dbPollStrategy, dataCache, eventType, prefetch);
     }
 
     private static QueryMetaData getExampleQueryMetaData(Connection connection, String[] parameters, String sampleSQL, ColumnSettings metadataSetting, boolean isUsingMetadataSQL)
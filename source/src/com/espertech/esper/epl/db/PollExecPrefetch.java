@@ -0,0 +1,248 @@
+/**************************************************************************************
+ * Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ * http://esper.codehaus.org                                                          *
+ * http://www.espertech.com                                                           *
+ * ---------------------------------------------------------------------------------- *
+ * The software in this package is published under the terms of the GPL license       *
+ * a copy of which has been included with this distribution in the license.txt file.  *
+ **************************************************************************************/
+package com.espertech.esper.epl.db;
+
+import com.espertech.esper.client.EPException;
+import com.espertech.esper.client.EventBean;
+import com.espertech.esper.collection.MultiKeyUntyped;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Polls lookup keys ahead of a join and outside of the statement lock, keeping the poll results
+ * for use by a historical viewable polling for the same lookup keys when performing the join, until released.
+ * <p>
+ * The data cache is consulted for keys already cached only if the data cache is safe for concurrent use,
+ * as prefetching happens outside of the statement lock. Otherwise all distinct lookup keys are polled, and the join
+ * consults the data cache under the statement lock as usual.
+ * <p>
+ * Distinct lookup keys that are not cached are polled concurrently, using a polling execution
+ * strategy per concurrent poll, when more then one polling execution strategy is provided. The concurrent polls
+ * run on the engine-level thread pool that also completes joins, and the calling thread performs any poll that
+ * no pool thread started, so that polling never waits for a pool thread to become available.
+ */
+public class PollExecPrefetch
+{
+    private static final Log log = LogFactory.getLog(PollExecPrefetch.class);
+
+    private final PollExecStrategy[] pollExecStrategies;
+    private final ExecutorService executorService;
+    private final Map<MultiKeyUntyped, List<EventBean>> prefetched = new ConcurrentHashMap<MultiKeyUntyped, List<EventBean>>();
+
+    /**
+     * Ctor.
+     * @param pollExecStrategies polling execution strategies, one for each concurrent poll, and not shared with the viewable
+     * @param executorService engine-level thread pool for concurrent polls, required when more then one polling execution strategy is provided
+     */
+    public PollExecPrefetch(PollExecStrategy[] pollExecStrategies, ExecutorService executorService)
+    {
+        this.pollExecStrategies = pollExecStrategies;
+        this.executorService = executorService;
+    }
+
+    /**
+     * Poll the lookup keys that are not cached and not already prefetched, keeping the results.
+     * <p>
+     * The calling thread performs one of the concurrent polls, and returns when all polls completed.
+     * @param lookupValuesPerRow lookup keys
+     * @param dataCache data cache of the viewable, consulted for keys already cached if safe for concurrent use
+     * @return the lookup keys polled, for use in releasing any results that no poll took
+     */
+    public List<MultiKeyUntyped> prefetch(List<Object[]> lookupValuesPerRow, DataCache dataCache)
+    {
+        final List<MultiKeyUntyped> keys = new ArrayList<MultiKeyUntyped>();
+        Set<MultiKeyUntyped> distinct = new HashSet<MultiKeyUntyped>();
+        boolean isConsultCache = dataCache.isConcurrent();
+        for (Object[] lookupValues : lookupValuesPerRow)
+        {
+            MultiKeyUntyped key = new MultiKeyUntyped(lookupValues);
+            if ((!distinct.add(key)) || (prefetched.containsKey(key)) || (isConsultCache && (dataCache.getCached(lookupValues) != null)))
+            {
+                continue;
+            }
+            keys.add(key);
+        }
+        if (keys.isEmpty())
+        {
+            return keys;
+        }
+
+        final int numPolls = Math.min(pollExecStrategies.length, keys.size());
+        final AtomicIntegerArray claimed = new AtomicIntegerArray(numPolls);
+        List<Future<Object>> futures = null;
+        try
+        {
+            for (int i = 1; i < numPolls; i++)
+            {
+                if (futures == null)
+                {
+                    futures = new ArrayList<Future<Object>>(numPolls - 1);
+                }
+                final int pollNum = i;
+                futures.add(executorService.submit(new Callable<Object>()
+                {
+                    public Object call() throws Exception
+                    {
+                        if (claimed.compareAndSet(pollNum, 0, 1))
+                        {
+                            pollKeys(pollNum, numPolls, keys);
+                        }
+                        return null;
+                    }
+                }));
+            }
+        }
+        catch (RejectedExecutionException ex)
+        {
+            // the engine is being destroyed, the calling thread performs the polls not submitted
+            log.debug("Polling on the calling thread as the thread pool rejected the poll");
+        }
+
+        EPException pollException = null;
+        try
+        {
+            pollKeys(0, numPolls, keys);
+        }
+        catch (EPException ex)
+        {
+            pollException = ex;
+        }
+
+        int numSubmitted = futures == null ? 0 : futures.size();
+        for (int i = 1; i < numPolls; i++)
+        {
+            // a poll that no pool thread started is performed by the calling thread, as the pool may be busy
+            if (claimed.compareAndSet(i, 0, 1))
+            {
+                if (i <= numSubmitted)
+                {
+                    futures.get(i - 1).cancel(false);
+                }
+                try
+                {
+                    pollKeys(i, numPolls, keys);
+                }
+                catch (EPException ex)
+                {
+                    if (pollException == null)
+                    {
+                        pollException = ex;
+                    }
+                }
+                continue;
+            }
+
+            try
+            {
+                futures.get(i - 1).get();
+            }
+            catch (InterruptedException ex)
+            {
+                Thread.currentThread().interrupt();
+                pollException = new EPException("Interrupted waiting for historical data poll", ex);
+            }
+            catch (ExecutionException ex)
+            {
+                if (pollException == null)
+                {
+                    pollException = ex.getCause() instanceof EPException ? (EPException) ex.getCause() : new EPException(ex.getCause());
+                }
+            }
+        }
+
+        if (pollException != null)
+        {
+            release(keys);
+            throw pollException;
+        }
+        return keys;
+    }
+
+    /**
+     * Returns the prefetched poll result for the lookup keys, if any.
+     * @param lookupValues lookup keys
+     * @return poll result, or null if not prefetched
+     */
+    public List<EventBean> get(Object[] lookupValues)
+    {
+        if (prefetched.isEmpty())
+        {
+            return null;
+        }
+        return prefetched.get(new MultiKeyUntyped(lookupValues));
+    }
+
+    /**
+     * Release the poll results for the lookup keys.
+     * @param keys lookup keys returned by prefetch
+     */
+    public void release(List<MultiKeyUntyped> keys)
+    {
+        for (MultiKeyUntyped key : keys)
+        {
+            prefetched.remove(key);
+        }
+    }
+
+    /**
+     * Returns the number of poll results prefetched and not yet released.
+     * @return number of results
+     */
+    public int getNumPrefetched()
+    {
+        return prefetched.size();
+    }
+
+    /**
+     * Destroy the polling execution strategies.
+     */
+    public void destroy()
+    {
+        for (PollExecStrategy pollExecStrategy : pollExecStrategies)
+        {
+            pollExecStrategy.destroy();
+        }
+        prefetched.clear();
+    }
+
+    private void pollKeys(int pollNum, int numPolls, List<MultiKeyUntyped> keys)
+    {
+        PollExecStrategy pollExecStrategy = pollExecStrategies[pollNum];
+        pollExecStrategy.start();
+        try
+        {
+            for (int i = pollNum; i < keys.size(); i += numPolls)
+            {
+                MultiKeyUntyped key = keys.get(i);
+                List<EventBean> pollResult = pollExecStrategy.poll(key.getKeys());
+                if (pollResult == null)
+                {
+                    pollResult = Collections.emptyList();
+                }
+                prefetched.put(key, pollResult);
+            }
+        }
+        catch (EPException ex)
+        {
+            pollExecStrategy.done();
+            throw ex;
+        }
+        catch (RuntimeException ex)
+        {
+            log.error("Unexpected exception polling historical data: " + ex.getMessage(), ex);
+            pollExecStrategy.done();
+            throw new EPException(ex);
+        }
+        pollExecStrategy.done();
+    }
+}
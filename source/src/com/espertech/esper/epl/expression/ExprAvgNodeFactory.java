@@ -34,6 +34,33 @@ public class ExprAvgNodeFactory implements AggregationMethodFactory
         return resultType;
     }
 
+    /**
+     * Returns the type of the value to be averaged.
+     * @return child value type
+     */
+    public Class getChildType()
+    {
+        return childType;
+    }
+
+    /**
+     * Returns true for distinct-value aggregation.
+     * @return distinct indicator
+     */
+    public boolean isDistinct()
+    {
+        return isDistinct;
+    }
+
+    /**
+     * Returns true if the aggregation function has a filter expression.
+     * @return filter indicator
+     */
+    public boolean isHasFilter()
+    {
+        return hasFilter;
+    }
+
     public AggregationSpec getSpec(boolean isMatchRecognize)
     {
         return null;
@@ -34,6 +34,33 @@ public class ExprCountNodeFactory implements AggregationMethodFactory
         return Long.class;
     }
 
+    /**
+     * Returns true if null values are not counted.
+     * @return ignore-nulls indicator
+     */
+    public boolean isIgnoreNulls()
+    {
+        return ignoreNulls;
+    }
+
+    /**
+     * Returns true for distinct-value aggregation.
+     * @return distinct indicator
+     */
+    public boolean isDistinct()
+    {
+        return isDistinct;
+    }
+
+    /**
+     * Returns true if the aggregation function has a filter expression.
+     * @return filter indicator
+     */
+    public boolean isHasFilter()
+    {
+        return hasFilter;
+    }
+
     public AggregationSpec getSpec(boolean isMatchRecognize)
     {
         return null;
@@ -50,7 +50,8 @@ public class ExprMinMaxAggrNode extends ExprAggregateNodeBase
             }
             super.validateFilter(this.getChildNodes().get(1).getExprEvaluator());
         }
-        return new ExprMinMaxAggrNodeFactory(minMaxTypeEnum, child.getExprEvaluator().getType(), hasDataWindows, super.isDistinct(), hasFilter);
+        boolean isFIFODataWindow = hasDataWindows && ExprNodeUtility.isFIFODataWindow(streamTypeService);
+        return new ExprMinMaxAggrNodeFactory(minMaxTypeEnum, child.getExprEvaluator().getType(), hasDataWindows, isFIFODataWindow, super.isDistinct(), hasFilter);
     }
 
     public final boolean equalsNodeAggregate(ExprAggregateNode node)
@@ -23,13 +23,19 @@ public class ExprMinMaxAggrNodeFactory implements AggregationMethodFactory
     private final MinMaxTypeEnum minMaxTypeEnum;
     private final Class type;
     private final boolean hasDataWindows;
+    private final boolean isFIFODataWindow;
     private final boolean distinct;
     private final boolean hasFilter;
 
     public ExprMinMaxAggrNodeFactory(MinMaxTypeEnum minMaxTypeEnum, Class type, boolean hasDataWindows, boolean distinct, boolean hasFilter) {
+        this(minMaxTypeEnum, type, hasDataWindows, false, distinct, hasFilter);
+    }
+
+    public ExprMinMaxAggrNodeFactory(MinMaxTypeEnum minMaxTypeEnum, Class type, boolean hasDataWindows, boolean isFIFODataWindow, boolean distinct, boolean hasFilter) {
         this.minMaxTypeEnum = minMaxTypeEnum;
         this.type = type;
         this.hasDataWindows = hasDataWindows;
+        this.isFIFODataWindow = isFIFODataWindow;
         this.distinct = distinct;
         this.hasFilter = hasFilter;
     }
@@ -49,12 +55,58 @@ public class ExprMinMaxAggrNodeFactory implements AggregationMethodFactory
         return type;
     }
 
+    /**
+     * Returns indicator whether minimum or maximum is computed.
+     * @return min or max
+     */
+    public MinMaxTypeEnum getMinMaxTypeEnum()
+    {
+        return minMaxTypeEnum;
+    }
+
+    /**
+     * Returns true if the aggregated streams have data windows and removed values must be accounted for.
+     * @return data window indicator
+     */
+    public boolean isHasDataWindows()
+    {
+        return hasDataWindows;
+    }
+
+    /**
+     * Returns true if values leave the aggregation in the same order as they entered, as is the case
+     * for a single stream with a length or time window.
+     * @return first-in first-out data window indicator
+     */
+    public boolean isFIFODataWindow()
+    {
+        return isFIFODataWindow;
+    }
+
+    /**
+     * Returns true for distinct-value aggregation.
+     * @return distinct indicator
+     */
+    public boolean isDistinct()
+    {
+        return distinct;
+    }
+
+    /**
+     * Returns true if the aggregation function has a filter expression.
+     * @return filter indicator
+     */
+    public boolean isHasFilter()
+    {
+        return hasFilter;
+    }
+
     public AggregationMethodFactory getPrototypeAggregator() {
         return this;
     }
 
     public AggregationMethod make(MethodResolutionService methodResolutionService, int agentInstanceId, int groupId, int aggregationId) {
-        AggregationMethod method = methodResolutionService.makeMinMaxAggregator(agentInstanceId, groupId, aggregationId, minMaxTypeEnum, type, hasDataWindows, hasFilter);
+        AggregationMethod method = methodResolutionService.makeMinMaxAggregator(agentInstanceId, groupId, aggregationId, minMaxTypeEnum, type, hasDataWindows, isFIFODataWindow && !distinct, hasFilter);
         if (!distinct) {
             return method;
         }
@@ -0,0 +1,78 @@
+/**************************************************************************************
+ * Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ * http://esper.codehaus.org                                                          *
+ * http://www.espertech.com                                                           *
+ * ---------------------------------------------------------------------------------- *
+ * The software in this package is published under the terms of the GPL license       *
+ * a copy of which has been included with this distribution in the license.txt file.  *
+ **************************************************************************************/
+package com.espertech.esper.epl.expression;
+
+import com.espertech.esper.epl.declexpr.ExprDeclaredNode;
+import com.espertech.esper.epl.enummethod.dot.EnumMethodEnum;
+import com.espertech.esper.epl.script.ExprNodeScript;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Visitor that collects expression nodes that keep state in the expression evaluator context while evaluating:
+ * declared expressions and enumeration methods use the expression result cache and scripts use the script context.
+ * <p>
+ * Such expressions can not be evaluated by multiple threads at the same time using the same context.
+ */
+public class ExprNodeContextStateVisitor implements ExprNodeVisitor
+{
+    private final List<ExprNode> exprNodes;
+
+    /**
+     * Ctor.
+     */
+    public ExprNodeContextStateVisitor()
+    {
+        exprNodes = new ArrayList<ExprNode>();
+    }
+
+    public boolean isVisit(ExprNode exprNode)
+    {
+        return true;
+    }
+
+    /**
+     * Returns the list of expression nodes keeping state in the context.
+     * @return expr nodes such as declared expressions, enumeration methods and scripts
+     */
+    public List<ExprNode> getExprNodes()
+    {
+        return exprNodes;
+    }
+
+    public void visit(ExprNode exprNode)
+    {
+        if (exprNode instanceof ExprDeclaredNode || exprNode instanceof ExprNodeScript)
+        {
+            exprNodes.add(exprNode);
+            return;
+        }
+        if (exprNode instanceof ExprDotNode)
+        {
+            visitChain(exprNode, ((ExprDotNode) exprNode).getChainSpec());
+        }
+        else if (exprNode instanceof ExprPlugInSingleRowNode)
+        {
+            visitChain(exprNode, ((ExprPlugInSingleRowNode) exprNode).getChainSpec());
+        }
+    }
+
+    private void visitChain(ExprNode exprNode, List<ExprChainedSpec> chainSpec)
+    {
+        for (ExprChainedSpec chain : chainSpec)
+        {
+            if (EnumMethodEnum.isEnumerationMethod(chain.getName()))
+            {
+                exprNodes.add(exprNode);
+                return;
+            }
+        }
+    }
+}
@@ -789,6 +789,17 @@ public class ExprNodeUtility {
         return hasDataWindows;
     }
 
+    /**
+     * Returns true if the aggregated values arrive from a single stream that has a first-in first-out
+     * data window only, i.e. values leave the aggregation in the same order as they entered.
+     * @param streamTypeService streams
+     * @return indicator
+     */
+    public static boolean isFIFODataWindow(StreamTypeService streamTypeService) {
+        boolean[] isFIFODataWindow = streamTypeService.getFIFODataWindow();
+        return isFIFODataWindow.length == 1 && isFIFODataWindow[0];
+    }
+
 
     /**
      * Apply a filter expression.
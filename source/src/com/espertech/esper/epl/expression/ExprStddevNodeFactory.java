@@ -32,6 +32,24 @@ public class ExprStddevNodeFactory implements AggregationMethodFactory
         return Double.class;
     }
 
+    /**
+     * Returns true for distinct-value aggregation.
+     * @return distinct indicator
+     */
+    public boolean isDistinct()
+    {
+        return isDistinct;
+    }
+
+    /**
+     * Returns true if the aggregation function has a filter expression.
+     * @return filter indicator
+     */
+    public boolean isHasFilter()
+    {
+        return hasFilter;
+    }
+
     public AggregationSpec getSpec(boolean isMatchRecognize)
     {
         return null;
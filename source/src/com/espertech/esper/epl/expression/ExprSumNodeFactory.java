@@ -39,6 +39,33 @@ public class ExprSumNodeFactory implements AggregationMethodFactory
         return resultType;
     }
 
+    /**
+     * Returns the type of the value to be summed.
+     * @return input value type
+     */
+    public Class getInputValueType()
+    {
+        return inputValueType;
+    }
+
+    /**
+     * Returns true for distinct-value aggregation.
+     * @return distinct indicator
+     */
+    public boolean isDistinct()
+    {
+        return isDistinct;
+    }
+
+    /**
+     * Returns true if the aggregation function has a filter expression.
+     * @return filter indicator
+     */
+    public boolean isHasFilter()
+    {
+        return hasFilter;
+    }
+
     public AggregationAccessor getAccessor()
     {
         throw new UnsupportedOperationException();
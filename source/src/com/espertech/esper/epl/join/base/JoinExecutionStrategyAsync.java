@@ -0,0 +1,342 @@
+/**************************************************************************************
+ * Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ * http://esper.codehaus.org                                                          *
+ * http://www.espertech.com                                                           *
+ * ---------------------------------------------------------------------------------- *
+ * The software in this package is published under the terms of the GPL license       *
+ * a copy of which has been included with this distribution in the license.txt file.  *
+ **************************************************************************************/
+package com.espertech.esper.epl.join.base;
+
+import com.espertech.esper.client.EventBean;
+import com.espertech.esper.client.annotation.Hint;
+import com.espertech.esper.client.annotation.HintEnum;
+import com.espertech.esper.collection.MultiKey;
+import com.espertech.esper.collection.MultiKeyUntyped;
+import com.espertech.esper.core.context.util.EPStatementAgentInstanceHandle;
+import com.espertech.esper.core.service.ExceptionHandlingService;
+import com.espertech.esper.core.service.StatementAgentInstanceLock;
+import com.espertech.esper.core.service.StatementLockFactory;
+import com.espertech.esper.dispatch.DispatchService;
+import com.espertech.esper.epl.expression.ExprEvaluatorContext;
+import com.espertech.esper.epl.expression.ExprValidationException;
+import com.espertech.esper.epl.variable.VariableService;
+import com.espertech.esper.util.StopCallback;
+import com.espertech.esper.view.HistoricalEventViewable;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.lang.annotation.Annotation;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Join execution strategy for joins with historical streams that completes joins on a separate thread,
+ * so that polling historical data does not stall the thread processing events.
+ * <p>
+ * Threads of the engine-level historical join thread pool complete the joins of a statement one at a time,
+ * in the order the statement received the events. A statement submits at most one unit of work to the pool at a time,
+ * which completes a single join and resubmits if further joins are pending, so that statements share the pool threads.
+ * <p>
+ * For each join the thread first polls the historical streams ahead for the lookup keys of the events
+ * to join, without holding the statement lock. It then acquires the statement lock, performs the join which
+ * uses the poll results obtained ahead, and dispatches the join results to listeners and subscribers.
+ */
+public class JoinExecutionStrategyAsync implements JoinExecutionStrategy, StopCallback
+{
+    private static final Log log = LogFactory.getLog(JoinExecutionStrategyAsync.class);
+
+    private final JoinExecutionStrategy joinExecutionStrategy;
+    private final HistoricalEventViewable[] historicalPerStream;
+    private final EPStatementAgentInstanceHandle agentInstanceHandle;
+    private final StatementLockFactory statementLockFactory;
+    private final DispatchService dispatchService;
+    private final ExceptionHandlingService exceptionHandlingService;
+    private final VariableService variableService;
+    private final ExecutorService executorService;
+    private final ArrayDeque<Runnable> pending = new ArrayDeque<Runnable>();
+    private boolean isSubmitted;
+    private boolean isStopped;
+
+    /**
+     * Ctor.
+     * @param joinExecutionStrategy strategy performing the join
+     * @param historicalPerStream historical viewable per stream, or null for streams that are not historical
+     * @param agentInstanceHandle handle of the statement providing the statement lock
+     * @param statementLockFactory statement lock factory
+     * @param dispatchService for dispatching join results
+     * @param exceptionHandlingService for handling exceptions thrown by joins
+     * @param variableService for setting the variable version
+     * @param executorService engine-level thread pool for completing joins
+     */
+    public JoinExecutionStrategyAsync(JoinExecutionStrategy joinExecutionStrategy,
+                                      HistoricalEventViewable[] historicalPerStream,
+                                      EPStatementAgentInstanceHandle agentInstanceHandle,
+                                      StatementLockFactory statementLockFactory,
+                                      DispatchService dispatchService,
+                                      ExceptionHandlingService exceptionHandlingService,
+                                      VariableService variableService,
+                                      ExecutorService executorService)
+    {
+        this.joinExecutionStrategy = joinExecutionStrategy;
+        this.historicalPerStream = historicalPerStream;
+        this.agentInstanceHandle = agentInstanceHandle;
+        this.statementLockFactory = statementLockFactory;
+        this.dispatchService = dispatchService;
+        this.exceptionHandlingService = exceptionHandlingService;
+        this.variableService = variableService;
+        this.executorService = executorService;
+    }
+
+    /**
+     * Returns the number of concurrent polls per historical stream for joins completed asynchronously,
+     * or zero if the statement does not request asynchronous joins.
+     * @param annotations statement annotations
+     * @return number of concurrent polls
+     * @throws ExprValidationException if the hint value is invalid
+     */
+    public static int getNumConcurrentPolls(Annotation[] annotations) throws ExprValidationException
+    {
+        Hint hint = HintEnum.HISTORICAL_ASYNC.getHint(annotations);
+        if (hint == null)
+        {
+            return 0;
+        }
+
+        String hintValue = HintEnum.HISTORICAL_ASYNC.getHintAssignedValue(hint);
+        int numConcurrentPolls;
+        try
+        {
+            numConcurrentPolls = Integer.parseInt(hintValue.trim());
+        }
+        catch (RuntimeException ex)
+        {
+            numConcurrentPolls = 0;
+        }
+        if (numConcurrentPolls < 1)
+        {
+            throw new ExprValidationException("Hint '" + HintEnum.HISTORICAL_ASYNC + "' requires a positive number of concurrent polls as a parameter, received '" + hintValue + "'");
+        }
+        return numConcurrentPolls;
+    }
+
+    public void join(final EventBean[][] newDataPerStream, final EventBean[][] oldDataPerStream, final ExprEvaluatorContext exprEvaluatorContext)
+    {
+        Runnable work = new Runnable()
+        {
+            public void run()
+            {
+                process(newDataPerStream, oldDataPerStream, exprEvaluatorContext);
+            }
+        };
+        synchronized (pending)
+        {
+            if (isStopped)
+            {
+                return;
+            }
+            pending.add(work);
+            if (isSubmitted)
+            {
+                return;
+            }
+            isSubmitted = true;
+        }
+        submitNext();
+    }
+
+    public Set<MultiKey<EventBean>> staticJoin()
+    {
+        return joinExecutionStrategy.staticJoin();
+    }
+
+    public void stop()
+    {
+        synchronized (pending)
+        {
+            isStopped = true;
+            pending.clear();
+        }
+    }
+
+    // Submits a unit of work completing the next pending join, the caller having marked the statement as submitted
+    private void submitNext()
+    {
+        try
+        {
+            executorService.submit(new Runnable()
+            {
+                public void run()
+                {
+                    runNext();
+                }
+            });
+        }
+        catch (RejectedExecutionException ex)
+        {
+            log.debug("Join not completed as the engine has been destroyed");
+            synchronized (pending)
+            {
+                pending.clear();
+                isSubmitted = false;
+            }
+        }
+    }
+
+    private void runNext()
+    {
+        Runnable work;
+        synchronized (pending)
+        {
+            work = pending.poll();
+        }
+
+        try
+        {
+            if (work != null)
+            {
+                work.run();
+            }
+        }
+        finally
+        {
+            boolean hasPending;
+            synchronized (pending)
+            {
+                hasPending = !pending.isEmpty();
+                if (!hasPending)
+                {
+                    isSubmitted = false;
+                }
+            }
+            if (hasPending)
+            {
+                submitNext();
+            }
+        }
+    }
+
+    private void process(EventBean[][] newDataPerStream, EventBean[][] oldDataPerStream, ExprEvaluatorContext exprEvaluatorContext)
+    {
+        // poll ahead without holding the statement lock, if polling ahead fails the join polls instead
+        List<MultiKeyUntyped>[] prefetchedKeys = null;
+        try
+        {
+            // lookup key expressions may use variables
+            if (agentInstanceHandle.isHasVariables())
+            {
+                variableService.setLocalVersion();
+            }
+            prefetchedKeys = prefetch(newDataPerStream, oldDataPerStream, exprEvaluatorContext);
+        }
+        catch (RuntimeException ex)
+        {
+            log.warn("Failed to poll historical data ahead of join: " + ex.getMessage(), ex);
+        }
+
+        StatementAgentInstanceLock statementLock = agentInstanceHandle.getStatementAgentInstanceLock();
+        statementLock.acquireWriteLock(statementLockFactory);
+        try
+        {
+            if (!agentInstanceHandle.isDestroyed())
+            {
+                if (agentInstanceHandle.isHasVariables())
+                {
+                    variableService.setLocalVersion();
+                }
+                joinExecutionStrategy.join(newDataPerStream, oldDataPerStream, exprEvaluatorContext);
+            }
+        }
+        catch (RuntimeException ex)
+        {
+            exceptionHandlingService.handleException(ex, agentInstanceHandle);
+        }
+        finally
+        {
+            statementLock.releaseWriteLock(statementLockFactory);
+            release(prefetchedKeys);
+        }
+
+        try
+        {
+            dispatchService.dispatch();
+        }
+        catch (RuntimeException ex)
+        {
+            log.error("Unexpected exception dispatching join results: " + ex.getMessage(), ex);
+        }
+    }
+
+    private List<MultiKeyUntyped>[] prefetch(EventBean[][] newDataPerStream, EventBean[][] oldDataPerStream, ExprEvaluatorContext exprEvaluatorContext)
+    {
+        List<MultiKeyUntyped>[] prefetchedKeys = new List[historicalPerStream.length];
+        for (int stream = 0; stream < historicalPerStream.length; stream++)
+        {
+            HistoricalEventViewable historical = historicalPerStream[stream];
+            if (historical == null)
+            {
+                continue;
+            }
+
+            // lookup keys that depend on multiple streams are only known when joining
+            SortedSet<Integer> requiredStreams = historical.getRequiredStreams();
+            EventBean[][] lookupRows;
+            if (requiredStreams.isEmpty())
+            {
+                lookupRows = new EventBean[1][historicalPerStream.length];
+            }
+            else if (requiredStreams.size() == 1)
+            {
+                int requiredStream = requiredStreams.first();
+                lookupRows = makeLookupRows(requiredStream, newDataPerStream[requiredStream], oldDataPerStream[requiredStream]);
+            }
+            else
+            {
+                continue;
+            }
+
+            if (lookupRows.length != 0)
+            {
+                prefetchedKeys[stream] = historical.prefetch(lookupRows, exprEvaluatorContext);
+            }
+        }
+        return prefetchedKeys;
+    }
+
+    private EventBean[][] makeLookupRows(int stream, EventBean[] newData, EventBean[] oldData)
+    {
+        int numNew = newData == null ? 0 : newData.length;
+        int numOld = oldData == null ? 0 : oldData.length;
+        EventBean[][] lookupRows = new EventBean[numNew + numOld][];
+        for (int i = 0; i < numNew; i++)
+        {
+            lookupRows[i] = new EventBean[historicalPerStream.length];
+            lookupRows[i][stream] = newData[i];
+        }
+        for (int i = 0; i < numOld; i++)
+        {
+            lookupRows[numNew + i] = new EventBean[historicalPerStream.length];
+            lookupRows[numNew + i][stream] = oldData[i];
+        }
+        return lookupRows;
+    }
+
+    private void release(List<MultiKeyUntyped>[] prefetchedKeys)
+    {
+        if (prefetchedKeys == null)
+        {
+            return;
+        }
+        for (int stream = 0; stream < prefetchedKeys.length; stream++)
+        {
+            if (prefetchedKeys[stream] != null)
+            {
+                historicalPerStream[stream].releasePrefetched(prefetchedKeys[stream]);
+            }
+        }
+    }
+}
@@ -0,0 +1,196 @@
+/**************************************************************************************
+ * Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ * http://esper.codehaus.org                                                          *
+ * http://www.espertech.com                                                           *
+ * ---------------------------------------------------------------------------------- *
+ * The software in this package is published under the terms of the GPL license       *
+ * a copy of which has been included with this distribution in the license.txt file.  *
+ **************************************************************************************/
+package com.espertech.esper.epl.join.base;
+
+import com.espertech.esper.client.EventBean;
+import com.espertech.esper.client.EventType;
+import com.espertech.esper.collection.MultiKey;
+import com.espertech.esper.collection.UniformPair;
+import com.espertech.esper.epl.expression.ExprEvaluatorContext;
+import com.espertech.esper.epl.join.exec.base.ExecNode;
+import com.espertech.esper.epl.join.plan.*;
+import com.espertech.esper.epl.join.table.EventTable;
+import com.espertech.esper.epl.join.table.HistoricalStreamIndexList;
+import com.espertech.esper.epl.virtualdw.VirtualDWView;
+import com.espertech.esper.util.AuditPath;
+import com.espertech.esper.view.Viewable;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.lang.annotation.Annotation;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Join set composer for inner joins of 3 or more streams that re-plans the order of lookups
+ * based on the statistics of the indexes of each stream.
+ * <p>
+ * Every given number of join executions, and after initialization, the composer takes a snapshot of the
+ * statistics of all indexes. If the statistics drifted since the last planning, the composer
+ * computes for each stream the chain of lookups with the lowest estimated cost, and replaces the query strategy
+ * of the stream if the chain differs from the current chain and the estimated cost is sufficiently lower.
+ * <p>
+ * Re-planning only chooses between lookups into the indexes that were built for the statement. All indexes built
+ * for the join are therefore retained, and not only those used by the initial query plan.
+ */
+public class JoinSetComposerAdaptiveImpl extends JoinSetComposerImpl
+{
+    private static final Log log = LogFactory.getLog(JoinSetComposerAdaptiveImpl.class);
+    private static final Log queryPlanLog = LogFactory.getLog(AuditPath.QUERYPLAN_LOG);
+
+    /**
+     * Ratio of the estimated cost of a new chain to the estimated cost of the current chain below which
+     * the chain is replaced, so that chains of similar cost do not alternate.
+     */
+    protected static final double REPLAN_COST_RATIO = 0.5;
+
+    private final String statementName;
+    private final String statementId;
+    private final Annotation[] annotations;
+    private final Map<String, EventTable>[] indexesPerStream;
+    private final EventType[] streamTypes;
+    private final Viewable[] streamViews;
+    private final VirtualDWView[] viewExternal;
+    private final QueryGraph queryGraph;
+    private final QueryPlanIndex[] indexSpecs;
+    private final QueryPlanNode[] planNodes;
+    private final int[][] chains;
+    private final int replanInterval;
+    private final boolean queryPlanLogging;
+
+    private QueryPlanStatistics planStatistics;
+    private int numJoinsSincePlanCheck;
+
+    /**
+     * Ctor.
+     * @param statementName statement name
+     * @param statementId statement id
+     * @param annotations statement annotations
+     * @param indexesPerStream for each stream the indexes by index name
+     * @param queryStrategies for each stream a strategy to execute the join
+     * @param exprEvaluatorContext expression evaluation context
+     * @param joinRemoveStream true to join the remove stream
+     * @param streamTypes event types for each stream
+     * @param streamViews viewable for each stream
+     * @param viewExternal virtual data window per stream, if any
+     * @param queryGraph navigability between streams
+     * @param indexSpecs index specifications per stream, for the indexes of each stream
+     * @param planNodes for each stream the current query plan, a stream being re-planned if its plan is a nested iteration
+     * @param replanInterval number of join executions between checks of statistics
+     * @param queryPlanLogging true to log re-planning to the query plan log
+     */
+    public JoinSetComposerAdaptiveImpl(String statementName,
+                                       String statementId,
+                                       Annotation[] annotations,
+                                       Map<String, EventTable>[] indexesPerStream,
+                                       QueryStrategy[] queryStrategies,
+                                       ExprEvaluatorContext exprEvaluatorContext,
+                                       boolean joinRemoveStream,
+                                       EventType[] streamTypes,
+                                       Viewable[] streamViews,
+                                       VirtualDWView[] viewExternal,
+                                       QueryGraph queryGraph,
+                                       QueryPlanIndex[] indexSpecs,
+                                       QueryPlanNode[] planNodes,
+                                       int replanInterval,
+                                       boolean queryPlanLogging)
+    {
+        super(indexesPerStream, queryStrategies, false, exprEvaluatorContext, joinRemoveStream);
+        this.statementName = statementName;
+        this.statementId = statementId;
+        this.annotations = annotations;
+        this.indexesPerStream = indexesPerStream;
+        this.streamTypes = streamTypes;
+        this.streamViews = streamViews;
+        this.viewExternal = viewExternal;
+        this.queryGraph = queryGraph;
+        this.indexSpecs = indexSpecs;
+        this.planNodes = planNodes;
+        this.chains = new int[planNodes.length][];
+        for (int i = 0; i < planNodes.length; i++)
+        {
+            if (planNodes[i] instanceof NestedIterationNode)
+            {
+                chains[i] = ((NestedIterationNode) planNodes[i]).getNestingOrder();
+            }
+        }
+        this.replanInterval = replanInterval;
+        this.queryPlanLogging = queryPlanLogging;
+    }
+
+    public void init(EventBean[][] eventsPerStream)
+    {
+        super.init(eventsPerStream);
+        replanIfDrifted();
+    }
+
+    public UniformPair<Set<MultiKey<EventBean>>> join(EventBean[][] newDataPerStream, EventBean[][] oldDataPerStream, ExprEvaluatorContext exprEvaluatorContext)
+    {
+        numJoinsSincePlanCheck++;
+        if (numJoinsSincePlanCheck >= replanInterval)
+        {
+            numJoinsSincePlanCheck = 0;
+            replanIfDrifted();
+        }
+        return super.join(newDataPerStream, oldDataPerStream, exprEvaluatorContext);
+    }
+
+    /**
+     * Returns for each stream the current query plan.
+     * @return query plan per stream
+     */
+    public QueryPlanNode[] getPlanNodes()
+    {
+        return planNodes;
+    }
+
+    private void replanIfDrifted()
+    {
+        QueryPlanStatistics statistics = QueryPlanStatistics.snapshot(indexesPerStream);
+        if (planStatistics != null && !statistics.isDrifted(planStatistics))
+        {
+            return;
+        }
+        planStatistics = statistics;
+
+        for (int stream = 0; stream < chains.length; stream++)
+        {
+            if (chains[stream] == null)
+            {
+                continue;
+            }
+
+            double currentCost = QueryPlanCostModel.estimateCost(stream, chains[stream], queryGraph, indexSpecs, statistics);
+            NStreamQueryPlanBuilder.BestChainResult best = NStreamQueryPlanBuilder.computeLeastCostPath(stream, queryGraph, indexSpecs, streamTypes, statistics);
+            if (currentCost < 0 || best == null || Arrays.equals(best.getChain(), chains[stream]) || best.getCost() >= currentCost * REPLAN_COST_RATIO)
+            {
+                continue;
+            }
+
+            HistoricalStreamIndexList[] historicalStreamIndexLists = new HistoricalStreamIndexList[streamTypes.length];
+            QueryPlanNode planNode = NStreamQueryPlanBuilder.createStreamPlan(stream, best.getChain(), queryGraph, indexSpecs, streamTypes,
+                    new boolean[streamTypes.length], historicalStreamIndexLists);
+            ExecNode executionNode = planNode.makeExec(statementName, statementId, annotations, indexesPerStream, streamTypes, streamViews, historicalStreamIndexLists, viewExternal);
+            queryStrategies[stream] = new ExecNodeQueryStrategy(stream, streamTypes.length, executionNode);
+            planNodes[stream] = planNode;
+
+            if (queryPlanLogging && queryPlanLog.isInfoEnabled()) {
+                queryPlanLog.info("Join re-plan for stream " + stream + " changes chain " + Arrays.toString(chains[stream]) + " estimated cost " + currentCost +
+                        " to chain " + Arrays.toString(best.getChain()) + " estimated cost " + best.getCost() + " for statistics " + statistics + "\n" +
+                        QueryPlanNode.print(planNodes));
+            }
+            if (log.isDebugEnabled())
+            {
+                log.debug(".replanIfDrifted Execution nodes for stream " + stream + " : \n" + ExecNode.print(executionNode));
+            }
+            chains[stream] = best.getChain();
+        }
+    }
+}
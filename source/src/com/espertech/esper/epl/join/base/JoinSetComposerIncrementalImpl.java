@@ -0,0 +1,243 @@
+/**************************************************************************************
+ * Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ * http://esper.codehaus.org                                                          *
+ * http://www.espertech.com                                                           *
+ * ---------------------------------------------------------------------------------- *
+ * The software in this package is published under the terms of the GPL license       *
+ * a copy of which has been included with this distribution in the license.txt file.  *
+ **************************************************************************************/
+package com.espertech.esper.epl.join.base;
+
+import com.espertech.esper.client.EventBean;
+import com.espertech.esper.collection.MultiKey;
+import com.espertech.esper.collection.UniformPair;
+import com.espertech.esper.epl.expression.ExprEvaluator;
+import com.espertech.esper.epl.expression.ExprEvaluatorContext;
+
+import java.util.*;
+
+/**
+ * Join set composer for inner joins that maintains the join result and computes the remove stream of the join
+ * from the maintained result, instead of joining the events removed from each stream.
+ * <p>
+ * The join result is kept as a multiset of result rows keyed by each event contributing to a row.
+ * When events leave a stream, for example when a batch window releases a batch, the rows that the events
+ * contribute to are taken from the maintained result, and only the events entering a stream are joined using the indexes.
+ * <p>
+ * The composer applies the post-join filter itself so that only rows passing the filter are maintained.
+ */
+public class JoinSetComposerIncrementalImpl implements JoinSetComposer
+{
+    private final JoinSetComposer composer;
+    private final ExprEvaluator postJoinFilterEvaluator;
+    private final ExprEvaluatorContext staticExprEvaluatorContext;
+    private final Map<EventBean, Set<MultiKey<EventBean>>>[] rowsPerEvent;
+    private final Set<MultiKey<EventBean>> oldResults = new LinkedHashSet<MultiKey<EventBean>>();
+    private boolean resultStale;
+
+    /**
+     * Ctor.
+     * @param composer composer that maintains the indexes and joins new data, and that does not join old data
+     * @param postJoinFilterEvaluator filter to apply to result rows, or null if none
+     * @param numStreams number of streams
+     * @param staticExprEvaluatorContext expression evaluation context for static evaluation (not for runtime eval)
+     */
+    public JoinSetComposerIncrementalImpl(JoinSetComposer composer, ExprEvaluator postJoinFilterEvaluator, int numStreams, ExprEvaluatorContext staticExprEvaluatorContext)
+    {
+        this.composer = composer;
+        this.postJoinFilterEvaluator = postJoinFilterEvaluator;
+        this.staticExprEvaluatorContext = staticExprEvaluatorContext;
+        this.rowsPerEvent = new Map[numStreams];
+        for (int i = 0; i < numStreams; i++)
+        {
+            rowsPerEvent[i] = new HashMap<EventBean, Set<MultiKey<EventBean>>>();
+        }
+    }
+
+    public void init(EventBean[][] eventsPerStream)
+    {
+        composer.init(eventsPerStream);
+
+        // the result for the initial events is built when next joining, when all streams have been initialized
+        for (EventBean[] events : eventsPerStream)
+        {
+            if ((events != null) && (events.length != 0))
+            {
+                resultStale = true;
+            }
+        }
+    }
+
+    public void destroy()
+    {
+        composer.destroy();
+        for (Map<EventBean, Set<MultiKey<EventBean>>> rows : rowsPerEvent)
+        {
+            rows.clear();
+        }
+    }
+
+    public UniformPair<Set<MultiKey<EventBean>>> join(EventBean[][] newDataPerStream, EventBean[][] oldDataPerStream, ExprEvaluatorContext exprEvaluatorContext)
+    {
+        if (resultStale)
+        {
+            rebuildResult(exprEvaluatorContext);
+        }
+
+        // rows that the old data contributes to
+        oldResults.clear();
+        for (int stream = 0; stream < oldDataPerStream.length; stream++)
+        {
+            if (oldDataPerStream[stream] != null)
+            {
+                for (EventBean oldEvent : oldDataPerStream[stream])
+                {
+                    removeRows(stream, oldEvent);
+                }
+            }
+        }
+        if (postJoinFilterEvaluator != null)
+        {
+            JoinSetFilter.filter(postJoinFilterEvaluator, oldResults, false, exprEvaluatorContext);
+        }
+
+        // join new data
+        Set<MultiKey<EventBean>> newResults = composer.join(newDataPerStream, oldDataPerStream, exprEvaluatorContext).getFirst();
+        if (postJoinFilterEvaluator != null)
+        {
+            JoinSetFilter.filter(postJoinFilterEvaluator, newResults, true, exprEvaluatorContext);
+        }
+
+        // An event that is new and old data at the same time joins as new data but is no longer in the indexes.
+        // Such rows are not maintained as there is no later old data that removes them.
+        Set<EventBean>[] removedNewEvents = null;
+        for (int stream = 0; stream < newDataPerStream.length; stream++)
+        {
+            if ((newDataPerStream[stream] != null) && (oldDataPerStream[stream] != null))
+            {
+                if (removedNewEvents == null)
+                {
+                    removedNewEvents = new Set[newDataPerStream.length];
+                }
+                removedNewEvents[stream] = new HashSet<EventBean>(Arrays.asList(oldDataPerStream[stream]));
+            }
+        }
+
+        for (MultiKey<EventBean> row : newResults)
+        {
+            if ((removedNewEvents == null) || (!isContainsRemoved(row, removedNewEvents)))
+            {
+                addRow(row);
+            }
+        }
+
+        return new UniformPair<Set<MultiKey<EventBean>>>(newResults, oldResults);
+    }
+
+    public Set<MultiKey<EventBean>> staticJoin()
+    {
+        Set<MultiKey<EventBean>> result = composer.staticJoin();
+        if (postJoinFilterEvaluator != null)
+        {
+            JoinSetFilter.filter(postJoinFilterEvaluator, result, true, staticExprEvaluatorContext);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of result rows maintained.
+     * @return number of rows
+     */
+    public int getNumRows()
+    {
+        int numRows = 0;
+        for (Set<MultiKey<EventBean>> rows : rowsPerEvent[0].values())
+        {
+            numRows += rows.size();
+        }
+        return numRows;
+    }
+
+    private void rebuildResult(ExprEvaluatorContext exprEvaluatorContext)
+    {
+        resultStale = false;
+        for (Map<EventBean, Set<MultiKey<EventBean>>> rows : rowsPerEvent)
+        {
+            rows.clear();
+        }
+
+        Set<MultiKey<EventBean>> result = composer.staticJoin();
+        if (postJoinFilterEvaluator != null)
+        {
+            JoinSetFilter.filter(postJoinFilterEvaluator, result, true, exprEvaluatorContext);
+        }
+        for (MultiKey<EventBean> row : result)
+        {
+            addRow(row);
+        }
+    }
+
+    private void addRow(MultiKey<EventBean> row)
+    {
+        for (int stream = 0; stream < rowsPerEvent.length; stream++)
+        {
+            EventBean theEvent = row.get(stream);
+            if (theEvent == null)
+            {
+                continue;
+            }
+            Set<MultiKey<EventBean>> rows = rowsPerEvent[stream].get(theEvent);
+            if (rows == null)
+            {
+                rows = new LinkedHashSet<MultiKey<EventBean>>();
+                rowsPerEvent[stream].put(theEvent, rows);
+            }
+            rows.add(row);
+        }
+    }
+
+    private void removeRows(int stream, EventBean oldEvent)
+    {
+        Set<MultiKey<EventBean>> rows = rowsPerEvent[stream].remove(oldEvent);
+        if (rows == null)
+        {
+            return;
+        }
+
+        for (MultiKey<EventBean> row : rows)
+        {
+            oldResults.add(row);
+
+            // remove the row from the rows of the other events contributing to it
+            for (int other = 0; other < rowsPerEvent.length; other++)
+            {
+                EventBean otherEvent = row.get(other);
+                if ((other == stream) || (otherEvent == null))
+                {
+                    continue;
+                }
+                Set<MultiKey<EventBean>> otherRows = rowsPerEvent[other].get(otherEvent);
+                if (otherRows != null)
+                {
+                    otherRows.remove(row);
+                    if (otherRows.isEmpty())
+                    {
+                        rowsPerEvent[other].remove(otherEvent);
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean isContainsRemoved(MultiKey<EventBean> row, Set<EventBean>[] removedEventsPerStream)
+    {
+        for (int stream = 0; stream < removedEventsPerStream.length; stream++)
+        {
+            if ((removedEventsPerStream[stream] != null) && (removedEventsPerStream[stream].contains(row.get(stream))))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+}
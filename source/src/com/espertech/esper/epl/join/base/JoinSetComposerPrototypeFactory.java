@@ -9,6 +9,7 @@
 package com.espertech.esper.epl.join.base;
 
 import com.espertech.esper.client.EventType;
+import com.espertech.esper.client.annotation.HintEnum;
 import com.espertech.esper.collection.Pair;
 import com.espertech.esper.core.service.StreamJoinAnalysisResult;
 import com.espertech.esper.epl.expression.ExprAndNodeImpl;
@@ -47,6 +48,7 @@ public class JoinSetComposerPrototypeFactory
      * @param optionalFilterNode - filter tree for analysis to build indexes for fast access
      * @param streamTypes - types of streams
      * @param streamNames - names of streams
+     * @param joinReplanInterval - number of join executions between re-planning checks, or zero for no re-planning
      * @return composer implementation
      * @throws ExprValidationException is thrown to indicate that
      * validation of view use in joins failed.
@@ -63,7 +65,8 @@ public class JoinSetComposerPrototypeFactory
                                                           HistoricalViewableDesc historicalViewableDesc,
                                                           ExprEvaluatorContext exprEvaluatorContext,
                                                           boolean selectsRemoveStream,
-                                                          boolean hasAggregations)
+                                                          boolean hasAggregations,
+                                                          int joinReplanInterval)
             throws ExprValidationException
     {
         // Determine if there is a historical stream, and what dependencies exist
@@ -126,24 +129,39 @@ public class JoinSetComposerPrototypeFactory
                 historicalViewableDesc, historicalDependencyGraph, historicalStreamIndexLists,
                 streamJoinAnalysisResult, queryPlanLogging, annotations, exprEvaluatorContext);
 
-        // remove unused indexes - consider all streams or all unidirectional
-        HashSet<String> usedIndexes = new HashSet<String>();
-        QueryPlanIndex[] indexSpecs = queryPlan.getIndexSpecs();
-        for (int streamNum = 0; streamNum < queryPlan.getExecNodeSpecs().length; streamNum++) {
-            QueryPlanNode planNode = queryPlan.getExecNodeSpecs()[streamNum];
-            if (planNode != null) {
-                planNode.addIndexes(usedIndexes);
+        // inner joins of 3 or more streams planned as nested iteration may re-plan the lookup order, and retain all indexes for that purpose
+        QueryGraph replanQueryGraph = null;
+        if (joinReplanInterval > 0 && streamTypes.length > 2 && !historicalViewableDesc.isHasHistorical() &&
+            !streamJoinAnalysisResult.isUnidirectional() && !streamJoinAnalysisResult.isPureSelfJoin() && !isOuterJoins) {
+            replanQueryGraph = queryGraph;
+            for (QueryPlanNode planNode : queryPlan.getExecNodeSpecs()) {
+                if (!(planNode instanceof NestedIterationNode)) {
+                    replanQueryGraph = null;
+                    break;
+                }
             }
         }
-        for (QueryPlanIndex indexSpec : indexSpecs) {
-            if (indexSpec == null) {
-                continue;
+
+        // remove unused indexes - consider all streams or all unidirectional
+        QueryPlanIndex[] indexSpecs = queryPlan.getIndexSpecs();
+        if (replanQueryGraph == null) {
+            HashSet<String> usedIndexes = new HashSet<String>();
+            for (int streamNum = 0; streamNum < queryPlan.getExecNodeSpecs().length; streamNum++) {
+                QueryPlanNode planNode = queryPlan.getExecNodeSpecs()[streamNum];
+                if (planNode != null) {
+                    planNode.addIndexes(usedIndexes);
+                }
             }
-            Map<String, QueryPlanIndexItem> items = indexSpec.getItems();
-            String[] indexNames = items.keySet().toArray(new String[items.size()]);
-            for (String indexName : indexNames) {
-                if (!usedIndexes.contains(indexName)) {
-                    items.remove(indexName);
+            for (QueryPlanIndex indexSpec : indexSpecs) {
+                if (indexSpec == null) {
+                    continue;
+                }
+                Map<String, QueryPlanIndexItem> items = indexSpec.getItems();
+                String[] indexNames = items.keySet().toArray(new String[items.size()]);
+                for (String indexName : indexNames) {
+                    if (!usedIndexes.contains(indexName)) {
+                        items.remove(indexName);
+                    }
                 }
             }
         }
@@ -157,7 +175,15 @@ public class JoinSetComposerPrototypeFactory
             }
         }
 
+        // inner joins that require the remove stream may maintain the join result to compute the remove stream
         boolean joinRemoveStream = selectsRemoveStream || hasAggregations;
+        boolean incrementalJoin = joinRemoveStream && HintEnum.INCREMENTAL_JOIN.getHint(annotations) != null &&
+                !historicalViewableDesc.isHasHistorical() && !streamJoinAnalysisResult.isUnidirectional() &&
+                !streamJoinAnalysisResult.isPureSelfJoin() && !isOuterJoins;
+        if (queryPlanLogging && queryPlanLog.isInfoEnabled() && HintEnum.INCREMENTAL_JOIN.getHint(annotations) != null) {
+            queryPlanLog.info("Incremental join " + (incrementalJoin ? "enabled" : "not applicable"));
+        }
+
         return new JoinSetComposerPrototypeImpl(statementName,
                                                 statementId,
                                                 outerJoinDescList,
@@ -172,7 +198,11 @@ public class JoinSetComposerPrototypeFactory
                                                 queryPlan,
                                                 historicalStreamIndexLists,
                                                 joinRemoveStream,
-                                                isOuterJoins);
+                                                isOuterJoins,
+                                                replanQueryGraph,
+                                                joinReplanInterval,
+                                                queryPlanLogging,
+                                                incrementalJoin);
     }
 
     private static JoinSetComposerPrototype makeComposerHistorical2Stream(List<OuterJoinDesc> outerJoinDescList,
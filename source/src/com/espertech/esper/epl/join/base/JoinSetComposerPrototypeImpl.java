@@ -16,6 +16,7 @@ import com.espertech.esper.client.EventType;
 import com.espertech.esper.core.service.StreamJoinAnalysisResult;
 import com.espertech.esper.epl.expression.*;
 import com.espertech.esper.epl.join.exec.base.ExecNode;
+import com.espertech.esper.epl.join.plan.QueryGraph;
 import com.espertech.esper.epl.join.plan.QueryPlan;
 import com.espertech.esper.epl.join.plan.QueryPlanIndex;
 import com.espertech.esper.epl.join.plan.QueryPlanIndexItem;
@@ -51,6 +52,10 @@ public class JoinSetComposerPrototypeImpl implements JoinSetComposerPrototype {
     private final HistoricalStreamIndexList[] historicalStreamIndexLists;
     private final boolean joinRemoveStream;
     private final boolean isOuterJoins;
+    private final QueryGraph replanQueryGraph;
+    private final int joinReplanInterval;
+    private final boolean queryPlanLogging;
+    private final boolean incrementalJoin;
 
     public JoinSetComposerPrototypeImpl(String statementName,
                                         String statementId,
@@ -66,7 +71,11 @@ public class JoinSetComposerPrototypeImpl implements JoinSetComposerPrototype {
                                         QueryPlan queryPlan,
                                         HistoricalStreamIndexList[] historicalStreamIndexLists,
                                         boolean joinRemoveStream,
-                                        boolean isOuterJoins) {
+                                        boolean isOuterJoins,
+                                        QueryGraph replanQueryGraph,
+                                        int joinReplanInterval,
+                                        boolean queryPlanLogging,
+                                        boolean incrementalJoin) {
         this.statementName = statementName;
         this.statementId = statementId;
         this.outerJoinDescList = outerJoinDescList;
@@ -82,6 +91,10 @@ public class JoinSetComposerPrototypeImpl implements JoinSetComposerPrototype {
         this.historicalStreamIndexLists = historicalStreamIndexLists;
         this.joinRemoveStream = joinRemoveStream;
         this.isOuterJoins = isOuterJoins;
+        this.replanQueryGraph = replanQueryGraph;
+        this.joinReplanInterval = joinReplanInterval;
+        this.queryPlanLogging = queryPlanLogging;
+        this.incrementalJoin = incrementalJoin;
     }
 
     public JoinSetComposerDesc create(Viewable[] streamViews, boolean isFireAndForget) {
@@ -139,6 +152,7 @@ public class JoinSetComposerPrototypeImpl implements JoinSetComposerPrototype {
             (!streamJoinAnalysisResult.isPureSelfJoin() || !outerJoinDescList.isEmpty()))
         {
             JoinSetComposer composer;
+            boolean composerJoinRemoveStream = joinRemoveStream && !incrementalJoin;
             if (historicalViewableDesc.isHasHistorical())
             {
                 composer = new JoinSetComposerHistoricalImpl(indexesPerStream, queryStrategies, streamViews, exprEvaluatorContext);
@@ -148,8 +162,12 @@ public class JoinSetComposerPrototypeImpl implements JoinSetComposerPrototype {
                 if (isFireAndForget) {
                     composer = new JoinSetComposerFAFImpl(indexesPerStream, queryStrategies, streamJoinAnalysisResult.isPureSelfJoin(), exprEvaluatorContext, joinRemoveStream, isOuterJoins);
                 }
+                else if (replanQueryGraph != null) {
+                    composer = new JoinSetComposerAdaptiveImpl(statementName, statementId, annotations, indexesPerStream, queryStrategies, exprEvaluatorContext, composerJoinRemoveStream,
+                            streamTypes, streamViews, streamJoinAnalysisResult.getViewExternal(), replanQueryGraph, indexSpecs, queryExecSpecs.clone(), joinReplanInterval, queryPlanLogging);
+                }
                 else {
-                    composer = new JoinSetComposerImpl(indexesPerStream, queryStrategies, streamJoinAnalysisResult.isPureSelfJoin(), exprEvaluatorContext, joinRemoveStream);
+                    composer = new JoinSetComposerImpl(indexesPerStream, queryStrategies, streamJoinAnalysisResult.isPureSelfJoin(), exprEvaluatorContext, composerJoinRemoveStream);
                 }
             }
 
@@ -157,6 +175,12 @@ public class JoinSetComposerPrototypeImpl implements JoinSetComposerPrototype {
             ExprNode filterExpression = getFilterExpressionInclOnClause(optionalFilterNode, outerJoinDescList);
 
             ExprEvaluator postJoinEval = filterExpression == null ? null : filterExpression.getExprEvaluator();
+
+            // the incremental join maintains the filtered join result, and applies the post-join filter itself
+            if (incrementalJoin && !isFireAndForget) {
+                composer = new JoinSetComposerIncrementalImpl(composer, postJoinEval, streamTypes.length, exprEvaluatorContext);
+                postJoinEval = null;
+            }
             joinSetComposerDesc = new JoinSetComposerDesc(composer, postJoinEval);
         }
         else
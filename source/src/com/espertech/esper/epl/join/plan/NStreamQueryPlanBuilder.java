@@ -190,7 +190,7 @@ public class NStreamQueryPlanBuilder
      * @param historicalStreamIndexLists - index management, populated for the query plan
      * @return NestedIterationNode with lookups attached underneath
      */
-    protected static QueryPlanNode createStreamPlan(int lookupStream, int[] bestChain, QueryGraph queryGraph,
+    public static QueryPlanNode createStreamPlan(int lookupStream, int[] bestChain, QueryGraph queryGraph,
                                                     QueryPlanIndex[] indexSpecsPerStream, EventType[] typesPerStream,
                                                     boolean[] isHistorical, HistoricalStreamIndexList[] historicalStreamIndexLists)
     {
@@ -387,6 +387,147 @@ public class NStreamQueryPlanBuilder
         return new BestChainResult(bestDepth, bestPermutation);
     }
 
+    /**
+     * Compute the chain of lookups for the lookup stream that has the lowest estimated cost according to
+     * {@link QueryPlanCostModel}, among the chains in which each stream can be looked up via one of the indexes
+     * specified. Among chains of equal cost the first chain in permutation order is returned.
+     * <p>
+     * For use in re-planning a join based on statistics, after its indexes have been built, therefore
+     * only chains that do not require additional indexes or a change of index coercion types qualify.
+     * Does not support historical streams.
+     *
+     * @param lookupStream - stream to start look up
+     * @param queryGraph - navigability between streams
+     * @param indexSpecs - specifications of the indexes available for each stream
+     * @param typesPerStream - event types for each stream
+     * @param statistics - statistics of the streams and indexes
+     * @return chain and estimated cost, or null if no chain qualifies or the cost cannot be estimated
+     */
+    public static BestChainResult computeLeastCostPath(int lookupStream, QueryGraph queryGraph, QueryPlanIndex[] indexSpecs,
+                                                       EventType[] typesPerStream, QueryPlanStatistics statistics)
+    {
+        int[] defNestingorder = buildDefaultNestingOrder(queryGraph.getNumStreams(), lookupStream);
+        Enumeration<int[]> streamEnum;
+        if (defNestingorder.length < 6) {
+            streamEnum = new NumberSetPermutationEnumeration(defNestingorder);
+        }
+        else {
+            streamEnum = new NumberSetShiftGroupEnumeration(defNestingorder);
+        }
+
+        // whether a stream can look up in another stream is independent of the permutation
+        int numStreams = queryGraph.getNumStreams();
+        Boolean[][] indexedLookup = new Boolean[numStreams][numStreams];
+
+        BestChainResult best = null;
+        while(streamEnum.hasMoreElements())
+        {
+            int[] permutation = streamEnum.nextElement();
+
+            boolean pass = true;
+            int currentStream = lookupStream;
+            for (int nextStream : permutation)
+            {
+                if (indexedLookup[currentStream][nextStream] == null)
+                {
+                    indexedLookup[currentStream][nextStream] = isIndexedLookup(currentStream, nextStream, queryGraph, indexSpecs, typesPerStream);
+                }
+                if (!indexedLookup[currentStream][nextStream])
+                {
+                    pass = false;
+                    break;
+                }
+                currentStream = nextStream;
+            }
+            if (!pass)
+            {
+                continue;
+            }
+
+            double cost = QueryPlanCostModel.estimateCost(lookupStream, permutation, queryGraph, indexSpecs, statistics);
+            if (cost < 0)
+            {
+                return null;
+            }
+            if (best == null || cost < best.getCost())
+            {
+                best = new BestChainResult(permutation.length, permutation, cost);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns true if the lookup stream can look up in the indexed stream via an index of the index specification,
+     * without changing the coercion types of the index.
+     * @param lookupStream - stream to use key values from
+     * @param indexedStream - stream to look up in
+     * @param queryGraph - navigability between streams
+     * @param indexSpecs - specifications of the indexes available for each stream
+     * @param typesPerStream - event types for each stream
+     * @return indicator
+     */
+    protected static boolean isIndexedLookup(int lookupStream, int indexedStream, QueryGraph queryGraph,
+                                             QueryPlanIndex[] indexSpecs, EventType[] typesPerStream)
+    {
+        QueryPlanIndex indexSpec = indexSpecs[indexedStream];
+        if (indexSpec == null)
+        {
+            return false;
+        }
+        QueryGraphValue queryGraphValue = queryGraph.getGraphValue(lookupStream, indexedStream);
+        String[] hashIndexProps = queryGraphValue.getHashKeyProps().getIndexed();
+        List<QueryGraphValueEntryHashKeyed> hashKeys = queryGraphValue.getHashKeyProps().getKeys();
+        String[] rangeIndexProps = queryGraphValue.getRangeProps().getIndexed();
+        if (hashIndexProps.length == 0 && rangeIndexProps.length == 0)
+        {
+            return false;
+        }
+
+        Pair<String, int[]> pairIndexHashRewrite = indexSpec.getIndexNum(hashIndexProps, rangeIndexProps);
+        if (pairIndexHashRewrite == null)
+        {
+            return false;
+        }
+        if (pairIndexHashRewrite.getSecond() != null)
+        {
+            int[] indexes = pairIndexHashRewrite.getSecond();
+            String[] newHashIndexProps = new String[indexes.length];
+            List<QueryGraphValueEntryHashKeyed> newHashKeys = new ArrayList<QueryGraphValueEntryHashKeyed>();
+            for (int i = 0; i < indexes.length; i++) {
+                newHashIndexProps[i] = hashIndexProps[indexes[i]];
+                newHashKeys.add(hashKeys.get(indexes[i]));
+            }
+            hashIndexProps = newHashIndexProps;
+            hashKeys = newHashKeys;
+            rangeIndexProps = new String[0];
+        }
+
+        // same as the lookup plan, only keyed lookups may coerce
+        if (hashIndexProps.length == 0 || rangeIndexProps.length != 0)
+        {
+            return true;
+        }
+        CoercionDesc coercionTypes = CoercionUtil.getCoercionTypesHash(typesPerStream, lookupStream, indexedStream, hashKeys, hashIndexProps);
+        if (!coercionTypes.isCoerce())
+        {
+            return true;
+        }
+        Class[] existCoercionTypes = indexSpec.getCoercionTypes(hashIndexProps);
+        if (existCoercionTypes == null)
+        {
+            return false;
+        }
+        for (int i = 0; i < existCoercionTypes.length; i++)
+        {
+            if (JavaClassHelper.getCompareToCoercionType(existCoercionTypes[i], coercionTypes.getCoercionTypes()[i]) != existCoercionTypes[i])
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Determine if the proposed permutation of lookups passes dependencies
      * @param lookupStream stream to initiate
@@ -500,6 +641,7 @@ public class NStreamQueryPlanBuilder
     {
         private int depth;
         private int[] chain;
+        private double cost;
 
         /**
          * Ctor.
@@ -507,9 +649,21 @@ public class NStreamQueryPlanBuilder
          * @param chain - chain for nested lookup
          */
         public BestChainResult(int depth, int[] chain)
+        {
+            this(depth, chain, -1);
+        }
+
+        /**
+         * Ctor.
+         * @param depth - depth this chain resolves into a indexed lookup
+         * @param chain - chain for nested lookup
+         * @param cost - estimated cost of the chain, or -1 if not estimated
+         */
+        public BestChainResult(int depth, int[] chain, double cost)
         {
             this.depth = depth;
             this.chain = chain;
+            this.cost = cost;
         }
 
         /**
@@ -530,9 +684,18 @@ public class NStreamQueryPlanBuilder
             return chain;
         }
 
+        /**
+         * Returns the estimated cost of the chain.
+         * @return cost, or -1 if not estimated
+         */
+        public double getCost()
+        {
+            return cost;
+        }
+
         public String toString()
         {
-            return "depth=" + depth + " chain=" + Arrays.toString(chain);
+            return "depth=" + depth + " chain=" + Arrays.toString(chain) + " cost=" + cost;
         }
     }
 
@@ -64,6 +64,15 @@ public class NestedIterationNode extends QueryPlanNode
         return childNodes;
     }
 
+    /**
+     * Returns the order of streams in nested iteration.
+     * @return stream numbers
+     */
+    public int[] getNestingOrder()
+    {
+        return nestingOrder;
+    }
+
     public ExecNode makeExec(String statementName, String statementId, Annotation[] annotations, Map<String, EventTable>[] indexPerStream, EventType[] streamTypes, Viewable[] streamViews, HistoricalStreamIndexList[] historicalStreamIndexList, VirtualDWView[] viewExternal)
     {
         if (childNodes.isEmpty())
@@ -0,0 +1,112 @@
+/**************************************************************************************
+ * Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ * http://esper.codehaus.org                                                          *
+ * http://www.espertech.com                                                           *
+ * ---------------------------------------------------------------------------------- *
+ * The software in this package is published under the terms of the GPL license       *
+ * a copy of which has been included with this distribution in the license.txt file.  *
+ **************************************************************************************/
+package com.espertech.esper.epl.join.plan;
+
+import com.espertech.esper.collection.Pair;
+
+/**
+ * Estimates the cost of a chain of lookups of a join, using the number of events per stream and the
+ * number of distinct keys per index.
+ * <p>
+ * Starting with a single event of the lookup stream, each lookup in the chain is performed once
+ * for each combination of events produced by the lookups before it. The cost of a chain is the number of lookups
+ * plus the number of events returned by the lookups. The number of events returned by a lookup into a hash index is
+ * the number of events of the indexed stream divided by the number of keys of the index, assuming uniformly
+ * distributed keys, and a range lookup is assumed to return a fixed fraction of the events.
+ */
+public class QueryPlanCostModel
+{
+    /**
+     * Fraction of the events of a stream assumed to be returned by a range lookup.
+     */
+    public static final double RANGE_SELECTIVITY = 1d / 3;
+
+    /**
+     * Estimates the cost of a chain of lookups for one event of the lookup stream.
+     * @param lookupStream stream to start lookup for
+     * @param chain streams to look up in, in lookup order, each stream looked up by the stream before it
+     * @param queryGraph navigability between streams
+     * @param indexSpecs index specifications per stream
+     * @param statistics statistics of the streams and indexes
+     * @return estimated cost, or -1 if the statistics required for the estimate are not known
+     */
+    public static double estimateCost(int lookupStream, int[] chain, QueryGraph queryGraph, QueryPlanIndex[] indexSpecs, QueryPlanStatistics statistics)
+    {
+        double cost = 0;
+        double rows = 1;
+        int currentStream = lookupStream;
+        for (int indexedStream : chain)
+        {
+            double matches = estimateMatches(currentStream, indexedStream, queryGraph, indexSpecs[indexedStream], statistics);
+            if (matches < 0)
+            {
+                return -1;
+            }
+            cost += rows * (1 + matches);
+            rows *= matches;
+            currentStream = indexedStream;
+        }
+        return cost;
+    }
+
+    /**
+     * Estimates the number of events returned by a lookup of one event of a stream into another stream.
+     * @param lookupStream stream providing the lookup keys
+     * @param indexedStream stream to look up in
+     * @param queryGraph navigability between streams
+     * @param indexSpec index specification of the indexed stream, or null if none
+     * @param statistics statistics of the streams and indexes
+     * @return estimated number of events, or -1 if the statistics required for the estimate are not known
+     */
+    protected static double estimateMatches(int lookupStream, int indexedStream, QueryGraph queryGraph, QueryPlanIndex indexSpec, QueryPlanStatistics statistics)
+    {
+        int numEvents = statistics.getNumberOfEvents(indexedStream);
+        if (numEvents <= 0)
+        {
+            return numEvents;
+        }
+
+        QueryGraphValue queryGraphValue = queryGraph.getGraphValue(lookupStream, indexedStream);
+        String[] hashIndexProps = queryGraphValue.getHashKeyProps().getIndexed();
+        String[] rangeIndexProps = queryGraphValue.getRangeProps().getIndexed();
+        Pair<String, int[]> index = null;
+        if (indexSpec != null && (hashIndexProps.length != 0 || rangeIndexProps.length != 0))
+        {
+            index = indexSpec.getIndexNum(hashIndexProps, rangeIndexProps);
+        }
+
+        // full table scan
+        if (index == null)
+        {
+            return numEvents;
+        }
+
+        // redirected towards a unique index
+        if (index.getSecond() != null)
+        {
+            return 1;
+        }
+
+        double matches = numEvents;
+        if (hashIndexProps.length != 0)
+        {
+            int numKeys = statistics.getNumKeys(indexedStream, index.getFirst());
+            if (numKeys < 0)
+            {
+                return -1;
+            }
+            matches = numKeys == 0 ? 0 : matches / numKeys;
+        }
+        if (rangeIndexProps.length != 0)
+        {
+            matches *= RANGE_SELECTIVITY;
+        }
+        return matches;
+    }
+}
@@ -0,0 +1,148 @@
+/**************************************************************************************
+ * Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ * http://esper.codehaus.org                                                          *
+ * http://www.espertech.com                                                           *
+ * ---------------------------------------------------------------------------------- *
+ * The software in this package is published under the terms of the GPL license       *
+ * a copy of which has been included with this distribution in the license.txt file.  *
+ **************************************************************************************/
+package com.espertech.esper.epl.join.plan;
+
+import com.espertech.esper.epl.join.table.EventTable;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Snapshot of the number of events per stream and the number of distinct keys per index of a join,
+ * as input to the cost of a query plan.
+ */
+public class QueryPlanStatistics
+{
+    /**
+     * Factor by which a statistic must grow or shrink to be considered drifted.
+     */
+    protected static final int DRIFT_FACTOR = 2;
+
+    /**
+     * Minimum absolute change of a statistic to be considered drifted, so that small tables do not cause re-planning.
+     */
+    protected static final int DRIFT_MIN_CHANGE = 100;
+
+    private final int[] numberOfEvents;
+    private final Map<String, Integer>[] numKeysPerIndex;
+
+    /**
+     * Ctor.
+     * @param numberOfEvents number of events per stream, or -1 for a stream if not known
+     * @param numKeysPerIndex for each stream the number of keys per index name, or null for a stream without indexes
+     */
+    public QueryPlanStatistics(int[] numberOfEvents, Map<String, Integer>[] numKeysPerIndex)
+    {
+        this.numberOfEvents = numberOfEvents;
+        this.numKeysPerIndex = numKeysPerIndex;
+    }
+
+    /**
+     * Takes a snapshot of the statistics of the indexes of each stream.
+     * <p>
+     * The number of events of a stream is the largest number of events reported by any of the indexes of the stream.
+     * @param indexesPerStream indexes per stream by index name, a stream without indexes being null
+     * @return statistics
+     */
+    public static QueryPlanStatistics snapshot(Map<String, EventTable>[] indexesPerStream)
+    {
+        int[] numberOfEvents = new int[indexesPerStream.length];
+        Map<String, Integer>[] numKeysPerIndex = new Map[indexesPerStream.length];
+        for (int stream = 0; stream < indexesPerStream.length; stream++)
+        {
+            numberOfEvents[stream] = -1;
+            if (indexesPerStream[stream] == null)
+            {
+                continue;
+            }
+            numKeysPerIndex[stream] = new HashMap<String, Integer>();
+            for (Map.Entry<String, EventTable> entry : indexesPerStream[stream].entrySet())
+            {
+                numberOfEvents[stream] = Math.max(numberOfEvents[stream], entry.getValue().getNumberOfEvents());
+                numKeysPerIndex[stream].put(entry.getKey(), entry.getValue().getNumKeys());
+            }
+        }
+        return new QueryPlanStatistics(numberOfEvents, numKeysPerIndex);
+    }
+
+    /**
+     * Returns the number of events of a stream.
+     * @param stream stream number
+     * @return number of events, or -1 if not known
+     */
+    public int getNumberOfEvents(int stream)
+    {
+        return numberOfEvents[stream];
+    }
+
+    /**
+     * Returns the number of distinct keys of an index.
+     * @param stream stream number of the indexed stream
+     * @param indexName index name
+     * @return number of keys, or -1 if not known
+     */
+    public int getNumKeys(int stream, String indexName)
+    {
+        if (numKeysPerIndex[stream] == null)
+        {
+            return -1;
+        }
+        Integer numKeys = numKeysPerIndex[stream].get(indexName);
+        return numKeys == null ? -1 : numKeys;
+    }
+
+    /**
+     * Returns true if any statistic changed by more then the drift factor compared to the statistics provided.
+     * @param previous statistics to compare to, for the same streams and indexes
+     * @return indicator whether statistics drifted
+     */
+    public boolean isDrifted(QueryPlanStatistics previous)
+    {
+        for (int stream = 0; stream < numberOfEvents.length; stream++)
+        {
+            if (isDrifted(numberOfEvents[stream], previous.numberOfEvents[stream]))
+            {
+                return true;
+            }
+            if (numKeysPerIndex[stream] == null)
+            {
+                continue;
+            }
+            for (Map.Entry<String, Integer> entry : numKeysPerIndex[stream].entrySet())
+            {
+                if (isDrifted(entry.getValue(), previous.getNumKeys(stream, entry.getKey())))
+                {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    public String toString()
+    {
+        return "numberOfEvents=" + Arrays.toString(numberOfEvents) + " numKeysPerIndex=" + Arrays.toString(numKeysPerIndex);
+    }
+
+    private static boolean isDrifted(int value, int previous)
+    {
+        if (value == previous)
+        {
+            return false;
+        }
+        if (value < 0 || previous < 0)
+        {
+            return true;
+        }
+        int min = Math.min(value, previous);
+        int max = Math.max(value, previous);
+        return max - min >= DRIFT_MIN_CHANGE && max >= (long) min * DRIFT_FACTOR;
+    }
+}
@@ -64,5 +64,20 @@ public interface EventTable extends Iterable<EventBean>
      */
     public void clear();
 
+    /**
+     * Returns the number of events in the table, or -1 if the table does not track the number of events.
+     * <p>
+     * The number is a statistic for query planning and may be computed by visiting each key of the table.
+     * @return number of events, or -1 if not known
+     */
+    public int getNumberOfEvents();
+
+    /**
+     * Returns the number of distinct keys in the table, or the number of events for a table that has no keys,
+     * or -1 if not known.
+     * @return number of keys, or -1 if not known
+     */
+    public int getNumKeys();
+
     public String toQueryPlan();
 }
@@ -68,6 +68,16 @@ public class MultiIndexEventTable implements EventTable
         return tables[0].isEmpty();
     }
 
+    public int getNumberOfEvents()
+    {
+        return tables[0].getNumberOfEvents();
+    }
+
+    public int getNumKeys()
+    {
+        return tables[0].getNumKeys();
+    }
+
     public void clear()
     {
         for (int i = 0; i < tables.length; i++)
@@ -109,6 +109,16 @@ public class PropertyCompositeEventTable implements EventTable
         return index.isEmpty();
     }
 
+    public int getNumberOfEvents()
+    {
+        return -1;
+    }
+
+    public int getNumKeys()
+    {
+        return index.size();
+    }
+
     public Iterator<EventBean> iterator()
     {
         HashSet<EventBean> result = new LinkedHashSet<EventBean>();
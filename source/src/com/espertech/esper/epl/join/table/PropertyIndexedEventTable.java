@@ -139,6 +139,21 @@ public class PropertyIndexedEventTable implements EventTable
         return propertyIndex.isEmpty();
     }
 
+    public int getNumberOfEvents()
+    {
+        int count = 0;
+        for (Set<EventBean> events : propertyIndex.values())
+        {
+            count += events.size();
+        }
+        return count;
+    }
+
+    public int getNumKeys()
+    {
+        return propertyIndex.size();
+    }
+
     public Iterator<EventBean> iterator()
     {
         return new PropertyIndexedEventTableIterator<MultiKeyUntyped>(propertyIndex);
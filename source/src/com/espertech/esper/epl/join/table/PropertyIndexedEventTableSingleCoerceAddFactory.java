@@ -41,4 +41,9 @@ public class PropertyIndexedEventTableSingleCoerceAddFactory extends PropertyInd
     public EventTable makeEventTable() {
         return new PropertyIndexedEventTableSingleCoerceAdd(streamNum, propertyGetter, coercer, coercionType);
     }
+
+    @Override
+    public Class getEventTableClass() {
+        return PropertyIndexedEventTableSingleCoerceAdd.class;
+    }
 }
@@ -26,4 +26,9 @@ public class PropertyIndexedEventTableSingleCoerceAllFactory extends PropertyInd
     public EventTable makeEventTable() {
         return new PropertyIndexedEventTableSingleCoerceAll(streamNum, propertyGetter, coercer, coercionType);
     }
+
+    @Override
+    public Class getEventTableClass() {
+        return PropertyIndexedEventTableSingleCoerceAll.class;
+    }
 }
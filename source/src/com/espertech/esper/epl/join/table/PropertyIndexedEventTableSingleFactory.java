@@ -11,12 +11,15 @@ package com.espertech.esper.epl.join.table;
 import com.espertech.esper.client.EventPropertyGetter;
 import com.espertech.esper.client.EventType;
 import com.espertech.esper.event.EventBeanUtility;
+import com.espertech.esper.util.JavaClassHelper;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 /**
  * Index factory that organizes events by the event property values into hash buckets. Based on a HashMap
  * with {@link com.espertech.esper.collection.MultiKeyUntyped} keys that store the property values.
+ * <p>
+ * Non-unique indexes for properties of a numeric type use {@link PropertyIndexedEventTableSinglePrimitive}.
  */
 public class PropertyIndexedEventTableSingleFactory implements EventTableFactory
 {
@@ -26,6 +29,7 @@ public class PropertyIndexedEventTableSingleFactory implements EventTableFactory
     protected final String optionalIndexName;
 
     protected final EventPropertyGetter propertyGetter;
+    protected final Class primitiveKeyType;
 
     /**
      * Ctor.
@@ -41,12 +45,19 @@ public class PropertyIndexedEventTableSingleFactory implements EventTableFactory
 
         // Init getters
         propertyGetter = EventBeanUtility.getAssertPropertyGetter(eventType, propertyName);
+
+        // Numeric properties are indexed by primitive key
+        Class boxedType = JavaClassHelper.getBoxedType(eventType.getPropertyType(propertyName));
+        primitiveKeyType = PropertyIndexedEventTableSinglePrimitive.isSupportedType(boxedType) ? boxedType : null;
     }
 
     public EventTable makeEventTable() {
         if (unique) {
             return new PropertyIndexedEventTableSingleUnique(streamNum, propertyGetter, optionalIndexName);
         }
+        else if (primitiveKeyType != null) {
+            return new PropertyIndexedEventTableSinglePrimitive(streamNum, propertyGetter, primitiveKeyType);
+        }
         else {
             return new PropertyIndexedEventTableSingle(streamNum, propertyGetter);
         }
@@ -56,6 +67,9 @@ public class PropertyIndexedEventTableSingleFactory implements EventTableFactory
         if (unique) {
             return PropertyIndexedEventTableSingleUnique.class;
         }
+        else if (primitiveKeyType != null) {
+            return PropertyIndexedEventTableSinglePrimitive.class;
+        }
         else {
             return PropertyIndexedEventTableSingle.class;
         }
@@ -0,0 +1,319 @@
+/**************************************************************************************
+ * Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ * http://esper.codehaus.org                                                          *
+ * http://www.espertech.com                                                           *
+ * ---------------------------------------------------------------------------------- *
+ * The software in this package is published under the terms of the GPL license       *
+ * a copy of which has been included with this distribution in the license.txt file.  *
+ **************************************************************************************/
+package com.espertech.esper.epl.join.table;
+
+import com.espertech.esper.client.EventBean;
+import com.espertech.esper.client.EventPropertyGetter;
+import com.espertech.esper.collection.EventBeanArraySet;
+import com.espertech.esper.collection.LongObjectHashMap;
+import com.espertech.esper.collection.MixedEventBeanAndCollectionIteratorBase;
+import com.espertech.esper.collection.SuperIterator;
+
+import java.util.*;
+
+/**
+ * Index that organizes events by a numeric event property value into hash buckets, for properties
+ * of a boxed or primitive integral, double or float type.
+ * <p>
+ * Property values of the boxed type of the property are stored by a primitive long key in an open-addressing hash map,
+ * without allocating a map entry or boxed key per value. Each key refers to the single event for the key or,
+ * for multiple events, to an array-backed set that is replaced by a hash set when the number of events for
+ * the key becomes large.
+ * <p>
+ * Null values and values of any other type are kept in the regular HashMap of the base class,
+ * so that lookup results are the same as for {@link PropertyIndexedEventTableSingle}.
+ */
+public class PropertyIndexedEventTableSinglePrimitive extends PropertyIndexedEventTableSingle
+{
+    /**
+     * Number of events for a key after which events for the key are kept in a hash set.
+     */
+    protected static final int ARRAY_SET_MAX_SIZE = 16;
+
+    private final Class boxedType;
+    private final LongObjectHashMap<Object> primitiveIndex;
+
+    /**
+     * Ctor.
+     * @param streamNum stream number
+     * @param propertyGetter getter for the property value
+     * @param boxedType boxed type of the property, one of the types for which {@link #isSupportedType} returns true
+     */
+    public PropertyIndexedEventTableSinglePrimitive(int streamNum, EventPropertyGetter propertyGetter, Class boxedType)
+    {
+        super(streamNum, propertyGetter);
+        this.boxedType = boxedType;
+        this.primitiveIndex = new LongObjectHashMap<Object>();
+    }
+
+    /**
+     * Returns true if the table can index properties of the given boxed type.
+     * @param boxedType boxed property type
+     * @return indicator
+     */
+    public static boolean isSupportedType(Class boxedType)
+    {
+        return boxedType == Long.class || boxedType == Integer.class || boxedType == Short.class ||
+               boxedType == Byte.class || boxedType == Double.class || boxedType == Float.class;
+    }
+
+    public void add(EventBean[] events)
+    {
+        if (events == null)
+        {
+            return;
+        }
+        for (EventBean theEvent : events)
+        {
+            add(theEvent);
+        }
+    }
+
+    public void remove(EventBean[] events)
+    {
+        if (events == null)
+        {
+            return;
+        }
+        for (EventBean theEvent : events)
+        {
+            remove(theEvent);
+        }
+    }
+
+    public Set<EventBean> lookup(Object key)
+    {
+        if (key == null || key.getClass() != boxedType)
+        {
+            return propertyIndex.get(key);
+        }
+        return bucketToSet(primitiveIndex.get(toKey(key)));
+    }
+
+    private void add(EventBean theEvent)
+    {
+        Object value = getKey(theEvent);
+        if (value == null || value.getClass() != boxedType)
+        {
+            Set<EventBean> events = propertyIndex.get(value);
+            if (events == null)
+            {
+                events = new LinkedHashSet<EventBean>();
+                propertyIndex.put(value, events);
+            }
+            events.add(theEvent);
+            return;
+        }
+
+        long key = toKey(value);
+        Object entry = primitiveIndex.get(key);
+        Object updated = bucketAdd(entry, theEvent);
+        if (updated != entry)
+        {
+            primitiveIndex.put(key, updated);
+        }
+    }
+
+    private void remove(EventBean theEvent)
+    {
+        Object value = getKey(theEvent);
+        if (value == null || value.getClass() != boxedType)
+        {
+            Set<EventBean> events = propertyIndex.get(value);
+            if (events == null)
+            {
+                return;
+            }
+            if (events.remove(theEvent) && events.isEmpty())
+            {
+                propertyIndex.remove(value);
+            }
+            return;
+        }
+
+        long key = toKey(value);
+        Object entry = primitiveIndex.get(key);
+        if (entry == null)
+        {
+            return;
+        }
+        Object updated = bucketRemove(entry, theEvent);
+        if (updated == null)
+        {
+            primitiveIndex.remove(key);
+        }
+        else if (updated != entry)
+        {
+            primitiveIndex.put(key, updated);
+        }
+    }
+
+    /**
+     * Adds an event to the events for a key, the events for a key being held by a single event,
+     * an array-backed set or, for many events, by a hash set.
+     * @param entry events for the key or null for none
+     * @param theEvent to add
+     * @return events for the key, which is the same entry if the entry was updated in place
+     */
+    protected static Object bucketAdd(Object entry, EventBean theEvent)
+    {
+        if (entry == null)
+        {
+            return theEvent;
+        }
+        if (entry instanceof EventBeanArraySet)
+        {
+            EventBeanArraySet events = (EventBeanArraySet) entry;
+            if (events.size() < ARRAY_SET_MAX_SIZE)
+            {
+                events.add(theEvent);
+                return events;
+            }
+            Set<EventBean> grown = new LinkedHashSet<EventBean>(events);
+            grown.add(theEvent);
+            return grown;
+        }
+        if (entry instanceof LinkedHashSet)
+        {
+            ((Set<EventBean>) entry).add(theEvent);
+            return entry;
+        }
+        if (entry.equals(theEvent))
+        {
+            return entry;
+        }
+        return new EventBeanArraySet((EventBean) entry, theEvent);
+    }
+
+    /**
+     * Removes an event from the events for a key.
+     * @param entry events for the key, not null
+     * @param theEvent to remove
+     * @return events for the key, which is the same entry if the entry was updated in place, or null if no events remain
+     */
+    protected static Object bucketRemove(Object entry, EventBean theEvent)
+    {
+        if (!isEventSet(entry))
+        {
+            // Not finding the event is not an error, its possible that an old-data event is artificial (such as for statistics) and
+            // thus did not correspond to a new-data event raised earlier.
+            return entry.equals(theEvent) ? null : entry;
+        }
+        Set<EventBean> events = (Set<EventBean>) entry;
+        if (events.remove(theEvent) && events.size() == 1)
+        {
+            return events.iterator().next();
+        }
+        return entry;
+    }
+
+    /**
+     * Returns the events for a key as a set.
+     * @param entry events for the key or null for none
+     * @return set or null if the entry is null
+     */
+    protected static Set<EventBean> bucketToSet(Object entry)
+    {
+        if (entry == null)
+        {
+            return null;
+        }
+        if (isEventSet(entry))
+        {
+            return (Set<EventBean>) entry;
+        }
+        return Collections.singleton((EventBean) entry);
+    }
+
+    /**
+     * Returns true if the events for a key are held by a set, or false if held by a single event.
+     * <p>
+     * Tests the set classes rather than the event bean interface, as a failing instance-of test against an interface
+     * scans all interfaces of the class, which made lookups of keys with several events slower than lookups
+     * of the hash map based index.
+     * @param entry events for the key, not null
+     * @return indicator
+     */
+    protected static boolean isEventSet(Object entry)
+    {
+        return entry instanceof EventBeanArraySet || entry instanceof LinkedHashSet;
+    }
+
+    public boolean isEmpty()
+    {
+        return primitiveIndex.isEmpty() && propertyIndex.isEmpty();
+    }
+
+    public int getNumberOfEvents()
+    {
+        int count = super.getNumberOfEvents();
+        for (Iterator<Object> it = primitiveIndex.valueIterator(); it.hasNext();)
+        {
+            Object entry = it.next();
+            count += isEventSet(entry) ? ((Set) entry).size() : 1;
+        }
+        return count;
+    }
+
+    public int getNumKeys()
+    {
+        return primitiveIndex.size() + propertyIndex.size();
+    }
+
+    public Iterator<EventBean> iterator()
+    {
+        Iterator<EventBean> primitiveIterator = new PrimitiveIndexIterator(primitiveIndex.valueIterator());
+        if (propertyIndex.isEmpty())
+        {
+            return primitiveIterator;
+        }
+        return new SuperIterator<EventBean>(primitiveIterator, new PropertyIndexedEventTableIterator<Object>(propertyIndex));
+    }
+
+    public void clear()
+    {
+        primitiveIndex.clear();
+        propertyIndex.clear();
+    }
+
+    public String toQueryPlan() {
+        return this.getClass().getSimpleName() +
+                " streamNum=" + streamNum +
+                " propertyGetter=" + propertyGetter +
+                " type=" + boxedType.getSimpleName();
+    }
+
+    private long toKey(Object value)
+    {
+        // the bit patterns retain the equals-semantics of the boxed floating point types, including NaN and negative zero
+        if (boxedType == Double.class)
+        {
+            return Double.doubleToLongBits((Double) value);
+        }
+        if (boxedType == Float.class)
+        {
+            return Float.floatToIntBits((Float) value);
+        }
+        return ((Number) value).longValue();
+    }
+
+    private static class PrimitiveIndexIterator extends MixedEventBeanAndCollectionIteratorBase
+    {
+        private PrimitiveIndexIterator(Iterator<Object> valueIterator)
+        {
+            super(valueIterator);
+            init();
+        }
+
+        protected Object getValue(Object iteratorKeyValue)
+        {
+            return iteratorKeyValue;
+        }
+    }
+}
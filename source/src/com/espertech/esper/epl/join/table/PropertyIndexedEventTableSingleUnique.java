@@ -103,6 +103,16 @@ public class PropertyIndexedEventTableSingleUnique extends PropertyIndexedEventT
         return propertyIndex.isEmpty();
     }
 
+    public int getNumberOfEvents()
+    {
+        return propertyIndex.size();
+    }
+
+    public int getNumKeys()
+    {
+        return propertyIndex.size();
+    }
+
     @Override
     public Iterator<EventBean> iterator()
     {
@@ -122,6 +122,16 @@ public class PropertyIndexedEventTableUnique extends PropertyIndexedEventTable
         return propertyIndex.isEmpty();
     }
 
+    public int getNumberOfEvents()
+    {
+        return propertyIndex.size();
+    }
+
+    public int getNumKeys()
+    {
+        return propertyIndex.size();
+    }
+
     @Override
     public Iterator<EventBean> iterator()
     {
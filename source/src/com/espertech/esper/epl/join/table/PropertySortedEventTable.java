@@ -358,6 +358,21 @@ public class PropertySortedEventTable implements EventTable
         return propertyIndex.isEmpty();
     }
 
+    public int getNumberOfEvents()
+    {
+        int count = nullKeyedValues.size();
+        for (Set<EventBean> events : propertyIndex.values())
+        {
+            count += events.size();
+        }
+        return count;
+    }
+
+    public int getNumKeys()
+    {
+        return propertyIndex.size();
+    }
+
     public Iterator<EventBean> iterator()
     {
         if (nullKeyedValues.isEmpty()) {
@@ -34,6 +34,11 @@ public class PropertySortedEventTableCoercedFactory extends PropertySortedEventT
         return new PropertySortedEventTableCoerced(streamNum, propertyGetter, coercionType);
     }
 
+    @Override
+    public Class getEventTableClass() {
+        return PropertySortedEventTableCoerced.class;
+    }
+
     public String toString()
     {
         return "PropertySortedEventTableCoerced" +
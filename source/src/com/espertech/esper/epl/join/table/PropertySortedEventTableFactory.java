@@ -11,12 +11,15 @@ package com.espertech.esper.epl.join.table;
 import com.espertech.esper.client.EventPropertyGetter;
 import com.espertech.esper.client.EventType;
 import com.espertech.esper.event.EventBeanUtility;
+import com.espertech.esper.util.JavaClassHelper;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 /**
  * Index that organizes events by the event property values into a single TreeMap sortable non-nested index
  * with Object keys that store the property values.
+ * <p>
+ * Indexes for properties of a numeric type use {@link PropertySortedEventTablePrimitive}.
  */
 public class PropertySortedEventTableFactory implements EventTableFactory
 {
@@ -28,6 +31,8 @@ public class PropertySortedEventTableFactory implements EventTableFactory
      */
     protected final EventPropertyGetter propertyGetter;
 
+    protected final Class primitiveKeyType;
+
     /**
      * Ctor.
      * @param streamNum - the stream number that is indexed
@@ -38,13 +43,23 @@ public class PropertySortedEventTableFactory implements EventTableFactory
         this.streamNum = streamNum;
         this.propertyName = propertyName;
         propertyGetter = EventBeanUtility.getAssertPropertyGetter(eventType, propertyName);
+
+        // Numeric properties are indexed by primitive key
+        Class boxedType = JavaClassHelper.getBoxedType(eventType.getPropertyType(propertyName));
+        primitiveKeyType = PropertySortedEventTablePrimitive.isSupportedType(boxedType) ? boxedType : null;
     }
 
     public EventTable makeEventTable() {
+        if (primitiveKeyType != null) {
+            return new PropertySortedEventTablePrimitive(streamNum, propertyGetter, primitiveKeyType);
+        }
         return new PropertySortedEventTable(streamNum, propertyGetter);
     }
 
     public Class getEventTableClass() {
+        if (primitiveKeyType != null) {
+            return PropertySortedEventTablePrimitive.class;
+        }
         return PropertySortedEventTable.class;
     }
 
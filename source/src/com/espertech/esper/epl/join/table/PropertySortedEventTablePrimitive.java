@@ -0,0 +1,369 @@
+/**************************************************************************************
+ * Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ * http://esper.codehaus.org                                                          *
+ * http://www.espertech.com                                                           *
+ * ---------------------------------------------------------------------------------- *
+ * The software in this package is published under the terms of the GPL license       *
+ * a copy of which has been included with this distribution in the license.txt file.  *
+ **************************************************************************************/
+package com.espertech.esper.epl.join.table;
+
+import com.espertech.esper.client.EventBean;
+import com.espertech.esper.client.EventPropertyGetter;
+import com.espertech.esper.collection.LongObjectSkipList;
+import com.espertech.esper.collection.MixedEventBeanAndCollectionIteratorBase;
+import com.espertech.esper.collection.SuperIterator;
+import com.espertech.esper.epl.join.exec.base.RangeIndexLookupValue;
+import com.espertech.esper.epl.join.exec.base.RangeIndexLookupValueEquals;
+
+import java.util.*;
+
+/**
+ * Sorted index for properties of a boxed or primitive integral, double or float type, based on a skip list
+ * keyed by primitive long values.
+ * <p>
+ * Values of integral types are keyed by their long value. Values of floating point types are keyed by a long value
+ * obtained from the bits of the double value, such that the order of keys is the order of {@link Double#compareTo}.
+ * <p>
+ * Range lookups return sets that iterate the index from a cursor at the first key of the range,
+ * rather then collecting the events of the range into a new set.
+ */
+public class PropertySortedEventTablePrimitive extends PropertySortedEventTable
+{
+    private final boolean isFloatingPoint;
+    private final LongObjectSkipList<Object> sortedIndex;
+
+    /**
+     * Ctor.
+     * @param streamNum the stream number that is indexed
+     * @param propertyGetter getter for the property value
+     * @param boxedType boxed type of the property, one of the types for which {@link #isSupportedType} returns true
+     */
+    public PropertySortedEventTablePrimitive(int streamNum, EventPropertyGetter propertyGetter, Class boxedType)
+    {
+        super(streamNum, propertyGetter);
+        this.isFloatingPoint = boxedType == Double.class || boxedType == Float.class;
+        this.sortedIndex = new LongObjectSkipList<Object>();
+    }
+
+    /**
+     * Returns true if the table can index properties of the given boxed type.
+     * @param boxedType boxed property type
+     * @return indicator
+     */
+    public static boolean isSupportedType(Class boxedType)
+    {
+        return PropertyIndexedEventTableSinglePrimitive.isSupportedType(boxedType);
+    }
+
+    public void add(EventBean[] events)
+    {
+        if (events == null)
+        {
+            return;
+        }
+        for (EventBean theEvent : events)
+        {
+            add(theEvent);
+        }
+    }
+
+    public void remove(EventBean[] events)
+    {
+        if (events == null)
+        {
+            return;
+        }
+        for (EventBean theEvent : events)
+        {
+            remove(theEvent);
+        }
+    }
+
+    public Set<EventBean> lookupRange(Object keyStart, boolean includeStart, Object keyEnd, boolean includeEnd, boolean allowRangeReversal) {
+        if (keyStart == null || keyEnd == null) {
+            return Collections.emptySet();
+        }
+        long start = toKey(keyStart);
+        long end = toKey(keyEnd);
+        if (start > end) {
+            if (!allowRangeReversal) {
+                return Collections.emptySet();
+            }
+            return range(end, includeStart, start, includeEnd);
+        }
+        return range(start, includeStart, end, includeEnd);
+    }
+
+    public Collection<EventBean> lookupRangeColl(Object keyStart, boolean includeStart, Object keyEnd, boolean includeEnd, boolean allowRangeReversal) {
+        if (keyStart == null || keyEnd == null) {
+            return Collections.emptyList();
+        }
+        return lookupRange(keyStart, includeStart, keyEnd, includeEnd, allowRangeReversal);
+    }
+
+    public Set<EventBean> lookupRangeInverted(Object keyStart, boolean includeStart, Object keyEnd, boolean includeEnd) {
+        if (keyStart == null || keyEnd == null) {
+            return Collections.emptySet();
+        }
+        return rangeInverted(toKey(keyStart), includeStart, toKey(keyEnd), includeEnd);
+    }
+
+    public Collection<EventBean> lookupRangeInvertedColl(Object keyStart, boolean includeStart, Object keyEnd, boolean includeEnd) {
+        if (keyStart == null || keyEnd == null) {
+            return Collections.emptySet();
+        }
+        long start = toKey(keyStart);
+        long end = toKey(keyEnd);
+        if (isOverlapping(start, includeStart, end, includeEnd)) {
+            Deque<EventBean> result = new ArrayDeque<EventBean>(head(start, !includeStart));
+            result.addAll(tail(end, !includeEnd));
+            return result;
+        }
+        return rangeInverted(start, includeStart, end, includeEnd);
+    }
+
+    public Set<EventBean> lookupLess(Object keyStart) {
+        if (keyStart == null) {
+            return Collections.emptySet();
+        }
+        return head(toKey(keyStart), false);
+    }
+
+    public Collection<EventBean> lookupLessThenColl(Object keyStart) {
+        if (keyStart == null) {
+            return Collections.emptyList();
+        }
+        return head(toKey(keyStart), false);
+    }
+
+    public Set<EventBean> lookupLessEqual(Object keyStart) {
+        if (keyStart == null) {
+            return Collections.emptySet();
+        }
+        return head(toKey(keyStart), true);
+    }
+
+    public Collection<EventBean> lookupLessEqualColl(Object keyStart) {
+        if (keyStart == null) {
+            return Collections.emptyList();
+        }
+        return head(toKey(keyStart), true);
+    }
+
+    public Set<EventBean> lookupGreaterEqual(Object keyStart) {
+        if (keyStart == null) {
+            return Collections.emptySet();
+        }
+        return tail(toKey(keyStart), true);
+    }
+
+    public Collection<EventBean> lookupGreaterEqualColl(Object keyStart) {
+        if (keyStart == null) {
+            return Collections.emptyList();
+        }
+        return tail(toKey(keyStart), true);
+    }
+
+    public Set<EventBean> lookupGreater(Object keyStart) {
+        if (keyStart == null) {
+            return Collections.emptySet();
+        }
+        return tail(toKey(keyStart), false);
+    }
+
+    public Collection<EventBean> lookupGreaterColl(Object keyStart) {
+        if (keyStart == null) {
+            return Collections.emptyList();
+        }
+        return tail(toKey(keyStart), false);
+    }
+
+    public Set<EventBean> lookupConstants(RangeIndexLookupValue lookupValueBase) {
+        if (lookupValueBase instanceof RangeIndexLookupValueEquals) {
+            Object value = ((RangeIndexLookupValueEquals) lookupValueBase).getValue();
+            if (value == null) {
+                return null;
+            }
+            return PropertyIndexedEventTableSinglePrimitive.bucketToSet(sortedIndex.get(toKey(value)));
+        }
+        return super.lookupConstants(lookupValueBase);
+    }
+
+    public boolean isEmpty()
+    {
+        return sortedIndex.isEmpty();
+    }
+
+    public int getNumberOfEvents()
+    {
+        int count = nullKeyedValues.size();
+        for (LongObjectSkipList.Node<Object> node = sortedIndex.first(); node != null; node = node.getNext())
+        {
+            Object entry = node.getValue();
+            count += PropertyIndexedEventTableSinglePrimitive.isEventSet(entry) ? ((Set) entry).size() : 1;
+        }
+        return count;
+    }
+
+    public int getNumKeys()
+    {
+        return sortedIndex.size();
+    }
+
+    public Iterator<EventBean> iterator()
+    {
+        Iterator<EventBean> sortedIterator = new SortedIndexIterator(sortedIndex.first());
+        if (nullKeyedValues.isEmpty()) {
+            return sortedIterator;
+        }
+        return new SuperIterator<EventBean>(sortedIterator, nullKeyedValues.iterator());
+    }
+
+    public void clear()
+    {
+        sortedIndex.clear();
+        nullKeyedValues.clear();
+    }
+
+    private void add(EventBean theEvent)
+    {
+        Object value = getIndexedValue(theEvent);
+        if (value == null) {
+            nullKeyedValues.add(theEvent);
+            return;
+        }
+
+        LongObjectSkipList.Node<Object> node = sortedIndex.putIfAbsent(toKey(value), theEvent);
+        if (node != null) {
+            node.setValue(PropertyIndexedEventTableSinglePrimitive.bucketAdd(node.getValue(), theEvent));
+        }
+    }
+
+    private void remove(EventBean theEvent)
+    {
+        Object value = getIndexedValue(theEvent);
+        if (value == null) {
+            nullKeyedValues.remove(theEvent);
+            return;
+        }
+
+        long key = toKey(value);
+        LongObjectSkipList.Node<Object> node = sortedIndex.getNode(key);
+        if (node == null) {
+            return;
+        }
+        Object updated = PropertyIndexedEventTableSinglePrimitive.bucketRemove(node.getValue(), theEvent);
+        if (updated == null) {
+            sortedIndex.remove(key);
+        }
+        else {
+            node.setValue(updated);
+        }
+    }
+
+    // Events of the keys from the start to the end key, the end key being greater or equal to the start key
+    private Set<EventBean> range(long start, boolean includeStart, long end, boolean includeEnd) {
+        return toResult(sortedIndex.ceiling(start, includeStart), true, end, includeEnd);
+    }
+
+    private Set<EventBean> head(long end, boolean includeEnd) {
+        return toResult(sortedIndex.first(), true, end, includeEnd);
+    }
+
+    private Set<EventBean> tail(long start, boolean includeStart) {
+        return toResult(sortedIndex.ceiling(start, includeStart), false, 0, false);
+    }
+
+    // Events of the keys less then the start key and of the keys greater then the end key
+    private Set<EventBean> rangeInverted(long start, boolean includeStart, long end, boolean includeEnd) {
+        LongObjectSkipList.Node<Object> headFirst = sortedIndex.first();
+        if (headFirst != null && !isWithin(headFirst, start, !includeStart)) {
+            headFirst = null;
+        }
+        LongObjectSkipList.Node<Object> tailFirst = sortedIndex.ceiling(end, !includeEnd);
+        if (headFirst == null) {
+            return toResult(tailFirst, false, 0, false);
+        }
+        if (tailFirst == null) {
+            return toResult(headFirst, true, start, !includeStart);
+        }
+
+        // the parts overlap for a start key greater then the end key, in which case the result is the union of the parts
+        if (isWithin(tailFirst, start, !includeStart)) {
+            Set<EventBean> result = new LinkedHashSet<EventBean>(toResult(headFirst, true, start, !includeStart));
+            result.addAll(toResult(tailFirst, false, 0, false));
+            return result;
+        }
+        return new PropertySortedEventTableRangeSet(headFirst, true, start, !includeStart, tailFirst);
+    }
+
+    private boolean isOverlapping(long start, boolean includeStart, long end, boolean includeEnd) {
+        LongObjectSkipList.Node<Object> tailFirst = sortedIndex.ceiling(end, !includeEnd);
+        return tailFirst != null && isWithin(tailFirst, start, !includeStart);
+    }
+
+    // Result for the keys starting at the given node: null if there are none, the events of the key if there is a single one, or a range view
+    private Set<EventBean> toResult(LongObjectSkipList.Node<Object> first, boolean bounded, long end, boolean includeEnd) {
+        if (first == null || (bounded && !isWithin(first, end, includeEnd))) {
+            return null;
+        }
+        LongObjectSkipList.Node<Object> second = first.getNext();
+        if (second == null || (bounded && !isWithin(second, end, includeEnd))) {
+            return PropertyIndexedEventTableSinglePrimitive.bucketToSet(first.getValue());
+        }
+        return new PropertySortedEventTableRangeSet(first, bounded, end, includeEnd, null);
+    }
+
+    private static boolean isWithin(LongObjectSkipList.Node<Object> node, long end, boolean includeEnd) {
+        return includeEnd ? node.getKey() <= end : node.getKey() < end;
+    }
+
+    private long toKey(Object value)
+    {
+        if (isFloatingPoint) {
+            // flipping the bits other then the sign bit for negative values orders keys the same as Double.compareTo
+            long bits = Double.doubleToLongBits(((Number) value).doubleValue());
+            return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+        }
+        return ((Number) value).longValue();
+    }
+
+    private static class SortedIndexIterator extends MixedEventBeanAndCollectionIteratorBase
+    {
+        private SortedIndexIterator(final LongObjectSkipList.Node<Object> first)
+        {
+            super(new Iterator<LongObjectSkipList.Node<Object>>()
+            {
+                private LongObjectSkipList.Node<Object> node = first;
+
+                public boolean hasNext()
+                {
+                    return node != null;
+                }
+
+                public LongObjectSkipList.Node<Object> next()
+                {
+                    if (node == null)
+                    {
+                        throw new NoSuchElementException();
+                    }
+                    LongObjectSkipList.Node<Object> current = node;
+                    node = node.getNext();
+                    return current;
+                }
+
+                public void remove()
+                {
+                    throw new UnsupportedOperationException();
+                }
+            });
+            init();
+        }
+
+        protected Object getValue(Object iteratorKeyValue)
+        {
+            return ((LongObjectSkipList.Node<Object>) iteratorKeyValue).getValue();
+        }
+    }
+}
@@ -0,0 +1,194 @@
+/**************************************************************************************
+ * Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ * http://esper.codehaus.org                                                          *
+ * http://www.espertech.com                                                           *
+ * ---------------------------------------------------------------------------------- *
+ * The software in this package is published under the terms of the GPL license       *
+ * a copy of which has been included with this distribution in the license.txt file.  *
+ **************************************************************************************/
+package com.espertech.esper.epl.join.table;
+
+import com.espertech.esper.client.EventBean;
+import com.espertech.esper.collection.LongObjectSkipList;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Set of the events of a key range of a {@link PropertySortedEventTablePrimitive}, for use as a lookup result.
+ * <p>
+ * The set does not copy events: it iterates the index using a cursor starting at the first key of the range,
+ * and therefore reflects changes to the index. The range consists of a first segment that ends at an end key,
+ * or at the last key if unbounded, and an optional second segment that ends at the last key.
+ * The segments must not overlap.
+ * <p>
+ * As the index is not thread-safe, the set must only be used while holding the lock that protects the index.
+ * Callers that use a lookup result after releasing the lock, such as for fire-and-forget queries, must copy it first.
+ */
+public class PropertySortedEventTableRangeSet extends AbstractSet<EventBean>
+{
+    private final LongObjectSkipList.Node<Object> firstStart;
+    private final boolean firstBounded;
+    private final long firstEnd;
+    private final boolean firstEndInclusive;
+    private final LongObjectSkipList.Node<Object> secondStart;
+
+    /**
+     * Ctor.
+     * @param firstStart node of the first key of the first segment
+     * @param firstBounded true if the first segment ends at the end key, false if it ends at the last key
+     * @param firstEnd end key of the first segment
+     * @param firstEndInclusive true to include the end key in the first segment
+     * @param secondStart node of the first key of the second segment, or null for no second segment
+     */
+    public PropertySortedEventTableRangeSet(LongObjectSkipList.Node<Object> firstStart, boolean firstBounded, long firstEnd, boolean firstEndInclusive, LongObjectSkipList.Node<Object> secondStart)
+    {
+        this.firstStart = firstStart;
+        this.firstBounded = firstBounded;
+        this.firstEnd = firstEnd;
+        this.firstEndInclusive = firstEndInclusive;
+        this.secondStart = secondStart;
+    }
+
+    public Iterator<EventBean> iterator()
+    {
+        return new RangeIterator();
+    }
+
+    public int size()
+    {
+        int size = 0;
+        for (Cursor cursor = new Cursor(); cursor.node != null; cursor.advance())
+        {
+            Object entry = cursor.node.getValue();
+            size += PropertyIndexedEventTableSinglePrimitive.isEventSet(entry) ? ((Set) entry).size() : 1;
+        }
+        return size;
+    }
+
+    public boolean isEmpty()
+    {
+        return new Cursor().node == null;
+    }
+
+    /**
+     * Position on a node of the range.
+     */
+    private class Cursor
+    {
+        private LongObjectSkipList.Node<Object> node;
+        private boolean second;
+
+        private Cursor()
+        {
+            node = live(firstStart);
+            if (node == null || !inFirstSegment(node))
+            {
+                toSecondSegment();
+            }
+        }
+
+        private void advance()
+        {
+            node = node.getNext();
+            if (!second && (node == null || !inFirstSegment(node)))
+            {
+                toSecondSegment();
+            }
+        }
+
+        private void toSecondSegment()
+        {
+            second = true;
+            node = live(secondStart);
+        }
+
+        private boolean inFirstSegment(LongObjectSkipList.Node<Object> candidate)
+        {
+            if (!firstBounded)
+            {
+                return true;
+            }
+            return firstEndInclusive ? candidate.getKey() <= firstEnd : candidate.getKey() < firstEnd;
+        }
+
+        private LongObjectSkipList.Node<Object> live(LongObjectSkipList.Node<Object> start)
+        {
+            if (start == null || !start.isRemoved())
+            {
+                return start;
+            }
+            return start.getNext();
+        }
+    }
+
+    private class RangeIterator implements Iterator<EventBean>
+    {
+        private final Cursor cursor;
+        private EventBean single;
+        private Iterator<EventBean> events;
+
+        private RangeIterator()
+        {
+            cursor = new Cursor();
+            position();
+        }
+
+        public boolean hasNext()
+        {
+            return single != null || events != null;
+        }
+
+        public EventBean next()
+        {
+            EventBean result;
+            if (single != null)
+            {
+                result = single;
+                single = null;
+            }
+            else if (events != null)
+            {
+                result = events.next();
+                if (events.hasNext())
+                {
+                    return result;
+                }
+                events = null;
+            }
+            else
+            {
+                throw new NoSuchElementException();
+            }
+            cursor.advance();
+            position();
+            return result;
+        }
+
+        public void remove()
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        private void position()
+        {
+            for (; cursor.node != null; cursor.advance())
+            {
+                Object entry = cursor.node.getValue();
+                if (!PropertyIndexedEventTableSinglePrimitive.isEventSet(entry))
+                {
+                    single = (EventBean) entry;
+                    return;
+                }
+                Iterator<EventBean> it = ((Set<EventBean>) entry).iterator();
+                if (it.hasNext())
+                {
+                    events = it;
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -67,6 +67,16 @@ public class UnindexedEventTable implements EventTable
         return eventSet.isEmpty();
     }
 
+    public int getNumberOfEvents()
+    {
+        return eventSet.size();
+    }
+
+    public int getNumKeys()
+    {
+        return eventSet.size();
+    }
+
     /**
      * Returns events in table.
      * @return all events
@@ -74,6 +74,16 @@ public class UnindexedEventTableList implements EventTable
         return eventSet.isEmpty();
     }
 
+    public int getNumberOfEvents()
+    {
+        return eventSet.size();
+    }
+
+    public int getNumKeys()
+    {
+        return eventSet.size();
+    }
+
     public String toString()
     {
         return toQueryPlan();
@@ -0,0 +1,67 @@
+/**************************************************************************************
+ * Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ * http://esper.codehaus.org                                                          *
+ * http://www.espertech.com                                                           *
+ * ---------------------------------------------------------------------------------- *
+ * The software in this package is published under the terms of the GPL license       *
+ * a copy of which has been included with this distribution in the license.txt file.  *
+ **************************************************************************************/
+package com.espertech.esper.epl.metric;
+
+/**
+ * Service provider interface for instrumentation of event processing, receiving a pair of hooks
+ * for each stage of processing: a "q" hook when the work starts and an "a" hook when the work completes.
+ * <p>
+ * Hooks are invoked only when instrumentation is enabled, see {@link InstrumentationPath}. Hooks nest, and the
+ * stage hooks of statement processing are invoked by the thread within the statement hooks of the statement.
+ * Implementations must be thread-safe.
+ */
+public interface Instrumentation
+{
+    /**
+     * Start of matching an event against the filters of all statements.
+     * @param engineURI engine URI
+     */
+    public void qFilter(String engineURI);
+
+    /**
+     * End of matching an event against the filters of all statements.
+     */
+    public void aFilter();
+
+    /**
+     * Start of processing a statement.
+     * @param engineURI engine URI
+     * @param statementName statement name
+     */
+    public void qStatement(String engineURI, String statementName);
+
+    /**
+     * End of processing a statement.
+     */
+    public void aStatement();
+
+    /**
+     * Start of dispatching the output of a statement to listeners and subscribers.
+     * @param engineURI engine URI
+     * @param statementName statement name
+     */
+    public void qDispatch(String engineURI, String statementName);
+
+    /**
+     * End of dispatching the output of a statement to listeners and subscribers.
+     */
+    public void aDispatch();
+
+    /**
+     * Start of a stage of processing a statement.
+     * @param stage stage
+     */
+    public void qStage(InstrumentationStage stage);
+
+    /**
+     * End of a stage of processing a statement.
+     * @param stage stage
+     */
+    public void aStage(InstrumentationStage stage);
+}
@@ -0,0 +1,60 @@
+/**************************************************************************************
+ * Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ * http://esper.codehaus.org                                                          *
+ * http://www.espertech.com                                                           *
+ * ---------------------------------------------------------------------------------- *
+ * The software in this package is published under the terms of the GPL license       *
+ * a copy of which has been included with this distribution in the license.txt file.  *
+ **************************************************************************************/
+package com.espertech.esper.epl.metric;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Global boolean and instrumentation for instrumenting event processing.
+ * <p>
+ * Instrumented code checks the boolean before invoking any hook, so that instrumentation when
+ * disabled costs no more than reading the boolean.
+ */
+public class InstrumentationPath
+{
+    private static final Log log = LogFactory.getLog(InstrumentationPath.class);
+
+    /**
+     * Public access.
+     */
+    public static boolean isInstrumentationEnabled = false;
+
+    private static final InstrumentationStageTimers STAGE_TIMERS = new InstrumentationStageTimers();
+    private static volatile Instrumentation instrumentation = STAGE_TIMERS;
+
+    /**
+     * Returns the instrumentation receiving hooks when instrumentation is enabled.
+     * @return instrumentation
+     */
+    public static Instrumentation getInstrumentation()
+    {
+        return instrumentation;
+    }
+
+    /**
+     * Sets the instrumentation and enables instrumentation, or disables instrumentation.
+     * @param instrumentationEnabled true if instrumentation should be enabled
+     * @param newInstrumentation instrumentation to receive hooks, or null for the built-in stage timers
+     */
+    public static void setInstrumentation(boolean instrumentationEnabled, Instrumentation newInstrumentation)
+    {
+        if (instrumentationEnabled)
+        {
+            log.info("Instrumentation has been enabled, this setting takes affect for all engine instances at engine initialization time.");
+            // set the instrumentation before the boolean, so that hooks never see a partially set state
+            instrumentation = newInstrumentation == null ? STAGE_TIMERS : newInstrumentation;
+        }
+        else
+        {
+            log.debug("Instrumentation has been disabled, this setting takes affect for all engine instances at engine initialization time.");
+        }
+        isInstrumentationEnabled = instrumentationEnabled;
+    }
+}
@@ -0,0 +1,50 @@
+/**************************************************************************************
+ * Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ * http://esper.codehaus.org                                                          *
+ * http://www.espertech.com                                                           *
+ * ---------------------------------------------------------------------------------- *
+ * The software in this package is published under the terms of the GPL license       *
+ * a copy of which has been included with this distribution in the license.txt file.  *
+ **************************************************************************************/
+package com.espertech.esper.epl.metric;
+
+/**
+ * Stages of event processing that instrumentation measures time for.
+ * <p>
+ * Stages nest, for example aggregation takes place as part of output processing which takes place as
+ * part of a view update. The time of a stage excludes the time of the stages nested in it.
+ */
+public enum InstrumentationStage
+{
+    /**
+     * Matching an event against the filters of all statements, not specific to a statement.
+     */
+    FILTER,
+
+    /**
+     * Processing a statement for matching filters, schedules or named window deltas,
+     * except for the time of the other stages. Includes for example where-clause
+     * evaluation and the update of the first view of a stream.
+     */
+    STATEMENT,
+
+    /**
+     * Updating child views with the new and old data of a view.
+     */
+    VIEW,
+
+    /**
+     * Applying the new and old data to aggregation functions.
+     */
+    AGGREGATION,
+
+    /**
+     * Processing the result set, output rate limiting and output conditions.
+     */
+    OUTPUT,
+
+    /**
+     * Dispatching output to statement listeners and subscribers.
+     */
+    DISPATCH
+}
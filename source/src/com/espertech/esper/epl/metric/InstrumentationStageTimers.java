@@ -0,0 +1,242 @@
+/**************************************************************************************
+ * Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ * http://esper.codehaus.org                                                          *
+ * http://www.espertech.com                                                           *
+ * ---------------------------------------------------------------------------------- *
+ * The software in this package is published under the terms of the GPL license       *
+ * a copy of which has been included with this distribution in the license.txt file.  *
+ **************************************************************************************/
+package com.espertech.esper.epl.metric;
+
+import com.espertech.esper.client.metric.StageMetric;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Built-in instrumentation that aggregates nanosecond counters per engine, statement and stage, for
+ * reporting as {@link StageMetric} events.
+ * <p>
+ * Each thread keeps a stack of the stages it is in. At the end of a stage the time of the stage, less the
+ * time of the stages nested in it, is added to the counters of the statement that the stage is part of.
+ * Stages that are not part of statement processing are not counted. An end hook that does not match the stage
+ * started last, for example after an exception, ends the matching stage and discards the stages started after it.
+ */
+public class InstrumentationStageTimers implements Instrumentation
+{
+    private static final int MAX_DEPTH = 100;
+
+    private final ConcurrentHashMap<String, EngineTimers> engines = new ConcurrentHashMap<String, EngineTimers>();
+    private final ThreadLocal<StageStack> stacks = new ThreadLocal<StageStack>()
+    {
+        protected synchronized StageStack initialValue()
+        {
+            return new StageStack();
+        }
+    };
+
+    public void qFilter(String engineURI)
+    {
+        stacks.get().push(getEngineTimers(engineURI).engine, InstrumentationStage.FILTER);
+    }
+
+    public void aFilter()
+    {
+        stacks.get().pop(InstrumentationStage.FILTER);
+    }
+
+    public void qStatement(String engineURI, String statementName)
+    {
+        StageTimers timers = getStatementTimers(engineURI, statementName);
+        timers.numInvocations.incrementAndGet();
+        stacks.get().push(timers, InstrumentationStage.STATEMENT);
+    }
+
+    public void aStatement()
+    {
+        stacks.get().pop(InstrumentationStage.STATEMENT);
+    }
+
+    public void qDispatch(String engineURI, String statementName)
+    {
+        stacks.get().push(getStatementTimers(engineURI, statementName), InstrumentationStage.DISPATCH);
+    }
+
+    public void aDispatch()
+    {
+        stacks.get().pop(InstrumentationStage.DISPATCH);
+    }
+
+    public void qStage(InstrumentationStage stage)
+    {
+        StageStack stack = stacks.get();
+        stack.push(stack.depth == 0 ? null : stack.timers[stack.depth - 1], stage);
+    }
+
+    public void aStage(InstrumentationStage stage)
+    {
+        stacks.get().pop(stage);
+    }
+
+    /**
+     * Returns the counters of the engine accumulated since the last report, one metric for processing not
+     * specific to a statement and one metric per statement processed, and resets the counters.
+     * @param engineURI engine URI
+     * @param timestamp engine timestamp
+     * @return metrics, empty if nothing was processed
+     */
+    public List<StageMetric> report(String engineURI, long timestamp)
+    {
+        List<StageMetric> metrics = new ArrayList<StageMetric>();
+        EngineTimers engineTimers = engines.get(engineURI == null ? "default" : engineURI);
+        if (engineTimers == null)
+        {
+            return metrics;
+        }
+
+        StageMetric engineMetric = engineTimers.engine.report(engineURI, null, timestamp);
+        if (engineMetric != null)
+        {
+            metrics.add(engineMetric);
+        }
+
+        // statements without activity are removed so that destroyed statements are not retained
+        for (Map.Entry<String, StageTimers> entry : engineTimers.statements.entrySet())
+        {
+            StageMetric metric = entry.getValue().report(engineURI, entry.getKey(), timestamp);
+            if (metric != null)
+            {
+                metrics.add(metric);
+            }
+            else
+            {
+                engineTimers.statements.remove(entry.getKey(), entry.getValue());
+            }
+        }
+        return metrics;
+    }
+
+    private StageTimers getStatementTimers(String engineURI, String statementName)
+    {
+        EngineTimers engineTimers = getEngineTimers(engineURI);
+        StageTimers timers = engineTimers.statements.get(statementName);
+        if (timers == null)
+        {
+            timers = new StageTimers();
+            StageTimers existing = engineTimers.statements.putIfAbsent(statementName, timers);
+            if (existing != null)
+            {
+                timers = existing;
+            }
+        }
+        return timers;
+    }
+
+    private EngineTimers getEngineTimers(String engineURI)
+    {
+        if (engineURI == null)
+        {
+            engineURI = "default";
+        }
+        EngineTimers engineTimers = engines.get(engineURI);
+        if (engineTimers == null)
+        {
+            engineTimers = new EngineTimers();
+            EngineTimers existing = engines.putIfAbsent(engineURI, engineTimers);
+            if (existing != null)
+            {
+                engineTimers = existing;
+            }
+        }
+        return engineTimers;
+    }
+
+    private static class EngineTimers
+    {
+        private final StageTimers engine = new StageTimers();
+        private final ConcurrentHashMap<String, StageTimers> statements = new ConcurrentHashMap<String, StageTimers>();
+    }
+
+    private static class StageTimers
+    {
+        private final AtomicLong numInvocations = new AtomicLong();
+        private final AtomicLongArray times = new AtomicLongArray(InstrumentationStage.values().length);
+
+        private StageMetric report(String engineURI, String statementName, long timestamp)
+        {
+            long numInvoked = numInvocations.getAndSet(0);
+            long[] stageTimes = new long[times.length()];
+            boolean active = numInvoked != 0;
+            for (int i = 0; i < stageTimes.length; i++)
+            {
+                stageTimes[i] = times.getAndSet(i, 0);
+                active |= stageTimes[i] != 0;
+            }
+            if (!active)
+            {
+                return null;
+            }
+            return new StageMetric(engineURI, statementName, timestamp, numInvoked,
+                    stageTimes[InstrumentationStage.FILTER.ordinal()],
+                    stageTimes[InstrumentationStage.STATEMENT.ordinal()],
+                    stageTimes[InstrumentationStage.VIEW.ordinal()],
+                    stageTimes[InstrumentationStage.AGGREGATION.ordinal()],
+                    stageTimes[InstrumentationStage.OUTPUT.ordinal()],
+                    stageTimes[InstrumentationStage.DISPATCH.ordinal()]);
+        }
+    }
+
+    private static class StageStack
+    {
+        private final StageTimers[] timers = new StageTimers[MAX_DEPTH];
+        private final InstrumentationStage[] stages = new InstrumentationStage[MAX_DEPTH];
+        private final long[] startTimes = new long[MAX_DEPTH];
+        private final long[] nestedTimes = new long[MAX_DEPTH];
+        private int depth;
+
+        private void push(StageTimers stageTimers, InstrumentationStage stage)
+        {
+            if (depth == MAX_DEPTH)
+            {
+                // stages were not ended, discard
+                depth = 0;
+                stageTimers = null;
+            }
+            timers[depth] = stageTimers;
+            stages[depth] = stage;
+            nestedTimes[depth] = 0;
+            startTimes[depth] = System.nanoTime();
+            depth++;
+        }
+
+        private void pop(InstrumentationStage stage)
+        {
+            long now = System.nanoTime();
+            int index = depth - 1;
+            while ((index >= 0) && (stages[index] != stage))
+            {
+                index--;
+            }
+            if (index < 0)
+            {
+                return;
+            }
+
+            long time = now - startTimes[index];
+            if (timers[index] != null)
+            {
+                timers[index].times.addAndGet(stage.ordinal(), time - nestedTimes[index]);
+            }
+            if (index > 0)
+            {
+                nestedTimes[index - 1] += time;
+            }
+            timers[index] = null;
+            depth = index;
+        }
+    }
+}
@@ -9,6 +9,7 @@
 package com.espertech.esper.epl.metric;
 
 import com.espertech.esper.client.metric.EngineMetric;
+import com.espertech.esper.client.metric.StageMetric;
 
 /**
  * Metrics execution producing engine metric events.
@@ -44,6 +45,16 @@ public class MetricExecEngine implements MetricExec
         EngineMetric metric = new EngineMetric(engineURI, metricScheduleService.getCurrentTime(), inputCount, deltaInputCount, schedDepth);
         lastMetric = metric;
         metricEventRouter.route(metric);
+
+        // stage timers of the built-in instrumentation are reported along with engine metrics
+        if ((InstrumentationPath.isInstrumentationEnabled) && (InstrumentationPath.getInstrumentation() instanceof InstrumentationStageTimers))
+        {
+            InstrumentationStageTimers stageTimers = (InstrumentationStageTimers) InstrumentationPath.getInstrumentation();
+            for (StageMetric stageMetric : stageTimers.report(engineURI, metric.getTimestamp()))
+            {
+                metricEventRouter.route(stageMetric);
+            }
+        }
         metricScheduleService.add(interval, this);        
     }
 
@@ -42,6 +42,13 @@ public interface MetricReportingService
      */
     public void accountTime(StatementMetricHandle metricsHandle, long deltaCPU, long deltaWall, int numInput);
 
+    /**
+     * Account for the wall time of a single delivery of events to a statement, for the statement latency histogram.
+     * @param metricsHandle statement handle
+     * @param deltaWall wall time nsec
+     */
+    public void accountLatency(StatementMetricHandle metricsHandle, long deltaWall);
+
     /**
      * Account for statement output row counting.
      * @param handle statement handle
@@ -50,6 +57,16 @@ public interface MetricReportingService
      */
     public void accountOutput(StatementMetricHandle handle, int numIStream, int numRStream);
 
+    /**
+     * Account for statement historical data cache activity.
+     * @param handle statement handle
+     * @param numHits number of cache hits
+     * @param numMisses number of cache misses
+     * @param numEvictions number of cache evictions
+     * @param loadTime time in nanoseconds spent loading data not found in the cache
+     */
+    public void accountDataCache(StatementMetricHandle handle, long numHits, long numMisses, long numEvictions, long loadTime);
+
     /**
      * Returns for a new statement a handle for later accounting.
      * @param statementId statement id
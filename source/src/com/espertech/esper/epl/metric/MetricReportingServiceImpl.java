@@ -178,11 +178,21 @@ public class MetricReportingServiceImpl implements MetricReportingServiceSPI, Me
         stmtMetricRepository.accountTimes(metricsHandle, deltaCPU, deltaWall, numInputEvents);
     }
 
+    public void accountLatency(StatementMetricHandle metricsHandle, long deltaWall)
+    {
+        stmtMetricRepository.accountLatency(metricsHandle, deltaWall);
+    }
+
     public void accountOutput(StatementMetricHandle handle, int numIStream, int numRStream)
     {
         stmtMetricRepository.accountOutput(handle, numIStream, numRStream);
     }
 
+    public void accountDataCache(StatementMetricHandle handle, long numHits, long numMisses, long numEvictions, long loadTime)
+    {
+        stmtMetricRepository.accountDataCache(handle, numHits, numMisses, numEvictions, loadTime);
+    }
+
     public StatementMetricHandle getStatementHandle(String statementId, String statementName)
     {
         if (!MetricReportingPath.isMetricsEnabled)
@@ -249,6 +249,33 @@ public class StatementMetricArray
         return metric;
     }
 
+    /**
+     * Adds the wall time of a single delivery of events to the latency histogram of the statement.
+     * <p>
+     * Does not acquire the read lock unless this is the first change to the statement metric since the last flush.
+     * A latency recorded while a flush takes place may be accounted to the flushed metric.
+     * @param index of statement
+     * @param wall wall time in nanoseconds
+     */
+    public void accountLatency(int index, long wall)
+    {
+        StatementMetric[] current = metrics;
+        StatementMetric metric = index < current.length ? current[index] : null;
+        if (metric == null)
+        {
+            rwLock.acquireReadLock();
+            try
+            {
+                metric = getAddMetric(index);
+            }
+            finally
+            {
+                rwLock.releaseReadLock();
+            }
+        }
+        metric.addLatency(wall);
+    }
+
     /**
      * Returns maximum collection size (last used element), which may not truely reflect the number
      * of actual statements held as some slots may empty up when statements are removed.
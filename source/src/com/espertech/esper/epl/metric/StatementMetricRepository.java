@@ -155,6 +155,39 @@ public class StatementMetricRepository
         }
     }
 
+    /**
+     * Account data cache activity.
+     * @param handle statement handle
+     * @param numHits number of cache hits
+     * @param numMisses number of cache misses
+     * @param numEvictions number of cache evictions
+     * @param loadTime load time in nanoseconds
+     */
+    public void accountDataCache(StatementMetricHandle handle, long numHits, long numMisses, long numEvictions, long loadTime)
+    {
+        StatementMetricArray array = groupMetrics[handle.getGroupNum()];
+        array.getRwLock().acquireReadLock();
+        try
+        {
+            StatementMetric metric = array.getAddMetric(handle.getIndex());
+            metric.addDataCache(numHits, numMisses, numEvictions, loadTime);
+        }
+        finally
+        {
+            array.getRwLock().releaseReadLock();
+        }
+    }
+
+    /**
+     * Account the wall time of a single delivery of events to the statement, without locking.
+     * @param handle statement handle
+     * @param wall wall time in nanoseconds
+     */
+    public void accountLatency(StatementMetricHandle handle, long wall)
+    {
+        groupMetrics[handle.getGroupNum()].accountLatency(handle.getIndex(), wall);
+    }
+
     /**
      * Report for a given statement group.
      * @param group to report
@@ -0,0 +1,170 @@
+/**************************************************************************************
+ * Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ * http://esper.codehaus.org                                                          *
+ * http://www.espertech.com                                                           *
+ * ---------------------------------------------------------------------------------- *
+ * The software in this package is published under the terms of the GPL license       *
+ * a copy of which has been included with this distribution in the license.txt file.  *
+ **************************************************************************************/
+package com.espertech.esper.epl.named;
+
+import com.espertech.esper.client.EPException;
+import com.espertech.esper.core.context.util.EPStatementAgentInstanceHandle;
+import com.espertech.esper.core.thread.EngineThreadFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Pool of threads for dispatching named window deltas to consuming statements in parallel.
+ * <p>
+ * Each consuming statement agent instance is assigned to a fixed stripe. Each stripe but the last is a single thread
+ * that works off dispatches in the order submitted, the last stripe is the thread dispatching. A consumer therefore
+ * receives deltas in the order that a dispatching thread produces them, same as when dispatching sequentially.
+ */
+public class NamedWindowConsumerDispatchPool
+{
+    private final ExecutorService[] executors;
+    private final ThreadGroup threadGroup;
+
+    /**
+     * Ctor.
+     * @param numThreads number of threads dispatching in addition to the thread dispatching
+     * @param engineURI engine URI
+     */
+    public NamedWindowConsumerDispatchPool(int numThreads, String engineURI)
+    {
+        if (engineURI == null)
+        {
+            engineURI = "default";
+        }
+        threadGroup = new ThreadGroup("com.espertech.esper." + engineURI + "-NamedWindowDispatch");
+        executors = new ExecutorService[numThreads];
+        for (int i = 0; i < numThreads; i++)
+        {
+            executors[i] = Executors.newSingleThreadExecutor(new EngineThreadFactory(engineURI, "NamedWindowDispatch", threadGroup, Thread.NORM_PRIORITY));
+        }
+    }
+
+    /**
+     * Returns the number of stripes, which is the number of threads plus one for the thread dispatching.
+     * @return number of stripes
+     */
+    public int getNumStripes()
+    {
+        return executors.length + 1;
+    }
+
+    /**
+     * Returns the stripe of a consuming statement agent instance, the last stripe is the thread dispatching.
+     * @param handle consuming statement agent instance
+     * @return stripe number
+     */
+    public int getStripe(EPStatementAgentInstanceHandle handle)
+    {
+        return (handle.hashCode() & 0x7fffffff) % (executors.length + 1);
+    }
+
+    /**
+     * Returns true when the current thread is a thread of this pool. Dispatches that a pool thread
+     * produces, for example by inserting into another named window, are dispatched sequentially by the pool thread.
+     * @return indicator
+     */
+    public boolean isPoolThread()
+    {
+        return Thread.currentThread().getThreadGroup() == threadGroup;
+    }
+
+    /**
+     * Executes the work per stripe and returns when all work completed. The calling thread performs the work
+     * of the last stripe.
+     * @param workPerStripe work per stripe in the order to perform, or null for stripes without work
+     * @throws EPException for the first exception that any work threw
+     */
+    public void execute(List<Runnable>[] workPerStripe)
+    {
+        List<Future<?>> futures = null;
+        for (int i = 0; i < executors.length; i++)
+        {
+            final List<Runnable> work = workPerStripe[i];
+            if ((work == null) || (work.isEmpty()))
+            {
+                continue;
+            }
+            if (futures == null)
+            {
+                futures = new ArrayList<Future<?>>(executors.length);
+            }
+            futures.add(executors[i].submit(new Runnable()
+            {
+                public void run()
+                {
+                    for (Runnable runnable : work)
+                    {
+                        runnable.run();
+                    }
+                }
+            }));
+        }
+
+        RuntimeException exception = null;
+        List<Runnable> work = workPerStripe[executors.length];
+        if (work != null)
+        {
+            try
+            {
+                for (Runnable runnable : work)
+                {
+                    runnable.run();
+                }
+            }
+            catch (RuntimeException ex)
+            {
+                exception = ex;
+            }
+        }
+
+        if (futures != null)
+        {
+            for (Future<?> future : futures)
+            {
+                try
+                {
+                    future.get();
+                }
+                catch (InterruptedException ex)
+                {
+                    Thread.currentThread().interrupt();
+                    exception = new EPException("Interrupted waiting for named window dispatch", ex);
+                }
+                catch (ExecutionException ex)
+                {
+                    if (exception == null)
+                    {
+                        exception = ex.getCause() instanceof RuntimeException ? (RuntimeException) ex.getCause() : new EPException(ex.getCause());
+                    }
+                }
+            }
+        }
+
+        if (exception != null)
+        {
+            throw exception instanceof EPException ? (EPException) exception : new EPException(exception);
+        }
+    }
+
+    /**
+     * Stop the pool threads.
+     */
+    public void destroy()
+    {
+        for (ExecutorService executor : executors)
+        {
+            executor.shutdownNow();
+        }
+    }
+}
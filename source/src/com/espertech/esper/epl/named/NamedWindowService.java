@@ -10,6 +10,7 @@ package com.espertech.esper.epl.named;
 
 import com.espertech.esper.client.EventType;
 import com.espertech.esper.core.context.util.EPStatementAgentInstanceHandle;
+import com.espertech.esper.core.service.InternalEventRouteDest;
 import com.espertech.esper.core.service.StatementAgentInstanceLock;
 import com.espertech.esper.core.service.StatementResultService;
 import com.espertech.esper.epl.expression.ExprEvaluatorContext;
@@ -58,6 +59,7 @@ public interface NamedWindowService
      * @param eplExpression is the expression
      * @param statementName the name of the statement
      * @param isPrioritized if the engine is running with prioritized execution
+     * @param isSnapshotReads if named window contents are kept as multiple versions for reading without locking
      * @return processor for the named window
      * @throws ViewProcessingException if the named window already exists
      */
@@ -74,7 +76,8 @@ public interface NamedWindowService
                                              boolean isBatchingDataWindow,
                                              boolean isVirtualDataWindow,
                                              StatementMetricHandle statementMetricHandle,
-                                             Set<String> optionalUniqueKeyProps) throws ViewProcessingException;
+                                             Set<String> optionalUniqueKeyProps,
+                                             boolean isSnapshotReads) throws ViewProcessingException;
 
     /**
      * Returns the processing instance for a given named window.
@@ -93,9 +96,16 @@ public interface NamedWindowService
      * Dispatch events of the insert and remove stream of named windows to consumers, as part of the
      * main event processing or dispatch loop.
      * @param exprEvaluatorContext context for expression evalauation
+     * @param routeDest runtime for processing listener dispatches and events routed by consumers that are dispatched in parallel
      * @return send events to consuming statements
      */
-    public boolean dispatch(ExprEvaluatorContext exprEvaluatorContext);
+    public boolean dispatch(ExprEvaluatorContext exprEvaluatorContext, InternalEventRouteDest routeDest);
+
+    /**
+     * Returns indicator whether the current thread has named window results waiting to be dispatched to consumers.
+     * @return true for pending dispatches
+     */
+    public boolean isDispatchPending();
 
     /**
      * For use to add a result of a named window that must be dispatched to consuming views.
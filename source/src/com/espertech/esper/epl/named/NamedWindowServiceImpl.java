@@ -13,10 +13,12 @@ import com.espertech.esper.client.EventBean;
 import com.espertech.esper.client.EventType;
 import com.espertech.esper.core.context.util.EPStatementAgentInstanceHandle;
 import com.espertech.esper.core.service.ExceptionHandlingService;
+import com.espertech.esper.core.service.InternalEventRouteDest;
 import com.espertech.esper.core.service.StatementAgentInstanceLock;
 import com.espertech.esper.core.service.StatementLockFactory;
 import com.espertech.esper.core.service.StatementResultService;
 import com.espertech.esper.epl.expression.ExprEvaluatorContext;
+import com.espertech.esper.epl.metric.InstrumentationPath;
 import com.espertech.esper.epl.metric.MetricReportingPath;
 import com.espertech.esper.epl.metric.MetricReportingService;
 import com.espertech.esper.epl.metric.StatementMetricHandle;
@@ -44,6 +46,7 @@ public class NamedWindowServiceImpl implements NamedWindowService
     private final ManagedReadWriteLock eventProcessingRWLock;
     private final boolean enableQueryPlanLog;
     private final MetricReportingService metricReportingService;
+    private final NamedWindowConsumerDispatchPool consumerDispatchPool;
 
     private ThreadLocal<List<NamedWindowConsumerDispatchUnit>> threadLocal = new ThreadLocal<List<NamedWindowConsumerDispatchUnit>>()
     {
@@ -66,10 +69,11 @@ public class NamedWindowServiceImpl implements NamedWindowService
      * @param statementLockFactory statement lock factory
      * @param variableService is for variable access
      * @param isPrioritized if the engine is running with prioritized execution
+     * @param consumerDispatchPool pool for dispatching to consumers in parallel, or null to dispatch sequentially
      */
     public NamedWindowServiceImpl(StatementLockFactory statementLockFactory, VariableService variableService, boolean isPrioritized,
                                   ManagedReadWriteLock eventProcessingRWLock, ExceptionHandlingService exceptionHandlingService, boolean enableQueryPlanLog,
-                                  MetricReportingService metricReportingService)
+                                  MetricReportingService metricReportingService, NamedWindowConsumerDispatchPool consumerDispatchPool)
     {
         this.processors = new HashMap<String, NamedWindowProcessor>();
         this.windowStatementLocks = new HashMap<String, NamedWindowLockPair>();
@@ -81,10 +85,15 @@ public class NamedWindowServiceImpl implements NamedWindowService
         this.exceptionHandlingService = exceptionHandlingService;
         this.enableQueryPlanLog = enableQueryPlanLog;
         this.metricReportingService = metricReportingService;
+        this.consumerDispatchPool = consumerDispatchPool;
     }
 
     public void destroy()
     {
+        if (consumerDispatchPool != null)
+        {
+            consumerDispatchPool.destroy();
+        }
         processors.clear();
         threadLocal.remove();
         dispatchesPerStmtTL.remove();
@@ -142,14 +151,14 @@ public class NamedWindowServiceImpl implements NamedWindowService
                                              ValueAddEventProcessor revisionProcessor, String eplExpression, String statementName, boolean isPrioritized,
                                              boolean isEnableSubqueryIndexShare, boolean isBatchingDataWindow,
                                              boolean isVirtualDataWindow, StatementMetricHandle statementMetricHandle,
-                                             Set<String> optionalUniqueKeyProps) throws ViewProcessingException
+                                             Set<String> optionalUniqueKeyProps, boolean isSnapshotReads) throws ViewProcessingException
     {
         if (processors.containsKey(name))
         {
             throw new ViewProcessingException("A named window by name '" + name + "' has already been created");
         }
 
-        NamedWindowProcessor processor = new NamedWindowProcessor(name, this, contextName, singleInstanceContext, eventType, statementResultService, revisionProcessor, eplExpression, statementName, isPrioritized, isEnableSubqueryIndexShare, enableQueryPlanLog, metricReportingService, isBatchingDataWindow, isVirtualDataWindow, statementMetricHandle, optionalUniqueKeyProps);
+        NamedWindowProcessor processor = new NamedWindowProcessor(name, this, contextName, singleInstanceContext, eventType, statementResultService, revisionProcessor, eplExpression, statementName, isPrioritized, isEnableSubqueryIndexShare, enableQueryPlanLog, metricReportingService, isBatchingDataWindow, isVirtualDataWindow, statementMetricHandle, optionalUniqueKeyProps, isSnapshotReads);
         processors.put(name, processor);
 
         if (!observers.isEmpty())
@@ -191,7 +200,12 @@ public class NamedWindowServiceImpl implements NamedWindowService
         }
     }
 
-    public boolean dispatch(ExprEvaluatorContext exprEvaluatorContext)
+    public boolean isDispatchPending()
+    {
+        return !threadLocal.get().isEmpty();
+    }
+
+    public boolean dispatch(ExprEvaluatorContext exprEvaluatorContext, InternalEventRouteDest routeDest)
     {
         List<NamedWindowConsumerDispatchUnit> dispatches = threadLocal.get();
         if (dispatches.isEmpty())
@@ -199,6 +213,12 @@ public class NamedWindowServiceImpl implements NamedWindowService
             return false;
         }
 
+        if ((consumerDispatchPool != null) && (routeDest != null) && (!consumerDispatchPool.isPoolThread()))
+        {
+            dispatchParallel(dispatches, exprEvaluatorContext, routeDest);
+            return true;
+        }
+
         while (!dispatches.isEmpty()) {
 
             // Acquire main processing lock which locks out statement management
@@ -222,6 +242,176 @@ public class NamedWindowServiceImpl implements NamedWindowService
         return true;
     }
 
+    private void dispatchParallel(List<NamedWindowConsumerDispatchUnit> dispatches, ExprEvaluatorContext exprEvaluatorContext, final InternalEventRouteDest routeDest)
+    {
+        int numStripes = consumerDispatchPool.getNumStripes();
+        while (!dispatches.isEmpty()) {
+
+            boolean[] stripesUsed = new boolean[numStripes];
+
+            // Acquire main processing lock which locks out statement management
+            eventProcessingRWLock.acquireReadLock();
+            try
+            {
+                NamedWindowConsumerDispatchUnit[] units = dispatches.toArray(new NamedWindowConsumerDispatchUnit[dispatches.size()]);
+                dispatches.clear();
+                processDispatchesParallel(exprEvaluatorContext, units, stripesUsed);
+            }
+            catch (RuntimeException ex)
+            {
+                throw new EPException(ex);
+            }
+            finally
+            {
+                eventProcessingRWLock.releaseReadLock();
+            }
+
+            // Pool threads dispatch results to listeners and process events that consumers routed, outside of the read-lock.
+            // The dispatching thread does so for its own stripe when returning.
+            List<Runnable>[] drainPerStripe = new List[numStripes];
+            Runnable drain = new Runnable()
+            {
+                public void run()
+                {
+                    routeDest.dispatch();
+                    routeDest.processThreadWorkQueue();
+                }
+            };
+            for (int i = 0; i < numStripes - 1; i++)
+            {
+                if (stripesUsed[i])
+                {
+                    drainPerStripe[i] = Collections.singletonList(drain);
+                }
+            }
+            consumerDispatchPool.execute(drainPerStripe);
+        }
+    }
+
+    private void processDispatchesParallel(final ExprEvaluatorContext exprEvaluatorContext, NamedWindowConsumerDispatchUnit[] dispatches, boolean[] stripesUsed)
+    {
+        // Group per statement, in the order of dispatches
+        final LinkedHashMap<EPStatementAgentInstanceHandle, Object> dispatchesPerStmt = new LinkedHashMap<EPStatementAgentInstanceHandle, Object>();
+        for (NamedWindowConsumerDispatchUnit unit : dispatches)
+        {
+            for (EPStatementAgentInstanceHandle handle : unit.getDispatchTo().keySet())
+            {
+                Object perStmtObj = dispatchesPerStmt.get(handle);
+                if (perStmtObj == null)
+                {
+                    dispatchesPerStmt.put(handle, unit);
+                }
+                else if (perStmtObj instanceof List)
+                {
+                    ((List<NamedWindowConsumerDispatchUnit>) perStmtObj).add(unit);
+                }
+                else
+                {
+                    List<NamedWindowConsumerDispatchUnit> list = new ArrayList<NamedWindowConsumerDispatchUnit>();
+                    list.add((NamedWindowConsumerDispatchUnit) perStmtObj);
+                    list.add(unit);
+                    dispatchesPerStmt.put(handle, list);
+                }
+            }
+        }
+
+        // With prioritized execution, dispatch by priority and not to statements of lower priority then a preemptive statement
+        List<EPStatementAgentInstanceHandle> handles = new ArrayList<EPStatementAgentInstanceHandle>(dispatchesPerStmt.keySet());
+        if (isPrioritized)
+        {
+            Collections.sort(handles, new Comparator<EPStatementAgentInstanceHandle>()
+            {
+                public int compare(EPStatementAgentInstanceHandle o1, EPStatementAgentInstanceHandle o2)
+                {
+                    return o1.getPriority() > o2.getPriority() ? -1 : (o1.getPriority() == o2.getPriority() ? 0 : 1);
+                }
+            });
+            for (int i = 0; i < handles.size(); i++)
+            {
+                if (handles.get(i).isPreemptive())
+                {
+                    handles = handles.subList(0, i + 1);
+                    break;
+                }
+            }
+        }
+
+        // Statements of the same priority are dispatched in parallel, priorities one after the other
+        int start = 0;
+        while (start < handles.size())
+        {
+            int end = handles.size();
+            if (isPrioritized)
+            {
+                end = start + 1;
+                while ((end < handles.size()) && (handles.get(end).getPriority() == handles.get(start).getPriority()))
+                {
+                    end++;
+                }
+            }
+
+            List<Runnable>[] workPerStripe = new List[stripesUsed.length];
+            for (int i = start; i < end; i++)
+            {
+                final EPStatementAgentInstanceHandle handle = handles.get(i);
+                final Object perStmtObj = dispatchesPerStmt.get(handle);
+                int stripe = consumerDispatchPool.getStripe(handle);
+                if (workPerStripe[stripe] == null)
+                {
+                    workPerStripe[stripe] = new ArrayList<Runnable>();
+                }
+                workPerStripe[stripe].add(new Runnable()
+                {
+                    public void run()
+                    {
+                        processStatement(handle, perStmtObj, exprEvaluatorContext);
+                    }
+                });
+                stripesUsed[stripe] = true;
+            }
+            consumerDispatchPool.execute(workPerStripe);
+            start = end;
+        }
+    }
+
+    private void processStatement(EPStatementAgentInstanceHandle handle, Object perStmtObj, ExprEvaluatorContext exprEvaluatorContext)
+    {
+        if ((MetricReportingPath.isMetricsEnabled) && (handle.getStatementHandle().getMetricsHandle().isEnabled()))
+        {
+            long cpuTimeBefore = MetricUtil.getCPUCurrentThread();
+            long wallTimeBefore = MetricUtil.getWall();
+
+            processStatementUnmetered(handle, perStmtObj, exprEvaluatorContext);
+
+            long wallTimeAfter = MetricUtil.getWall();
+            long cpuTimeAfter = MetricUtil.getCPUCurrentThread();
+            long deltaCPU = cpuTimeAfter - cpuTimeBefore;
+            long deltaWall = wallTimeAfter - wallTimeBefore;
+            metricReportingService.accountTime(handle.getStatementHandle().getMetricsHandle(), deltaCPU, deltaWall, 1);
+        }
+        else
+        {
+            processStatementUnmetered(handle, perStmtObj, exprEvaluatorContext);
+        }
+    }
+
+    private void processStatementUnmetered(EPStatementAgentInstanceHandle handle, Object perStmtObj, ExprEvaluatorContext exprEvaluatorContext)
+    {
+        if (perStmtObj instanceof NamedWindowConsumerDispatchUnit)
+        {
+            NamedWindowConsumerDispatchUnit unit = (NamedWindowConsumerDispatchUnit) perStmtObj;
+            List<NamedWindowConsumerView> items = unit.getDispatchTo().get(handle);
+            if (items != null)
+            {
+                processHandle(handle, items, unit.getDeltaData().getNewData(), unit.getDeltaData().getOldData(), exprEvaluatorContext);
+            }
+            return;
+        }
+
+        // dispatch of multiple results to a the same statement, need to aggregate per consumer view
+        processHandleMultiple(handle, getDeltaPerConsumer(perStmtObj, handle), exprEvaluatorContext);
+    }
+
     private void processDispatches(ExprEvaluatorContext exprEvaluatorContext, NamedWindowConsumerDispatchUnit[] dispatches) {
 
         if (dispatches.length == 1)
@@ -415,6 +605,10 @@ public class NamedWindowServiceImpl implements NamedWindowService
 
     private void processHandleMultiple(EPStatementAgentInstanceHandle handle, Map<NamedWindowConsumerView, NamedWindowDeltaData> deltaPerConsumer, ExprEvaluatorContext exprEvaluatorContext) {
         handle.getStatementAgentInstanceLock().acquireWriteLock(statementLockFactory);
+        if (InstrumentationPath.isInstrumentationEnabled)
+        {
+            InstrumentationPath.getInstrumentation().qStatement(exprEvaluatorContext.getEngineURI(), handle.getStatementHandle().getStatementName());
+        }
         try
         {
             if (handle.isHasVariables())
@@ -436,12 +630,20 @@ public class NamedWindowServiceImpl implements NamedWindowService
         }
         finally
         {
+            if (InstrumentationPath.isInstrumentationEnabled)
+            {
+                InstrumentationPath.getInstrumentation().aStatement();
+            }
             handle.getStatementAgentInstanceLock().releaseWriteLock(null);
         }
     }
 
     private void processHandle(EPStatementAgentInstanceHandle handle, List<NamedWindowConsumerView> value, EventBean[] newData, EventBean[] oldData, ExprEvaluatorContext exprEvaluatorContext) {
         handle.getStatementAgentInstanceLock().acquireWriteLock(statementLockFactory);
+        if (InstrumentationPath.isInstrumentationEnabled)
+        {
+            InstrumentationPath.getInstrumentation().qStatement(exprEvaluatorContext.getEngineURI(), handle.getStatementHandle().getStatementName());
+        }
         try
         {
             if (handle.isHasVariables())
@@ -462,6 +664,10 @@ public class NamedWindowServiceImpl implements NamedWindowService
         }
         finally
         {
+            if (InstrumentationPath.isInstrumentationEnabled)
+            {
+                InstrumentationPath.getInstrumentation().aStatement();
+            }
             handle.getStatementAgentInstanceLock().releaseWriteLock(null);
         }
     }
@@ -34,15 +34,17 @@ public class NamedWindowTailView
     private final ValueAddEventProcessor revisionProcessor;
     private final boolean isPrioritized;
     private final boolean isParentBatchWindow;
+    private final boolean isSnapshotReads;
     private volatile Map<EPStatementAgentInstanceHandle, List<NamedWindowConsumerView>> consumersNonContext;  // handles as copy-on-write
 
-    public NamedWindowTailView(EventType eventType, NamedWindowService namedWindowService, StatementResultService statementResultService, ValueAddEventProcessor revisionProcessor, boolean prioritized, boolean parentBatchWindow) {
+    public NamedWindowTailView(EventType eventType, NamedWindowService namedWindowService, StatementResultService statementResultService, ValueAddEventProcessor revisionProcessor, boolean prioritized, boolean parentBatchWindow, boolean snapshotReads) {
         this.eventType = eventType;
         this.namedWindowService = namedWindowService;
         this.statementResultService = statementResultService;
         this.revisionProcessor = revisionProcessor;
         isPrioritized = prioritized;
         isParentBatchWindow = parentBatchWindow;
+        isSnapshotReads = snapshotReads;
         this.consumersNonContext = NamedWindowUtil.createConsumerMap(isPrioritized);
     }
 
@@ -54,6 +56,14 @@ public class NamedWindowTailView
         return isParentBatchWindow;
     }
 
+    /**
+     * Returns true to indicate that named window contents are kept as multiple versions for reading without locking.
+     * @return true for snapshot reads
+     */
+    public boolean isSnapshotReads() {
+        return isSnapshotReads;
+    }
+
     public EventType getEventType() {
         return eventType;
     }
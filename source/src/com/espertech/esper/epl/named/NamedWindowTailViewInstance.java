@@ -35,12 +35,14 @@ public class NamedWindowTailViewInstance extends ViewSupport implements Iterable
 
     private volatile Map<EPStatementAgentInstanceHandle, List<NamedWindowConsumerView>> consumersInContext;  // handles as copy-on-write
     private volatile long numberOfEvents;
+    private final NamedWindowVersionedRows versionedRows;
 
     public NamedWindowTailViewInstance(NamedWindowRootViewInstance rootViewInstance, NamedWindowTailView tailView, AgentInstanceContext agentInstanceContext) {
         this.rootViewInstance = rootViewInstance;
         this.tailView = tailView;
         this.agentInstanceContext = agentInstanceContext;
         this.consumersInContext = NamedWindowUtil.createConsumerMap(tailView.isPrioritized());
+        this.versionedRows = tailView.isSnapshotReads() ? new NamedWindowVersionedRows() : null;
     }
 
     public void update(EventBean[] newData, EventBean[] oldData)
@@ -61,6 +63,11 @@ public class NamedWindowTailViewInstance extends ViewSupport implements Iterable
             numberOfEvents += newData.length;
         }
 
+        if (versionedRows != null)
+        {
+            versionedRows.update(newData, oldData);
+        }
+
         // Post to child views, only if there are listeners or subscribers
         if (tailView.getStatementResultService().isMakeNatural() || tailView.getStatementResultService().isMakeSynthetic())
         {
@@ -159,6 +166,16 @@ public class NamedWindowTailViewInstance extends ViewSupport implements Iterable
             return coll.iterator();
         }
 
+        if (versionedRows != null)
+        {
+            Collection<EventBean> rows = versionedRows.snapshot();
+            if (rows.isEmpty())
+            {
+                return CollectionUtil.NULL_EVENT_ITERATOR;
+            }
+            return new ArrayEventIterator(rows.toArray(new EventBean[rows.size()]));
+        }
+
         agentInstanceContext.getEpStatementAgentInstanceHandle().getStatementAgentInstanceLock().acquireReadLock();
         try
         {
@@ -192,6 +209,12 @@ public class NamedWindowTailViewInstance extends ViewSupport implements Iterable
             return tailView.getRevisionProcessor().getSnapshot(agentInstanceContext.getEpStatementAgentInstanceHandle(), parent);
         }
 
+        // read the latest version without the lock, the caller applies any filter
+        if (versionedRows != null)
+        {
+            return versionedRows.snapshot();
+        }
+
         agentInstanceContext.getEpStatementAgentInstanceHandle().getStatementAgentInstanceLock().acquireReadLock();
         try
         {
@@ -209,9 +232,13 @@ public class NamedWindowTailViewInstance extends ViewSupport implements Iterable
             return tailView.getRevisionProcessor().getSnapshot(agentInstanceContext.getEpStatementAgentInstanceHandle(), parent);
         }
 
+        // index lookup results can be views of the index, copy such that the result remains unchanged when the lock is released
         Collection<EventBean> indexedResult = rootViewInstance.snapshot(filter, annotations);
         if (indexedResult != null) {
-            return indexedResult;
+            if (indexedResult.isEmpty()) {
+                return Collections.EMPTY_LIST;
+            }
+            return new ArrayList<EventBean>(indexedResult);
         }
         Iterator<EventBean> it = parent.iterator();
         if (!it.hasNext()) {
@@ -0,0 +1,214 @@
+/**************************************************************************************
+ * Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ * http://esper.codehaus.org                                                          *
+ * http://www.espertech.com                                                           *
+ * ---------------------------------------------------------------------------------- *
+ * The software in this package is published under the terms of the GPL license       *
+ * a copy of which has been included with this distribution in the license.txt file.  *
+ **************************************************************************************/
+package com.espertech.esper.epl.named;
+
+import com.espertech.esper.client.EventBean;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Multi-version row storage of named window contents, for reading a consistent version of the named window
+ * without holding the named window lock.
+ * <p>
+ * A single writer holding the named window lock applies each insert and remove stream as a new version.
+ * Rows are kept in insertion order in a linked list that readers traverse without locking, each row carrying
+ * the version that inserted it and the version that removed it. Readers register the version they read, and
+ * removed rows are unlinked by the writer only once no registered reader reads a version that the row is visible in.
+ */
+public class NamedWindowVersionedRows
+{
+    private static final int MIN_RECLAIM_THRESHOLD = 32;
+
+    private final AtomicLong version = new AtomicLong();
+    private final Set<AtomicLong> readerVersions = Collections.newSetFromMap(new ConcurrentHashMap<AtomicLong, Boolean>());
+
+    // writer only
+    private final Row head = new Row(null, 0);
+    private final Map<EventBean, Row> rowsByEvent = new HashMap<EventBean, Row>();
+    private Row tail = head;
+    private int numRows;
+    private int numRemovedRows;
+
+    /**
+     * Apply the insert and remove stream of the named window as a new version, for the writer holding the named window lock.
+     * @param newData events entering the named window, or null if none
+     * @param oldData events leaving the named window, or null if none
+     */
+    public void update(EventBean[] newData, EventBean[] oldData)
+    {
+        long next = version.get() + 1;
+
+        // an event that enters and leaves in the same update is inserted and removed in the same version
+        if (newData != null)
+        {
+            for (EventBean theEvent : newData)
+            {
+                Row row = new Row(theEvent, next);
+                Row existing = rowsByEvent.get(theEvent);
+                if (existing == null)
+                {
+                    rowsByEvent.put(theEvent, row);
+                }
+                else
+                {
+                    while (existing.sameEvent != null)
+                    {
+                        existing = existing.sameEvent;
+                    }
+                    existing.sameEvent = row;
+                }
+                tail.next = row;
+                tail = row;
+                numRows++;
+            }
+        }
+
+        if (oldData != null)
+        {
+            for (EventBean theEvent : oldData)
+            {
+                Row row = rowsByEvent.remove(theEvent);
+                if (row == null)
+                {
+                    continue;
+                }
+                if (row.sameEvent != null)
+                {
+                    rowsByEvent.put(theEvent, row.sameEvent);
+                }
+                row.removedVersion = next;
+                numRows--;
+                numRemovedRows++;
+            }
+        }
+
+        version.set(next);
+
+        if (numRemovedRows >= Math.max(MIN_RECLAIM_THRESHOLD, numRows))
+        {
+            reclaim();
+        }
+    }
+
+    /**
+     * Returns the rows of the latest version, without locking.
+     * @return rows in insertion order
+     */
+    public Collection<EventBean> snapshot()
+    {
+        AtomicLong readerVersion = new AtomicLong();
+        readerVersions.add(readerVersion);
+        try
+        {
+            // the version is registered before it is read, so the writer does not reclaim rows visible in the version
+            long readVersion;
+            do
+            {
+                readVersion = version.get();
+                readerVersion.set(readVersion);
+            }
+            while (version.get() != readVersion);
+
+            ArrayDeque<EventBean> rows = new ArrayDeque<EventBean>();
+            for (Row row = head.next; row != null; row = row.next)
+            {
+                if (row.insertedVersion > readVersion)
+                {
+                    break;
+                }
+                long removedVersion = row.removedVersion;
+                if ((removedVersion == 0) || (removedVersion > readVersion))
+                {
+                    rows.add(row.theEvent);
+                }
+            }
+            return rows;
+        }
+        finally
+        {
+            readerVersions.remove(readerVersion);
+        }
+    }
+
+    /**
+     * Returns the latest version.
+     * @return version
+     */
+    public long getVersion()
+    {
+        return version.get();
+    }
+
+    /**
+     * Returns the number of rows in the latest version.
+     * @return number of rows
+     */
+    public int getNumRows()
+    {
+        return numRows;
+    }
+
+    /**
+     * Returns the number of removed rows that are not yet reclaimed.
+     * @return number of rows
+     */
+    public int getNumRemovedRows()
+    {
+        return numRemovedRows;
+    }
+
+    /**
+     * Unlink removed rows that no registered reader reads, for the writer holding the named window lock.
+     */
+    public void reclaim()
+    {
+        long oldestReadVersion = version.get();
+        for (AtomicLong readerVersion : readerVersions)
+        {
+            oldestReadVersion = Math.min(oldestReadVersion, readerVersion.get());
+        }
+
+        // readers positioned on an unlinked row continue to the rows following it as the row keeps its next row
+        Row previous = head;
+        for (Row row = head.next; row != null; row = row.next)
+        {
+            long removedVersion = row.removedVersion;
+            if ((removedVersion != 0) && (removedVersion <= oldestReadVersion))
+            {
+                previous.next = row.next;
+                numRemovedRows--;
+                if (row == tail)
+                {
+                    tail = previous;
+                }
+            }
+            else
+            {
+                previous = row;
+            }
+        }
+    }
+
+    private static class Row
+    {
+        private final EventBean theEvent;
+        private final long insertedVersion;
+        private volatile long removedVersion;
+        private volatile Row next;
+        private Row sameEvent;    // writer only, a later row for the same event
+
+        private Row(EventBean theEvent, long insertedVersion)
+        {
+            this.theEvent = theEvent;
+            this.insertedVersion = insertedVersion;
+        }
+    }
+}
@@ -13,6 +13,8 @@ import com.espertech.esper.collection.MultiKey;
 import com.espertech.esper.collection.UniformPair;
 import com.espertech.esper.epl.core.ResultSetProcessor;
 import com.espertech.esper.epl.expression.ExprEvaluatorContext;
+import com.espertech.esper.epl.metric.InstrumentationPath;
+import com.espertech.esper.epl.metric.InstrumentationStage;
 
 import java.util.Iterator;
 import java.util.Set;
@@ -34,15 +36,27 @@ public class OutputProcessViewBaseCallback extends OutputProcessViewBase
     }
 
     public void process(Set<MultiKey<EventBean>> newEvents, Set<MultiKey<EventBean>> oldEvents, ExprEvaluatorContext exprEvaluatorContext) {
+        if (InstrumentationPath.isInstrumentationEnabled) {
+            InstrumentationPath.getInstrumentation().qStage(InstrumentationStage.OUTPUT);
+        }
         UniformPair<EventBean[]> pair = resultSetProcessor.processJoinResult(newEvents, oldEvents, false);
         callback.outputViaCallback(pair.getFirst());
+        if (InstrumentationPath.isInstrumentationEnabled) {
+            InstrumentationPath.getInstrumentation().aStage(InstrumentationStage.OUTPUT);
+        }
     }
 
     public void terminated() {
     }
 
     public void update(EventBean[] newData, EventBean[] oldData) {
+        if (InstrumentationPath.isInstrumentationEnabled) {
+            InstrumentationPath.getInstrumentation().qStage(InstrumentationStage.OUTPUT);
+        }
         UniformPair<EventBean[]> pair = resultSetProcessor.processViewResult(newData, oldData, false);
         callback.outputViaCallback(pair.getFirst());
+        if (InstrumentationPath.isInstrumentationEnabled) {
+            InstrumentationPath.getInstrumentation().aStage(InstrumentationStage.OUTPUT);
+        }
     }
 }
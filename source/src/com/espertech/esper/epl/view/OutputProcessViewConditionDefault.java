@@ -14,6 +14,8 @@ import com.espertech.esper.collection.UniformPair;
 import com.espertech.esper.core.context.util.AgentInstanceContext;
 import com.espertech.esper.epl.core.ResultSetProcessor;
 import com.espertech.esper.epl.expression.ExprEvaluatorContext;
+import com.espertech.esper.epl.metric.InstrumentationPath;
+import com.espertech.esper.epl.metric.InstrumentationStage;
 import com.espertech.esper.event.EventBeanUtility;
 import com.espertech.esper.util.AuditPath;
 import com.espertech.esper.util.ExecutionPathDebugLog;
@@ -55,6 +57,10 @@ public class OutputProcessViewConditionDefault extends OutputProcessViewBaseWAft
      */
     public void update(EventBean[] newData, EventBean[] oldData)
     {
+        if (InstrumentationPath.isInstrumentationEnabled)
+        {
+            InstrumentationPath.getInstrumentation().qStage(InstrumentationStage.OUTPUT);
+        }
         if ((ExecutionPathDebugLog.isDebugEnabled) && (log.isDebugEnabled()))
         {
             log.debug(".update Received update, " +
@@ -64,6 +70,10 @@ public class OutputProcessViewConditionDefault extends OutputProcessViewBaseWAft
 
         if (!super.checkAfterCondition(newData, parent.getStatementContext()))
         {
+            if (InstrumentationPath.isInstrumentationEnabled)
+            {
+                InstrumentationPath.getInstrumentation().aStage(InstrumentationStage.OUTPUT);
+            }
             return;
         }
 
@@ -82,6 +92,10 @@ public class OutputProcessViewConditionDefault extends OutputProcessViewBaseWAft
         viewEventsList.add(new UniformPair<EventBean[]>(newData, oldData));
 
         outputCondition.updateOutputCondition(newDataLength, oldDataLength);
+        if (InstrumentationPath.isInstrumentationEnabled)
+        {
+            InstrumentationPath.getInstrumentation().aStage(InstrumentationStage.OUTPUT);
+        }
     }
 
     /**
@@ -91,6 +105,10 @@ public class OutputProcessViewConditionDefault extends OutputProcessViewBaseWAft
      */
     public void process(Set<MultiKey<EventBean>> newEvents, Set<MultiKey<EventBean>> oldEvents, ExprEvaluatorContext exprEvaluatorContext)
     {
+        if (InstrumentationPath.isInstrumentationEnabled)
+        {
+            InstrumentationPath.getInstrumentation().qStage(InstrumentationStage.OUTPUT);
+        }
         if ((ExecutionPathDebugLog.isDebugEnabled) && (log.isDebugEnabled()))
         {
             log.debug(".process Received update, " +
@@ -100,6 +118,10 @@ public class OutputProcessViewConditionDefault extends OutputProcessViewBaseWAft
 
         if (!super.checkAfterCondition(newEvents, parent.getStatementContext()))
         {
+            if (InstrumentationPath.isInstrumentationEnabled)
+            {
+                InstrumentationPath.getInstrumentation().aStage(InstrumentationStage.OUTPUT);
+            }
             return;
         }
 
@@ -139,6 +161,10 @@ public class OutputProcessViewConditionDefault extends OutputProcessViewBaseWAft
         joinEventsSet.add(new UniformPair<Set<MultiKey<EventBean>>>(copyNew, copyOld));
 
         outputCondition.updateOutputCondition(newEventsSize, oldEventsSize);
+        if (InstrumentationPath.isInstrumentationEnabled)
+        {
+            InstrumentationPath.getInstrumentation().aStage(InstrumentationStage.OUTPUT);
+        }
     }
 
 	/**
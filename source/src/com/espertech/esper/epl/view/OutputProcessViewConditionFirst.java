@@ -14,6 +14,8 @@ import com.espertech.esper.collection.UniformPair;
 import com.espertech.esper.core.context.util.AgentInstanceContext;
 import com.espertech.esper.epl.core.ResultSetProcessor;
 import com.espertech.esper.epl.expression.ExprEvaluatorContext;
+import com.espertech.esper.epl.metric.InstrumentationPath;
+import com.espertech.esper.epl.metric.InstrumentationStage;
 import com.espertech.esper.epl.spec.OutputLimitLimitType;
 import com.espertech.esper.event.EventBeanUtility;
 import com.espertech.esper.util.AuditPath;
@@ -57,6 +59,10 @@ public class OutputProcessViewConditionFirst extends OutputProcessViewBaseWAfter
      */
     public void update(EventBean[] newData, EventBean[] oldData)
     {
+        if (InstrumentationPath.isInstrumentationEnabled)
+        {
+            InstrumentationPath.getInstrumentation().qStage(InstrumentationStage.OUTPUT);
+        }
         if ((ExecutionPathDebugLog.isDebugEnabled) && (log.isDebugEnabled()))
         {
             log.debug(".update Received update, " +
@@ -66,6 +72,10 @@ public class OutputProcessViewConditionFirst extends OutputProcessViewBaseWAfter
 
         if (!super.checkAfterCondition(newData, parent.getStatementContext()))
         {
+            if (InstrumentationPath.isInstrumentationEnabled)
+            {
+                InstrumentationPath.getInstrumentation().aStage(InstrumentationStage.OUTPUT);
+            }
             return;
         }
 
@@ -78,6 +88,10 @@ public class OutputProcessViewConditionFirst extends OutputProcessViewBaseWAfter
             viewEventsList.clear();
 
             if (newOldEvents == null || (newOldEvents.getFirst() == null && newOldEvents.getSecond() == null)) {
+                if (InstrumentationPath.isInstrumentationEnabled)
+                {
+                    InstrumentationPath.getInstrumentation().aStage(InstrumentationStage.OUTPUT);
+                }
                 return; // nothing to indicate
             }
 
@@ -95,6 +109,10 @@ public class OutputProcessViewConditionFirst extends OutputProcessViewBaseWAfter
                 if (AuditPath.isAuditEnabled) {
                     OutputStrategyUtil.indicateEarlyReturn(parent.getStatementContext(), newOldEvents);
                 }
+                if (InstrumentationPath.isInstrumentationEnabled)
+                {
+                    InstrumentationPath.getInstrumentation().aStage(InstrumentationStage.OUTPUT);
+                }
                 return;
             }
 
@@ -118,6 +136,10 @@ public class OutputProcessViewConditionFirst extends OutputProcessViewBaseWAfter
         }
 
         outputCondition.updateOutputCondition(newDataLength, oldDataLength);
+        if (InstrumentationPath.isInstrumentationEnabled)
+        {
+            InstrumentationPath.getInstrumentation().aStage(InstrumentationStage.OUTPUT);
+        }
     }
 
     /**
@@ -127,6 +149,10 @@ public class OutputProcessViewConditionFirst extends OutputProcessViewBaseWAfter
      */
     public void process(Set<MultiKey<EventBean>> newEvents, Set<MultiKey<EventBean>> oldEvents, ExprEvaluatorContext exprEvaluatorContext)
     {
+        if (InstrumentationPath.isInstrumentationEnabled)
+        {
+            InstrumentationPath.getInstrumentation().qStage(InstrumentationStage.OUTPUT);
+        }
         if ((ExecutionPathDebugLog.isDebugEnabled) && (log.isDebugEnabled()))
         {
             log.debug(".process Received update, " +
@@ -136,6 +162,10 @@ public class OutputProcessViewConditionFirst extends OutputProcessViewBaseWAfter
 
         if (!super.checkAfterCondition(newEvents, parent.getStatementContext()))
         {
+            if (InstrumentationPath.isInstrumentationEnabled)
+            {
+                InstrumentationPath.getInstrumentation().aStage(InstrumentationStage.OUTPUT);
+            }
             return;
         }
 
@@ -169,6 +199,10 @@ public class OutputProcessViewConditionFirst extends OutputProcessViewBaseWAfter
             joinEventsSet.clear();
 
             if (newOldEvents == null || (newOldEvents.getFirst() == null && newOldEvents.getSecond() == null)) {
+                if (InstrumentationPath.isInstrumentationEnabled)
+                {
+                    InstrumentationPath.getInstrumentation().aStage(InstrumentationStage.OUTPUT);
+                }
                 return; // nothing to indicate
             }
 
@@ -186,6 +220,10 @@ public class OutputProcessViewConditionFirst extends OutputProcessViewBaseWAfter
                 if (AuditPath.isAuditEnabled) {
                     OutputStrategyUtil.indicateEarlyReturn(parent.getStatementContext(), newOldEvents);
                 }
+                if (InstrumentationPath.isInstrumentationEnabled)
+                {
+                    InstrumentationPath.getInstrumentation().aStage(InstrumentationStage.OUTPUT);
+                }
                 return;
             }
 
@@ -231,6 +269,10 @@ public class OutputProcessViewConditionFirst extends OutputProcessViewBaseWAfter
         }
 
         outputCondition.updateOutputCondition(newEventsSize, oldEventsSize);
+        if (InstrumentationPath.isInstrumentationEnabled)
+        {
+            InstrumentationPath.getInstrumentation().aStage(InstrumentationStage.OUTPUT);
+        }
     }
 
 	/**
@@ -14,6 +14,8 @@ import com.espertech.esper.collection.UniformPair;
 import com.espertech.esper.core.context.util.AgentInstanceContext;
 import com.espertech.esper.epl.core.ResultSetProcessor;
 import com.espertech.esper.epl.expression.ExprEvaluatorContext;
+import com.espertech.esper.epl.metric.InstrumentationPath;
+import com.espertech.esper.epl.metric.InstrumentationStage;
 import com.espertech.esper.util.ExecutionPathDebugLog;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -48,6 +50,10 @@ public class OutputProcessViewConditionSnapshot extends OutputProcessViewBaseWAf
      */
     public void update(EventBean[] newData, EventBean[] oldData)
     {
+        if (InstrumentationPath.isInstrumentationEnabled)
+        {
+            InstrumentationPath.getInstrumentation().qStage(InstrumentationStage.OUTPUT);
+        }
         if ((ExecutionPathDebugLog.isDebugEnabled) && (log.isDebugEnabled()))
         {
             log.debug(".update Received update, " +
@@ -59,6 +65,10 @@ public class OutputProcessViewConditionSnapshot extends OutputProcessViewBaseWAf
 
         if (!super.checkAfterCondition(newData, parent.getStatementContext()))
         {
+            if (InstrumentationPath.isInstrumentationEnabled)
+            {
+                InstrumentationPath.getInstrumentation().aStage(InstrumentationStage.OUTPUT);
+            }
             return;
         }
 
@@ -75,6 +85,10 @@ public class OutputProcessViewConditionSnapshot extends OutputProcessViewBaseWAf
         }
 
         outputCondition.updateOutputCondition(newDataLength, oldDataLength);
+        if (InstrumentationPath.isInstrumentationEnabled)
+        {
+            InstrumentationPath.getInstrumentation().aStage(InstrumentationStage.OUTPUT);
+        }
     }
 
     /**
@@ -84,6 +98,10 @@ public class OutputProcessViewConditionSnapshot extends OutputProcessViewBaseWAf
      */
     public void process(Set<MultiKey<EventBean>> newEvents, Set<MultiKey<EventBean>> oldEvents, ExprEvaluatorContext exprEvaluatorContext)
     {
+        if (InstrumentationPath.isInstrumentationEnabled)
+        {
+            InstrumentationPath.getInstrumentation().qStage(InstrumentationStage.OUTPUT);
+        }
         if ((ExecutionPathDebugLog.isDebugEnabled) && (log.isDebugEnabled()))
         {
             log.debug(".process Received update, " +
@@ -95,6 +113,10 @@ public class OutputProcessViewConditionSnapshot extends OutputProcessViewBaseWAf
 
         if (!super.checkAfterCondition(newEvents, parent.getStatementContext()))
         {
+            if (InstrumentationPath.isInstrumentationEnabled)
+            {
+                InstrumentationPath.getInstrumentation().aStage(InstrumentationStage.OUTPUT);
+            }
             return;
         }
 
@@ -112,6 +134,10 @@ public class OutputProcessViewConditionSnapshot extends OutputProcessViewBaseWAf
         }
 
         outputCondition.updateOutputCondition(newEventsSize, oldEventsSize);
+        if (InstrumentationPath.isInstrumentationEnabled)
+        {
+            InstrumentationPath.getInstrumentation().aStage(InstrumentationStage.OUTPUT);
+        }
     }
 
 	/**
@@ -14,6 +14,8 @@ import com.espertech.esper.collection.UniformPair;
 import com.espertech.esper.core.service.UpdateDispatchView;
 import com.espertech.esper.epl.core.ResultSetProcessor;
 import com.espertech.esper.epl.expression.ExprEvaluatorContext;
+import com.espertech.esper.epl.metric.InstrumentationPath;
+import com.espertech.esper.epl.metric.InstrumentationStage;
 import com.espertech.esper.util.AuditPath;
 
 import java.util.Iterator;
@@ -39,6 +41,10 @@ public class OutputProcessViewDirect extends OutputProcessViewBase
      */
     public void update(EventBean[] newData, EventBean[] oldData)
     {
+        if (InstrumentationPath.isInstrumentationEnabled)
+        {
+            InstrumentationPath.getInstrumentation().qStage(InstrumentationStage.OUTPUT);
+        }
         boolean isGenerateSynthetic = parent.getStatementResultService().isMakeSynthetic();
         boolean isGenerateNatural = parent.getStatementResultService().isMakeNatural();
 
@@ -49,6 +55,10 @@ public class OutputProcessViewDirect extends OutputProcessViewBase
             if (AuditPath.isAuditEnabled) {
                 OutputStrategyUtil.indicateEarlyReturn(parent.getStatementContext(), newOldEvents);
             }
+            if (InstrumentationPath.isInstrumentationEnabled)
+            {
+                InstrumentationPath.getInstrumentation().aStage(InstrumentationStage.OUTPUT);
+            }
             return;
         }
 
@@ -64,6 +74,10 @@ public class OutputProcessViewDirect extends OutputProcessViewBase
         {
             postProcess(forceOutput, newOldEvents, childView);
         }
+        if (InstrumentationPath.isInstrumentationEnabled)
+        {
+            InstrumentationPath.getInstrumentation().aStage(InstrumentationStage.OUTPUT);
+        }
     }
 
     /**
@@ -73,6 +87,10 @@ public class OutputProcessViewDirect extends OutputProcessViewBase
      */
     public void process(Set<MultiKey<EventBean>> newEvents, Set<MultiKey<EventBean>> oldEvents, ExprEvaluatorContext exprEvaluatorContext)
     {
+        if (InstrumentationPath.isInstrumentationEnabled)
+        {
+            InstrumentationPath.getInstrumentation().qStage(InstrumentationStage.OUTPUT);
+        }
         boolean isGenerateSynthetic = parent.getStatementResultService().isMakeSynthetic();
         boolean isGenerateNatural = parent.getStatementResultService().isMakeNatural();
 
@@ -83,11 +101,19 @@ public class OutputProcessViewDirect extends OutputProcessViewBase
             if (AuditPath.isAuditEnabled) {
                 OutputStrategyUtil.indicateEarlyReturn(parent.getStatementContext(), newOldEvents);
             }
+            if (InstrumentationPath.isInstrumentationEnabled)
+            {
+                InstrumentationPath.getInstrumentation().aStage(InstrumentationStage.OUTPUT);
+            }
             return;
         }
 
         if (newOldEvents == null)
         {
+            if (InstrumentationPath.isInstrumentationEnabled)
+            {
+                InstrumentationPath.getInstrumentation().aStage(InstrumentationStage.OUTPUT);
+            }
             return;
         }
 
@@ -96,6 +122,10 @@ public class OutputProcessViewDirect extends OutputProcessViewBase
         {
             postProcess(false, newOldEvents, childView);
         }
+        if (InstrumentationPath.isInstrumentationEnabled)
+        {
+            InstrumentationPath.getInstrumentation().aStage(InstrumentationStage.OUTPUT);
+        }
     }
 
     protected void postProcess(boolean force, UniformPair<EventBean[]> newOldEvents, UpdateDispatchView childView) {
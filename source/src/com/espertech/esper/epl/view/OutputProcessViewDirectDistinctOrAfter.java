@@ -14,6 +14,8 @@ import com.espertech.esper.collection.UniformPair;
 import com.espertech.esper.core.service.UpdateDispatchView;
 import com.espertech.esper.epl.core.ResultSetProcessor;
 import com.espertech.esper.epl.expression.ExprEvaluatorContext;
+import com.espertech.esper.epl.metric.InstrumentationPath;
+import com.espertech.esper.epl.metric.InstrumentationStage;
 import com.espertech.esper.event.EventBeanUtility;
 import com.espertech.esper.util.AuditPath;
 import com.espertech.esper.util.ExecutionPathDebugLog;
@@ -45,6 +47,10 @@ public class OutputProcessViewDirectDistinctOrAfter extends OutputProcessViewBas
      */
     public void update(EventBean[] newData, EventBean[] oldData)
     {
+        if (InstrumentationPath.isInstrumentationEnabled)
+        {
+            InstrumentationPath.getInstrumentation().qStage(InstrumentationStage.OUTPUT);
+        }
         if ((ExecutionPathDebugLog.isDebugEnabled) && (log.isDebugEnabled()))
         {
             log.debug(".update Received update, " +
@@ -59,6 +65,10 @@ public class OutputProcessViewDirectDistinctOrAfter extends OutputProcessViewBas
 
         if (!super.checkAfterCondition(newOldEvents, parent.getStatementContext()))
         {
+            if (InstrumentationPath.isInstrumentationEnabled)
+            {
+                InstrumentationPath.getInstrumentation().aStage(InstrumentationStage.OUTPUT);
+            }
             return;
         }
 
@@ -73,6 +83,10 @@ public class OutputProcessViewDirectDistinctOrAfter extends OutputProcessViewBas
             if (AuditPath.isAuditEnabled) {
                 OutputStrategyUtil.indicateEarlyReturn(parent.getStatementContext(), newOldEvents);
             }
+            if (InstrumentationPath.isInstrumentationEnabled)
+            {
+                InstrumentationPath.getInstrumentation().aStage(InstrumentationStage.OUTPUT);
+            }
             return;
         }
 
@@ -88,6 +102,10 @@ public class OutputProcessViewDirectDistinctOrAfter extends OutputProcessViewBas
         {
             postProcess(forceOutput, newOldEvents, childView);
         }
+        if (InstrumentationPath.isInstrumentationEnabled)
+        {
+            InstrumentationPath.getInstrumentation().aStage(InstrumentationStage.OUTPUT);
+        }
     }
 
     /**
@@ -97,6 +115,10 @@ public class OutputProcessViewDirectDistinctOrAfter extends OutputProcessViewBas
      */
     public void process(Set<MultiKey<EventBean>> newEvents, Set<MultiKey<EventBean>> oldEvents, ExprEvaluatorContext exprEvaluatorContext)
     {
+        if (InstrumentationPath.isInstrumentationEnabled)
+        {
+            InstrumentationPath.getInstrumentation().qStage(InstrumentationStage.OUTPUT);
+        }
         if ((ExecutionPathDebugLog.isDebugEnabled) && (log.isDebugEnabled()))
         {
             log.debug(".process Received update, " +
@@ -111,6 +133,10 @@ public class OutputProcessViewDirectDistinctOrAfter extends OutputProcessViewBas
 
         if (!checkAfterCondition(newOldEvents, parent.getStatementContext()))
         {
+            if (InstrumentationPath.isInstrumentationEnabled)
+            {
+                InstrumentationPath.getInstrumentation().aStage(InstrumentationStage.OUTPUT);
+            }
             return;
         }
 
@@ -125,11 +151,19 @@ public class OutputProcessViewDirectDistinctOrAfter extends OutputProcessViewBas
             if (AuditPath.isAuditEnabled) {
                 OutputStrategyUtil.indicateEarlyReturn(parent.getStatementContext(), newOldEvents);
             }
+            if (InstrumentationPath.isInstrumentationEnabled)
+            {
+                InstrumentationPath.getInstrumentation().aStage(InstrumentationStage.OUTPUT);
+            }
             return;
         }
 
         if (newOldEvents == null)
         {
+            if (InstrumentationPath.isInstrumentationEnabled)
+            {
+                InstrumentationPath.getInstrumentation().aStage(InstrumentationStage.OUTPUT);
+            }
             return;
         }
 
@@ -138,6 +172,10 @@ public class OutputProcessViewDirectDistinctOrAfter extends OutputProcessViewBas
         {
             postProcess(false, newOldEvents, childView);
         }
+        if (InstrumentationPath.isInstrumentationEnabled)
+        {
+            InstrumentationPath.getInstrumentation().aStage(InstrumentationStage.OUTPUT);
+        }
     }
 
     protected void postProcess(boolean force, UniformPair<EventBean[]> newOldEvents, UpdateDispatchView childView) {
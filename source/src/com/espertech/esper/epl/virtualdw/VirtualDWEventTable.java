@@ -50,6 +50,14 @@ public class VirtualDWEventTable implements EventTable
         return true;
     }
 
+    public int getNumberOfEvents() {
+        return -1;
+    }
+
+    public int getNumKeys() {
+        return -1;
+    }
+
     public void clear() {
     }
 
@@ -0,0 +1,143 @@
+/**************************************************************************************
+ * Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ * http://esper.codehaus.org                                                          *
+ * http://www.espertech.com                                                           *
+ * ---------------------------------------------------------------------------------- *
+ * The software in this package is published under the terms of the GPL license       *
+ * a copy of which has been included with this distribution in the license.txt file.  *
+ **************************************************************************************/
+package com.espertech.esper.event.columnar;
+
+import com.espertech.esper.client.EventBean;
+import com.espertech.esper.client.EventPropertyGetter;
+import com.espertech.esper.client.EventType;
+import com.espertech.esper.client.PropertyAccessException;
+
+/**
+ * Event bean representing a row of a {@link ColumnarEventStore}, reading property values from the store.
+ * <p>
+ * The underlying Map or object-array is materialized from the row on each access.
+ * Once the row is removed from the store the event bean holds a copy of the values of the row.
+ * Event beans can be read by any thread, see {@link ColumnarEventStore}.
+ */
+public abstract class ColumnarEventBean implements EventBean
+{
+    private final ColumnarEventStore store;
+    private final int row;
+    private volatile Object[] detachedValues;
+
+    /**
+     * Ctor.
+     * @param store store
+     * @param row row
+     */
+    protected ColumnarEventBean(ColumnarEventStore store, int row)
+    {
+        this.store = store;
+        this.row = row;
+    }
+
+    /**
+     * Returns the store.
+     * @return store
+     */
+    public ColumnarEventStore getStore()
+    {
+        return store;
+    }
+
+    /**
+     * Returns the row.
+     * @return row
+     */
+    public int getRow()
+    {
+        return row;
+    }
+
+    /**
+     * Returns true if the row was removed from the store.
+     * @return indicator
+     */
+    public boolean isDetached()
+    {
+        return detachedValues != null;
+    }
+
+    /**
+     * Returns a property value.
+     * @param column column of the property in the store
+     * @return value
+     */
+    public Object getColumnValue(int column)
+    {
+        Object[] values = detachedValues;
+        if (values != null)
+        {
+            return values[column];
+        }
+        return store.getValue(this, column);
+    }
+
+    /**
+     * Returns the property values of the row.
+     * @return values per column
+     */
+    protected Object[] getColumnValues()
+    {
+        Object[] values = detachedValues;
+        if (values != null)
+        {
+            return values;
+        }
+        return store.getValues(this);
+    }
+
+    /**
+     * Returns the values kept once the row was removed, or null if the row was not removed.
+     * @return values per column
+     */
+    protected Object[] getDetachedValues()
+    {
+        return detachedValues;
+    }
+
+    /**
+     * Keeps the values of the row, as the row is removed from the store, under the write lock of the store.
+     * @param values values per column
+     */
+    protected void detach(Object[] values)
+    {
+        this.detachedValues = values;
+    }
+
+    public EventType getEventType()
+    {
+        return store.getEventType();
+    }
+
+    public Object get(String propertyExpression) throws PropertyAccessException
+    {
+        int column = store.getColumnIndex(propertyExpression);
+        if (column != -1)
+        {
+            return getColumnValue(column);
+        }
+        EventPropertyGetter getter = store.getEventType().getGetter(propertyExpression);
+        if (getter == null)
+        {
+            throw new PropertyAccessException("Property named '" + propertyExpression + "' is not a valid property name for this type");
+        }
+        return getter.get(this);
+    }
+
+    public Object getFragment(String propertyExpression) throws PropertyAccessException
+    {
+        EventPropertyGetter getter = store.getEventType().getGetter(propertyExpression);
+        if (getter == null)
+        {
+            throw new PropertyAccessException("Property named '" + propertyExpression + "' is not a valid property name for this type");
+        }
+        return getter.getFragment(this);
+    }
+}
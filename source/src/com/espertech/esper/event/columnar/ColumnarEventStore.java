@@ -0,0 +1,936 @@
+/**************************************************************************************
+ * Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ * http://esper.codehaus.org                                                          *
+ * http://www.espertech.com                                                           *
+ * ---------------------------------------------------------------------------------- *
+ * The software in this package is published under the terms of the GPL license       *
+ * a copy of which has been included with this distribution in the license.txt file.  *
+ **************************************************************************************/
+package com.espertech.esper.event.columnar;
+
+import com.espertech.esper.client.EventBean;
+import com.espertech.esper.client.EventPropertyDescriptor;
+import com.espertech.esper.client.EventType;
+import com.espertech.esper.event.arr.ObjectArrayEventType;
+import com.espertech.esper.event.map.MapEventType;
+import com.espertech.esper.util.JavaClassHelper;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Columnar store of the rows of a Map or object-array event type, keeping property values outside of the Java heap.
+ * <p>
+ * Rows are grouped into segments of a fixed number of rows. Each segment keeps a direct buffer holding, per column,
+ * the fixed-width values of numeric, boolean and character properties, null bits and, for string properties, the
+ * offset and length of the characters held in a second, growable direct buffer of the segment. Properties of other
+ * types, such as nested maps, arrays and objects, are kept in on-heap arrays per segment. Values are coerced to the
+ * declared property type.
+ * <p>
+ * Each row is represented by a single {@link ColumnarEventBean} holding the row id, which is what data windows,
+ * indexes and consumers refer to. When a row is removed its event bean is detached, i.e. receives a copy of the
+ * row's values, before the row is reused, so that event beans remain valid after removal. Rows are iterated in
+ * the order they were added.
+ * <p>
+ * Rows are added and removed under the statement lock of the named window. Event beans however are read by
+ * other threads as well, such as by listeners after dispatch, by consumer statements under their own statement
+ * lock and by fire-and-forget queries. The store therefore keeps a read-write lock: adding and removing rows,
+ * which includes detaching event beans and compacting strings, holds the write lock, and reading the values of
+ * a row holds the read lock. A reader thus either reads a live row or the values of a detached event bean.
+ * <p>
+ * Direct buffers are released explicitly when a string buffer is replaced by compaction and when the store is
+ * destroyed, rather than when garbage collection happens to collect them. As both hold the write lock, no reader
+ * can be reading the buffer released.
+ */
+public class ColumnarEventStore
+{
+    private static final Log log = LogFactory.getLog(ColumnarEventStore.class);
+
+    private static final int SEGMENT_SHIFT = 12;
+    private static final int SEGMENT_ROWS = 1 << SEGMENT_SHIFT;
+    private static final int SEGMENT_MASK = SEGMENT_ROWS - 1;
+    private static final int INITIAL_VAR_CAPACITY = 16 * 1024;
+
+    private static final byte KIND_LONG = 0;
+    private static final byte KIND_INT = 1;
+    private static final byte KIND_DOUBLE = 2;
+    private static final byte KIND_FLOAT = 3;
+    private static final byte KIND_SHORT = 4;
+    private static final byte KIND_BYTE = 5;
+    private static final byte KIND_BOOLEAN = 6;
+    private static final byte KIND_CHAR = 7;
+    private static final byte KIND_STRING = 8;
+    private static final byte KIND_OBJECT = 9;
+
+    // high bit of a string length indicates two bytes per character
+    private static final int WIDE_FLAG = 0x80000000;
+
+    // Unsafe.invokeCleaner on Java 9 and later, null on earlier versions that use the buffer's cleaner instead
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+
+    static
+    {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try
+        {
+            Class unsafeClass = Class.forName("sun.misc.Unsafe");
+            invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = field.get(null);
+        }
+        catch (Exception ex)
+        {
+            invokeCleaner = null;
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    private final EventType eventType;
+    private final boolean objectArray;
+    private final int arrayLength;
+    private final String[] names;
+    private final int[] arrayIndexes;
+    private final byte[] kinds;
+    private final int[] offsets;
+    private final int[] nullOffsets;
+    private final Map<String, Integer> columnIndexes;
+    private final int numObjectColumns;
+    private final int nextOffset;
+    private final int prevOffset;
+    private final int segmentBytes;
+
+    private Segment[] segments = new Segment[16];
+    private int numSegments;
+    private int numAllocated;
+    private int freeHead = -1;
+    private int head = -1;
+    private int tail = -1;
+    private int size;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Returns indicator whether an event type can be stored, i.e. whether it is a Map or object-array event type.
+     * @param eventType to check
+     * @return true if supported
+     */
+    public static boolean isSupported(EventType eventType)
+    {
+        return (eventType instanceof MapEventType) || (eventType instanceof ObjectArrayEventType);
+    }
+
+    /**
+     * Ctor.
+     * @param eventType Map or object-array event type of rows
+     */
+    public ColumnarEventStore(EventType eventType)
+    {
+        this.eventType = eventType;
+        this.objectArray = eventType instanceof ObjectArrayEventType;
+
+        EventPropertyDescriptor[] descriptors = eventType.getPropertyDescriptors();
+        int numColumns = descriptors.length;
+        names = new String[numColumns];
+        arrayIndexes = new int[numColumns];
+        kinds = new byte[numColumns];
+        offsets = new int[numColumns];
+        nullOffsets = new int[numColumns];
+        columnIndexes = new HashMap<String, Integer>();
+        Map<String, Integer> propertiesIndexes = objectArray ? ((ObjectArrayEventType) eventType).getPropertiesIndexes() : null;
+        arrayLength = objectArray ? propertiesIndexes.size() : 0;
+
+        int offset = 0;
+        int objectColumn = 0;
+        for (int i = 0; i < numColumns; i++)
+        {
+            EventPropertyDescriptor descriptor = descriptors[i];
+            names[i] = descriptor.getPropertyName();
+            columnIndexes.put(names[i], i);
+            if (objectArray)
+            {
+                arrayIndexes[i] = propertiesIndexes.get(names[i]);
+            }
+
+            kinds[i] = descriptor.isFragment() ? KIND_OBJECT : getKind(descriptor.getPropertyType());
+            if (kinds[i] == KIND_OBJECT)
+            {
+                offsets[i] = objectColumn++;
+                continue;
+            }
+            offsets[i] = offset;
+            offset += getWidth(kinds[i]) * SEGMENT_ROWS;
+            nullOffsets[i] = offset;
+            offset += SEGMENT_ROWS >> 3;
+        }
+        numObjectColumns = objectColumn;
+        nextOffset = offset;
+        offset += 4 * SEGMENT_ROWS;
+        prevOffset = offset;
+        offset += 4 * SEGMENT_ROWS;
+        segmentBytes = offset;
+    }
+
+    /**
+     * Returns the event type.
+     * @return type
+     */
+    public EventType getEventType()
+    {
+        return eventType;
+    }
+
+    /**
+     * Returns the number of rows.
+     * @return size
+     */
+    public int size()
+    {
+        lock.readLock().lock();
+        try
+        {
+            return size;
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of bytes allocated outside of the heap.
+     * @return bytes
+     */
+    public long getOffHeapBytes()
+    {
+        lock.readLock().lock();
+        try
+        {
+            long bytes = 0;
+            for (int i = 0; i < numSegments; i++)
+            {
+                bytes += segments[i].fixed.capacity();
+                if (segments[i].var != null)
+                {
+                    bytes += segments[i].var.capacity();
+                }
+            }
+            return bytes;
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Removes all rows and releases the direct buffers. Event beans of the rows are detached first,
+     * such that event beans held elsewhere, for example by consumers of a named window, remain valid.
+     * The store remains usable and allocates new buffers as rows are added.
+     */
+    public void destroy()
+    {
+        lock.writeLock().lock();
+        try
+        {
+            int row = head;
+            while (row != -1)
+            {
+                Segment segment = segments[row >>> SEGMENT_SHIFT];
+                int slot = row & SEGMENT_MASK;
+                segment.beans[slot].detach(readValues(row));
+                row = segment.fixed.getInt(nextOffset + slot * 4);
+            }
+
+            for (int i = 0; i < numSegments; i++)
+            {
+                release(segments[i].fixed);
+                if (segments[i].var != null)
+                {
+                    release(segments[i].var);
+                }
+                segments[i] = null;
+            }
+            numSegments = 0;
+            numAllocated = 0;
+            freeHead = -1;
+            head = -1;
+            tail = -1;
+            size = 0;
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the column of a property.
+     * @param propertyName name
+     * @return column or -1 if the name is not a property of the type
+     */
+    public int getColumnIndex(String propertyName)
+    {
+        Integer column = columnIndexes.get(propertyName);
+        return column == null ? -1 : column;
+    }
+
+    /**
+     * Returns the number of columns.
+     * @return columns
+     */
+    public int getNumColumns()
+    {
+        return names.length;
+    }
+
+    /**
+     * Returns the property name of a column.
+     * @param column column
+     * @return property name
+     */
+    public String getColumnName(int column)
+    {
+        return names[column];
+    }
+
+    /**
+     * Adds a row holding the property values of the event.
+     * @param theEvent Map or object-array event of the store's type, or an event bean of another store
+     * @return event bean representing the row
+     */
+    public ColumnarEventBean add(EventBean theEvent)
+    {
+        // the values of an event bean of another store are read before taking this store's lock
+        Object[] otherValues = null;
+        if (theEvent instanceof ColumnarEventBean)
+        {
+            otherValues = ((ColumnarEventBean) theEvent).getColumnValues();
+        }
+
+        lock.writeLock().lock();
+        try
+        {
+            int row = allocateRow();
+            Segment segment = segments[row >>> SEGMENT_SHIFT];
+            int slot = row & SEGMENT_MASK;
+
+            // the row is live and its strings null before writing, as writing a string may compact the segment's strings
+            ColumnarEventBean bean = objectArray ? new ColumnarObjectArrayEventBean(this, row) : new ColumnarMapEventBean(this, row);
+            segment.beans[slot] = bean;
+            for (int i = 0; i < names.length; i++)
+            {
+                if (kinds[i] == KIND_STRING)
+                {
+                    setNull(segment, slot, i, true);
+                }
+            }
+
+            if (otherValues != null)
+            {
+                for (int i = 0; i < names.length; i++)
+                {
+                    write(segment, slot, i, otherValues[i]);
+                }
+            }
+            else if (objectArray)
+            {
+                Object[] values = (Object[]) theEvent.getUnderlying();
+                for (int i = 0; i < names.length; i++)
+                {
+                    write(segment, slot, i, values[arrayIndexes[i]]);
+                }
+            }
+            else
+            {
+                Map values = (Map) theEvent.getUnderlying();
+                for (int i = 0; i < names.length; i++)
+                {
+                    write(segment, slot, i, values.get(names[i]));
+                }
+            }
+
+            // link at the tail, to iterate in insertion order
+            segment.fixed.putInt(prevOffset + slot * 4, tail);
+            segment.fixed.putInt(nextOffset + slot * 4, -1);
+            if (tail == -1)
+            {
+                head = row;
+            }
+            else
+            {
+                segments[tail >>> SEGMENT_SHIFT].fixed.putInt(nextOffset + (tail & SEGMENT_MASK) * 4, row);
+            }
+            tail = row;
+            size++;
+            return bean;
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the row of the event bean, detaching the event bean.
+     * @param bean event bean of a row of this store
+     * @return true if removed, false if the event bean was not of a row of this store
+     */
+    public boolean remove(ColumnarEventBean bean)
+    {
+        if (bean.getStore() != this)
+        {
+            return false;
+        }
+        lock.writeLock().lock();
+        try
+        {
+            return removeInternal(bean);
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns a property value of a row.
+     * @param row row
+     * @param column column
+     * @return value
+     */
+    public Object getValue(int row, int column)
+    {
+        lock.readLock().lock();
+        try
+        {
+            return readValue(row, column);
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns a property value of the row of an event bean, or the value held by the event bean if detached.
+     * @param bean event bean of a row of this store
+     * @param column column
+     * @return value
+     */
+    protected Object getValue(ColumnarEventBean bean, int column)
+    {
+        lock.readLock().lock();
+        try
+        {
+            Object[] detachedValues = bean.getDetachedValues();
+            if (detachedValues != null)
+            {
+                return detachedValues[column];
+            }
+            return readValue(bean.getRow(), column);
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the property values of the row of an event bean, or the values held by the event bean if detached.
+     * @param bean event bean of a row of this store
+     * @return values per column
+     */
+    protected Object[] getValues(ColumnarEventBean bean)
+    {
+        lock.readLock().lock();
+        try
+        {
+            Object[] detachedValues = bean.getDetachedValues();
+            if (detachedValues != null)
+            {
+                return detachedValues;
+            }
+            return readValues(bean.getRow());
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    private boolean removeInternal(ColumnarEventBean bean)
+    {
+        if (bean.isDetached())
+        {
+            return false;
+        }
+        int row = bean.getRow();
+        Segment segment = segments[row >>> SEGMENT_SHIFT];
+        int slot = row & SEGMENT_MASK;
+        if (segment.beans[slot] != bean)
+        {
+            return false;
+        }
+
+        bean.detach(readValues(row));
+        segment.beans[slot] = null;
+
+        for (int i = 0; i < names.length; i++)
+        {
+            if (kinds[i] == KIND_STRING)
+            {
+                if (!isNull(segment, slot, i))
+                {
+                    segment.varGarbage += getStringBytes(segment.fixed.getInt(offsets[i] + slot * 8 + 4));
+                }
+            }
+            else if (kinds[i] == KIND_OBJECT)
+            {
+                segment.objects[offsets[i]][slot] = null;
+            }
+        }
+
+        int prev = segment.fixed.getInt(prevOffset + slot * 4);
+        int next = segment.fixed.getInt(nextOffset + slot * 4);
+        if (prev == -1)
+        {
+            head = next;
+        }
+        else
+        {
+            segments[prev >>> SEGMENT_SHIFT].fixed.putInt(nextOffset + (prev & SEGMENT_MASK) * 4, next);
+        }
+        if (next == -1)
+        {
+            tail = prev;
+        }
+        else
+        {
+            segments[next >>> SEGMENT_SHIFT].fixed.putInt(prevOffset + (next & SEGMENT_MASK) * 4, prev);
+        }
+
+        // free rows are linked through the next-row field
+        segment.fixed.putInt(nextOffset + slot * 4, freeHead);
+        freeHead = row;
+        size--;
+        return true;
+    }
+
+    private Object[] readValues(int row)
+    {
+        Object[] values = new Object[names.length];
+        for (int i = 0; i < names.length; i++)
+        {
+            values[i] = readValue(row, i);
+        }
+        return values;
+    }
+
+    private Object readValue(int row, int column)
+    {
+        Segment segment = segments[row >>> SEGMENT_SHIFT];
+        int slot = row & SEGMENT_MASK;
+        byte kind = kinds[column];
+        if (kind == KIND_OBJECT)
+        {
+            return segment.objects[offsets[column]][slot];
+        }
+        if (isNull(segment, slot, column))
+        {
+            return null;
+        }
+        ByteBuffer fixed = segment.fixed;
+        int offset = offsets[column];
+        switch (kind)
+        {
+            case KIND_LONG:
+                return fixed.getLong(offset + slot * 8);
+            case KIND_INT:
+                return fixed.getInt(offset + slot * 4);
+            case KIND_DOUBLE:
+                return fixed.getDouble(offset + slot * 8);
+            case KIND_FLOAT:
+                return fixed.getFloat(offset + slot * 4);
+            case KIND_SHORT:
+                return fixed.getShort(offset + slot * 2);
+            case KIND_BYTE:
+                return fixed.get(offset + slot);
+            case KIND_BOOLEAN:
+                return fixed.get(offset + slot) != 0;
+            case KIND_CHAR:
+                return fixed.getChar(offset + slot * 2);
+            default:
+                return readString(segment, fixed.getInt(offset + slot * 8), fixed.getInt(offset + slot * 8 + 4));
+        }
+    }
+
+    /**
+     * Returns the property values of a row, or of a detached event bean, as an array in the layout of the
+     * object-array event type.
+     * @param values values per column
+     * @return object-array underlying
+     */
+    protected Object[] toObjectArray(Object[] values)
+    {
+        Object[] result = new Object[arrayLength];
+        for (int i = 0; i < names.length; i++)
+        {
+            result[arrayIndexes[i]] = values[i];
+        }
+        return result;
+    }
+
+    /**
+     * Returns the rows in the order added, for use under the statement lock of the named window.
+     * @return iterator of event beans
+     */
+    public Iterator<EventBean> iterator()
+    {
+        return new Iterator<EventBean>()
+        {
+            private int next = head;
+
+            public boolean hasNext()
+            {
+                return next != -1;
+            }
+
+            public EventBean next()
+            {
+                if (next == -1)
+                {
+                    throw new NoSuchElementException();
+                }
+                Segment segment = segments[next >>> SEGMENT_SHIFT];
+                int slot = next & SEGMENT_MASK;
+                next = segment.fixed.getInt(nextOffset + slot * 4);
+                return segment.beans[slot];
+            }
+
+            public void remove()
+            {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    private int allocateRow()
+    {
+        if (freeHead != -1)
+        {
+            int row = freeHead;
+            freeHead = segments[row >>> SEGMENT_SHIFT].fixed.getInt(nextOffset + (row & SEGMENT_MASK) * 4);
+            return row;
+        }
+        if ((numAllocated & SEGMENT_MASK) == 0)
+        {
+            if (numSegments == segments.length)
+            {
+                Segment[] grown = new Segment[segments.length << 1];
+                System.arraycopy(segments, 0, grown, 0, numSegments);
+                segments = grown;
+            }
+            segments[numSegments++] = new Segment(segmentBytes, numObjectColumns);
+        }
+        return numAllocated++;
+    }
+
+    private void write(Segment segment, int slot, int column, Object value)
+    {
+        byte kind = kinds[column];
+        if (kind == KIND_OBJECT)
+        {
+            segment.objects[offsets[column]][slot] = value;
+            return;
+        }
+        setNull(segment, slot, column, value == null);
+        if (value == null)
+        {
+            return;
+        }
+        ByteBuffer fixed = segment.fixed;
+        int offset = offsets[column];
+        switch (kind)
+        {
+            case KIND_LONG:
+                fixed.putLong(offset + slot * 8, ((Number) value).longValue());
+                break;
+            case KIND_INT:
+                fixed.putInt(offset + slot * 4, ((Number) value).intValue());
+                break;
+            case KIND_DOUBLE:
+                fixed.putDouble(offset + slot * 8, ((Number) value).doubleValue());
+                break;
+            case KIND_FLOAT:
+                fixed.putFloat(offset + slot * 4, ((Number) value).floatValue());
+                break;
+            case KIND_SHORT:
+                fixed.putShort(offset + slot * 2, ((Number) value).shortValue());
+                break;
+            case KIND_BYTE:
+                fixed.put(offset + slot, ((Number) value).byteValue());
+                break;
+            case KIND_BOOLEAN:
+                fixed.put(offset + slot, (byte) (((Boolean) value) ? 1 : 0));
+                break;
+            case KIND_CHAR:
+                fixed.putChar(offset + slot * 2, (Character) value);
+                break;
+            default:
+                writeString(segment, slot, column, value.toString());
+        }
+    }
+
+    private void writeString(Segment segment, int slot, int column, String text)
+    {
+        int length = text.length();
+        boolean wide = false;
+        for (int i = 0; i < length; i++)
+        {
+            if (text.charAt(i) >= 0x80)
+            {
+                wide = true;
+                break;
+            }
+        }
+        int header = wide ? length | WIDE_FLAG : length;
+        int numBytes = getStringBytes(header);
+        int position = reserve(segment, numBytes);
+        ByteBuffer var = segment.var;
+        for (int i = 0; i < length; i++)
+        {
+            if (wide)
+            {
+                var.putChar(position + i * 2, text.charAt(i));
+            }
+            else
+            {
+                var.put(position + i, (byte) text.charAt(i));
+            }
+        }
+        segment.fixed.putInt(offsets[column] + slot * 8, position);
+        segment.fixed.putInt(offsets[column] + slot * 8 + 4, header);
+    }
+
+    private String readString(Segment segment, int position, int header)
+    {
+        int length = header & ~WIDE_FLAG;
+        char[] chars = new char[length];
+        ByteBuffer var = segment.var;
+        if ((header & WIDE_FLAG) != 0)
+        {
+            for (int i = 0; i < length; i++)
+            {
+                chars[i] = var.getChar(position + i * 2);
+            }
+        }
+        else
+        {
+            for (int i = 0; i < length; i++)
+            {
+                chars[i] = (char) var.get(position + i);
+            }
+        }
+        return new String(chars);
+    }
+
+    // returns the position of the bytes reserved in the variable-length buffer, compacting or growing it if required
+    private int reserve(Segment segment, int numBytes)
+    {
+        if (segment.var == null)
+        {
+            segment.var = allocate(Math.max(INITIAL_VAR_CAPACITY, numBytes));
+        }
+        if (segment.varUsed + numBytes > segment.var.capacity())
+        {
+            int live = segment.varUsed - segment.varGarbage;
+            int capacity = segment.var.capacity();
+            while (live + numBytes > capacity / 2)
+            {
+                capacity <<= 1;
+            }
+            compact(segment, capacity);
+        }
+        int position = segment.varUsed;
+        segment.varUsed += numBytes;
+        return position;
+    }
+
+    // copies the strings of the segment's rows into a new buffer, dropping the bytes of removed rows
+    private void compact(Segment segment, int capacity)
+    {
+        ByteBuffer previous = segment.var;
+        ByteBuffer var = allocate(capacity);
+        int used = 0;
+        for (int slot = 0; slot < SEGMENT_ROWS; slot++)
+        {
+            if (segment.beans[slot] == null)
+            {
+                continue;
+            }
+            for (int column = 0; column < names.length; column++)
+            {
+                if ((kinds[column] != KIND_STRING) || (isNull(segment, slot, column)))
+                {
+                    continue;
+                }
+                int position = segment.fixed.getInt(offsets[column] + slot * 8);
+                int numBytes = getStringBytes(segment.fixed.getInt(offsets[column] + slot * 8 + 4));
+                for (int i = 0; i < numBytes; i++)
+                {
+                    var.put(used + i, previous.get(position + i));
+                }
+                segment.fixed.putInt(offsets[column] + slot * 8, used);
+                used += numBytes;
+            }
+        }
+        segment.var = var;
+        segment.varUsed = used;
+        segment.varGarbage = 0;
+        release(previous);
+    }
+
+    private boolean isNull(Segment segment, int slot, int column)
+    {
+        return (segment.fixed.get(nullOffsets[column] + (slot >>> 3)) & (1 << (slot & 7))) != 0;
+    }
+
+    private void setNull(Segment segment, int slot, int column, boolean isNull)
+    {
+        int index = nullOffsets[column] + (slot >>> 3);
+        int bits = segment.fixed.get(index);
+        bits = isNull ? bits | (1 << (slot & 7)) : bits & ~(1 << (slot & 7));
+        segment.fixed.put(index, (byte) bits);
+    }
+
+    private static int getStringBytes(int header)
+    {
+        int length = header & ~WIDE_FLAG;
+        return (header & WIDE_FLAG) != 0 ? length * 2 : length;
+    }
+
+    private static ByteBuffer allocate(int capacity)
+    {
+        return ByteBuffer.allocateDirect(capacity).order(ByteOrder.nativeOrder());
+    }
+
+    // frees the memory of a direct buffer that is no longer referenced, leaving it to garbage collection if not possible
+    private static void release(ByteBuffer buffer)
+    {
+        try
+        {
+            if (INVOKE_CLEANER != null)
+            {
+                INVOKE_CLEANER.invoke(UNSAFE, buffer);
+            }
+            else
+            {
+                Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+                cleanerMethod.setAccessible(true);
+                Object cleaner = cleanerMethod.invoke(buffer);
+                if (cleaner != null)
+                {
+                    cleaner.getClass().getMethod("clean").invoke(cleaner);
+                }
+            }
+        }
+        catch (Exception ex)
+        {
+            log.debug("Failed to release direct buffer, leaving it to garbage collection: " + ex.getMessage());
+        }
+    }
+
+    private static byte getKind(Class type)
+    {
+        if (type == null)
+        {
+            return KIND_OBJECT;
+        }
+        Class boxed = JavaClassHelper.getBoxedType(type);
+        if (boxed == Long.class)
+        {
+            return KIND_LONG;
+        }
+        if (boxed == Integer.class)
+        {
+            return KIND_INT;
+        }
+        if (boxed == Double.class)
+        {
+            return KIND_DOUBLE;
+        }
+        if (boxed == Float.class)
+        {
+            return KIND_FLOAT;
+        }
+        if (boxed == Short.class)
+        {
+            return KIND_SHORT;
+        }
+        if (boxed == Byte.class)
+        {
+            return KIND_BYTE;
+        }
+        if (boxed == Boolean.class)
+        {
+            return KIND_BOOLEAN;
+        }
+        if (boxed == Character.class)
+        {
+            return KIND_CHAR;
+        }
+        if (boxed == String.class)
+        {
+            return KIND_STRING;
+        }
+        return KIND_OBJECT;
+    }
+
+    private static int getWidth(byte kind)
+    {
+        switch (kind)
+        {
+            case KIND_LONG:
+            case KIND_DOUBLE:
+            case KIND_STRING:
+                return 8;
+            case KIND_INT:
+            case KIND_FLOAT:
+                return 4;
+            case KIND_SHORT:
+            case KIND_CHAR:
+                return 2;
+            default:
+                return 1;
+        }
+    }
+
+    private static final class Segment
+    {
+        private final ByteBuffer fixed;
+        private final Object[][] objects;
+        private final ColumnarEventBean[] beans;
+        private ByteBuffer var;
+        private int varUsed;
+        private int varGarbage;
+
+        private Segment(int segmentBytes, int numObjectColumns)
+        {
+            this.fixed = allocate(segmentBytes);
+            this.objects = new Object[numObjectColumns][SEGMENT_ROWS];
+            this.beans = new ColumnarEventBean[SEGMENT_ROWS];
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/**************************************************************************************
+ * Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ * http://esper.codehaus.org                                                          *
+ * http://www.espertech.com                                                           *
+ * ---------------------------------------------------------------------------------- *
+ * The software in this package is published under the terms of the GPL license       *
+ * a copy of which has been included with this distribution in the license.txt file.  *
+ **************************************************************************************/
+package com.espertech.esper.event.columnar;
+
+import com.espertech.esper.event.MappedEventBean;
+
+import java.util.AbstractMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Event bean for a row of a Map event type, the underlying being a read-only map view of the row
+ * such that property getters read a single column rather then materializing all values.
+ */
+public class ColumnarMapEventBean extends ColumnarEventBean implements MappedEventBean
+{
+    /**
+     * Ctor.
+     * @param store store
+     * @param row row
+     */
+    public ColumnarMapEventBean(ColumnarEventStore store, int row)
+    {
+        super(store, row);
+    }
+
+    public Object getUnderlying()
+    {
+        return new RowMap();
+    }
+
+    public Map<String, Object> getProperties()
+    {
+        return new RowMap();
+    }
+
+    private final class RowMap extends AbstractMap<String, Object>
+    {
+        public Object get(Object key)
+        {
+            if (!(key instanceof String))
+            {
+                return null;
+            }
+            int column = getStore().getColumnIndex((String) key);
+            return column == -1 ? null : getColumnValue(column);
+        }
+
+        public boolean containsKey(Object key)
+        {
+            return (key instanceof String) && (getStore().getColumnIndex((String) key) != -1);
+        }
+
+        public int size()
+        {
+            return getStore().getNumColumns();
+        }
+
+        public Set<Entry<String, Object>> entrySet()
+        {
+            Object[] values = getColumnValues();
+            Map<String, Object> map = new LinkedHashMap<String, Object>();
+            for (int i = 0; i < values.length; i++)
+            {
+                map.put(getStore().getColumnName(i), values[i]);
+            }
+            return map.entrySet();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+/**************************************************************************************
+ * Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ * http://esper.codehaus.org                                                          *
+ * http://www.espertech.com                                                           *
+ * ---------------------------------------------------------------------------------- *
+ * The software in this package is published under the terms of the GPL license       *
+ * a copy of which has been included with this distribution in the license.txt file.  *
+ **************************************************************************************/
+package com.espertech.esper.event.columnar;
+
+import com.espertech.esper.event.ObjectArrayBackedEventBean;
+
+/**
+ * Event bean for a row of an object-array event type, the underlying being an array materialized from the row.
+ */
+public class ColumnarObjectArrayEventBean extends ColumnarEventBean implements ObjectArrayBackedEventBean
+{
+    /**
+     * Ctor.
+     * @param store store
+     * @param row row
+     */
+    public ColumnarObjectArrayEventBean(ColumnarEventStore store, int row)
+    {
+        super(store, row);
+    }
+
+    public Object getUnderlying()
+    {
+        return getProperties();
+    }
+
+    public Object[] getProperties()
+    {
+        return getStore().toObjectArray(getColumnValues());
+    }
+}
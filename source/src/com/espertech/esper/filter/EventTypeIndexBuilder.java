@@ -25,14 +25,17 @@ public class EventTypeIndexBuilder
     private final Map<FilterHandle, Pair<FilterValueSet, IndexTreePath>> callbacks;
     private final Lock callbacksLock;
     private final EventTypeIndex eventTypeIndex;
+    private final FilterServiceGranularLockFactory lockFactory;
 
     /**
      * Constructor - takes the event type index to manipulate as its parameter.
      * @param eventTypeIndex - index to manipulate
+     * @param lockFactory - supplies the locks for the filter index tree
      */
-    public EventTypeIndexBuilder(EventTypeIndex eventTypeIndex)
+    public EventTypeIndexBuilder(EventTypeIndex eventTypeIndex, FilterServiceGranularLockFactory lockFactory)
     {
         this.eventTypeIndex = eventTypeIndex;
+        this.lockFactory = lockFactory;
 
         this.callbacks = new HashMap<FilterHandle, Pair<FilterValueSet, IndexTreePath>>();
         this.callbacksLock = new ReentrantLock();
@@ -68,7 +71,7 @@ public class EventTypeIndexBuilder
                 rootNode = eventTypeIndex.get(eventType);
                 if (rootNode == null)
                 {
-                    rootNode = new FilterHandleSetNode();
+                    rootNode = new FilterHandleSetNode(lockFactory.obtainNew());
                     eventTypeIndex.add(eventType, rootNode);
                 }
             }
@@ -93,7 +96,7 @@ public class EventTypeIndexBuilder
         }
 
         // Now add to tree
-        IndexTreeBuilder treeBuilder = new IndexTreeBuilder();
+        IndexTreeBuilder treeBuilder = new IndexTreeBuilder(lockFactory);
         IndexTreePath path = treeBuilder.add(filterValueSet, filterCallback, rootNode);
 
         callbacksLock.lock();
@@ -134,7 +137,7 @@ public class EventTypeIndexBuilder
 
         // Now remove from tree
         if (rootNode != null) {
-            IndexTreeBuilder treeBuilder = new IndexTreeBuilder();
+            IndexTreeBuilder treeBuilder = new IndexTreeBuilder(lockFactory);
             treeBuilder.remove(eventType, filterCallback, pair.getSecond(), rootNode);
         }
 
@@ -172,7 +175,7 @@ public class EventTypeIndexBuilder
                     FilterHandleSetNode rootNode = eventTypeIndex.get(eventType);
 
                     // Now remove from tree
-                    IndexTreeBuilder treeBuilder = new IndexTreeBuilder();
+                    IndexTreeBuilder treeBuilder = new IndexTreeBuilder(lockFactory);
                     treeBuilder.remove(eventType, entry.getKey(), pair.getSecond(), rootNode);
                 }
             }
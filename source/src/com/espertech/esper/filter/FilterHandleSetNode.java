@@ -10,7 +10,6 @@ package com.espertech.esper.filter;
 
 import java.util.*;
 import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import com.espertech.esper.client.EventBean;
 import org.apache.commons.logging.LogFactory;
@@ -32,12 +31,13 @@ public final class FilterHandleSetNode implements EventEvaluator
 
     /**
      * Constructor.
+     * @param readWriteLock is the lock to use for the filter callback and indizes collections
      */
-    public FilterHandleSetNode()
+    public FilterHandleSetNode(ReadWriteLock readWriteLock)
     {
         callbackSet = new LinkedHashSet<FilterHandle>();
         indizes = new LinkedList<FilterParamIndexBase>();
-        nodeRWLock = new ReentrantReadWriteLock();
+        nodeRWLock = readWriteLock;
     }
 
     /**
@@ -80,6 +80,17 @@ public final class FilterHandleSetNode implements EventEvaluator
         return indizes;
     }
 
+    /**
+     * Returns the set of filter callbacks - not returning an iterator. Client classes should not change this collection.
+     * NOTE: the client to this method must use the read-write lock of this object to lock, if required by the client
+     * code.
+     * @return set of filter callbacks
+     */
+    protected Set<FilterHandle> getCallbackSet()
+    {
+        return callbackSet;
+    }
+
     /**
      * Evaluate an event by asking each index to match the event. Any filter callbacks at this node automatically
      * match the event and do not need to be further evaluated, and are thus added to the "matches" list of callbacks.
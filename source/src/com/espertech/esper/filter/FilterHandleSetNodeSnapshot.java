@@ -0,0 +1,52 @@
+/**************************************************************************************
+ * Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ * http://esper.codehaus.org                                                          *
+ * http://www.espertech.com                                                           *
+ * ---------------------------------------------------------------------------------- *
+ * The software in this package is published under the terms of the GPL license       *
+ * a copy of which has been included with this distribution in the license.txt file.  *
+ **************************************************************************************/
+package com.espertech.esper.filter;
+
+import com.espertech.esper.client.EventBean;
+
+import java.util.Collection;
+
+/**
+ * Immutable copy of a {@link FilterHandleSetNode} holding the indizes and filter callbacks of the node at
+ * the time the copy was taken, for evaluating events without locking.
+ * <p>
+ * Instances are never changed after construction and are only made visible to evaluating threads
+ * after the construction is complete, see {@link FilterServiceCopyOnWrite}.
+ */
+public final class FilterHandleSetNodeSnapshot implements EventEvaluator
+{
+    private final EventEvaluator[] indizes;
+    private final FilterHandle[] callbacks;
+
+    /**
+     * Constructor.
+     * @param indizes is the copies of the indizes of the node
+     * @param callbacks is the filter callbacks of the node
+     */
+    public FilterHandleSetNodeSnapshot(EventEvaluator[] indizes, FilterHandle[] callbacks)
+    {
+        this.indizes = indizes;
+        this.callbacks = callbacks;
+    }
+
+    public final void matchEvent(EventBean theEvent, Collection<FilterHandle> matches)
+    {
+        // Ask each of the indizes to match against the attribute values
+        for (int i = 0; i < indizes.length; i++)
+        {
+            indizes[i].matchEvent(theEvent, matches);
+        }
+
+        // Add each filter callback stored in this node to the matching list
+        for (int i = 0; i < callbacks.length; i++)
+        {
+            matches.add(callbacks[i]);
+        }
+    }
+}
@@ -160,6 +160,38 @@ public enum FilterOperator
         return false;
     }
 
+    /**
+     * Returns true for range and inverted range operators that include the low endpoint in the range.
+     * @return true if the low endpoint is inclusive, false if exclusive or not a range operator
+     */
+    public boolean isRangeInclusiveLow()
+    {
+        if ((this == FilterOperator.RANGE_CLOSED) ||
+            (this == FilterOperator.RANGE_HALF_OPEN) ||
+            (this == FilterOperator.NOT_RANGE_CLOSED) ||
+            (this == FilterOperator.NOT_RANGE_HALF_OPEN))
+        {
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns true for range and inverted range operators that include the high endpoint in the range.
+     * @return true if the high endpoint is inclusive, false if exclusive or not a range operator
+     */
+    public boolean isRangeInclusiveHigh()
+    {
+        if ((this == FilterOperator.RANGE_CLOSED) ||
+            (this == FilterOperator.RANGE_HALF_CLOSED) ||
+            (this == FilterOperator.NOT_RANGE_CLOSED) ||
+            (this == FilterOperator.NOT_RANGE_HALF_CLOSED))
+        {
+            return true;
+        }
+        return false;
+    }
+
     /**
      * Returns true for relational comparison operators which excludes the = equals operator, else returns false.
      * @return true for lesser or greater -type operators, false for anyting else
@@ -8,6 +8,9 @@
  **************************************************************************************/
 package com.espertech.esper.filter;
 
+import com.espertech.esper.collection.Pair;
+
+import java.util.Collection;
 import java.util.concurrent.locks.ReadWriteLock;
 
 /**
@@ -76,6 +79,14 @@ public abstract class FilterParamIndexBase implements EventEvaluator
      */
     protected abstract ReadWriteLock getReadWriteLock();
 
+    /**
+     * Adds each filter parameter constant with the event evaluator stored for it to the collection supplied.
+     * The calling class must make sure that access to the underlying resource is protected
+     * for multi-threaded access, the getReadWriteLock() method must supply a lock for this purpose.
+     * @param entries is the collection to add the constant and evaluator pairs to
+     */
+    protected abstract void getEntries(Collection<Pair<Object, EventEvaluator>> entries);
+
     /**
      * Returns the filter operator that the index matches for.
      * @return filter operator
@@ -9,6 +9,7 @@
 package com.espertech.esper.filter;
 
 import com.espertech.esper.client.EventBean;
+import com.espertech.esper.collection.Pair;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
@@ -17,7 +18,6 @@ import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * Index that simply maintains a list of boolean expressions.
@@ -29,13 +29,14 @@ public final class FilterParamIndexBooleanExpr extends FilterParamIndexBase
 
     /**
      * Constructs the index for multiple-exact matches.
+     * @param readWriteLock is the lock to use for the index
      */
-    public FilterParamIndexBooleanExpr()
+    public FilterParamIndexBooleanExpr(ReadWriteLock readWriteLock)
     {
         super(FilterOperator.BOOLEAN_EXPRESSION);
 
         evaluatorsMap = new LinkedHashMap<ExprNodeAdapterBase, EventEvaluator>();
-        constantsMapRWLock = new ReentrantReadWriteLock();
+        constantsMapRWLock = readWriteLock;
     }
 
     public final EventEvaluator get(Object filterConstant)
@@ -66,6 +67,14 @@ public final class FilterParamIndexBooleanExpr extends FilterParamIndexBase
         return constantsMapRWLock;
     }
 
+    public final void getEntries(Collection<Pair<Object, EventEvaluator>> entries)
+    {
+        for (Map.Entry<ExprNodeAdapterBase, EventEvaluator> entry : evaluatorsMap.entrySet())
+        {
+            entries.add(new Pair<Object, EventEvaluator>(entry.getKey(), entry.getValue()));
+        }
+    }
+
     public final void matchEvent(EventBean theEvent, Collection<FilterHandle> matches)
     {
         constantsMapRWLock.readLock().lock();
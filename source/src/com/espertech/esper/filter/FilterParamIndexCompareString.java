@@ -10,6 +10,7 @@ package com.espertech.esper.filter;
 
 import com.espertech.esper.client.EventBean;
 import com.espertech.esper.client.EventPropertyGetter;
+import com.espertech.esper.collection.Pair;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
@@ -17,7 +18,6 @@ import java.util.Collection;
 import java.util.Map;
 import java.util.TreeMap;
 import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * Index for filter parameter constants for the comparison operators (less, greater, etc).
@@ -30,11 +30,11 @@ public final class FilterParamIndexCompareString extends FilterParamIndexLookupa
     private final TreeMap<Object, EventEvaluator> constantsMap;
     private final ReadWriteLock constantsMapRWLock;
 
-    public FilterParamIndexCompareString(FilterSpecLookupable lookupable, FilterOperator filterOperator) {
+    public FilterParamIndexCompareString(FilterSpecLookupable lookupable, FilterOperator filterOperator, ReadWriteLock readWriteLock) {
         super(filterOperator, lookupable);
 
         constantsMap = new TreeMap<Object, EventEvaluator>();
-        constantsMapRWLock = new ReentrantReadWriteLock();
+        constantsMapRWLock = readWriteLock;
 
         if ((filterOperator != FilterOperator.GREATER) &&
             (filterOperator != FilterOperator.GREATER_OR_EQUAL) &&
@@ -75,6 +75,14 @@ public final class FilterParamIndexCompareString extends FilterParamIndexLookupa
         return constantsMapRWLock;
     }
 
+    public final void getEntries(Collection<Pair<Object, EventEvaluator>> entries)
+    {
+        for (Map.Entry<Object, EventEvaluator> entry : constantsMap.entrySet())
+        {
+            entries.add(new Pair<Object, EventEvaluator>(entry.getKey(), entry.getValue()));
+        }
+    }
+
     public final void matchEvent(EventBean theEvent, Collection<FilterHandle> matches)
     {
         Object propertyValue = lookupable.getGetter().get(theEvent);
@@ -13,22 +13,26 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import java.util.Collection;
-import java.util.Map;
-import java.util.SortedMap;
+import java.util.concurrent.locks.ReadWriteLock;
 
 /**
  * Index for filter parameter constants for the range operators (range open/closed/half).
- * The implementation is based on the SortedMap implementation of TreeMap and stores only expression
+ * The implementation is based on an {@link IntervalTree} and stores only expression
  * parameter values of type DoubleRange.
  */
 public final class FilterParamIndexDoubleRange extends FilterParamIndexDoubleRangeBase
 {
-    public FilterParamIndexDoubleRange(FilterSpecLookupable lookupable, FilterOperator filterOperator) {
-        super(lookupable, filterOperator);
+    private final boolean inclusiveLow;
+    private final boolean inclusiveHigh;
+
+    public FilterParamIndexDoubleRange(FilterSpecLookupable lookupable, FilterOperator filterOperator, ReadWriteLock readWriteLock) {
+        super(lookupable, filterOperator, readWriteLock);
         if (!(filterOperator.isRangeOperator()))
         {
             throw new IllegalArgumentException("Invalid filter operator " + filterOperator);
         }
+        inclusiveLow = filterOperator.isRangeInclusiveLow();
+        inclusiveHigh = filterOperator.isRangeInclusiveHigh();
     }
     
     public final void matchEvent(EventBean theEvent, Collection<FilterHandle> matches)
@@ -40,63 +44,21 @@ public final class FilterParamIndexDoubleRange extends FilterParamIndexDoubleRan
             return;
         }
 
+        // NaN is not within and not outside of any range
         double attributeValue = ((Number) objAttributeValue).doubleValue();
-
-        DoubleRange rangeStart = new DoubleRange(attributeValue - largestRangeValueDouble, attributeValue);
-        DoubleRange rangeEnd = new DoubleRange(attributeValue, Double.MAX_VALUE);
-
-        SortedMap<DoubleRange, EventEvaluator> subMap = ranges.subMap(rangeStart, rangeEnd);
-
-        // For not including either endpoint
-        // A bit awkward to duplicate the loop code, however better than checking the boolean many times over
-        // This may be a bit of an early performance optimization - the optimizer after all may do this better
-        if (this.getFilterOperator() == FilterOperator.RANGE_OPEN)  // include neither endpoint
-        {
-            for (Map.Entry<DoubleRange, EventEvaluator> entry : subMap.entrySet())
-            {
-                if ((attributeValue > entry.getKey().getMin()) &&
-                    (attributeValue < entry.getKey().getMax()))
-                {
-                    entry.getValue().matchEvent(theEvent, matches);
-                }
-            }
-        }
-        else if (this.getFilterOperator() == FilterOperator.RANGE_CLOSED)   // include all endpoints
-        {
-            for (Map.Entry<DoubleRange, EventEvaluator> entry : subMap.entrySet())
-            {
-                if ((attributeValue >= entry.getKey().getMin()) &&
-                    (attributeValue <= entry.getKey().getMax()))
-                {
-                    entry.getValue().matchEvent(theEvent, matches);
-                }
-            }
-        }
-        else if (this.getFilterOperator() == FilterOperator.RANGE_HALF_CLOSED) // include high endpoint not low endpoint
+        if (Double.isNaN(attributeValue))
         {
-            for (Map.Entry<DoubleRange, EventEvaluator> entry : subMap.entrySet())
-            {
-                if ((attributeValue > entry.getKey().getMin()) &&
-                    (attributeValue <= entry.getKey().getMax()))
-                {
-                    entry.getValue().matchEvent(theEvent, matches);
-                }
-            }
+            return;
         }
-        else if (this.getFilterOperator() == FilterOperator.RANGE_HALF_OPEN) // include low endpoint not high endpoint
+
+        getReadWriteLock().readLock().lock();
+        try
         {
-            for (Map.Entry<DoubleRange, EventEvaluator> entry : subMap.entrySet())
-            {
-                if ((attributeValue >= entry.getKey().getMin()) &&
-                    (attributeValue < entry.getKey().getMax()))
-                {
-                    entry.getValue().matchEvent(theEvent, matches);
-                }
-            }
+            ranges.matchContaining(attributeValue, inclusiveLow, inclusiveHigh, theEvent, matches);
         }
-        else
+        finally
         {
-            throw new IllegalStateException("Invalid filter operator " + this.getFilterOperator());
+            getReadWriteLock().readLock().unlock();
         }
     }
 
@@ -8,33 +8,48 @@
  **************************************************************************************/
 package com.espertech.esper.filter;
 
+import com.espertech.esper.collection.Pair;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.IdentityHashMap;
-import java.util.TreeMap;
+import java.util.Map;
 import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * Index for filter parameter constants for the range operators (range open/closed/half).
- * The implementation is based on the SortedMap implementation of TreeMap and stores only expression
+ * The implementation is based on an {@link IntervalTree} and stores only expression
  * parameter values of type DoubleRange.
  */
 public abstract class FilterParamIndexDoubleRangeBase extends FilterParamIndexLookupableBase
 {
-    protected final TreeMap<DoubleRange, EventEvaluator> ranges;
+    // Compares as the relational operators do, the same as the range operators and DoubleRangeComparator
+    private static final Comparator<Double> ENDPOINT_COMPARATOR = new Comparator<Double>() {
+        public int compare(Double first, Double second) {
+            double one = first;
+            double two = second;
+            if (one < two) {
+                return -1;
+            }
+            if (one > two) {
+                return 1;
+            }
+            return 0;
+        }
+    };
+
+    protected final IntervalTree<Double> ranges;
     private final IdentityHashMap<DoubleRange, EventEvaluator> rangesNullEndpoints;
     private final ReadWriteLock rangesRWLock;
 
-    protected double largestRangeValueDouble = Double.MIN_VALUE;
-
-    protected FilterParamIndexDoubleRangeBase(FilterSpecLookupable lookupable, FilterOperator filterOperator) {
+    protected FilterParamIndexDoubleRangeBase(FilterSpecLookupable lookupable, FilterOperator filterOperator, ReadWriteLock readWriteLock) {
         super(filterOperator, lookupable);
 
-        ranges = new TreeMap<DoubleRange, EventEvaluator>(new DoubleRangeComparator());
+        ranges = new IntervalTree<Double>(ENDPOINT_COMPARATOR);
         rangesNullEndpoints = new IdentityHashMap<DoubleRange, EventEvaluator>();
-        rangesRWLock = new ReentrantReadWriteLock();
+        rangesRWLock = readWriteLock;
     }
 
     public final EventEvaluator get(Object expressionValue)
@@ -67,11 +82,6 @@ public abstract class FilterParamIndexDoubleRangeBase extends FilterParamIndexLo
             return;
         }
 
-        if ( Math.abs(range.getMax() - range.getMin()) > largestRangeValueDouble)
-        {
-            largestRangeValueDouble = Math.abs(range.getMax() - range.getMin());
-        }
-
         ranges.put(range, matcher);
     }
 
@@ -97,5 +107,14 @@ public abstract class FilterParamIndexDoubleRangeBase extends FilterParamIndexLo
         return rangesRWLock;
     }
 
+    public final void getEntries(Collection<Pair<Object, EventEvaluator>> entries)
+    {
+        ranges.getEntries(entries);
+        for (Map.Entry<DoubleRange, EventEvaluator> entry : rangesNullEndpoints.entrySet())
+        {
+            entries.add(new Pair<Object, EventEvaluator>(entry.getKey(), entry.getValue()));
+        }
+    }
+
     private static final Log log = LogFactory.getLog(FilterParamIndexDoubleRangeBase.class);
 }
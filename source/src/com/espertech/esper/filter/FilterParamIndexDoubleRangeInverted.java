@@ -14,21 +14,26 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import java.util.Collection;
-import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
 
 /**
  * Index for filter parameter constants for the not range operators (range open/closed/half).
- * The implementation is based on the SortedMap implementation of TreeMap and stores only expression
+ * The implementation is based on an {@link IntervalTree} and stores only expression
  * parameter values of type DoubleRange.
  */
 public final class FilterParamIndexDoubleRangeInverted extends FilterParamIndexDoubleRangeBase
 {
-    public FilterParamIndexDoubleRangeInverted(FilterSpecLookupable lookupable, FilterOperator filterOperator) {
-        super(lookupable, filterOperator);
+    private final boolean inclusiveLow;
+    private final boolean inclusiveHigh;
+
+    public FilterParamIndexDoubleRangeInverted(FilterSpecLookupable lookupable, FilterOperator filterOperator, ReadWriteLock readWriteLock) {
+        super(lookupable, filterOperator, readWriteLock);
         if (!(filterOperator.isInvertedRangeOperator()))
         {
             throw new IllegalArgumentException("Invalid filter operator " + filterOperator);
         }
+        inclusiveLow = filterOperator.isRangeInclusiveLow();
+        inclusiveHigh = filterOperator.isRangeInclusiveHigh();
     }
 
     public final void matchEvent(EventBean theEvent, Collection<FilterHandle> matches)
@@ -40,47 +45,21 @@ public final class FilterParamIndexDoubleRangeInverted extends FilterParamIndexD
             return;
         }
 
+        // NaN is not within and not outside of any range
         double attributeValue = ((Number) objAttributeValue).doubleValue();
-
-        if (this.getFilterOperator() == FilterOperator.NOT_RANGE_CLOSED) {   // include all endpoints
-            for (Map.Entry<DoubleRange, EventEvaluator> entry : ranges.entrySet()) {
-                if ((attributeValue < entry.getKey().getMin()) ||
-                    (attributeValue > entry.getKey().getMax()))
-                {
-                    entry.getValue().matchEvent(theEvent, matches);
-                }
-            }
-        }
-        else if (this.getFilterOperator() == FilterOperator.NOT_RANGE_OPEN) { // include neither endpoint
-            for (Map.Entry<DoubleRange, EventEvaluator> entry : ranges.entrySet()) {
-                if ((attributeValue <= entry.getKey().getMin()) ||
-                    (attributeValue >= entry.getKey().getMax()))
-                {
-                    entry.getValue().matchEvent(theEvent, matches);
-                }
-            }
-        }
-        else if (this.getFilterOperator() == FilterOperator.NOT_RANGE_HALF_CLOSED) { // include high endpoint not low endpoint
-            for (Map.Entry<DoubleRange, EventEvaluator> entry : ranges.entrySet()) {
-                if ((attributeValue <= entry.getKey().getMin()) ||
-                    (attributeValue > entry.getKey().getMax()))
-                {
-                    entry.getValue().matchEvent(theEvent, matches);
-                }
-            }
+        if (Double.isNaN(attributeValue))
+        {
+            return;
         }
-        else if (this.getFilterOperator() == FilterOperator.NOT_RANGE_HALF_OPEN) { // include low endpoint not high endpoint
-            for (Map.Entry<DoubleRange, EventEvaluator> entry : ranges.entrySet()) {
-                if ((attributeValue < entry.getKey().getMin()) ||
-                    (attributeValue >= entry.getKey().getMax()))
-                {
-                    entry.getValue().matchEvent(theEvent, matches);
-                }
-            }
+
+        getReadWriteLock().readLock().lock();
+        try
+        {
+            ranges.matchNotContaining(attributeValue, inclusiveLow, inclusiveHigh, theEvent, matches);
         }
-        else
+        finally
         {
-            throw new IllegalStateException("Invalid filter operator " + this.getFilterOperator());
+            getReadWriteLock().readLock().unlock();
         }
     }
 
@@ -12,6 +12,7 @@ import com.espertech.esper.client.EventBean;
 import com.espertech.esper.client.EventPropertyGetter;
 
 import java.util.Collection;
+import java.util.concurrent.locks.ReadWriteLock;
 
 /**
  * Index for filter parameter constants to match using the equals (=) operator.
@@ -19,8 +20,8 @@ import java.util.Collection;
  */
 public final class FilterParamIndexEquals extends FilterParamIndexEqualsBase
 {
-    public FilterParamIndexEquals(FilterSpecLookupable lookupable) {
-        super(lookupable, FilterOperator.EQUAL);
+    public FilterParamIndexEquals(FilterSpecLookupable lookupable, ReadWriteLock readWriteLock) {
+        super(lookupable, FilterOperator.EQUAL, readWriteLock);
     }
 
     public final void matchEvent(EventBean theEvent, Collection<FilterHandle> matches)
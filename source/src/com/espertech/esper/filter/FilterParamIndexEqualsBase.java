@@ -9,11 +9,12 @@
 package com.espertech.esper.filter;
 
 import com.espertech.esper.client.EventPropertyGetter;
+import com.espertech.esper.collection.Pair;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * Index for filter parameter constants to match using the equals (=) operator.
@@ -24,11 +25,11 @@ public abstract class FilterParamIndexEqualsBase extends FilterParamIndexLookupa
     protected final Map<Object, EventEvaluator> constantsMap;
     protected final ReadWriteLock constantsMapRWLock;
 
-    protected FilterParamIndexEqualsBase(FilterSpecLookupable lookupable, FilterOperator filterOperator) {
+    protected FilterParamIndexEqualsBase(FilterSpecLookupable lookupable, FilterOperator filterOperator, ReadWriteLock readWriteLock) {
         super(filterOperator, lookupable);
 
         constantsMap = new HashMap<Object, EventEvaluator>();
-        constantsMapRWLock = new ReentrantReadWriteLock();
+        constantsMapRWLock = readWriteLock;
     }
 
     public final EventEvaluator get(Object filterConstant)
@@ -59,4 +60,12 @@ public abstract class FilterParamIndexEqualsBase extends FilterParamIndexLookupa
     {
         return constantsMapRWLock;
     }
+
+    public final void getEntries(Collection<Pair<Object, EventEvaluator>> entries)
+    {
+        for (Map.Entry<Object, EventEvaluator> entry : constantsMap.entrySet())
+        {
+            entries.add(new Pair<Object, EventEvaluator>(entry.getKey(), entry.getValue()));
+        }
+    }
 }
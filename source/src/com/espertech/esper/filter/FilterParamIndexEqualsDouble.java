@@ -0,0 +1,34 @@
+/**************************************************************************************
+ * Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ * http://esper.codehaus.org                                                          *
+ * http://www.espertech.com                                                           *
+ * ---------------------------------------------------------------------------------- *
+ * The software in this package is published under the terms of the GPL license       *
+ * a copy of which has been included with this distribution in the license.txt file.  *
+ **************************************************************************************/
+package com.espertech.esper.filter;
+
+import java.util.concurrent.locks.ReadWriteLock;
+
+/**
+ * Index for filter parameter constants to match using the equals (=) operator for properties of type double or Double.
+ * <p>
+ * Keys are the bits of the double value as returned by Double.doubleToLongBits, which is the same notion of
+ * equality as Double.equals.
+ */
+public final class FilterParamIndexEqualsDouble extends FilterParamIndexEqualsPrimitiveBase
+{
+    public FilterParamIndexEqualsDouble(FilterSpecLookupable lookupable, ReadWriteLock readWriteLock) {
+        super(lookupable, readWriteLock, Double.class);
+    }
+
+    protected final long toKey(Object value)
+    {
+        return Double.doubleToLongBits(((Double) value).doubleValue());
+    }
+
+    protected final Object fromKey(long key)
+    {
+        return Double.valueOf(Double.longBitsToDouble(key));
+    }
+}
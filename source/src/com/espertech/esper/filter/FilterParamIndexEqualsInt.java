@@ -0,0 +1,31 @@
+/**************************************************************************************
+ * Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ * http://esper.codehaus.org                                                          *
+ * http://www.espertech.com                                                           *
+ * ---------------------------------------------------------------------------------- *
+ * The software in this package is published under the terms of the GPL license       *
+ * a copy of which has been included with this distribution in the license.txt file.  *
+ **************************************************************************************/
+package com.espertech.esper.filter;
+
+import java.util.concurrent.locks.ReadWriteLock;
+
+/**
+ * Index for filter parameter constants to match using the equals (=) operator for properties of type int or Integer.
+ */
+public final class FilterParamIndexEqualsInt extends FilterParamIndexEqualsPrimitiveBase
+{
+    public FilterParamIndexEqualsInt(FilterSpecLookupable lookupable, ReadWriteLock readWriteLock) {
+        super(lookupable, readWriteLock, Integer.class);
+    }
+
+    protected final long toKey(Object value)
+    {
+        return ((Integer) value).intValue();
+    }
+
+    protected final Object fromKey(long key)
+    {
+        return Integer.valueOf((int) key);
+    }
+}
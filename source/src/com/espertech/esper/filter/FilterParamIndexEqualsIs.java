@@ -13,6 +13,7 @@ import com.espertech.esper.client.EventPropertyGetter;
 import com.espertech.esper.client.EventType;
 
 import java.util.Collection;
+import java.util.concurrent.locks.ReadWriteLock;
 
 /**
  * Index for filter parameter constants to match using the equals (=) operator.
@@ -20,8 +21,8 @@ import java.util.Collection;
  */
 public final class FilterParamIndexEqualsIs extends FilterParamIndexEqualsBase
 {
-    public FilterParamIndexEqualsIs(FilterSpecLookupable lookupable) {
-        super(lookupable, FilterOperator.IS);
+    public FilterParamIndexEqualsIs(FilterSpecLookupable lookupable, ReadWriteLock readWriteLock) {
+        super(lookupable, FilterOperator.IS, readWriteLock);
     }
 
     public final void matchEvent(EventBean theEvent, Collection<FilterHandle> matches)
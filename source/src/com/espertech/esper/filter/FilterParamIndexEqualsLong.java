@@ -0,0 +1,31 @@
+/**************************************************************************************
+ * Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ * http://esper.codehaus.org                                                          *
+ * http://www.espertech.com                                                           *
+ * ---------------------------------------------------------------------------------- *
+ * The software in this package is published under the terms of the GPL license       *
+ * a copy of which has been included with this distribution in the license.txt file.  *
+ **************************************************************************************/
+package com.espertech.esper.filter;
+
+import java.util.concurrent.locks.ReadWriteLock;
+
+/**
+ * Index for filter parameter constants to match using the equals (=) operator for properties of type long or Long.
+ */
+public final class FilterParamIndexEqualsLong extends FilterParamIndexEqualsPrimitiveBase
+{
+    public FilterParamIndexEqualsLong(FilterSpecLookupable lookupable, ReadWriteLock readWriteLock) {
+        super(lookupable, readWriteLock, Long.class);
+    }
+
+    protected final long toKey(Object value)
+    {
+        return ((Long) value).longValue();
+    }
+
+    protected final Object fromKey(long key)
+    {
+        return Long.valueOf(key);
+    }
+}
@@ -0,0 +1,148 @@
+/**************************************************************************************
+ * Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ * http://esper.codehaus.org                                                          *
+ * http://www.espertech.com                                                           *
+ * ---------------------------------------------------------------------------------- *
+ * The software in this package is published under the terms of the GPL license       *
+ * a copy of which has been included with this distribution in the license.txt file.  *
+ **************************************************************************************/
+package com.espertech.esper.filter;
+
+import com.espertech.esper.client.EventBean;
+import com.espertech.esper.collection.LongObjectHashMap;
+import com.espertech.esper.collection.Pair;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+
+/**
+ * Index for filter parameter constants to match using the equals (=) operator for properties of a numeric type.
+ * Constants of the boxed type of the property are stored by a primitive long key in an open-addressing hash map,
+ * so that lookups do not hash through the boxed type and do not allocate.
+ * <p>
+ * Constants and property values of any other type are compared using a regular HashMap,
+ * so that matching is the same as for {@link FilterParamIndexEquals}.
+ */
+public abstract class FilterParamIndexEqualsPrimitiveBase extends FilterParamIndexLookupableBase
+{
+    private final Class boxedType;
+    private final LongObjectHashMap<EventEvaluator> constantsMap;
+    private final Map<Object, EventEvaluator> constantsOtherTypeMap;
+    private final ReadWriteLock constantsMapRWLock;
+
+    /**
+     * Ctor.
+     * @param lookupable is the lookupable
+     * @param readWriteLock is the lock to use for the index
+     * @param boxedType is the boxed type of the property
+     */
+    protected FilterParamIndexEqualsPrimitiveBase(FilterSpecLookupable lookupable, ReadWriteLock readWriteLock, Class boxedType) {
+        super(FilterOperator.EQUAL, lookupable);
+
+        this.boxedType = boxedType;
+        constantsMap = new LongObjectHashMap<EventEvaluator>();
+        constantsOtherTypeMap = new HashMap<Object, EventEvaluator>();
+        constantsMapRWLock = readWriteLock;
+    }
+
+    /**
+     * Returns the primitive key for a value of the boxed type.
+     * @param value value of the boxed type, not null
+     * @return key
+     */
+    protected abstract long toKey(Object value);
+
+    /**
+     * Returns the value of the boxed type for a primitive key.
+     * @param key key
+     * @return value of the boxed type
+     */
+    protected abstract Object fromKey(long key);
+
+    public final EventEvaluator get(Object filterConstant)
+    {
+        if ((filterConstant != null) && (filterConstant.getClass() == boxedType))
+        {
+            return constantsMap.get(toKey(filterConstant));
+        }
+        return constantsOtherTypeMap.get(filterConstant);
+    }
+
+    public final void put(Object filterConstant, EventEvaluator evaluator)
+    {
+        if ((filterConstant != null) && (filterConstant.getClass() == boxedType))
+        {
+            constantsMap.put(toKey(filterConstant), evaluator);
+            return;
+        }
+        constantsOtherTypeMap.put(filterConstant, evaluator);
+    }
+
+    public final boolean remove(Object filterConstant)
+    {
+        if ((filterConstant != null) && (filterConstant.getClass() == boxedType))
+        {
+            return constantsMap.remove(toKey(filterConstant)) != null;
+        }
+        return constantsOtherTypeMap.remove(filterConstant) != null;
+    }
+
+    public final int size()
+    {
+        return constantsMap.size() + constantsOtherTypeMap.size();
+    }
+
+    public final ReadWriteLock getReadWriteLock()
+    {
+        return constantsMapRWLock;
+    }
+
+    public final void getEntries(Collection<Pair<Object, EventEvaluator>> entries)
+    {
+        for (long key : constantsMap.keys())
+        {
+            entries.add(new Pair<Object, EventEvaluator>(fromKey(key), constantsMap.get(key)));
+        }
+        for (Map.Entry<Object, EventEvaluator> entry : constantsOtherTypeMap.entrySet())
+        {
+            entries.add(new Pair<Object, EventEvaluator>(entry.getKey(), entry.getValue()));
+        }
+    }
+
+    public final void matchEvent(EventBean theEvent, Collection<FilterHandle> matches)
+    {
+        Object attributeValue = lookupable.getGetter().get(theEvent);
+        if (attributeValue == null) {   //  null cannot match, not even null: requires use of "is"
+            return;
+        }
+
+        // Look up in hashtable
+        EventEvaluator evaluator = null;
+        constantsMapRWLock.readLock().lock();
+        try
+        {
+            if (attributeValue.getClass() == boxedType)
+            {
+                evaluator = constantsMap.get(toKey(attributeValue));
+            }
+            else if (!constantsOtherTypeMap.isEmpty())
+            {
+                evaluator = constantsOtherTypeMap.get(attributeValue);
+            }
+        }
+        finally
+        {
+            constantsMapRWLock.readLock().unlock();
+        }
+
+        // No listener found for the value, return
+        if (evaluator == null)
+        {
+            return;
+        }
+
+        evaluator.matchEvent(theEvent, matches);
+    }
+}
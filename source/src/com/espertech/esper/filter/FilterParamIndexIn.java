@@ -11,12 +11,12 @@ package com.espertech.esper.filter;
 import com.espertech.esper.client.EventBean;
 import com.espertech.esper.client.EventPropertyGetter;
 import com.espertech.esper.collection.MultiKeyUntyped;
+import com.espertech.esper.collection.Pair;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import java.util.*;
 import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * Index for filter parameter constants to match using the 'in' operator to match against a supplied set of values
@@ -29,12 +29,12 @@ public final class FilterParamIndexIn extends FilterParamIndexLookupableBase
     private final Map<MultiKeyUntyped, EventEvaluator> evaluatorsMap;
     private final ReadWriteLock constantsMapRWLock;
 
-    public FilterParamIndexIn(FilterSpecLookupable lookupable) {
+    public FilterParamIndexIn(FilterSpecLookupable lookupable, ReadWriteLock readWriteLock) {
         super(FilterOperator.IN_LIST_OF_VALUES, lookupable);
 
         constantsMap = new HashMap<Object, List<EventEvaluator>>();
         evaluatorsMap = new HashMap<MultiKeyUntyped, EventEvaluator>();
-        constantsMapRWLock = new ReentrantReadWriteLock();
+        constantsMapRWLock = readWriteLock;
     }
 
     public final EventEvaluator get(Object filterConstant)
@@ -110,6 +110,14 @@ public final class FilterParamIndexIn extends FilterParamIndexLookupableBase
         return constantsMapRWLock;
     }
 
+    public final void getEntries(Collection<Pair<Object, EventEvaluator>> entries)
+    {
+        for (Map.Entry<MultiKeyUntyped, EventEvaluator> entry : evaluatorsMap.entrySet())
+        {
+            entries.add(new Pair<Object, EventEvaluator>(entry.getKey(), entry.getValue()));
+        }
+    }
+
     public final void matchEvent(EventBean theEvent, Collection<FilterHandle> matches)
     {
         Object attributeValue = lookupable.getGetter().get(theEvent);
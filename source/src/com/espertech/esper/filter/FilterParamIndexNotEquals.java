@@ -15,6 +15,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import java.util.Collection;
+import java.util.concurrent.locks.ReadWriteLock;
 import java.util.Map;
 
 /**
@@ -23,8 +24,8 @@ import java.util.Map;
  */
 public final class FilterParamIndexNotEquals extends FilterParamIndexNotEqualsBase
 {
-    public FilterParamIndexNotEquals(FilterSpecLookupable lookupable) {
-        super(lookupable, FilterOperator.NOT_EQUAL);
+    public FilterParamIndexNotEquals(FilterSpecLookupable lookupable, ReadWriteLock readWriteLock) {
+        super(lookupable, FilterOperator.NOT_EQUAL, readWriteLock);
     }
 
     public final void matchEvent(EventBean theEvent, Collection<FilterHandle> matches)
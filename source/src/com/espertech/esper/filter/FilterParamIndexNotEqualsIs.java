@@ -15,6 +15,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import java.util.Collection;
+import java.util.concurrent.locks.ReadWriteLock;
 import java.util.Map;
 
 /**
@@ -23,8 +24,8 @@ import java.util.Map;
  */
 public final class FilterParamIndexNotEqualsIs extends FilterParamIndexNotEqualsBase
 {
-    public FilterParamIndexNotEqualsIs(FilterSpecLookupable lookupable) {
-        super(lookupable, FilterOperator.IS_NOT);
+    public FilterParamIndexNotEqualsIs(FilterSpecLookupable lookupable, ReadWriteLock readWriteLock) {
+        super(lookupable, FilterOperator.IS_NOT, readWriteLock);
     }
 
     public final void matchEvent(EventBean theEvent, Collection<FilterHandle> matches)
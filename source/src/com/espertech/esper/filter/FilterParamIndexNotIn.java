@@ -10,12 +10,12 @@ package com.espertech.esper.filter;
 
 import com.espertech.esper.client.EventBean;
 import com.espertech.esper.collection.MultiKeyUntyped;
+import com.espertech.esper.collection.Pair;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import java.util.*;
 import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * Index for filter parameter constants to match using the 'not in' operator to match against a
@@ -28,14 +28,14 @@ public final class FilterParamIndexNotIn extends FilterParamIndexLookupableBase
     private final Set<EventEvaluator> evaluatorsSet;
     private final ReadWriteLock constantsMapRWLock;
 
-    public FilterParamIndexNotIn(FilterSpecLookupable lookupable)
+    public FilterParamIndexNotIn(FilterSpecLookupable lookupable, ReadWriteLock readWriteLock)
     {
         super(FilterOperator.NOT_IN_LIST_OF_VALUES, lookupable);
 
         constantsMap = new HashMap<Object, Set<EventEvaluator>>();
         filterValueEvaluators = new HashMap<MultiKeyUntyped, EventEvaluator>();
         evaluatorsSet = new HashSet<EventEvaluator>();
-        constantsMapRWLock = new ReentrantReadWriteLock();
+        constantsMapRWLock = readWriteLock;
     }
 
     public final EventEvaluator get(Object filterConstant)
@@ -104,6 +104,14 @@ public final class FilterParamIndexNotIn extends FilterParamIndexLookupableBase
         return constantsMapRWLock;
     }
 
+    public final void getEntries(Collection<Pair<Object, EventEvaluator>> entries)
+    {
+        for (Map.Entry<MultiKeyUntyped, EventEvaluator> entry : filterValueEvaluators.entrySet())
+        {
+            entries.add(new Pair<Object, EventEvaluator>(entry.getKey(), entry.getValue()));
+        }
+    }
+
     public final void matchEvent(EventBean theEvent, Collection<FilterHandle> matches)
     {
         Object attributeValue = lookupable.getGetter().get(theEvent);
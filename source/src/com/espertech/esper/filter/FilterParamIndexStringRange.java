@@ -19,21 +19,27 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
 
 /**
  * Index for filter parameter constants for the range operators (range open/closed/half).
- * The implementation is based on the SortedMap implementation of TreeMap and stores only expression
+ * The implementation is based on an {@link IntervalTree} and stores only expression
  * parameter values of type DoubleRange.
  */
 public final class FilterParamIndexStringRange extends FilterParamIndexStringRangeBase
 {
-    public FilterParamIndexStringRange(FilterSpecLookupable lookupable, FilterOperator filterOperator) {
-        super(lookupable, filterOperator);
+    private final boolean inclusiveLow;
+    private final boolean inclusiveHigh;
+
+    public FilterParamIndexStringRange(FilterSpecLookupable lookupable, FilterOperator filterOperator, ReadWriteLock readWriteLock) {
+        super(lookupable, filterOperator, readWriteLock);
 
         if (!(filterOperator.isRangeOperator()))
         {
             throw new IllegalArgumentException("Invalid filter operator " + filterOperator);
         }
+        inclusiveLow = filterOperator.isRangeInclusiveLow();
+        inclusiveHigh = filterOperator.isRangeInclusiveHigh();
     }
 
     public final void matchEvent(EventBean theEvent, Collection<FilterHandle> matches)
@@ -44,55 +50,15 @@ public final class FilterParamIndexStringRange extends FilterParamIndexStringRan
         {
             return;
         }
-        
-        String attributeValue = (String) objAttributeValue;
-
-        StringRange rangeStart = new StringRange(null, attributeValue);
-        StringRange rangeEnd = new StringRange(attributeValue, null);
-        SortedMap<StringRange, EventEvaluator> subMap = ranges.subMap(rangeStart, true, rangeEnd, true);
 
-        // For not including either endpoint
-        // A bit awkward to duplicate the loop code, however better than checking the boolean many times over
-        // This may be a bit of an early performance optimization - the optimizer after all may do this better
-        if (this.getFilterOperator() == FilterOperator.RANGE_OPEN)  // include neither endpoint
-        {
-            for (Map.Entry<StringRange, EventEvaluator> entry : subMap.entrySet())
-            {
-                if (entry.getKey().getMin().compareTo(attributeValue) < 0 && entry.getKey().getMax().compareTo(attributeValue) > 0) {
-                    entry.getValue().matchEvent(theEvent, matches);
-                }
-            }
-        }
-        else if (this.getFilterOperator() == FilterOperator.RANGE_CLOSED)   // include all endpoints
-        {
-            for (Map.Entry<StringRange, EventEvaluator> entry : subMap.entrySet())
-            {
-                if (entry.getKey().getMin().compareTo(attributeValue) <= 0 && entry.getKey().getMax().compareTo(attributeValue) >= 0) {
-                    entry.getValue().matchEvent(theEvent, matches);
-                }
-            }
-        }
-        else if (this.getFilterOperator() == FilterOperator.RANGE_HALF_CLOSED) // include high endpoint not low endpoint
-        {
-            for (Map.Entry<StringRange, EventEvaluator> entry : subMap.entrySet())
-            {
-                if (entry.getKey().getMin().compareTo(attributeValue) < 0 && entry.getKey().getMax().compareTo(attributeValue) >= 0) {
-                    entry.getValue().matchEvent(theEvent, matches);
-                }
-            }
-        }
-        else if (this.getFilterOperator() == FilterOperator.RANGE_HALF_OPEN) // include low endpoint not high endpoint
+        getReadWriteLock().readLock().lock();
+        try
         {
-            for (Map.Entry<StringRange, EventEvaluator> entry : subMap.entrySet())
-            {
-                if (entry.getKey().getMin().compareTo(attributeValue) <= 0 && entry.getKey().getMax().compareTo(attributeValue) > 0) {
-                    entry.getValue().matchEvent(theEvent, matches);
-                }
-            }
+            ranges.matchContaining((String) objAttributeValue, inclusiveLow, inclusiveHigh, theEvent, matches);
         }
-        else
+        finally
         {
-            throw new IllegalStateException("Invalid filter operator " + this.getFilterOperator());
+            getReadWriteLock().readLock().unlock();
         }
     }
 
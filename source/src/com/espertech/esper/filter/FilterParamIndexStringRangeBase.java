@@ -13,26 +13,39 @@
 package com.espertech.esper.filter;
 
 import com.espertech.esper.client.EventPropertyGetter;
+import com.espertech.esper.collection.Pair;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.IdentityHashMap;
-import java.util.TreeMap;
+import java.util.Map;
 import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 
+/**
+ * Index for filter parameter constants for the range operators (range open/closed/half) on string values.
+ * The implementation is based on an {@link IntervalTree} and stores only expression
+ * parameter values of type StringRange.
+ */
 public abstract class FilterParamIndexStringRangeBase extends FilterParamIndexLookupableBase
 {
-    protected final TreeMap<StringRange, EventEvaluator> ranges;
+    private static final Comparator<String> ENDPOINT_COMPARATOR = new Comparator<String>() {
+        public int compare(String first, String second) {
+            return first.compareTo(second);
+        }
+    };
+
+    protected final IntervalTree<String> ranges;
     private final IdentityHashMap<StringRange, EventEvaluator> rangesNullEndpoints;
     private final ReadWriteLock rangesRWLock;
 
-    protected FilterParamIndexStringRangeBase(FilterSpecLookupable lookupable, FilterOperator filterOperator) {
+    protected FilterParamIndexStringRangeBase(FilterSpecLookupable lookupable, FilterOperator filterOperator, ReadWriteLock readWriteLock) {
         super(filterOperator, lookupable);
 
-        ranges = new TreeMap<StringRange, EventEvaluator>(new StringRangeComparator());
+        ranges = new IntervalTree<String>(ENDPOINT_COMPARATOR);
         rangesNullEndpoints = new IdentityHashMap<StringRange, EventEvaluator>();
-        rangesRWLock = new ReentrantReadWriteLock();
+        rangesRWLock = readWriteLock;
     }
 
     public final EventEvaluator get(Object expressionValue)
@@ -91,5 +104,14 @@ public abstract class FilterParamIndexStringRangeBase extends FilterParamIndexLo
         return rangesRWLock;
     }
 
+    public final void getEntries(Collection<Pair<Object, EventEvaluator>> entries)
+    {
+        ranges.getEntries(entries);
+        for (Map.Entry<StringRange, EventEvaluator> entry : rangesNullEndpoints.entrySet())
+        {
+            entries.add(new Pair<Object, EventEvaluator>(entry.getKey(), entry.getValue()));
+        }
+    }
+
     private static final Log log = LogFactory.getLog(FilterParamIndexStringRangeBase.class);
 }
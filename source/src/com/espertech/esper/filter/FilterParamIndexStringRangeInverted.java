@@ -15,21 +15,26 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import java.util.Collection;
-import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
 
 /**
  * Index for filter parameter constants for the not range operators (range open/closed/half).
- * The implementation is based on the SortedMap implementation of TreeMap and stores only expression
+ * The implementation is based on an {@link IntervalTree} and stores only expression
  * parameter values of type StringRange.
  */
 public final class FilterParamIndexStringRangeInverted extends FilterParamIndexStringRangeBase
 {
-    public FilterParamIndexStringRangeInverted(FilterSpecLookupable lookupable, FilterOperator filterOperator) {
-        super(lookupable, filterOperator);
+    private final boolean inclusiveLow;
+    private final boolean inclusiveHigh;
+
+    public FilterParamIndexStringRangeInverted(FilterSpecLookupable lookupable, FilterOperator filterOperator, ReadWriteLock readWriteLock) {
+        super(lookupable, filterOperator, readWriteLock);
         if (!(filterOperator.isInvertedRangeOperator()))
         {
             throw new IllegalArgumentException("Invalid filter operator " + filterOperator);
         }
+        inclusiveLow = filterOperator.isRangeInclusiveLow();
+        inclusiveHigh = filterOperator.isRangeInclusiveHigh();
     }
 
     public final void matchEvent(EventBean theEvent, Collection<FilterHandle> matches)
@@ -41,42 +46,14 @@ public final class FilterParamIndexStringRangeInverted extends FilterParamIndexS
             return;
         }
 
-        String attributeValue = (String) objAttributeValue;
-
-        if (this.getFilterOperator() == FilterOperator.NOT_RANGE_CLOSED)   // include all endpoints
-        {
-            for (Map.Entry<StringRange, EventEvaluator> entry : ranges.entrySet()) {
-                if (entry.getKey().getMin().compareTo(attributeValue) > 0 || entry.getKey().getMax().compareTo(attributeValue) < 0) {
-                    entry.getValue().matchEvent(theEvent, matches);
-                }
-            }
-        }
-        else if (this.getFilterOperator() == FilterOperator.NOT_RANGE_OPEN) {  // include neither endpoint
-            for (Map.Entry<StringRange, EventEvaluator> entry : ranges.entrySet()) {
-                if (entry.getKey().getMin().compareTo(attributeValue) >= 0 || entry.getKey().getMax().compareTo(attributeValue) <= 0) {
-                    entry.getValue().matchEvent(theEvent, matches);
-                }
-            }
-        }
-        else if (this.getFilterOperator() == FilterOperator.NOT_RANGE_HALF_CLOSED) // include high endpoint not low endpoint
-        {
-            for (Map.Entry<StringRange, EventEvaluator> entry : ranges.entrySet()) {
-                if (entry.getKey().getMin().compareTo(attributeValue) >= 0 || entry.getKey().getMax().compareTo(attributeValue) < 0) {
-                    entry.getValue().matchEvent(theEvent, matches);
-                }
-            }
-        }
-        else if (this.getFilterOperator() == FilterOperator.NOT_RANGE_HALF_OPEN) // include low endpoint not high endpoint
+        getReadWriteLock().readLock().lock();
+        try
         {
-            for (Map.Entry<StringRange, EventEvaluator> entry : ranges.entrySet()) {
-                if (entry.getKey().getMin().compareTo(attributeValue) > 0 || entry.getKey().getMax().compareTo(attributeValue) <= 0) {
-                    entry.getValue().matchEvent(theEvent, matches);
-                }
-            }
+            ranges.matchNotContaining((String) objAttributeValue, inclusiveLow, inclusiveHigh, theEvent, matches);
         }
-        else
+        finally
         {
-            throw new IllegalStateException("Invalid filter operator " + this.getFilterOperator());
+            getReadWriteLock().readLock().unlock();
         }
     }
 
@@ -0,0 +1,413 @@
+/**************************************************************************************
+ * Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ * http://esper.codehaus.org                                                          *
+ * http://www.espertech.com                                                           *
+ * ---------------------------------------------------------------------------------- *
+ * The software in this package is published under the terms of the GPL license       *
+ * a copy of which has been included with this distribution in the license.txt file.  *
+ **************************************************************************************/
+package com.espertech.esper.filter;
+
+import com.espertech.esper.client.EventBean;
+import com.espertech.esper.client.EventType;
+import com.espertech.esper.collection.Pair;
+import com.espertech.esper.util.AuditPath;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Implementation of the filter service interface that evaluates events against an immutable copy of the
+ * filter index tree, for use when events are evaluated much more frequently than filters are added or removed.
+ * <p>
+ * Filters are added to and removed from a master filter index tree, one thread at a time. After each change
+ * the indexes and nodes on the tree path of the change are copied and a new map of event type to copied root
+ * node is published, sharing the copies of all unchanged subtrees. Evaluating an event therefore reads
+ * a single volatile field and does not take any lock.
+ * <p>
+ * Does not allow the same filter callback to be added more then once.
+ */
+public final class FilterServiceCopyOnWrite implements FilterServiceSPI
+{
+    private static final Log log = LogFactory.getLog(FilterServiceCopyOnWrite.class);
+    private static final FilterServiceGranularLockFactory LOCK_FACTORY_NONE = new FilterServiceGranularLockFactoryNone();
+
+    private final Lock writeLock;
+    private final EventTypeIndex eventTypeIndex;
+    private final Map<FilterHandle, Pair<FilterValueSet, IndexTreePath>> callbacks;
+    private final IdentityHashMap<EventEvaluator, EventEvaluator> snapshots;
+    private volatile Map<EventType, EventEvaluator> snapshotEventTypes;
+    private final AtomicLong numEventsEvaluated = new AtomicLong();
+    private volatile long filtersVersion = 1;
+    private final CopyOnWriteArraySet<FilterServiceListener> filterServiceListeners;
+
+    /**
+     * Constructor.
+     */
+    protected FilterServiceCopyOnWrite()
+    {
+        writeLock = new ReentrantLock();
+        eventTypeIndex = new EventTypeIndex();
+        callbacks = new HashMap<FilterHandle, Pair<FilterValueSet, IndexTreePath>>();
+        snapshots = new IdentityHashMap<EventEvaluator, EventEvaluator>();
+        snapshotEventTypes = Collections.emptyMap();
+        filterServiceListeners = new CopyOnWriteArraySet<FilterServiceListener>();
+    }
+
+    public long getFiltersVersion() {
+        return filtersVersion;
+    }
+
+    public void destroy()
+    {
+        log.debug("Destroying filter service");
+        writeLock.lock();
+        try
+        {
+            eventTypeIndex.destroy();
+            callbacks.clear();
+            snapshots.clear();
+            snapshotEventTypes = Collections.emptyMap();
+        }
+        finally
+        {
+            writeLock.unlock();
+        }
+    }
+
+    public final void add(FilterValueSet filterValueSet, FilterHandle filterCallback)
+    {
+        writeLock.lock();
+        try
+        {
+            EventType eventType = addInternal(filterValueSet, filterCallback);
+            publish(Collections.singleton(eventType));
+            filtersVersion++;
+        }
+        finally
+        {
+            writeLock.unlock();
+        }
+    }
+
+    public final void remove(FilterHandle filterCallback)
+    {
+        writeLock.lock();
+        try
+        {
+            EventType eventType = removeInternal(filterCallback);
+            if (eventType != null)
+            {
+                publish(Collections.singleton(eventType));
+            }
+            filtersVersion++;
+        }
+        finally
+        {
+            writeLock.unlock();
+        }
+    }
+
+    public final long evaluate(EventBean theEvent, Collection<FilterHandle> matches)
+    {
+        long version = filtersVersion;
+        numEventsEvaluated.incrementAndGet();
+
+        // Finds all matching filters and return their callbacks
+        matchEvent(theEvent, matches);
+
+        if ((AuditPath.isAuditEnabled) && (!filterServiceListeners.isEmpty())) {
+            for (FilterServiceListener listener : filterServiceListeners) {
+                listener.filtering(theEvent, matches, null);
+            }
+        }
+
+        return version;
+    }
+
+    public final long evaluate(EventBean theEvent, Collection<FilterHandle> matches, String statementId)
+    {
+        long version = filtersVersion;
+        numEventsEvaluated.incrementAndGet();
+
+        ArrayDeque<FilterHandle> allMatches = new ArrayDeque<FilterHandle>();
+
+        // Finds all matching filters
+        matchEvent(theEvent, allMatches);
+
+        // Add statement matches to collection passed
+        for (FilterHandle match : allMatches) {
+            if (match.getStatementId().equals(statementId)) {
+                matches.add(match);
+            }
+        }
+
+        if ((AuditPath.isAuditEnabled) && (!filterServiceListeners.isEmpty())) {
+            for (FilterServiceListener listener : filterServiceListeners) {
+                listener.filtering(theEvent, matches, statementId);
+            }
+        }
+
+        return version;
+    }
+
+    public final long getNumEventsEvaluated()
+    {
+        return numEventsEvaluated.get();
+    }
+
+    public void resetStats() {
+        numEventsEvaluated.set(0);
+    }
+
+    public void addFilterServiceListener(FilterServiceListener filterServiceListener) {
+        filterServiceListeners.add(filterServiceListener);
+    }
+
+    public void removeFilterServiceListener(FilterServiceListener filterServiceListener) {
+        filterServiceListeners.remove(filterServiceListener);
+    }
+
+    public FilterSet take(Set<String> statementIds)
+    {
+        writeLock.lock();
+        try
+        {
+            List<FilterSetEntry> list = new ArrayList<FilterSetEntry>();
+            for (Map.Entry<FilterHandle, Pair<FilterValueSet, IndexTreePath>> entry : callbacks.entrySet())
+            {
+                if (statementIds.contains(entry.getKey().getStatementId()))
+                {
+                    list.add(new FilterSetEntry(entry.getKey(), entry.getValue().getFirst()));
+                }
+            }
+
+            Set<EventType> eventTypes = new HashSet<EventType>();
+            for (FilterSetEntry removed : list)
+            {
+                EventType eventType = removeInternal(removed.getHandle());
+                if (eventType != null)
+                {
+                    eventTypes.add(eventType);
+                }
+            }
+            publish(eventTypes);
+            filtersVersion++;
+
+            return new FilterSet(list);
+        }
+        finally
+        {
+            writeLock.unlock();
+        }
+    }
+
+    public void apply(FilterSet filterSet)
+    {
+        writeLock.lock();
+        try
+        {
+            Set<EventType> eventTypes = new HashSet<EventType>();
+            for (FilterSetEntry entry : filterSet.getFilters())
+            {
+                eventTypes.add(addInternal(entry.getFilterValueSet(), entry.getHandle()));
+            }
+            publish(eventTypes);
+            filtersVersion++;
+        }
+        finally
+        {
+            writeLock.unlock();
+        }
+    }
+
+    public int getFilterCountApprox() {
+        writeLock.lock();
+        try
+        {
+            return eventTypeIndex.getFilterCountApprox();
+        }
+        finally
+        {
+            writeLock.unlock();
+        }
+    }
+
+    public int getCountTypes() {
+        return snapshotEventTypes.size();
+    }
+
+    public void removeType(EventType type) {
+        writeLock.lock();
+        try
+        {
+            eventTypeIndex.removeType(type);
+            snapshots.clear();
+            publish(Collections.singleton(type));
+        }
+        finally
+        {
+            writeLock.unlock();
+        }
+    }
+
+    private void matchEvent(EventBean theEvent, Collection<FilterHandle> matches)
+    {
+        Map<EventType, EventEvaluator> eventTypes = snapshotEventTypes;
+        EventType eventType = theEvent.getEventType();
+
+        // Attempt to match exact type
+        EventEvaluator rootNode = eventTypes.get(eventType);
+        if (rootNode != null)
+        {
+            rootNode.matchEvent(theEvent, matches);
+        }
+
+        // No supertype means we are done
+        if (eventType.getSuperTypes() == null)
+        {
+            return;
+        }
+
+        for (Iterator<EventType> it = eventType.getDeepSuperTypes(); it.hasNext();)
+        {
+            rootNode = eventTypes.get(it.next());
+            if (rootNode != null)
+            {
+                rootNode.matchEvent(theEvent, matches);
+            }
+        }
+    }
+
+    // Adds to the master tree, returns the event type of the filter; the caller must hold the write lock and publish
+    private EventType addInternal(FilterValueSet filterValueSet, FilterHandle filterCallback)
+    {
+        if (callbacks.containsKey(filterCallback))
+        {
+            throw new IllegalStateException("Callback for filter specification already exists in collection");
+        }
+
+        EventType eventType = filterValueSet.getEventType();
+        FilterHandleSetNode rootNode = eventTypeIndex.get(eventType);
+        if (rootNode == null)
+        {
+            rootNode = new FilterHandleSetNode(LOCK_FACTORY_NONE.obtainNew());
+            eventTypeIndex.add(eventType, rootNode);
+        }
+
+        IndexTreeBuilder treeBuilder = new IndexTreeBuilder(LOCK_FACTORY_NONE);
+        IndexTreePath path = treeBuilder.add(filterValueSet, filterCallback, rootNode);
+        callbacks.put(filterCallback, new Pair<FilterValueSet, IndexTreePath>(filterValueSet, path));
+
+        evictSnapshots(rootNode, path);
+        return eventType;
+    }
+
+    // Removes from the master tree, returns the event type of the filter or null if not found; the caller must hold the write lock and publish
+    private EventType removeInternal(FilterHandle filterCallback)
+    {
+        Pair<FilterValueSet, IndexTreePath> pair = callbacks.remove(filterCallback);
+        if (pair == null)
+        {
+            return null;
+        }
+
+        EventType eventType = pair.getFirst().getEventType();
+        FilterHandleSetNode rootNode = eventTypeIndex.get(eventType);
+        if (rootNode == null)
+        {
+            return null;
+        }
+
+        // Evict before removing, as removal consumes the path and may detach nodes and indexes from the tree
+        evictSnapshots(rootNode, pair.getSecond());
+
+        IndexTreeBuilder treeBuilder = new IndexTreeBuilder(LOCK_FACTORY_NONE);
+        treeBuilder.remove(eventType, filterCallback, pair.getSecond(), rootNode);
+        return eventType;
+    }
+
+    // Discards the copies of all nodes and indexes along the path, which are the only ones an add or remove changes
+    private void evictSnapshots(FilterHandleSetNode rootNode, IndexTreePath path)
+    {
+        snapshots.remove(rootNode);
+        for (Pair<FilterParamIndexBase, Object> entry : path.getIndizes())
+        {
+            FilterParamIndexBase index = entry.getFirst();
+            snapshots.remove(index);
+            EventEvaluator evaluator = index.get(entry.getSecond());
+            if (evaluator != null)
+            {
+                snapshots.remove(evaluator);
+            }
+        }
+    }
+
+    private void publish(Collection<EventType> eventTypes)
+    {
+        Map<EventType, EventEvaluator> published = new HashMap<EventType, EventEvaluator>(snapshotEventTypes);
+        for (EventType eventType : eventTypes)
+        {
+            FilterHandleSetNode rootNode = eventTypeIndex.get(eventType);
+            if (rootNode == null)
+            {
+                published.remove(eventType);
+            }
+            else
+            {
+                published.put(eventType, snapshot(rootNode));
+            }
+        }
+        snapshotEventTypes = published;
+    }
+
+    // Returns the copy of a master node or index, reusing copies of subtrees that did not change
+    private EventEvaluator snapshot(EventEvaluator master)
+    {
+        EventEvaluator snapshot = snapshots.get(master);
+        if (snapshot != null)
+        {
+            return snapshot;
+        }
+
+        if (master instanceof FilterHandleSetNode)
+        {
+            FilterHandleSetNode node = (FilterHandleSetNode) master;
+            List<FilterParamIndexBase> indizes = node.getIndizes();
+            EventEvaluator[] indexSnapshots = new EventEvaluator[indizes.size()];
+            int count = 0;
+            for (FilterParamIndexBase index : indizes)
+            {
+                indexSnapshots[count++] = snapshot(index);
+            }
+            Set<FilterHandle> callbackSet = node.getCallbackSet();
+            snapshot = new FilterHandleSetNodeSnapshot(indexSnapshots, callbackSet.toArray(new FilterHandle[callbackSet.size()]));
+        }
+        else
+        {
+            FilterParamIndexBase index = (FilterParamIndexBase) master;
+            FilterSpecLookupable lookupable = null;
+            if (index instanceof FilterParamIndexLookupableBase)
+            {
+                lookupable = ((FilterParamIndexLookupableBase) index).getLookupable();
+            }
+            FilterParamIndexBase copy = IndexFactory.createIndex(lookupable, LOCK_FACTORY_NONE, index.getFilterOperator());
+
+            List<Pair<Object, EventEvaluator>> entries = new ArrayList<Pair<Object, EventEvaluator>>();
+            index.getEntries(entries);
+            for (Pair<Object, EventEvaluator> entry : entries)
+            {
+                copy.put(entry.getFirst(), snapshot(entry.getSecond()));
+            }
+            snapshot = copy;
+        }
+
+        snapshots.put(master, snapshot);
+        return snapshot;
+    }
+}
@@ -6,23 +6,19 @@
  * The software in this package is published under the terms of the GPL license       *
  * a copy of which has been included with this distribution in the license.txt file.  *
  **************************************************************************************/
-package com.espertech.esper.collection;
+package com.espertech.esper.filter;
 
-import java.util.ArrayDeque;
+import java.util.concurrent.locks.ReadWriteLock;
 
-public final class TimeWindowIterator extends MixedEventBeanAndCollectionIteratorBase
+/**
+ * Factory for the read-write locks that guard the filter indexes and filter callback sets
+ * of a filter index tree.
+ */
+public interface FilterServiceGranularLockFactory
 {
     /**
-     * Ctor.
-     * @param window is the time-slotted collection
+     * Returns a new read-write lock for use by a single index or node.
+     * @return lock
      */
-    public TimeWindowIterator(ArrayDeque<TimeWindowPair> window)
-    {
-        super(window.iterator());
-        init();
-    }
-
-    protected Object getValue(Object iteratorKeyValue) {
-        return ((TimeWindowPair) iteratorKeyValue).getEventHolder();
-    }
+    public ReadWriteLock obtainNew();
 }
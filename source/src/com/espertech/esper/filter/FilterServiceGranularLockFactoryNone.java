@@ -0,0 +1,142 @@
+/**************************************************************************************
+ * Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ * http://esper.codehaus.org                                                          *
+ * http://www.espertech.com                                                           *
+ * ---------------------------------------------------------------------------------- *
+ * The software in this package is published under the terms of the GPL license       *
+ * a copy of which has been included with this distribution in the license.txt file.  *
+ **************************************************************************************/
+package com.espertech.esper.filter;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+
+/**
+ * Lock factory handing out a read-write lock that does not lock, for filter index trees that are
+ * changed only by a single thread at a time or that are not changed after construction.
+ */
+public class FilterServiceGranularLockFactoryNone implements FilterServiceGranularLockFactory
+{
+    private static final ReadWriteLock NO_LOCK = new ReadWriteLockNone();
+
+    public ReadWriteLock obtainNew()
+    {
+        return NO_LOCK;
+    }
+
+    /**
+     * Read-write lock that does not lock.
+     */
+    public static class ReadWriteLockNone implements ReadWriteLock
+    {
+        private static final Lock LOCK_NONE = new LockNone();
+
+        public Lock readLock()
+        {
+            return LOCK_NONE;
+        }
+
+        public Lock writeLock()
+        {
+            return LOCK_NONE;
+        }
+    }
+
+    /**
+     * Lock that does not lock.
+     */
+    public static class LockNone implements Lock
+    {
+        public void lock()
+        {
+        }
+
+        public void lockInterruptibly() throws InterruptedException
+        {
+        }
+
+        public boolean tryLock()
+        {
+            return true;
+        }
+
+        public boolean tryLock(long time, TimeUnit unit) throws InterruptedException
+        {
+            return true;
+        }
+
+        public void unlock()
+        {
+        }
+
+        public Condition newCondition()
+        {
+            return new ConditionNone();
+        }
+    }
+
+    /**
+     * Condition of a lock that does not lock: awaiting threads wait on the condition's monitor until signalled.
+     * <p>
+     * As the lock does not exclude other threads, checking a state and awaiting the condition is not atomic;
+     * as for any condition, awaiting threads must re-check their state after returning.
+     */
+    public static class ConditionNone implements Condition
+    {
+        public synchronized void await() throws InterruptedException
+        {
+            wait();
+        }
+
+        public synchronized void awaitUninterruptibly()
+        {
+            boolean interrupted = false;
+            try
+            {
+                wait();
+            }
+            catch (InterruptedException e)
+            {
+                interrupted = true;
+            }
+            if (interrupted)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        public synchronized long awaitNanos(long nanosTimeout) throws InterruptedException
+        {
+            if (nanosTimeout <= 0)
+            {
+                return nanosTimeout;
+            }
+            long deadline = System.nanoTime() + nanosTimeout;
+            TimeUnit.NANOSECONDS.timedWait(this, nanosTimeout);
+            return deadline - System.nanoTime();
+        }
+
+        public boolean await(long time, TimeUnit unit) throws InterruptedException
+        {
+            return awaitNanos(unit.toNanos(time)) > 0;
+        }
+
+        public boolean awaitUntil(Date deadline) throws InterruptedException
+        {
+            return await(deadline.getTime() - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        public synchronized void signal()
+        {
+            notify();
+        }
+
+        public synchronized void signalAll()
+        {
+            notifyAll();
+        }
+    }
+}
@@ -6,31 +6,19 @@
  * The software in this package is published under the terms of the GPL license       *
  * a copy of which has been included with this distribution in the license.txt file.  *
  **************************************************************************************/
-package com.espertech.esper.collection;
+package com.espertech.esper.filter;
 
-public final class TimeWindowPair
-{
-    private long timestamp;
-    private Object eventHolder;
-
-    public TimeWindowPair(long timestamp, Object eventHolder) {
-        this.timestamp = timestamp;
-        this.eventHolder = eventHolder;
-    }
-
-    public long getTimestamp() {
-        return timestamp;
-    }
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
-    public Object getEventHolder() {
-        return eventHolder;
-    }
-
-    public void setEventHolder(Object eventHolder) {
-        this.eventHolder = eventHolder;
-    }
-
-    public void setTimestamp(long timestamp) {
-        this.timestamp = timestamp;
+/**
+ * Lock factory handing out reentrant read-write locks, for filter index trees that
+ * are read and changed by multiple threads concurrently.
+ */
+public class FilterServiceGranularLockFactoryReentrant implements FilterServiceGranularLockFactory
+{
+    public ReadWriteLock obtainNew()
+    {
+        return new ReentrantReadWriteLock();
     }
 }
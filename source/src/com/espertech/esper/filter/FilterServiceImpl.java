@@ -39,7 +39,7 @@ public final class FilterServiceImpl implements FilterServiceSPI
     protected FilterServiceImpl()
     {
         eventTypeIndex = new EventTypeIndex();
-        indexBuilder = new EventTypeIndexBuilder(eventTypeIndex);
+        indexBuilder = new EventTypeIndexBuilder(eventTypeIndex, new FilterServiceGranularLockFactoryReentrant());
         filterServiceListeners = new CopyOnWriteArraySet<FilterServiceListener>();
     }
 
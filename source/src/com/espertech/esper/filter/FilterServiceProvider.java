@@ -8,6 +8,8 @@
  **************************************************************************************/
 package com.espertech.esper.filter;
 
+import com.espertech.esper.client.ConfigurationEngineDefaults;
+
 /**
  * Static factory for implementations of the {@link FilterService} interface.
  */
@@ -15,10 +17,15 @@ public final class FilterServiceProvider
 {
     /**
      * Creates an implementation of the FilterEvaluationService interface.
+     * @param filterServiceType type of filter service
      * @return implementation
      */
-    public static FilterServiceSPI newService()
+    public static FilterServiceSPI newService(ConfigurationEngineDefaults.FilterServiceType filterServiceType)
     {
+        if (filterServiceType == ConfigurationEngineDefaults.FilterServiceType.COPY_ON_WRITE)
+        {
+            return new FilterServiceCopyOnWrite();
+        }
         return new FilterServiceImpl();
     }
 }
@@ -9,6 +9,7 @@
 package com.espertech.esper.filter;
 
 import com.espertech.esper.client.EventType;
+import com.espertech.esper.util.JavaClassHelper;
 
 /**
  * Factory for {@link FilterParamIndexBase} instances based on event property name and filter operator type.
@@ -20,37 +21,51 @@ public class IndexFactory
      * operator.
      * <p>Does not perform any check of validity of property name.
      *
+     * @param lookupable is the lookupable, or null for boolean expression indexes
+     * @param lockFactory supplies the lock for the index
      * @param filterOperator is the type of index to use
      * @return the proper index based on the filter operator type
      */
-    public static FilterParamIndexBase createIndex(FilterSpecLookupable lookupable, FilterOperator filterOperator)
+    public static FilterParamIndexBase createIndex(FilterSpecLookupable lookupable, FilterServiceGranularLockFactory lockFactory, FilterOperator filterOperator)
     {
         FilterParamIndexBase index;
-        Class returnValueType = lookupable.getReturnType();
+        Class returnValueType = lookupable == null ? null : lookupable.getReturnType();
 
-        // Handle all EQUAL comparisons
+        // Handle all EQUAL comparisons, using a primitive-keyed index for int, long and double properties
         if (filterOperator == FilterOperator.EQUAL)
         {
-            index = new FilterParamIndexEquals(lookupable);
+            Class boxedType = JavaClassHelper.getBoxedType(returnValueType);
+            if (boxedType == Integer.class) {
+                index = new FilterParamIndexEqualsInt(lookupable, lockFactory.obtainNew());
+            }
+            else if (boxedType == Long.class) {
+                index = new FilterParamIndexEqualsLong(lookupable, lockFactory.obtainNew());
+            }
+            else if (boxedType == Double.class) {
+                index = new FilterParamIndexEqualsDouble(lookupable, lockFactory.obtainNew());
+            }
+            else {
+                index = new FilterParamIndexEquals(lookupable, lockFactory.obtainNew());
+            }
             return index;
         }
 
         // Handle all NOT-EQUAL comparisons
         if (filterOperator == FilterOperator.NOT_EQUAL)
         {
-            index = new FilterParamIndexNotEquals(lookupable);
+            index = new FilterParamIndexNotEquals(lookupable, lockFactory.obtainNew());
             return index;
         }
 
         if (filterOperator == FilterOperator.IS)
         {
-            index = new FilterParamIndexEqualsIs(lookupable);
+            index = new FilterParamIndexEqualsIs(lookupable, lockFactory.obtainNew());
             return index;
         }
 
         if (filterOperator == FilterOperator.IS_NOT)
         {
-            index = new FilterParamIndexNotEqualsIs(lookupable);
+            index = new FilterParamIndexNotEqualsIs(lookupable, lockFactory.obtainNew());
             return index;
         }
 
@@ -61,10 +76,10 @@ public class IndexFactory
             (filterOperator == FilterOperator.LESS_OR_EQUAL))
         {
             if (returnValueType != String.class) {
-                index = new FilterParamIndexCompare(lookupable, filterOperator);
+                index = new FilterParamIndexCompare(lookupable, filterOperator, lockFactory.obtainNew());
             }
             else {
-                index = new FilterParamIndexCompareString(lookupable, filterOperator);
+                index = new FilterParamIndexCompareString(lookupable, filterOperator, lockFactory.obtainNew());
             }
             return index;
         }
@@ -73,37 +88,37 @@ public class IndexFactory
         if (filterOperator.isRangeOperator())
         {
             if (returnValueType != String.class) {
-                index = new FilterParamIndexDoubleRange(lookupable, filterOperator);
+                index = new FilterParamIndexDoubleRange(lookupable, filterOperator, lockFactory.obtainNew());
             }
             else {
-                index = new FilterParamIndexStringRange(lookupable, filterOperator);
+                index = new FilterParamIndexStringRange(lookupable, filterOperator, lockFactory.obtainNew());
             }
             return index;
         }
         if (filterOperator.isInvertedRangeOperator())
         {
             if (returnValueType != String.class) {
-                return new FilterParamIndexDoubleRangeInverted(lookupable, filterOperator);
+                return new FilterParamIndexDoubleRangeInverted(lookupable, filterOperator, lockFactory.obtainNew());
             }
             else {
-                return new FilterParamIndexStringRangeInverted(lookupable, filterOperator);
+                return new FilterParamIndexStringRangeInverted(lookupable, filterOperator, lockFactory.obtainNew());
             }
         }
 
         // Handle all IN and NOT IN comparisons
         if (filterOperator == FilterOperator.IN_LIST_OF_VALUES)
         {
-            return new FilterParamIndexIn(lookupable);
+            return new FilterParamIndexIn(lookupable, lockFactory.obtainNew());
         }
         if (filterOperator == FilterOperator.NOT_IN_LIST_OF_VALUES)
         {
-            return new FilterParamIndexNotIn(lookupable);
+            return new FilterParamIndexNotIn(lookupable, lockFactory.obtainNew());
         }
 
         // Handle all boolean expression
         if (filterOperator == FilterOperator.BOOLEAN_EXPRESSION)
         {
-            return new FilterParamIndexBooleanExpr();
+            return new FilterParamIndexBooleanExpr(lockFactory.obtainNew());
         }
         throw new IllegalArgumentException("Cannot create filter index instance for filter operator " + filterOperator);
     }
@@ -29,12 +29,15 @@ public final class IndexTreeBuilder
     private ArrayDeque<FilterValueSetParam> remainingParameters;
     private FilterHandle filterCallback;
     private long currentThreadId;
+    private final FilterServiceGranularLockFactory lockFactory;
 
     /**
      * Constructor.
+     * @param lockFactory supplies the locks for new indexes and nodes
      */
-    public IndexTreeBuilder()
+    public IndexTreeBuilder(FilterServiceGranularLockFactory lockFactory)
     {
+        this.lockFactory = lockFactory;
     }
 
     /**
@@ -174,7 +177,7 @@ public final class IndexTreeBuilder
             // Pick the next parameter for an index
             FilterValueSetParam parameterPickedForIndex = remainingParameters.removeFirst();
 
-            FilterParamIndexBase index = IndexFactory.createIndex(parameterPickedForIndex.getLookupable(), parameterPickedForIndex.getFilterOperator());
+            FilterParamIndexBase index = IndexFactory.createIndex(parameterPickedForIndex.getLookupable(), lockFactory, parameterPickedForIndex.getFilterOperator());
 
             currentNode.getIndizes().add(index);
             treePathInfo.add(index, parameterPickedForIndex.getFilterForValue());
@@ -377,7 +380,7 @@ public final class IndexTreeBuilder
 
                 // The found eventEvaluator must be converted to a new FilterHandleSetNode
                 FilterParamIndexBase nextIndex = (FilterParamIndexBase) eventEvaluator;
-                FilterHandleSetNode newNode = new FilterHandleSetNode();
+                FilterHandleSetNode newNode = new FilterHandleSetNode(lockFactory.obtainNew());
                 newNode.add(nextIndex);
                 index.put(filterForValue, newNode);
                 addToNode(newNode, treePathInfo);
@@ -389,7 +392,7 @@ public final class IndexTreeBuilder
             // if there are no remaining parameters, create a node
             if (remainingParameters.isEmpty())
             {
-                FilterHandleSetNode node = new FilterHandleSetNode();
+                FilterHandleSetNode node = new FilterHandleSetNode(lockFactory.obtainNew());
                 addToNode(node, treePathInfo);
                 index.put(filterForValue, node);
                 return;
@@ -398,7 +401,7 @@ public final class IndexTreeBuilder
             // If there are remaining parameters, create a new index for the next parameter
             FilterValueSetParam parameterPickedForIndex = remainingParameters.removeFirst();
 
-            FilterParamIndexBase nextIndex = IndexFactory.createIndex(parameterPickedForIndex.getLookupable(), parameterPickedForIndex.getFilterOperator());
+            FilterParamIndexBase nextIndex = IndexFactory.createIndex(parameterPickedForIndex.getLookupable(), lockFactory, parameterPickedForIndex.getFilterOperator());
 
             index.put(filterForValue, nextIndex);
             treePathInfo.add(nextIndex, parameterPickedForIndex.getFilterForValue());
@@ -12,6 +12,7 @@ import com.espertech.esper.collection.Pair;
 
 import java.util.LinkedList;
 import java.util.Arrays;
+import java.util.List;
 
 /**
  * Encapsulates the information required by {@link IndexTreeBuilder} to maintain the filter parameter tree structure
@@ -55,6 +56,15 @@ public class IndexTreePath
         }
     }
 
+    /**
+     * Returns the indexes and filtered-for values of the path, without removing them.
+     * @return list of index and value pairs, first index first
+     */
+    public final List<Pair<FilterParamIndexBase, Object>> getIndizes()
+    {
+        return indizes;
+    }
+
     public final String toString()
     {
         return Arrays.toString(indizes.toArray());
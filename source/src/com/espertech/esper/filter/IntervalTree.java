@@ -0,0 +1,387 @@
+/**************************************************************************************
+ * Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ * http://esper.codehaus.org                                                          *
+ * http://www.espertech.com                                                           *
+ * ---------------------------------------------------------------------------------- *
+ * The software in this package is published under the terms of the GPL license       *
+ * a copy of which has been included with this distribution in the license.txt file.  *
+ **************************************************************************************/
+package com.espertech.esper.filter;
+
+import com.espertech.esper.client.EventBean;
+import com.espertech.esper.collection.Pair;
+
+import java.util.Collection;
+import java.util.Comparator;
+
+/**
+ * Interval tree holding an event evaluator for each {@link Range} with non-null endpoints, for use by
+ * range filter parameter indexes.
+ * <p>
+ * The tree is a treap ordered by low endpoint and then high endpoint, the same order as {@link DoubleRangeComparator}.
+ * Each node also keeps the largest and smallest high endpoint and the largest low endpoint of its subtree,
+ * so that finding the ranges that contain a value, or that do not contain a value, only descends into subtrees
+ * holding at least one such range rather than scanning all ranges.
+ * <p>
+ * The tree is not thread-safe, the index owning the tree must protect access.
+ */
+public final class IntervalTree<E>
+{
+    private final Comparator<E> comparator;
+    private Node<E> root;
+    private int size;
+    private int prioritySeed = 0x2545F491;
+    private EventEvaluator lastValue;
+
+    /**
+     * Ctor.
+     * @param comparator compares endpoints
+     */
+    public IntervalTree(Comparator<E> comparator)
+    {
+        this.comparator = comparator;
+    }
+
+    /**
+     * Returns the evaluator for the range, or null if the range is not in the tree.
+     * @param range with non-null endpoints
+     * @return evaluator or null
+     */
+    public EventEvaluator get(Range range)
+    {
+        E low = (E) range.getLowEndpoint();
+        E high = (E) range.getHighEndpoint();
+        Node<E> node = root;
+        while (node != null)
+        {
+            int comp = compareKey(low, high, node);
+            if (comp == 0)
+            {
+                return node.value;
+            }
+            node = comp < 0 ? node.left : node.right;
+        }
+        return null;
+    }
+
+    /**
+     * Stores the evaluator for the range, replacing the evaluator of an equal range.
+     * @param range with non-null endpoints
+     * @param evaluator to store
+     * @return replaced evaluator or null if the range was not in the tree
+     */
+    public EventEvaluator put(Range range, EventEvaluator evaluator)
+    {
+        lastValue = null;
+        root = insert(root, range, (E) range.getLowEndpoint(), (E) range.getHighEndpoint(), evaluator);
+        EventEvaluator replaced = lastValue;
+        lastValue = null;
+        return replaced;
+    }
+
+    /**
+     * Removes the range.
+     * @param range with non-null endpoints
+     * @return removed evaluator or null if the range was not in the tree
+     */
+    public EventEvaluator remove(Range range)
+    {
+        lastValue = null;
+        root = delete(root, (E) range.getLowEndpoint(), (E) range.getHighEndpoint());
+        EventEvaluator removed = lastValue;
+        lastValue = null;
+        return removed;
+    }
+
+    /**
+     * Returns the number of ranges.
+     * @return size
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Adds each range and its evaluator to the collection, ordered by low endpoint and then high endpoint.
+     * @param entries to add to
+     */
+    public void getEntries(Collection<Pair<Object, EventEvaluator>> entries)
+    {
+        addEntries(root, entries);
+    }
+
+    /**
+     * Asks the evaluator of each range that contains the value to match the event, in range order.
+     * @param value to find the containing ranges for
+     * @param includeLow true if a range contains its low endpoint
+     * @param includeHigh true if a range contains its high endpoint
+     * @param theEvent event to match
+     * @param matches is the list of callbacks to add to for any matches found
+     */
+    public void matchContaining(E value, boolean includeLow, boolean includeHigh, EventBean theEvent, Collection<FilterHandle> matches)
+    {
+        matchContaining(root, value, includeLow, includeHigh, theEvent, matches);
+    }
+
+    /**
+     * Asks the evaluator of each range that does not contain the value to match the event, in range order.
+     * @param value to find the ranges not containing it for
+     * @param includeLow true if a range contains its low endpoint
+     * @param includeHigh true if a range contains its high endpoint
+     * @param theEvent event to match
+     * @param matches is the list of callbacks to add to for any matches found
+     */
+    public void matchNotContaining(E value, boolean includeLow, boolean includeHigh, EventBean theEvent, Collection<FilterHandle> matches)
+    {
+        matchNotContaining(root, value, includeLow, includeHigh, theEvent, matches);
+    }
+
+    private void matchContaining(Node<E> node, E value, boolean includeLow, boolean includeHigh, EventBean theEvent, Collection<FilterHandle> matches)
+    {
+        while (node != null)
+        {
+            // No range in this subtree ends at or after the value
+            if (comparator.compare(node.maxHigh, value) < 0)
+            {
+                return;
+            }
+
+            matchContaining(node.left, value, includeLow, includeHigh, theEvent, matches);
+
+            // This range and all ranges to the right start after the value
+            int compLow = comparator.compare(node.low, value);
+            if (compLow > 0)
+            {
+                return;
+            }
+
+            if ((compLow < 0) || includeLow)
+            {
+                int compHigh = comparator.compare(node.high, value);
+                if ((compHigh > 0) || ((compHigh == 0) && includeHigh))
+                {
+                    node.value.matchEvent(theEvent, matches);
+                }
+            }
+
+            node = node.right;
+        }
+    }
+
+    private void matchNotContaining(Node<E> node, E value, boolean includeLow, boolean includeHigh, EventBean theEvent, Collection<FilterHandle> matches)
+    {
+        while (node != null)
+        {
+            // Every range in this subtree starts before and ends after the value
+            if ((comparator.compare(node.minHigh, value) > 0) && (comparator.compare(node.maxLow, value) < 0))
+            {
+                return;
+            }
+
+            matchNotContaining(node.left, value, includeLow, includeHigh, theEvent, matches);
+
+            int compLow = comparator.compare(node.low, value);
+            int compHigh = comparator.compare(node.high, value);
+            if ((compLow > 0) || ((compLow == 0) && !includeLow) ||
+                (compHigh < 0) || ((compHigh == 0) && !includeHigh))
+            {
+                node.value.matchEvent(theEvent, matches);
+            }
+
+            node = node.right;
+        }
+    }
+
+    private void addEntries(Node<E> node, Collection<Pair<Object, EventEvaluator>> entries)
+    {
+        while (node != null)
+        {
+            addEntries(node.left, entries);
+            entries.add(new Pair<Object, EventEvaluator>(node.range, node.value));
+            node = node.right;
+        }
+    }
+
+    private Node<E> insert(Node<E> node, Range range, E low, E high, EventEvaluator evaluator)
+    {
+        if (node == null)
+        {
+            size++;
+            return new Node<E>(range, low, high, evaluator, nextPriority());
+        }
+
+        int comp = compareKey(low, high, node);
+        if (comp == 0)
+        {
+            lastValue = node.value;
+            node.value = evaluator;
+            return node;
+        }
+
+        if (comp < 0)
+        {
+            node.left = insert(node.left, range, low, high, evaluator);
+            if (node.left.priority > node.priority)
+            {
+                node = rotateRight(node);
+            }
+        }
+        else
+        {
+            node.right = insert(node.right, range, low, high, evaluator);
+            if (node.right.priority > node.priority)
+            {
+                node = rotateLeft(node);
+            }
+        }
+        update(node);
+        return node;
+    }
+
+    private Node<E> delete(Node<E> node, E low, E high)
+    {
+        if (node == null)
+        {
+            return null;
+        }
+
+        int comp = compareKey(low, high, node);
+        if (comp == 0)
+        {
+            lastValue = node.value;
+            size--;
+            return merge(node.left, node.right);
+        }
+
+        if (comp < 0)
+        {
+            node.left = delete(node.left, low, high);
+        }
+        else
+        {
+            node.right = delete(node.right, low, high);
+        }
+        update(node);
+        return node;
+    }
+
+    // Merges two treaps where all ranges of the first order before all ranges of the second
+    private Node<E> merge(Node<E> first, Node<E> second)
+    {
+        if (first == null)
+        {
+            return second;
+        }
+        if (second == null)
+        {
+            return first;
+        }
+        if (first.priority > second.priority)
+        {
+            first.right = merge(first.right, second);
+            update(first);
+            return first;
+        }
+        second.left = merge(first, second.left);
+        update(second);
+        return second;
+    }
+
+    private Node<E> rotateRight(Node<E> node)
+    {
+        Node<E> left = node.left;
+        node.left = left.right;
+        update(node);
+        left.right = node;
+        return left;
+    }
+
+    private Node<E> rotateLeft(Node<E> node)
+    {
+        Node<E> right = node.right;
+        node.right = right.left;
+        update(node);
+        right.left = node;
+        return right;
+    }
+
+    private void update(Node<E> node)
+    {
+        E maxHigh = node.high;
+        E minHigh = node.high;
+        if (node.left != null)
+        {
+            maxHigh = max(maxHigh, node.left.maxHigh);
+            minHigh = min(minHigh, node.left.minHigh);
+        }
+        if (node.right != null)
+        {
+            maxHigh = max(maxHigh, node.right.maxHigh);
+            minHigh = min(minHigh, node.right.minHigh);
+            node.maxLow = node.right.maxLow;
+        }
+        else
+        {
+            node.maxLow = node.low;
+        }
+        node.maxHigh = maxHigh;
+        node.minHigh = minHigh;
+    }
+
+    private int compareKey(E low, E high, Node<E> node)
+    {
+        int comp = comparator.compare(low, node.low);
+        if (comp != 0)
+        {
+            return comp;
+        }
+        return comparator.compare(high, node.high);
+    }
+
+    private E max(E first, E second)
+    {
+        return comparator.compare(first, second) >= 0 ? first : second;
+    }
+
+    private E min(E first, E second)
+    {
+        return comparator.compare(first, second) <= 0 ? first : second;
+    }
+
+    private int nextPriority()
+    {
+        int x = prioritySeed;
+        x ^= x << 13;
+        x ^= x >>> 17;
+        x ^= x << 5;
+        prioritySeed = x;
+        return x;
+    }
+
+    private static final class Node<E>
+    {
+        private final Range range;
+        private final E low;
+        private final E high;
+        private final int priority;
+        private EventEvaluator value;
+        private Node<E> left;
+        private Node<E> right;
+        private E maxHigh;
+        private E minHigh;
+        private E maxLow;
+
+        private Node(Range range, E low, E high, EventEvaluator value, int priority)
+        {
+            this.range = range;
+            this.low = low;
+            this.high = high;
+            this.value = value;
+            this.priority = priority;
+            this.maxHigh = high;
+            this.minHigh = high;
+            this.maxLow = low;
+        }
+    }
+}
@@ -0,0 +1,567 @@
+/**************************************************************************************
+ * Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ * http://esper.codehaus.org                                                          *
+ * http://www.espertech.com                                                           *
+ * ---------------------------------------------------------------------------------- *
+ * The software in this package is published under the terms of the GPL license       *
+ * a copy of which has been included with this distribution in the license.txt file.  *
+ **************************************************************************************/
+package com.espertech.esper.schedule;
+
+import com.espertech.esper.timer.TimeSourceService;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.*;
+
+/**
+ * Implements the schedule service as a hierarchical timing wheel.
+ * <p>
+ * The wheel has one level for each byte of the millisecond trigger time and each level has 256 buckets,
+ * therefore any time value can be placed without an overflow list.
+ * A handle is kept at the level of the highest byte in which its trigger time differs from the wheel cursor,
+ * the cursor being the last evaluated time. Adding and removing a handle takes constant time.
+ * As the cursor advances the bucket of a higher level that the cursor enters is cascaded to lower levels,
+ * and handles are returned from the lowest level in the order of time and, for the same time, in the order of
+ * the schedule slot, same as {@link SchedulingServiceImpl}.
+ * <p>
+ * Handles for a time before the cursor, which can only be added when time is set backwards, are kept in a sorted map.
+ * <p>
+ * Synchronized since statement creation and event evaluation by multiple (event send) threads
+ * can lead to callbacks added/removed asynchronously.
+ */
+public final class SchedulingServiceTimingWheel implements SchedulingServiceSPI
+{
+    private static final int LEVELS = 8;
+    private static final int BUCKET_BITS = 8;
+    private static final int BUCKETS = 1 << BUCKET_BITS;
+    private static final int BUCKET_MASK = BUCKETS - 1;
+    private static final int WORDS_PER_LEVEL = BUCKETS / 64;
+
+    // Head entry of each bucket, indexed by level * BUCKETS + bucket
+    private final TimerEntry[] buckets;
+
+    // Bitmap of non-empty buckets per level
+    private final long[] occupied;
+
+    // Number of entries per level
+    private final int[] levelCounts;
+
+    // Map of handle and entry for removal
+    private final Map<ScheduleHandle, TimerEntry> handleMap;
+
+    // Map of time and entries for times before the cursor
+    private final TreeMap<Long, TimerEntry> overdueMap;
+
+    // Reused for ordering the entries of a time by slot
+    private final ArrayList<TimerEntry> scratch;
+
+    // Time last evaluated, all entries before are triggered
+    private long cursor;
+    private int wheelCount;
+    private long sequence;
+
+    // Current time - used for evaluation as well as for adding new handles
+    private volatile long currentTime;
+
+    /**
+     * Constructor.
+     * @param timeSourceService time source provider
+     */
+    public SchedulingServiceTimingWheel(TimeSourceService timeSourceService)
+    {
+        this.buckets = new TimerEntry[LEVELS * BUCKETS];
+        this.occupied = new long[LEVELS * WORDS_PER_LEVEL];
+        this.levelCounts = new int[LEVELS];
+        this.handleMap = new HashMap<ScheduleHandle, TimerEntry>();
+        this.overdueMap = new TreeMap<Long, TimerEntry>();
+        this.scratch = new ArrayList<TimerEntry>();
+        // initialize time to just before now as there is a check for duplicate external time events
+        this.currentTime = timeSourceService.getTimeMillis() - 1;
+        this.cursor = currentTime;
+    }
+
+    public synchronized void destroy()
+    {
+        log.debug("Destroying scheduling service");
+        Arrays.fill(buckets, null);
+        Arrays.fill(occupied, 0);
+        Arrays.fill(levelCounts, 0);
+        wheelCount = 0;
+        handleMap.clear();
+        overdueMap.clear();
+    }
+
+    public long getTime()
+    {
+        // note that this.currentTime is volatile
+        return this.currentTime;
+    }
+
+    public synchronized final void setTime(long currentTime)
+    {
+        this.currentTime = currentTime;
+        if (wheelCount == 0 && (currentTime > cursor || overdueMap.isEmpty()))
+        {
+            // an empty wheel can be moved to any time, which also avoids advancing over large gaps
+            cursor = currentTime;
+        }
+    }
+
+    public synchronized final void add(long afterMSec, ScheduleHandle handle, ScheduleSlot slot)
+            throws ScheduleServiceException
+    {
+        TimerEntry existing = handleMap.remove(handle);
+        if (existing != null)
+        {
+            unlink(existing);
+        }
+
+        TimerEntry entry = new TimerEntry(currentTime + afterMSec, slot, handle, sequence++);
+        handleMap.put(handle, entry);
+        place(entry);
+    }
+
+    public synchronized final void remove(ScheduleHandle handle, ScheduleSlot slot)
+    {
+        TimerEntry entry = handleMap.remove(handle);
+        if (entry == null)
+        {
+            // If it already has been removed then that's fine;
+            // Such could be the case when 2 timers fireStatementStopped at the same time, and one stops the other
+            return;
+        }
+        unlink(entry);
+    }
+
+    public synchronized final void evaluate(Collection<ScheduleHandle> handles)
+    {
+        long time = currentTime;
+        if (!overdueMap.isEmpty())
+        {
+            evaluateOverdue(time, handles);
+        }
+        if (time < cursor)
+        {
+            return;
+        }
+
+        while (wheelCount > 0)
+        {
+            // the earliest entries are in the first non-empty bucket of the lowest non-empty level
+            int level = 0;
+            int bucket = -1;
+            for (; level < LEVELS; level++)
+            {
+                if (levelCounts[level] == 0)
+                {
+                    continue;
+                }
+                bucket = nextOccupied(level, digit(cursor, level));
+                if (bucket != -1)
+                {
+                    break;
+                }
+            }
+            if (bucket == -1)
+            {
+                break;
+            }
+
+            long start = bucketStart(level, bucket);
+            if (start > time)
+            {
+                break;
+            }
+            if (level == 0)
+            {
+                // a bucket of the lowest level holds entries for exactly one time
+                TimerEntry head = buckets[bucket];
+                clearBucket(0, bucket);
+                emit(head, handles);
+            }
+            cursor = start;
+            cascade();
+        }
+
+        if (cursor < time)
+        {
+            cursor = time;
+            cascade();
+        }
+    }
+
+    public synchronized ScheduleSet take(Set<String> statementIds)
+    {
+        List<TimerEntry> taken = new ArrayList<TimerEntry>();
+        for (TimerEntry entry : handleMap.values())
+        {
+            if (statementIds.contains(entry.handle.getStatementId()))
+            {
+                taken.add(entry);
+            }
+        }
+        Collections.sort(taken, ENTRY_ORDER);
+
+        List<ScheduleSetEntry> list = new ArrayList<ScheduleSetEntry>();
+        long currentTime = getTime();
+        for (TimerEntry entry : taken)
+        {
+            list.add(new ScheduleSetEntry(entry.time - currentTime, entry.slot, entry.handle));
+            remove(entry.handle, entry.slot);
+        }
+
+        return new ScheduleSet(list);
+    }
+
+    public void apply(ScheduleSet scheduleSet)
+    {
+        for (ScheduleSetEntry entry : scheduleSet.getList())
+        {
+            add(entry.getTime(), entry.getHandle(), entry.getSlot());
+        }
+    }
+
+    public synchronized int getTimeHandleCount()
+    {
+        Set<Long> times = new HashSet<Long>();
+        for (TimerEntry entry : handleMap.values())
+        {
+            times.add(entry.time);
+        }
+        return times.size();
+    }
+
+    public synchronized Long getFurthestTimeHandle()
+    {
+        for (int level = LEVELS - 1; level >= 0; level--)
+        {
+            if (levelCounts[level] == 0)
+            {
+                continue;
+            }
+            int bucket = lastOccupied(level);
+            if (bucket != -1)
+            {
+                long furthest = Long.MIN_VALUE;
+                for (TimerEntry entry = buckets[level * BUCKETS + bucket]; entry != null; entry = entry.next)
+                {
+                    furthest = Math.max(furthest, entry.time);
+                }
+                return furthest;
+            }
+        }
+        if (!overdueMap.isEmpty())
+        {
+            return overdueMap.lastKey();
+        }
+        return null;
+    }
+
+    public synchronized int getScheduleHandleCount()
+    {
+        return handleMap.size();
+    }
+
+    public synchronized boolean isScheduled(ScheduleHandle handle)
+    {
+        return handleMap.containsKey(handle);
+    }
+
+    @Override
+    public synchronized Long getNearestTimeHandle() {
+        if (!overdueMap.isEmpty()) {
+            return overdueMap.firstKey();
+        }
+        for (int level = 0; level < LEVELS; level++) {
+            if (levelCounts[level] == 0) {
+                continue;
+            }
+            int bucket = nextOccupied(level, digit(cursor, level));
+            if (bucket != -1) {
+                long nearest = Long.MAX_VALUE;
+                for (TimerEntry entry = buckets[level * BUCKETS + bucket]; entry != null; entry = entry.next) {
+                    nearest = Math.min(nearest, entry.time);
+                }
+                return nearest;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public synchronized Map<String, Long> getStatementSchedules() {
+        if (handleMap.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, Long> result = new HashMap<String, Long>();
+        for (TimerEntry entry : handleMap.values()) {
+            Long existing = result.get(entry.handle.getStatementId());
+            if (existing == null || existing > entry.time) {
+                result.put(entry.handle.getStatementId(), entry.time);
+            }
+        }
+        return result;
+    }
+
+    private void place(TimerEntry entry)
+    {
+        if (entry.time < cursor)
+        {
+            TimerEntry head = overdueMap.put(entry.time, entry);
+            entry.bucket = -1;
+            entry.next = head;
+            entry.prev = null;
+            if (head != null)
+            {
+                head.prev = entry;
+            }
+            return;
+        }
+
+        long diff = entry.time ^ cursor;
+        int level = diff == 0 ? 0 : (63 - Long.numberOfLeadingZeros(diff)) / BUCKET_BITS;
+        int bucket = digit(entry.time, level);
+        int index = level * BUCKETS + bucket;
+        TimerEntry head = buckets[index];
+        entry.bucket = index;
+        entry.next = head;
+        entry.prev = null;
+        if (head != null)
+        {
+            head.prev = entry;
+        }
+        else
+        {
+            occupied[level * WORDS_PER_LEVEL + (bucket >> 6)] |= 1L << (bucket & 63);
+        }
+        buckets[index] = entry;
+        levelCounts[level]++;
+        wheelCount++;
+    }
+
+    private void unlink(TimerEntry entry)
+    {
+        if (entry.bucket == -1)
+        {
+            if (entry.prev != null)
+            {
+                entry.prev.next = entry.next;
+            }
+            else if (entry.next != null)
+            {
+                overdueMap.put(entry.time, entry.next);
+            }
+            else
+            {
+                overdueMap.remove(entry.time);
+            }
+            if (entry.next != null)
+            {
+                entry.next.prev = entry.prev;
+            }
+            return;
+        }
+
+        int level = entry.bucket / BUCKETS;
+        if (entry.prev != null)
+        {
+            entry.prev.next = entry.next;
+        }
+        else
+        {
+            buckets[entry.bucket] = entry.next;
+            if (entry.next == null)
+            {
+                int bucket = entry.bucket & BUCKET_MASK;
+                occupied[level * WORDS_PER_LEVEL + (bucket >> 6)] &= ~(1L << (bucket & 63));
+            }
+        }
+        if (entry.next != null)
+        {
+            entry.next.prev = entry.prev;
+        }
+        levelCounts[level]--;
+        wheelCount--;
+    }
+
+    /**
+     * Moves the entries of the buckets the cursor is in down to lower levels, highest level first.
+     */
+    private void cascade()
+    {
+        for (int level = LEVELS - 1; level > 0; level--)
+        {
+            if (levelCounts[level] == 0)
+            {
+                continue;
+            }
+            int bucket = digit(cursor, level);
+            TimerEntry entry = buckets[level * BUCKETS + bucket];
+            if (entry == null)
+            {
+                continue;
+            }
+            clearBucket(level, bucket);
+            while (entry != null)
+            {
+                TimerEntry next = entry.next;
+                levelCounts[level]--;
+                wheelCount--;
+                place(entry);
+                entry = next;
+            }
+        }
+    }
+
+    private void clearBucket(int level, int bucket)
+    {
+        buckets[level * BUCKETS + bucket] = null;
+        occupied[level * WORDS_PER_LEVEL + (bucket >> 6)] &= ~(1L << (bucket & 63));
+    }
+
+    private void evaluateOverdue(long time, Collection<ScheduleHandle> handles)
+    {
+        while (!overdueMap.isEmpty())
+        {
+            Map.Entry<Long, TimerEntry> first = overdueMap.firstEntry();
+            if (first.getKey() > time)
+            {
+                return;
+            }
+            overdueMap.remove(first.getKey());
+            emit(first.getValue(), handles);
+        }
+    }
+
+    /**
+     * Returns the handles of a list of entries for the same time in slot order and removes the entries.
+     * Of entries for the same slot only the last added is returned, as a sorted map by slot would retain.
+     */
+    private void emit(TimerEntry head, Collection<ScheduleHandle> handles)
+    {
+        if (head.next == null)
+        {
+            if (head.bucket != -1)
+            {
+                levelCounts[0]--;
+                wheelCount--;
+            }
+            handleMap.remove(head.handle);
+            handles.add(head.handle);
+            return;
+        }
+
+        for (TimerEntry entry = head; entry != null; entry = entry.next)
+        {
+            if (entry.bucket != -1)
+            {
+                levelCounts[0]--;
+                wheelCount--;
+            }
+            handleMap.remove(entry.handle);
+            scratch.add(entry);
+        }
+        Collections.sort(scratch, ENTRY_ORDER);
+        int size = scratch.size();
+        for (int i = 0; i < size; i++)
+        {
+            TimerEntry entry = scratch.get(i);
+            if (i + 1 < size && scratch.get(i + 1).slot.equals(entry.slot))
+            {
+                continue;
+            }
+            handles.add(entry.handle);
+        }
+        scratch.clear();
+    }
+
+    private int nextOccupied(int level, int fromBucket)
+    {
+        int word = fromBucket >> 6;
+        long bits = occupied[level * WORDS_PER_LEVEL + word] & (-1L << (fromBucket & 63));
+        while (true)
+        {
+            if (bits != 0)
+            {
+                return (word << 6) + Long.numberOfTrailingZeros(bits);
+            }
+            if (++word == WORDS_PER_LEVEL)
+            {
+                return -1;
+            }
+            bits = occupied[level * WORDS_PER_LEVEL + word];
+        }
+    }
+
+    private int lastOccupied(int level)
+    {
+        for (int word = WORDS_PER_LEVEL - 1; word >= 0; word--)
+        {
+            long bits = occupied[level * WORDS_PER_LEVEL + word];
+            if (bits != 0)
+            {
+                return (word << 6) + 63 - Long.numberOfLeadingZeros(bits);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the earliest time of a bucket at the given level, for the current cursor.
+     */
+    private long bucketStart(int level, int bucket)
+    {
+        int shift = level * BUCKET_BITS;
+        long prefixMask = level == LEVELS - 1 ? 0 : -1L << (shift + BUCKET_BITS);
+        long start = ((cursor ^ Long.MIN_VALUE) & prefixMask) | ((long) bucket << shift);
+        return start ^ Long.MIN_VALUE;
+    }
+
+    /**
+     * Returns the bucket of a time at the given level; the sign bit is flipped so that the
+     * unsigned ordering of buckets follows the signed ordering of time.
+     */
+    private static int digit(long time, int level)
+    {
+        return (int) (((time ^ Long.MIN_VALUE) >>> (level * BUCKET_BITS)) & BUCKET_MASK);
+    }
+
+    private static final Comparator<TimerEntry> ENTRY_ORDER = new Comparator<TimerEntry>()
+    {
+        public int compare(TimerEntry o1, TimerEntry o2)
+        {
+            if (o1.time != o2.time)
+            {
+                return o1.time < o2.time ? -1 : 1;
+            }
+            int compared = o1.slot.compareTo(o2.slot);
+            if (compared != 0)
+            {
+                return compared;
+            }
+            return o1.sequence < o2.sequence ? -1 : (o1.sequence == o2.sequence ? 0 : 1);
+        }
+    };
+
+    private static final class TimerEntry
+    {
+        private final long time;
+        private final ScheduleSlot slot;
+        private final ScheduleHandle handle;
+        private final long sequence;
+        private int bucket;
+        private TimerEntry prev;
+        private TimerEntry next;
+
+        private TimerEntry(long time, ScheduleSlot slot, ScheduleHandle handle, long sequence)
+        {
+            this.time = time;
+            this.slot = slot;
+            this.handle = handle;
+            this.sequence = sequence;
+        }
+    }
+
+    private static final Log log = LogFactory.getLog(SchedulingServiceTimingWheel.class);
+}
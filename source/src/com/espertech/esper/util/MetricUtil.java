@@ -11,50 +11,73 @@ package com.espertech.esper.util;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
-//import java.lang.management.ManagementFactory;
-//import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
 
 /**
  * Utility for CPU and wall time metrics.
+ * <p>
+ * The CPU time of the current thread is obtained from the thread management bean of the Java VM, or from
+ * android.os.Debug on Android where the management API is not available. Both are looked up reflectively
+ * as neither is available on all platforms. If neither is available, CPU time is reported as zero.
  */
 public class MetricUtil
 {
     private static final Log log = LogFactory.getLog(MetricUtil.class);
 
-   // private static ThreadMXBean threadMXBean;
-   // private static boolean isCPUEnabled;
+    private static Object cpuTimeTarget;
+    private static volatile Method cpuTimeMethod;
+    private static String cpuTimeSource;
+
+    static
+    {
+        initializeCPUTime();
+    }
 
     /**
      * Initialize metrics mgmt.
      */
     public static void initialize()
     {
-    	/*
-        threadMXBean = ManagementFactory.getThreadMXBean();
-        isCPUEnabled = threadMXBean.isCurrentThreadCpuTimeSupported();
-
-        if (!isCPUEnabled)
+        if (cpuTimeMethod == null)
         {
             log.warn("CPU metrics reporting is not enabled by Java VM");
         }
-        */
-    	log.warn("CPU metrics reporting is not implemented");
+        else if (log.isDebugEnabled())
+        {
+            log.debug("CPU metrics reporting using " + cpuTimeSource);
+        }
     }
 
     /**
      * Returns CPU time for the current thread.
-     * @return cpu current thread
+     * @return cpu current thread, or zero if not supported
      */
     public static long getCPUCurrentThread()
     {
-    	/*
-        if (isCPUEnabled)
+        Method method = cpuTimeMethod;
+        if (method == null)
+        {
+            return 0;
+        }
+        try
+        {
+            return (Long) method.invoke(cpuTimeTarget);
+        }
+        catch (Exception ex)
         {
-            return threadMXBean.getCurrentThreadCpuTime();
+            log.warn("Failed to obtain CPU time from " + cpuTimeSource + ", disabling CPU metrics: " + ex.getMessage());
+            cpuTimeMethod = null;
+            return 0;
         }
-        */
-        log.warn("CPU metrics reporting is not implemented");
-        return 0;
+    }
+
+    /**
+     * Returns true if CPU time is available for the current thread.
+     * @return indicator
+     */
+    public static boolean isCPUEnabled()
+    {
+        return cpuTimeMethod != null;
     }
 
     /**
@@ -65,4 +88,46 @@ public class MetricUtil
     {
         return System.nanoTime();
     }
+
+    private static void initializeCPUTime()
+    {
+        // Java VM: ManagementFactory.getThreadMXBean().getCurrentThreadCpuTime()
+        try
+        {
+            Class managementFactory = Class.forName("java.lang.management.ManagementFactory");
+            Object threadMXBean = managementFactory.getMethod("getThreadMXBean").invoke(null);
+            Class threadMXBeanClass = Class.forName("java.lang.management.ThreadMXBean");
+            boolean supported = (Boolean) threadMXBeanClass.getMethod("isCurrentThreadCpuTimeSupported").invoke(threadMXBean);
+            if (supported)
+            {
+                Method method = threadMXBeanClass.getMethod("getCurrentThreadCpuTime");
+                method.invoke(threadMXBean);
+                cpuTimeTarget = threadMXBean;
+                cpuTimeMethod = method;
+                cpuTimeSource = "ThreadMXBean";
+                return;
+            }
+        }
+        catch (Throwable t)
+        {
+            log.debug("Thread management bean not available: " + t.getMessage());
+        }
+
+        // Android: android.os.Debug.threadCpuTimeNanos()
+        try
+        {
+            Method method = Class.forName("android.os.Debug").getMethod("threadCpuTimeNanos");
+            long value = (Long) method.invoke(null);
+            if (value >= 0)
+            {
+                cpuTimeTarget = null;
+                cpuTimeMethod = method;
+                cpuTimeSource = "android.os.Debug";
+            }
+        }
+        catch (Throwable t)
+        {
+            log.debug("Android thread CPU time not available: " + t.getMessage());
+        }
+    }
 }
@@ -0,0 +1,20 @@
+/**************************************************************************************
+ * Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ * http://esper.codehaus.org                                                          *
+ * http://www.espertech.com                                                           *
+ * ---------------------------------------------------------------------------------- *
+ * The software in this package is published under the terms of the GPL license       *
+ * a copy of which has been included with this distribution in the license.txt file.  *
+ **************************************************************************************/
+package com.espertech.esper.view;
+
+/**
+ * Marker interface for use with view factories that create data window views that remove events
+ * in the same order as the events arrived (first-in first-out), such as length and time windows.
+ * <p>
+ * Aggregations over a single stream with such a data window only may take advantage of the removal order.
+ */
+public interface DataWindowViewFactoryFIFO extends DataWindowViewFactory
+{
+
+}
@@ -13,8 +13,10 @@ import com.espertech.esper.epl.join.table.EventTable;
 import com.espertech.esper.epl.db.DataCache;
 import com.espertech.esper.epl.expression.ExprEvaluatorContext;
 import com.espertech.esper.client.EventBean;
+import com.espertech.esper.collection.MultiKeyUntyped;
 import com.espertech.esper.util.StopCallback;
 
+import java.util.List;
 import java.util.SortedSet;
 
 /**
@@ -57,4 +59,22 @@ public interface HistoricalEventViewable extends Viewable, ValidatedView, StopCa
      * @return array of lists with one list for each event-per-stream row
      */
     public EventTable[] poll(EventBean[][] lookupEventsPerStream, PollResultIndexingStrategy indexingStrategy, ExprEvaluatorContext exprEvaluatorContext);
+
+    /**
+     * Poll ahead of a join, without holding the statement lock, for the lookup keys of the event-per-stream rows provided,
+     * keeping the poll results for use by the next poll for the same lookup keys.
+     * <p>
+     * Does not poll and returns null unless the historical view has been configured to poll ahead.
+     * @param lookupEventsPerStream is the events per stream where the
+     * first dimension is a number of rows and the second dimension is the number of streams participating in a join.
+     * @param exprEvaluatorContext context for expression evalauation
+     * @return lookup keys polled for use with releasing the poll results, or null if not polling ahead
+     */
+    public List<MultiKeyUntyped> prefetch(EventBean[][] lookupEventsPerStream, ExprEvaluatorContext exprEvaluatorContext);
+
+    /**
+     * Release the poll results kept by prefetch.
+     * @param lookupKeys lookup keys returned by prefetch
+     */
+    public void releasePrefetched(List<MultiKeyUntyped> lookupKeys);
 }
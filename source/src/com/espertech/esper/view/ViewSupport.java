@@ -10,6 +10,8 @@ package com.espertech.esper.view;
 
 import com.espertech.esper.collection.UniformPair;
 import com.espertech.esper.client.EventBean;
+import com.espertech.esper.epl.metric.InstrumentationPath;
+import com.espertech.esper.epl.metric.InstrumentationStage;
 import com.espertech.esper.util.ExecutionPathDebugLog;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -104,6 +106,10 @@ public abstract class ViewSupport implements View
         {
             return;
         }
+        if (InstrumentationPath.isInstrumentationEnabled)
+        {
+            InstrumentationPath.getInstrumentation().qStage(InstrumentationStage.VIEW);
+        }
         if (size == 1)
         {
             children.get(0).update(newData, oldData);
@@ -116,6 +122,10 @@ public abstract class ViewSupport implements View
                 child.update(newData, oldData);
             }
         }
+        if (InstrumentationPath.isInstrumentationEnabled)
+        {
+            InstrumentationPath.getInstrumentation().aStage(InstrumentationStage.VIEW);
+        }
     }
 
     /**
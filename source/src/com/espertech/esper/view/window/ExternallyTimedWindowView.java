@@ -21,7 +21,6 @@ import com.espertech.esper.view.DataWindowView;
 import com.espertech.esper.view.View;
 import com.espertech.esper.view.ViewSupport;
 
-import java.util.ArrayDeque;
 import java.util.Iterator;
 
 /**
@@ -125,16 +124,10 @@ public class ExternallyTimedWindowView extends ViewSupport implements DataWindow
         }
 
         // Remove from the window any events that have an older timestamp then the last event's timestamp
-        ArrayDeque<EventBean> expired = null;
-        if (timestamp != -1)
-        {
-            expired = timeWindow.expireEvents(timestamp - millisecondsBeforeExpiry + 1);
-        }
-
         EventBean[] oldDataUpdate = null;
-        if ((expired != null) && (!expired.isEmpty()))
+        if (timestamp != -1)
         {
-            oldDataUpdate = expired.toArray(new EventBean[expired.size()]);
+            oldDataUpdate = timeWindow.expireEvents(timestamp - millisecondsBeforeExpiry + 1);
         }
 
         if ((oldData != null) && (agentInstanceViewFactoryContext.isRemoveStream()))
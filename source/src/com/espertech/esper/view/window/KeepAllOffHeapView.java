@@ -0,0 +1,133 @@
+/**************************************************************************************
+ * Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ * http://esper.codehaus.org                                                          *
+ * http://www.espertech.com                                                           *
+ * ---------------------------------------------------------------------------------- *
+ * The software in this package is published under the terms of the GPL license       *
+ * a copy of which has been included with this distribution in the license.txt file.  *
+ **************************************************************************************/
+package com.espertech.esper.view.window;
+
+import com.espertech.esper.client.EventBean;
+import com.espertech.esper.client.EventType;
+import com.espertech.esper.collection.ViewUpdatedCollection;
+import com.espertech.esper.core.context.util.AgentInstanceViewFactoryChainContext;
+import com.espertech.esper.event.columnar.ColumnarEventBean;
+import com.espertech.esper.event.columnar.ColumnarEventStore;
+import com.espertech.esper.util.StopCallback;
+import com.espertech.esper.view.CloneableView;
+import com.espertech.esper.view.DataWindowView;
+import com.espertech.esper.view.StoppableView;
+import com.espertech.esper.view.View;
+import com.espertech.esper.view.ViewSupport;
+
+import java.util.Iterator;
+
+/**
+ * Keep-all data window that keeps events in a {@link ColumnarEventStore} outside of the Java heap, for use
+ * with the "storage=offheap" hint.
+ * <p>
+ * The view posts the event beans representing the stored rows rather then the events received, so that child views
+ * and, for named windows, indexes and consumers refer to rows. Events of the remove stream must be such event beans.
+ * The store and its direct buffers are destroyed when the view stops.
+ */
+public class KeepAllOffHeapView extends ViewSupport implements DataWindowView, CloneableView, StoppableView, StopCallback
+{
+    private final AgentInstanceViewFactoryChainContext agentInstanceViewFactoryContext;
+    private final KeepAllViewFactory keepAllViewFactory;
+    private final ColumnarEventStore store;
+    private final ViewUpdatedCollection viewUpdatedCollection;
+
+    /**
+     * Ctor.
+     * @param agentInstanceViewFactoryContext context
+     * @param keepAllViewFactory for copying this view in a group-by
+     * @param eventType type of events
+     * @param viewUpdatedCollection for satisfying queries that select previous events in window order
+     */
+    public KeepAllOffHeapView(AgentInstanceViewFactoryChainContext agentInstanceViewFactoryContext, KeepAllViewFactory keepAllViewFactory, EventType eventType, ViewUpdatedCollection viewUpdatedCollection)
+    {
+        this.agentInstanceViewFactoryContext = agentInstanceViewFactoryContext;
+        this.keepAllViewFactory = keepAllViewFactory;
+        this.store = new ColumnarEventStore(eventType);
+        this.viewUpdatedCollection = viewUpdatedCollection;
+        agentInstanceViewFactoryContext.getTerminationCallbacks().add(this);
+    }
+
+    public View cloneView()
+    {
+        return keepAllViewFactory.makeView(agentInstanceViewFactoryContext);
+    }
+
+    /**
+     * Returns true if the window is empty, or false if not empty.
+     * @return true if empty
+     */
+    public boolean isEmpty()
+    {
+        return store.size() == 0;
+    }
+
+    /**
+     * Returns the store.
+     * @return store
+     */
+    public ColumnarEventStore getStore()
+    {
+        return store;
+    }
+
+    public final EventType getEventType()
+    {
+        // The event type is the parent view's event type
+        return parent.getEventType();
+    }
+
+    public final void update(EventBean[] newData, EventBean[] oldData)
+    {
+        EventBean[] rows = null;
+        if (newData != null)
+        {
+            rows = new EventBean[newData.length];
+            for (int i = 0; i < newData.length; i++)
+            {
+                rows[i] = store.add(newData[i]);
+            }
+        }
+
+        if (oldData != null)
+        {
+            for (EventBean anOldData : oldData)
+            {
+                if (anOldData instanceof ColumnarEventBean)
+                {
+                    store.remove((ColumnarEventBean) anOldData);
+                }
+            }
+        }
+
+        // update event buffer for access by expressions, if any
+        if (viewUpdatedCollection != null)
+        {
+            viewUpdatedCollection.update(rows, oldData);
+        }
+
+        updateChildren(rows, oldData);
+    }
+
+    public final Iterator<EventBean> iterator()
+    {
+        return store.iterator();
+    }
+
+    public void stopView()
+    {
+        store.destroy();
+        agentInstanceViewFactoryContext.getTerminationCallbacks().remove(this);
+    }
+
+    public void stop()
+    {
+        store.destroy();
+    }
+}
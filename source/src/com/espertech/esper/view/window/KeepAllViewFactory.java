@@ -9,9 +9,12 @@
 package com.espertech.esper.view.window;
 
 import com.espertech.esper.client.EventType;
+import com.espertech.esper.client.annotation.Hint;
+import com.espertech.esper.client.annotation.HintEnum;
 import com.espertech.esper.core.context.util.AgentInstanceViewFactoryChainContext;
 import com.espertech.esper.core.service.StatementContext;
 import com.espertech.esper.epl.expression.ExprNode;
+import com.espertech.esper.event.columnar.ColumnarEventStore;
 import com.espertech.esper.view.*;
 
 import java.util.List;
@@ -21,7 +24,13 @@ import java.util.List;
  */
 public class KeepAllViewFactory implements DataWindowViewFactory, DataWindowViewWithPrevious
 {
+    /**
+     * Value of the storage hint for keeping events outside of the heap.
+     */
+    public static final String STORAGE_OFFHEAP = "offheap";
+
     private EventType eventType;
+    private boolean offHeap;
 
     public void setViewParameters(ViewFactoryContext viewFactoryContext, List<ExprNode> expressionParameters) throws ViewParameterException
     {
@@ -36,6 +45,21 @@ public class KeepAllViewFactory implements DataWindowViewFactory, DataWindowView
     public void attach(EventType parentEventType, StatementContext statementContext, ViewFactory optionalParentFactory, List<ViewFactory> parentViewFactories) throws ViewParameterException
     {
         this.eventType = parentEventType;
+
+        Hint storageHint = HintEnum.STORAGE.getHint(statementContext.getAnnotations());
+        if (storageHint != null)
+        {
+            String storage = HintEnum.STORAGE.getHintAssignedValue(storageHint);
+            if (!STORAGE_OFFHEAP.equalsIgnoreCase(storage))
+            {
+                throw new ViewParameterException("Keep-all data window view storage hint value '" + storage + "' is not supported, expecting '" + STORAGE_OFFHEAP + "'");
+            }
+            if (!ColumnarEventStore.isSupported(parentEventType))
+            {
+                throw new ViewParameterException("Keep-all data window view off-heap storage requires a Map or object-array event type");
+            }
+            offHeap = true;
+        }
     }
 
     public Object makePreviousGetter() {
@@ -45,6 +69,10 @@ public class KeepAllViewFactory implements DataWindowViewFactory, DataWindowView
     public View makeView(AgentInstanceViewFactoryChainContext agentInstanceViewFactoryContext)
     {
         IStreamRandomAccess randomAccess = ViewServiceHelper.getOptPreviousExprRandomAccess(agentInstanceViewFactoryContext);
+        if (offHeap)
+        {
+            return new KeepAllOffHeapView(agentInstanceViewFactoryContext, this, eventType, randomAccess);
+        }
         return new KeepAllView(agentInstanceViewFactoryContext, this, randomAccess);
     }
 
@@ -55,7 +83,11 @@ public class KeepAllViewFactory implements DataWindowViewFactory, DataWindowView
 
     public boolean canReuse(View view)
     {
-        if (!(view instanceof KeepAllView))
+        if (view instanceof KeepAllOffHeapView)
+        {
+            return offHeap && ((KeepAllOffHeapView) view).isEmpty();
+        }
+        if ((offHeap) || (!(view instanceof KeepAllView)))
         {
             return false;
         }
@@ -20,7 +20,7 @@ import java.util.List;
 /**
  * Factory for {@link LengthWindowView}.
  */
-public class LengthWindowViewFactory implements DataWindowViewFactory, DataWindowViewWithPrevious
+public class LengthWindowViewFactory implements DataWindowViewFactoryFIFO, DataWindowViewWithPrevious
 {
     /**
      * Size of length window.
@@ -227,8 +227,18 @@ public class TimeBatchView extends ViewSupport implements CloneableView, Stoppab
             isCallbackScheduled = true;
         }
 
+        // Recycle the prior batch's collection rather than allocating one per interval, its contents were copied above
+        ArrayDeque<EventBean> recycled = lastBatch;
         lastBatch = currentBatch;
-        currentBatch = new ArrayDeque<EventBean>();
+        if (recycled != null)
+        {
+            recycled.clear();
+            currentBatch = recycled;
+        }
+        else
+        {
+            currentBatch = new ArrayDeque<EventBean>();
+        }
     }
 
     /**
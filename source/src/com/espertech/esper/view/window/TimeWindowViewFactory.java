@@ -20,7 +20,7 @@ import java.util.List;
 /**
  * Factory for {@link TimeWindowView}.
  */
-public class TimeWindowViewFactory implements DataWindowViewFactory, DataWindowViewWithPrevious
+public class TimeWindowViewFactory implements DataWindowViewFactoryFIFO, DataWindowViewWithPrevious
 {
     /**
      * Number of msec before expiry.
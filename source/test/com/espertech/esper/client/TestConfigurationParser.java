@@ -20,6 +20,7 @@ import com.espertech.esper.type.StringPatternSetRegex;
 import junit.framework.TestCase;
 
 import javax.xml.xpath.XPathConstants;
+import java.io.ByteArrayInputStream;
 import java.net.URI;
 import java.net.URL;
 import java.util.HashMap;
@@ -43,6 +44,18 @@ public class TestConfigurationParser extends TestCase
         assertFileConfig(config);
     }
 
+    public void testExecutionServiceTypes()
+    {
+        String xml = "<esper-configuration>" +
+                "<engine-settings><defaults>" +
+                "<execution scheduling-service-type=\"timing_wheel\" filter-service-type=\"copy_on_write\"/>" +
+                "</defaults></engine-settings>" +
+                "</esper-configuration>";
+        ConfigurationParser.doConfigure(config, new ByteArrayInputStream(xml.getBytes()), "testExecutionServiceTypes");
+        assertEquals(ConfigurationEngineDefaults.SchedulingServiceType.TIMING_WHEEL, config.getEngineDefaults().getExecution().getSchedulingServiceType());
+        assertEquals(ConfigurationEngineDefaults.FilterServiceType.COPY_ON_WRITE, config.getEngineDefaults().getExecution().getFilterServiceType());
+    }
+
     public void testEngineDefaults()
     {
         config = new Configuration();
@@ -87,6 +100,9 @@ public class TestConfigurationParser extends TestCase
         assertFalse(config.getEngineDefaults().getExecution().isPrioritized());
         assertFalse(config.getEngineDefaults().getExecution().isDisableLocking());
         assertEquals(ConfigurationEngineDefaults.ThreadingProfile.NORMAL, config.getEngineDefaults().getExecution().getThreadingProfile());
+        assertEquals(ConfigurationEngineDefaults.SchedulingServiceType.SORTED, config.getEngineDefaults().getExecution().getSchedulingServiceType());
+        assertEquals(ConfigurationEngineDefaults.FilterServiceType.LOCKING, config.getEngineDefaults().getExecution().getFilterServiceType());
+        assertEquals(0, config.getEngineDefaults().getExecution().getJoinReplanInterval());
 
         assertEquals(StreamSelector.ISTREAM_ONLY, config.getEngineDefaults().getStreamSelection().getDefaultStreamSelector());
         assertFalse(config.getEngineDefaults().getLanguage().isSortUsingCollator());
@@ -0,0 +1,113 @@
+/*
+ * *************************************************************************************
+ *  Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ *  http://esper.codehaus.org                                                          *
+ *  http://www.espertech.com                                                           *
+ *  ---------------------------------------------------------------------------------- *
+ *  The software in this package is published under the terms of the GPL license       *
+ *  a copy of which has been included with this distribution in the license.txt file.  *
+ * *************************************************************************************
+ */
+
+package com.espertech.esper.collection;
+
+import junit.framework.TestCase;
+
+import java.util.Random;
+
+public class TestCountMinSketch extends TestCase
+{
+    public void testAddRemove()
+    {
+        CountMinSketch sketch = new CountMinSketch(4, 1000);
+        long hashA = SketchHash.hash("A");
+        long hashB = SketchHash.hash("B");
+        assertEquals(0, sketch.estimate(hashA));
+
+        sketch.add(hashA, 1);
+        sketch.add(hashA, 2);
+        sketch.add(hashB, 1);
+        assertEquals(3, sketch.estimate(hashA));
+        assertEquals(1, sketch.estimate(hashB));
+        assertEquals(4, sketch.getTotalCount());
+
+        sketch.add(hashA, -3);
+        assertEquals(0, sketch.estimate(hashA));
+        assertEquals(1, sketch.estimate(hashB));
+        assertEquals(1, sketch.getTotalCount());
+
+        sketch.clear();
+        assertEquals(0, sketch.estimate(hashB));
+        assertEquals(0, sketch.getTotalCount());
+    }
+
+    public void testMerge()
+    {
+        // merging adds the counters, the same as a sketch of all counts
+        CountMinSketch first = new CountMinSketch(4, 256);
+        CountMinSketch second = new CountMinSketch(4, 256);
+        CountMinSketch all = new CountMinSketch(4, 256);
+        Random random = new Random(11);
+        for (int i = 0; i < 5000; i++)
+        {
+            long hash = SketchHash.hash(random.nextInt(1000));
+            (i % 2 == 0 ? first : second).add(hash, 1);
+            all.add(hash, 1);
+        }
+        first.merge(second);
+        assertEquals(5000, first.getTotalCount());
+        for (int key = 0; key < 1000; key++)
+        {
+            assertEquals(all.estimate(SketchHash.hash(key)), first.estimate(SketchHash.hash(key)));
+        }
+
+        try
+        {
+            first.merge(new CountMinSketch(4, 512));
+            fail();
+        }
+        catch (IllegalArgumentException ex)
+        {
+            // expected
+        }
+    }
+
+    public void testErrorBound()
+    {
+        // estimates never fall below the frequency and rarely exceed it by more than e / width of the total
+        CountMinSketch sketch = new CountMinSketch(4, 1024);
+        Random random = new Random(3);
+        int numKeys = 20000;
+        int[] frequencies = new int[numKeys];
+        int total = 0;
+        for (int i = 0; i < 100000; i++)
+        {
+            // skewed keys
+            int key = (int) (numKeys * Math.pow(random.nextDouble(), 3));
+            frequencies[key]++;
+            sketch.add(SketchHash.hash(key), 1);
+            total++;
+        }
+        // remove part of the values again
+        for (int key = 0; key < numKeys; key += 2)
+        {
+            sketch.add(SketchHash.hash(key), -frequencies[key]);
+            total -= frequencies[key];
+            frequencies[key] = 0;
+        }
+        assertEquals(total, sketch.getTotalCount());
+
+        double bound = Math.E / 1024 * total;
+        int numExceeded = 0;
+        for (int key = 0; key < numKeys; key++)
+        {
+            int estimate = sketch.estimate(SketchHash.hash(key));
+            assertTrue(estimate >= frequencies[key]);
+            if (estimate - frequencies[key] > bound)
+            {
+                numExceeded++;
+            }
+        }
+        assertTrue("exceeded " + numExceeded, numExceeded < numKeys / 20);
+    }
+}
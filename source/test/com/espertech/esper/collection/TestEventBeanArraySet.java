@@ -0,0 +1,171 @@
+/*
+ * *************************************************************************************
+ *  Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ *  http://esper.codehaus.org                                                          *
+ *  http://www.espertech.com                                                           *
+ *  ---------------------------------------------------------------------------------- *
+ *  The software in this package is published under the terms of the GPL license       *
+ *  a copy of which has been included with this distribution in the license.txt file.  *
+ * *************************************************************************************
+ */
+
+package com.espertech.esper.collection;
+
+import com.espertech.esper.client.EventBean;
+import com.espertech.esper.client.scopetest.EPAssertionUtil;
+import com.espertech.esper.support.event.SupportEventBeanFactory;
+import junit.framework.TestCase;
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+public class TestEventBeanArraySet extends TestCase
+{
+    private EventBeanArraySet set;
+    private EventBean[] events;
+
+    public void setUp()
+    {
+        events = SupportEventBeanFactory.makeEvents(new String[] {"0", "1", "2", "3", "4", "5"});
+        set = new EventBeanArraySet(events[0], events[1]);
+    }
+
+    public void testAddRemove()
+    {
+        assertEquals(2, set.size());
+        assertFalse(set.isEmpty());
+        EPAssertionUtil.assertEqualsExactOrder(new Object[] {events[0], events[1]}, set.toArray());
+
+        // duplicates are not added
+        assertFalse(set.add(events[0]));
+        assertFalse(set.add(events[1]));
+        assertEquals(2, set.size());
+
+        // grows beyond the initial array keeping insertion order
+        for (int i = 2; i < events.length; i++)
+        {
+            assertTrue(set.add(events[i]));
+        }
+        EPAssertionUtil.assertEqualsExactOrder(events, set.toArray());
+        for (EventBean theEvent : events)
+        {
+            assertTrue(set.contains(theEvent));
+        }
+
+        // remove from the middle, the front and the end
+        assertTrue(set.remove(events[3]));
+        assertFalse(set.remove(events[3]));
+        assertFalse(set.contains(events[3]));
+        assertTrue(set.remove(events[0]));
+        assertTrue(set.remove(events[5]));
+        EPAssertionUtil.assertEqualsExactOrder(new Object[] {events[1], events[2], events[4]}, set.toArray());
+        assertEquals(events[1], set.get(0));
+        assertEquals(events[4], set.get(2));
+
+        // re-added event goes to the end
+        assertTrue(set.add(events[0]));
+        EPAssertionUtil.assertEqualsExactOrder(new Object[] {events[1], events[2], events[4], events[0]}, set.toArray());
+
+        assertFalse(set.remove(null));
+        assertFalse(set.contains("x"));
+        assertEquals(4, set.size());
+    }
+
+    public void testGet()
+    {
+        assertEquals(events[0], set.get(0));
+        assertEquals(events[1], set.get(1));
+        try
+        {
+            set.get(2);
+            fail();
+        }
+        catch (IndexOutOfBoundsException ex)
+        {
+            // expected
+        }
+    }
+
+    public void testClear()
+    {
+        set.add(events[2]);
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertEquals(0, set.size());
+        assertFalse(set.iterator().hasNext());
+        assertFalse(set.contains(events[0]));
+
+        assertTrue(set.add(events[3]));
+        EPAssertionUtil.assertEqualsExactOrder(new Object[] {events[3]}, set.toArray());
+    }
+
+    public void testIteratorRemove()
+    {
+        set.add(events[2]);
+        set.add(events[3]);
+
+        Iterator<EventBean> it = set.iterator();
+        try
+        {
+            it.remove();
+            fail();
+        }
+        catch (IllegalStateException ex)
+        {
+            // expected
+        }
+
+        // remove every other event during iteration
+        int count = 0;
+        while (it.hasNext())
+        {
+            it.next();
+            if (count++ % 2 == 0)
+            {
+                it.remove();
+            }
+        }
+        assertEquals(4, count);
+        EPAssertionUtil.assertEqualsExactOrder(new Object[] {events[1], events[3]}, set.toArray());
+
+        try
+        {
+            it.next();
+            fail();
+        }
+        catch (NoSuchElementException ex)
+        {
+            // expected
+        }
+    }
+
+    public void testConcurrentModification()
+    {
+        Iterator<EventBean> it = set.iterator();
+        it.next();
+        set.add(events[2]);
+        try
+        {
+            it.next();
+            fail();
+        }
+        catch (ConcurrentModificationException ex)
+        {
+            // expected
+        }
+
+        it = set.iterator();
+        it.next();
+        set.remove(events[2]);
+        try
+        {
+            it.remove();
+            fail();
+        }
+        catch (ConcurrentModificationException ex)
+        {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * *************************************************************************************
+ *  Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ *  http://esper.codehaus.org                                                          *
+ *  http://www.espertech.com                                                           *
+ *  ---------------------------------------------------------------------------------- *
+ *  The software in this package is published under the terms of the GPL license       *
+ *  a copy of which has been included with this distribution in the license.txt file.  *
+ * *************************************************************************************
+ */
+
+package com.espertech.esper.collection;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class TestHyperLogLog extends TestCase
+{
+    public void testInvalidPrecision()
+    {
+        for (int precision : new int[] {3, 19})
+        {
+            try
+            {
+                new HyperLogLog(precision);
+                fail();
+            }
+            catch (IllegalArgumentException ex)
+            {
+                // expected
+            }
+        }
+    }
+
+    public void testSmallCardinalityExact()
+    {
+        HyperLogLog sketch = new HyperLogLog(12);
+        assertEquals(0, sketch.estimate());
+        for (int i = 0; i < 100; i++)
+        {
+            // duplicates do not count
+            sketch.add(SketchHash.hash(i));
+            sketch.add(SketchHash.hash(i));
+            sketch.add(SketchHash.hash((long) i));
+        }
+        assertEquals(100, sketch.estimate());
+
+        sketch.clear();
+        assertEquals(0, sketch.estimate());
+    }
+
+    public void testAccuracy()
+    {
+        HyperLogLog sketch = new HyperLogLog(12);
+        int[] checkpoints = new int[] {1000, 10000, 100000, 1000000};
+        int count = 0;
+        for (int checkpoint : checkpoints)
+        {
+            while (count < checkpoint)
+            {
+                sketch.add(SketchHash.hash("key" + count));
+                count++;
+            }
+            // four times the standard error of 1.6%
+            double error = Math.abs(sketch.estimate() - count) / (double) count;
+            assertTrue("error " + error + " at " + count, error < 0.065);
+        }
+    }
+
+    public void testRemoveNotRemovable()
+    {
+        HyperLogLog sketch = new HyperLogLog(8);
+        assertFalse(sketch.isRemovable());
+        sketch.add(SketchHash.hash(1));
+        try
+        {
+            sketch.remove(SketchHash.hash(1));
+            fail();
+        }
+        catch (UnsupportedOperationException ex)
+        {
+            // expected
+        }
+    }
+
+    public void testRemoveNotAdded()
+    {
+        HyperLogLog sketch = new HyperLogLog(8, true);
+        assertTrue(sketch.isRemovable());
+        sketch.add(SketchHash.hash(1));
+        sketch.remove(SketchHash.hash(1));
+        assertEquals(0, sketch.estimate());
+        try
+        {
+            sketch.remove(SketchHash.hash(1));
+            fail();
+        }
+        catch (IllegalStateException ex)
+        {
+            // expected
+        }
+    }
+
+    public void testRemoveSlidingWindow()
+    {
+        // a removable sketch over a sliding window must estimate the same as a sketch of the window only
+        HyperLogLog sliding = new HyperLogLog(10, true);
+        List<Long> window = new ArrayList<Long>();
+        Random random = new Random(5);
+        for (int i = 0; i < 20000; i++)
+        {
+            long hash = SketchHash.hash("k" + random.nextInt(5000));
+            sliding.add(hash);
+            window.add(hash);
+            if (window.size() > 1000)
+            {
+                sliding.remove(window.remove(0));
+            }
+            if (i % 997 == 0)
+            {
+                assertEquals(rebuild(window).estimate(), sliding.estimate());
+            }
+        }
+
+        // removal in any order
+        Collections.shuffle(window, random);
+        while (!window.isEmpty())
+        {
+            sliding.remove(window.remove(window.size() - 1));
+            if (window.size() % 100 == 0)
+            {
+                assertEquals(rebuild(window).estimate(), sliding.estimate());
+            }
+        }
+        assertEquals(0, sliding.estimate());
+    }
+
+    public void testRemoveBounded()
+    {
+        // the estimate of a sliding window of distinct values stays near the window size
+        HyperLogLog sliding = new HyperLogLog(12, true);
+        for (int i = 0; i < 200000; i++)
+        {
+            sliding.add(SketchHash.hash(i));
+            if (i >= 100)
+            {
+                sliding.remove(SketchHash.hash(i - 100));
+            }
+        }
+        assertEquals(100, sliding.estimate(), 3);
+    }
+
+    public void testMerge()
+    {
+        // merging takes the register-wise maximum, the same as a sketch of all values
+        HyperLogLog first = new HyperLogLog(12);
+        HyperLogLog second = new HyperLogLog(12);
+        HyperLogLog all = new HyperLogLog(12);
+        for (int i = 0; i < 50000; i++)
+        {
+            long hash = SketchHash.hash(i);
+            if (i < 30000)
+            {
+                first.add(hash);
+            }
+            if (i >= 20000)
+            {
+                second.add(hash);
+            }
+            all.add(hash);
+        }
+        first.merge(second);
+        assertEquals(all.estimate(), first.estimate());
+        assertEquals(50000, first.estimate(), 50000 * 0.05);
+
+        try
+        {
+            first.merge(new HyperLogLog(10));
+            fail();
+        }
+        catch (IllegalArgumentException ex)
+        {
+            // expected
+        }
+    }
+
+    public void testMergeRemovable()
+    {
+        // merged values of a removable sketch remain removable
+        HyperLogLog first = new HyperLogLog(10, true);
+        HyperLogLog second = new HyperLogLog(10, true);
+        List<Long> firstHashes = new ArrayList<Long>();
+        for (int i = 0; i < 3000; i++)
+        {
+            long hash = SketchHash.hash("k" + i);
+            if (i % 3 == 0)
+            {
+                second.add(hash);
+            }
+            else
+            {
+                first.add(hash);
+                firstHashes.add(hash);
+            }
+        }
+        first.merge(second);
+        assertEquals(3000, first.estimate(), 3000 * 0.1);
+
+        for (int i = 0; i < 3000; i += 3)
+        {
+            first.remove(SketchHash.hash("k" + i));
+        }
+        assertEquals(rebuild(firstHashes).estimate(), first.estimate());
+
+        try
+        {
+            first.merge(new HyperLogLog(10));
+            fail();
+        }
+        catch (IllegalArgumentException ex)
+        {
+            // expected
+        }
+    }
+
+    private static HyperLogLog rebuild(List<Long> hashes)
+    {
+        HyperLogLog sketch = new HyperLogLog(10);
+        for (long hash : hashes)
+        {
+            sketch.add(hash);
+        }
+        return sketch;
+    }
+}
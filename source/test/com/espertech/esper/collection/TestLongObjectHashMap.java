@@ -0,0 +1,234 @@
+/*
+ * *************************************************************************************
+ *  Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ *  http://esper.codehaus.org                                                          *
+ *  http://www.espertech.com                                                           *
+ *  ---------------------------------------------------------------------------------- *
+ *  The software in this package is published under the terms of the GPL license       *
+ *  a copy of which has been included with this distribution in the license.txt file.  *
+ * *************************************************************************************
+ */
+
+package com.espertech.esper.collection;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+public class TestLongObjectHashMap extends TestCase
+{
+    // the initial capacity of a map with default size
+    private static final int INITIAL_CAPACITY = 8;
+
+    private LongObjectHashMap<String> map;
+
+    public void setUp()
+    {
+        map = new LongObjectHashMap<String>();
+    }
+
+    public void testPutGetRemove()
+    {
+        assertTrue(map.isEmpty());
+        assertNull(map.get(1));
+        assertNull(map.put(1, "a"));
+        assertNull(map.put(-1, "b"));
+        assertNull(map.put(Long.MIN_VALUE, "c"));
+        assertNull(map.put(0, "d"));
+        assertEquals(4, map.size());
+        assertFalse(map.isEmpty());
+
+        assertEquals("a", map.get(1));
+        assertEquals("b", map.get(-1));
+        assertEquals("c", map.get(Long.MIN_VALUE));
+        assertEquals("d", map.get(0));
+        assertNull(map.get(2));
+
+        assertEquals("a", map.put(1, "a2"));
+        assertEquals("a2", map.get(1));
+        assertEquals(4, map.size());
+
+        assertEquals("b", map.remove(-1));
+        assertNull(map.remove(-1));
+        assertNull(map.get(-1));
+        assertEquals(3, map.size());
+
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(1));
+        assertEquals(0, map.keys().length);
+        assertFalse(map.valueIterator().hasNext());
+
+        try
+        {
+            map.put(1, null);
+            fail();
+        }
+        catch (IllegalArgumentException ex)
+        {
+            // expected
+        }
+    }
+
+    public void testRemoveShiftsCollidingKeys()
+    {
+        // keys 0..2 share a home slot; the others share the slot that follows, and are pushed behind them
+        long[] first = findKeysWithSlot(3, 3, 0);
+        long[] second = findKeysWithSlot(4, 1, first[first.length - 1] + 1);
+        for (long key : first)
+        {
+            map.put(key, "first" + key);
+        }
+        map.put(second[0], "second" + second[0]);
+
+        // removing the head of the chain shifts the others back, including the key of the following slot
+        assertEquals("first" + first[0], map.remove(first[0]));
+        assertNull(map.get(first[0]));
+        assertEquals("first" + first[1], map.get(first[1]));
+        assertEquals("first" + first[2], map.get(first[2]));
+        assertEquals("second" + second[0], map.get(second[0]));
+
+        // removing from the middle of the chain
+        map.put(first[0], "first" + first[0]);
+        assertEquals("first" + first[2], map.remove(first[2]));
+        assertEquals("first" + first[0], map.get(first[0]));
+        assertEquals("first" + first[1], map.get(first[1]));
+        assertEquals("second" + second[0], map.get(second[0]));
+        assertEquals(3, map.size());
+    }
+
+    public void testRemoveShiftsAcrossTableEnd()
+    {
+        // keys homed at the last slot wrap to the beginning of the table
+        long[] last = findKeysWithSlot(INITIAL_CAPACITY - 1, 3, 0);
+        long[] zero = findKeysWithSlot(0, 1, last[last.length - 1] + 1);
+        for (long key : last)
+        {
+            map.put(key, "last" + key);
+        }
+        map.put(zero[0], "zero" + zero[0]);
+
+        assertEquals("last" + last[0], map.remove(last[0]));
+        assertEquals("last" + last[1], map.get(last[1]));
+        assertEquals("last" + last[2], map.get(last[2]));
+        assertEquals("zero" + zero[0], map.get(zero[0]));
+
+        assertEquals("last" + last[1], map.remove(last[1]));
+        assertEquals("last" + last[2], map.get(last[2]));
+        assertEquals("zero" + zero[0], map.get(zero[0]));
+
+        assertEquals("zero" + zero[0], map.remove(zero[0]));
+        assertEquals("last" + last[2], map.get(last[2]));
+        assertEquals(1, map.size());
+    }
+
+    public void testRehash()
+    {
+        int count = 10000;
+        for (int i = 0; i < count; i++)
+        {
+            assertNull(map.put(i * 31L - 5000, Integer.toString(i)));
+            assertEquals(i + 1, map.size());
+        }
+        for (int i = 0; i < count; i++)
+        {
+            assertEquals(Integer.toString(i), map.get(i * 31L - 5000));
+        }
+        assertNull(map.get(1));
+
+        Set<Long> keys = new HashSet<Long>();
+        for (long key : map.keys())
+        {
+            keys.add(key);
+        }
+        assertEquals(count, keys.size());
+
+        Set<String> values = new HashSet<String>();
+        for (Iterator<String> it = map.valueIterator(); it.hasNext();)
+        {
+            values.add(it.next());
+        }
+        assertEquals(count, values.size());
+
+        for (int i = 0; i < count; i += 2)
+        {
+            assertEquals(Integer.toString(i), map.remove(i * 31L - 5000));
+        }
+        for (int i = 0; i < count; i++)
+        {
+            assertEquals(i % 2 == 0 ? null : Integer.toString(i), map.get(i * 31L - 5000));
+        }
+        assertEquals(count / 2, map.size());
+    }
+
+    public void testRandomCompareHashMap()
+    {
+        Random random = new Random(9);
+        for (int round = 0; round < 20; round++)
+        {
+            LongObjectHashMap<String> tested = new LongObjectHashMap<String>(random.nextInt(10));
+            Map<Long, String> expected = new HashMap<Long, String>();
+            int keySpace = 1 + random.nextInt(500);
+            for (int op = 0; op < 20000; op++)
+            {
+                long key = random.nextInt(keySpace) - keySpace / 2;
+                if (random.nextInt(3) == 0)
+                {
+                    key = key << 32;
+                }
+                int choice = random.nextInt(10);
+                if (choice < 4)
+                {
+                    String value = Integer.toString(op);
+                    assertEquals(expected.put(key, value), tested.put(key, value));
+                }
+                else if (choice < 8)
+                {
+                    assertEquals(expected.remove(key), tested.remove(key));
+                }
+                else
+                {
+                    assertEquals(expected.get(key), tested.get(key));
+                }
+                assertEquals(expected.size(), tested.size());
+            }
+
+            for (Map.Entry<Long, String> entry : expected.entrySet())
+            {
+                assertEquals(entry.getValue(), tested.get(entry.getKey()));
+            }
+            List<String> values = new ArrayList<String>();
+            for (Iterator<String> it = tested.valueIterator(); it.hasNext();)
+            {
+                values.add(it.next());
+            }
+            assertEquals(new HashSet<String>(expected.values()), new HashSet<String>(values));
+            assertEquals(expected.size(), values.size());
+        }
+    }
+
+    /**
+     * Returns keys that a map of initial capacity places at the given home slot, using the hash of the map.
+     */
+    private static long[] findKeysWithSlot(int slot, int numKeys, long from)
+    {
+        long[] result = new long[numKeys];
+        int count = 0;
+        for (long key = from; count < numKeys; key++)
+        {
+            long hash = key * 0x9E3779B97F4A7C15L;
+            if (((int) (hash ^ (hash >>> 32)) & (INITIAL_CAPACITY - 1)) == slot)
+            {
+                result[count++] = key;
+            }
+        }
+        return result;
+    }
+}
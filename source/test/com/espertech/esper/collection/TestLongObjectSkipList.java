@@ -0,0 +1,176 @@
+/*
+ * *************************************************************************************
+ *  Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ *  http://esper.codehaus.org                                                          *
+ *  http://www.espertech.com                                                           *
+ *  ---------------------------------------------------------------------------------- *
+ *  The software in this package is published under the terms of the GPL license       *
+ *  a copy of which has been included with this distribution in the license.txt file.  *
+ * *************************************************************************************
+ */
+
+package com.espertech.esper.collection;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+public class TestLongObjectSkipList extends TestCase
+{
+    private LongObjectSkipList<String> map;
+
+    public void setUp()
+    {
+        map = new LongObjectSkipList<String>();
+    }
+
+    public void testPutGetRemove()
+    {
+        assertTrue(map.isEmpty());
+        assertNull(map.first());
+        assertNull(map.get(1));
+        assertNull(map.put(1, "a"));
+        assertNull(map.put(-1, "b"));
+        assertNull(map.put(Long.MIN_VALUE, "c"));
+        assertNull(map.put(Long.MAX_VALUE, "d"));
+        assertEquals(4, map.size());
+        assertFalse(map.isEmpty());
+
+        assertEquals("a", map.get(1));
+        assertEquals("b", map.get(-1));
+        assertEquals("c", map.get(Long.MIN_VALUE));
+        assertEquals("d", map.get(Long.MAX_VALUE));
+        assertNull(map.get(0));
+        assertKeys(Long.MIN_VALUE, -1, 1, Long.MAX_VALUE);
+
+        assertEquals("a", map.put(1, "a2"));
+        assertEquals("a2", map.get(1));
+        assertEquals(4, map.size());
+
+        LongObjectSkipList.Node<String> node = map.putIfAbsent(1, "a3");
+        assertEquals(1, node.getKey());
+        assertEquals("a2", node.getValue());
+        assertSame(node, map.getNode(1));
+        assertNull(map.getNode(2));
+
+        assertEquals("b", map.remove(-1));
+        assertNull(map.remove(-1));
+        assertNull(map.get(-1));
+        assertEquals(3, map.size());
+        assertKeys(Long.MIN_VALUE, 1, Long.MAX_VALUE);
+
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.first());
+        assertNull(map.get(1));
+        assertNull(map.put(5, "e"));
+        assertKeys(5);
+    }
+
+    public void testCeiling()
+    {
+        for (long key = 10; key <= 50; key += 10)
+        {
+            map.put(key, Long.toString(key));
+        }
+        assertEquals(10, map.ceiling(Long.MIN_VALUE, true).getKey());
+        assertEquals(10, map.ceiling(10, true).getKey());
+        assertEquals(20, map.ceiling(10, false).getKey());
+        assertEquals(20, map.ceiling(11, true).getKey());
+        assertEquals(20, map.ceiling(11, false).getKey());
+        assertEquals(50, map.ceiling(50, true).getKey());
+        assertNull(map.ceiling(50, false));
+        assertNull(map.ceiling(51, true));
+    }
+
+    public void testRemoveWhileIterating()
+    {
+        for (long key = 1; key <= 5; key++)
+        {
+            map.put(key, Long.toString(key));
+        }
+
+        // removing the current entry continues with the next entry
+        LongObjectSkipList.Node<String> cursor = map.getNode(2);
+        map.remove(2);
+        assertTrue(cursor.isRemoved());
+        assertEquals(3, cursor.getNext().getKey());
+
+        // removing the next entries skips them
+        map.remove(3);
+        map.remove(4);
+        assertEquals(5, cursor.getNext().getKey());
+        map.remove(5);
+        assertNull(cursor.getNext());
+
+        // clear ends cursors
+        cursor = map.first();
+        map.put(6, "6");
+        map.clear();
+        assertTrue(cursor.isRemoved());
+        assertNull(cursor.getNext());
+    }
+
+    public void testCompareToTreeMap()
+    {
+        Random random = new Random(1);
+        TreeMap<Long, String> expected = new TreeMap<Long, String>();
+        for (int i = 0; i < 20000; i++)
+        {
+            long key = random.nextInt(500) - 250;
+            int action = random.nextInt(3);
+            if (action == 0)
+            {
+                assertEquals(expected.put(key, "v" + i), map.put(key, "v" + i));
+            }
+            else if (action == 1)
+            {
+                assertEquals(expected.remove(key), map.remove(key));
+            }
+            else
+            {
+                assertEquals(expected.get(key), map.get(key));
+                boolean inclusive = random.nextBoolean();
+                Map.Entry<Long, String> ceiling = inclusive ? expected.ceilingEntry(key) : expected.higherEntry(key);
+                LongObjectSkipList.Node<String> node = map.ceiling(key, inclusive);
+                if (ceiling == null)
+                {
+                    assertNull(node);
+                }
+                else
+                {
+                    assertEquals((long) ceiling.getKey(), node.getKey());
+                    assertEquals(ceiling.getValue(), node.getValue());
+                }
+            }
+            assertEquals(expected.size(), map.size());
+        }
+
+        assertEquals(new ArrayList<Long>(expected.keySet()), getKeys());
+    }
+
+    private void assertKeys(long... expected)
+    {
+        List<Long> keys = getKeys();
+        assertEquals(expected.length, keys.size());
+        for (int i = 0; i < expected.length; i++)
+        {
+            assertEquals(expected[i], (long) keys.get(i));
+        }
+        assertEquals(expected.length, map.size());
+    }
+
+    private List<Long> getKeys()
+    {
+        List<Long> keys = new ArrayList<Long>();
+        for (LongObjectSkipList.Node<String> node = map.first(); node != null; node = node.getNext())
+        {
+            keys.add(node.getKey());
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * *************************************************************************************
+ *  Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ *  http://esper.codehaus.org                                                          *
+ *  http://www.espertech.com                                                           *
+ *  ---------------------------------------------------------------------------------- *
+ *  The software in this package is published under the terms of the GPL license       *
+ *  a copy of which has been included with this distribution in the license.txt file.  *
+ * *************************************************************************************
+ */
+package com.espertech.esper.collection;
+
+import junit.framework.TestCase;
+
+import java.util.Random;
+
+public class TestSortedDoubleTree extends TestCase
+{
+    private SortedDoubleTree tree;
+
+    public void setUp()
+    {
+        tree = new SortedDoubleTree();
+    }
+
+    public void testAdd()
+    {
+        assertEquals(0, tree.size());
+
+        tree.add(10);
+        tree.add(0);
+        tree.add(5);
+        compare(new double[] {0, 5, 10}, tree);
+
+        tree.add(10);
+        tree.add(1);
+        tree.add(5.5);
+        compare(new double[] {0, 1, 5, 5.5, 10, 10}, tree);
+
+        tree.add(9);
+        tree.add(2);
+        tree.add(5.5);
+        compare(new double[] {0, 1, 2, 5, 5.5, 5.5, 9, 10, 10}, tree);
+
+        tree.add(Double.NEGATIVE_INFINITY);
+        tree.add(Double.POSITIVE_INFINITY);
+        compare(new double[] {Double.NEGATIVE_INFINITY, 0, 1, 2, 5, 5.5, 5.5, 9, 10, 10, Double.POSITIVE_INFINITY}, tree);
+    }
+
+    public void testRemove()
+    {
+        tree.add(5);
+        tree.add(1);
+        tree.add(0);
+        tree.add(-1);
+        tree.add(1);
+        tree.add(0.5);
+        compare(new double[] {-1, 0, 0.5, 1, 1, 5}, tree);
+
+        tree.remove(1);
+        compare(new double[] {-1, 0, 0.5, 1, 5}, tree);
+
+        tree.remove(-1);
+        tree.add(5);
+        compare(new double[] {0, 0.5, 1, 5, 5}, tree);
+
+        tree.remove(5);
+        tree.remove(5);
+        compare(new double[] {0, 0.5, 1}, tree);
+
+        tree.add(99);
+        tree.remove(99);
+        try
+        {
+            tree.remove(99);
+            fail();
+        }
+        catch (IllegalStateException ex)
+        {
+            // expected
+        }
+
+        // NaN is ignored, same as by SortedDoubleVector
+        tree.add(Double.NaN);
+        compare(new double[] {0, 0.5, 1}, tree);
+        tree.remove(Double.NaN);
+        compare(new double[] {0, 0.5, 1}, tree);
+    }
+
+    public void testGetValueOutOfRange()
+    {
+        tryOutOfRange(0);
+        tree.add(1);
+        assertEquals(1d, tree.getValue(0));
+        tryOutOfRange(1);
+        tryOutOfRange(-1);
+    }
+
+    public void testClearAndReuse()
+    {
+        for (int round = 0; round < 3; round++)
+        {
+            for (int i = 0; i < 1000; i++)
+            {
+                tree.add(i % 100);
+            }
+            assertEquals(1000, tree.size());
+            assertEquals(0d, tree.getValue(0));
+            assertEquals(99d, tree.getValue(999));
+            assertEquals(49d, tree.getValue(499));
+
+            if (round % 2 == 0)
+            {
+                tree.clear();
+            }
+            else
+            {
+                for (int i = 0; i < 1000; i++)
+                {
+                    tree.remove(i % 100);
+                }
+            }
+            assertEquals(0, tree.size());
+        }
+    }
+
+    public void testRandomCompareVector()
+    {
+        Random random = new Random(1000);
+        for (int round = 0; round < 50; round++)
+        {
+            SortedDoubleTree tree = new SortedDoubleTree();
+            SortedDoubleVector vector = new SortedDoubleVector();
+            int range = 1 + random.nextInt(round % 2 == 0 ? 10 : 10000);
+            for (int op = 0; op < 2000; op++)
+            {
+                if ((vector.size() > 0) && (random.nextInt(3) == 0))
+                {
+                    // remove a present value
+                    double value = vector.getValue(random.nextInt(vector.size()));
+                    tree.remove(value);
+                    vector.remove(value);
+                }
+                else
+                {
+                    double value = random.nextInt(range) - range / 2;
+                    if (random.nextBoolean())
+                    {
+                        value += 0.5;
+                    }
+                    tree.add(value);
+                    vector.add(value);
+                }
+
+                assertEquals(vector.size(), tree.size());
+                if (op % 50 == 0)
+                {
+                    for (int i = 0; i < vector.size(); i++)
+                    {
+                        assertEquals(vector.getValue(i), tree.getValue(i));
+                    }
+                }
+                else if (vector.size() > 0)
+                {
+                    int index = random.nextInt(vector.size());
+                    assertEquals(vector.getValue(index), tree.getValue(index));
+                }
+            }
+        }
+    }
+
+    private void tryOutOfRange(int index)
+    {
+        try
+        {
+            tree.getValue(index);
+            fail();
+        }
+        catch (IndexOutOfBoundsException ex)
+        {
+            // expected
+        }
+    }
+
+    private void compare(double[] expected, SortedDoubleTree tree)
+    {
+        assertEquals(expected.length, tree.size());
+        for (int i = 0; i < expected.length; i++)
+        {
+            assertEquals(expected[i], tree.getValue(i));
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * *************************************************************************************
+ *  Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ *  http://esper.codehaus.org                                                          *
+ *  http://www.espertech.com                                                           *
+ *  ---------------------------------------------------------------------------------- *
+ *  The software in this package is published under the terms of the GPL license       *
+ *  a copy of which has been included with this distribution in the license.txt file.  *
+ * *************************************************************************************
+ */
+
+package com.espertech.esper.collection;
+
+import junit.framework.TestCase;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class TestTDigest extends TestCase
+{
+    public void testEmptyAndSingle()
+    {
+        TDigest digest = new TDigest(TDigest.DEFAULT_COMPRESSION);
+        assertEquals(0, digest.size());
+        assertTrue(Double.isNaN(digest.quantile(0.5)));
+
+        digest.add(Double.NaN);
+        assertEquals(0, digest.size());
+
+        digest.add(7);
+        assertEquals(1, digest.size());
+        assertEquals(7d, digest.quantile(0));
+        assertEquals(7d, digest.quantile(0.5));
+        assertEquals(7d, digest.quantile(1));
+
+        digest.clear();
+        assertEquals(0, digest.size());
+        assertTrue(Double.isNaN(digest.quantile(0.5)));
+    }
+
+    public void testSmallExact()
+    {
+        // few values each keep their own centroid
+        TDigest digest = new TDigest(TDigest.DEFAULT_COMPRESSION);
+        for (int i = 1; i <= 5; i++)
+        {
+            digest.add(i * 10);
+        }
+        assertEquals(5, digest.size());
+        assertEquals(10d, digest.quantile(0));
+        assertEquals(30d, digest.quantile(0.5), 1e-9);
+        assertEquals(50d, digest.quantile(1));
+        double last = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i <= 100; i++)
+        {
+            double value = digest.quantile(i / 100d);
+            assertTrue(value >= last);
+            last = value;
+        }
+    }
+
+    public void testRankError()
+    {
+        Random random = new Random(7);
+        int size = 200000;
+        for (int distribution = 0; distribution < 3; distribution++)
+        {
+            TDigest digest = new TDigest(TDigest.DEFAULT_COMPRESSION);
+            double[] values = new double[size];
+            for (int i = 0; i < size; i++)
+            {
+                if (distribution == 0)
+                {
+                    values[i] = random.nextDouble();
+                }
+                else if (distribution == 1)
+                {
+                    values[i] = random.nextGaussian();
+                }
+                else
+                {
+                    values[i] = -Math.log(random.nextDouble());
+                }
+                digest.add(values[i]);
+            }
+            assertEquals(size, digest.size());
+            Arrays.sort(values);
+            assertEquals(values[0], digest.quantile(0));
+            assertEquals(values[size - 1], digest.quantile(1));
+
+            for (double quantile : new double[] {0.001, 0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.99, 0.999})
+            {
+                double estimate = digest.quantile(quantile);
+                int rank = Arrays.binarySearch(values, estimate);
+                if (rank < 0)
+                {
+                    rank = -rank - 1;
+                }
+                double rankError = Math.abs(rank / (double) size - quantile);
+                assertTrue("rank error " + rankError + " at " + quantile, rankError < 0.005);
+            }
+        }
+    }
+
+    public void testMerge()
+    {
+        // merging the centroids of digests of parts of the values keeps the rank error bound of a single digest
+        Random random = new Random(13);
+        int size = 100000;
+        double[] values = new double[size];
+        TDigest[] parts = new TDigest[4];
+        for (int i = 0; i < parts.length; i++)
+        {
+            parts[i] = new TDigest(TDigest.DEFAULT_COMPRESSION);
+        }
+        for (int i = 0; i < size; i++)
+        {
+            values[i] = random.nextGaussian();
+            parts[i % parts.length].add(values[i]);
+        }
+
+        TDigest merged = new TDigest(TDigest.DEFAULT_COMPRESSION);
+        for (TDigest part : parts)
+        {
+            merged.merge(part);
+        }
+        assertEquals(size, merged.size());
+        Arrays.sort(values);
+        assertEquals(values[0], merged.quantile(0));
+        assertEquals(values[size - 1], merged.quantile(1));
+        for (double quantile : new double[] {0.01, 0.1, 0.5, 0.9, 0.99})
+        {
+            int rank = Arrays.binarySearch(values, merged.quantile(quantile));
+            if (rank < 0)
+            {
+                rank = -rank - 1;
+            }
+            double rankError = Math.abs(rank / (double) size - quantile);
+            assertTrue("rank error " + rankError + " at " + quantile, rankError < 0.005);
+        }
+
+        // merging an empty digest changes nothing
+        merged.merge(new TDigest(TDigest.DEFAULT_COMPRESSION));
+        assertEquals(size, merged.size());
+        assertEquals(values[0], merged.quantile(0));
+    }
+
+    public void testBoundedCentroids()
+    {
+        // the digest compresses sorted input as well as random input
+        TDigest digest = new TDigest(50);
+        for (int i = 0; i < 100000; i++)
+        {
+            digest.add(i);
+        }
+        assertEquals(100000, digest.size());
+        assertEquals(50000d, digest.quantile(0.5), 1000);
+        assertEquals(0d, digest.quantile(0));
+        assertEquals(99999d, digest.quantile(1));
+    }
+}
@@ -18,8 +18,6 @@ import junit.framework.TestCase;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
-import java.util.ArrayDeque;
-
 public class TestTimeWindow extends TestCase
 {
     private final TimeWindow window = new TimeWindow(false);
@@ -51,30 +49,30 @@ public class TestTimeWindow extends TestCase
         window.add(22, beans[5]);
         assertTrue(window.getOldestTimestamp() == 19L);
 
-        ArrayDeque<EventBean> beanList = window.expireEvents(19);
+        EventBean[] beanList = window.expireEvents(19);
         assertTrue(beanList == null);
 
         beanList = window.expireEvents(20);
-        assertTrue(beanList.size() == 2);
-        assertTrue(beanList.poll() == beans[0]);
-        assertTrue(beanList.poll() == beans[1]);
+        assertTrue(beanList.length == 2);
+        assertTrue(beanList[0] == beans[0]);
+        assertTrue(beanList[1] == beans[1]);
 
         beanList = window.expireEvents(21);
-        assertTrue(beanList.size() == 2);
-        assertTrue(beanList.poll() == beans[2]);
-        assertTrue(beanList.poll() == beans[3]);
+        assertTrue(beanList.length == 2);
+        assertTrue(beanList[0] == beans[2]);
+        assertTrue(beanList[1] == beans[3]);
         assertFalse(window.isEmpty());
         assertTrue(window.getOldestTimestamp() == 21);
 
         beanList = window.expireEvents(22);
-        assertTrue(beanList.size() == 1);
-        assertTrue(beanList.poll() == beans[4]);
+        assertTrue(beanList.length == 1);
+        assertTrue(beanList[0] == beans[4]);
         assertFalse(window.isEmpty());
         assertTrue(window.getOldestTimestamp() == 22);
 
         beanList = window.expireEvents(23);
-        assertTrue(beanList.size() == 1);
-        assertTrue(beanList.poll() == beans[5]);
+        assertTrue(beanList.length == 1);
+        assertTrue(beanList[0] == beans[5]);
         assertTrue(window.isEmpty());
         assertTrue(window.getOldestTimestamp() == null);
 
@@ -105,25 +103,26 @@ public class TestTimeWindow extends TestCase
         windowRemovable.remove(beans[0]);
         windowRemovable.remove(beans[3]);
 
-        ArrayDeque<EventBean> beanList = windowRemovable.expireEvents(19);
+        EventBean[] beanList = windowRemovable.expireEvents(19);
         assertTrue(beanList == null);
 
         beanList = windowRemovable.expireEvents(20);
-        assertTrue(beanList.size() == 1);
-        assertTrue(beanList.getFirst() == beans[1]);
+        assertTrue(beanList.length == 1);
+        assertTrue(beanList[0] == beans[1]);
 
         beanList = windowRemovable.expireEvents(21);
-        assertTrue(beanList.size() == 1);
-        assertTrue(beanList.getFirst() == beans[2]);
+        assertTrue(beanList.length == 1);
+        assertTrue(beanList[0] == beans[2]);
         assertFalse(windowRemovable.isEmpty());
         assertTrue(windowRemovable.getOldestTimestamp() == 22);
 
+        // only the removed event remained for the time slot
         beanList = windowRemovable.expireEvents(22);
-        assertTrue(beanList.size() == 0);
+        assertTrue(beanList == null);
 
         beanList = windowRemovable.expireEvents(23);
-        assertTrue(beanList.size() == 1);
-        assertTrue(beanList.getFirst() == beans[5]);
+        assertTrue(beanList.length == 1);
+        assertTrue(beanList[0] == beans[5]);
         assertTrue(windowRemovable.isEmpty());
         assertTrue(windowRemovable.getOldestTimestamp() == null);
 
@@ -132,7 +131,9 @@ public class TestTimeWindow extends TestCase
         assertTrue(windowRemovable.isEmpty());
         assertTrue(windowRemovable.getOldestTimestamp() == null);
 
-        assertEquals(0, windowRemovable.getReverseIndex().size());
+        // removing an expired event has no effect
+        windowRemovable.remove(beans[5]);
+        assertEquals(0, windowRemovable.size());
     }
 
     public void testTimeWindowPerformance()
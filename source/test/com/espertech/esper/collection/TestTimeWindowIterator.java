@@ -16,230 +16,161 @@ import com.espertech.esper.client.scopetest.EPAssertionUtil;
 import com.espertech.esper.support.event.EventFactoryHelper;
 import junit.framework.TestCase;
 
-import java.util.ArrayDeque;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
 
 public class TestTimeWindowIterator extends TestCase
 {
     private Map<String, EventBean> events;
+    private TimeWindow testWindow;
 
     public void setUp()
     {
         events = EventFactoryHelper.makeEventMap(new String[] {"a", "b", "c", "d", "e", "f", "g"});
+        testWindow = new TimeWindow(true);
     }
 
     public void testEmpty()
     {
-        ArrayDeque<TimeWindowPair> testWindow = new ArrayDeque<TimeWindowPair>();
-        Iterator<EventBean> it = new TimeWindowIterator(testWindow);
+        Iterator<EventBean> it = testWindow.iterator();
         EPAssertionUtil.assertEqualsExactOrder(null, it);
     }
 
     public void testOneElement()
     {
-        ArrayDeque<TimeWindowPair> testWindow = new ArrayDeque<TimeWindowPair>();
-        ArrayDeque<EventBean> list = new ArrayDeque<EventBean>();
-        list.add(events.get("a"));
-        addToWindow(testWindow, 10L, list);
+        addToWindow(10L, "a");
 
-        Iterator it = new TimeWindowIterator(testWindow);
+        Iterator it = testWindow.iterator();
         EPAssertionUtil.assertEqualsExactOrder(new Object[]{events.get("a")}, it);
     }
 
     public void testTwoInOneEntryElement()
     {
-        ArrayDeque<TimeWindowPair> testWindow = new ArrayDeque<TimeWindowPair>();
-        ArrayDeque<EventBean> list = new ArrayDeque<EventBean>();
-        list.add(events.get("a"));
-        list.add(events.get("b"));
-        addToWindow(testWindow, 10L, list);
+        addToWindow(10L, "a", "b");
 
-        Iterator<EventBean> it = new TimeWindowIterator(testWindow);
+        Iterator<EventBean> it = testWindow.iterator();
         EPAssertionUtil.assertEqualsExactOrder(new EventBean[]{events.get("a"), events.get("b")}, it);
     }
 
     public void testTwoSeparateEntryElement()
     {
-        ArrayDeque<TimeWindowPair> testWindow = new ArrayDeque<TimeWindowPair>();
-        ArrayDeque<EventBean> list2 = new ArrayDeque<EventBean>();
-        list2.add(events.get("b"));
-        addToWindow(testWindow, 5L, list2); // Actually before list1
-        ArrayDeque<EventBean> list1 = new ArrayDeque<EventBean>();
-        list1.add(events.get("a"));
-        addToWindow(testWindow, 10L, list1);
-
-        Iterator it = new TimeWindowIterator(testWindow);
+        addToWindow(5L, "b");
+        addToWindow(10L, "a");
+
+        Iterator it = testWindow.iterator();
         EPAssertionUtil.assertEqualsExactOrder(new Object[]{events.get("b"), events.get("a")}, it);
     }
 
     public void testTwoByTwoEntryElement()
     {
-        ArrayDeque<TimeWindowPair> testWindow = new ArrayDeque<TimeWindowPair>();
-        ArrayDeque<EventBean> list1 = new ArrayDeque<EventBean>();
-        list1.add(events.get("a"));
-        list1.add(events.get("b"));
-        addToWindow(testWindow, 10L, list1);
-        ArrayDeque<EventBean> list2 = new ArrayDeque<EventBean>();
-        list2.add(events.get("c"));
-        list2.add(events.get("d"));
-        addToWindow(testWindow, 15L, list2);
-
-        Iterator it = new TimeWindowIterator(testWindow);
+        addToWindow(10L, "a", "b");
+        addToWindow(15L, "c", "d");
+
+        Iterator it = testWindow.iterator();
         EPAssertionUtil.assertEqualsExactOrder(new Object[]{events.get("a"), events.get("b"), events.get("c"), events.get("d")}, it);
     }
 
     public void testMixedEntryElement()
     {
-        ArrayDeque<TimeWindowPair> testWindow = new ArrayDeque<TimeWindowPair>();
-        ArrayDeque<EventBean> list1 = new ArrayDeque<EventBean>();
-        list1.add(events.get("a"));
-        addToWindow(testWindow, 10L, list1);
-        ArrayDeque<EventBean> list2 = new ArrayDeque<EventBean>();
-        list2.add(events.get("c"));
-        list2.add(events.get("d"));
-        addToWindow(testWindow, 15L, list2);
-        ArrayDeque<EventBean> list3 = new ArrayDeque<EventBean>();
-        list3.add(events.get("e"));
-        list3.add(events.get("f"));
-        list3.add(events.get("g"));
-        addToWindow(testWindow, 20L, list3);
-
-        Iterator it = new TimeWindowIterator(testWindow);
+        addToWindow(10L, "a");
+        addToWindow(15L, "c", "d");
+        addToWindow(20L, "e", "f", "g");
+
+        Iterator it = testWindow.iterator();
         EPAssertionUtil.assertEqualsExactOrder(new Object[]{events.get("a"), events.get("c"), events.get("d"),
                 events.get("e"), events.get("f"), events.get("g")}, it);
     }
-    
-    public void testEmptyList()
-    {
-        ArrayDeque<TimeWindowPair> testWindow = new ArrayDeque<TimeWindowPair>();
 
-        ArrayDeque<EventBean> list1 = new ArrayDeque<EventBean>();
-        addToWindow(testWindow, 10L, list1);
+    public void testRemovedAll()
+    {
+        addToWindow(10L, "a");
+        addToWindow(20L, "b");
+        addToWindow(30L, "c");
+        removeFromWindow("b", "a", "c");
 
-        Iterator it = new TimeWindowIterator(testWindow);
+        Iterator it = testWindow.iterator();
         EPAssertionUtil.assertEqualsExactOrder((Object[]) null, it);
     }
 
-    public void testTwoEmptyList()
+    public void testRemovedFrontTail()
     {
-        ArrayDeque<TimeWindowPair> testWindow = new ArrayDeque<TimeWindowPair>();
-
-        ArrayDeque<EventBean> list1 = new ArrayDeque<EventBean>();
-        addToWindow(testWindow, 10L, list1);
-        ArrayDeque<EventBean> list2 = new ArrayDeque<EventBean>();
-        addToWindow(testWindow, 20L, list2);
+        addToWindow(10L, "a");
+        addToWindow(15L, "c", "d");
+        addToWindow(20L, "e");
+        removeFromWindow("a", "e");
 
-        Iterator it = new TimeWindowIterator(testWindow);
-        EPAssertionUtil.assertEqualsExactOrder((Object[]) null, it);
+        Iterator it = testWindow.iterator();
+        EPAssertionUtil.assertEqualsExactOrder(new Object[]{events.get("c"), events.get("d")}, it);
     }
 
-    public void testThreeEmptyList()
+    public void testRemovedSprinkle()
     {
-        ArrayDeque<TimeWindowPair> testWindow = new ArrayDeque<TimeWindowPair>();
+        addToWindow(10L, "a");
+        addToWindow(15L, "b");
+        addToWindow(20L, "c", "d");
+        addToWindow(40L, "e");
+        removeFromWindow("b", "e");
 
-        ArrayDeque<EventBean> list1 = new ArrayDeque<EventBean>();
-        addToWindow(testWindow, 10L, list1);
-        ArrayDeque<EventBean> list2 = new ArrayDeque<EventBean>();
-        addToWindow(testWindow, 20L, list2);
-        ArrayDeque<EventBean> list3 = new ArrayDeque<EventBean>();
-        addToWindow(testWindow, 30L, list3);
-
-        Iterator it = new TimeWindowIterator(testWindow);
-        EPAssertionUtil.assertEqualsExactOrder((Object[]) null, it);
+        Iterator it = testWindow.iterator();
+        EPAssertionUtil.assertEqualsExactOrder(new Object[]{events.get("a"), events.get("c"), events.get("d")}, it);
     }
 
-    public void testEmptyListFrontTail()
+    public void testExpired()
     {
-        ArrayDeque<TimeWindowPair> testWindow = new ArrayDeque<TimeWindowPair>();
-
-        ArrayDeque<EventBean> list1 = new ArrayDeque<EventBean>();
-        addToWindow(testWindow, 10L, list1);
-
-        ArrayDeque<EventBean> list2 = new ArrayDeque<EventBean>();
-        list2.add(events.get("c"));
-        list2.add(events.get("d"));
-        addToWindow(testWindow, 15L, list2);
-
-        ArrayDeque<EventBean> list3 = new ArrayDeque<EventBean>();
-        addToWindow(testWindow, 20L, list3);
-
-        Iterator it = new TimeWindowIterator(testWindow);
-        EPAssertionUtil.assertEqualsExactOrder(new Object[]{events.get("c"), events.get("d")}, it);
+        addToWindow(10L, "a");
+        addToWindow(15L, "b");
+        addToWindow(20L, "c", "d");
+        removeFromWindow("c");
+        testWindow.expireEvents(16L);
+
+        Iterator it = testWindow.iterator();
+        EPAssertionUtil.assertEqualsExactOrder(new Object[]{events.get("d")}, it);
     }
 
-    public void testEmptyListSprinkle()
+    public void testWrapAround()
     {
-        ArrayDeque<TimeWindowPair> testWindow = new ArrayDeque<TimeWindowPair>();
-
-        ArrayDeque<EventBean> list1 = new ArrayDeque<EventBean>();
-        list1.add(events.get("a"));
-        addToWindow(testWindow, 10L, list1);
-
-        ArrayDeque<EventBean> list2 = new ArrayDeque<EventBean>();
-        addToWindow(testWindow, 15L, list2);
-
-        ArrayDeque<EventBean> list3 = new ArrayDeque<EventBean>();
-        list3.add(events.get("c"));
-        list3.add(events.get("d"));
-        addToWindow(testWindow, 20L, list3);
-
-        ArrayDeque<EventBean> list4 = new ArrayDeque<EventBean>();
-        addToWindow(testWindow, 40L, list4);
-
-        Iterator it = new TimeWindowIterator(testWindow);
-        EPAssertionUtil.assertEqualsExactOrder(new Object[]{events.get("a"), events.get("c"), events.get("d")}, it);
+        // fill and expire the ring so that the window wraps around the end of the arrays
+        for (int i = 0; i < 12; i++)
+        {
+            testWindow.expireEvents(i);
+            addToWindow(i, "g");
+        }
+        testWindow.expireEvents(12);
+        addToWindow(20L, "a", "b", "c", "d", "e", "f");
+
+        Iterator it = testWindow.iterator();
+        EPAssertionUtil.assertEqualsExactOrder(new Object[]{events.get("a"), events.get("b"), events.get("c"),
+                events.get("d"), events.get("e"), events.get("f")}, it);
     }
 
-    public void testEmptyListFront()
+    public void testNoSuchElement()
     {
-        ArrayDeque<TimeWindowPair> testWindow = new ArrayDeque<TimeWindowPair>();
-
-        ArrayDeque<EventBean> list1 = new ArrayDeque<EventBean>();
-        addToWindow(testWindow, 10L, list1);
-
-        ArrayDeque<EventBean> list2 = new ArrayDeque<EventBean>();
-        list2.add(events.get("a"));
-        addToWindow(testWindow, 15L, list2);
-
-        ArrayDeque<EventBean> list3 = new ArrayDeque<EventBean>();
-        list3.add(events.get("c"));
-        list3.add(events.get("d"));
-        addToWindow(testWindow, 20L, list3);
-
-        ArrayDeque<EventBean> list4 = new ArrayDeque<EventBean>();
-        list4.add(events.get("e"));
-        addToWindow(testWindow, 40L, list4);
-
-        Iterator it = new TimeWindowIterator(testWindow);
-        EPAssertionUtil.assertEqualsExactOrder(new Object[]{events.get("a"), events.get("c"), events.get("d"), events.get("e")}, it);
+        Iterator<EventBean> it = testWindow.iterator();
+        try
+        {
+            it.next();
+            fail();
+        }
+        catch (NoSuchElementException ex)
+        {
+            // expected
+        }
     }
 
-    public void testObjectAndNull()
+    private void addToWindow(long key, String ... names)
     {
-        ArrayDeque<TimeWindowPair> testWindow = new ArrayDeque<TimeWindowPair>();
-
-        ArrayDeque<EventBean> list1 = new ArrayDeque<EventBean>();
-        list1.add(events.get("c"));
-        list1.add(events.get("d"));
-        addToWindow(testWindow, 10L, list1);
-
-        addToWindow(testWindow, 20L, events.get("a"));
-
-        addToWindow(testWindow, 30L, null);
-
-        ArrayDeque<EventBean> list3 = new ArrayDeque<EventBean>();
-        list3.add(events.get("e"));
-        addToWindow(testWindow, 40L, list3);
-
-        Iterator it = new TimeWindowIterator(testWindow);
-        EPAssertionUtil.assertEqualsExactOrder(new Object[]{events.get("c"), events.get("d"), events.get("a"), events.get("e")}, it);
+        for (String name : names)
+        {
+            testWindow.add(key, events.get(name));
+        }
     }
 
-    private void addToWindow(ArrayDeque<TimeWindowPair> testWindow,
-                             long key, 
-                             Object value)
+    private void removeFromWindow(String ... names)
     {
-        testWindow.add(new TimeWindowPair (key, value));
+        for (String name : names)
+        {
+            testWindow.remove(events.get(name));
+        }
     }
 }
@@ -0,0 +1,122 @@
+/*
+ * *************************************************************************************
+ *  Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ *  http://esper.codehaus.org                                                          *
+ *  http://www.espertech.com                                                           *
+ *  ---------------------------------------------------------------------------------- *
+ *  The software in this package is published under the terms of the GPL license       *
+ *  a copy of which has been included with this distribution in the license.txt file.  *
+ * *************************************************************************************
+ */
+
+package com.espertech.esper.core.thread;
+
+import com.espertech.esper.client.EventBean;
+import com.espertech.esper.core.context.mgr.ContextControllerHashedGetterCRC32Single;
+import com.espertech.esper.support.bean.SupportBean;
+import com.espertech.esper.support.bean.SupportBean_S0;
+import com.espertech.esper.support.event.SupportEventBeanFactory;
+import junit.framework.TestCase;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+public class TestInboundPartitionSelector extends TestCase
+{
+    private String typeNameBean;
+    private String typeNameS0;
+
+    public void setUp()
+    {
+        typeNameBean = SupportEventBeanFactory.createObject(new SupportBean()).getEventType().getName();
+        typeNameS0 = SupportEventBeanFactory.createObject(new SupportBean_S0(0)).getEventType().getName();
+    }
+
+    public void testStringKey()
+    {
+        InboundPartitionSelector selector = makeSelector(typeNameBean, "theString", 4);
+        Set<Integer> used = new HashSet<Integer>();
+        for (int i = 0; i < 100; i++) {
+            String key = "K" + i;
+            int partition = selector.getPartition(makeBean(key, i));
+            assertTrue(partition >= 0 && partition < 4);
+            used.add(partition);
+
+            // the same key always maps to the same partition, the one consistent_hash_crc32 computes
+            assertEquals(partition, selector.getPartition(makeBean(key, i + 1000)));
+            assertEquals(ContextControllerHashedGetterCRC32Single.stringToCRC32Hash(key, 4), partition);
+        }
+        assertEquals(4, used.size());
+
+        // a null key maps to the first partition
+        assertEquals(0, selector.getPartition(makeBean(null, 1)));
+        assertEquals(0, selector.getPartition(makeBean(null, 2)));
+    }
+
+    public void testNonStringKey()
+    {
+        InboundPartitionSelector selector = makeSelector(typeNameBean, "intPrimitive", 3);
+        for (int i = -50; i < 50; i++) {
+            int partition = selector.getPartition(makeBean("E" + i, i));
+            assertTrue(partition >= 0 && partition < 3);
+            assertEquals(partition, selector.getPartition(makeBean("X", i)));
+            int expected = i % 3;
+            assertEquals(expected < 0 ? expected + 3 : expected, partition);
+        }
+    }
+
+    public void testRoundRobin()
+    {
+        // events of a type without a key property, and of a type with an invalid key property, go round-robin
+        InboundPartitionSelector selector = makeSelector(typeNameBean, "dummy", 3);
+        assertRoundRobin(selector, makeBean("E1", 1));
+
+        selector = makeSelector(typeNameBean, "theString", 3);
+        assertRoundRobin(selector, SupportEventBeanFactory.createObject(new SupportBean_S0(1, "E1")));
+
+        // keyed events do not advance the round-robin
+        selector = makeSelector(typeNameBean, "theString", 3);
+        EventBean s0 = SupportEventBeanFactory.createObject(new SupportBean_S0(1, "E1"));
+        assertEquals(0, selector.getPartition(s0));
+        selector.getPartition(makeBean("E1", 1));
+        assertEquals(1, selector.getPartition(s0));
+        assertEquals(2, selector.getPartitionRoundRobin());
+        assertEquals(0, selector.getPartition(s0));
+        assertEquals(3, selector.getNumPartitions());
+    }
+
+    public void testMultipleTypes()
+    {
+        Map<String, String> keys = new HashMap<String, String>();
+        keys.put(typeNameBean, "theString");
+        keys.put(typeNameS0, "p00");
+        InboundPartitionSelector selector = new InboundPartitionSelector(keys, 5);
+
+        // the same string key maps to the same partition regardless of the type
+        for (int i = 0; i < 20; i++) {
+            String key = "K" + i;
+            assertEquals(selector.getPartition(makeBean(key, i)), selector.getPartition(SupportEventBeanFactory.createObject(new SupportBean_S0(i, key))));
+        }
+    }
+
+    private void assertRoundRobin(InboundPartitionSelector selector, EventBean theEvent)
+    {
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i % 3, selector.getPartition(theEvent));
+        }
+    }
+
+    private static InboundPartitionSelector makeSelector(String typeName, String property, int numPartitions)
+    {
+        Map<String, String> keys = new HashMap<String, String>();
+        keys.put(typeName, property);
+        return new InboundPartitionSelector(keys, numPartitions);
+    }
+
+    private static EventBean makeBean(String theString, int intPrimitive)
+    {
+        return SupportEventBeanFactory.createObject(new SupportBean(theString, intPrimitive));
+    }
+}
@@ -0,0 +1,355 @@
+/*
+ * *************************************************************************************
+ *  Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ *  http://esper.codehaus.org                                                          *
+ *  http://www.espertech.com                                                           *
+ *  ---------------------------------------------------------------------------------- *
+ *  The software in this package is published under the terms of the GPL license       *
+ *  a copy of which has been included with this distribution in the license.txt file.  *
+ * *************************************************************************************
+ */
+
+package com.espertech.esper.core.thread;
+
+import com.espertech.esper.client.ConfigurationEngineDefaults;
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+public class TestThreadingRingBuffer extends TestCase
+{
+    private ExecutorService executor;
+
+    public void setUp()
+    {
+        executor = Executors.newCachedThreadPool();
+    }
+
+    public void tearDown()
+    {
+        executor.shutdownNow();
+    }
+
+    public void testCapacity()
+    {
+        assertEquals(2, makeBuffer(0, false).getCapacity());
+        assertEquals(2, makeBuffer(1, false).getCapacity());
+        assertEquals(4, makeBuffer(3, false).getCapacity());
+        assertEquals(4, makeBuffer(4, false).getCapacity());
+        assertEquals(8192, makeBuffer(5000, false).getCapacity());
+    }
+
+    public void testSequenceLaps()
+    {
+        for (boolean singleProducer : new boolean[] {false, true}) {
+            ThreadingRingBuffer buffer = makeBuffer(4, singleProducer);
+            long expected = 0;
+            for (int lap = 0; lap < 5; lap++) {
+                // fill the buffer completely
+                long[] sequences = new long[4];
+                for (int i = 0; i < 4; i++) {
+                    sequences[i] = buffer.next();
+                    assertEquals(expected + i, sequences[i]);
+                    assertSame(buffer.get(sequences[i]), buffer.get(sequences[i] + 4));
+                    buffer.get(sequences[i]).setUnit(new SupportRunnable(expected + i));
+                    buffer.publish(sequences[i]);
+                }
+                assertEquals(4, buffer.size());
+                assertEquals(-1, buffer.tryNext());
+
+                // the slot of the next lap is free only after it was released
+                long first = buffer.take();
+                assertEquals(expected, first);
+                assertEquals(-1, buffer.tryNext());
+                assertEquals(expected, ((SupportRunnable) getUnit(buffer, first)).getValue());
+                buffer.release(first);
+                long next = buffer.tryNext();
+                assertEquals(expected + 4, next);
+                buffer.get(next).setUnit(new SupportRunnable(expected + 4));
+                buffer.publish(next);
+
+                for (int i = 1; i <= 4; i++) {
+                    long sequence = buffer.take();
+                    assertEquals(expected + i, sequence);
+                    assertEquals(expected + i, ((SupportRunnable) getUnit(buffer, sequence)).getValue());
+                    buffer.release(sequence);
+                }
+                assertEquals(0, buffer.size());
+                expected += 5;
+            }
+        }
+    }
+
+    public void testUnpublishedSlotNotTaken() throws Exception
+    {
+        ThreadingRingBuffer buffer = makeBuffer(4, false);
+        long first = buffer.next();
+        long second = buffer.next();
+        buffer.publish(second);
+
+        // the consumer waits for the first sequence even though the second is published
+        Future<Long> take = executor.submit(new TakeCallable(buffer));
+        assertNotDone(take);
+        buffer.publish(first);
+        assertEquals(first, (long) take.get(10, TimeUnit.SECONDS));
+        assertEquals(second, buffer.take());
+    }
+
+    public void testFullBufferWait() throws Exception
+    {
+        for (ConfigurationEngineDefaults.Threading.ThreadPoolWaitStrategy strategy : ConfigurationEngineDefaults.Threading.ThreadPoolWaitStrategy.values()) {
+            ThreadingRingBuffer buffer = new ThreadingRingBuffer(2, false, strategy);
+            try {
+                buffer.publish(buffer.next());
+                buffer.publish(buffer.next());
+
+                Future<Long> next = executor.submit(new NextCallable(buffer));
+                assertNotDone(next);
+                buffer.release(buffer.take());
+                assertEquals(2L, (long) next.get(10, TimeUnit.SECONDS));
+            }
+            finally {
+                buffer.shutdown();
+            }
+        }
+    }
+
+    public void testShutdownWhileWaiting() throws Exception
+    {
+        for (ConfigurationEngineDefaults.Threading.ThreadPoolWaitStrategy strategy : ConfigurationEngineDefaults.Threading.ThreadPoolWaitStrategy.values()) {
+            ThreadingRingBuffer empty = new ThreadingRingBuffer(2, false, strategy);
+            ThreadingRingBuffer full = new ThreadingRingBuffer(2, false, strategy);
+            try {
+                // consumers waiting on an empty buffer
+                List<Future<Long>> takes = new ArrayList<Future<Long>>();
+                for (int i = 0; i < 2; i++) {
+                    takes.add(executor.submit(new TakeCallable(empty)));
+                }
+
+                // producers waiting on a full buffer
+                full.publish(full.next());
+                full.publish(full.next());
+                List<Future<Long>> nexts = new ArrayList<Future<Long>>();
+                for (int i = 0; i < 2; i++) {
+                    nexts.add(executor.submit(new NextCallable(full)));
+                }
+
+                assertNotDone(takes.get(0));
+                assertNotDone(nexts.get(0));
+                empty.shutdown();
+                full.shutdown();
+                for (Future<Long> future : takes) {
+                    assertEquals(-1L, (long) future.get(10, TimeUnit.SECONDS));
+                }
+                for (Future<Long> future : nexts) {
+                    assertEquals(-1L, (long) future.get(10, TimeUnit.SECONDS));
+                }
+                assertTrue(full.isShutdown());
+                assertEquals(-1, full.next());
+                assertEquals(-1, full.tryNext());
+                assertEquals(-1, full.take());
+            }
+            finally {
+                // spinning threads do not respond to interrupts
+                empty.shutdown();
+                full.shutdown();
+            }
+        }
+    }
+
+    public void testMultiProducerMultiConsumer() throws Exception
+    {
+        final int numProducers = 4;
+        final int numConsumers = 3;
+
+        for (ConfigurationEngineDefaults.Threading.ThreadPoolWaitStrategy strategy : ConfigurationEngineDefaults.Threading.ThreadPoolWaitStrategy.values()) {
+            // busy spinning threads only hand over the CPU at the end of their time slice when there are fewer cores than threads
+            boolean isSpin = strategy == ConfigurationEngineDefaults.Threading.ThreadPoolWaitStrategy.BUSY_SPIN;
+            final int numPerProducer = isSpin && Runtime.getRuntime().availableProcessors() < numProducers + numConsumers ? 200 : 20000;
+            final ThreadingRingBuffer buffer = new ThreadingRingBuffer(16, false, strategy);
+            try {
+                final int[][] counts = new int[numProducers][numPerProducer];
+
+                List<Future<Object>> consumers = new ArrayList<Future<Object>>();
+                for (int i = 0; i < numConsumers; i++) {
+                    consumers.add(executor.submit(new Callable<Object>() {
+                        public Object call() {
+                            while (true) {
+                                long sequence = buffer.take();
+                                if (sequence < 0) {
+                                    return null;
+                                }
+                                buffer.get(sequence).run();
+                                buffer.release(sequence);
+                            }
+                        }
+                    }));
+                }
+
+                final CountDownLatch done = new CountDownLatch(numProducers * numPerProducer);
+                List<Future<Object>> producers = new ArrayList<Future<Object>>();
+                for (int i = 0; i < numProducers; i++) {
+                    final int producer = i;
+                    producers.add(executor.submit(new Callable<Object>() {
+                        public Object call() {
+                            for (int j = 0; j < numPerProducer; j++) {
+                                final int value = j;
+                                long sequence = (j % 2 == 0) ? buffer.next() : buffer.tryNext();
+                                while (sequence < 0) {
+                                    if (buffer.isShutdown()) {
+                                        return null;
+                                    }
+                                    sequence = buffer.tryNext();
+                                }
+                                buffer.get(sequence).setUnit(new Runnable() {
+                                    public void run() {
+                                        synchronized (counts) {
+                                            counts[producer][value]++;
+                                        }
+                                        done.countDown();
+                                    }
+                                });
+                                buffer.publish(sequence);
+                            }
+                            return null;
+                        }
+                    }));
+                }
+
+                for (Future<Object> producer : producers) {
+                    producer.get(60, TimeUnit.SECONDS);
+                }
+                assertTrue(strategy.toString(), done.await(60, TimeUnit.SECONDS));
+                buffer.shutdown();
+                for (Future<Object> consumer : consumers) {
+                    consumer.get(10, TimeUnit.SECONDS);
+                }
+
+                // each unit ran exactly once
+                synchronized (counts) {
+                    for (int i = 0; i < numProducers; i++) {
+                        for (int j = 0; j < numPerProducer; j++) {
+                            assertEquals(strategy + " producer " + i + " value " + j, 1, counts[i][j]);
+                        }
+                    }
+                }
+                assertEquals(0, buffer.size());
+            }
+            finally {
+                buffer.shutdown();
+            }
+        }
+    }
+
+    public void testSingleProducerOrder() throws Exception
+    {
+        final ThreadingRingBuffer buffer = makeBuffer(8, true);
+        final int numEvents = 50000;
+        final List<Long> received = new ArrayList<Long>();
+
+        Future<Object> consumer = executor.submit(new Callable<Object>() {
+            public Object call() {
+                for (int i = 0; i < numEvents; i++) {
+                    long sequence = buffer.take();
+                    received.add(((SupportRunnable) getUnit(buffer, sequence)).getValue());
+                    buffer.release(sequence);
+                }
+                return null;
+            }
+        });
+
+        try {
+            for (int i = 0; i < numEvents; i++) {
+                long sequence = buffer.next();
+                buffer.get(sequence).setUnit(new SupportRunnable(i));
+                buffer.publish(sequence);
+            }
+            consumer.get(60, TimeUnit.SECONDS);
+        }
+        finally {
+            buffer.shutdown();
+        }
+
+        assertEquals(numEvents, received.size());
+        for (int i = 0; i < numEvents; i++) {
+            assertEquals(i, (long) received.get(i));
+        }
+    }
+
+    private static ThreadingRingBuffer makeBuffer(int capacity, boolean singleProducer)
+    {
+        return new ThreadingRingBuffer(capacity, singleProducer, ConfigurationEngineDefaults.Threading.ThreadPoolWaitStrategy.BLOCK);
+    }
+
+    private static Runnable getUnit(ThreadingRingBuffer buffer, long sequence)
+    {
+        // running the slot runs the unit, which records itself
+        SupportRunnable.last.set(null);
+        buffer.get(sequence).run();
+        return SupportRunnable.last.get();
+    }
+
+    private static void assertNotDone(Future<?> future) throws Exception
+    {
+        try {
+            future.get(100, TimeUnit.MILLISECONDS);
+            fail("Expected the call to wait");
+        }
+        catch (TimeoutException ex) {
+            // expected
+        }
+    }
+
+    private static class SupportRunnable implements Runnable
+    {
+        private static final ThreadLocal<SupportRunnable> last = new ThreadLocal<SupportRunnable>();
+        private final long value;
+
+        private SupportRunnable(long value)
+        {
+            this.value = value;
+        }
+
+        public void run()
+        {
+            last.set(this);
+        }
+
+        public long getValue()
+        {
+            return value;
+        }
+    }
+
+    private static class TakeCallable implements Callable<Long>
+    {
+        private final ThreadingRingBuffer buffer;
+
+        private TakeCallable(ThreadingRingBuffer buffer)
+        {
+            this.buffer = buffer;
+        }
+
+        public Long call()
+        {
+            return buffer.take();
+        }
+    }
+
+    private static class NextCallable implements Callable<Long>
+    {
+        private final ThreadingRingBuffer buffer;
+
+        private NextCallable(ThreadingRingBuffer buffer)
+        {
+            this.buffer = buffer;
+        }
+
+        public Long call()
+        {
+            return buffer.next();
+        }
+    }
+}
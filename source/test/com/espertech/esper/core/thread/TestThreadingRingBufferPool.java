@@ -0,0 +1,234 @@
+/*
+ * *************************************************************************************
+ *  Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ *  http://esper.codehaus.org                                                          *
+ *  http://www.espertech.com                                                           *
+ *  ---------------------------------------------------------------------------------- *
+ *  The software in this package is published under the terms of the GPL license       *
+ *  a copy of which has been included with this distribution in the license.txt file.  *
+ * *************************************************************************************
+ */
+
+package com.espertech.esper.core.thread;
+
+import com.espertech.esper.client.ConfigurationEngineDefaults;
+import junit.framework.TestCase;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TestThreadingRingBufferPool extends TestCase
+{
+    private ThreadingRingBufferPool pool;
+
+    public void tearDown()
+    {
+        if (pool != null) {
+            pool.destroy();
+        }
+    }
+
+    public void testSubmit() throws Exception
+    {
+        pool = makePool(4, 2);
+        final CountDownLatch latch = new CountDownLatch(1000);
+        for (int i = 0; i < 1000; i++) {
+            pool.submit(new Runnable() {
+                public void run() {
+                    latch.countDown();
+                }
+            });
+        }
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+    }
+
+    public void testSubmitFromPoolThreadWhenFull() throws Exception
+    {
+        // a single thread and two slots: the pool thread fills the buffer itself, as a route execution thread
+        // routing events does, and would wait for itself to free a slot
+        pool = makePool(2, 1);
+        final CountDownLatch latch = new CountDownLatch(100);
+        final AtomicInteger numInline = new AtomicInteger();
+        final AtomicBoolean submitting = new AtomicBoolean();
+        pool.submit(new Runnable() {
+            public void run() {
+                submitting.set(true);
+                for (int i = 0; i < 100; i++) {
+                    pool.submit(new Runnable() {
+                        public void run() {
+                            // the only pool thread is still submitting: the unit runs inline
+                            if (submitting.get()) {
+                                numInline.incrementAndGet();
+                            }
+                            latch.countDown();
+                        }
+                    });
+                }
+                submitting.set(false);
+            }
+        });
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertEquals(99, numInline.get());
+    }
+
+    public void testSubmitWaitsWhenFull() throws Exception
+    {
+        pool = makePool(2, 1);
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        pool.submit(new Runnable() {
+            public void run() {
+                blocked.countDown();
+                try {
+                    release.await();
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        assertTrue(blocked.await(10, TimeUnit.SECONDS));
+
+        // the running unit holds its slot until it completes, fill the other, the next submit from a non-pool thread waits
+        final CountDownLatch done = new CountDownLatch(2);
+        Runnable count = new Runnable() {
+            public void run() {
+                done.countDown();
+            }
+        };
+        pool.submit(count);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final Runnable countFinal = count;
+            Future<?> future = executor.submit(new Runnable() {
+                public void run() {
+                    pool.submit(countFinal);
+                }
+            });
+            try {
+                future.get(100, TimeUnit.MILLISECONDS);
+                fail("Expected submit to wait");
+            }
+            catch (TimeoutException ex) {
+                // expected
+            }
+            release.countDown();
+            future.get(10, TimeUnit.SECONDS);
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    public void testQueueAndExecutorViews() throws Exception
+    {
+        pool = makePool(8, 1);
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(4);
+
+        ThreadPoolExecutor executor = pool.getExecutor();
+        assertEquals(1, executor.getPoolSize());
+        assertSame(pool.getQueue(), executor.getQueue());
+        executor.execute(new Runnable() {
+            public void run() {
+                blocked.countDown();
+                try {
+                    release.await();
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                done.countDown();
+            }
+        });
+        assertTrue(blocked.await(10, TimeUnit.SECONDS));
+
+        Runnable count = new Runnable() {
+            public void run() {
+                done.countDown();
+            }
+        };
+        BlockingQueue<Runnable> queue = pool.getQueue();
+        assertTrue(queue.isEmpty());
+        assertEquals(8, queue.remainingCapacity());
+        queue.put(count);
+        assertTrue(queue.offer(count));
+        executor.submit(count);
+        assertEquals(3, queue.size());
+        assertEquals(5, queue.remainingCapacity());
+        assertNull(queue.poll());
+        assertFalse(queue.iterator().hasNext());
+
+        release.countDown();
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+
+        pool.destroy();
+        assertTrue(executor.isShutdown());
+        assertEquals(0, executor.getPoolSize());
+        try {
+            executor.execute(count);
+            fail();
+        }
+        catch (RejectedExecutionException ex) {
+            // expected
+        }
+        pool = null;
+    }
+
+    public void testDestroyWhileSubmitWaiting() throws Exception
+    {
+        pool = makePool(1, 1);
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        pool.submit(new Runnable() {
+            public void run() {
+                blocked.countDown();
+                try {
+                    release.await();
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        assertTrue(blocked.await(10, TimeUnit.SECONDS));
+        pool.submit(new Runnable() {
+            public void run() {
+            }
+        });
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> future = executor.submit(new Runnable() {
+                public void run() {
+                    pool.submit(new Runnable() {
+                        public void run() {
+                            fail("Unexpected run after destroy");
+                        }
+                    });
+                }
+            });
+            try {
+                future.get(100, TimeUnit.MILLISECONDS);
+                fail("Expected submit to wait");
+            }
+            catch (TimeoutException ex) {
+                // expected
+            }
+            pool.getRingBuffer().shutdown();
+            future.get(10, TimeUnit.SECONDS);
+            release.countDown();
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static ThreadingRingBufferPool makePool(int capacity, int numThreads)
+    {
+        return new ThreadingRingBufferPool("TestThreadingRingBufferPool", "Test", capacity, numThreads, false, ConfigurationEngineDefaults.Threading.ThreadPoolWaitStrategy.BLOCK);
+    }
+}
@@ -45,7 +45,7 @@ public class TestAggregationServiceFactory extends TestCase
 
         // Test with aggregates and group by
         service = AggregationServiceFactoryFactory.getService(selectAggregateNodes, havingAggregateNodes, orderByAggregateNodes, true, null, null, null, false, null, null, AggregationServiceFactoryServiceImpl.DEFAULT_FACTORY, null);
-        assertTrue(service.getAggregationServiceFactory() instanceof AggSvcGroupByRefcountedNoAccessFactory);
+        assertTrue(service.getAggregationServiceFactory() instanceof AggSvcGroupByPrimitiveFactory);
     }
 
     public void testGetNullService() throws Exception
@@ -0,0 +1,397 @@
+/*
+ * *************************************************************************************
+ *  Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ *  http://esper.codehaus.org                                                          *
+ *  http://www.espertech.com                                                           *
+ *  ---------------------------------------------------------------------------------- *
+ *  The software in this package is published under the terms of the GPL license       *
+ *  a copy of which has been included with this distribution in the license.txt file.  *
+ * *************************************************************************************
+ */
+
+
+package com.espertech.esper.epl.agg;
+
+import com.espertech.esper.client.EventBean;
+import com.espertech.esper.client.EventType;
+import com.espertech.esper.collection.MultiKeyUntyped;
+import com.espertech.esper.epl.agg.service.*;
+import com.espertech.esper.epl.core.MethodResolutionService;
+import com.espertech.esper.epl.core.MethodResolutionServiceImpl;
+import com.espertech.esper.epl.expression.*;
+import com.espertech.esper.support.view.SupportStatementContextFactory;
+import com.espertech.esper.type.MinMaxTypeEnum;
+import junit.framework.TestCase;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class TestAggregationServiceGroupByPrimitiveImpl extends TestCase
+{
+    private MethodResolutionService methodResolutionService;
+    private ExprEvaluatorContext exprEvaluatorContext;
+    private Object[] currentValues;
+
+    public void setUp()
+    {
+        methodResolutionService = new MethodResolutionServiceImpl(null, null);
+        exprEvaluatorContext = SupportStatementContextFactory.makeEvaluatorContext();
+    }
+
+    public void testSupported()
+    {
+        assertTrue(AggSvcGroupByPrimitiveFactory.isSupported(new AggregationMethodFactory[] {
+                new ExprSumNodeFactory(methodResolutionService, int.class, false, false),
+                new ExprCountNodeFactory(false, false, null, false),
+                new ExprAvgNodeFactory(Double.class, false, methodResolutionService, false),
+                new ExprStddevNodeFactory(false, Long.class, false),
+                new ExprMinMaxAggrNodeFactory(MinMaxTypeEnum.MAX, Long.class, false, false, false)}));
+
+        assertFalse(AggSvcGroupByPrimitiveFactory.isSupported(new AggregationMethodFactory[0]));
+        assertUnsupported(new ExprSumNodeFactory(methodResolutionService, Integer.class, true, false));
+        assertUnsupported(new ExprSumNodeFactory(methodResolutionService, Integer.class, false, true));
+        assertUnsupported(new ExprSumNodeFactory(methodResolutionService, BigDecimal.class, false, false));
+        assertUnsupported(new ExprCountNodeFactory(true, true, Integer.class, false));
+        assertUnsupported(new ExprAvgNodeFactory(BigDecimal.class, false, methodResolutionService, false));
+        assertUnsupported(new ExprStddevNodeFactory(false, Double.class, true));
+        assertUnsupported(new ExprMinMaxAggrNodeFactory(MinMaxTypeEnum.MIN, Integer.class, true, false, false));
+        assertUnsupported(new ExprMinMaxAggrNodeFactory(MinMaxTypeEnum.MIN, String.class, false, false, false));
+    }
+
+    public void testSameResultsAsDefault()
+    {
+        AggregationMethodFactory[] factories = new AggregationMethodFactory[] {
+                new ExprCountNodeFactory(false, false, null, false),
+                new ExprCountNodeFactory(true, false, Integer.class, false),
+                new ExprSumNodeFactory(methodResolutionService, Integer.class, false, false),
+                new ExprSumNodeFactory(methodResolutionService, Long.class, false, false),
+                new ExprSumNodeFactory(methodResolutionService, Double.class, false, false),
+                new ExprSumNodeFactory(methodResolutionService, Float.class, false, false),
+                new ExprSumNodeFactory(methodResolutionService, Short.class, false, false),
+                new ExprAvgNodeFactory(Integer.class, false, methodResolutionService, false),
+                new ExprStddevNodeFactory(false, Double.class, false)};
+        Class[] valueTypes = new Class[] {Integer.class, Integer.class, Integer.class, Long.class, Double.class, Float.class, Short.class, Integer.class, Double.class};
+
+        for (boolean isReclaim : new boolean[] {true, false})
+        {
+            AggregationService primitive = makePrimitive(factories, isReclaim);
+            AggregationService expected = isReclaim ?
+                    new AggSvcGroupByRefcountedNoAccessImpl(makeEvaluators(factories.length), factories, methodResolutionService) :
+                    new AggSvcGroupByNoAccessImpl(makeEvaluators(factories.length), factories, methodResolutionService);
+
+            // a random length-window-like sequence of entering and leaving rows over a small number of groups
+            Random random = new Random(1000);
+            List<Object[]> window = new ArrayList<Object[]>();
+            for (int i = 0; i < 5000; i++)
+            {
+                boolean isEnter = window.isEmpty() || (window.size() < 50 && random.nextInt(3) != 0);
+                Object[] row;
+                if (isEnter)
+                {
+                    row = new Object[factories.length + 1];
+                    int group = random.nextInt(20);
+                    row[0] = group == 0 ? null : (group % 2 == 0 ? new MultiKeyUntyped(new Object[] {"k", group}) : (Object) ("g" + group));
+                    for (int j = 0; j < factories.length; j++)
+                    {
+                        row[j + 1] = random.nextInt(10) == 0 ? null : makeValue(valueTypes[j], random);
+                    }
+                    window.add(row);
+                }
+                else
+                {
+                    row = window.remove(random.nextInt(window.size()));
+                }
+
+                currentValues = row;
+                if (isEnter)
+                {
+                    expected.applyEnter(new EventBean[1], row[0], exprEvaluatorContext);
+                    primitive.applyEnter(new EventBean[1], row[0], exprEvaluatorContext);
+                }
+                else
+                {
+                    expected.applyLeave(new EventBean[1], row[0], exprEvaluatorContext);
+                    primitive.applyLeave(new EventBean[1], row[0], exprEvaluatorContext);
+                }
+                assertSameValues(expected, primitive, factories.length, row[0]);
+                assertSameValues(expected, primitive, factories.length, "g" + random.nextInt(25));
+            }
+        }
+    }
+
+    public void testMinMaxEver()
+    {
+        AggregationMethodFactory[] factories = new AggregationMethodFactory[] {
+                new ExprMinMaxAggrNodeFactory(MinMaxTypeEnum.MIN, Integer.class, false, false, false),
+                new ExprMinMaxAggrNodeFactory(MinMaxTypeEnum.MAX, Integer.class, false, false, false),
+                new ExprMinMaxAggrNodeFactory(MinMaxTypeEnum.MIN, Long.class, false, false, false),
+                new ExprMinMaxAggrNodeFactory(MinMaxTypeEnum.MAX, Long.class, false, false, false),
+                new ExprMinMaxAggrNodeFactory(MinMaxTypeEnum.MIN, Double.class, false, false, false),
+                new ExprMinMaxAggrNodeFactory(MinMaxTypeEnum.MAX, Double.class, false, false, false)};
+        AggregationService primitive = makePrimitive(factories, true);
+        AggregationService expected = new AggSvcGroupByRefcountedNoAccessImpl(makeEvaluators(factories.length), factories, methodResolutionService);
+
+        Object[][] rows = new Object[][] {
+                {"A", null, null, null, null, null, null},
+                {"A", 5, 5, 5L, 5L, 0.0d, 0.0d},
+                {"A", -3, -3, -3L, -3L, -0.0d, -0.0d},
+                {"B", Integer.MAX_VALUE, Integer.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE, Double.NaN, Double.NaN},
+                {"A", 7, 7, 7L, 7L, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY},
+                {"B", 1, 1, 1L, 1L, 1d, 1d},
+                {"A", null, null, null, null, Double.NaN, Double.NaN}};
+        for (Object[] row : rows)
+        {
+            currentValues = row;
+            expected.applyEnter(new EventBean[1], row[0], exprEvaluatorContext);
+            primitive.applyEnter(new EventBean[1], row[0], exprEvaluatorContext);
+            assertSameValues(expected, primitive, factories.length, "A");
+            assertSameValues(expected, primitive, factories.length, "B");
+        }
+
+        primitive.setCurrentAccess("A", -1);
+        assertEquals(-3, primitive.getValue(0, -1));
+        assertEquals(7, primitive.getValue(1, -1));
+        assertEquals(-3L, primitive.getValue(2, -1));
+        assertEquals(7L, primitive.getValue(3, -1));
+        assertEquals(Double.NEGATIVE_INFINITY, primitive.getValue(4, -1));
+        assertEquals(Double.NaN, primitive.getValue(5, -1));
+    }
+
+    public void testReclaimCollidingKeys()
+    {
+        AggregationMethodFactory[] factories = new AggregationMethodFactory[] {
+                new ExprSumNodeFactory(methodResolutionService, Long.class, false, false),
+                new ExprCountNodeFactory(false, false, null, false)};
+        AggSvcGroupByPrimitiveImpl service = (AggSvcGroupByPrimitiveImpl) makePrimitive(factories, true);
+
+        // keys with the same hash code all compete for the same probe sequence
+        int numKeys = 200;
+        for (int i = 0; i < numKeys; i++)
+        {
+            currentValues = new Object[] {null, (long) i, null};
+            service.applyEnter(new EventBean[1], new CollidingKey(i), exprEvaluatorContext);
+            service.applyEnter(new EventBean[1], new CollidingKey(i), exprEvaluatorContext);
+        }
+        assertEquals(numKeys, service.getNumGroups());
+
+        // remove every other key, removal happens lazily upon the next enter
+        for (int i = 0; i < numKeys; i += 2)
+        {
+            currentValues = new Object[] {null, (long) i, null};
+            service.applyLeave(new EventBean[1], new CollidingKey(i), exprEvaluatorContext);
+            service.applyLeave(new EventBean[1], new CollidingKey(i), exprEvaluatorContext);
+        }
+        service.setCurrentAccess(new CollidingKey(0), -1);
+        assertNull(service.getValue(0, -1));
+        assertEquals(0L, service.getValue(1, -1));
+        assertEquals(numKeys, service.getNumGroups());
+
+        currentValues = new Object[] {null, 1000L, null};
+        service.applyEnter(new EventBean[1], new CollidingKey(numKeys), exprEvaluatorContext);
+        assertEquals(numKeys / 2 + 1, service.getNumGroups());
+
+        for (int i = 0; i < numKeys; i++)
+        {
+            service.setCurrentAccess(new CollidingKey(i), -1);
+            if (i % 2 == 0)
+            {
+                assertNull(service.getValue(0, -1));
+                assertEquals(0L, service.getValue(1, -1));
+            }
+            else
+            {
+                assertEquals(2L * i, service.getValue(0, -1));
+                assertEquals(2L, service.getValue(1, -1));
+            }
+        }
+        service.setCurrentAccess(new CollidingKey(numKeys), -1);
+        assertEquals(1000L, service.getValue(0, -1));
+
+        service.clearResults(exprEvaluatorContext);
+        assertEquals(0, service.getNumGroups());
+        service.setCurrentAccess(new CollidingKey(1), -1);
+        assertNull(service.getValue(0, -1));
+    }
+
+    public void testNoReclaim()
+    {
+        AggregationMethodFactory[] factories = new AggregationMethodFactory[] {
+                new ExprSumNodeFactory(methodResolutionService, Integer.class, false, false)};
+        AggSvcGroupByPrimitiveImpl service = (AggSvcGroupByPrimitiveImpl) makePrimitive(factories, false);
+
+        currentValues = new Object[] {"A", 10};
+        service.applyEnter(new EventBean[1], "A", exprEvaluatorContext);
+        service.applyLeave(new EventBean[1], "A", exprEvaluatorContext);
+        currentValues = new Object[] {"B", 1};
+        service.applyEnter(new EventBean[1], "B", exprEvaluatorContext);
+        assertEquals(2, service.getNumGroups());
+
+        service.setCurrentAccess("C", -1);
+        assertNull(service.getValue(0, -1));
+        assertEquals(3, service.getNumGroups());
+    }
+
+    public void testTrackedAggregators()
+    {
+        AggregationMethodFactory[] factories = new AggregationMethodFactory[] {
+                new ExprSumNodeFactory(methodResolutionService, Integer.class, false, false)};
+        assertTrue(makePrimitive(factories, true) instanceof AggSvcGroupByPrimitiveImpl);
+
+        // a method resolution service that tracks aggregators gets the generic services
+        methodResolutionService = new MethodResolutionServiceImpl(null, null) {
+            public boolean isTrackAggregators()
+            {
+                return true;
+            }
+        };
+        assertTrue(makePrimitive(factories, true) instanceof AggSvcGroupByRefcountedNoAccessImpl);
+        assertTrue(makePrimitive(factories, false) instanceof AggSvcGroupByNoAccessImpl);
+    }
+
+    public void testManyGroups()
+    {
+        AggregationMethodFactory[] factories = new AggregationMethodFactory[] {
+                new ExprSumNodeFactory(methodResolutionService, Double.class, false, false),
+                new ExprCountNodeFactory(false, false, null, false),
+                new ExprAvgNodeFactory(Double.class, false, methodResolutionService, false)};
+        int numGroups = 50000;
+        Integer[] keys = new Integer[numGroups];
+        for (int i = 0; i < numGroups; i++)
+        {
+            keys[i] = i;
+        }
+        currentValues = new Object[] {null, 2d, null, 2d};
+
+        // enough groups to grow the table several times, all groups leaving to be reclaimed and entering again
+        AggregationService expected = new AggSvcGroupByRefcountedNoAccessImpl(makeEvaluators(factories.length), factories, methodResolutionService);
+        runGroups(expected, keys);
+        AggregationService primitive = makePrimitive(factories, true);
+        runGroups(primitive, keys);
+
+        for (int i = 0; i < numGroups; i++)
+        {
+            assertSameValues(expected, primitive, factories.length, keys[i]);
+        }
+        primitive.setCurrentAccess(keys[12345], -1);
+        assertEquals(2d, primitive.getValue(0, -1));
+        assertEquals(1L, primitive.getValue(1, -1));
+        assertEquals(2d, primitive.getValue(2, -1));
+    }
+
+    private void runGroups(AggregationService service, Integer[] keys)
+    {
+        for (int i = 0; i < keys.length; i++)
+        {
+            service.applyEnter(new EventBean[1], keys[i], exprEvaluatorContext);
+        }
+        for (int i = 0; i < keys.length; i++)
+        {
+            service.applyEnter(new EventBean[1], keys[i], exprEvaluatorContext);
+        }
+        for (int i = 0; i < keys.length; i++)
+        {
+            service.applyLeave(new EventBean[1], keys[i], exprEvaluatorContext);
+        }
+        for (int i = 0; i < keys.length; i++)
+        {
+            service.applyLeave(new EventBean[1], keys[i], exprEvaluatorContext);
+        }
+        for (int i = 0; i < keys.length; i++)
+        {
+            service.applyEnter(new EventBean[1], keys[i], exprEvaluatorContext);
+        }
+    }
+
+    private void assertSameValues(AggregationService expected, AggregationService primitive, int numColumns, Object groupKey)
+    {
+        expected.setCurrentAccess(groupKey, -1);
+        primitive.setCurrentAccess(groupKey, -1);
+        for (int i = 0; i < numColumns; i++)
+        {
+            assertEquals("column " + i + " group " + groupKey, expected.getValue(i, -1), primitive.getValue(i, -1));
+        }
+    }
+
+    private AggregationService makePrimitive(AggregationMethodFactory[] factories, boolean isReclaim)
+    {
+        AggregationServiceFactory factory = new AggSvcGroupByPrimitiveFactory(makeEvaluators(factories.length), factories, isReclaim);
+        return factory.makeService(null, methodResolutionService);
+    }
+
+    private ExprEvaluator[] makeEvaluators(int numColumns)
+    {
+        ExprEvaluator[] evaluators = new ExprEvaluator[numColumns];
+        for (int i = 0; i < numColumns; i++)
+        {
+            final int column = i + 1;
+            evaluators[i] = new ExprEvaluator()
+            {
+                public Object evaluate(EventBean[] eventsPerStream, boolean isNewData, ExprEvaluatorContext context)
+                {
+                    return currentValues[column];
+                }
+
+                public Class getType()
+                {
+                    return Object.class;
+                }
+
+                public Map<String, Object> getEventType()
+                {
+                    return null;
+                }
+            };
+        }
+        return evaluators;
+    }
+
+    private static Object makeValue(Class type, Random random)
+    {
+        int value = random.nextInt(2000) - 1000;
+        if (type == Long.class)
+        {
+            return value * 1000000000L;
+        }
+        if (type == Double.class)
+        {
+            return value / 7d;
+        }
+        if (type == Float.class)
+        {
+            return value / 3f;
+        }
+        if (type == Short.class)
+        {
+            return (short) value;
+        }
+        return value * 1000000;
+    }
+
+    private void assertUnsupported(AggregationMethodFactory factory)
+    {
+        assertFalse(AggSvcGroupByPrimitiveFactory.isSupported(new AggregationMethodFactory[] {new ExprCountNodeFactory(false, false, null, false), factory}));
+    }
+
+    private static class CollidingKey
+    {
+        private final int id;
+
+        private CollidingKey(int id)
+        {
+            this.id = id;
+        }
+
+        public int hashCode()
+        {
+            return 1;
+        }
+
+        public boolean equals(Object other)
+        {
+            return (other instanceof CollidingKey) && ((CollidingKey) other).id == id;
+        }
+    }
+}
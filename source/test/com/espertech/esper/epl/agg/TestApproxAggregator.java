@@ -0,0 +1,207 @@
+/*
+ * *************************************************************************************
+ *  Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ *  http://esper.codehaus.org                                                          *
+ *  http://www.espertech.com                                                           *
+ *  ---------------------------------------------------------------------------------- *
+ *  The software in this package is published under the terms of the GPL license       *
+ *  a copy of which has been included with this distribution in the license.txt file.  *
+ * *************************************************************************************
+ */
+package com.espertech.esper.epl.agg;
+
+import com.espertech.esper.epl.agg.aggregator.AggregationMethod;
+import com.espertech.esper.epl.agg.aggregator.AggregatorApproxCountDistinct;
+import com.espertech.esper.epl.agg.aggregator.AggregatorApproxFactory;
+import com.espertech.esper.epl.agg.aggregator.AggregatorApproxPercentile;
+import com.espertech.esper.epl.agg.aggregator.AggregatorApproxTopK;
+import com.espertech.esper.epl.agg.service.AggregationValidationContext;
+import com.espertech.esper.epl.expression.ExprNode;
+import junit.framework.TestCase;
+
+import java.util.Arrays;
+
+public class TestApproxAggregator extends TestCase
+{
+    public void testCountDistinct()
+    {
+        AggregatorApproxCountDistinct agg = new AggregatorApproxCountDistinct(true);
+        assertEquals(0L, agg.getValue());
+        agg.enter("A");
+        agg.enter("B");
+        agg.enter("A");
+        agg.enter(null);
+        assertEquals(2L, agg.getValue());
+
+        agg.leave("A");
+        assertEquals(2L, agg.getValue());
+        agg.leave(null);
+        agg.leave("A");
+        assertEquals(1L, agg.getValue());
+        agg.leave("B");
+        assertEquals(0L, agg.getValue());
+
+        agg.enter("C");
+        agg.clear();
+        assertEquals(0L, agg.getValue());
+    }
+
+    public void testCountDistinctLengthWindow()
+    {
+        // the estimate follows a sliding window instead of growing with the number of values entered
+        AggregatorApproxCountDistinct agg = new AggregatorApproxCountDistinct(true);
+        for (int i = 0; i < 100000; i++)
+        {
+            agg.enter(i);
+            if (i >= 100)
+            {
+                agg.leave(i - 100);
+            }
+        }
+        assertEquals(100, (Long) agg.getValue(), 3);
+    }
+
+    public void testCountDistinctNotRemovable()
+    {
+        AggregatorApproxCountDistinct agg = new AggregatorApproxCountDistinct(false);
+        agg.enter(1);
+        agg.enter(2);
+        agg.leave(1);
+        assertEquals(2L, agg.getValue());
+    }
+
+    public void testPercentile()
+    {
+        AggregatorApproxPercentile agg = new AggregatorApproxPercentile(50);
+        assertNull(agg.getValue());
+        for (int i = 1; i <= 9; i++)
+        {
+            agg.enter(new Object[] {i, null});
+        }
+        agg.enter(new Object[] {null, null});
+        assertEquals(5d, (Double) agg.getValue(), 1e-9);
+
+        agg.clear();
+        assertNull(agg.getValue());
+    }
+
+    public void testTopK()
+    {
+        AggregatorApproxTopK agg = new AggregatorApproxTopK(String.class, 2);
+        assertEquals(0, ((String[]) agg.getValue()).length);
+        enter(agg, "A", "B", "B", "C", "C", "C", null);
+        assertTrue(Arrays.equals(new String[] {"C", "B"}, (String[]) agg.getValue()));
+
+        leave(agg, "C", "C", "C");
+        assertTrue(Arrays.equals(new String[] {"B", "A"}, (String[]) agg.getValue()));
+        leave(agg, "B", "B");
+        assertTrue(Arrays.equals(new String[] {"A"}, (String[]) agg.getValue()));
+
+        agg.clear();
+        assertEquals(0, ((String[]) agg.getValue()).length);
+    }
+
+    public void testTopKMany()
+    {
+        // frequent values displace infrequent candidates
+        AggregatorApproxTopK agg = new AggregatorApproxTopK(Integer.class, 3);
+        for (int i = 0; i < 10000; i++)
+        {
+            agg.enter(new Object[] {i});
+            if (i % 10 == 0)
+            {
+                agg.enter(new Object[] {-1});
+                agg.enter(new Object[] {-2});
+                agg.enter(new Object[] {-2});
+                agg.enter(new Object[] {-3});
+                agg.enter(new Object[] {-3});
+                agg.enter(new Object[] {-3});
+            }
+        }
+        assertTrue(Arrays.equals(new Integer[] {-3, -2, -1}, (Integer[]) agg.getValue()));
+    }
+
+    public void testFactory()
+    {
+        AggregatorApproxFactory factory = makeFactory("approx_count_distinct", new Class[] {String.class}, new Object[] {null}, false);
+        assertEquals(Long.class, factory.getValueType());
+        assertTrue(factory.newAggregator() instanceof AggregatorApproxCountDistinct);
+
+        factory = makeFactory("APPROX_PERCENTILE", new Class[] {double.class, int.class}, new Object[] {null, 50}, false);
+        assertEquals(Double.class, factory.getValueType());
+        AggregationMethod percentile = factory.newAggregator();
+        percentile.enter(new Object[] {1d, 50});
+        percentile.enter(new Object[] {3d, 50});
+        percentile.enter(new Object[] {2d, 50});
+        assertEquals(2d, (Double) percentile.getValue(), 1e-9);
+
+        factory = makeFactory("approx_topk", new Class[] {int.class, int.class}, new Object[] {null, 5}, true);
+        assertEquals(Integer[].class, factory.getValueType());
+        assertTrue(factory.newAggregator() instanceof AggregatorApproxTopK);
+    }
+
+    public void testFactoryInvalid()
+    {
+        tryInvalid("approx_count_distinct", new Class[] {String.class, int.class}, new Object[] {null, 1}, false, false, "requires a single parameter");
+        tryInvalid("approx_count_distinct", new Class[] {String.class}, new Object[] {null}, true, false, "does not support distinct values");
+
+        tryInvalid("approx_percentile", new Class[] {double.class}, new Object[] {null}, false, false, "requires two parameters");
+        tryInvalid("approx_percentile", new Class[] {String.class, int.class}, new Object[] {null, 50}, false, false, "requires two parameters");
+        tryInvalid("approx_percentile", new Class[] {double.class, int.class}, new Object[] {null, null}, false, false, "requires two parameters");
+        tryInvalid("approx_percentile", new Class[] {double.class, int.class}, new Object[] {null, 101}, false, false, "requires two parameters");
+        tryInvalid("approx_percentile", new Class[] {double.class, int.class}, new Object[] {null, 50}, false, true, "does not support data windows");
+
+        tryInvalid("approx_topk", new Class[] {String.class}, new Object[] {null}, false, false, "positive numeric constant");
+        tryInvalid("approx_topk", new Class[] {String.class, int.class}, new Object[] {null, 0}, false, false, "positive numeric constant");
+        tryInvalid("approx_topk", new Class[] {String.class, String.class}, new Object[] {null, "a"}, false, false, "positive numeric constant");
+    }
+
+    private void tryInvalid(String functionName, Class[] types, Object[] constants, boolean distinct, boolean windowed, String expected)
+    {
+        AggregatorApproxFactory factory = new AggregatorApproxFactory();
+        factory.setFunctionName(functionName);
+        try
+        {
+            factory.validate(makeContext(types, constants, distinct, windowed));
+            fail();
+        }
+        catch (IllegalArgumentException ex)
+        {
+            assertTrue(ex.getMessage(), ex.getMessage().contains(expected));
+        }
+    }
+
+    private static AggregatorApproxFactory makeFactory(String functionName, Class[] types, Object[] constants, boolean windowed)
+    {
+        AggregatorApproxFactory factory = new AggregatorApproxFactory();
+        factory.setFunctionName(functionName);
+        factory.validate(makeContext(types, constants, false, windowed));
+        return factory;
+    }
+
+    private static AggregationValidationContext makeContext(Class[] types, Object[] constants, boolean distinct, boolean windowed)
+    {
+        boolean[] isConstant = new boolean[types.length];
+        for (int i = 1; i < types.length; i++)
+        {
+            isConstant[i] = constants[i] != null;
+        }
+        return new AggregationValidationContext(types, isConstant, constants, distinct, windowed, new ExprNode[types.length]);
+    }
+
+    private static void enter(AggregatorApproxTopK agg, String... values)
+    {
+        for (String value : values)
+        {
+            agg.enter(new Object[] {value});
+        }
+    }
+
+    private static void leave(AggregatorApproxTopK agg, String... values)
+    {
+        for (String value : values)
+        {
+            agg.leave(new Object[] {value});
+        }
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * *************************************************************************************
+ *  Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ *  http://esper.codehaus.org                                                          *
+ *  http://www.espertech.com                                                           *
+ *  ---------------------------------------------------------------------------------- *
+ *  The software in this package is published under the terms of the GPL license       *
+ *  a copy of which has been included with this distribution in the license.txt file.  *
+ * *************************************************************************************
+ */
+
+package com.espertech.esper.epl.agg;
+
+import com.espertech.esper.epl.agg.aggregator.AggregationMethod;
+import com.espertech.esper.epl.agg.aggregator.AggregatorMinMax;
+import com.espertech.esper.epl.agg.aggregator.AggregatorMinMaxFIFO;
+import com.espertech.esper.epl.core.MethodResolutionServiceImpl;
+import com.espertech.esper.epl.expression.ExprMinMaxAggrNodeFactory;
+import com.espertech.esper.type.MinMaxTypeEnum;
+import junit.framework.TestCase;
+
+import java.util.LinkedList;
+import java.util.Random;
+
+public class TestMinMaxFIFOAggregator extends TestCase
+{
+    public void testAggregatorMax()
+    {
+        AggregatorMinMaxFIFO agg = new AggregatorMinMaxFIFO(MinMaxTypeEnum.MAX, int.class);
+        assertEquals(null, agg.getValue());
+        agg.enter(10);
+        assertEquals(10, agg.getValue());
+        agg.enter(20);
+        assertEquals(20, agg.getValue());
+        agg.enter(10);
+        assertEquals(20, agg.getValue());
+        agg.enter(null);
+        agg.leave(10);
+        assertEquals(20, agg.getValue());
+        agg.leave(20);
+        assertEquals(10, agg.getValue());
+        agg.leave(null);
+        agg.leave(10);
+        assertEquals(null, agg.getValue());
+        assertFalse(agg.isSortedSetFallback());
+    }
+
+    public void testAggregatorMin()
+    {
+        AggregatorMinMaxFIFO agg = new AggregatorMinMaxFIFO(MinMaxTypeEnum.MIN, Double.class);
+        assertEquals(null, agg.getValue());
+        agg.enter(10d);
+        assertEquals(10d, agg.getValue());
+        agg.enter(20d);
+        assertEquals(10d, agg.getValue());
+        agg.enter(-1.5d);
+        assertEquals(-1.5d, agg.getValue());
+        agg.leave(10d);
+        assertEquals(-1.5d, agg.getValue());
+        agg.leave(20d);
+        assertEquals(-1.5d, agg.getValue());
+        agg.enter(7d);
+        agg.leave(-1.5d);
+        assertEquals(7d, agg.getValue());
+        agg.leave(7d);
+        assertEquals(null, agg.getValue());
+        assertFalse(agg.isSortedSetFallback());
+    }
+
+    public void testReturnTypes()
+    {
+        assertTrue(AggregatorMinMaxFIFO.isSupported(long.class));
+        assertTrue(AggregatorMinMaxFIFO.isSupported(Float.class));
+        assertTrue(AggregatorMinMaxFIFO.isSupported(short.class));
+        assertFalse(AggregatorMinMaxFIFO.isSupported(String.class));
+        assertFalse(AggregatorMinMaxFIFO.isSupported(Number.class));
+
+        AggregatorMinMaxFIFO agg = new AggregatorMinMaxFIFO(MinMaxTypeEnum.MAX, long.class);
+        agg.enter(5L);
+        agg.enter(Long.MIN_VALUE);
+        assertEquals(5L, agg.getValue());
+
+        agg = new AggregatorMinMaxFIFO(MinMaxTypeEnum.MIN, Float.class);
+        agg.enter(1.5f);
+        agg.enter(2.5f);
+        assertEquals(1.5f, agg.getValue());
+
+        agg = new AggregatorMinMaxFIFO(MinMaxTypeEnum.MIN, Short.class);
+        agg.enter((short) 3);
+        assertEquals((short) 3, agg.getValue());
+
+        try {
+            new AggregatorMinMaxFIFO(MinMaxTypeEnum.MIN, String.class);
+            fail();
+        }
+        catch (IllegalArgumentException ex) {
+            // expected
+        }
+    }
+
+    public void testLeaveOutOfOrder()
+    {
+        AggregatorMinMaxFIFO agg = new AggregatorMinMaxFIFO(MinMaxTypeEnum.MAX, Integer.class);
+        agg.enter(1);
+        agg.enter(5);
+        agg.enter(3);
+        agg.leave(5);
+        assertTrue(agg.isSortedSetFallback());
+        assertEquals(3, agg.getValue());
+        agg.enter(4);
+        assertEquals(4, agg.getValue());
+        agg.leave(4);
+        agg.leave(3);
+        assertEquals(1, agg.getValue());
+        agg.leave(1);
+        assertEquals(null, agg.getValue());
+
+        agg.clear();
+        assertFalse(agg.isSortedSetFallback());
+        agg.enter(2);
+        assertEquals(2, agg.getValue());
+
+        // leaving a value that never entered
+        agg.clear();
+        agg.leave(2);
+        assertTrue(agg.isSortedSetFallback());
+        assertEquals(null, agg.getValue());
+    }
+
+    public void testSlidingWindowSameAsSortedSet()
+    {
+        Random random = new Random(1);
+        for (MinMaxTypeEnum minMax : MinMaxTypeEnum.values()) {
+            for (int windowSize : new int[] {1, 2, 3, 10, 100}) {
+                AggregatorMinMax expected = new AggregatorMinMax(minMax, Integer.class);
+                AggregatorMinMaxFIFO agg = new AggregatorMinMaxFIFO(minMax, Integer.class);
+                LinkedList<Integer> window = new LinkedList<Integer>();
+                for (int i = 0; i < 2000; i++) {
+                    Integer value = random.nextInt(10) == 0 ? null : random.nextInt(50);
+                    window.add(value);
+                    expected.enter(value);
+                    agg.enter(value);
+                    // time windows may expire multiple values at once
+                    int expire = window.size() - windowSize + (random.nextInt(20) == 0 ? random.nextInt(windowSize) : 0);
+                    for (int j = 0; j < expire; j++) {
+                        Integer leaving = window.removeFirst();
+                        expected.leave(leaving);
+                        agg.leave(leaving);
+                    }
+                    assertEquals(expected.getValue(), agg.getValue());
+                }
+                assertFalse(agg.isSortedSetFallback());
+            }
+        }
+    }
+
+    public void testFactory()
+    {
+        MethodResolutionServiceImpl methodResolutionService = new MethodResolutionServiceImpl(null, null);
+        AggregationMethod method = new ExprMinMaxAggrNodeFactory(MinMaxTypeEnum.MAX, int.class, true, true, false, false).make(methodResolutionService, 0, 0, 0);
+        assertTrue(method instanceof AggregatorMinMaxFIFO);
+
+        method = new ExprMinMaxAggrNodeFactory(MinMaxTypeEnum.MAX, int.class, true, false, false, false).make(methodResolutionService, 0, 0, 0);
+        assertTrue(method instanceof AggregatorMinMax);
+
+        method = new ExprMinMaxAggrNodeFactory(MinMaxTypeEnum.MAX, String.class, true, true, false, false).make(methodResolutionService, 0, 0, 0);
+        assertTrue(method instanceof AggregatorMinMax);
+
+        method = new ExprMinMaxAggrNodeFactory(MinMaxTypeEnum.MAX, int.class, true, true, true, false).make(methodResolutionService, 0, 0, 0);
+        assertFalse(method instanceof AggregatorMinMaxFIFO);
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * *************************************************************************************
+ *  Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ *  http://esper.codehaus.org                                                          *
+ *  http://www.espertech.com                                                           *
+ *  ---------------------------------------------------------------------------------- *
+ *  The software in this package is published under the terms of the GPL license       *
+ *  a copy of which has been included with this distribution in the license.txt file.  *
+ * *************************************************************************************
+ */
+package com.espertech.esper.epl.agg;
+
+import com.espertech.esper.epl.agg.aggregator.AggregatorMedian;
+import com.espertech.esper.epl.agg.aggregator.AggregatorPercentile;
+import com.espertech.esper.epl.agg.aggregator.AggregatorPercentileFactory;
+import com.espertech.esper.epl.agg.aggregator.AggregatorPercentiles;
+import com.espertech.esper.epl.agg.service.AggregationValidationContext;
+import com.espertech.esper.epl.expression.ExprNode;
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class TestPercentileAggregator extends TestCase
+{
+    public void testAggregator()
+    {
+        AggregatorPercentile percentile = new AggregatorPercentile(25);
+        assertNull(percentile.getValue());
+        enter(percentile, 10);
+        assertEquals(10d, percentile.getValue());
+        enter(percentile, 20);
+        assertEquals(12.5d, percentile.getValue());
+        enter(percentile, null);
+        assertEquals(12.5d, percentile.getValue());
+        enter(percentile, 30);
+        enter(percentile, 40);
+        assertEquals(17.5d, percentile.getValue());
+
+        leave(percentile, 10);
+        assertEquals(25d, percentile.getValue());
+        leave(percentile, null);
+        leave(percentile, 20);
+        leave(percentile, 30);
+        assertEquals(40d, percentile.getValue());
+        leave(percentile, 40);
+        assertNull(percentile.getValue());
+
+        enter(percentile, 1);
+        percentile.clear();
+        assertNull(percentile.getValue());
+    }
+
+    public void testBounds()
+    {
+        AggregatorPercentiles percentiles = new AggregatorPercentiles(new double[] {0, 100, 50});
+        assertNull(percentiles.getValue());
+        enter(percentiles, 5);
+        assertTrue(Arrays.equals(new Double[] {5d, 5d, 5d}, (Double[]) percentiles.getValue()));
+        enter(percentiles, 1);
+        enter(percentiles, 1.5f);
+        enter(percentiles, 100L);
+        assertTrue(Arrays.equals(new Double[] {1d, 100d, 3.25d}, (Double[]) percentiles.getValue()));
+    }
+
+    public void testMedianEquivalent()
+    {
+        AggregatorPercentile percentile = new AggregatorPercentile(50);
+        AggregatorMedian median = new AggregatorMedian();
+        Random random = new Random(1);
+        List<Integer> values = new ArrayList<Integer>();
+        for (int i = 0; i < 500; i++)
+        {
+            if ((!values.isEmpty()) && (random.nextInt(3) == 0))
+            {
+                Integer value = values.remove(random.nextInt(values.size()));
+                leave(percentile, value);
+                median.leave(value);
+            }
+            else
+            {
+                int value = random.nextInt(50);
+                values.add(value);
+                enter(percentile, value);
+                median.enter(value);
+            }
+            assertEquals(median.getValue(), percentile.getValue());
+        }
+    }
+
+    public void testRandomCompareSort()
+    {
+        double[] percents = new double[] {0, 1, 10, 33.3, 50, 90, 99.9, 100};
+        AggregatorPercentiles percentiles = new AggregatorPercentiles(percents);
+        Random random = new Random(2);
+        List<Double> values = new ArrayList<Double>();
+        for (int i = 0; i < 2000; i++)
+        {
+            if ((!values.isEmpty()) && (random.nextInt(2) == 0))
+            {
+                leave(percentiles, values.remove(random.nextInt(values.size())));
+            }
+            else
+            {
+                double value = random.nextInt(1000) / 10d;
+                values.add(value);
+                enter(percentiles, value);
+            }
+
+            Double[] result = (Double[]) percentiles.getValue();
+            if (values.isEmpty())
+            {
+                assertNull(result);
+                continue;
+            }
+            List<Double> sorted = new ArrayList<Double>(values);
+            Collections.sort(sorted);
+            for (int j = 0; j < percents.length; j++)
+            {
+                assertEquals(expectedPercentile(sorted, percents[j]), result[j], 1e-9);
+            }
+        }
+    }
+
+    public void testFactory()
+    {
+        AggregatorPercentileFactory factory = new AggregatorPercentileFactory();
+        factory.setFunctionName("percentile");
+        factory.validate(makeContext(new Class[] {Integer.class, Double.class}, new Object[] {null, 90.5d}, false));
+        assertEquals(Double.class, factory.getValueType());
+        AggregatorPercentile percentile = (AggregatorPercentile) factory.newAggregator();
+        enter(percentile, 1);
+        enter(percentile, 3);
+        assertEquals(2.81d, (Double) percentile.getValue(), 1e-9);
+
+        factory = new AggregatorPercentileFactory();
+        factory.setFunctionName("PERCENTILES");
+        factory.validate(makeContext(new Class[] {double.class, int.class, int.class}, new Object[] {null, 0, 100}, false));
+        assertEquals(Double[].class, factory.getValueType());
+        assertTrue(factory.newAggregator() instanceof AggregatorPercentiles);
+    }
+
+    public void testFactoryInvalid()
+    {
+        // wrong number of parameters
+        tryInvalid("percentile", new Class[] {Integer.class}, new Object[] {null}, false, "requires two parameters");
+        tryInvalid("percentile", new Class[] {Integer.class, int.class, int.class}, new Object[] {null, 1, 2}, false, "requires two parameters");
+        tryInvalid("percentiles", new Class[] {Integer.class}, new Object[] {null}, false, "one or more numeric percentile constants");
+
+        // non-numeric values, non-constant or out-of-range percentiles
+        tryInvalid("percentile", new Class[] {String.class, int.class}, new Object[] {null, 50}, false, "requires two parameters");
+        tryInvalid("percentile", new Class[] {Integer.class, int.class}, new Object[] {null, null}, false, "requires two parameters");
+        tryInvalid("percentile", new Class[] {Integer.class, String.class}, new Object[] {null, "50"}, false, "requires two parameters");
+        tryInvalid("percentile", new Class[] {Integer.class, int.class}, new Object[] {null, -1}, false, "requires two parameters");
+        tryInvalid("percentiles", new Class[] {Integer.class, int.class, double.class}, new Object[] {null, 50, 100.1}, false, "one or more numeric percentile constants");
+        tryInvalid("percentiles", new Class[] {Integer.class, double.class}, new Object[] {null, Double.NaN}, false, "one or more numeric percentile constants");
+
+        // distinct
+        tryInvalid("percentile", new Class[] {Integer.class, int.class}, new Object[] {null, 50}, true, "does not support distinct values");
+    }
+
+    private void tryInvalid(String functionName, Class[] types, Object[] constants, boolean distinct, String expected)
+    {
+        AggregatorPercentileFactory factory = new AggregatorPercentileFactory();
+        factory.setFunctionName(functionName);
+        try
+        {
+            factory.validate(makeContext(types, constants, distinct));
+            fail();
+        }
+        catch (IllegalArgumentException ex)
+        {
+            assertTrue(ex.getMessage(), ex.getMessage().contains(expected));
+        }
+    }
+
+    private static AggregationValidationContext makeContext(Class[] types, Object[] constants, boolean distinct)
+    {
+        boolean[] isConstant = new boolean[types.length];
+        for (int i = 1; i < types.length; i++)
+        {
+            isConstant[i] = constants[i] != null;
+        }
+        return new AggregationValidationContext(types, isConstant, constants, distinct, true, new ExprNode[types.length]);
+    }
+
+    private static double expectedPercentile(List<Double> sorted, double percent)
+    {
+        double rank = percent / 100d * (sorted.size() - 1);
+        int lower = (int) Math.floor(rank);
+        int upper = (int) Math.ceil(rank);
+        return sorted.get(lower) + (sorted.get(upper) - sorted.get(lower)) * (rank - lower);
+    }
+
+    private static void enter(AggregatorPercentile agg, Object value)
+    {
+        agg.enter(new Object[] {value, null});
+    }
+
+    private static void leave(AggregatorPercentile agg, Object value)
+    {
+        agg.leave(new Object[] {value, null});
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * *************************************************************************************
+ *  Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ *  http://esper.codehaus.org                                                          *
+ *  http://www.espertech.com                                                           *
+ *  ---------------------------------------------------------------------------------- *
+ *  The software in this package is published under the terms of the GPL license       *
+ *  a copy of which has been included with this distribution in the license.txt file.  *
+ * *************************************************************************************
+ */
+
+
+package com.espertech.esper.epl.core;
+
+import com.espertech.esper.client.EventBean;
+import junit.framework.TestCase;
+
+import java.util.Map;
+
+public class TestResultSetProcessorGroupKeyScratch extends TestCase
+{
+    public void testReuse()
+    {
+        ResultSetProcessorGroupKeyScratch scratch = new ResultSetProcessorGroupKeyScratch();
+
+        ResultSetProcessorGroupKeyScratch acquired = scratch.acquire();
+        assertSame(scratch, acquired);
+        Object[] keys = acquired.getNewKeys(3);
+        assertTrue(keys.length >= 3);
+        keys[0] = "a";
+        keys[2] = "c";
+        acquired.getKeysAndEvents().put("a", null);
+        acquired.getEventsPerStream()[0] = null;
+        Map<Object, EventBean> map = acquired.getKeysAndEvents();
+        acquired.release();
+
+        // same structures are handed out again, cleared
+        acquired = scratch.acquire();
+        assertSame(scratch, acquired);
+        assertSame(keys, acquired.getNewKeys(2));
+        assertNull(keys[0]);
+        assertNull(keys[2]);
+        assertSame(map, acquired.getKeysAndEvents());
+        assertTrue(map.isEmpty());
+        acquired.release();
+    }
+
+    public void testReentrant()
+    {
+        ResultSetProcessorGroupKeyScratch scratch = new ResultSetProcessorGroupKeyScratch();
+        ResultSetProcessorGroupKeyScratch outer = scratch.acquire();
+        outer.getKeysAndEvents().put("outer", null);
+
+        ResultSetProcessorGroupKeyScratch inner = scratch.acquire();
+        assertNotSame(outer, inner);
+        assertTrue(inner.getKeysAndEvents().isEmpty());
+        inner.release();
+
+        assertEquals(1, outer.getKeysAndEvents().size());
+        outer.release();
+        assertSame(scratch, scratch.acquire());
+    }
+
+    public void testLargeMapReplaced()
+    {
+        // a map that resized would iterate in a different order than a newly-allocated one
+        ResultSetProcessorGroupKeyScratch scratch = new ResultSetProcessorGroupKeyScratch().acquire();
+        Map<Object, EventBean[]> small = scratch.getKeysAndEventsJoin();
+        for (int i = 0; i < 12; i++)
+        {
+            small.put(i, null);
+        }
+        scratch.release();
+        scratch.acquire();
+        assertSame(small, scratch.getKeysAndEventsJoin());
+
+        for (int i = 0; i < 13; i++)
+        {
+            small.put(i, null);
+        }
+        scratch.release();
+        scratch.acquire();
+        assertNotSame(small, scratch.getKeysAndEventsJoin());
+        assertTrue(scratch.getKeysAndEventsJoin().isEmpty());
+    }
+}
@@ -68,6 +68,23 @@ public class TestResultSetProcessorRowPerGroup extends TestCase
         assertEquals(3, result.getSecond().length);
     }
 
+    public void testProcessRepeated()
+    {
+        // group keys and key-event maps are reused between invocations, results must not carry over
+        UniformPair<EventBean[]> result = processor.processViewResult(new EventBean[] {makeEvent(1, 2), makeEvent(3, 4), makeEvent(5, 6)}, null, false);
+        assertEquals(3, result.getFirst().length);
+
+        result = processor.processViewResult(new EventBean[] {makeEvent(1, 2), makeEvent(1, 2)}, null, false);
+        assertEquals(1, result.getFirst().length);
+        assertEquals(1, result.getSecond().length);
+
+        result = processor.processViewResult(null, new EventBean[] {makeEvent(7, 8)}, false);
+        assertEquals(1, result.getFirst().length);
+        assertEquals(1, result.getSecond().length);
+        assertEquals(5, supportAggregationService.getEnterList().size());
+        assertEquals(1, supportAggregationService.getLeaveList().size());
+    }
+
     private EventBean makeEvent(int intPrimitive, int intBoxed)
     {
         SupportBean bean = new SupportBean();
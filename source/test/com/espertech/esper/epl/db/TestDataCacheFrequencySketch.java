@@ -0,0 +1,55 @@
+/*
+ * *************************************************************************************
+ *  Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ *  http://esper.codehaus.org                                                          *
+ *  http://www.espertech.com                                                           *
+ *  ---------------------------------------------------------------------------------- *
+ *  The software in this package is published under the terms of the GPL license       *
+ *  a copy of which has been included with this distribution in the license.txt file.  *
+ * *************************************************************************************
+ */
+
+package com.espertech.esper.epl.db;
+
+import junit.framework.TestCase;
+
+public class TestDataCacheFrequencySketch extends TestCase
+{
+    public void testIncrement()
+    {
+        DataCacheFrequencySketch sketch = new DataCacheFrequencySketch(100);
+        assertEquals(0, sketch.frequency("a"));
+
+        for (int i = 0; i < 5; i++)
+        {
+            sketch.increment("a");
+        }
+        assertEquals(5, sketch.frequency("a"));
+        assertTrue(sketch.frequency("b") < 5);
+
+        // counters saturate
+        for (int i = 0; i < 20; i++)
+        {
+            sketch.increment("a");
+        }
+        assertEquals(15, sketch.frequency("a"));
+    }
+
+    public void testReset()
+    {
+        DataCacheFrequencySketch sketch = new DataCacheFrequencySketch(8);
+        for (int i = 0; i < 15; i++)
+        {
+            sketch.increment("a");
+        }
+        assertEquals(15, sketch.frequency("a"));
+
+        // counting the sample size of accesses halves all counters
+        int count = 0;
+        while ((sketch.frequency("a") == 15) && (count < 1000))
+        {
+            sketch.increment(count++);
+        }
+        assertEquals(7, sketch.frequency("a"));
+    }
+}
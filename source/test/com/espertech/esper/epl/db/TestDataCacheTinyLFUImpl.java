@@ -0,0 +1,260 @@
+/*
+ * *************************************************************************************
+ *  Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ *  http://esper.codehaus.org                                                          *
+ *  http://www.espertech.com                                                           *
+ *  ---------------------------------------------------------------------------------- *
+ *  The software in this package is published under the terms of the GPL license       *
+ *  a copy of which has been included with this distribution in the license.txt file.  *
+ * *************************************************************************************
+ */
+
+package com.espertech.esper.epl.db;
+
+import com.espertech.esper.client.EventBean;
+import com.espertech.esper.client.EventPropertyDescriptor;
+import com.espertech.esper.epl.join.table.EventTable;
+import com.espertech.esper.epl.join.table.UnindexedEventTableList;
+import com.espertech.esper.support.event.SupportEventBeanFactory;
+import com.espertech.esper.support.schedule.SupportSchedulingServiceImpl;
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class TestDataCacheTinyLFUImpl extends TestCase
+{
+    private SupportSchedulingServiceImpl schedulingService;
+
+    public void setUp()
+    {
+        schedulingService = new SupportSchedulingServiceImpl();
+        schedulingService.setTime(0);
+    }
+
+    public void testGetPut()
+    {
+        DataCacheTinyLFUImpl cache = makeCache(3);
+        assertTrue(cache.isActive());
+        assertNull(cache.getCached(make("a")));
+
+        EventTable table = makeTable(1);
+        cache.put(make("a"), table);
+        assertSame(table, cache.getCached(make("a")));
+
+        // null and multiple lookup values
+        cache.put(new Object[] {null}, table);
+        assertSame(table, cache.getCached(new Object[] {null}));
+        cache.put(new Object[] {"a", 1}, table);
+        assertSame(table, cache.getCached(new Object[] {"a", 1}));
+        assertNull(cache.getCached(new Object[] {"a", 2}));
+
+        for (int i = 0; i < 10; i++)
+        {
+            cache.put(make("k" + i), makeTable(1));
+            assertTrue(cache.getSize() <= 3);
+            assertEquals(cache.getSize(), cache.getWeightedSize());
+        }
+    }
+
+    public void testFrequentKeysSurviveScan()
+    {
+        DataCacheTinyLFUImpl cache = makeCache(10);
+        for (int i = 0; i < 10; i++)
+        {
+            assertNull(cache.getCached(make("k" + i)));
+            cache.put(make("k" + i), makeTable(1));
+        }
+        for (int count = 0; count < 5; count++)
+        {
+            for (int i = 0; i < 5; i++)
+            {
+                assertNotNull(cache.getCached(make("k" + i)));
+            }
+        }
+
+        // a least-recently-used cache would evict all keys
+        for (int i = 0; i < 100; i++)
+        {
+            assertNull(cache.getCached(make("scan" + i)));
+            cache.put(make("scan" + i), makeTable(1));
+            assertTrue(cache.getSize() <= 10);
+        }
+        for (int i = 0; i < 5; i++)
+        {
+            assertNotNull("k" + i, cache.getCached(make("k" + i)));
+        }
+        assertTrue(cache.getNumEvictions() >= 95);
+    }
+
+    public void testWeight()
+    {
+        long rowWeight = getRowWeight();
+        long maxWeight = 96 + 10 * rowWeight;
+        DataCacheTinyLFUImpl cache = new DataCacheTinyLFUImpl(0, maxWeight, 0, 0, true, schedulingService, null, null);
+
+        // more then the maximum weight is not cached
+        cache.put(make("large"), makeTable(11));
+        assertNull(cache.getCached(make("large")));
+        assertEquals(0, cache.getWeightedSize());
+
+        cache.put(make("a"), makeTable(10));
+        assertEquals(maxWeight, cache.getWeightedSize());
+        assertNotNull(cache.getCached(make("a")));
+
+        // keys looked up less often then the cached key are not admitted
+        cache.put(make("b"), makeTable(2));
+        assertNull(cache.getCached(make("b")));
+        assertNotNull(cache.getCached(make("a")));
+
+        // keys looked up more often replace the cached key
+        for (int i = 0; i < 4; i++)
+        {
+            for (int count = 0; count < 3; count++)
+            {
+                assertNull(cache.getCached(make("k" + i)));
+            }
+            cache.put(make("k" + i), makeTable(2));
+            assertTrue(cache.getWeightedSize() <= maxWeight);
+        }
+        assertNull(cache.getCached(make("a")));
+        assertEquals(4, cache.getSize());
+        assertEquals(4 * (96 + 2 * rowWeight), cache.getWeightedSize());
+    }
+
+    public void testMaxAgeAndRefreshAhead()
+    {
+        DataCacheTinyLFUImpl cache = new DataCacheTinyLFUImpl(10, 0, 10, 5, true, schedulingService, null, null);
+        EventTable tableOne = makeTable(1);
+        cache.put(make("a"), tableOne);
+        cache.put(make("b"), makeTable(1));
+        assertSame(tableOne, cache.getCached(make("a")));   // "a" is now frequently used
+
+        schedulingService.setTime(6000);
+        assertNull(cache.getCached(make("a")));             // first lookup reloads
+        assertSame(tableOne, cache.getCached(make("a")));   // further lookups use the current entry
+        assertNotNull(cache.getCached(make("b")));          // not frequently used, no refresh-ahead
+
+        EventTable tableTwo = makeTable(1);
+        cache.put(make("a"), tableTwo);
+        assertSame(tableTwo, cache.getCached(make("a")));
+
+        schedulingService.setTime(10001);
+        assertNull(cache.getCached(make("b")));
+        assertEquals(1, cache.getNumEvictions());
+        assertSame(tableTwo, cache.getCached(make("a")));
+
+        schedulingService.setTime(16001);
+        assertNull(cache.getCached(make("a")));
+        assertEquals(2, cache.getNumEvictions());
+        assertEquals(0, cache.getSize());
+    }
+
+    public void testEmptyResults()
+    {
+        EventTable empty = new UnindexedEventTableList(new ArrayList<EventBean>());
+        DataCacheTinyLFUImpl cache = makeCache(10);
+        cache.put(make("a"), empty);
+        assertSame(empty, cache.getCached(make("a")));
+
+        cache = new DataCacheTinyLFUImpl(10, 0, 0, 0, false, schedulingService, null, null);
+        cache.put(make("a"), empty);
+        assertNull(cache.getCached(make("a")));
+        assertEquals(0, cache.getSize());
+    }
+
+    public void testStatistics() throws Exception
+    {
+        DataCacheTinyLFUImpl cache = makeCache(10);
+        assertNull(cache.getCached(make("a")));
+        Thread.sleep(5);
+        cache.put(make("a"), makeTable(1));
+        assertNotNull(cache.getCached(make("a")));
+        assertNotNull(cache.getCached(make("a")));
+        assertNull(cache.getCached(make("b")));
+
+        assertEquals(2, cache.getNumHits());
+        assertEquals(2, cache.getNumMisses());
+        assertEquals(0, cache.getNumEvictions());
+        assertTrue(cache.getLoadTimeNanos() >= 5000000);
+    }
+
+    public void testConcurrent() throws Exception
+    {
+        final DataCacheTinyLFUImpl cache = makeCache(20);
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++)
+        {
+            final int seed = i;
+            threads[i] = new Thread(new Runnable()
+            {
+                public void run()
+                {
+                    try
+                    {
+                        Random random = new Random(seed);
+                        for (int count = 0; count < 5000; count++)
+                        {
+                            // skewed towards low keys
+                            int key = (int) Math.abs(random.nextGaussian() * 20);
+                            if (cache.getCached(make(key)) == null)
+                            {
+                                cache.put(make(key), makeTable(1));
+                            }
+                        }
+                    }
+                    catch (Throwable t)
+                    {
+                        failure.set(t);
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads)
+        {
+            thread.join();
+        }
+
+        assertNull(failure.get());
+        assertTrue(cache.getSize() <= 20);
+        assertEquals(cache.getSize(), cache.getWeightedSize());
+        assertEquals(20000, cache.getNumHits() + cache.getNumMisses());
+    }
+
+    private DataCacheTinyLFUImpl makeCache(int maxSize)
+    {
+        return new DataCacheTinyLFUImpl(maxSize, 0, 0, 0, true, schedulingService, null, null);
+    }
+
+    private long getRowWeight()
+    {
+        EventBean theEvent = SupportEventBeanFactory.makeEvents(new String[] {"x"})[0];
+        long weight = 32;
+        for (EventPropertyDescriptor desc : theEvent.getEventType().getPropertyDescriptors())
+        {
+            weight += DataCacheTinyLFUImpl.getPropertyWeight(desc.getPropertyType());
+        }
+        return weight;
+    }
+
+    private static EventTable makeTable(int numRows)
+    {
+        String[] ids = new String[numRows];
+        for (int i = 0; i < numRows; i++)
+        {
+            ids[i] = "e" + i;
+        }
+        List<EventBean> rows = new ArrayList<EventBean>(Arrays.asList(SupportEventBeanFactory.makeEvents(ids)));
+        return new UnindexedEventTableList(rows);
+    }
+
+    private static Object[] make(Object key)
+    {
+        return new Object[] {key};
+    }
+}
@@ -47,7 +47,7 @@ public class TestDatabasePollingViewable extends TestCase
         pollResults.put(new MultiKey<Object>(new Object[] {500}), new LinkedList<EventBean>());
         SupportPollingStrategy supportPollingStrategy = new SupportPollingStrategy(pollResults);
 
-        pollingViewable = new DatabasePollingViewable(1, inputProperties, supportPollingStrategy, dataCache, resultEventType);
+        pollingViewable = new DatabasePollingViewable(1, inputProperties, supportPollingStrategy, dataCache, resultEventType, null);
 
         Map<Integer, List<ExprNode>> sqlParameters = new HashMap<Integer, List<ExprNode>>();
         sqlParameters.put(1, Collections.singletonList((ExprNode) new ExprIdentNodeImpl("intPrimitive", "s0")));
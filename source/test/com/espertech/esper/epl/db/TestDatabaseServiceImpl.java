@@ -13,6 +13,7 @@ package com.espertech.esper.epl.db;
 
 import junit.framework.TestCase;
 import com.espertech.esper.client.ConfigurationDBRef;
+import com.espertech.esper.client.ConfigurationTinyLFUCache;
 import com.espertech.esper.schedule.SchedulingService;
 import com.espertech.esper.schedule.SchedulingServiceImpl;
 import com.espertech.esper.schedule.ScheduleBucket;
@@ -48,6 +49,11 @@ public class TestDatabaseServiceImpl extends TestCase
         config.setExpiryTimeCache(1, 3);
         configs.put("name3", config);
 
+        config = new ConfigurationDBRef();
+        config.setDataSourceConnection("context", new Properties());
+        config.setTinyLFUCache(new ConfigurationTinyLFUCache(100, 0));
+        configs.put("name4", config);
+
         SchedulingService schedulingService = new SchedulingServiceImpl(new TimeSourceServiceImpl());
         databaseServiceImpl = new DatabaseConfigServiceImpl(configs, schedulingService, new ScheduleBucket(1));
     }
@@ -63,14 +69,17 @@ public class TestDatabaseServiceImpl extends TestCase
 
     public void testGetCache() throws Exception
     {
-        assertTrue(databaseServiceImpl.getDataCache("name1", null) instanceof DataCacheNullImpl);
+        assertTrue(databaseServiceImpl.getDataCache("name1", null, null) instanceof DataCacheNullImpl);
 
-        DataCacheLRUImpl lru = (DataCacheLRUImpl) databaseServiceImpl.getDataCache("name2", null);
+        DataCacheLRUImpl lru = (DataCacheLRUImpl) databaseServiceImpl.getDataCache("name2", null, null);
         assertEquals(10000, lru.getCacheSize());
 
-        DataCacheExpiringImpl exp = (DataCacheExpiringImpl) databaseServiceImpl.getDataCache("name3", null);
+        DataCacheExpiringImpl exp = (DataCacheExpiringImpl) databaseServiceImpl.getDataCache("name3", null, null);
         assertEquals(1000, exp.getMaxAgeMSec());
         assertEquals(3000, exp.getPurgeIntervalMSec());
+
+        DataCacheTinyLFUImpl tinyLFU = (DataCacheTinyLFUImpl) databaseServiceImpl.getDataCache("name4", null, null);
+        assertEquals(0, tinyLFU.getSize());
     }
 
     public void testInvalid()
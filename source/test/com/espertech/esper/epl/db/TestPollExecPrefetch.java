@@ -0,0 +1,301 @@
+/*
+ * *************************************************************************************
+ *  Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ *  http://esper.codehaus.org                                                          *
+ *  http://www.espertech.com                                                           *
+ *  ---------------------------------------------------------------------------------- *
+ *  The software in this package is published under the terms of the GPL license       *
+ *  a copy of which has been included with this distribution in the license.txt file.  *
+ * *************************************************************************************
+ */
+
+package com.espertech.esper.epl.db;
+
+import com.espertech.esper.client.EPException;
+import com.espertech.esper.client.EventBean;
+import com.espertech.esper.collection.MultiKey;
+import com.espertech.esper.collection.MultiKeyUntyped;
+import com.espertech.esper.epl.join.table.UnindexedEventTableList;
+import com.espertech.esper.support.bean.SupportBean;
+import com.espertech.esper.support.event.SupportEventBeanFactory;
+import com.espertech.esper.support.schedule.SupportSchedulingServiceImpl;
+import junit.framework.TestCase;
+
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class TestPollExecPrefetch extends TestCase
+{
+    private Map<MultiKey<Object>, List<EventBean>> pollResults;
+    private DataCache dataCache;
+    private ExecutorService executorService;
+
+    public void setUp()
+    {
+        pollResults = new HashMap<MultiKey<Object>, List<EventBean>>();
+        for (int i = 0; i < 10; i++)
+        {
+            pollResults.put(new MultiKey<Object>(new Object[] {i}), Collections.singletonList(SupportEventBeanFactory.createObject(new SupportBean("E" + i, i))));
+        }
+        dataCache = new DataCacheLRUImpl(100);
+        executorService = Executors.newFixedThreadPool(2);
+    }
+
+    public void tearDown()
+    {
+        executorService.shutdownNow();
+    }
+
+    public void testPrefetchRelease()
+    {
+        SupportPollingStrategyCounting strategy = new SupportPollingStrategyCounting(pollResults);
+        PollExecPrefetch prefetch = new PollExecPrefetch(new PollExecStrategy[] {strategy}, null);
+
+        // keys cached in a concurrent cache and duplicate keys are not polled
+        DataCache concurrentCache = new DataCacheTinyLFUImpl(100, 0, 0, 0, true, new SupportSchedulingServiceImpl(), null, null);
+        concurrentCache.put(new Object[] {3}, new UnindexedEventTableList(pollResults.get(new MultiKey<Object>(new Object[] {3}))));
+        List<MultiKeyUntyped> keys = prefetch.prefetch(makeLookupValues(1, 2, 1, 3, 20), concurrentCache);
+        assertEquals(3, keys.size());
+        assertEquals(3, strategy.getNumPolls());
+        assertEquals(3, prefetch.getNumPrefetched());
+
+        // prefetched keys are not polled again
+        assertTrue(prefetch.prefetch(makeLookupValues(1, 2), dataCache).isEmpty());
+        assertEquals(3, strategy.getNumPolls());
+
+        assertEquals("E1", ((SupportBean) prefetch.get(new Object[] {1}).get(0).getUnderlying()).getTheString());
+        assertSame(prefetch.get(new Object[] {1}), prefetch.get(new Object[] {1}));
+        assertTrue(prefetch.get(new Object[] {20}).isEmpty());
+        assertNull(prefetch.get(new Object[] {3}));
+
+        prefetch.release(keys);
+        assertEquals(0, prefetch.getNumPrefetched());
+        assertNull(prefetch.get(new Object[] {2}));
+        prefetch.destroy();
+        assertEquals(1, strategy.getNumDestroyed());
+    }
+
+    public void testCacheNotConcurrent()
+    {
+        SupportPollingStrategyCounting strategy = new SupportPollingStrategyCounting(pollResults);
+        PollExecPrefetch prefetch = new PollExecPrefetch(new PollExecStrategy[] {strategy}, null);
+
+        // a cache that is not safe for concurrent use is not consulted outside of the statement lock
+        assertFalse(dataCache.isConcurrent());
+        dataCache.put(new Object[] {3}, new UnindexedEventTableList(pollResults.get(new MultiKey<Object>(new Object[] {3}))));
+        List<MultiKeyUntyped> keys = prefetch.prefetch(makeLookupValues(1, 3, 1), dataCache);
+        assertEquals(2, keys.size());
+        assertEquals(2, strategy.getNumPolls());
+        assertEquals("E3", ((SupportBean) prefetch.get(new Object[] {3}).get(0).getUnderlying()).getTheString());
+
+        prefetch.release(keys);
+        prefetch.destroy();
+    }
+
+    public void testConcurrent()
+    {
+        // each poll waits for all polls to start, so that all polls run concurrently
+        CountDownLatch startLatch = new CountDownLatch(3);
+        PollExecStrategy[] strategies = new PollExecStrategy[3];
+        for (int i = 0; i < strategies.length; i++)
+        {
+            strategies[i] = new SupportPollingStrategyCounting(pollResults, startLatch);
+        }
+        PollExecPrefetch prefetch = new PollExecPrefetch(strategies, executorService);
+
+        List<MultiKeyUntyped> keys = prefetch.prefetch(makeLookupValues(0, 1, 2, 3, 4, 5, 6), dataCache);
+        assertEquals(7, keys.size());
+        assertEquals(7, prefetch.getNumPrefetched());
+
+        // keys are distributed among strategies, each used on a separate thread
+        Set<Thread> threads = new HashSet<Thread>();
+        int numPolls = 0;
+        for (PollExecStrategy strategy : strategies)
+        {
+            SupportPollingStrategyCounting counting = (SupportPollingStrategyCounting) strategy;
+            assertTrue(counting.getNumPolls() >= 2);
+            assertEquals(1, counting.getNumStarted());
+            assertEquals(1, counting.getNumDone());
+            numPolls += counting.getNumPolls();
+            threads.add(counting.getLastThread());
+        }
+        assertEquals(7, numPolls);
+        assertEquals(3, threads.size());
+        assertTrue(threads.contains(Thread.currentThread()));
+
+        for (int i = 0; i < 7; i++)
+        {
+            assertEquals(i, ((SupportBean) prefetch.get(new Object[] {i}).get(0).getUnderlying()).getIntPrimitive());
+        }
+        prefetch.destroy();
+    }
+
+    public void testPoolBusy() throws Exception
+    {
+        // occupy all pool threads
+        final CountDownLatch releaseLatch = new CountDownLatch(1);
+        for (int i = 0; i < 2; i++)
+        {
+            executorService.submit(new Runnable()
+            {
+                public void run()
+                {
+                    try
+                    {
+                        releaseLatch.await();
+                    }
+                    catch (InterruptedException e)
+                    {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+        }
+
+        PollExecStrategy[] strategies = new PollExecStrategy[3];
+        for (int i = 0; i < strategies.length; i++)
+        {
+            strategies[i] = new SupportPollingStrategyCounting(pollResults);
+        }
+        PollExecPrefetch prefetch = new PollExecPrefetch(strategies, executorService);
+
+        // the calling thread performs the polls that no pool thread started
+        List<MultiKeyUntyped> keys = prefetch.prefetch(makeLookupValues(0, 1, 2, 3, 4), dataCache);
+        assertEquals(5, keys.size());
+        assertEquals(5, prefetch.getNumPrefetched());
+        for (PollExecStrategy strategy : strategies)
+        {
+            SupportPollingStrategyCounting counting = (SupportPollingStrategyCounting) strategy;
+            assertEquals(1, counting.getNumDone());
+            assertSame(Thread.currentThread(), counting.getLastThread());
+        }
+
+        releaseLatch.countDown();
+        executorService.shutdown();
+        assertTrue(executorService.awaitTermination(10, TimeUnit.SECONDS));
+        prefetch.destroy();
+    }
+
+    public void testPollFails()
+    {
+        PollExecStrategy[] strategies = new PollExecStrategy[2];
+        strategies[0] = new SupportPollingStrategyCounting(pollResults);
+        strategies[1] = new SupportPollingStrategyCounting(pollResults) {
+            public List<EventBean> poll(Object[] lookupValues)
+            {
+                throw new EPException("Poll failed");
+            }
+        };
+        PollExecPrefetch prefetch = new PollExecPrefetch(strategies, executorService);
+
+        try
+        {
+            prefetch.prefetch(makeLookupValues(0, 1, 2, 3), dataCache);
+            fail();
+        }
+        catch (EPException ex)
+        {
+            assertEquals("Poll failed", ex.getMessage());
+        }
+        assertEquals(0, prefetch.getNumPrefetched());
+        assertEquals(1, ((SupportPollingStrategyCounting) strategies[1]).getNumDone());
+        prefetch.destroy();
+    }
+
+    private List<Object[]> makeLookupValues(int ... values)
+    {
+        List<Object[]> lookupValues = new ArrayList<Object[]>();
+        for (int value : values)
+        {
+            lookupValues.add(new Object[] {value});
+        }
+        return lookupValues;
+    }
+
+    private static class SupportPollingStrategyCounting extends SupportPollingStrategy
+    {
+        private int numStarted;
+        private int numDone;
+        private int numPolls;
+        private int numDestroyed;
+        private Thread lastThread;
+        private final CountDownLatch startLatch;
+
+        private SupportPollingStrategyCounting(Map<MultiKey<Object>, List<EventBean>> results)
+        {
+            this(results, null);
+        }
+
+        private SupportPollingStrategyCounting(Map<MultiKey<Object>, List<EventBean>> results, CountDownLatch startLatch)
+        {
+            super(results);
+            this.startLatch = startLatch;
+        }
+
+        public void start()
+        {
+            numStarted++;
+            if (startLatch == null)
+            {
+                return;
+            }
+            startLatch.countDown();
+            try
+            {
+                if (!startLatch.await(10, TimeUnit.SECONDS))
+                {
+                    throw new EPException("Timeout waiting for concurrent polls to start");
+                }
+            }
+            catch (InterruptedException e)
+            {
+                throw new EPException(e);
+            }
+        }
+
+        public List<EventBean> poll(Object[] lookupValues)
+        {
+            numPolls++;
+            lastThread = Thread.currentThread();
+            return super.poll(lookupValues);
+        }
+
+        public void done()
+        {
+            numDone++;
+        }
+
+        public void destroy()
+        {
+            numDestroyed++;
+        }
+
+        public int getNumStarted()
+        {
+            return numStarted;
+        }
+
+        public int getNumDone()
+        {
+            return numDone;
+        }
+
+        public int getNumPolls()
+        {
+            return numPolls;
+        }
+
+        public int getNumDestroyed()
+        {
+            return numDestroyed;
+        }
+
+        public Thread getLastThread()
+        {
+            return lastThread;
+        }
+    }
+}
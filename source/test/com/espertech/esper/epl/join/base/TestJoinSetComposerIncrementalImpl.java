@@ -0,0 +1,167 @@
+/*
+ * *************************************************************************************
+ *  Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ *  http://esper.codehaus.org                                                          *
+ *  http://www.espertech.com                                                           *
+ *  ---------------------------------------------------------------------------------- *
+ *  The software in this package is published under the terms of the GPL license       *
+ *  a copy of which has been included with this distribution in the license.txt file.  *
+ * *************************************************************************************
+ */
+
+package com.espertech.esper.epl.join.base;
+
+import com.espertech.esper.client.EventBean;
+import com.espertech.esper.collection.MultiKey;
+import com.espertech.esper.collection.UniformPair;
+import com.espertech.esper.epl.expression.ExprEvaluator;
+import com.espertech.esper.epl.expression.ExprEvaluatorContext;
+import com.espertech.esper.epl.join.exec.base.FullTableScanLookupStrategy;
+import com.espertech.esper.epl.join.exec.base.TableLookupExecNode;
+import com.espertech.esper.epl.join.table.EventTable;
+import com.espertech.esper.epl.join.table.UnindexedEventTable;
+import com.espertech.esper.support.bean.SupportBean;
+import com.espertech.esper.support.event.SupportEventBeanFactory;
+import junit.framework.TestCase;
+
+import java.util.*;
+
+public class TestJoinSetComposerIncrementalImpl extends TestCase
+{
+    private EventBean[] indexedEventOne, indexedEventTwo, newEventOne, newEventTwo;
+    private Map<String,EventTable>[] indexes;
+    private QueryStrategy[] queryStrategies;
+
+    public void setUp()
+    {
+        indexedEventOne = SupportEventBeanFactory.makeEvents(new String[] { "s1_1", "s1_2"});
+        indexedEventTwo = SupportEventBeanFactory.makeEvents(new String[] { "s2_1", "s2_2"});
+
+        newEventOne = SupportEventBeanFactory.makeEvents(new String[] { "s1_3"});
+        newEventTwo = SupportEventBeanFactory.makeEvents(new String[] { "s2_3"});
+
+        UnindexedEventTable indexLeft = new UnindexedEventTable(1);
+        UnindexedEventTable indexRight = new UnindexedEventTable(1);
+
+        queryStrategies = new QueryStrategy[2];
+        TableLookupExecNode lookupLeft = new TableLookupExecNode(1, new FullTableScanLookupStrategy(indexRight));
+        TableLookupExecNode lookupRight = new TableLookupExecNode(0, new FullTableScanLookupStrategy(indexLeft));
+        queryStrategies[0] = new ExecNodeQueryStrategy(0, 2, lookupLeft);
+        queryStrategies[1] = new ExecNodeQueryStrategy(1, 2, lookupRight);
+
+        indexes = new Map[2];
+        indexes[0] = new HashMap<String,EventTable>();
+        indexes[1] = new HashMap<String,EventTable>();
+        indexes[0].put("idxLeft", indexLeft);
+        indexes[1].put("idxLeft", indexRight);
+    }
+
+    public void testJoin()
+    {
+        JoinSetComposerIncrementalImpl composer = makeComposer(null);
+        composer.init(new EventBean[][] {indexedEventOne, indexedEventTwo});
+
+        // same result as when joining the old data
+        UniformPair<Set<MultiKey<EventBean>>> result = composer.join(
+                new EventBean[][] {newEventOne, newEventTwo},
+                new EventBean[][] {new EventBean[] {indexedEventOne[0]}, new EventBean[] {indexedEventTwo[1]}},
+                null);
+        assertRows(result.getSecond(), "s1_1|s2_1", "s1_1|s2_2", "s1_2|s2_2");
+        assertRows(result.getFirst(), "s1_2|s2_3", "s1_3|s2_1", "s1_3|s2_3");
+        assertEquals(4, composer.getNumRows());
+
+        result = composer.join(
+                new EventBean[2][],
+                new EventBean[][] {newEventOne, null},
+                null);
+        assertRows(result.getSecond(), "s1_3|s2_1", "s1_3|s2_3");
+        assertRows(result.getFirst());
+        assertEquals(2, composer.getNumRows());
+
+        result = composer.join(
+                new EventBean[2][],
+                new EventBean[][] {new EventBean[] {indexedEventOne[1]}, new EventBean[] {indexedEventTwo[0]}},
+                null);
+        assertRows(result.getSecond(), "s1_2|s2_1", "s1_2|s2_3");
+        assertEquals(0, composer.getNumRows());
+
+        composer.destroy();
+        assertEquals(0, composer.getNumRows());
+    }
+
+    public void testJoinNewAndOldSameEvent()
+    {
+        JoinSetComposerIncrementalImpl composer = makeComposer(null);
+        composer.init(new EventBean[][] {null, indexedEventTwo});
+
+        // the event leaves the stream at the same time as it enters the stream
+        UniformPair<Set<MultiKey<EventBean>>> result = composer.join(
+                new EventBean[][] {newEventOne, null},
+                new EventBean[][] {newEventOne, null},
+                null);
+        assertRows(result.getFirst(), "s1_3|s2_1", "s1_3|s2_2");
+        assertRows(result.getSecond());
+        assertEquals(0, composer.getNumRows());
+
+        result = composer.join(
+                new EventBean[][] {indexedEventOne, null},
+                new EventBean[2][],
+                null);
+        assertRows(result.getFirst(), "s1_1|s2_1", "s1_1|s2_2", "s1_2|s2_1", "s1_2|s2_2");
+        assertEquals(4, composer.getNumRows());
+    }
+
+    public void testJoinFiltered()
+    {
+        // filter rows for s2_2
+        ExprEvaluator filter = new ExprEvaluator() {
+            public Object evaluate(EventBean[] eventsPerStream, boolean isNewData, ExprEvaluatorContext context)
+            {
+                return !((SupportBean) eventsPerStream[1].getUnderlying()).getTheString().equals("s2_2");
+            }
+
+            public Class getType()
+            {
+                return Boolean.class;
+            }
+
+            public Map<String, Object> getEventType()
+            {
+                return null;
+            }
+        };
+        JoinSetComposerIncrementalImpl composer = makeComposer(filter);
+
+        UniformPair<Set<MultiKey<EventBean>>> result = composer.join(
+                new EventBean[][] {indexedEventOne, indexedEventTwo},
+                new EventBean[2][],
+                null);
+        assertRows(result.getFirst(), "s1_1|s2_1", "s1_2|s2_1");
+        assertEquals(2, composer.getNumRows());
+        assertRows(composer.staticJoin(), "s1_1|s2_1", "s1_2|s2_1");
+
+        result = composer.join(
+                new EventBean[2][],
+                new EventBean[][] {null, indexedEventTwo},
+                null);
+        assertRows(result.getSecond(), "s1_1|s2_1", "s1_2|s2_1");
+        assertEquals(0, composer.getNumRows());
+    }
+
+    private JoinSetComposerIncrementalImpl makeComposer(ExprEvaluator filter)
+    {
+        JoinSetComposerImpl joinSetComposerImpl = new JoinSetComposerImpl(indexes, queryStrategies, false, null, false);
+        return new JoinSetComposerIncrementalImpl(joinSetComposerImpl, filter, 2, null);
+    }
+
+    private void assertRows(Set<MultiKey<EventBean>> rows, String ... expected)
+    {
+        List<String> received = new ArrayList<String>();
+        for (MultiKey<EventBean> row : rows)
+        {
+            received.add(((SupportBean) row.get(0).getUnderlying()).getTheString() + "|" + ((SupportBean) row.get(1).getUnderlying()).getTheString());
+        }
+        Collections.sort(received);
+        assertEquals(Arrays.asList(expected), received);
+    }
+}
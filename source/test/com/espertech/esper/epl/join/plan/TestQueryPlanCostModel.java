@@ -0,0 +1,126 @@
+/*
+ * *************************************************************************************
+ *  Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ *  http://esper.codehaus.org                                                          *
+ *  http://www.espertech.com                                                           *
+ *  ---------------------------------------------------------------------------------- *
+ *  The software in this package is published under the terms of the GPL license       *
+ *  a copy of which has been included with this distribution in the license.txt file.  *
+ * *************************************************************************************
+ */
+
+package com.espertech.esper.epl.join.plan;
+
+import com.espertech.esper.client.EventType;
+import com.espertech.esper.support.bean.SupportBean_S0;
+import com.espertech.esper.support.bean.SupportBean_S1;
+import com.espertech.esper.support.bean.SupportBean_S2;
+import com.espertech.esper.support.epl.SupportExprNodeFactory;
+import com.espertech.esper.support.event.SupportEventAdapterService;
+import com.espertech.esper.type.RelationalOpEnum;
+import junit.framework.TestCase;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+public class TestQueryPlanCostModel extends TestCase
+{
+    private EventType[] typesPerStream;
+    private QueryGraph queryGraph;
+    private QueryPlanIndex[] indexSpecs;
+
+    public void setUp()
+    {
+        typesPerStream = new EventType[] {
+                SupportEventAdapterService.getService().addBeanType(SupportBean_S0.class.getName(), SupportBean_S0.class, true, true, true),
+                SupportEventAdapterService.getService().addBeanType(SupportBean_S1.class.getName(), SupportBean_S1.class, true, true, true),
+                SupportEventAdapterService.getService().addBeanType(SupportBean_S2.class.getName(), SupportBean_S2.class, true, true, true)
+        };
+
+        queryGraph = new QueryGraph(3);
+        queryGraph.addStrictEquals(0, "p00", null, 1, "p10", null);
+        queryGraph.addStrictEquals(0, "p01", null, 2, "p20", null);
+        queryGraph.addStrictEquals(1, "p11", null, 2, "p21", null);
+
+        indexSpecs = QueryPlanIndexBuilder.buildIndexSpec(queryGraph, typesPerStream, new String[3][][]);
+    }
+
+    public void testEstimateCost()
+    {
+        // stream 1 is selective for stream 0, stream 2 is not
+        QueryPlanStatistics statistics = makeStatistics(1000, 1000, 10, 1000, 2, 1000);
+
+        // 1 lookup returning 1 event, then 1 lookup returning 1 event
+        assertEquals(4d, QueryPlanCostModel.estimateCost(0, new int[] {1, 2}, queryGraph, indexSpecs, statistics), 0.0001);
+
+        // 1 lookup returning 500 events, then 500 lookups returning 100 events each
+        assertEquals(501d + 500 * 101, QueryPlanCostModel.estimateCost(0, new int[] {2, 1}, queryGraph, indexSpecs, statistics), 0.0001);
+
+        // empty stream
+        statistics = makeStatistics(0, 0, 0, 1000, 2, 1000);
+        assertEquals(1d, QueryPlanCostModel.estimateCost(0, new int[] {1, 2}, queryGraph, indexSpecs, statistics), 0.0001);
+
+        // unknown statistics
+        statistics = makeStatistics(-1, -1, -1, 1000, 2, 1000);
+        assertEquals(-1d, QueryPlanCostModel.estimateCost(0, new int[] {1, 2}, queryGraph, indexSpecs, statistics), 0.0001);
+    }
+
+    public void testEstimateCostRange() throws Exception
+    {
+        queryGraph = new QueryGraph(2);
+        queryGraph.addRelationalOpStrict(0, "id", SupportExprNodeFactory.makeIdentNode("intPrimitive", "s0"),
+                1, "id", SupportExprNodeFactory.makeIdentNode("intPrimitive", "s1"), RelationalOpEnum.GT);
+        indexSpecs = QueryPlanIndexBuilder.buildIndexSpec(queryGraph, typesPerStream, new String[2][][]);
+
+        Map<String, Integer>[] numKeys = new Map[2];
+        numKeys[1] = new HashMap<String, Integer>();
+        numKeys[1].put(indexName(1, new String[0], new String[] {"id"}), 300);
+        QueryPlanStatistics statistics = new QueryPlanStatistics(new int[] {-1, 300}, numKeys);
+
+        assertEquals(1d + 100, QueryPlanCostModel.estimateCost(0, new int[] {1}, queryGraph, indexSpecs, statistics), 0.0001);
+    }
+
+    public void testComputeLeastCostPath()
+    {
+        QueryPlanStatistics statistics = makeStatistics(1000, 1000, 10, 1000, 2, 1000);
+        NStreamQueryPlanBuilder.BestChainResult best = NStreamQueryPlanBuilder.computeLeastCostPath(0, queryGraph, indexSpecs, typesPerStream, statistics);
+        assertTrue(Arrays.equals(new int[] {1, 2}, best.getChain()));
+        assertEquals(4d, best.getCost(), 0.0001);
+
+        // stream 2 becomes selective for stream 0, stream 1 not
+        statistics = makeStatistics(1000, 2, 1000, 1000, 1000, 10);
+        best = NStreamQueryPlanBuilder.computeLeastCostPath(0, queryGraph, indexSpecs, typesPerStream, statistics);
+        assertTrue(Arrays.equals(new int[] {2, 1}, best.getChain()));
+        assertEquals(4d, best.getCost(), 0.0001);
+
+        // lookup from stream 1 with stream 0 empty
+        statistics = makeStatistics(1000, 1000, 1000, 1000, 1000, 1000);
+        best = NStreamQueryPlanBuilder.computeLeastCostPath(1, queryGraph, indexSpecs, typesPerStream, statistics);
+        assertTrue(Arrays.equals(new int[] {0, 2}, best.getChain()));
+
+        // no chain that is indexed throughout
+        queryGraph = new QueryGraph(3);
+        queryGraph.addStrictEquals(0, "p00", null, 1, "p10", null);
+        indexSpecs = QueryPlanIndexBuilder.buildIndexSpec(queryGraph, typesPerStream, new String[3][][]);
+        assertNull(NStreamQueryPlanBuilder.computeLeastCostPath(0, queryGraph, indexSpecs, typesPerStream, new QueryPlanStatistics(new int[] {1, 1, 1}, new Map[3])));
+    }
+
+    private QueryPlanStatistics makeStatistics(int numEventsOne, int numKeysOneByZero, int numKeysOneByTwo,
+                                               int numEventsTwo, int numKeysTwoByZero, int numKeysTwoByOne)
+    {
+        Map<String, Integer>[] numKeys = new Map[3];
+        numKeys[1] = new HashMap<String, Integer>();
+        numKeys[1].put(indexName(1, new String[] {"p10"}, new String[0]), numKeysOneByZero);
+        numKeys[1].put(indexName(1, new String[] {"p11"}, new String[0]), numKeysOneByTwo);
+        numKeys[2] = new HashMap<String, Integer>();
+        numKeys[2].put(indexName(2, new String[] {"p20"}, new String[0]), numKeysTwoByZero);
+        numKeys[2].put(indexName(2, new String[] {"p21"}, new String[0]), numKeysTwoByOne);
+        return new QueryPlanStatistics(new int[] {0, numEventsOne, numEventsTwo}, numKeys);
+    }
+
+    private String indexName(int stream, String[] hashProps, String[] rangeProps)
+    {
+        return indexSpecs[stream].getIndexNum(hashProps, rangeProps).getFirst();
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * *************************************************************************************
+ *  Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ *  http://esper.codehaus.org                                                          *
+ *  http://www.espertech.com                                                           *
+ *  ---------------------------------------------------------------------------------- *
+ *  The software in this package is published under the terms of the GPL license       *
+ *  a copy of which has been included with this distribution in the license.txt file.  *
+ * *************************************************************************************
+ */
+
+package com.espertech.esper.epl.join.plan;
+
+import com.espertech.esper.client.EventBean;
+import com.espertech.esper.client.EventPropertyGetter;
+import com.espertech.esper.epl.join.table.EventTable;
+import com.espertech.esper.epl.join.table.PropertyIndexedEventTable;
+import com.espertech.esper.epl.join.table.UnindexedEventTable;
+import com.espertech.esper.support.bean.SupportBean;
+import com.espertech.esper.support.event.SupportEventBeanFactory;
+import com.espertech.esper.support.event.SupportEventTypeFactory;
+import junit.framework.TestCase;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class TestQueryPlanStatistics extends TestCase
+{
+    public void testSnapshot()
+    {
+        UnindexedEventTable unindexed = new UnindexedEventTable(0);
+        PropertyIndexedEventTable indexed = new PropertyIndexedEventTable(0, new EventPropertyGetter[] {
+                SupportEventTypeFactory.createBeanType(SupportBean.class).getGetter("theString")});
+        EventBean[] events = new EventBean[] {makeEvent("a"), makeEvent("a"), makeEvent("b")};
+        unindexed.add(events);
+        indexed.add(events);
+
+        Map<String, EventTable>[] indexesPerStream = new Map[2];
+        indexesPerStream[0] = new LinkedHashMap<String, EventTable>();
+        indexesPerStream[0].put("i0", unindexed);
+        indexesPerStream[0].put("i1", indexed);
+
+        QueryPlanStatistics statistics = QueryPlanStatistics.snapshot(indexesPerStream);
+        assertEquals(3, statistics.getNumberOfEvents(0));
+        assertEquals(3, statistics.getNumKeys(0, "i0"));
+        assertEquals(2, statistics.getNumKeys(0, "i1"));
+        assertEquals(-1, statistics.getNumKeys(0, "i2"));
+        assertEquals(-1, statistics.getNumberOfEvents(1));
+        assertEquals(-1, statistics.getNumKeys(1, "i0"));
+    }
+
+    public void testDrifted()
+    {
+        QueryPlanStatistics base = makeStatistics(1000, 10);
+        assertFalse(makeStatistics(1000, 10).isDrifted(base));
+        assertFalse(makeStatistics(1999, 10).isDrifted(base));
+        assertTrue(makeStatistics(2000, 10).isDrifted(base));
+        assertTrue(makeStatistics(400, 10).isDrifted(base));
+        assertTrue(makeStatistics(-1, 10).isDrifted(base));
+
+        // small changes do not count as drift
+        assertFalse(makeStatistics(1000, 100).isDrifted(base));
+        assertTrue(makeStatistics(1000, 110).isDrifted(base));
+        assertFalse(makeStatistics(50, 0).isDrifted(makeStatistics(0, 0)));
+        assertTrue(makeStatistics(100, 0).isDrifted(makeStatistics(0, 0)));
+    }
+
+    private QueryPlanStatistics makeStatistics(int numEvents, int numKeys)
+    {
+        Map<String, Integer>[] numKeysPerIndex = new Map[1];
+        numKeysPerIndex[0] = new HashMap<String, Integer>();
+        numKeysPerIndex[0].put("i0", numKeys);
+        return new QueryPlanStatistics(new int[] {numEvents}, numKeysPerIndex);
+    }
+
+    private EventBean makeEvent(String theString)
+    {
+        SupportBean bean = new SupportBean();
+        bean.setTheString(theString);
+        return SupportEventBeanFactory.createObject(bean);
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * *************************************************************************************
+ *  Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ *  http://esper.codehaus.org                                                          *
+ *  http://www.espertech.com                                                           *
+ *  ---------------------------------------------------------------------------------- *
+ *  The software in this package is published under the terms of the GPL license       *
+ *  a copy of which has been included with this distribution in the license.txt file.  *
+ * *************************************************************************************
+ */
+
+package com.espertech.esper.epl.join.table;
+
+import com.espertech.esper.client.EventBean;
+import com.espertech.esper.client.EventType;
+import com.espertech.esper.client.scopetest.EPAssertionUtil;
+import com.espertech.esper.collection.EventBeanArraySet;
+import com.espertech.esper.support.bean.SupportBean;
+import com.espertech.esper.support.event.SupportEventBeanFactory;
+import com.espertech.esper.support.event.SupportEventTypeFactory;
+import junit.framework.TestCase;
+
+import java.util.*;
+
+public class TestPropertyIndexedEventTableSinglePrimitive extends TestCase
+{
+    private EventType eventType;
+
+    public void setUp()
+    {
+        eventType = SupportEventTypeFactory.createBeanType(SupportBean.class);
+    }
+
+    public void testLongKey()
+    {
+        PropertyIndexedEventTableSinglePrimitive index = makeIndex("longBoxed", Long.class);
+        EventBean[] events = new EventBean[] {makeLong(1L), makeLong(2L), makeLong(1L), makeLong(Long.MIN_VALUE), makeLong(null)};
+        index.add(events);
+
+        assertLookup(index, 1L, events[0], events[2]);
+        assertLookup(index, 2L, events[1]);
+        assertLookup(index, Long.MIN_VALUE, events[3]);
+        assertLookup(index, null, events[4]);
+        assertNull(index.lookup(3L));
+        assertEquals(5, index.getNumberOfEvents());
+        assertEquals(4, index.getNumKeys());
+        EPAssertionUtil.assertEqualsAnyOrder(events, EPAssertionUtil.iteratorToArray(index.iterator()));
+
+        // keys of another type than the property type do not match, same as for the hash map based index
+        assertNull(index.lookup(1));
+        assertNull(index.lookup(1d));
+
+        index.remove(new EventBean[] {events[0], events[4]});
+        assertLookup(index, 1L, events[2]);
+        assertNull(index.lookup(null));
+        assertEquals(3, index.getNumberOfEvents());
+
+        // removing an event that is not in the index has no effect
+        index.remove(new EventBean[] {makeLong(1L), makeLong(5L), makeLong(null)});
+        assertLookup(index, 1L, events[2]);
+
+        // adding the same event again has no effect
+        index.add(new EventBean[] {events[2]});
+        assertLookup(index, 1L, events[2]);
+
+        index.remove(new EventBean[] {events[1], events[2], events[3]});
+        assertTrue(index.isEmpty());
+        assertEquals(0, index.getNumberOfEvents());
+        assertEquals(0, index.getNumKeys());
+        assertFalse(index.iterator().hasNext());
+    }
+
+    public void testIntKey()
+    {
+        PropertyIndexedEventTableSinglePrimitive index = makeIndex("intPrimitive", Integer.class);
+        EventBean[] events = new EventBean[] {makeInt(-1), makeInt(0), makeInt(-1)};
+        index.add(events);
+
+        assertLookup(index, -1, events[0], events[2]);
+        assertLookup(index, 0, events[1]);
+        assertNull(index.lookup(-1L));
+        assertNull(index.lookup(1));
+
+        index.remove(new EventBean[] {events[2]});
+        assertLookup(index, -1, events[0]);
+        index.clear();
+        assertTrue(index.isEmpty());
+        assertNull(index.lookup(0));
+    }
+
+    public void testDoubleKey()
+    {
+        PropertyIndexedEventTableSinglePrimitive index = makeIndex("doubleBoxed", Double.class);
+        EventBean[] events = new EventBean[] {makeDouble(1.5), makeDouble(Double.NaN), makeDouble(0d), makeDouble(-0d), makeDouble(Double.NaN)};
+        index.add(events);
+
+        // same as Double.equals: NaN equals NaN and negative zero does not equal positive zero
+        assertLookup(index, 1.5, events[0]);
+        assertLookup(index, Double.NaN, events[1], events[4]);
+        assertLookup(index, 0d, events[2]);
+        assertLookup(index, -0d, events[3]);
+        assertNull(index.lookup(2d));
+        assertNull(index.lookup(1.5f));
+
+        index.remove(new EventBean[] {events[1], events[4]});
+        assertNull(index.lookup(Double.NaN));
+        assertEquals(3, index.getNumberOfEvents());
+    }
+
+    public void testManyEventsPerKey()
+    {
+        PropertyIndexedEventTableSinglePrimitive index = makeIndex("longBoxed", Long.class);
+        int count = PropertyIndexedEventTableSinglePrimitive.ARRAY_SET_MAX_SIZE * 2;
+        EventBean[] events = new EventBean[count];
+        for (int i = 0; i < count; i++)
+        {
+            events[i] = makeLong(10L);
+            index.add(new EventBean[] {events[i]});
+
+            Set<EventBean> result = index.lookup(10L);
+            assertEquals(i + 1, result.size());
+            if (i > 0 && i < PropertyIndexedEventTableSinglePrimitive.ARRAY_SET_MAX_SIZE)
+            {
+                assertTrue(result instanceof EventBeanArraySet);
+            }
+            else if (i >= PropertyIndexedEventTableSinglePrimitive.ARRAY_SET_MAX_SIZE)
+            {
+                assertTrue(result instanceof LinkedHashSet);
+            }
+        }
+        EPAssertionUtil.assertEqualsExactOrder(events, index.lookup(10L).toArray());
+        assertEquals(count, index.getNumberOfEvents());
+        assertEquals(1, index.getNumKeys());
+
+        // removing down to a single event keeps only that event
+        for (int i = 0; i < count - 1; i++)
+        {
+            index.remove(new EventBean[] {events[i]});
+            assertEquals(count - i - 1, index.lookup(10L).size());
+        }
+        assertLookup(index, 10L, events[count - 1]);
+
+        index.remove(new EventBean[] {events[count - 1]});
+        assertNull(index.lookup(10L));
+        assertTrue(index.isEmpty());
+    }
+
+    public void testCompareToHashIndex()
+    {
+        PropertyIndexedEventTableSinglePrimitive index = makeIndex("longBoxed", Long.class);
+        PropertyIndexedEventTableSingle expected = new PropertyIndexedEventTableSingle(0, eventType.getGetter("longBoxed"));
+
+        Random random = new Random(1);
+        List<EventBean> added = new ArrayList<EventBean>();
+        for (int i = 0; i < 5000; i++)
+        {
+            if (added.isEmpty() || random.nextInt(3) != 0)
+            {
+                Long value = random.nextInt(50) == 0 ? null : (long) random.nextInt(20);
+                EventBean[] events = new EventBean[] {makeLong(value)};
+                index.add(events);
+                expected.add(events);
+                added.add(events[0]);
+            }
+            else
+            {
+                EventBean[] events = new EventBean[] {added.remove(random.nextInt(added.size()))};
+                index.remove(events);
+                expected.remove(events);
+            }
+
+            Long key = random.nextInt(25) == 0 ? null : (long) random.nextInt(22);
+            assertEqualsNullAsEmpty(expected.lookup(key), index.lookup(key));
+            assertEquals(expected.getNumberOfEvents(), index.getNumberOfEvents());
+            assertEquals(expected.getNumKeys(), index.getNumKeys());
+        }
+        EPAssertionUtil.assertEqualsAnyOrder(added.toArray(), EPAssertionUtil.iteratorToArray(index.iterator()));
+    }
+
+    private void assertLookup(PropertyIndexedEventTableSinglePrimitive index, Object key, EventBean... expected)
+    {
+        Set<EventBean> result = index.lookup(key);
+        EPAssertionUtil.assertEqualsExactOrder(expected, result.toArray());
+        for (EventBean theEvent : expected)
+        {
+            assertTrue(result.contains(theEvent));
+        }
+    }
+
+    private void assertEqualsNullAsEmpty(Set<EventBean> expected, Set<EventBean> result)
+    {
+        if (expected == null)
+        {
+            assertNull(result);
+            return;
+        }
+        EPAssertionUtil.assertEqualsExactOrder(expected.toArray(), result.toArray());
+    }
+
+    private PropertyIndexedEventTableSinglePrimitive makeIndex(String property, Class boxedType)
+    {
+        return new PropertyIndexedEventTableSinglePrimitive(0, eventType.getGetter(property), boxedType);
+    }
+
+    private EventBean makeLong(Long value)
+    {
+        SupportBean bean = new SupportBean();
+        bean.setLongBoxed(value);
+        return SupportEventBeanFactory.createObject(bean);
+    }
+
+    private EventBean makeInt(int value)
+    {
+        SupportBean bean = new SupportBean();
+        bean.setIntPrimitive(value);
+        return SupportEventBeanFactory.createObject(bean);
+    }
+
+    private EventBean makeDouble(Double value)
+    {
+        SupportBean bean = new SupportBean();
+        bean.setDoubleBoxed(value);
+        return SupportEventBeanFactory.createObject(bean);
+    }
+}
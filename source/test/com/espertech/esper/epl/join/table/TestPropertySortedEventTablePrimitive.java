@@ -0,0 +1,181 @@
+/*
+ * *************************************************************************************
+ *  Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ *  http://esper.codehaus.org                                                          *
+ *  http://www.espertech.com                                                           *
+ *  ---------------------------------------------------------------------------------- *
+ *  The software in this package is published under the terms of the GPL license       *
+ *  a copy of which has been included with this distribution in the license.txt file.  *
+ * *************************************************************************************
+ */
+
+package com.espertech.esper.epl.join.table;
+
+import com.espertech.esper.client.EventBean;
+import com.espertech.esper.client.EventType;
+import com.espertech.esper.client.scopetest.EPAssertionUtil;
+import com.espertech.esper.epl.join.exec.base.RangeIndexLookupValueEquals;
+import com.espertech.esper.support.bean.SupportBean;
+import com.espertech.esper.support.event.SupportEventBeanFactory;
+import com.espertech.esper.support.event.SupportEventTypeFactory;
+import junit.framework.TestCase;
+
+import java.util.*;
+
+public class TestPropertySortedEventTablePrimitive extends TestCase
+{
+    private EventType eventType;
+
+    public void setUp()
+    {
+        eventType = SupportEventTypeFactory.createBeanType(SupportBean.class);
+    }
+
+    public void testLongKey()
+    {
+        PropertySortedEventTablePrimitive index = new PropertySortedEventTablePrimitive(0, eventType.getGetter("longBoxed"), Long.class);
+        EventBean[] events = new EventBean[] {makeLong(5L), makeLong(1L), makeLong(3L), makeLong(3L), makeLong(null), makeLong(Long.MIN_VALUE)};
+        index.add(events);
+        assertEquals(6, index.getNumberOfEvents());
+        assertEquals(4, index.getNumKeys());
+
+        assertEvents(index.lookupRange(1L, true, 3L, true, false), events[1], events[2], events[3]);
+        assertEvents(index.lookupRange(1L, false, 5L, false, false), events[2], events[3]);
+        assertEvents(index.lookupRange(3L, true, 1L, true, true), events[1], events[2], events[3]);
+        assertTrue(index.lookupRange(3L, true, 1L, true, false).isEmpty());
+        assertNull(index.lookupRange(6L, true, 10L, true, false));
+        assertTrue(index.lookupRange(null, true, 1L, true, false).isEmpty());
+        assertEvents(index.lookupRangeInverted(1L, true, 3L, true), events[5], events[0]);
+        assertEvents(index.lookupLess(3L), events[5], events[1]);
+        assertEvents(index.lookupLessEqual(3L), events[5], events[1], events[2], events[3]);
+        assertEvents(index.lookupGreater(3L), events[0]);
+        assertEvents(index.lookupGreaterEqual(3L), events[2], events[3], events[0]);
+        assertNull(index.lookupGreater(5L));
+        assertEvents(index.lookupConstants(new RangeIndexLookupValueEquals(3L)), events[2], events[3]);
+        assertNull(index.lookupConstants(new RangeIndexLookupValueEquals(4L)));
+
+        // range results iterate the index in key order
+        Set<EventBean> range = index.lookupGreaterEqual(Long.MIN_VALUE);
+        assertEquals(5, range.size());
+        assertFalse(range.isEmpty());
+        assertTrue(range.contains(events[0]));
+        assertFalse(range.contains(events[4]));
+
+        index.remove(new EventBean[] {events[1], events[2], events[4]});
+        assertEvents(index.lookupLessEqual(3L), events[5], events[3]);
+        assertEquals(3, index.getNumberOfEvents());
+        EPAssertionUtil.assertEqualsExactOrder(new Object[] {events[5], events[3], events[0]}, EPAssertionUtil.iteratorToArray(index.iterator()));
+
+        index.clear();
+        assertTrue(index.isEmpty());
+        assertNull(index.lookupGreaterEqual(Long.MIN_VALUE));
+    }
+
+    public void testCompareToTreeMapIndexLong()
+    {
+        Random random = new Random(1);
+        Long[] keys = new Long[] {null, Long.MIN_VALUE, -20L, -1L, 0L, 1L, 2L, 3L, 5L, 8L, 13L, 21L, Long.MAX_VALUE};
+        runCompare(random, "longBoxed", Long.class, keys, new ValueMaker()
+        {
+            public EventBean make(Object value)
+            {
+                return makeLong((Long) value);
+            }
+        });
+    }
+
+    public void testCompareToTreeMapIndexDouble()
+    {
+        Random random = new Random(2);
+        Double[] keys = new Double[] {null, Double.NEGATIVE_INFINITY, -Double.MAX_VALUE, -2.5, -1d, -Double.MIN_VALUE, -0d, 0d,
+                Double.MIN_VALUE, 1d, 1.5, 2d, Double.MAX_VALUE, Double.POSITIVE_INFINITY, Double.NaN};
+        runCompare(random, "doubleBoxed", Double.class, keys, new ValueMaker()
+        {
+            public EventBean make(Object value)
+            {
+                SupportBean bean = new SupportBean();
+                bean.setDoubleBoxed((Double) value);
+                return SupportEventBeanFactory.createObject(bean);
+            }
+        });
+    }
+
+    private void runCompare(Random random, String property, Class boxedType, Object[] keys, ValueMaker maker)
+    {
+        PropertySortedEventTablePrimitive index = new PropertySortedEventTablePrimitive(0, eventType.getGetter(property), boxedType);
+        PropertySortedEventTable expected = new PropertySortedEventTable(0, eventType.getGetter(property));
+
+        List<EventBean> added = new ArrayList<EventBean>();
+        for (int i = 0; i < 3000; i++)
+        {
+            if (added.isEmpty() || random.nextInt(3) != 0)
+            {
+                EventBean[] events = new EventBean[] {maker.make(keys[random.nextInt(keys.length)])};
+                index.add(events);
+                expected.add(events);
+                added.add(events[0]);
+            }
+            else
+            {
+                EventBean[] events = new EventBean[] {added.remove(random.nextInt(added.size()))};
+                index.remove(events);
+                expected.remove(events);
+            }
+
+            Object start = keys[random.nextInt(keys.length)];
+            Object end = keys[random.nextInt(keys.length)];
+            boolean includeStart = random.nextBoolean();
+            boolean includeEnd = random.nextBoolean();
+            boolean allowReversal = random.nextBoolean();
+            assertSameEvents(expected.lookupRange(start, includeStart, end, includeEnd, allowReversal), index.lookupRange(start, includeStart, end, includeEnd, allowReversal));
+            assertSameEvents(expected.lookupRangeColl(start, includeStart, end, includeEnd, allowReversal), index.lookupRangeColl(start, includeStart, end, includeEnd, allowReversal));
+            assertSameEvents(expected.lookupRangeInverted(start, includeStart, end, includeEnd), index.lookupRangeInverted(start, includeStart, end, includeEnd));
+            assertSameEvents(expected.lookupRangeInvertedColl(start, includeStart, end, includeEnd), index.lookupRangeInvertedColl(start, includeStart, end, includeEnd));
+            assertSameEvents(expected.lookupLess(start), index.lookupLess(start));
+            assertSameEvents(expected.lookupLessThenColl(start), index.lookupLessThenColl(start));
+            assertSameEvents(expected.lookupLessEqual(start), index.lookupLessEqual(start));
+            assertSameEvents(expected.lookupLessEqualColl(start), index.lookupLessEqualColl(start));
+            assertSameEvents(expected.lookupGreater(start), index.lookupGreater(start));
+            assertSameEvents(expected.lookupGreaterColl(start), index.lookupGreaterColl(start));
+            assertSameEvents(expected.lookupGreaterEqual(start), index.lookupGreaterEqual(start));
+            assertSameEvents(expected.lookupGreaterEqualColl(start), index.lookupGreaterEqualColl(start));
+            if (start != null)
+            {
+                RangeIndexLookupValueEquals equals = new RangeIndexLookupValueEquals(start);
+                assertSameEvents(expected.lookupConstants(equals), index.lookupConstants(equals));
+            }
+            assertEquals(expected.getNumberOfEvents(), index.getNumberOfEvents());
+            assertEquals(expected.getNumKeys(), index.getNumKeys());
+        }
+        EPAssertionUtil.assertEqualsExactOrder(EPAssertionUtil.iteratorToArray(expected.iterator()), EPAssertionUtil.iteratorToArray(index.iterator()));
+    }
+
+    // compares the events and their order, treating a null result the same as an empty result
+    private static void assertSameEvents(Collection<EventBean> expected, Collection<EventBean> result)
+    {
+        Object[] expectedEvents = expected == null ? new Object[0] : expected.toArray();
+        Object[] resultEvents = result == null ? new Object[0] : result.toArray();
+        EPAssertionUtil.assertEqualsExactOrder(expectedEvents, resultEvents);
+        if (result != null)
+        {
+            assertEquals(resultEvents.length, result.size());
+        }
+    }
+
+    private static void assertEvents(Collection<EventBean> result, EventBean... expected)
+    {
+        EPAssertionUtil.assertEqualsExactOrder(expected, result.toArray());
+    }
+
+    private static EventBean makeLong(Long value)
+    {
+        SupportBean bean = new SupportBean();
+        bean.setLongBoxed(value);
+        return SupportEventBeanFactory.createObject(bean);
+    }
+
+    private interface ValueMaker
+    {
+        public EventBean make(Object value);
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * *************************************************************************************
+ *  Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ *  http://esper.codehaus.org                                                          *
+ *  http://www.espertech.com                                                           *
+ *  ---------------------------------------------------------------------------------- *
+ *  The software in this package is published under the terms of the GPL license       *
+ *  a copy of which has been included with this distribution in the license.txt file.  *
+ * *************************************************************************************
+ */
+package com.espertech.esper.epl.metric;
+
+import com.espertech.esper.client.metric.StageMetric;
+import junit.framework.TestCase;
+
+import java.util.List;
+
+public class TestInstrumentationStageTimers extends TestCase
+{
+    private InstrumentationStageTimers timers;
+
+    public void setUp()
+    {
+        timers = new InstrumentationStageTimers();
+    }
+
+    public void testNestedStages()
+    {
+        timers.qStatement("uri", "s1");
+        spin(1);
+        timers.qStage(InstrumentationStage.VIEW);
+        timers.qStage(InstrumentationStage.AGGREGATION);
+        spin(2);
+        timers.aStage(InstrumentationStage.AGGREGATION);
+        timers.qStage(InstrumentationStage.OUTPUT);
+        spin(1);
+        timers.aStage(InstrumentationStage.OUTPUT);
+        timers.aStage(InstrumentationStage.VIEW);
+        timers.aStatement();
+
+        List<StageMetric> metrics = timers.report("uri", 100);
+        assertEquals(1, metrics.size());
+        StageMetric metric = metrics.get(0);
+        assertEquals("uri", metric.getEngineURI());
+        assertEquals("s1", metric.getStatementName());
+        assertEquals(100, metric.getTimestamp());
+        assertEquals(1, metric.getNumInvocations());
+        assertEquals(0, metric.getFilterTime());
+        assertEquals(0, metric.getDispatchTime());
+
+        // times exclude nested stages
+        assertTrue(metric.getStatementTime() >= 1000000);
+        assertTrue(metric.getAggregationTime() >= 2000000);
+        assertTrue(metric.getOutputTime() >= 1000000);
+        assertTrue(metric.getViewTime() < metric.getOutputTime());
+        assertTrue(metric.getTotalTime() >= 4000000);
+
+        // counters are reset and inactive statements are not reported
+        assertTrue(timers.report("uri", 200).isEmpty());
+        assertTrue(timers.report("other", 200).isEmpty());
+    }
+
+    public void testFilterAndNestedStatements()
+    {
+        timers.qFilter("uri");
+        spin(1);
+        timers.aFilter();
+
+        // a listener sends an event processed by another statement
+        timers.qDispatch("uri", "s1");
+        timers.qStatement("uri", "s2");
+        spin(2);
+        timers.aStatement();
+        timers.aDispatch();
+
+        List<StageMetric> metrics = timers.report("uri", 100);
+        assertEquals(3, metrics.size());
+        StageMetric engineMetric = find(metrics, null);
+        assertTrue(engineMetric.getFilterTime() >= 1000000);
+        assertEquals(0, engineMetric.getNumInvocations());
+
+        StageMetric metricOne = find(metrics, "s1");
+        StageMetric metricTwo = find(metrics, "s2");
+        assertEquals(0, metricOne.getNumInvocations());
+        assertEquals(1, metricTwo.getNumInvocations());
+        assertTrue(metricTwo.getStatementTime() >= 2000000);
+        assertTrue(metricOne.getDispatchTime() < metricTwo.getStatementTime());
+    }
+
+    public void testUnbalanced()
+    {
+        // stages outside of statement processing are not counted
+        timers.qStage(InstrumentationStage.OUTPUT);
+        timers.aStage(InstrumentationStage.OUTPUT);
+        timers.aStatement();
+        assertTrue(timers.report("uri", 100).isEmpty());
+
+        // the end of the statement ends stages not ended, for example after an exception
+        timers.qStatement("uri", "s1");
+        timers.qStage(InstrumentationStage.VIEW);
+        timers.qStage(InstrumentationStage.AGGREGATION);
+        spin(1);
+        timers.aStatement();
+        timers.qStage(InstrumentationStage.OUTPUT);
+        spin(1);
+        timers.aStage(InstrumentationStage.OUTPUT);
+
+        List<StageMetric> metrics = timers.report("uri", 100);
+        assertEquals(1, metrics.size());
+        assertEquals(0, metrics.get(0).getOutputTime());
+        assertEquals(0, metrics.get(0).getAggregationTime());
+        assertTrue(metrics.get(0).getStatementTime() >= 1000000);
+
+        // stages never ended are discarded
+        for (int i = 0; i < 1000; i++)
+        {
+            timers.qStage(InstrumentationStage.VIEW);
+        }
+        timers.qStatement("uri", "s1");
+        timers.aStatement();
+        assertEquals(1, timers.report("uri", 200).get(0).getNumInvocations());
+    }
+
+    private static StageMetric find(List<StageMetric> metrics, String statementName)
+    {
+        for (StageMetric metric : metrics)
+        {
+            if (statementName == null ? metric.getStatementName() == null : statementName.equals(metric.getStatementName()))
+            {
+                return metric;
+            }
+        }
+        fail("No metric for " + statementName);
+        return null;
+    }
+
+    private static void spin(long msec)
+    {
+        long start = System.nanoTime();
+        while (System.nanoTime() - start < msec * 1000000)
+        {
+            Thread.yield();
+        }
+    }
+}
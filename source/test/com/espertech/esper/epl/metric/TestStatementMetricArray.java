@@ -94,4 +94,38 @@ public class TestStatementMetricArray extends TestCase
             assertNotNull(flushed[i]);
         }
     }
+
+    public void testAccountLatency()
+    {
+        StatementMetricArray rep = new StatementMetricArray("uri", "name", 3, false);
+        assertEquals(0, rep.addStatementGetIndex("001"));
+
+        // 1 to 1000 microseconds
+        for (int i = 1; i <= 1000; i++)
+        {
+            rep.accountLatency(0, i * 1000L);
+        }
+        StatementMetric metric = rep.getAddMetric(0);
+        assertEquals(1000, metric.getNumLatencies());
+        assertPercentile(500000, metric.getWallTimeP50());
+        assertPercentile(990000, metric.getWallTimeP99());
+        assertPercentile(999000, metric.getWallTimeP999());
+        assertPercentile(1000000, metric.getWallTimePercentile(100));
+        assertPercentile(1000, metric.getWallTimePercentile(0));
+
+        // exact for small values, flushing starts a new histogram
+        StatementMetric[] flushed = rep.flushMetrics();
+        assertSame(metric, flushed[0]);
+        rep.accountLatency(0, 5);
+        metric = rep.getAddMetric(0);
+        assertEquals(1, metric.getNumLatencies());
+        assertEquals(5, metric.getWallTimeP50());
+
+        assertEquals(0, new StatementMetric("uri", "002").getWallTimeP99());
+    }
+
+    private void assertPercentile(long expected, long actual)
+    {
+        assertTrue("expected " + expected + " actual " + actual, (actual >= expected) && (actual <= expected + expected / 8));
+    }
 }
@@ -0,0 +1,127 @@
+/*
+ * *************************************************************************************
+ *  Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ *  http://esper.codehaus.org                                                          *
+ *  http://www.espertech.com                                                           *
+ *  ---------------------------------------------------------------------------------- *
+ *  The software in this package is published under the terms of the GPL license       *
+ *  a copy of which has been included with this distribution in the license.txt file.  *
+ * *************************************************************************************
+ */
+
+package com.espertech.esper.epl.named;
+
+import com.espertech.esper.client.EventBean;
+import com.espertech.esper.client.scopetest.EPAssertionUtil;
+import com.espertech.esper.support.event.SupportEventBeanFactory;
+import junit.framework.TestCase;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+
+public class TestNamedWindowVersionedRows extends TestCase
+{
+    private NamedWindowVersionedRows rows;
+    private EventBean[] events;
+
+    public void setUp()
+    {
+        rows = new NamedWindowVersionedRows();
+        events = SupportEventBeanFactory.makeEvents(new String[] {"E0", "E1", "E2", "E3", "E4"});
+    }
+
+    public void testUpdate()
+    {
+        assertEquals(0, rows.snapshot().size());
+
+        rows.update(new EventBean[] {events[0], events[1]}, null);
+        rows.update(new EventBean[] {events[2]}, new EventBean[] {events[0]});
+        assertEquals(2, rows.getVersion());
+        assertEquals(2, rows.getNumRows());
+        EPAssertionUtil.assertEqualsExactOrder(new Object[] {events[1], events[2]}, rows.snapshot().toArray());
+
+        // entering and leaving in the same update
+        rows.update(new EventBean[] {events[3]}, new EventBean[] {events[3], events[1]});
+        EPAssertionUtil.assertEqualsExactOrder(new Object[] {events[2]}, rows.snapshot().toArray());
+
+        // unknown events are ignored
+        rows.update(null, new EventBean[] {events[4]});
+        EPAssertionUtil.assertEqualsExactOrder(new Object[] {events[2]}, rows.snapshot().toArray());
+    }
+
+    public void testSameEventMultipleRows()
+    {
+        rows.update(new EventBean[] {events[0]}, null);
+        rows.update(new EventBean[] {events[1], events[0]}, null);
+        EPAssertionUtil.assertEqualsExactOrder(new Object[] {events[0], events[1], events[0]}, rows.snapshot().toArray());
+
+        rows.update(null, new EventBean[] {events[0]});
+        EPAssertionUtil.assertEqualsExactOrder(new Object[] {events[1], events[0]}, rows.snapshot().toArray());
+
+        rows.update(null, new EventBean[] {events[0]});
+        EPAssertionUtil.assertEqualsExactOrder(new Object[] {events[1]}, rows.snapshot().toArray());
+    }
+
+    public void testReclaim()
+    {
+        for (int i = 0; i < 100; i++) {
+            EventBean[] theEvent = SupportEventBeanFactory.makeEvents(new String[] {"R" + i});
+            rows.update(theEvent, null);
+            rows.update(null, theEvent);
+        }
+
+        // removed rows are unlinked as no reader reads an earlier version
+        assertEquals(0, rows.getNumRows());
+        assertTrue(rows.getNumRemovedRows() < 32);
+        rows.reclaim();
+        assertEquals(0, rows.getNumRemovedRows());
+
+        rows.update(new EventBean[] {events[0], events[1]}, null);
+        rows.update(null, new EventBean[] {events[1]});
+        rows.reclaim();
+        rows.update(new EventBean[] {events[2]}, null);
+        EPAssertionUtil.assertEqualsExactOrder(new Object[] {events[0], events[2]}, rows.snapshot().toArray());
+    }
+
+    public void testConcurrentReaders() throws Exception
+    {
+        final int numVersions = 20000;
+        final boolean[] failed = new boolean[1];
+        Thread[] readers = new Thread[3];
+        for (int i = 0; i < readers.length; i++) {
+            readers[i] = new Thread() {
+                public void run() {
+                    while (rows.getVersion() < numVersions) {
+                        // the writer keeps exactly two rows, any version read has two rows in order
+                        Collection<EventBean> snapshot = rows.snapshot();
+                        EventBean[] read = snapshot.toArray(new EventBean[snapshot.size()]);
+                        if ((read.length != 2) || (read[0] == read[1])) {
+                            failed[0] = true;
+                        }
+                    }
+                }
+            };
+        }
+
+        ArrayDeque<EventBean> window = new ArrayDeque<EventBean>();
+        window.addAll(Arrays.asList(SupportEventBeanFactory.makeEvents(new String[] {"I0", "I1"})));
+        rows.update(window.toArray(new EventBean[2]), null);
+        for (Thread reader : readers) {
+            reader.start();
+        }
+
+        for (int i = 1; i < numVersions; i++) {
+            EventBean[] next = SupportEventBeanFactory.makeEvents(new String[] {"E" + i});
+            window.add(next[0]);
+            rows.update(next, new EventBean[] {window.removeFirst()});
+        }
+        rows.update(null, null);
+
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        assertFalse(failed[0]);
+        assertEquals(2, rows.getNumRows());
+    }
+}
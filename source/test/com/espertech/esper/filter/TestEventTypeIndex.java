@@ -11,6 +11,7 @@
 
 package com.espertech.esper.filter;
 
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -42,7 +43,7 @@ public class TestEventTypeIndex extends TestCase
         testEventBean = SupportEventBeanFactory.createObject(testBean);
         testEventType = testEventBean.getEventType();
 
-        handleSetNode = new FilterHandleSetNode();
+        handleSetNode = new FilterHandleSetNode(new ReentrantReadWriteLock());
         filterCallback = new SupportFilterHandle();
         handleSetNode.add(filterCallback);
 
@@ -37,7 +37,7 @@ public class TestEventTypeIndexBuilder extends TestCase
     public void setUp()
     {
         eventTypeIndex = new EventTypeIndex();
-        indexBuilder = new EventTypeIndexBuilder(eventTypeIndex);
+        indexBuilder = new EventTypeIndexBuilder(eventTypeIndex, new FilterServiceGranularLockFactoryReentrant());
 
         typeOne = SupportEventTypeFactory.createBeanType(SupportBean.class);
         typeTwo = SupportEventTypeFactory.createBeanType(SupportBeanSimple.class);
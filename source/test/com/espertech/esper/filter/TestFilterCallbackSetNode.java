@@ -11,6 +11,7 @@
 
 package com.espertech.esper.filter;
 
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import com.espertech.esper.client.EventBean;
 import com.espertech.esper.client.EventType;
 import com.espertech.esper.support.bean.SupportBean;
@@ -33,7 +34,7 @@ public class TestFilterCallbackSetNode extends TestCase
     public void setUp()
     {
         testEvaluator = new SupportEventEvaluator();
-        testNode = new FilterHandleSetNode();
+        testNode = new FilterHandleSetNode(new ReentrantReadWriteLock());
     }
 
     public void testNodeGetSet()
@@ -89,7 +90,7 @@ public class TestFilterCallbackSetNode extends TestCase
         matches.clear();
 
         // Create, add and populate an index node
-        FilterParamIndexBase index = new FilterParamIndexEquals(makeLookupable("myString", eventBean.getEventType()));
+        FilterParamIndexBase index = new FilterParamIndexEquals(makeLookupable("myString", eventBean.getEventType()), new ReentrantReadWriteLock());
         testNode.add(index);
         index.put("DepositEvent_1", testEvaluator);
 
@@ -11,6 +11,7 @@
 
 package com.espertech.esper.filter;
 
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import com.espertech.esper.client.EventBean;
 import com.espertech.esper.client.EventType;
 import com.espertech.esper.support.bean.SupportBean;
@@ -138,7 +139,7 @@ public class TestFilterParamIndexCompare extends TestCase
     }
 
     private FilterParamIndexCompare makeOne(String field, FilterOperator op) {
-        return new FilterParamIndexCompare(makeLookupable(field), op);
+        return new FilterParamIndexCompare(makeLookupable(field), op, new ReentrantReadWriteLock());
     }
 
     private void verifyDoublePrimitive(FilterParamIndexBase index, double testValue, int numExpected)
@@ -11,6 +11,7 @@
 
 package com.espertech.esper.filter;
 
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import com.espertech.esper.client.EventBean;
 import com.espertech.esper.client.EventType;
 import com.espertech.esper.support.bean.SupportBean;
@@ -120,7 +121,7 @@ public class TestFilterParamIndexEquals extends TestCase
     }
 
     private FilterParamIndexEquals makeOne(String property, EventType testEventType) {
-        return new FilterParamIndexEquals(makeLookupable(property));
+        return new FilterParamIndexEquals(makeLookupable(property), new ReentrantReadWriteLock());
     }
 
     private FilterSpecLookupable makeLookupable(String fieldName) {
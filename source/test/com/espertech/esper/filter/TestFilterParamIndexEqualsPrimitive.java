@@ -0,0 +1,202 @@
+/*
+ * *************************************************************************************
+ *  Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ *  http://esper.codehaus.org                                                          *
+ *  http://www.espertech.com                                                           *
+ *  ---------------------------------------------------------------------------------- *
+ *  The software in this package is published under the terms of the GPL license       *
+ *  a copy of which has been included with this distribution in the license.txt file.  *
+ * *************************************************************************************
+ */
+
+package com.espertech.esper.filter;
+
+import com.espertech.esper.client.EventBean;
+import com.espertech.esper.client.EventType;
+import com.espertech.esper.collection.Pair;
+import com.espertech.esper.support.bean.SupportBean;
+import com.espertech.esper.support.event.SupportEventBeanFactory;
+import com.espertech.esper.support.event.SupportEventTypeFactory;
+import com.espertech.esper.support.filter.SupportEventEvaluator;
+import com.espertech.esper.support.filter.SupportFilterHandle;
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+public class TestFilterParamIndexEqualsPrimitive extends TestCase
+{
+    private EventType mapEventType;
+
+    public void setUp()
+    {
+        Map<String, Object> properties = new HashMap<String, Object>();
+        properties.put("value", Object.class);
+        mapEventType = SupportEventTypeFactory.createMapType(properties);
+    }
+
+    public void testIndexFactory()
+    {
+        EventType beanType = SupportEventTypeFactory.createBeanType(SupportBean.class);
+        FilterServiceGranularLockFactory lockFactory = new FilterServiceGranularLockFactoryReentrant();
+        assertIndexClass(FilterParamIndexEqualsInt.class, beanType, "intPrimitive", lockFactory);
+        assertIndexClass(FilterParamIndexEqualsInt.class, beanType, "intBoxed", lockFactory);
+        assertIndexClass(FilterParamIndexEqualsLong.class, beanType, "longPrimitive", lockFactory);
+        assertIndexClass(FilterParamIndexEqualsLong.class, beanType, "longBoxed", lockFactory);
+        assertIndexClass(FilterParamIndexEqualsDouble.class, beanType, "doublePrimitive", lockFactory);
+        assertIndexClass(FilterParamIndexEqualsDouble.class, beanType, "doubleBoxed", lockFactory);
+        assertIndexClass(FilterParamIndexEquals.class, beanType, "shortBoxed", lockFactory);
+        assertIndexClass(FilterParamIndexEquals.class, beanType, "floatPrimitive", lockFactory);
+    }
+
+    public void testDoubleSpecialValues()
+    {
+        FilterParamIndexEqualsDouble index = new FilterParamIndexEqualsDouble(makeLookupable(), new ReentrantReadWriteLock());
+        SupportEventEvaluator evalNaN = new SupportEventEvaluator();
+        SupportEventEvaluator evalZero = new SupportEventEvaluator();
+        SupportEventEvaluator evalNegZero = new SupportEventEvaluator();
+        index.put(Double.NaN, evalNaN);
+        index.put(0d, evalZero);
+        index.put(-0d, evalNegZero);
+        assertEquals(3, index.size());
+        SupportEventEvaluator[] all = new SupportEventEvaluator[] {evalNaN, evalZero, evalNegZero};
+
+        // same as Double.equals: NaN equals NaN of any bit pattern, 0.0 and -0.0 differ
+        assertSame(evalNaN, index.get(Double.NaN));
+        assertSame(evalNaN, index.get(Double.longBitsToDouble(0x7ff8000000000001L)));
+        assertSame(evalZero, index.get(0d));
+        assertSame(evalNegZero, index.get(-0d));
+
+        verifyMatch(index, Double.NaN, evalNaN, all);
+        verifyMatch(index, Double.longBitsToDouble(0x7ff8000000000001L), evalNaN, all);
+        verifyMatch(index, 0d, evalZero, all);
+        verifyMatch(index, -0d, evalNegZero, all);
+        verifyMatch(index, 0, null, all);
+        verifyMatch(index, 0f, null, all);
+        verifyMatch(index, null, null, all);
+
+        assertTrue(index.remove(-0d));
+        assertFalse(index.remove(-0d));
+        verifyMatch(index, -0d, null, all);
+        verifyMatch(index, 0d, evalZero, all);
+    }
+
+    public void testRandomCompareEqualsIndex()
+    {
+        Random random = new Random(17);
+        for (int round = 0; round < 30; round++)
+        {
+            FilterParamIndexEquals generic = new FilterParamIndexEquals(makeLookupable(), new ReentrantReadWriteLock());
+            FilterParamIndexEqualsPrimitiveBase primitive;
+            switch (round % 3)
+            {
+                case 0: primitive = new FilterParamIndexEqualsInt(makeLookupable(), new ReentrantReadWriteLock()); break;
+                case 1: primitive = new FilterParamIndexEqualsLong(makeLookupable(), new ReentrantReadWriteLock()); break;
+                default: primitive = new FilterParamIndexEqualsDouble(makeLookupable(), new ReentrantReadWriteLock()); break;
+            }
+
+            for (int op = 0; op < 3000; op++)
+            {
+                Object value = randomValue(random);
+                int choice = random.nextInt(10);
+                if (choice < 3 && value != null)
+                {
+                    EventEvaluator evaluator = new HandleEventEvaluator();
+                    generic.put(value, evaluator);
+                    primitive.put(value, evaluator);
+                }
+                else if (choice < 5)
+                {
+                    assertEquals(generic.remove(value), primitive.remove(value));
+                }
+                else
+                {
+                    assertSame(generic.get(value), primitive.get(value));
+                    EventBean theEvent = makeEvent(value);
+                    List<FilterHandle> expected = new ArrayList<FilterHandle>();
+                    List<FilterHandle> received = new ArrayList<FilterHandle>();
+                    generic.matchEvent(theEvent, expected);
+                    primitive.matchEvent(theEvent, received);
+                    assertEquals(expected, received);
+                }
+                assertEquals(generic.size(), primitive.size());
+            }
+
+            assertEquals(toSet(generic), toSet(primitive));
+        }
+    }
+
+    private Object randomValue(Random random)
+    {
+        int number = random.nextInt(40) - 20;
+        switch (random.nextInt(12))
+        {
+            case 0: return (long) number;
+            case 1: return (double) number;
+            case 2: return random.nextBoolean() ? Double.NaN : -0d;
+            case 3: return random.nextBoolean() ? 0d : Double.POSITIVE_INFINITY;
+            case 4: return (short) number;
+            case 5: return (float) number;
+            case 6: return Integer.toString(number);
+            case 7: return null;
+            case 8: return random.nextBoolean() ? Integer.MIN_VALUE : Long.MAX_VALUE;
+            default: return number;
+        }
+    }
+
+    private Set<Pair<Object, EventEvaluator>> toSet(FilterParamIndexBase index)
+    {
+        Collection<Pair<Object, EventEvaluator>> entries = new ArrayList<Pair<Object, EventEvaluator>>();
+        index.getEntries(entries);
+        Set<Pair<Object, EventEvaluator>> result = new HashSet<Pair<Object, EventEvaluator>>(entries);
+        assertEquals(entries.size(), result.size());
+        return result;
+    }
+
+    private void verifyMatch(FilterParamIndexBase index, Object value, SupportEventEvaluator expected, SupportEventEvaluator[] all)
+    {
+        List<FilterHandle> matches = new LinkedList<FilterHandle>();
+        index.matchEvent(makeEvent(value), matches);
+        for (SupportEventEvaluator evaluator : all)
+        {
+            assertEquals(evaluator == expected ? 1 : 0, evaluator.getAndResetCountInvoked());
+        }
+    }
+
+    private void assertIndexClass(Class expected, EventType eventType, String propertyName, FilterServiceGranularLockFactory lockFactory)
+    {
+        FilterSpecLookupable lookupable = new FilterSpecLookupable(propertyName, eventType.getGetter(propertyName), eventType.getPropertyType(propertyName));
+        FilterParamIndexBase index = IndexFactory.createIndex(lookupable, lockFactory, FilterOperator.EQUAL);
+        assertEquals(expected, index.getClass());
+    }
+
+    private EventBean makeEvent(Object value)
+    {
+        Map<String, Object> values = new HashMap<String, Object>();
+        values.put("value", value);
+        return SupportEventBeanFactory.createMapFromValues(values, mapEventType);
+    }
+
+    private FilterSpecLookupable makeLookupable()
+    {
+        return new FilterSpecLookupable("value", mapEventType.getGetter("value"), Object.class);
+    }
+
+    private static class HandleEventEvaluator implements EventEvaluator
+    {
+        private final FilterHandle handle = new SupportFilterHandle();
+
+        public void matchEvent(EventBean theEvent, Collection<FilterHandle> matches)
+        {
+            matches.add(handle);
+        }
+    }
+}
@@ -11,6 +11,7 @@
 
 package com.espertech.esper.filter;
 
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import com.espertech.esper.client.EventBean;
 import com.espertech.esper.client.EventType;
 import com.espertech.esper.collection.MultiKeyUntyped;
@@ -41,7 +42,7 @@ public class TestFilterParamIndexIn extends TestCase
 
     public void testIndex()
     {
-        FilterParamIndexIn index = new FilterParamIndexIn(makeLookupable("longBoxed"));
+        FilterParamIndexIn index = new FilterParamIndexIn(makeLookupable("longBoxed"), new ReentrantReadWriteLock());
         assertEquals(FilterOperator.IN_LIST_OF_VALUES, index.getFilterOperator());
 
         MultiKeyUntyped inList = new MultiKeyUntyped(new Object[] {2L, 5L});
@@ -11,6 +11,7 @@
 
 package com.espertech.esper.filter;
 
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import com.espertech.esper.client.EventBean;
 import com.espertech.esper.client.EventType;
 import com.espertech.esper.support.bean.SupportBean;
@@ -40,7 +41,7 @@ public class TestFilterParamIndexNotEquals extends TestCase
 
     public void testBoolean()
     {
-        FilterParamIndexNotEquals index = new FilterParamIndexNotEquals(makeLookupable("boolPrimitive"));
+        FilterParamIndexNotEquals index = new FilterParamIndexNotEquals(makeLookupable("boolPrimitive"), new ReentrantReadWriteLock());
         assertEquals(FilterOperator.NOT_EQUAL, index.getFilterOperator());
         assertEquals("boolPrimitive", index.getLookupable().getExpression());
 
@@ -52,7 +53,7 @@ public class TestFilterParamIndexNotEquals extends TestCase
 
     public void testString()
     {
-        FilterParamIndexNotEquals index = new FilterParamIndexNotEquals(makeLookupable("theString"));
+        FilterParamIndexNotEquals index = new FilterParamIndexNotEquals(makeLookupable("theString"), new ReentrantReadWriteLock());
 
         index.put("hello", testEvaluator);
         index.put("test", testEvaluator);
@@ -11,6 +11,7 @@
 
 package com.espertech.esper.filter;
 
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import com.espertech.esper.client.EventBean;
 import com.espertech.esper.client.EventType;
 import com.espertech.esper.collection.MultiKeyUntyped;
@@ -46,7 +47,7 @@ public class TestFilterParamIndexNotIn extends TestCase
 
     public void testIndex()
     {
-        FilterParamIndexNotIn index = new FilterParamIndexNotIn(makeLookupable("longBoxed"));
+        FilterParamIndexNotIn index = new FilterParamIndexNotIn(makeLookupable("longBoxed"), new ReentrantReadWriteLock());
         assertEquals(FilterOperator.NOT_IN_LIST_OF_VALUES, index.getFilterOperator());
 
         index.put(new MultiKeyUntyped(new Object[] {2L, 5L}), testEvaluators[0]);
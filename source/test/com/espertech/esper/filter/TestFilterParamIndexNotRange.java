@@ -11,6 +11,7 @@
 
 package com.espertech.esper.filter;
 
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import com.espertech.esper.client.EventBean;
 import com.espertech.esper.client.EventType;
 import com.espertech.esper.support.bean.SupportBean;
@@ -117,7 +118,7 @@ public class TestFilterParamIndexNotRange extends TestCase
     }
 
     private FilterParamIndexDoubleRangeInverted makeOne(String field, FilterOperator notRangeHalfClosed, EventType testEventType) {
-        return new FilterParamIndexDoubleRangeInverted(makeLookupable(field), notRangeHalfClosed);
+        return new FilterParamIndexDoubleRangeInverted(makeLookupable(field), notRangeHalfClosed, new ReentrantReadWriteLock());
     }
 
     private void verify(FilterParamIndexBase index, Long testValue, boolean[] expected)
@@ -11,6 +11,7 @@
 
 package com.espertech.esper.filter;
 
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import com.espertech.esper.client.EventBean;
 import com.espertech.esper.client.EventType;
 import com.espertech.esper.support.bean.SupportBean;
@@ -222,7 +223,7 @@ public class TestFilterParamIndexRange extends TestCase
     }
 
     private FilterParamIndexDoubleRange makeOne(String fieldName, FilterOperator operatorType, EventType testEventType) {
-        return new FilterParamIndexDoubleRange(makeLookupable(fieldName), operatorType);
+        return new FilterParamIndexDoubleRange(makeLookupable(fieldName), operatorType, new ReentrantReadWriteLock());
     }
 
     private void verifyDoublePrimitive(FilterParamIndexBase index, double testValue, int numExpected)
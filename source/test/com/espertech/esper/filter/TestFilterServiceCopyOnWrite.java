@@ -0,0 +1,423 @@
+/*
+ * *************************************************************************************
+ *  Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ *  http://esper.codehaus.org                                                          *
+ *  http://www.espertech.com                                                           *
+ *  ---------------------------------------------------------------------------------- *
+ *  The software in this package is published under the terms of the GPL license       *
+ *  a copy of which has been included with this distribution in the license.txt file.  *
+ * *************************************************************************************
+ */
+
+package com.espertech.esper.filter;
+
+import com.espertech.esper.client.EventBean;
+import com.espertech.esper.client.EventType;
+import com.espertech.esper.event.bean.BeanEventBean;
+import com.espertech.esper.support.bean.SupportBean;
+import com.espertech.esper.support.bean.SupportBeanSimple;
+import com.espertech.esper.support.event.SupportEventBeanFactory;
+import com.espertech.esper.support.event.SupportEventTypeFactory;
+import com.espertech.esper.support.filter.SupportFilterHandle;
+import com.espertech.esper.support.filter.SupportFilterSpecBuilder;
+import junit.framework.TestCase;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class TestFilterServiceCopyOnWrite extends TestCase
+{
+    private EventType eventTypeOne;
+    private EventType eventTypeTwo;
+    private FilterServiceCopyOnWrite filterService;
+    private Vector<FilterValueSet> filterSpecs;
+    private Vector<SupportFilterHandle> filterCallbacks;
+    private Vector<EventBean> events;
+    private Vector<int[]> matchesExpected;
+
+    public void setUp()
+    {
+        filterService = new FilterServiceCopyOnWrite();
+
+        eventTypeOne = SupportEventTypeFactory.createBeanType(SupportBean.class);
+        eventTypeTwo = SupportEventTypeFactory.createBeanType(SupportBeanSimple.class);
+
+        filterSpecs = new Vector<FilterValueSet>();
+        filterSpecs.add(SupportFilterSpecBuilder.build(eventTypeOne, new Object[0]).getValueSet(null, null, null));
+        filterSpecs.add(SupportFilterSpecBuilder.build(eventTypeOne, new Object[] {
+                "intPrimitive", FilterOperator.RANGE_CLOSED, 10, 20,
+                "theString", FilterOperator.EQUAL, "HELLO",
+                "boolPrimitive", FilterOperator.EQUAL, false,
+                "doubleBoxed", FilterOperator.GREATER, 100d} ).getValueSet(null, null, null));
+        filterSpecs.add(SupportFilterSpecBuilder.build(eventTypeTwo, new Object[0]).getValueSet(null, null, null));
+        filterSpecs.add(SupportFilterSpecBuilder.build(eventTypeTwo, new Object[] {
+                "myInt", FilterOperator.RANGE_HALF_CLOSED, 1, 10,
+                "myString", FilterOperator.EQUAL, "Hello" }).getValueSet(null, null, null));
+
+        // Create callbacks and add
+        filterCallbacks = new Vector<SupportFilterHandle>();
+        for (int i = 0; i < filterSpecs.size(); i++)
+        {
+            filterCallbacks.add(new SupportFilterHandle());
+            filterService.add(filterSpecs.get(i), filterCallbacks.get(i));
+        }
+
+        // Create events
+        matchesExpected = new Vector<int[]>();
+        events = new Vector<EventBean>();
+
+        events.add(makeTypeOneEvent(15, "HELLO", false, 101));
+        matchesExpected.add(new int[] {1, 1, 0, 0});
+
+        events.add(makeTypeTwoEvent("Hello", 100));
+        matchesExpected.add(new int[] {0, 0, 1, 0});
+
+        events.add(makeTypeTwoEvent("Hello", 1));       // eventNumber = 2
+        matchesExpected.add(new int[] {0, 0, 1, 0});
+
+        events.add(makeTypeTwoEvent("Hello", 2));
+        matchesExpected.add(new int[] {0, 0, 1, 1});
+
+        events.add(makeTypeOneEvent(15, "HELLO", true, 100));
+        matchesExpected.add(new int[] {1, 0, 0, 0});
+
+        events.add(makeTypeOneEvent(15, "HELLO", false, 99));
+        matchesExpected.add(new int[] {1, 0, 0, 0});
+
+        events.add(makeTypeOneEvent(9, "HELLO", false, 100));
+        matchesExpected.add(new int[] {1, 0, 0, 0});
+
+        events.add(makeTypeOneEvent(10, "no", false, 100));
+        matchesExpected.add(new int[] {1, 0, 0, 0});
+
+        events.add(makeTypeOneEvent(15, "HELLO", false, 999999));      // number 8
+        matchesExpected.add(new int[] {1, 1, 0, 0});
+
+        events.add(makeTypeTwoEvent("Hello", 10));
+        matchesExpected.add(new int[] {0, 0, 1, 1});
+
+        events.add(makeTypeTwoEvent("Hello", 11));
+        matchesExpected.add(new int[] {0, 0, 1, 0});
+    }
+
+    public void testEvalEvents()
+    {
+        for (int i = 0; i < events.size(); i++)
+        {
+            List<FilterHandle> matchList = new LinkedList<FilterHandle>();
+            filterService.evaluate(events.get(i), matchList);
+            for (FilterHandle match : matchList)
+            {
+                SupportFilterHandle handle = (SupportFilterHandle) match;
+                handle.matchFound(events.get(i), null);
+            }
+
+            int[] matches = matchesExpected.get(i);
+
+            for (int j = 0; j < matches.length; j++)
+            {
+                SupportFilterHandle callback = filterCallbacks.get(j);
+
+                if (matches[j] != callback.getAndResetCountInvoked())
+                {
+                    log.debug(".testEvalEvents Match failed, event=" + events.get(i).getUnderlying());
+                    log.debug(".testEvalEvents Match failed, eventNumber=" + i + " index=" + j);
+                    assertTrue(false);
+                }
+            }
+        }
+    }
+
+    public void testReusedCallback()
+    {
+        try
+        {
+            filterService.add(filterSpecs.get(0), filterCallbacks.get(0));
+            assertTrue(false);
+        }
+        catch (IllegalStateException ex)
+        {
+            // Expected exception
+        }
+    }
+
+    /**
+     * Test for removing a callback that is waiting to occur,
+     * ie. a callback is removed which was a result of an evaluation and it
+     * thus needs to be removed from the tree AND the current dispatch list.
+     */
+    public void testActiveCallbackRemove()
+    {
+        FilterValueSet spec = SupportFilterSpecBuilder.build(eventTypeOne, new Object[0]).getValueSet(null, null, null);
+        final SupportFilterHandle callbackTwo = new SupportFilterHandle();
+
+        // callback that removes another matching filter spec callback
+        FilterHandleCallback callbackOne = new FilterHandleCallback()
+        {
+            public String getStatementId()
+            {
+                return "";
+            }
+
+            public void matchFound(EventBean theEvent, Collection<FilterHandleCallback> allStmtMatches)
+            {
+                log.debug(".matchFound Removing callbackTwo");
+                filterService.remove(callbackTwo);
+            }
+
+            public boolean isSubSelect()
+            {
+                return false;
+            }
+        };
+
+        filterService.add(spec, callbackOne);
+        filterService.add(spec, callbackTwo);
+
+        // send event
+        EventBean theEvent = makeTypeOneEvent(1, "HELLO", false, 1);
+        List<FilterHandle> matches = new LinkedList<FilterHandle>();
+        filterService.evaluate(theEvent, matches);
+        for (FilterHandle match : matches)
+        {
+            FilterHandleCallback handle = (FilterHandleCallback) match;
+            handle.matchFound(theEvent, null);
+        }
+
+        // Callback two MUST be invoked, was removed by callback one, but since the
+        // callback invocation order should not matter, the second one MUST also execute
+        assertEquals(1, callbackTwo.getAndResetCountInvoked());
+    }
+
+    public void testAddRemoveWhileEvaluating() throws Exception
+    {
+        final FilterValueSet stableSpec = SupportFilterSpecBuilder.build(eventTypeOne, new Object[] {
+                "intPrimitive", FilterOperator.EQUAL, 15}).getValueSet(null, null, null);
+        final FilterValueSet[] changingSpecs = new FilterValueSet[] {
+                SupportFilterSpecBuilder.build(eventTypeOne, new Object[] {
+                    "theString", FilterOperator.EQUAL, "HELLO"}).getValueSet(null, null, null),
+                SupportFilterSpecBuilder.build(eventTypeOne, new Object[] {
+                    "intPrimitive", FilterOperator.RANGE_CLOSED, 10, 20,
+                    "theString", FilterOperator.EQUAL, "HELLO"}).getValueSet(null, null, null),
+                SupportFilterSpecBuilder.build(eventTypeOne, new Object[] {
+                    "doubleBoxed", FilterOperator.GREATER, 100d}).getValueSet(null, null, null)};
+        final FilterServiceCopyOnWrite service = new FilterServiceCopyOnWrite();
+        final SupportFilterHandle stableHandle = new SupportFilterHandle();
+        service.add(stableSpec, stableHandle);
+
+        final int numWriters = 3;
+        final int numReaders = 3;
+        final Set<FilterHandle> changingHandles = new HashSet<FilterHandle>();
+        final SupportFilterHandle[][] writerHandles = new SupportFilterHandle[numWriters][changingSpecs.length];
+        for (int i = 0; i < numWriters; i++)
+        {
+            for (int j = 0; j < changingSpecs.length; j++)
+            {
+                writerHandles[i][j] = new SupportFilterHandle();
+                changingHandles.add(writerHandles[i][j]);
+            }
+        }
+        final EventBean theEvent = makeTypeOneEvent(15, "HELLO", false, 101);
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final CountDownLatch writersDoneLatch = new CountDownLatch(numWriters);
+
+        ExecutorService threadPool = Executors.newFixedThreadPool(numWriters + numReaders);
+        List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+        for (int i = 0; i < numWriters; i++)
+        {
+            final SupportFilterHandle[] handles = writerHandles[i];
+            futures.add(threadPool.submit(new Callable<Integer>()
+            {
+                public Integer call() throws Exception
+                {
+                    startLatch.await();
+                    try
+                    {
+                        for (int loop = 0; loop < 2000; loop++)
+                        {
+                            for (int j = 0; j < handles.length; j++)
+                            {
+                                service.add(changingSpecs[j], handles[j]);
+                            }
+                            for (int j = 0; j < handles.length; j++)
+                            {
+                                service.remove(handles[j]);
+                            }
+                        }
+                    }
+                    finally
+                    {
+                        writersDoneLatch.countDown();
+                    }
+                    return 0;
+                }
+            }));
+        }
+        for (int i = 0; i < numReaders; i++)
+        {
+            futures.add(threadPool.submit(new Callable<Integer>()
+            {
+                public Integer call() throws Exception
+                {
+                    startLatch.await();
+                    int countChanging = 0;
+                    while (writersDoneLatch.getCount() > 0)
+                    {
+                        List<FilterHandle> matches = new ArrayList<FilterHandle>();
+                        service.evaluate(theEvent, matches);
+                        assertEquals(matches.size(), new HashSet<FilterHandle>(matches).size());
+                        assertTrue(matches.contains(stableHandle));
+                        for (FilterHandle match : matches)
+                        {
+                            if (match != stableHandle)
+                            {
+                                assertTrue(changingHandles.contains(match));
+                                countChanging++;
+                            }
+                        }
+                    }
+                    return countChanging;
+                }
+            }));
+        }
+
+        startLatch.countDown();
+        threadPool.shutdown();
+        assertTrue(threadPool.awaitTermination(60, TimeUnit.SECONDS));
+        for (Future<Integer> future : futures)
+        {
+            future.get();
+        }
+
+        List<FilterHandle> matches = new ArrayList<FilterHandle>();
+        service.evaluate(theEvent, matches);
+        assertEquals(1, matches.size());
+        assertSame(stableHandle, matches.get(0));
+        assertEquals(1, service.getFilterCountApprox());
+    }
+
+    /**
+     * Test for a filter that is removed while another thread is matching an event: matching continues on the
+     * index tree of the time it started, and removing does not wait for matching to complete.
+     */
+    public void testRemoveWhileMatching() throws Exception
+    {
+        FilterValueSet spec = SupportFilterSpecBuilder.build(eventTypeOne, new Object[] {
+                "theString", FilterOperator.EQUAL, "BLOCK"}).getValueSet(null, null, null);
+        final FilterServiceCopyOnWrite service = new FilterServiceCopyOnWrite();
+        final SupportFilterHandle handleOne = new SupportFilterHandle();
+        final SupportFilterHandle handleTwo = new SupportFilterHandle();
+        service.add(spec, handleOne);
+        service.add(spec, handleTwo);
+
+        final CountDownLatch enteredLatch = new CountDownLatch(1);
+        final CountDownLatch proceedLatch = new CountDownLatch(1);
+        BlockingSupportBean bean = new BlockingSupportBean(enteredLatch, proceedLatch);
+        bean.setTheString("BLOCK");
+        final EventBean theEvent = new BeanEventBean(bean, eventTypeOne);
+
+        ExecutorService threadPool = Executors.newFixedThreadPool(2);
+        try
+        {
+            Future<List<FilterHandle>> evaluateFuture = threadPool.submit(new Callable<List<FilterHandle>>()
+            {
+                public List<FilterHandle> call() throws Exception
+                {
+                    List<FilterHandle> matches = new ArrayList<FilterHandle>();
+                    service.evaluate(theEvent, matches);
+                    return matches;
+                }
+            });
+
+            // remove while the evaluating thread is reading the event property
+            assertTrue(enteredLatch.await(10, TimeUnit.SECONDS));
+            Future removeFuture = threadPool.submit(new Runnable()
+            {
+                public void run()
+                {
+                    service.remove(handleTwo);
+                }
+            });
+            removeFuture.get(10, TimeUnit.SECONDS);
+            proceedLatch.countDown();
+
+            List<FilterHandle> matches = evaluateFuture.get(10, TimeUnit.SECONDS);
+            assertEquals(2, matches.size());
+            assertTrue(matches.contains(handleOne));
+            assertTrue(matches.contains(handleTwo));
+        }
+        finally
+        {
+            threadPool.shutdownNow();
+        }
+
+        // a subsequent evaluation no longer sees the removed filter
+        List<FilterHandle> matches = new ArrayList<FilterHandle>();
+        service.evaluate(theEvent, matches);
+        assertEquals(1, matches.size());
+        assertSame(handleOne, matches.get(0));
+    }
+
+    private EventBean makeTypeOneEvent(int intPrimitive, String theString, boolean boolPrimitive, double doubleBoxed)
+    {
+        SupportBean bean = new SupportBean();
+        bean.setIntPrimitive(intPrimitive);
+        bean.setTheString(theString);
+        bean.setBoolPrimitive(boolPrimitive);
+        bean.setDoubleBoxed(doubleBoxed);
+        return SupportEventBeanFactory.createObject(bean);
+    }
+
+    private EventBean makeTypeTwoEvent(String myString, int myInt)
+    {
+        SupportBeanSimple bean = new SupportBeanSimple(myString, myInt);
+        return SupportEventBeanFactory.createObject(bean);
+    }
+
+    /**
+     * Blocks the first read of the string property until released.
+     */
+    private static class BlockingSupportBean extends SupportBean
+    {
+        private final CountDownLatch enteredLatch;
+        private final CountDownLatch proceedLatch;
+
+        private BlockingSupportBean(CountDownLatch enteredLatch, CountDownLatch proceedLatch)
+        {
+            this.enteredLatch = enteredLatch;
+            this.proceedLatch = proceedLatch;
+        }
+
+        public String getTheString()
+        {
+            if (enteredLatch.getCount() > 0)
+            {
+                enteredLatch.countDown();
+                try
+                {
+                    proceedLatch.await(10, TimeUnit.SECONDS);
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return super.getTheString();
+        }
+    }
+
+    private static final Log log = LogFactory.getLog(TestFilterServiceCopyOnWrite.class);
+}
@@ -11,16 +11,21 @@
 
 package com.espertech.esper.filter;
 
+import com.espertech.esper.client.ConfigurationEngineDefaults;
 import junit.framework.TestCase;
 
 public class TestFilterServiceProvider extends TestCase
 {
     public void testGetService()
     {
-        FilterService serviceOne = FilterServiceProvider.newService();
-        FilterService serviceTwo = FilterServiceProvider.newService();
+        FilterService serviceOne = FilterServiceProvider.newService(ConfigurationEngineDefaults.FilterServiceType.LOCKING);
+        FilterService serviceTwo = FilterServiceProvider.newService(ConfigurationEngineDefaults.FilterServiceType.LOCKING);
 
         assertTrue(serviceOne != null);
         assertTrue(serviceOne != serviceTwo);
+        assertTrue(serviceOne instanceof FilterServiceImpl);
+
+        FilterService serviceCopyOnWrite = FilterServiceProvider.newService(ConfigurationEngineDefaults.FilterServiceType.COPY_ON_WRITE);
+        assertTrue(serviceCopyOnWrite instanceof FilterServiceCopyOnWrite);
     }
 }
@@ -19,6 +19,7 @@ import junit.framework.TestCase;
 public class TestIndexFactory extends TestCase
 {
     EventType eventType;
+    FilterServiceGranularLockFactory lockFactory = new FilterServiceGranularLockFactoryReentrant();
 
     public void setUp()
     {
@@ -28,7 +29,7 @@ public class TestIndexFactory extends TestCase
     public void testCreateIndex()
     {
         // Create a "greater" index
-        FilterParamIndexBase index = IndexFactory.createIndex(makeLookupable("intPrimitive"), FilterOperator.GREATER);
+        FilterParamIndexBase index = IndexFactory.createIndex(makeLookupable("intPrimitive"), lockFactory, FilterOperator.GREATER);
 
         assertTrue(index != null);
         assertTrue(index instanceof FilterParamIndexCompare);
@@ -36,7 +37,7 @@ public class TestIndexFactory extends TestCase
         assertTrue(index.getFilterOperator() == FilterOperator.GREATER);
 
         // Create an "equals" index
-        index = IndexFactory.createIndex(makeLookupable("string"), FilterOperator.EQUAL);
+        index = IndexFactory.createIndex(makeLookupable("string"), lockFactory, FilterOperator.EQUAL);
 
         assertTrue(index != null);
         assertTrue(index instanceof FilterParamIndexEquals);
@@ -44,7 +45,7 @@ public class TestIndexFactory extends TestCase
         assertTrue(index.getFilterOperator() == FilterOperator.EQUAL);
 
         // Create an "not equals" index
-        index = IndexFactory.createIndex(makeLookupable("string"), FilterOperator.NOT_EQUAL);
+        index = IndexFactory.createIndex(makeLookupable("string"), lockFactory, FilterOperator.NOT_EQUAL);
 
         assertTrue(index != null);
         assertTrue(index instanceof FilterParamIndexNotEquals);
@@ -52,21 +53,21 @@ public class TestIndexFactory extends TestCase
         assertTrue(index.getFilterOperator() == FilterOperator.NOT_EQUAL);
 
         // Create a range index
-        index = IndexFactory.createIndex(makeLookupable("doubleBoxed"), FilterOperator.RANGE_CLOSED);
+        index = IndexFactory.createIndex(makeLookupable("doubleBoxed"), lockFactory, FilterOperator.RANGE_CLOSED);
         assertTrue(index instanceof FilterParamIndexDoubleRange);
-        index = IndexFactory.createIndex(makeLookupable("doubleBoxed"), FilterOperator.NOT_RANGE_CLOSED);
+        index = IndexFactory.createIndex(makeLookupable("doubleBoxed"), lockFactory, FilterOperator.NOT_RANGE_CLOSED);
         assertTrue(index instanceof FilterParamIndexDoubleRangeInverted);
 
         // Create a in-index
-        index = IndexFactory.createIndex(makeLookupable("doubleBoxed"), FilterOperator.IN_LIST_OF_VALUES);
+        index = IndexFactory.createIndex(makeLookupable("doubleBoxed"), lockFactory, FilterOperator.IN_LIST_OF_VALUES);
         assertTrue(index instanceof FilterParamIndexIn);
-        index = IndexFactory.createIndex(makeLookupable("doubleBoxed"), FilterOperator.NOT_IN_LIST_OF_VALUES);
+        index = IndexFactory.createIndex(makeLookupable("doubleBoxed"), lockFactory, FilterOperator.NOT_IN_LIST_OF_VALUES);
         assertTrue(index instanceof FilterParamIndexNotIn);
 
         // Create a boolean-expression-index
-        index = IndexFactory.createIndex(makeLookupable("boolean"), FilterOperator.BOOLEAN_EXPRESSION);
+        index = IndexFactory.createIndex(makeLookupable("boolean"), lockFactory, FilterOperator.BOOLEAN_EXPRESSION);
         assertTrue(index instanceof FilterParamIndexBooleanExpr);
-        index = IndexFactory.createIndex(makeLookupable("boolean"), FilterOperator.BOOLEAN_EXPRESSION);
+        index = IndexFactory.createIndex(makeLookupable("boolean"), lockFactory, FilterOperator.BOOLEAN_EXPRESSION);
         assertTrue(index instanceof FilterParamIndexBooleanExpr);
     }
 
@@ -28,6 +28,7 @@ public class TestIndexHelper extends TestCase
     private FilterValueSetParam parameterOne;
     private FilterValueSetParam parameterTwo;
     private FilterValueSetParam parameterThree;
+    private FilterServiceGranularLockFactory lockFactory = new FilterServiceGranularLockFactoryReentrant();
 
     public void setUp()
     {
@@ -48,18 +49,18 @@ public class TestIndexHelper extends TestCase
         List<FilterParamIndexBase> indexes = new LinkedList<FilterParamIndexBase>();
 
         // Create index list wity index that doesn't match
-        FilterParamIndexBase indexOne = IndexFactory.createIndex(makeLookupable("boolPrimitive"), FilterOperator.EQUAL);
+        FilterParamIndexBase indexOne = IndexFactory.createIndex(makeLookupable("boolPrimitive"), lockFactory, FilterOperator.EQUAL);
         indexes.add(indexOne);
         assertTrue(IndexHelper.findIndex(parameters, indexes) == null);
 
         // Create index list wity index that doesn't match
-        indexOne = IndexFactory.createIndex(makeLookupable("doubleBoxed"), FilterOperator.GREATER_OR_EQUAL);
+        indexOne = IndexFactory.createIndex(makeLookupable("doubleBoxed"), lockFactory, FilterOperator.GREATER_OR_EQUAL);
         indexes.clear();
         indexes.add(indexOne);
         assertTrue(IndexHelper.findIndex(parameters, indexes) == null);
 
         // Add an index that does match a parameter
-        FilterParamIndexBase indexTwo = IndexFactory.createIndex(makeLookupable("doubleBoxed"), FilterOperator.GREATER);
+        FilterParamIndexBase indexTwo = IndexFactory.createIndex(makeLookupable("doubleBoxed"), lockFactory, FilterOperator.GREATER);
         indexes.add(indexTwo);
         Pair<FilterValueSetParam, FilterParamIndexBase> pair = IndexHelper.findIndex(parameters, indexes);
         assertTrue(pair != null);
@@ -67,7 +68,7 @@ public class TestIndexHelper extends TestCase
         assertEquals(indexTwo, pair.getSecond());
 
         // Add another index that does match a parameter, should return first match however which is doubleBoxed
-        FilterParamIndexBase indexThree = IndexFactory.createIndex(makeLookupable("intPrimitive"), FilterOperator.GREATER);
+        FilterParamIndexBase indexThree = IndexFactory.createIndex(makeLookupable("intPrimitive"), lockFactory, FilterOperator.GREATER);
         indexes.add(indexThree);
         pair = IndexHelper.findIndex(parameters, indexes);
         assertEquals(parameterOne, pair.getFirst());
@@ -82,13 +83,13 @@ public class TestIndexHelper extends TestCase
 
     public void testFindParameter()
     {
-        FilterParamIndexBase indexOne = IndexFactory.createIndex(makeLookupable("boolPrimitive"), FilterOperator.EQUAL);
+        FilterParamIndexBase indexOne = IndexFactory.createIndex(makeLookupable("boolPrimitive"), lockFactory, FilterOperator.EQUAL);
         assertNull(IndexHelper.findParameter(parameters, indexOne));
 
-        FilterParamIndexBase indexTwo = IndexFactory.createIndex(makeLookupable("string"), FilterOperator.EQUAL);
+        FilterParamIndexBase indexTwo = IndexFactory.createIndex(makeLookupable("string"), lockFactory, FilterOperator.EQUAL);
         assertEquals(parameterThree, IndexHelper.findParameter(parameters, indexTwo));
 
-        FilterParamIndexBase indexThree = IndexFactory.createIndex(makeLookupable("intPrimitive"), FilterOperator.GREATER);
+        FilterParamIndexBase indexThree = IndexFactory.createIndex(makeLookupable("intPrimitive"), lockFactory, FilterOperator.GREATER);
         assertEquals(parameterOne, IndexHelper.findParameter(parameters, indexThree));
     }
 
@@ -11,6 +11,7 @@
 
 package com.espertech.esper.filter;
 
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import junit.framework.TestCase;
 import com.espertech.esper.support.bean.SupportBean;
 import com.espertech.esper.support.filter.SupportFilterSpecBuilder;
@@ -39,7 +40,7 @@ public class TestIndexTreeBuilder extends TestCase
         testBean.setLongPrimitive(10);
         testBean.setShortPrimitive((short) 20);
 
-        builder = new IndexTreeBuilder();
+        builder = new IndexTreeBuilder(new FilterServiceGranularLockFactoryReentrant());
         eventBean = SupportEventBeanFactory.createObject(testBean);
         eventType = eventBean.getEventType();
 
@@ -55,7 +56,7 @@ public class TestIndexTreeBuilder extends TestCase
 
     public void testBuildWithMatch()
     {
-        FilterHandleSetNode topNode = new FilterHandleSetNode();
+        FilterHandleSetNode topNode = new FilterHandleSetNode(new ReentrantReadWriteLock());
 
         // Add some parameter-less expression
         FilterValueSet filterSpec = makeFilterValues();
@@ -176,7 +177,7 @@ public class TestIndexTreeBuilder extends TestCase
 
     public void testBuildMatchRemove()
     {
-        FilterHandleSetNode top = new FilterHandleSetNode();
+        FilterHandleSetNode top = new FilterHandleSetNode(new ReentrantReadWriteLock());
 
         // Add a parameter-less filter
         FilterValueSet filterSpecNoParams = makeFilterValues();
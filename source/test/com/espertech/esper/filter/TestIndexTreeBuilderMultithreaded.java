@@ -11,6 +11,7 @@
 
 package com.espertech.esper.filter;
 
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.Vector;
 import java.util.List;
 import java.util.LinkedList;
@@ -45,9 +46,9 @@ public class TestIndexTreeBuilderMultithreaded extends TestCase
 
     public void setUp()
     {
-        builder = new IndexTreeBuilder();
+        builder = new IndexTreeBuilder(new FilterServiceGranularLockFactoryReentrant());
         eventType = SupportEventTypeFactory.createBeanType(SupportBean.class);
-        topNode = new FilterHandleSetNode();
+        topNode = new FilterHandleSetNode(new ReentrantReadWriteLock());
         filterCallbacks = new LinkedList<FilterHandle>();
         pathsAddedTo = new LinkedList<IndexTreePath>();
 
@@ -145,15 +146,15 @@ public class TestIndexTreeBuilderMultithreaded extends TestCase
 
     public void testMultithreaded() throws Exception
     {
-        FilterHandleSetNode topNode = new FilterHandleSetNode();
+        FilterHandleSetNode topNode = new FilterHandleSetNode(new ReentrantReadWriteLock());
 
         performMultithreadedTest(topNode, 2, 1000, 1);
         performMultithreadedTest(topNode, 3, 1000, 1);
         performMultithreadedTest(topNode, 4, 1000, 1);
 
-        performMultithreadedTest(new FilterHandleSetNode(), 2, 1000, 1);
-        performMultithreadedTest(new FilterHandleSetNode(), 3, 1000, 1);
-        performMultithreadedTest(new FilterHandleSetNode(), 4, 1000, 1);
+        performMultithreadedTest(new FilterHandleSetNode(new ReentrantReadWriteLock()), 2, 1000, 1);
+        performMultithreadedTest(new FilterHandleSetNode(new ReentrantReadWriteLock()), 3, 1000, 1);
+        performMultithreadedTest(new FilterHandleSetNode(new ReentrantReadWriteLock()), 4, 1000, 1);
     }
 
     private void performMultithreadedTest(FilterHandleSetNode topNode,
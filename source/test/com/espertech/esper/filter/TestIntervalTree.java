@@ -0,0 +1,243 @@
+/*
+ * *************************************************************************************
+ *  Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ *  http://esper.codehaus.org                                                          *
+ *  http://www.espertech.com                                                           *
+ *  ---------------------------------------------------------------------------------- *
+ *  The software in this package is published under the terms of the GPL license       *
+ *  a copy of which has been included with this distribution in the license.txt file.  *
+ * *************************************************************************************
+ */
+
+package com.espertech.esper.filter;
+
+import com.espertech.esper.client.EventBean;
+import com.espertech.esper.collection.Pair;
+import com.espertech.esper.support.filter.SupportFilterHandle;
+import junit.framework.TestCase;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+public class TestIntervalTree extends TestCase
+{
+    private static final Comparator<Double> ENDPOINT_COMPARATOR = new Comparator<Double>()
+    {
+        public int compare(Double o1, Double o2)
+        {
+            return o1.compareTo(o2);
+        }
+    };
+
+    // orders ranges by low endpoint and then high endpoint, the order matches are reported in
+    private static final Comparator<SupportRange> RANGE_COMPARATOR = new Comparator<SupportRange>()
+    {
+        public int compare(SupportRange o1, SupportRange o2)
+        {
+            int comp = o1.low.compareTo(o2.low);
+            return comp != 0 ? comp : o1.high.compareTo(o2.high);
+        }
+    };
+
+    private IntervalTree<Double> tree;
+
+    public void setUp()
+    {
+        tree = new IntervalTree<Double>(ENDPOINT_COMPARATOR);
+    }
+
+    public void testPutGetRemove()
+    {
+        HandleEventEvaluator evalOne = new HandleEventEvaluator();
+        HandleEventEvaluator evalTwo = new HandleEventEvaluator();
+        assertNull(tree.put(new DoubleRange(1d, 5d), evalOne));
+        assertNull(tree.put(new DoubleRange(1d, 6d), evalTwo));
+        assertEquals(2, tree.size());
+
+        assertSame(evalOne, tree.get(new DoubleRange(1d, 5d)));
+        assertSame(evalTwo, tree.get(new DoubleRange(6d, 1d)));
+        assertNull(tree.get(new DoubleRange(1d, 4d)));
+
+        assertSame(evalOne, tree.put(new DoubleRange(1d, 5d), evalTwo));
+        assertSame(evalTwo, tree.get(new DoubleRange(1d, 5d)));
+        assertEquals(2, tree.size());
+
+        assertSame(evalTwo, tree.remove(new DoubleRange(1d, 5d)));
+        assertNull(tree.remove(new DoubleRange(1d, 5d)));
+        assertEquals(1, tree.size());
+
+        List<Pair<Object, EventEvaluator>> entries = new ArrayList<Pair<Object, EventEvaluator>>();
+        tree.getEntries(entries);
+        assertEquals(1, entries.size());
+        assertEquals(new DoubleRange(1d, 6d), entries.get(0).getFirst());
+    }
+
+    public void testEndpoints()
+    {
+        HandleEventEvaluator eval = new HandleEventEvaluator();
+        tree.put(new DoubleRange(1d, 5d), eval);
+
+        assertContaining(1d, true, true, true);
+        assertContaining(1d, false, true, false);
+        assertContaining(5d, true, true, true);
+        assertContaining(5d, true, false, false);
+        assertContaining(3d, false, false, true);
+        assertContaining(0.5d, true, true, false);
+        assertContaining(5.5d, true, true, false);
+    }
+
+    public void testRandomCompareScan()
+    {
+        Random random = new Random(31);
+        for (int round = 0; round < 30; round++)
+        {
+            IntervalTree<Double> tree = new IntervalTree<Double>(ENDPOINT_COMPARATOR);
+            TreeMap<SupportRange, HandleEventEvaluator> expected = new TreeMap<SupportRange, HandleEventEvaluator>(RANGE_COMPARATOR);
+            int endpointSpace = 2 + random.nextInt(round < 15 ? 10 : 200);
+
+            for (int op = 0; op < 2000; op++)
+            {
+                int choice = random.nextInt(10);
+                if (choice < 4)
+                {
+                    // includes inverted ranges, low above high, which contain no value
+                    SupportRange range = new SupportRange(random.nextInt(endpointSpace), random.nextInt(endpointSpace));
+                    HandleEventEvaluator evaluator = new HandleEventEvaluator();
+                    assertSame(expected.put(range, evaluator), tree.put(range, evaluator));
+                }
+                else if (choice < 6)
+                {
+                    SupportRange range = new SupportRange(random.nextInt(endpointSpace), random.nextInt(endpointSpace));
+                    assertSame(expected.remove(range), tree.remove(range));
+                }
+                else
+                {
+                    // values on, between and outside of the endpoints
+                    double value = (random.nextInt(2 * endpointSpace + 4) - 2) / 2d;
+                    boolean includeLow = random.nextBoolean();
+                    boolean includeHigh = random.nextBoolean();
+
+                    List<FilterHandle> expectedContaining = new ArrayList<FilterHandle>();
+                    List<FilterHandle> expectedNotContaining = new ArrayList<FilterHandle>();
+                    for (Map.Entry<SupportRange, HandleEventEvaluator> entry : expected.entrySet())
+                    {
+                        if (entry.getKey().contains(value, includeLow, includeHigh))
+                        {
+                            expectedContaining.add(entry.getValue().handle);
+                        }
+                        else
+                        {
+                            expectedNotContaining.add(entry.getValue().handle);
+                        }
+                    }
+
+                    List<FilterHandle> containing = new ArrayList<FilterHandle>();
+                    tree.matchContaining(value, includeLow, includeHigh, null, containing);
+                    assertEquals(expectedContaining, containing);
+
+                    List<FilterHandle> notContaining = new ArrayList<FilterHandle>();
+                    tree.matchNotContaining(value, includeLow, includeHigh, null, notContaining);
+                    assertEquals(expectedNotContaining, notContaining);
+                }
+                assertEquals(expected.size(), tree.size());
+            }
+
+            List<Pair<Object, EventEvaluator>> entries = new ArrayList<Pair<Object, EventEvaluator>>();
+            tree.getEntries(entries);
+            assertEquals(expected.size(), entries.size());
+            int index = 0;
+            for (Map.Entry<SupportRange, HandleEventEvaluator> entry : expected.entrySet())
+            {
+                assertEquals(0, RANGE_COMPARATOR.compare(entry.getKey(), (SupportRange) entries.get(index).getFirst()));
+                assertSame(entry.getValue(), entries.get(index).getSecond());
+                index++;
+            }
+        }
+    }
+
+    public void testPerfOverlappingRanges()
+    {
+        // 100k price bands of width 0 to 2000 over prices 0 to 100000
+        Random random = new Random(5);
+        int numRanges = 100000;
+        for (int i = 0; i < numRanges; i++)
+        {
+            double low = (i * 7919) % 100000;
+            tree.put(new DoubleRange(low, low + random.nextInt(2000)), new HandleEventEvaluator());
+        }
+        assertEquals(numRanges, tree.size());
+
+        int numEvents = 500;
+        long totalMatches = 0;
+        List<FilterHandle> matches = new ArrayList<FilterHandle>();
+        long start = System.nanoTime();
+        for (int i = 0; i < numEvents; i++)
+        {
+            matches.clear();
+            tree.matchContaining((double) random.nextInt(100000), true, true, null, matches);
+            totalMatches += matches.size();
+        }
+        long delta = System.nanoTime() - start;
+        log.info("Matched " + (totalMatches / numEvents) + " ranges per event in " + (delta / numEvents / 1000) + " usec per event");
+        assertTrue("Delta=" + delta / 1000000, delta < 5000L * 1000 * 1000);
+    }
+
+    private void assertContaining(double value, boolean includeLow, boolean includeHigh, boolean expected)
+    {
+        List<FilterHandle> containing = new ArrayList<FilterHandle>();
+        tree.matchContaining(value, includeLow, includeHigh, null, containing);
+        assertEquals(expected ? 1 : 0, containing.size());
+
+        List<FilterHandle> notContaining = new ArrayList<FilterHandle>();
+        tree.matchNotContaining(value, includeLow, includeHigh, null, notContaining);
+        assertEquals(expected ? 0 : 1, notContaining.size());
+    }
+
+    private static class SupportRange implements Range
+    {
+        private final Double low;
+        private final Double high;
+
+        private SupportRange(double low, double high)
+        {
+            this.low = low;
+            this.high = high;
+        }
+
+        public Object getLowEndpoint()
+        {
+            return low;
+        }
+
+        public Object getHighEndpoint()
+        {
+            return high;
+        }
+
+        private boolean contains(double value, boolean includeLow, boolean includeHigh)
+        {
+            boolean aboveLow = includeLow ? value >= low : value > low;
+            boolean belowHigh = includeHigh ? value <= high : value < high;
+            return aboveLow && belowHigh;
+        }
+    }
+
+    private static class HandleEventEvaluator implements EventEvaluator
+    {
+        private final FilterHandle handle = new SupportFilterHandle();
+
+        public void matchEvent(EventBean theEvent, Collection<FilterHandle> matches)
+        {
+            matches.add(handle);
+        }
+    }
+
+    private static final Log log = LogFactory.getLog(TestIntervalTree.class);
+}
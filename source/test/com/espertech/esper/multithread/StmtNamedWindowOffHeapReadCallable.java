@@ -0,0 +1,66 @@
+/*
+ * *************************************************************************************
+ *  Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ *  http://esper.codehaus.org                                                          *
+ *  http://www.espertech.com                                                           *
+ *  ---------------------------------------------------------------------------------- *
+ *  The software in this package is published under the terms of the GPL license       *
+ *  a copy of which has been included with this distribution in the license.txt file.  *
+ * *************************************************************************************
+ */
+package com.espertech.esper.multithread;
+
+import com.espertech.esper.client.EventBean;
+import junit.framework.Assert;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+public class StmtNamedWindowOffHeapReadCallable implements Callable
+{
+    private final AtomicReferenceArray<EventBean> published;
+    private final int numRepeats;
+
+    public StmtNamedWindowOffHeapReadCallable(AtomicReferenceArray<EventBean> published, int numRepeats)
+    {
+        this.published = published;
+        this.numRepeats = numRepeats;
+    }
+
+    public Object call() throws Exception
+    {
+        Random random = new Random();
+        try
+        {
+            for (int loop = 0; loop < numRepeats; loop++)
+            {
+                // the row of the event may be removed, compacted or reused at any time, the values must stay those of the event
+                EventBean event = published.get(random.nextInt(published.length()));
+                if (event == null)
+                {
+                    continue;
+                }
+                int num = (Integer) event.get("num");
+                Assert.assertEquals("E" + num, event.get("id"));
+                Assert.assertEquals(TestMTStmtNamedWindowOffHeap.makeText(num), event.get("text"));
+
+                Map underlying = (Map) event.getUnderlying();
+                Assert.assertEquals(num, underlying.get("num"));
+                Assert.assertEquals("E" + num, underlying.get("id"));
+                Assert.assertEquals(TestMTStmtNamedWindowOffHeap.makeText(num), underlying.get("text"));
+            }
+        }
+        catch (Throwable ex)
+        {
+            log.fatal("Error in thread " + Thread.currentThread().getId(), ex);
+            return false;
+        }
+        return true;
+    }
+
+    private static final Log log = LogFactory.getLog(StmtNamedWindowOffHeapReadCallable.class);
+}
@@ -0,0 +1,71 @@
+/*
+ * *************************************************************************************
+ *  Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ *  http://esper.codehaus.org                                                          *
+ *  http://www.espertech.com                                                           *
+ *  ---------------------------------------------------------------------------------- *
+ *  The software in this package is published under the terms of the GPL license       *
+ *  a copy of which has been included with this distribution in the license.txt file.  *
+ * *************************************************************************************
+ */
+
+package com.espertech.esper.multithread;
+
+import com.espertech.esper.client.EPRuntime;
+import com.espertech.esper.client.EPServiceProvider;
+import com.espertech.esper.client.EventBean;
+import junit.framework.Assert;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+public class StmtNamedWindowRangeQueryCallable implements Callable
+{
+    private final EPRuntime engine;
+    private final int numRepeats;
+    private final long rangeStart;
+    private final long rangeEnd;
+
+    public StmtNamedWindowRangeQueryCallable(EPServiceProvider engine, int numRepeats, long rangeStart, long rangeEnd)
+    {
+        this.engine = engine.getEPRuntime();
+        this.numRepeats = numRepeats;
+        this.rangeStart = rangeStart;
+        this.rangeEnd = rangeEnd;
+    }
+
+    public Object call() throws Exception
+    {
+        String[] queries = new String[] {
+                "select * from MyWindow where longPrimitive between " + rangeStart + " and " + rangeEnd,
+                "select * from MyWindow where longPrimitive >= " + rangeStart + " and longPrimitive <= " + rangeEnd
+        };
+        try
+        {
+            for (int loop = 0; loop < numRepeats; loop++)
+            {
+                // each key has exactly one row at any time, therefore each query finds exactly one row per key of the range
+                EventBean[] rows = engine.executeQuery(queries[loop % queries.length]).getArray();
+                Assert.assertEquals(rangeEnd - rangeStart + 1, rows.length);
+                Set<Long> keys = new HashSet<Long>();
+                for (EventBean row : rows)
+                {
+                    long key = (Long) row.get("longPrimitive");
+                    Assert.assertTrue(key >= rangeStart && key <= rangeEnd);
+                    Assert.assertTrue(keys.add(key));
+                }
+            }
+        }
+        catch (Throwable ex)
+        {
+            log.fatal("Error in thread " + Thread.currentThread().getId(), ex);
+            return false;
+        }
+        return true;
+    }
+
+    private static final Log log = LogFactory.getLog(StmtNamedWindowRangeQueryCallable.class);
+}
@@ -0,0 +1,102 @@
+/*
+ * *************************************************************************************
+ *  Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ *  http://esper.codehaus.org                                                          *
+ *  http://www.espertech.com                                                           *
+ *  ---------------------------------------------------------------------------------- *
+ *  The software in this package is published under the terms of the GPL license       *
+ *  a copy of which has been included with this distribution in the license.txt file.  *
+ * *************************************************************************************
+ */
+
+package com.espertech.esper.multithread;
+
+import com.espertech.esper.client.Configuration;
+import com.espertech.esper.client.EPServiceProvider;
+import com.espertech.esper.client.EPServiceProviderManager;
+import com.espertech.esper.support.bean.SupportBean;
+import com.espertech.esper.support.client.SupportConfigFactory;
+import junit.framework.TestCase;
+
+import java.util.Random;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Test for multithread-safety of fire-and-forget range queries using an index of a named window that is being updated.
+ */
+public class TestMTStmtNamedWindowFAFRange extends TestCase
+{
+    private static final int NUM_KEYS = 1000;
+
+    private EPServiceProvider engine;
+
+    public void setUp()
+    {
+        Configuration configuration = SupportConfigFactory.getConfiguration();
+        configuration.addEventType("SupportBean", SupportBean.class);
+        engine = EPServiceProviderManager.getDefaultProvider(configuration);
+        engine.initialize();
+
+        engine.getEPAdministrator().createEPL("create window MyWindow.std:unique(theString) as SupportBean");
+        engine.getEPAdministrator().createEPL("insert into MyWindow select * from SupportBean");
+        engine.getEPAdministrator().createEPL("create index MyIndex on MyWindow(longPrimitive btree)");
+        for (int i = 0; i < NUM_KEYS; i++)
+        {
+            sendEvent(i, 0);
+        }
+    }
+
+    protected void tearDown() throws Exception
+    {
+        engine.initialize();
+    }
+
+    public void testThreading() throws Exception
+    {
+        tryRangeQuery(2, 300);
+    }
+
+    private void tryRangeQuery(int numThreads, int numRepeats) throws Exception
+    {
+        // the updating thread replaces rows, which removes and adds the keys of the index, while the query threads run range queries
+        final AtomicBoolean shutdown = new AtomicBoolean();
+        Thread updater = new Thread(new Runnable()
+        {
+            public void run()
+            {
+                Random random = new Random();
+                for (int count = 1; !shutdown.get(); count++)
+                {
+                    sendEvent(random.nextInt(NUM_KEYS), count);
+                }
+            }
+        });
+        updater.start();
+
+        ExecutorService threadPool = Executors.newFixedThreadPool(numThreads);
+        Future<Boolean> future[] = new Future[numThreads];
+        for (int i = 0; i < numThreads; i++)
+        {
+            Callable callable = new StmtNamedWindowRangeQueryCallable(engine, numRepeats, 100 + i * 200, 299 + i * 200);
+            future[i] = threadPool.submit(callable);
+        }
+
+        threadPool.shutdown();
+        threadPool.awaitTermination(60, TimeUnit.SECONDS);
+        shutdown.set(true);
+        updater.join();
+
+        for (int i = 0; i < numThreads; i++)
+        {
+            assertTrue(future[i].get(10, TimeUnit.SECONDS));
+        }
+    }
+
+    private void sendEvent(int key, int version)
+    {
+        SupportBean bean = new SupportBean("E" + key, version);
+        bean.setLongPrimitive(key);
+        engine.getEPRuntime().sendEvent(bean);
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * *************************************************************************************
+ *  Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ *  http://esper.codehaus.org                                                          *
+ *  http://www.espertech.com                                                           *
+ *  ---------------------------------------------------------------------------------- *
+ *  The software in this package is published under the terms of the GPL license       *
+ *  a copy of which has been included with this distribution in the license.txt file.  *
+ * *************************************************************************************
+ */
+package com.espertech.esper.multithread;
+
+import com.espertech.esper.client.Configuration;
+import com.espertech.esper.client.EPServiceProvider;
+import com.espertech.esper.client.EPServiceProviderManager;
+import com.espertech.esper.client.EventBean;
+import com.espertech.esper.client.UpdateListener;
+import com.espertech.esper.event.columnar.ColumnarEventBean;
+import com.espertech.esper.support.client.SupportConfigFactory;
+import junit.framework.TestCase;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Test for multithread-safety of reading the events of an off-heap named window while rows are inserted and removed.
+ */
+public class TestMTStmtNamedWindowOffHeap extends TestCase
+{
+    private static final int NUM_ROWS = 500;
+
+    private EPServiceProvider engine;
+    private AtomicReferenceArray<EventBean> published;
+
+    public void setUp()
+    {
+        Configuration configuration = SupportConfigFactory.getConfiguration();
+        engine = EPServiceProviderManager.getDefaultProvider(configuration);
+        engine.initialize();
+
+        engine.getEPAdministrator().createEPL("create map schema MyRow (id string, num int, text string)");
+        engine.getEPAdministrator().createEPL("create map schema MyDelete (id string)");
+        engine.getEPAdministrator().createEPL("@Hint('storage=offheap') create window OffWin.win:keepall() as MyRow");
+        engine.getEPAdministrator().createEPL("insert into OffWin select * from MyRow");
+        engine.getEPAdministrator().createEPL("on MyDelete delete from OffWin where OffWin.id = MyDelete.id");
+
+        // events are published to the reading threads as inserted, and stay published after their row is removed
+        published = new AtomicReferenceArray<EventBean>(NUM_ROWS * 2);
+        engine.getEPAdministrator().createEPL("select * from OffWin").addListener(new UpdateListener()
+        {
+            public void update(EventBean[] newEvents, EventBean[] oldEvents)
+            {
+                for (EventBean event : newEvents)
+                {
+                    int num = (Integer) event.get("num");
+                    published.set(num % published.length(), event);
+                }
+            }
+        });
+    }
+
+    protected void tearDown() throws Exception
+    {
+        engine.initialize();
+    }
+
+    public void testThreading() throws Exception
+    {
+        tryReadWhileModified(3, 100000);
+    }
+
+    private void tryReadWhileModified(int numThreads, int numRepeats) throws Exception
+    {
+        // the updating thread keeps a window of rows, removing the oldest row for each row inserted, which compacts strings and reuses rows
+        final AtomicBoolean shutdown = new AtomicBoolean();
+        Thread updater = new Thread(new Runnable()
+        {
+            public void run()
+            {
+                for (int num = 0; !shutdown.get(); num++)
+                {
+                    Map<String, Object> row = new HashMap<String, Object>();
+                    row.put("id", "E" + num);
+                    row.put("num", num);
+                    row.put("text", makeText(num));
+                    engine.getEPRuntime().sendEvent(row, "MyRow");
+                    if (num >= NUM_ROWS)
+                    {
+                        engine.getEPRuntime().sendEvent(delete(num - NUM_ROWS), "MyDelete");
+                    }
+                }
+            }
+        });
+        updater.start();
+        while (published.get(0) == null)
+        {
+            Thread.sleep(1);
+        }
+        assertTrue(published.get(0) instanceof ColumnarEventBean);
+
+        ExecutorService threadPool = Executors.newFixedThreadPool(numThreads);
+        Future<Boolean> future[] = new Future[numThreads];
+        for (int i = 0; i < numThreads; i++)
+        {
+            future[i] = threadPool.submit(new StmtNamedWindowOffHeapReadCallable(published, numRepeats));
+        }
+
+        threadPool.shutdown();
+        threadPool.awaitTermination(60, TimeUnit.SECONDS);
+        shutdown.set(true);
+        updater.join();
+
+        for (int i = 0; i < numThreads; i++)
+        {
+            assertTrue(future[i].get(10, TimeUnit.SECONDS));
+        }
+    }
+
+    protected static String makeText(int num)
+    {
+        // strings of varying length, so that removed rows leave garbage of varying size to compact
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i <= num % 7; i++)
+        {
+            text.append("T").append(num);
+        }
+        return text.toString();
+    }
+
+    private static Map<String, Object> delete(int num)
+    {
+        Map<String, Object> row = new HashMap<String, Object>();
+        row.put("id", "E" + num);
+        return row;
+    }
+}
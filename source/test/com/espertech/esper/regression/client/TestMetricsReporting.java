@@ -13,12 +13,16 @@ package com.espertech.esper.regression.client;
 
 import com.espertech.esper.client.*;
 import com.espertech.esper.client.metric.EngineMetric;
+import com.espertech.esper.client.metric.StageMetric;
 import com.espertech.esper.client.metric.StatementMetric;
 import com.espertech.esper.client.scopetest.EPAssertionUtil;
 import com.espertech.esper.client.scopetest.SupportSubscriber;
 import com.espertech.esper.client.scopetest.SupportUpdateListener;
 import com.espertech.esper.client.time.CurrentTimeEvent;
 import com.espertech.esper.client.EventBean;
+import com.espertech.esper.epl.metric.Instrumentation;
+import com.espertech.esper.epl.metric.InstrumentationPath;
+import com.espertech.esper.epl.metric.InstrumentationStage;
 import com.espertech.esper.support.bean.SupportBean;
 import com.espertech.esper.support.client.SupportConfigFactory;
 import com.espertech.esper.support.util.ArrayHandlingUtil;
@@ -287,6 +291,93 @@ public class TestMetricsReporting extends TestCase
         assertFalse(listener.isInvoked());
     }
 
+    public void testInstrumentation()
+    {
+        Configuration config = getConfig(10000, -1, true);
+        config.getEngineDefaults().getMetricsReporting().setEnableInstrumentation(true);
+        epService = EPServiceProviderManager.getProvider("MyURI", config);
+        epService.initialize();
+        assertTrue(InstrumentationPath.isInstrumentationEnabled);
+
+        sendTimer(1000);
+        epService.getEPAdministrator().createEPL("select * from " + StageMetric.class.getName(), "stagemetric").addListener(listenerStmtMetric);
+        epService.getEPAdministrator().createEPL("select theString, sum(intPrimitive) as total from SupportBean.win:length(2) group by theString", "stmtAgg").addListener(listener);
+        for (int i = 0; i < 10; i++)
+        {
+            sendEvent("E" + (i % 3), i, 0);
+        }
+        assertEquals(10, listener.getNewDataList().size());
+
+        sendTimer(11000);
+        EventBean[] received = listenerStmtMetric.getNewDataListFlattened();
+        listenerStmtMetric.reset();
+        assertEquals(2, received.length);
+        StageMetric engineMetric = (StageMetric) received[0].getUnderlying();
+        assertNull(engineMetric.getStatementName());
+        assertEquals("MyURI", engineMetric.getEngineURI());
+        assertEquals(11000, engineMetric.getTimestamp());
+        assertTrue(engineMetric.getFilterTime() > 0);
+
+        StageMetric metric = (StageMetric) received[1].getUnderlying();
+        assertEquals("stmtAgg", metric.getStatementName());
+        assertEquals(10, metric.getNumInvocations());
+        assertEquals(0, metric.getFilterTime());
+        assertTrue(metric.getStatementTime() > 0);
+        assertTrue(metric.getViewTime() > 0);
+        assertTrue(metric.getAggregationTime() > 0);
+        assertTrue(metric.getOutputTime() > 0);
+        assertTrue(metric.getDispatchTime() > 0);
+
+        // statements without activity are not reported
+        sendTimer(21000);
+        received = listenerStmtMetric.getNewDataListFlattened();
+        listenerStmtMetric.reset();
+        EPAssertionUtil.assertPropsPerRow(received, "statementName".split(","), new Object[][] {{null}, {"stagemetric"}});
+
+        epService.destroy();
+        config.getEngineDefaults().getMetricsReporting().setEnableInstrumentation(false);
+        epService = EPServiceProviderManager.getProvider("MyURI", config);
+        epService.initialize();
+        assertFalse(InstrumentationPath.isInstrumentationEnabled);
+    }
+
+    public void testInstrumentationPlugin()
+    {
+        Configuration config = getConfig(-1, -1, true);
+        config.getEngineDefaults().getMetricsReporting().setEnableInstrumentation(true);
+        config.getEngineDefaults().getMetricsReporting().setInstrumentationClassName(MyInstrumentation.class.getName());
+        MyInstrumentation.depth = 0;
+        MyInstrumentation.numStatements = 0;
+        epService = EPServiceProviderManager.getProvider("MyURI", config);
+        epService.initialize();
+        assertTrue(InstrumentationPath.getInstrumentation() instanceof MyInstrumentation);
+
+        sendTimer(1000);
+        epService.getEPAdministrator().createEPL("select count(*) from SupportBean.win:time(1 sec)").addListener(listener);
+        sendEvent("E1", 1, 0);
+        sendTimer(5000);
+        assertEquals(2, listener.getNewDataList().size());
+        assertEquals(2, MyInstrumentation.numStatements);
+        assertEquals(0, MyInstrumentation.depth);
+
+        epService.destroy();
+        config.getEngineDefaults().getMetricsReporting().setEnableInstrumentation(false);
+        epService = EPServiceProviderManager.getProvider("MyURI", config);
+        epService.initialize();
+
+        config.getEngineDefaults().getMetricsReporting().setEnableInstrumentation(true);
+        config.getEngineDefaults().getMetricsReporting().setInstrumentationClassName(SupportBean.class.getName());
+        try
+        {
+            EPServiceProviderManager.getProvider("MyURIInvalid", config);
+            fail();
+        }
+        catch (ConfigurationException ex)
+        {
+            assertEquals("Failed to instantiate instrumentation: Class '" + SupportBean.class.getName() + "' does not implement interface '" + Instrumentation.class.getName() + "'", ex.getMessage());
+        }
+    }
+
     public void testEnabledDisableRuntime()
     {
         EPStatement[] statements = new EPStatement[5];
@@ -408,6 +499,14 @@ public class TestMetricsReporting extends TestCase
             assertEquals(1L, received[i].get("numOutputIStream"));
             assertEquals(0L, received[i].get("numOutputRStream"));
             assertEquals(timestamp, received[i].get("timestamp"));
+
+            // single delivery: all percentiles are the bucket holding the wall time
+            long wall = (Long) received[i].get("wallTime");
+            long p50 = (Long) received[i].get("wallTimeP50");
+            assertEquals(1L, received[i].get("numLatencies"));
+            assertEquals(p50, received[i].get("wallTimeP99"));
+            assertEquals(p50, received[i].get("wallTimeP999"));
+            assertTrue("p50=" + p50 + " wall=" + wall, (p50 >= wall) && (p50 <= wall + wall / 8));
         }
 
         listener.reset();
@@ -496,4 +595,51 @@ public class TestMetricsReporting extends TestCase
             e.printStackTrace();
         }
     }
+
+    public static class MyInstrumentation implements Instrumentation
+    {
+        private static int depth;
+        private static int numStatements;
+
+        public void qFilter(String engineURI)
+        {
+            depth++;
+        }
+
+        public void aFilter()
+        {
+            depth--;
+        }
+
+        public void qStatement(String engineURI, String statementName)
+        {
+            numStatements++;
+            depth++;
+        }
+
+        public void aStatement()
+        {
+            depth--;
+        }
+
+        public void qDispatch(String engineURI, String statementName)
+        {
+            depth++;
+        }
+
+        public void aDispatch()
+        {
+            depth--;
+        }
+
+        public void qStage(InstrumentationStage stage)
+        {
+            depth++;
+        }
+
+        public void aStage(InstrumentationStage stage)
+        {
+            depth--;
+        }
+    }
 }
@@ -0,0 +1,362 @@
+/*
+ * *************************************************************************************
+ *  Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ *  http://esper.codehaus.org                                                          *
+ *  http://www.espertech.com                                                           *
+ *  ---------------------------------------------------------------------------------- *
+ *  The software in this package is published under the terms of the GPL license       *
+ *  a copy of which has been included with this distribution in the license.txt file.  *
+ * *************************************************************************************
+ */
+
+package com.espertech.esper.regression.client;
+
+import com.espertech.esper.client.*;
+import com.espertech.esper.client.time.CurrentTimeEvent;
+import com.espertech.esper.support.bean.SupportBean;
+import com.espertech.esper.support.client.SupportConfigFactory;
+import junit.framework.TestCase;
+
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class TestSendEventsBatch extends TestCase
+{
+    private static final int[] BATCH_SIZES = new int[] {1, 2, 7, 50, Integer.MAX_VALUE};
+
+    private List<EPServiceProvider> engines;
+
+    public void setUp()
+    {
+        engines = new ArrayList<EPServiceProvider>();
+    }
+
+    protected void tearDown() throws Exception {
+        for (EPServiceProvider engine : engines) {
+            engine.destroy();
+        }
+        engines = null;
+    }
+
+    public void testObjectArrayAndList()
+    {
+        Object[] events = makeBeanEvents(200, true);
+
+        EPServiceProvider single = makeEngine("objsingle", false);
+        RecordingListener listenerSingle = addStatements(single);
+        for (Object theEvent : events) {
+            single.getEPRuntime().sendEvent(theEvent);
+        }
+        assertFalse(listenerSingle.getReceived().isEmpty());
+
+        for (int batchSize : BATCH_SIZES) {
+            EPServiceProvider batchArray = makeEngine("objarray" + batchSize, false);
+            RecordingListener listenerArray = addStatements(batchArray);
+            for (Object[] batch : split(events, batchSize)) {
+                batchArray.getEPRuntime().sendEvents(batch);
+            }
+            assertSameOutput("batch size " + batchSize, listenerSingle.getReceived(), listenerArray.getReceived());
+
+            EPServiceProvider batchList = makeEngine("objlist" + batchSize, false);
+            RecordingListener listenerList = addStatements(batchList);
+            for (Object[] batch : split(events, batchSize)) {
+                batchList.getEPRuntime().sendEvents(Arrays.asList(batch));
+            }
+            assertSameOutput("batch size " + batchSize, listenerSingle.getReceived(), listenerList.getReceived());
+        }
+    }
+
+    public void testMapAndObjectArrayTypes()
+    {
+        Map[] maps = new Map[100];
+        Object[][] arrays = new Object[100][];
+        for (int i = 0; i < maps.length; i++) {
+            Map<String, Object> map = new HashMap<String, Object>();
+            map.put("id", "K" + (i % 4));
+            map.put("val", i);
+            maps[i] = map;
+            arrays[i] = new Object[] {"K" + (i % 4), i};
+        }
+
+        EPServiceProvider single = makeEngine("mapsingle", false);
+        RecordingListener listenerSingle = addStatements(single);
+        for (Map map : maps) {
+            single.getEPRuntime().sendEvent(map, "MyMap");
+        }
+        for (Object[] array : arrays) {
+            single.getEPRuntime().sendEvent(array, "MyOA");
+        }
+        assertFalse(listenerSingle.getReceived().isEmpty());
+
+        for (int batchSize : BATCH_SIZES) {
+            EPServiceProvider batch = makeEngine("mapbatch" + batchSize, false);
+            RecordingListener listenerBatch = addStatements(batch);
+            for (Object[] mapBatch : split(maps, batchSize)) {
+                batch.getEPRuntime().sendEvents(Arrays.copyOf(mapBatch, mapBatch.length, Map[].class), "MyMap");
+            }
+            for (Object[] arrayBatch : split(arrays, batchSize)) {
+                batch.getEPRuntime().sendEvents(Arrays.copyOf(arrayBatch, arrayBatch.length, Object[][].class), "MyOA");
+            }
+            assertSameOutput("batch size " + batchSize, listenerSingle.getReceived(), listenerBatch.getReceived());
+        }
+    }
+
+    public void testInboundThreading() throws Exception
+    {
+        Object[] events = makeBeanEvents(200, false);
+
+        EPServiceProvider single = makeEngine("inboundsingle", false);
+        RecordingListener listenerSingle = addStatements(single);
+        for (Object theEvent : events) {
+            single.getEPRuntime().sendEvent(theEvent);
+        }
+        int expected = listenerSingle.getNumInvocations();
+        assertTrue(expected > 0);
+
+        for (int batchSize : BATCH_SIZES) {
+            EPServiceProvider batch = makeEngine("inboundbatch" + batchSize, true);
+            RecordingListener listenerBatch = addStatements(batch);
+            CountDownLatch latch = listenerBatch.expect(expected);
+            for (Object[] theBatch : split(events, batchSize)) {
+                batch.getEPRuntime().sendEvents(theBatch);
+            }
+            assertTrue("timeout waiting for inbound threads", latch.await(10, TimeUnit.SECONDS));
+            assertSameOutput("batch size " + batchSize, listenerSingle.getReceived(), listenerBatch.getReceived());
+        }
+    }
+
+    public void testEmptyAndNull()
+    {
+        EPServiceProvider engine = makeEngine("emptynull", false);
+        RecordingListener listener = addStatements(engine);
+
+        engine.getEPRuntime().sendEvents(new Object[0]);
+        engine.getEPRuntime().sendEvents(new ArrayList<Object>());
+        engine.getEPRuntime().sendEvents(new Map[0], "MyMap");
+        engine.getEPRuntime().sendEvents(new Object[0][], "MyOA");
+        assertEquals(0, listener.getNumInvocations());
+
+        // null elements of an object batch are skipped
+        engine.getEPRuntime().sendEvents(new Object[] {null, new SupportBean("E1", 1), null});
+        assertEquals(3, listener.getNumInvocations());
+        engine.getEPRuntime().sendEvents(new Object[] {null});
+        assertEquals(3, listener.getNumInvocations());
+
+        try {
+            engine.getEPRuntime().sendEvents((Object[]) null);
+            fail();
+        }
+        catch (IllegalArgumentException ex) {
+            assertEquals("Invalid null event array", ex.getMessage());
+        }
+
+        try {
+            engine.getEPRuntime().sendEvents((List) null);
+            fail();
+        }
+        catch (IllegalArgumentException ex) {
+            assertEquals("Invalid null event list", ex.getMessage());
+        }
+
+        try {
+            engine.getEPRuntime().sendEvents(new Map[] {new HashMap(), null}, "MyMap");
+            fail();
+        }
+        catch (IllegalArgumentException ex) {
+            assertEquals("Invalid null event object", ex.getMessage());
+        }
+
+        try {
+            engine.getEPRuntime().sendEvents(new Object[][] {{"K1", 1}, null}, "MyOA");
+            fail();
+        }
+        catch (IllegalArgumentException ex) {
+            assertEquals("Invalid null event object", ex.getMessage());
+        }
+
+        // an invalid batch is rejected before any of its events is processed
+        assertEquals(3, listener.getNumInvocations());
+    }
+
+    public void testInboundThreadingEmptyAndNull() throws Exception
+    {
+        EPServiceProvider engine = makeEngine("inboundemptynull", true);
+        RecordingListener listener = addStatements(engine);
+        CountDownLatch latch = listener.expect(3);
+
+        engine.getEPRuntime().sendEvents(new Object[0]);
+        engine.getEPRuntime().sendEvents(new Map[0], "MyMap");
+        engine.getEPRuntime().sendEvents(new Object[0][], "MyOA");
+        engine.getEPRuntime().sendEvents(new Object[] {null, new SupportBean("E1", 1), null});
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertEquals(3, listener.getNumInvocations());
+
+        try {
+            engine.getEPRuntime().sendEvents((Object[]) null);
+            fail();
+        }
+        catch (IllegalArgumentException ex) {
+            // expected
+        }
+    }
+
+    private static void assertSameOutput(String message, List<String> expected, List<String> received)
+    {
+        // the order in which different statements are dispatched for the same event is not defined,
+        // compare the output of each statement in order instead
+        Map<String, List<String>> expectedPerStmt = perStatement(expected);
+        Map<String, List<String>> receivedPerStmt = perStatement(received);
+        assertEquals(message, expectedPerStmt.keySet(), receivedPerStmt.keySet());
+        for (Map.Entry<String, List<String>> entry : expectedPerStmt.entrySet()) {
+            List<String> expectedStmt = entry.getValue();
+            List<String> receivedStmt = receivedPerStmt.get(entry.getKey());
+            for (int i = 0; i < Math.min(expectedStmt.size(), receivedStmt.size()); i++) {
+                assertEquals(message + " at output " + i, expectedStmt.get(i), receivedStmt.get(i));
+            }
+            assertEquals(message, expectedStmt.size(), receivedStmt.size());
+        }
+    }
+
+    private static Map<String, List<String>> perStatement(List<String> received)
+    {
+        Map<String, List<String>> result = new TreeMap<String, List<String>>();
+        for (String output : received) {
+            String name = output.substring(0, output.indexOf(' '));
+            List<String> list = result.get(name);
+            if (list == null) {
+                list = new ArrayList<String>();
+                result.put(name, list);
+            }
+            list.add(output);
+        }
+        return result;
+    }
+
+    private EPServiceProvider makeEngine(String uri, boolean inboundThreading)
+    {
+        Configuration config = SupportConfigFactory.getConfiguration();
+        config.addEventType("SupportBean", SupportBean.class);
+        Map<String, Object> mapType = new LinkedHashMap<String, Object>();
+        mapType.put("id", String.class);
+        mapType.put("val", Integer.class);
+        config.addEventType("MyMap", mapType);
+        config.addEventType("MyOA", new String[] {"id", "val"}, new Object[] {String.class, Integer.class});
+        if (inboundThreading) {
+            config.getEngineDefaults().getThreading().setThreadPoolInbound(true);
+            config.getEngineDefaults().getThreading().setThreadPoolInboundNumThreads(1);
+        }
+        EPServiceProvider engine = EPServiceProviderManager.getProvider(this.getClass().getSimpleName() + "_" + uri, config);
+        engine.initialize();
+        engines.add(engine);
+        engine.getEPRuntime().sendEvent(new CurrentTimeEvent(0));
+        return engine;
+    }
+
+    private RecordingListener addStatements(EPServiceProvider engine)
+    {
+        RecordingListener listener = new RecordingListener();
+        EPAdministrator admin = engine.getEPAdministrator();
+        String[] epls = new String[] {
+            "@Name('plain') select theString, intPrimitive from SupportBean",
+            "@Name('filtered') select theString, intPrimitive from SupportBean(intPrimitive > 100)",
+            "insert into MyStream select theString, intPrimitive * 2 as doubled from SupportBean",
+            "@Name('chained') select theString, doubled from MyStream(doubled % 3 = 0)",
+            "create window MyWindow.win:length(5) as select theString, intPrimitive from SupportBean",
+            "insert into MyWindow select theString, intPrimitive from SupportBean",
+            "@Name('window') select irstream theString, intPrimitive from MyWindow",
+            "on SupportBean(intPrimitive % 10 = 0) as sb delete from MyWindow as mw where mw.theString = sb.theString",
+            "@Name('batch') select theString, sum(intPrimitive) as total from SupportBean.win:length_batch(6) group by theString order by theString",
+            "@Name('pattern') select a.intPrimitive as a, b.intPrimitive as b from pattern[every a=SupportBean -> b=SupportBean(theString=a.theString)]",
+            "@Name('time') select count(*) as cnt from SupportBean.win:time(1 sec)",
+            "@Name('map') select irstream id, sum(val) as total from MyMap.win:length(3) group by id",
+            "@Name('oa') select irstream id, val from MyOA.win:length(2)",
+            "@Name('join') select m.val as mval, o.val as oval from MyMap.std:lastevent() as m, MyOA.std:unique(id) as o where m.id = o.id",
+        };
+        for (String epl : epls) {
+            EPStatement stmt = admin.createEPL(epl);
+            if (epl.startsWith("@Name")) {
+                stmt.addListener(listener);
+            }
+        }
+        return listener;
+    }
+
+    private static Object[] makeBeanEvents(int numEvents, boolean withTime)
+    {
+        Random random = new Random(1234);
+        List<Object> events = new ArrayList<Object>();
+        long time = 0;
+        for (int i = 0; i < numEvents; i++) {
+            events.add(new SupportBean("E" + random.nextInt(5), random.nextInt(150)));
+            if (withTime && random.nextInt(10) == 0) {
+                time += random.nextInt(600);
+                events.add(new CurrentTimeEvent(time));
+            }
+        }
+        return events.toArray();
+    }
+
+    private static List<Object[]> split(Object[] events, int batchSize)
+    {
+        List<Object[]> batches = new ArrayList<Object[]>();
+        for (int i = 0; i < events.length; i += batchSize) {
+            int end = (int) Math.min((long) i + batchSize, events.length);
+            batches.add(Arrays.copyOfRange(events, i, end));
+        }
+        return batches;
+    }
+
+    private static class RecordingListener implements StatementAwareUpdateListener
+    {
+        private final List<String> received = new ArrayList<String>();
+        private int numInvocations;
+        private CountDownLatch latch;
+
+        public synchronized void update(EventBean[] newEvents, EventBean[] oldEvents, EPStatement statement, EPServiceProvider epServiceProvider)
+        {
+            StringBuilder buf = new StringBuilder();
+            buf.append(statement.getName());
+            render(buf, "new", newEvents);
+            render(buf, "old", oldEvents);
+            received.add(buf.toString());
+            numInvocations++;
+            if (latch != null) {
+                latch.countDown();
+            }
+        }
+
+        public synchronized CountDownLatch expect(int numInvocations)
+        {
+            latch = new CountDownLatch(numInvocations);
+            return latch;
+        }
+
+        public synchronized List<String> getReceived()
+        {
+            return new ArrayList<String>(received);
+        }
+
+        public synchronized int getNumInvocations()
+        {
+            return numInvocations;
+        }
+
+        private static void render(StringBuilder buf, String title, EventBean[] events)
+        {
+            if (events == null) {
+                return;
+            }
+            buf.append(' ').append(title).append('[');
+            for (EventBean theEvent : events) {
+                buf.append('{');
+                for (String name : theEvent.getEventType().getPropertyNames()) {
+                    buf.append(name).append('=').append(theEvent.get(name)).append(';');
+                }
+                buf.append('}');
+            }
+            buf.append(']');
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * *************************************************************************************
+ *  Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ *  http://esper.codehaus.org                                                          *
+ *  http://www.espertech.com                                                           *
+ *  ---------------------------------------------------------------------------------- *
+ *  The software in this package is published under the terms of the GPL license       *
+ *  a copy of which has been included with this distribution in the license.txt file.  *
+ * *************************************************************************************
+ */
+
+package com.espertech.esper.regression.client;
+
+import com.espertech.esper.client.Configuration;
+import com.espertech.esper.client.EPServiceProvider;
+import com.espertech.esper.client.EPServiceProviderManager;
+import com.espertech.esper.client.EventBean;
+import com.espertech.esper.support.bean.SupportBean;
+import com.espertech.esper.support.client.SupportConfigFactory;
+import junit.framework.TestCase;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+public class TestThreadedConfigFireAndForget extends TestCase
+{
+    private static final int NUM_ROWS = 20000;
+    private static final Set<Thread> filterThreads = Collections.synchronizedSet(new HashSet<Thread>());
+
+    private EPServiceProvider epService;
+
+    public void setUp()
+    {
+        Configuration config = SupportConfigFactory.getConfiguration();
+        config.getEngineDefaults().getThreading().setInternalTimerEnabled(false);
+        config.getEngineDefaults().getThreading().setThreadPoolFireAndForget(true);
+        config.getEngineDefaults().getThreading().setThreadPoolFireAndForgetNumThreads(2);
+        config.addEventType("SupportBean", SupportBean.class);
+        config.addPlugInSingleRowFunction("isMatch", TestThreadedConfigFireAndForget.class.getName(), "isMatch");
+        config.addPlugInSingleRowFunction("toList", TestThreadedConfigFireAndForget.class.getName(), "toList");
+
+        epService = EPServiceProviderManager.getDefaultProvider(config);
+        epService.initialize();
+
+        epService.getEPAdministrator().createEPL("create window MyWindow.win:keepall() as SupportBean");
+        epService.getEPAdministrator().createEPL("insert into MyWindow select * from SupportBean");
+        for (int i = 0; i < NUM_ROWS; i++)
+        {
+            epService.getEPRuntime().sendEvent(new SupportBean("E" + i, i));
+        }
+        filterThreads.clear();
+    }
+
+    protected void tearDown() throws Exception
+    {
+        filterThreads.clear();
+        epService.destroy();
+    }
+
+    public void testParallelFilter()
+    {
+        EventBean[] rows = epService.getEPRuntime().executeQuery("select intPrimitive from MyWindow where isMatch(intPrimitive)").getArray();
+        assertRows(rows);
+
+        // the pool threads filter all but the first chunk
+        assertTrue(filterThreads.contains(Thread.currentThread()));
+        assertTrue(filterThreads.size() > 1);
+    }
+
+    public void testSequentialFilterDeclaredExpression()
+    {
+        EventBean[] rows = epService.getEPRuntime().executeQuery("expression isThird {w => isMatch(w.intPrimitive)} " +
+                "select intPrimitive from MyWindow as w where isThird(w)").getArray();
+        assertRows(rows);
+        assertEquals(Collections.singleton(Thread.currentThread()), filterThreads);
+    }
+
+    public void testSequentialFilterEnumerationMethod()
+    {
+        EventBean[] rows = epService.getEPRuntime().executeQuery("select intPrimitive from MyWindow " +
+                "where toList(intPrimitive).anyOf(v => isMatch(v))").getArray();
+        assertRows(rows);
+        assertEquals(Collections.singleton(Thread.currentThread()), filterThreads);
+    }
+
+    public static boolean isMatch(int value)
+    {
+        filterThreads.add(Thread.currentThread());
+        return value % 3 == 0;
+    }
+
+    public static Collection<Integer> toList(int value)
+    {
+        return Collections.singletonList(value);
+    }
+
+    private void assertRows(EventBean[] rows)
+    {
+        assertEquals((NUM_ROWS + 2) / 3, rows.length);
+        for (int i = 0; i < rows.length; i++)
+        {
+            assertEquals(i * 3, rows[i].get("intPrimitive"));
+        }
+    }
+}
@@ -14,12 +14,16 @@ package com.espertech.esper.regression.client;
 import com.espertech.esper.client.*;
 import com.espertech.esper.regression.event.SupportXML;
 import com.espertech.esper.support.bean.SupportBean;
+import com.espertech.esper.support.bean.SupportBean_S0;
 import com.espertech.esper.support.client.SupportConfigFactory;
 import com.espertech.esper.support.epl.SupportStaticMethodLib;
 import com.espertech.esper.core.service.EPServiceProviderSPI;
+import com.espertech.esper.core.thread.ThreadingService;
 import junit.framework.TestCase;
 
-import java.util.HashMap;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 public class TestThreadedConfigInbound extends TestCase
 {
@@ -84,4 +88,145 @@ public class TestThreadedConfigInbound extends TestCase
 
         epService.destroy();
     }
+
+    public void testRingBufferQueueAndPool() throws Exception
+    {
+        Configuration config = SupportConfigFactory.getConfiguration();
+        config.getEngineDefaults().getThreading().setThreadPoolInbound(true);
+        config.getEngineDefaults().getThreading().setThreadPoolInboundNumThreads(2);
+        config.getEngineDefaults().getThreading().setThreadPoolOutbound(true);
+        config.getEngineDefaults().getThreading().setThreadPoolQueueType(ConfigurationEngineDefaults.Threading.ThreadPoolQueueType.RING_BUFFER);
+        config.addEventType("SupportBean", SupportBean.class);
+
+        EPServiceProvider epService = EPServiceProviderManager.getProvider("TestThreadedConfigInboundRingBuffer", config);
+        epService.initialize();
+        try
+        {
+            final CountDownLatch latch = new CountDownLatch(10);
+            epService.getEPAdministrator().createEPL("select * from SupportBean").addListener(new UpdateListener()
+            {
+                public void update(EventBean[] newEvents, EventBean[] oldEvents)
+                {
+                    latch.countDown();
+                }
+            });
+
+            // the ring buffer pools are available through the queue and thread pool getters
+            ThreadingService threadingService = ((EPServiceProviderSPI) epService).getThreadingService();
+            assertEquals(0, threadingService.getInboundQueue().size());
+            assertEquals(2, threadingService.getInboundThreadPool().getPoolSize());
+            assertEquals(0, threadingService.getOutboundQueue().size());
+            assertNotNull(threadingService.getOutboundThreadPool());
+            assertNull(threadingService.getRouteQueue());
+            assertNull(threadingService.getTimerThreadPool());
+
+            for (int i = 0; i < 5; i++)
+            {
+                epService.getEPRuntime().sendEvent(new SupportBean("E" + i, i));
+            }
+            final EPRuntime runtime = epService.getEPRuntime();
+            for (int i = 5; i < 10; i++)
+            {
+                final SupportBean bean = new SupportBean("E" + i, i);
+                threadingService.getInboundThreadPool().execute(new Runnable()
+                {
+                    public void run()
+                    {
+                        runtime.sendEvent(bean);
+                    }
+                });
+            }
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        }
+        finally
+        {
+            epService.destroy();
+        }
+    }
+
+    public void testPartitioned() throws Exception
+    {
+        for (ConfigurationEngineDefaults.Threading.ThreadPoolQueueType queueType : ConfigurationEngineDefaults.Threading.ThreadPoolQueueType.values())
+        {
+            Configuration config = SupportConfigFactory.getConfiguration();
+            config.getEngineDefaults().getThreading().setThreadPoolInbound(true);
+            config.getEngineDefaults().getThreading().setThreadPoolInboundNumThreads(3);
+            config.getEngineDefaults().getThreading().addThreadPoolInboundPartitionProperty("SupportBean", "theString");
+            config.getEngineDefaults().getThreading().setThreadPoolQueueType(queueType);
+            config.addEventType("SupportBean", SupportBean.class);
+            config.addEventType("SupportBean_S0", SupportBean_S0.class);
+
+            EPServiceProvider epService = EPServiceProviderManager.getProvider("TestThreadedConfigInboundPartitioned" + queueType, config);
+            epService.initialize();
+            try
+            {
+                final CountDownLatch latch = new CountDownLatch(400);
+                final Map<String, List<Integer>> valuesPerKey = new HashMap<String, List<Integer>>();
+                final Map<String, Set<Thread>> threadsPerKey = new HashMap<String, Set<Thread>>();
+                final Set<Thread> threadsS0 = new HashSet<Thread>();
+                epService.getEPAdministrator().createEPL("select * from SupportBean").addListener(new UpdateListener()
+                {
+                    public void update(EventBean[] newEvents, EventBean[] oldEvents)
+                    {
+                        SupportBean bean = (SupportBean) newEvents[0].getUnderlying();
+                        synchronized (valuesPerKey)
+                        {
+                            if (!valuesPerKey.containsKey(bean.getTheString()))
+                            {
+                                valuesPerKey.put(bean.getTheString(), new ArrayList<Integer>());
+                                threadsPerKey.put(bean.getTheString(), new HashSet<Thread>());
+                            }
+                            valuesPerKey.get(bean.getTheString()).add(bean.getIntPrimitive());
+                            threadsPerKey.get(bean.getTheString()).add(Thread.currentThread());
+                        }
+                        latch.countDown();
+                    }
+                });
+                epService.getEPAdministrator().createEPL("select * from SupportBean_S0").addListener(new UpdateListener()
+                {
+                    public void update(EventBean[] newEvents, EventBean[] oldEvents)
+                    {
+                        synchronized (valuesPerKey)
+                        {
+                            threadsS0.add(Thread.currentThread());
+                        }
+                        latch.countDown();
+                    }
+                });
+
+                for (int i = 0; i < 300; i++)
+                {
+                    epService.getEPRuntime().sendEvent(new SupportBean("K" + (i % 10), i));
+                    if (i % 3 == 0)
+                    {
+                        epService.getEPRuntime().sendEvent(new SupportBean_S0(i));
+                    }
+                }
+                assertTrue(latch.await(10, TimeUnit.SECONDS));
+
+                // events of the same key are processed in order by the same thread
+                synchronized (valuesPerKey)
+                {
+                    assertEquals(10, valuesPerKey.size());
+                    for (Map.Entry<String, List<Integer>> entry : valuesPerKey.entrySet())
+                    {
+                        List<Integer> values = entry.getValue();
+                        assertEquals(30, values.size());
+                        for (int i = 1; i < values.size(); i++)
+                        {
+                            assertEquals(values.get(i - 1) + 10, (int) values.get(i));
+                        }
+                        assertEquals(1, threadsPerKey.get(entry.getKey()).size());
+                    }
+
+                    // events without a key property are spread over all threads
+                    assertEquals(3, threadsS0.size());
+                }
+            }
+            finally
+            {
+                epService.destroy();
+            }
+        }
+    }
 }
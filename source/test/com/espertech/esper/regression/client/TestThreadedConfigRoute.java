@@ -17,10 +17,14 @@ import com.espertech.esper.support.bean.SupportBean;
 import com.espertech.esper.support.client.SupportConfigFactory;
 import com.espertech.esper.support.epl.SupportStaticMethodLib;
 import com.espertech.esper.client.*;
+import com.espertech.esper.core.service.EPServiceProviderSPI;
 import com.espertech.esper.regression.client.SupportListenerTimerHRes;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
 public class TestThreadedConfigRoute extends TestCase
 {
     private static final Log log = LogFactory.getLog(TestThreadedConfigRoute.class);
@@ -68,4 +72,46 @@ public class TestThreadedConfigRoute extends TestCase
 
         epService.destroy();
     }
+
+    public void testRingBufferRouteFromRouteThread() throws Exception
+    {
+        // a single route thread and a ring buffer of two slots: events inserted by statements that the route thread
+        // executes are matched by more statements than the ring buffer holds
+        Configuration config = SupportConfigFactory.getConfiguration();
+        config.getEngineDefaults().getThreading().setThreadPoolRouteExec(true);
+        config.getEngineDefaults().getThreading().setThreadPoolRouteExecNumThreads(1);
+        config.getEngineDefaults().getThreading().setThreadPoolRouteExecCapacity(2);
+        config.getEngineDefaults().getThreading().setThreadPoolQueueType(ConfigurationEngineDefaults.Threading.ThreadPoolQueueType.RING_BUFFER);
+        config.addEventType("SupportBean", SupportBean.class);
+
+        EPServiceProvider epService = EPServiceProviderManager.getProvider("TestThreadedConfigRouteRingBuffer", config);
+        epService.initialize();
+        try
+        {
+            final CountDownLatch latch = new CountDownLatch(5 * 10 * 10);
+            UpdateListener listener = new UpdateListener()
+            {
+                public void update(EventBean[] newEvents, EventBean[] oldEvents)
+                {
+                    latch.countDown();
+                }
+            };
+            for (int i = 0; i < 10; i++)
+            {
+                epService.getEPAdministrator().createEPL("insert into MyStream select theString from SupportBean");
+                epService.getEPAdministrator().createEPL("select * from MyStream").addListener(listener);
+            }
+
+            for (int i = 0; i < 5; i++)
+            {
+                epService.getEPRuntime().sendEvent(new SupportBean("E" + i, i));
+            }
+            assertTrue(latch.await(30, TimeUnit.SECONDS));
+            assertNotNull(((EPServiceProviderSPI) epService).getThreadingService().getRouteQueue());
+        }
+        finally
+        {
+            epService.destroy();
+        }
+    }
 }
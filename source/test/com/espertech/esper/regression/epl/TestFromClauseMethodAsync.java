@@ -0,0 +1,231 @@
+/*
+ * *************************************************************************************
+ *  Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ *  http://esper.codehaus.org                                                          *
+ *  http://www.espertech.com                                                           *
+ *  ---------------------------------------------------------------------------------- *
+ *  The software in this package is published under the terms of the GPL license       *
+ *  a copy of which has been included with this distribution in the license.txt file.  *
+ * *************************************************************************************
+ */
+
+package com.espertech.esper.regression.epl;
+
+import com.espertech.esper.client.*;
+import com.espertech.esper.client.scopetest.SupportUpdateListener;
+import com.espertech.esper.support.bean.SupportBean_S0;
+import com.espertech.esper.support.client.SupportConfigFactory;
+import com.espertech.esper.support.epl.SupportStaticMethodAsync;
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class TestFromClauseMethodAsync extends TestCase
+{
+    private EPServiceProvider epService;
+    private SupportRowLatchListener listenerAsync;
+    private SupportUpdateListener listenerSync;
+
+    public void setUp()
+    {
+        Configuration config = SupportConfigFactory.getConfiguration();
+        config.addEventType("S0", SupportBean_S0.class);
+        config.addImport(SupportStaticMethodAsync.class.getName());
+        config.addVariable("suffix", String.class, "A");
+        config.getEngineDefaults().getThreading().setThreadPoolHistoricalJoinNumThreads(2);
+        epService = EPServiceProviderManager.getDefaultProvider(config);
+        epService.initialize();
+        listenerAsync = new SupportRowLatchListener();
+        listenerSync = new SupportUpdateListener();
+        SupportStaticMethodAsync.reset(null, 0);
+    }
+
+    protected void tearDown() throws Exception {
+        SupportStaticMethodAsync.reset(null, 0);
+        epService.getEPAdministrator().destroyAllStatements();
+        listenerAsync = null;
+        listenerSync = null;
+    }
+
+    public void testSameResultsInOrder() throws Exception
+    {
+        String epl = "select s0.id as id, h.p10 as value from S0 as s0, method:SupportStaticMethodAsync.fetchValue(s0.p00) as h";
+        epService.getEPAdministrator().createEPL("@Hint('HISTORICAL_ASYNC=2') " + epl).addListener(listenerAsync);
+        epService.getEPAdministrator().createEPL(epl).addListener(listenerSync);
+
+        listenerAsync.expectRows(100);
+        for (int i = 0; i < 100; i++)
+        {
+            epService.getEPRuntime().sendEvent(new SupportBean_S0(i, "K" + (i % 7)));
+        }
+
+        listenerAsync.awaitRows();
+        assertEquals(toRows(listenerSync), toRows(listenerAsync));
+    }
+
+    public void testEventThreadNotBlocked() throws Exception
+    {
+        CountDownLatch latch = new CountDownLatch(1);
+        SupportStaticMethodAsync.reset(latch, 0);
+        epService.getEPAdministrator().createEPL("@Hint('HISTORICAL_ASYNC=1') select s0.id as id, h.p10 as value " +
+                "from S0 as s0, method:SupportStaticMethodAsync.fetchValue(s0.p00) as h").addListener(listenerAsync);
+
+        // the method blocks, the event thread continues
+        listenerAsync.expectRows(3);
+        for (int i = 0; i < 3; i++)
+        {
+            epService.getEPRuntime().sendEvent(new SupportBean_S0(i, "K" + i));
+        }
+        assertTrue(SupportStaticMethodAsync.awaitInvoked());
+        assertFalse(listenerAsync.isInvoked());
+        assertFalse(SupportStaticMethodAsync.getInvocationThreads().contains(Thread.currentThread()));
+
+        latch.countDown();
+        listenerAsync.awaitRows();
+        List<String> rows = toRows(listenerAsync);
+        assertEquals("[0,|K0|, 1,|K1|, 2,|K2|]", rows.toString());
+    }
+
+    public void testConcurrentPollsDistinctKeys() throws Exception
+    {
+        epService.getEPAdministrator().createEPL("@Hint('HISTORICAL_ASYNC=4') select s0.id as id, h.p10 as value " +
+                "from S0.win:length_batch(8) as s0, method:SupportStaticMethodAsync.fetchValue(s0.p00) as h").addListener(listenerAsync);
+
+        // the same key is polled once per batch
+        listenerAsync.expectRows(8);
+        for (int i = 0; i < 8; i++)
+        {
+            epService.getEPRuntime().sendEvent(new SupportBean_S0(i, "K" + (i % 2)));
+        }
+        listenerAsync.awaitRows();
+        assertEquals(2, SupportStaticMethodAsync.getInvocations());
+        List<String> rows = toRows(listenerAsync);
+        assertEquals("0,|K0|", rows.get(0));
+        assertEquals("1,|K1|", rows.get(1));
+
+        // distinct keys are polled concurrently, including the keys of the events leaving the batch window
+        SupportStaticMethodAsync.reset(null, 2);
+        listenerAsync.reset();
+        listenerAsync.expectRows(8);
+        for (int i = 0; i < 8; i++)
+        {
+            epService.getEPRuntime().sendEvent(new SupportBean_S0(100 + i, "K" + i));
+        }
+        listenerAsync.awaitRows();
+        assertEquals(8, SupportStaticMethodAsync.getInvocations());
+        assertTrue(SupportStaticMethodAsync.getMaxConcurrent() > 1);
+    }
+
+    public void testStatementsShareEnginePool() throws Exception
+    {
+        SupportRowLatchListener[] listeners = new SupportRowLatchListener[5];
+        for (int i = 0; i < listeners.length; i++)
+        {
+            listeners[i] = new SupportRowLatchListener();
+            listeners[i].expectRows(10);
+            epService.getEPAdministrator().createEPL("@Hint('HISTORICAL_ASYNC=2') select s0.id as id, h.p10 as value " +
+                    "from S0 as s0, method:SupportStaticMethodAsync.fetchValue(s0.p00) as h").addListener(listeners[i]);
+        }
+
+        for (int i = 0; i < 10; i++)
+        {
+            epService.getEPRuntime().sendEvent(new SupportBean_S0(i, "K" + i));
+        }
+        for (SupportRowLatchListener listener : listeners)
+        {
+            listener.awaitRows();
+            assertEquals("0,|K0|", toRows(listener).get(0));
+            assertEquals("9,|K9|", toRows(listener).get(9));
+        }
+
+        assertTrue(SupportStaticMethodAsync.getInvocationThreads().size() <= 2);
+        for (Thread thread : SupportStaticMethodAsync.getInvocationThreads())
+        {
+            assertTrue(thread.getName(), thread.getName().contains("HistoricalJoin"));
+        }
+    }
+
+    public void testVariableInLookupKey() throws Exception
+    {
+        epService.getEPAdministrator().createEPL("@Hint('HISTORICAL_ASYNC=1') select s0.id as id, h.p10 as value " +
+                "from S0 as s0, method:SupportStaticMethodAsync.fetchValue(s0.p00 || suffix) as h").addListener(listenerAsync);
+
+        listenerAsync.expectRows(1);
+        epService.getEPRuntime().sendEvent(new SupportBean_S0(1, "K"));
+        listenerAsync.awaitRows();
+
+        // polling ahead reads the current variable value, so that the join uses the prefetched result
+        epService.getEPRuntime().setVariableValue("suffix", "B");
+        listenerAsync.reset();
+        listenerAsync.expectRows(1);
+        epService.getEPRuntime().sendEvent(new SupportBean_S0(2, "K"));
+        listenerAsync.awaitRows();
+        assertEquals("[2,|KB|]", toRows(listenerAsync).toString());
+        assertEquals("[KA, KB]", SupportStaticMethodAsync.getKeys().toString());
+    }
+
+    public void testInvalid()
+    {
+        try
+        {
+            epService.getEPAdministrator().createEPL("@Hint('HISTORICAL_ASYNC=0') select * from S0 as s0, method:SupportStaticMethodAsync.fetchValue(s0.p00) as h");
+            fail();
+        }
+        catch (EPStatementException ex)
+        {
+            assertTrue(ex.getMessage(), ex.getMessage().contains("Hint 'HISTORICAL_ASYNC' requires a positive number of concurrent polls as a parameter, received '0'"));
+        }
+    }
+
+    private List<String> toRows(SupportUpdateListener listener)
+    {
+        List<EventBean[]> newDataList;
+        synchronized (listener)
+        {
+            newDataList = new ArrayList<EventBean[]>(listener.getNewDataList());
+        }
+        List<String> rows = new ArrayList<String>();
+        for (EventBean[] events : newDataList)
+        {
+            if (events == null)
+            {
+                continue;
+            }
+            for (EventBean event : events)
+            {
+                rows.add(event.get("id") + "," + event.get("value"));
+            }
+        }
+        return rows;
+    }
+
+    private static class SupportRowLatchListener extends SupportUpdateListener
+    {
+        private volatile CountDownLatch rowLatch;
+
+        public void expectRows(int numRows)
+        {
+            rowLatch = new CountDownLatch(numRows);
+        }
+
+        public void awaitRows() throws InterruptedException
+        {
+            assertTrue("Timeout waiting for rows, remaining " + rowLatch.getCount(), rowLatch.await(10, TimeUnit.SECONDS));
+        }
+
+        public synchronized void update(EventBean[] newData, EventBean[] oldData)
+        {
+            super.update(newData, oldData);
+            if ((newData != null) && (rowLatch != null))
+            {
+                for (int i = 0; i < newData.length; i++)
+                {
+                    rowLatch.countDown();
+                }
+            }
+        }
+    }
+}
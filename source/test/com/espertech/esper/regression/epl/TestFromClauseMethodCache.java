@@ -15,6 +15,7 @@ import com.espertech.esper.client.scopetest.EPAssertionUtil;
 import com.espertech.esper.client.scopetest.SupportUpdateListener;
 import junit.framework.TestCase;
 import com.espertech.esper.client.*;
+import com.espertech.esper.client.metric.StatementMetric;
 import com.espertech.esper.client.time.CurrentTimeEvent;
 import com.espertech.esper.support.bean.SupportBean;
 import com.espertech.esper.support.client.SupportConfigFactory;
@@ -140,6 +141,57 @@ public class TestFromClauseMethodCache extends TestCase
         assertEquals(1, SupportStaticMethodInvocations.getInvocationSizeReset());
     }
 
+    public void testTinyLFUCache()
+    {
+        Configuration config = SupportConfigFactory.getConfiguration();
+        ConfigurationMethodRef methodConfig = new ConfigurationMethodRef();
+        methodConfig.setTinyLFUCache(new ConfigurationTinyLFUCache(100, 0));
+        config.addMethodRef(SupportStaticMethodInvocations.class.getName(), methodConfig);
+        config.addImport(SupportStaticMethodInvocations.class.getPackage().getName() + ".*");
+        config.getEngineDefaults().getMetricsReporting().setEnableMetricsReporting(true);
+        config.getEngineDefaults().getMetricsReporting().setThreading(false);
+        config.getEngineDefaults().getMetricsReporting().setStatementInterval(1000);
+
+        epService = EPServiceProviderManager.getDefaultProvider(config);
+        epService.initialize();
+        listener = new SupportUpdateListener();
+        sendTimer(0);
+
+        String joinStatement = "select id, p00, theString from " +
+                SupportBean.class.getName() + "().win:length(100) as s1, " +
+                " method:SupportStaticMethodInvocations.fetchObjectLog(theString, intPrimitive)";
+        EPStatement stmt = epService.getEPAdministrator().createEPL(joinStatement, "joinStmt");
+        stmt.addListener(listener);
+        SupportUpdateListener listenerMetric = new SupportUpdateListener();
+        epService.getEPAdministrator().createEPL("select * from " + StatementMetric.class.getName() + "(statementName = 'joinStmt')").addListener(listenerMetric);
+
+        // set sleep off
+        SupportStaticMethodInvocations.getInvocationSizeReset();
+
+        String[] fields = new String[] {"id", "p00", "theString"};
+        sendBeanEvent("E1", 1);
+        EPAssertionUtil.assertProps(listener.assertOneGetNewAndReset(), fields, new Object[]{1, "|E1|", "E1"});
+        sendBeanEvent("E2", 2);
+        EPAssertionUtil.assertProps(listener.assertOneGetNewAndReset(), fields, new Object[]{2, "|E2|", "E2"});
+        assertEquals(2, SupportStaticMethodInvocations.getInvocationSizeReset());
+
+        // should be cached
+        sendBeanEvent("E1", 1);
+        EPAssertionUtil.assertProps(listener.assertOneGetNewAndReset(), fields, new Object[]{1, "|E1|", "E1"});
+        sendBeanEvent("E2", 2);
+        EPAssertionUtil.assertProps(listener.assertOneGetNewAndReset(), fields, new Object[]{2, "|E2|", "E2"});
+        sendBeanEvent("E1", 1);
+        EPAssertionUtil.assertProps(listener.assertOneGetNewAndReset(), fields, new Object[]{1, "|E1|", "E1"});
+        assertEquals(0, SupportStaticMethodInvocations.getInvocationSizeReset());
+
+        sendTimer(1000);
+        EventBean metric = listenerMetric.assertOneGetNewAndReset();
+        assertEquals(3L, metric.get("numDataCacheHits"));
+        assertEquals(2L, metric.get("numDataCacheMisses"));
+        assertEquals(0L, metric.get("numDataCacheEvictions"));
+        assertTrue((Long) metric.get("dataCacheLoadTime") >= 0);
+    }
+
     private void sendTimer(long timeInMSec)
     {
         CurrentTimeEvent theEvent = new CurrentTimeEvent(timeInMSec);
@@ -0,0 +1,213 @@
+/*
+ * *************************************************************************************
+ *  Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ *  http://esper.codehaus.org                                                          *
+ *  http://www.espertech.com                                                           *
+ *  ---------------------------------------------------------------------------------- *
+ *  The software in this package is published under the terms of the GPL license       *
+ *  a copy of which has been included with this distribution in the license.txt file.  *
+ * *************************************************************************************
+ */
+
+package com.espertech.esper.regression.epl;
+
+import com.espertech.esper.client.Configuration;
+import com.espertech.esper.client.EPServiceProvider;
+import com.espertech.esper.client.EPServiceProviderManager;
+import com.espertech.esper.client.EventBean;
+import com.espertech.esper.client.scopetest.SupportUpdateListener;
+import com.espertech.esper.client.time.CurrentTimeEvent;
+import com.espertech.esper.support.bean.SupportBean_S0;
+import com.espertech.esper.support.bean.SupportBean_S1;
+import com.espertech.esper.support.bean.SupportBean_S2;
+import com.espertech.esper.support.client.SupportConfigFactory;
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class TestJoinIncremental extends TestCase
+{
+    private EPServiceProvider epService;
+    private SupportUpdateListener listenerIncremental;
+    private SupportUpdateListener listenerPlain;
+
+    public void setUp()
+    {
+        Configuration config = SupportConfigFactory.getConfiguration();
+        config.addEventType("S0", SupportBean_S0.class);
+        config.addEventType("S1", SupportBean_S1.class);
+        config.addEventType("S2", SupportBean_S2.class);
+        epService = EPServiceProviderManager.getDefaultProvider(config);
+        epService.initialize();
+        listenerIncremental = new SupportUpdateListener();
+        listenerPlain = new SupportUpdateListener();
+    }
+
+    protected void tearDown() throws Exception {
+        listenerIncremental = null;
+        listenerPlain = null;
+    }
+
+    public void testLengthBatchAggregation()
+    {
+        createStatements("select irstream s0.p00 as key, count(*) as cnt, sum(s1.id) as total " +
+                "from S0.win:length_batch(4) as s0, S1.win:length_batch(3) as s1 " +
+                "where s0.p00 = s1.p10 group by s0.p00");
+
+        Random random = new Random(1);
+        for (int i = 0; i < 500; i++)
+        {
+            String key = Character.toString((char) ('A' + random.nextInt(4)));
+            if (random.nextBoolean())
+            {
+                sendAssertSame(new SupportBean_S0(i, key));
+            }
+            else
+            {
+                sendAssertSame(new SupportBean_S1(i, key));
+            }
+        }
+    }
+
+    public void testTimeBatchThreeStream()
+    {
+        epService.getEPRuntime().sendEvent(new CurrentTimeEvent(0));
+        createStatements("select irstream s0.id as s0id, s1.id as s1id, s2.id as s2id " +
+                "from S0.win:time_batch(1 sec) as s0, S1.win:time_batch(1 sec) as s1, S2.win:length(10) as s2 " +
+                "where s0.p00 = s1.p10 and s1.p11 = s2.p20");
+
+        Random random = new Random(2);
+        for (int i = 0; i < 600; i++)
+        {
+            int choice = random.nextInt(4);
+            String key = Character.toString((char) ('A' + random.nextInt(3)));
+            String keyTwo = Character.toString((char) ('X' + random.nextInt(3)));
+            if (choice == 0)
+            {
+                sendAssertSame(new SupportBean_S0(i, key));
+            }
+            else if (choice == 1)
+            {
+                sendAssertSame(new SupportBean_S1(i, key, keyTwo));
+            }
+            else if (choice == 2)
+            {
+                sendAssertSame(new SupportBean_S2(i, keyTwo));
+            }
+            else
+            {
+                sendAssertSame(new CurrentTimeEvent(i * 50));
+            }
+        }
+    }
+
+    public void testSlidingWindowFiltered()
+    {
+        createStatements("select irstream s0.id as s0id, s1.id as s1id " +
+                "from S0.win:length(5) as s0, S1.win:length(5) as s1 " +
+                "where s0.p00 = s1.p10 and s0.id > s1.id");
+
+        Random random = new Random(3);
+        for (int i = 0; i < 400; i++)
+        {
+            String key = Character.toString((char) ('A' + random.nextInt(2)));
+            if (random.nextBoolean())
+            {
+                sendAssertSame(new SupportBean_S0(i, key));
+            }
+            else
+            {
+                sendAssertSame(new SupportBean_S1(i, key));
+            }
+        }
+    }
+
+    public void testNamedWindowPreload()
+    {
+        epService.getEPAdministrator().createEPL("create window MyWindow.win:keepall() as S1");
+        epService.getEPAdministrator().createEPL("insert into MyWindow select * from S1");
+        epService.getEPAdministrator().createEPL("on S2 as s2 delete from MyWindow as w where s2.id = w.id");
+        for (int i = 0; i < 10; i++)
+        {
+            epService.getEPRuntime().sendEvent(new SupportBean_S1(i, i % 2 == 0 ? "A" : "B"));
+        }
+
+        createStatements("select irstream s0.p00 as key, count(*) as cnt " +
+                "from S0.win:length_batch(2) as s0, MyWindow as w " +
+                "where s0.p00 = w.p10 group by s0.p00");
+
+        sendAssertSame(new SupportBean_S0(100, "A"));
+        sendAssertSame(new SupportBean_S0(101, "B"));
+        sendAssertSame(new SupportBean_S2(0));
+        sendAssertSame(new SupportBean_S2(1));
+        sendAssertSame(new SupportBean_S1(20, "A"));
+        sendAssertSame(new SupportBean_S0(102, "A"));
+        sendAssertSame(new SupportBean_S2(2));
+        sendAssertSame(new SupportBean_S0(103, "A"));
+        sendAssertSame(new SupportBean_S2(20));
+        sendAssertSame(new SupportBean_S0(104, "B"));
+        sendAssertSame(new SupportBean_S0(105, "B"));
+    }
+
+    public void testNotApplicable()
+    {
+        // outer joins and joins without remove stream are planned as usual
+        createStatements("select irstream s0.id as s0id, s1.id as s1id " +
+                "from S0.win:length_batch(2) as s0 left outer join S1.win:length(3) as s1 on s0.p00 = s1.p10");
+        for (int i = 0; i < 20; i++)
+        {
+            sendAssertSame(new SupportBean_S1(i, i % 2 == 0 ? "A" : "B"));
+            sendAssertSame(new SupportBean_S0(100 + i, i % 3 == 0 ? "A" : "C"));
+        }
+
+        epService.getEPAdministrator().destroyAllStatements();
+        createStatements("select s0.id as s0id, s1.id as s1id " +
+                "from S0.win:length_batch(2) as s0, S1.win:length(3) as s1 where s0.p00 = s1.p10");
+        for (int i = 0; i < 20; i++)
+        {
+            sendAssertSame(new SupportBean_S1(i, i % 2 == 0 ? "A" : "B"));
+            sendAssertSame(new SupportBean_S0(100 + i, i % 3 == 0 ? "A" : "B"));
+        }
+    }
+
+    private void createStatements(String epl)
+    {
+        epService.getEPAdministrator().createEPL("@Hint('INCREMENTAL_JOIN') " + epl).addListener(listenerIncremental);
+        epService.getEPAdministrator().createEPL(epl).addListener(listenerPlain);
+    }
+
+    private void sendAssertSame(Object event)
+    {
+        epService.getEPRuntime().sendEvent(event);
+        assertEquals(toRows(listenerPlain.getNewDataList()), toRows(listenerIncremental.getNewDataList()));
+        assertEquals(toRows(listenerPlain.getOldDataList()), toRows(listenerIncremental.getOldDataList()));
+        listenerPlain.reset();
+        listenerIncremental.reset();
+    }
+
+    private List<String> toRows(List<EventBean[]> eventsList)
+    {
+        List<String> rows = new ArrayList<String>();
+        for (EventBean[] events : eventsList)
+        {
+            if (events == null)
+            {
+                continue;
+            }
+            for (EventBean event : events)
+            {
+                StringBuilder row = new StringBuilder();
+                for (String propertyName : event.getEventType().getPropertyNames())
+                {
+                    row.append(propertyName).append('=').append(event.get(propertyName)).append(' ');
+                }
+                rows.add(row.toString());
+            }
+        }
+        Collections.sort(rows);
+        return rows;
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * *************************************************************************************
+ *  Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ *  http://esper.codehaus.org                                                          *
+ *  http://www.espertech.com                                                           *
+ *  ---------------------------------------------------------------------------------- *
+ *  The software in this package is published under the terms of the GPL license       *
+ *  a copy of which has been included with this distribution in the license.txt file.  *
+ * *************************************************************************************
+ */
+
+package com.espertech.esper.regression.epl;
+
+import com.espertech.esper.client.Configuration;
+import com.espertech.esper.client.EPServiceProvider;
+import com.espertech.esper.client.EPServiceProviderManager;
+import com.espertech.esper.client.EventBean;
+import com.espertech.esper.client.scopetest.SupportUpdateListener;
+import com.espertech.esper.support.bean.SupportBean_S0;
+import com.espertech.esper.support.bean.SupportBean_S1;
+import com.espertech.esper.support.bean.SupportBean_S2;
+import com.espertech.esper.support.client.SupportConfigFactory;
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class TestJoinReplan extends TestCase
+{
+    private EPServiceProvider epServiceReplan;
+    private EPServiceProvider epServicePlain;
+    private SupportUpdateListener listenerReplan;
+    private SupportUpdateListener listenerPlain;
+
+    public void setUp()
+    {
+        Configuration config = SupportConfigFactory.getConfiguration();
+        config.addEventType("S0", SupportBean_S0.class);
+        config.addEventType("S1", SupportBean_S1.class);
+        config.addEventType("S2", SupportBean_S2.class);
+        epServicePlain = EPServiceProviderManager.getProvider("TestJoinReplanPlain", config);
+        epServicePlain.initialize();
+
+        config.getEngineDefaults().getExecution().setJoinReplanInterval(1);
+        epServiceReplan = EPServiceProviderManager.getProvider("TestJoinReplan", config);
+        epServiceReplan.initialize();
+
+        listenerReplan = new SupportUpdateListener();
+        listenerPlain = new SupportUpdateListener();
+    }
+
+    protected void tearDown() throws Exception {
+        epServiceReplan.destroy();
+        epServicePlain.destroy();
+        listenerReplan = null;
+        listenerPlain = null;
+    }
+
+    public void testReplanSkewedKeys()
+    {
+        String stmtText = "select s0.id as s0id, s1.id as s1id, s2.id as s2id from " +
+                "S0.std:lastevent() as s0, S1.win:length(300) as s1, S2.win:keepall() as s2 " +
+                "where s0.p00 = s1.p10 and s0.p01 = s2.p20 and s1.p11 = s2.p21";
+        epServiceReplan.getEPAdministrator().createEPL(stmtText).addListener(listenerReplan);
+        epServicePlain.getEPAdministrator().createEPL(stmtText).addListener(listenerPlain);
+
+        // few distinct values of p10 for the lookup from s0 into s1, many distinct values of p20 for the lookup from s0 into s2
+        for (int i = 1; i <= 300; i++)
+        {
+            sendAssertSame(new SupportBean_S1(i, "A" + (i % 3), "K" + i));
+            sendAssertSame(new SupportBean_S2(i, "B" + i, "K" + i));
+        }
+        for (int i = 1; i <= 300; i++)
+        {
+            List<String> rows = sendAssertSame(new SupportBean_S0(1000 + i, "A" + (i % 3), "B" + i));
+            assertEquals(Collections.singletonList((1000 + i) + "," + i + "," + i), rows);
+        }
+
+        // replace the s1 events by events with distinct values of p10
+        for (int i = 301; i <= 600; i++)
+        {
+            sendAssertSame(new SupportBean_S1(i, "X" + i, "K" + (i - 300)));
+        }
+        for (int i = 1; i <= 300; i++)
+        {
+            List<String> rows = sendAssertSame(new SupportBean_S0(2000 + i, "X" + (i + 300), "B" + i));
+            assertEquals(Collections.singletonList((2000 + i) + "," + (i + 300) + "," + i), rows);
+        }
+
+        // no longer matching
+        assertTrue(sendAssertSame(new SupportBean_S0(3000, "A1", "B1")).isEmpty());
+    }
+
+    private List<String> sendAssertSame(Object event)
+    {
+        epServiceReplan.getEPRuntime().sendEvent(event);
+        epServicePlain.getEPRuntime().sendEvent(event);
+        List<String> rows = toRows(listenerReplan.getLastNewData());
+        assertEquals(toRows(listenerPlain.getLastNewData()), rows);
+        assertEquals(toRows(listenerPlain.getLastOldData()), toRows(listenerReplan.getLastOldData()));
+        listenerPlain.reset();
+        listenerReplan.reset();
+        return rows;
+    }
+
+    private List<String> toRows(EventBean[] events)
+    {
+        List<String> rows = new ArrayList<String>();
+        if (events == null)
+        {
+            return rows;
+        }
+        for (EventBean event : events)
+        {
+            rows.add(event.get("s0id") + "," + event.get("s1id") + "," + event.get("s2id"));
+        }
+        Collections.sort(rows);
+        return rows;
+    }
+}
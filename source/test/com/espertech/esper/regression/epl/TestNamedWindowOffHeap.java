@@ -0,0 +1,298 @@
+/*
+ * *************************************************************************************
+ *  Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ *  http://esper.codehaus.org                                                          *
+ *  http://www.espertech.com                                                           *
+ *  ---------------------------------------------------------------------------------- *
+ *  The software in this package is published under the terms of the GPL license       *
+ *  a copy of which has been included with this distribution in the license.txt file.  *
+ * *************************************************************************************
+ */
+
+package com.espertech.esper.regression.epl;
+
+import com.espertech.esper.client.Configuration;
+import com.espertech.esper.client.EPServiceProvider;
+import com.espertech.esper.client.EPServiceProviderManager;
+import com.espertech.esper.client.EPStatement;
+import com.espertech.esper.client.EPStatementException;
+import com.espertech.esper.client.EventBean;
+import com.espertech.esper.client.UpdateListener;
+import com.espertech.esper.event.columnar.ColumnarEventBean;
+import com.espertech.esper.event.columnar.ColumnarEventStore;
+import com.espertech.esper.support.bean.SupportBean;
+import com.espertech.esper.support.bean.SupportBean_S0;
+import com.espertech.esper.support.bean.SupportBean_S1;
+import com.espertech.esper.support.client.SupportConfigFactory;
+import com.espertech.esper.util.EventRepresentationEnum;
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Compares a keep-all named window using off-heap storage to a keep-all named window using heap storage.
+ */
+public class TestNamedWindowOffHeap extends TestCase
+{
+    private static final String[] PROPERTIES = "id,num,big,amount,flag,letter,text,tags".split(",");
+
+    private EPServiceProvider epService;
+
+    public void setUp()
+    {
+        Configuration config = SupportConfigFactory.getConfiguration();
+        config.addEventType("SupportBean", SupportBean.class);
+        config.addEventType("SupportBean_S0", SupportBean_S0.class);
+        config.addEventType("SupportBean_S1", SupportBean_S1.class);
+        epService = EPServiceProviderManager.getDefaultProvider(config);
+        epService.initialize();
+    }
+
+    public void testCompareHeap()
+    {
+        runAssertionCompareHeap(EventRepresentationEnum.MAP);
+        runAssertionCompareHeap(EventRepresentationEnum.OBJECTARRAY);
+    }
+
+    public void testDestroyReleases()
+    {
+        epService.getEPAdministrator().createEPL("create map schema MyRow (id string, num int)");
+        EPStatement window = epService.getEPAdministrator().createEPL("@Hint('storage=offheap') create window OffWin.win:keepall() as MyRow");
+        epService.getEPAdministrator().createEPL("insert into OffWin select * from MyRow");
+        RecordingListener listener = new RecordingListener();
+        epService.getEPAdministrator().createEPL("select irstream * from OffWin").addListener(listener);
+
+        for (int i = 0; i < 5000; i++)
+        {
+            Map<String, Object> row = new HashMap<String, Object>();
+            row.put("id", "E" + i);
+            row.put("num", i);
+            epService.getEPRuntime().sendEvent(row, "MyRow");
+        }
+        ColumnarEventBean first = (ColumnarEventBean) listener.events.get(0);
+        ColumnarEventBean last = (ColumnarEventBean) listener.events.get(4999);
+        ColumnarEventStore store = first.getStore();
+        assertEquals(5000, store.size());
+        assertTrue(store.getOffHeapBytes() > 0);
+
+        window.destroy();
+
+        // beans held by consumers remain valid once the buffers are released
+        assertEquals(0, store.size());
+        assertEquals(0, store.getOffHeapBytes());
+        assertFalse(store.iterator().hasNext());
+        assertTrue(first.isDetached());
+        assertEquals("E0", first.get("id"));
+        assertEquals(0, first.get("num"));
+        assertEquals("E4999", last.get("id"));
+        assertEquals(4999, ((Map) last.getUnderlying()).get("num"));
+    }
+
+    public void testInvalid()
+    {
+        epService.getEPAdministrator().createEPL("create map schema MyRow (id string)");
+        tryInvalid("@Hint('storage=onheap') create window OffWinOne.win:keepall() as MyRow", "storage hint value 'onheap' is not supported");
+        tryInvalid("@Hint('storage=offheap') create window OffWinTwo.win:keepall() as SupportBean", "requires a Map or object-array event type");
+    }
+
+    private void runAssertionCompareHeap(EventRepresentationEnum rep)
+    {
+        String rowType = "MyRow" + rep.name();
+        String schema = rep.getAnnotationText() + " create schema " + rowType + " (id string, num int, big long, amount double, flag boolean, letter char, text string, tags string[])";
+        epService.getEPAdministrator().createEPL(schema);
+
+        List<RecordingListener> listeners = new ArrayList<RecordingListener>();
+        List<EPStatement> statements = new ArrayList<EPStatement>();
+        for (String name : new String[] {"HeapWin" + rep.name(), "OffWin" + rep.name()})
+        {
+            String hint = name.startsWith("OffWin") ? "@Hint('storage=offheap') " : "";
+            statements.add(epService.getEPAdministrator().createEPL(hint + "create window " + name + ".win:keepall() as " + rowType));
+            epService.getEPAdministrator().createEPL("insert into " + name + " select * from " + rowType);
+            epService.getEPAdministrator().createEPL("on SupportBean_S0 as s0 delete from " + name + " as w where w.id = s0.p00");
+            epService.getEPAdministrator().createEPL("on SupportBean_S1 as s1 delete from " + name + " as w where w.num < s1.id");
+            epService.getEPAdministrator().createEPL("on SupportBean as sb update " + name + " as w set text = sb.theString where w.id = sb.theString");
+            RecordingListener listener = new RecordingListener();
+            epService.getEPAdministrator().createEPL("select irstream * from " + name).addListener(listener);
+            listeners.add(listener);
+        }
+        assertTrue(statements.get(1).iterator().hasNext() == false);
+
+        Random random = new Random(rep.ordinal());
+        int nextId = 0;
+        int minNum = 0;
+        for (int op = 0; op < 3000; op++)
+        {
+            int choice = random.nextInt(20);
+            if (choice < 13)
+            {
+                sendRow(rep, rowType, random, "k" + nextId, nextId);
+                nextId++;
+            }
+            else if (choice < 17)
+            {
+                epService.getEPRuntime().sendEvent(new SupportBean_S0(0, "k" + random.nextInt(nextId + 1)));
+            }
+            else if (choice < 18)
+            {
+                minNum += random.nextInt(50);
+                epService.getEPRuntime().sendEvent(new SupportBean_S1(minNum));
+            }
+            else
+            {
+                epService.getEPRuntime().sendEvent(new SupportBean("k" + random.nextInt(nextId + 1), 0));
+            }
+
+            if (op % 100 == 0)
+            {
+                assertSame(statements, rep);
+            }
+        }
+        assertSame(statements, rep);
+        assertEquals(render(listeners.get(0).outputs), render(listeners.get(1).outputs));
+        assertTrue(listeners.get(1).events.get(0) instanceof ColumnarEventBean);
+
+        // remove the rest and check the window is empty
+        epService.getEPRuntime().sendEvent(new SupportBean_S1(Integer.MAX_VALUE));
+        assertSame(statements, rep);
+        assertFalse(statements.get(1).iterator().hasNext());
+        assertEquals(render(listeners.get(0).outputs), render(listeners.get(1).outputs));
+
+        epService.getEPAdministrator().destroyAllStatements();
+    }
+
+    private void assertSame(List<EPStatement> statements, EventRepresentationEnum rep)
+    {
+        // iteration
+        assertEquals(render(statements.get(0).iterator()), render(statements.get(1).iterator()));
+
+        // on-demand queries, including index use and aggregation
+        String[] queries = new String[] {
+            "select * from WIN",
+            "select * from WIN where id = 'k7'",
+            "select * from WIN where num between 100 and 300",
+            "select id, text, tags from WIN where flag and amount > 0.5",
+            "select count(*) as cnt, sum(big) as sumbig, max(letter) as maxletter, min(text) as mintext from WIN",
+        };
+        for (String query : queries)
+        {
+            EventBean[] heap = epService.getEPRuntime().executeQuery(query.replace("WIN", "HeapWin" + rep.name())).getArray();
+            EventBean[] off = epService.getEPRuntime().executeQuery(query.replace("WIN", "OffWin" + rep.name())).getArray();
+            assertEquals(query, render(Arrays.asList(heap).iterator()), render(Arrays.asList(off).iterator()));
+        }
+    }
+
+    private void sendRow(EventRepresentationEnum rep, String rowType, Random random, String id, int num)
+    {
+        Map<String, Object> values = new LinkedHashMap<String, Object>();
+        values.put("id", id);
+        values.put("num", num);
+        values.put("big", random.nextInt(10) == 0 ? null : random.nextLong());
+        values.put("amount", random.nextInt(10) == 0 ? null : random.nextDouble());
+        values.put("flag", random.nextInt(10) == 0 ? null : random.nextBoolean());
+        values.put("letter", random.nextInt(10) == 0 ? null : (char) ('a' + random.nextInt(26)));
+        values.put("text", makeText(random));
+        values.put("tags", random.nextInt(3) == 0 ? null : new String[] {id, "t" + random.nextInt(5)});
+
+        if (rep == EventRepresentationEnum.OBJECTARRAY)
+        {
+            Object[] row = new Object[PROPERTIES.length];
+            for (int i = 0; i < PROPERTIES.length; i++)
+            {
+                row[i] = values.get(PROPERTIES[i]);
+            }
+            epService.getEPRuntime().sendEvent(row, rowType);
+        }
+        else
+        {
+            epService.getEPRuntime().sendEvent(values, rowType);
+        }
+    }
+
+    private static String makeText(Random random)
+    {
+        int kind = random.nextInt(10);
+        if (kind == 0)
+        {
+            return null;
+        }
+        StringBuilder text = new StringBuilder();
+        // long strings cause string buffers to compact and grow
+        int length = kind == 1 ? 500 + random.nextInt(2000) : random.nextInt(20);
+        for (int i = 0; i < length; i++)
+        {
+            // some non-ASCII characters
+            text.append(kind == 2 ? (char) (0x3b1 + random.nextInt(20)) : (char) ('A' + random.nextInt(26)));
+        }
+        return text.toString();
+    }
+
+    private void tryInvalid(String epl, String expected)
+    {
+        try
+        {
+            epService.getEPAdministrator().createEPL(epl);
+            fail();
+        }
+        catch (EPStatementException ex)
+        {
+            assertTrue(ex.getMessage(), ex.getMessage().contains(expected));
+        }
+    }
+
+    private static String render(Iterator<EventBean> events)
+    {
+        List<String> rendered = new ArrayList<String>();
+        while (events.hasNext())
+        {
+            rendered.add(render(events.next()));
+        }
+        return rendered.toString();
+    }
+
+    private static String render(List<String> outputs)
+    {
+        return outputs.toString();
+    }
+
+    private static String render(EventBean event)
+    {
+        StringBuilder builder = new StringBuilder();
+        for (String property : event.getEventType().getPropertyNames())
+        {
+            Object value = event.get(property);
+            builder.append(property).append('=');
+            builder.append(value instanceof Object[] ? Arrays.toString((Object[]) value) : String.valueOf(value));
+            builder.append(' ');
+        }
+        return builder.toString();
+    }
+
+    private static class RecordingListener implements UpdateListener
+    {
+        private final List<String> outputs = new ArrayList<String>();
+        private final List<EventBean> events = new ArrayList<EventBean>();
+
+        public void update(EventBean[] newEvents, EventBean[] oldEvents)
+        {
+            StringBuilder builder = new StringBuilder("new");
+            for (EventBean event : newEvents == null ? new EventBean[0] : newEvents)
+            {
+                builder.append(" [").append(render(event)).append(']');
+                events.add(event);
+            }
+            builder.append(" old");
+            for (EventBean event : oldEvents == null ? new EventBean[0] : oldEvents)
+            {
+                builder.append(" [").append(render(event)).append(']');
+            }
+            outputs.add(builder.toString());
+        }
+    }
+}
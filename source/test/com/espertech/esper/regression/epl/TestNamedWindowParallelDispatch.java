@@ -0,0 +1,197 @@
+/*
+ * *************************************************************************************
+ *  Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ *  http://esper.codehaus.org                                                          *
+ *  http://www.espertech.com                                                           *
+ *  ---------------------------------------------------------------------------------- *
+ *  The software in this package is published under the terms of the GPL license       *
+ *  a copy of which has been included with this distribution in the license.txt file.  *
+ * *************************************************************************************
+ */
+
+package com.espertech.esper.regression.epl;
+
+import com.espertech.esper.client.Configuration;
+import com.espertech.esper.client.EPServiceProvider;
+import com.espertech.esper.client.EPServiceProviderManager;
+import com.espertech.esper.client.EventBean;
+import com.espertech.esper.client.scopetest.SupportUpdateListener;
+import com.espertech.esper.support.bean.SupportBean;
+import com.espertech.esper.support.client.SupportConfigFactory;
+import junit.framework.TestCase;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class TestNamedWindowParallelDispatch extends TestCase
+{
+    private static final Log log = LogFactory.getLog(TestNamedWindowParallelDispatch.class);
+
+    private List<EPServiceProvider> engines;
+
+    public void setUp()
+    {
+        engines = new ArrayList<EPServiceProvider>();
+    }
+
+    protected void tearDown() throws Exception {
+        for (EPServiceProvider engine : engines) {
+            engine.destroy();
+        }
+        engines = null;
+    }
+
+    public void testConsumerOrder()
+    {
+        EPServiceProvider sequential = makeEngine("sequential", 0, false);
+        EPServiceProvider parallel = makeEngine("parallel", 3, false);
+
+        SupportUpdateListener[] listenersSequential = makeConsumers(sequential, 50);
+        SupportUpdateListener[] listenersParallel = makeConsumers(parallel, 50);
+
+        for (int i = 0; i < 20; i++) {
+            sequential.getEPRuntime().sendEvent(new SupportBean("E" + i, i));
+            parallel.getEPRuntime().sendEvent(new SupportBean("E" + i, i));
+        }
+
+        // each consumer receives the same deltas in the same order
+        for (int i = 0; i < listenersParallel.length; i++) {
+            assertEquals(toString(listenersSequential[i]), toString(listenersParallel[i]));
+            assertEquals(20, listenersParallel[i].getNewDataList().size());
+        }
+    }
+
+    public void testConsumerInsertInto()
+    {
+        for (int numThreads : new int[] {0, 1, 4}) {
+            EPServiceProvider engine = makeEngine("insertinto" + numThreads, numThreads, false);
+            engine.getEPAdministrator().createEPL("create window MyWindow.win:keepall() as SupportBean");
+            engine.getEPAdministrator().createEPL("insert into MyWindow select * from SupportBean");
+            engine.getEPAdministrator().createEPL("create window MyWindowTwo.win:keepall() as (theString string, num int)");
+
+            // consumers insert into a stream and into another named window
+            for (int i = 0; i < 10; i++) {
+                engine.getEPAdministrator().createEPL("insert into MyStream select theString, " + i + " as num from MyWindow");
+                engine.getEPAdministrator().createEPL("insert into MyWindowTwo select theString, " + i + " as num from MyWindow");
+            }
+            SupportUpdateListener listenerStream = new SupportUpdateListener();
+            engine.getEPAdministrator().createEPL("select * from MyStream").addListener(listenerStream);
+            SupportUpdateListener listenerWindowTwo = new SupportUpdateListener();
+            engine.getEPAdministrator().createEPL("select * from MyWindowTwo").addListener(listenerWindowTwo);
+
+            for (int i = 0; i < 5; i++) {
+                engine.getEPRuntime().sendEvent(new SupportBean("E" + i, i));
+            }
+
+            assertEquals(50, listenerStream.getNewDataListFlattened().length);
+            assertEquals(50, listenerWindowTwo.getNewDataListFlattened().length);
+            assertEquals(50L, engine.getEPRuntime().executeQuery("select count(*) as cnt from MyWindowTwo").getArray()[0].get("cnt"));
+        }
+    }
+
+    public void testPrioritizedPreemptive()
+    {
+        EPServiceProvider engine = makeEngine("prioritized", 3, true);
+        engine.getEPAdministrator().createEPL("create window MyWindow.std:lastevent() as SupportBean");
+        engine.getEPAdministrator().createEPL("insert into MyWindow select * from SupportBean");
+
+        SupportUpdateListener[] listeners = new SupportUpdateListener[6];
+        for (int i = 0; i < listeners.length; i++) {
+            listeners[i] = new SupportUpdateListener();
+        }
+        engine.getEPAdministrator().createEPL("@Priority(1) select * from MyWindow").addListener(listeners[0]);
+        engine.getEPAdministrator().createEPL("@Priority(5) select * from MyWindow").addListener(listeners[1]);
+        engine.getEPAdministrator().createEPL("@Priority(5) select * from MyWindow").addListener(listeners[2]);
+        engine.getEPAdministrator().createEPL("@Priority(3) @Drop select * from MyWindow").addListener(listeners[3]);
+        engine.getEPAdministrator().createEPL("@Priority(2) select * from MyWindow").addListener(listeners[4]);
+        engine.getEPAdministrator().createEPL("@Priority(9) select * from MyWindow").addListener(listeners[5]);
+
+        engine.getEPRuntime().sendEvent(new SupportBean("E1", 1));
+
+        // consumers of lower priority then the preemptive consumer do not receive the delta
+        assertFalse(listeners[0].isInvoked());
+        assertTrue(listeners[1].isInvoked());
+        assertTrue(listeners[2].isInvoked());
+        assertTrue(listeners[3].isInvoked());
+        assertFalse(listeners[4].isInvoked());
+        assertTrue(listeners[5].isInvoked());
+    }
+
+    public void testDispatchManyConsumers()
+    {
+        for (int numConsumers : new int[] {10, 100, 1000}) {
+            long deltaSequential = runDispatch("sequential" + numConsumers, 0, numConsumers);
+            long deltaParallel = runDispatch("parallel" + numConsumers, 4, numConsumers);
+            log.info("Dispatch to " + numConsumers + " consumers took " + deltaSequential + " msec sequentially and " + deltaParallel + " msec in parallel");
+        }
+    }
+
+    private long runDispatch(String uri, int numThreads, int numConsumers)
+    {
+        EPServiceProvider engine = makeEngine(uri, numThreads, false);
+        SupportUpdateListener[] listeners = makeConsumers(engine, numConsumers);
+        int numEvents = 10000 / numConsumers;
+
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < numEvents; i++) {
+            engine.getEPRuntime().sendEvent(new SupportBean("E" + i, i));
+        }
+        long delta = System.currentTimeMillis() - start;
+
+        for (SupportUpdateListener listener : listeners) {
+            assertEquals(numEvents, listener.getNewDataList().size());
+        }
+        engine.destroy();
+        engines.remove(engine);
+        return delta;
+    }
+
+    private EPServiceProvider makeEngine(String uri, int numThreads, boolean prioritized)
+    {
+        Configuration config = SupportConfigFactory.getConfiguration();
+        config.addEventType("SupportBean", SupportBean.class);
+        config.getEngineDefaults().getExecution().setNamedWindowConsumerDispatchThreads(numThreads);
+        config.getEngineDefaults().getExecution().setPrioritized(prioritized);
+        EPServiceProvider engine = EPServiceProviderManager.getProvider(TestNamedWindowParallelDispatch.class.getSimpleName() + "-" + uri, config);
+        engine.initialize();
+        engines.add(engine);
+        return engine;
+    }
+
+    private SupportUpdateListener[] makeConsumers(EPServiceProvider engine, int numConsumers)
+    {
+        engine.getEPAdministrator().createEPL("create window MyWindow.win:length(5) as SupportBean");
+        engine.getEPAdministrator().createEPL("insert into MyWindow select * from SupportBean");
+
+        SupportUpdateListener[] listeners = new SupportUpdateListener[numConsumers];
+        for (int i = 0; i < numConsumers; i++) {
+            listeners[i] = new SupportUpdateListener();
+            engine.getEPAdministrator().createEPL("select irstream theString, intPrimitive + " + i + " as value from MyWindow").addListener(listeners[i]);
+        }
+        return listeners;
+    }
+
+    private static String toString(SupportUpdateListener listener)
+    {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < listener.getNewDataList().size(); i++) {
+            append(builder, listener.getNewDataList().get(i));
+            builder.append("/");
+            append(builder, listener.getOldDataList().get(i));
+            builder.append(";");
+        }
+        return builder.toString();
+    }
+
+    private static void append(StringBuilder builder, EventBean[] events)
+    {
+        if (events == null) {
+            return;
+        }
+        for (EventBean theEvent : events) {
+            builder.append(theEvent.get("theString")).append("=").append(theEvent.get("value")).append(",");
+        }
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * *************************************************************************************
+ *  Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ *  http://esper.codehaus.org                                                          *
+ *  http://www.espertech.com                                                           *
+ *  ---------------------------------------------------------------------------------- *
+ *  The software in this package is published under the terms of the GPL license       *
+ *  a copy of which has been included with this distribution in the license.txt file.  *
+ * *************************************************************************************
+ */
+
+package com.espertech.esper.regression.epl;
+
+import com.espertech.esper.client.Configuration;
+import com.espertech.esper.client.EPServiceProvider;
+import com.espertech.esper.client.EPServiceProviderManager;
+import com.espertech.esper.client.EPStatement;
+import com.espertech.esper.client.EPStatementException;
+import com.espertech.esper.client.EventBean;
+import com.espertech.esper.client.SafeIterator;
+import com.espertech.esper.client.scopetest.EPAssertionUtil;
+import com.espertech.esper.support.bean.SupportBean;
+import com.espertech.esper.support.bean.SupportBean_S0;
+import com.espertech.esper.support.client.SupportConfigFactory;
+import junit.framework.TestCase;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class TestNamedWindowSnapshotReads extends TestCase
+{
+    private static final Log log = LogFactory.getLog(TestNamedWindowSnapshotReads.class);
+
+    private EPServiceProvider epService;
+
+    public void setUp()
+    {
+        Configuration config = SupportConfigFactory.getConfiguration();
+        config.addEventType("SupportBean", SupportBean.class);
+        config.addEventType("SupportBean_S0", SupportBean_S0.class);
+        epService = EPServiceProviderManager.getDefaultProvider(config);
+        epService.initialize();
+    }
+
+    protected void tearDown() throws Exception {
+        epService.initialize();
+    }
+
+    public void testIterateAndQuery()
+    {
+        String[] fields = "theString,intPrimitive".split(",");
+        EPStatement stmtWindow = epService.getEPAdministrator().createEPL("@Hint('snapshot_reads') create window MyWindow.win:keepall() as SupportBean");
+        epService.getEPAdministrator().createEPL("insert into MyWindow select * from SupportBean");
+        epService.getEPAdministrator().createEPL("on SupportBean_S0(id = 1) as s0 update MyWindow as win set intPrimitive = intPrimitive + 100 where win.theString = s0.p00");
+        epService.getEPAdministrator().createEPL("on SupportBean_S0(id = 2) as s0 delete from MyWindow as win where win.theString = s0.p00");
+
+        epService.getEPRuntime().sendEvent(new SupportBean("E1", 1));
+        epService.getEPRuntime().sendEvent(new SupportBean("E2", 2));
+        epService.getEPRuntime().sendEvent(new SupportBean("E3", 3));
+        EPAssertionUtil.assertPropsPerRow(stmtWindow.iterator(), fields, new Object[][]{{"E1", 1}, {"E2", 2}, {"E3", 3}});
+
+        // the updated row is inserted last
+        epService.getEPRuntime().sendEvent(new SupportBean_S0(1, "E2"));
+        EPAssertionUtil.assertPropsPerRow(stmtWindow.iterator(), fields, new Object[][]{{"E1", 1}, {"E3", 3}, {"E2", 102}});
+        SafeIterator<EventBean> safeIterator = stmtWindow.safeIterator();
+        EPAssertionUtil.assertPropsPerRow(safeIterator, fields, new Object[][]{{"E1", 1}, {"E3", 3}, {"E2", 102}});
+        safeIterator.close();
+
+        epService.getEPRuntime().sendEvent(new SupportBean_S0(2, "E1"));
+        EPAssertionUtil.assertPropsPerRow(stmtWindow.iterator(), fields, new Object[][]{{"E3", 3}, {"E2", 102}});
+
+        EventBean[] rows = epService.getEPRuntime().executeQuery("select * from MyWindow where intPrimitive > 50").getArray();
+        EPAssertionUtil.assertPropsPerRow(rows, fields, new Object[][]{{"E2", 102}});
+        rows = epService.getEPRuntime().executeQuery("select * from MyWindow where theString = 'E3'").getArray();
+        EPAssertionUtil.assertPropsPerRow(rows, fields, new Object[][]{{"E3", 3}});
+        rows = epService.getEPRuntime().executeQuery("select count(*) as cnt from MyWindow").getArray();
+        assertEquals(2L, rows[0].get("cnt"));
+    }
+
+    public void testUniqueWindowMerge()
+    {
+        String[] fields = "theString,intPrimitive".split(",");
+        EPStatement stmtWindow = epService.getEPAdministrator().createEPL("@Hint('snapshot_reads') create window MyWindow.std:unique(theString) as SupportBean");
+        epService.getEPAdministrator().createEPL("on SupportBean as sb merge MyWindow as win where win.theString = sb.theString " +
+                "when matched then update set intPrimitive = win.intPrimitive + sb.intPrimitive " +
+                "when not matched then insert select *");
+
+        epService.getEPRuntime().sendEvent(new SupportBean("E1", 1));
+        epService.getEPRuntime().sendEvent(new SupportBean("E2", 2));
+        epService.getEPRuntime().sendEvent(new SupportBean("E1", 10));
+        EPAssertionUtil.assertPropsPerRow(stmtWindow.iterator(), fields, new Object[][]{{"E2", 2}, {"E1", 11}});
+
+        // a statement created later is preloaded with the window contents
+        EPStatement stmtConsumer = epService.getEPAdministrator().createEPL("select * from MyWindow");
+        EPAssertionUtil.assertPropsPerRowAnyOrder(stmtConsumer.iterator(), fields, new Object[][]{{"E2", 2}, {"E1", 11}});
+    }
+
+    public void testInvalid()
+    {
+        try {
+            epService.getEPAdministrator().createEPL("@Hint('snapshot_reads') create window MyWindow.win:length_batch(2) as SupportBean");
+            fail();
+        }
+        catch (EPStatementException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().startsWith("Error starting statement: Hint 'SNAPSHOT_READS' is not supported for batch windows"));
+        }
+    }
+
+    public void testReadWriteContention() throws Exception
+    {
+        long readsLocking = runContention("create window MyWindowLocking.std:unique(theString) as SupportBean", "MyWindowLocking");
+        long readsSnapshot = runContention("@Hint('snapshot_reads') create window MyWindowSnapshot.std:unique(theString) as SupportBean", "MyWindowSnapshot");
+        log.info("Fire-and-forget queries completed while merging: " + readsLocking + " locking, " + readsSnapshot + " with snapshot reads");
+    }
+
+    private long runContention(String createWindowEPL, final String windowName) throws Exception
+    {
+        final int numKeys = 100;
+        epService.getEPAdministrator().createEPL(createWindowEPL);
+        epService.getEPAdministrator().createEPL("on SupportBean as sb merge " + windowName + " as win where win.theString = sb.theString " +
+                "when matched and sb.intPrimitive < 0 then delete " +
+                "when matched then update set intPrimitive = sb.intPrimitive " +
+                "when not matched then insert select *");
+        for (int i = 0; i < numKeys; i++) {
+            epService.getEPRuntime().sendEvent(new SupportBean("K" + i, 0));
+        }
+
+        // readers: each version read has all keys, or one key less while the writer deletes and re-inserts a key
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final AtomicLong numReads = new AtomicLong();
+        final AtomicBoolean failed = new AtomicBoolean();
+        Thread[] readers = new Thread[3];
+        for (int i = 0; i < readers.length; i++) {
+            readers[i] = new Thread() {
+                public void run() {
+                    while (running.get()) {
+                        EventBean[] rows = epService.getEPRuntime().executeQuery("select * from " + windowName).getArray();
+                        if (rows.length < numKeys - 1 || rows.length > numKeys) {
+                            failed.set(true);
+                        }
+                        numReads.incrementAndGet();
+                    }
+                }
+            };
+            readers[i].start();
+        }
+
+        long start = System.currentTimeMillis();
+        int count = 0;
+        while (System.currentTimeMillis() - start < 1000) {
+            String key = "K" + (count % numKeys);
+            if (count % 10 == 0) {
+                epService.getEPRuntime().sendEvent(new SupportBean(key, -1));
+                epService.getEPRuntime().sendEvent(new SupportBean(key, 0));
+            }
+            else {
+                epService.getEPRuntime().sendEvent(new SupportBean(key, count));
+            }
+            count++;
+        }
+        running.set(false);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        assertFalse(failed.get());
+        assertEquals((long) numKeys, epService.getEPRuntime().executeQuery("select count(*) as cnt from " + windowName).getArray()[0].get("cnt"));
+        return numReads.get();
+    }
+}
@@ -152,7 +152,7 @@ public class TestNamedWindowSubqCorrelIndex extends TestCase implements IndexBac
                 "create unique index Two on MyWindow (s1, d1)"};
         assertIndexChoice(true, indexSetTwo, preloadedEventsOne, "std:unique(s1)",
             new IndexAssertion[] {
-                new IndexAssertion(null, "d1 = ssb2.d2", null, BACKING_SINGLE_DUPS, eventSendAssertion),
+                new IndexAssertion(null, "d1 = ssb2.d2", null, BACKING_SINGLE_DUPS_PRIMITIVE, eventSendAssertion),
                 new IndexAssertion(null, "s1 = ssb2.s2", "One", BACKING_SINGLE_DUPS, eventSendAssertion),
                 new IndexAssertion(null, "s1 = ssb2.s2 and l1 = ssb2.l2", null, BACKING_SINGLE_UNIQUE, eventSendAssertion),
                 new IndexAssertion("@Hint('index(One)')", "s1 = ssb2.s2 and l1 = ssb2.l2", "One", BACKING_SINGLE_DUPS, eventSendAssertion),
@@ -166,7 +166,7 @@ public class TestNamedWindowSubqCorrelIndex extends TestCase implements IndexBac
         // two index one unique with keep-all
         assertIndexChoice(true, indexSetTwo, preloadedEventsOne, "win:keepall()",
                 new IndexAssertion[] {
-                        new IndexAssertion(null, "d1 = ssb2.d2", null, BACKING_SINGLE_DUPS, eventSendAssertion),
+                        new IndexAssertion(null, "d1 = ssb2.d2", null, BACKING_SINGLE_DUPS_PRIMITIVE, eventSendAssertion),
                         new IndexAssertion(null, "s1 = ssb2.s2", "One", BACKING_SINGLE_DUPS, eventSendAssertion),
                         new IndexAssertion(null, "s1 = ssb2.s2 and l1 = ssb2.l2", null, BACKING_MULTI_DUPS, eventSendAssertion),
                         new IndexAssertion("@Hint('index(One)')", "s1 = ssb2.s2 and l1 = ssb2.l2", "One", BACKING_SINGLE_DUPS, eventSendAssertion),
@@ -217,8 +217,8 @@ public class TestNamedWindowSubqCorrelIndex extends TestCase implements IndexBac
                 new IndexAssertion[] {
                         new IndexAssertion(null, "s1 = ssb2.s2", null, BACKING_SINGLE_UNIQUE, eventSendAssertion),
                         new IndexAssertion(null, "s1 = ssb2.s2 and l1 = ssb2.l2", null, BACKING_SINGLE_UNIQUE, eventSendAssertion),
-                        new IndexAssertion(null, "i1 between 1 and 10", null, BACKING_SORTED, noAssertion),
-                        new IndexAssertion(null, "l1 = ssb2.l2", null, BACKING_SINGLE_DUPS, eventSendAssertion),
+                        new IndexAssertion(null, "i1 between 1 and 10", null, BACKING_SORTED_PRIMITIVE, noAssertion),
+                        new IndexAssertion(null, "l1 = ssb2.l2", null, BACKING_SINGLE_DUPS_PRIMITIVE, eventSendAssertion),
                 });
 
         // unique-s1+i1
@@ -0,0 +1,196 @@
+/*
+ * *************************************************************************************
+ *  Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ *  http://esper.codehaus.org                                                          *
+ *  http://www.espertech.com                                                           *
+ *  ---------------------------------------------------------------------------------- *
+ *  The software in this package is published under the terms of the GPL license       *
+ *  a copy of which has been included with this distribution in the license.txt file.  *
+ * *************************************************************************************
+ */
+
+package com.espertech.esper.regression.view;
+
+import com.espertech.esper.client.EPServiceProvider;
+import com.espertech.esper.client.EPServiceProviderManager;
+import com.espertech.esper.client.EPStatement;
+import com.espertech.esper.client.EPStatementException;
+import com.espertech.esper.client.EventBean;
+import com.espertech.esper.client.scopetest.SupportUpdateListener;
+import com.espertech.esper.support.bean.SupportBean;
+import com.espertech.esper.support.bean.SupportBean_S0;
+import com.espertech.esper.support.client.SupportConfigFactory;
+import junit.framework.TestCase;
+
+import java.util.Arrays;
+
+public class TestAggregateApprox extends TestCase
+{
+    private EPServiceProvider epService;
+    private SupportUpdateListener listener;
+
+    public void setUp()
+    {
+        listener = new SupportUpdateListener();
+        epService = EPServiceProviderManager.getDefaultProvider(SupportConfigFactory.getConfiguration());
+        epService.initialize();
+        epService.getEPAdministrator().getConfiguration().addEventType("SupportBean", SupportBean.class);
+        epService.getEPAdministrator().getConfiguration().addEventType("SupportBean_S0", SupportBean_S0.class);
+    }
+
+    protected void tearDown() throws Exception {
+        listener = null;
+    }
+
+    public void testCountDistinctLengthWindow()
+    {
+        EPStatement stmt = epService.getEPAdministrator().createEPL(
+                "select approx_count_distinct(theString) as approx, count(distinct theString) as exact from SupportBean.win:length(100)");
+        stmt.addListener(listener);
+        assertEquals(Long.class, stmt.getEventType().getPropertyType("approx"));
+
+        // the estimate must follow the window rather than the number of distinct values entered
+        for (int i = 0; i < 5000; i++)
+        {
+            epService.getEPRuntime().sendEvent(new SupportBean("E" + (i % 1000), i));
+            EventBean event = listener.assertOneGetNewAndReset();
+            long exact = (Long) event.get("exact");
+            long approx = (Long) event.get("approx");
+            assertTrue("approx " + approx + " exact " + exact, Math.abs(approx - exact) <= 3);
+        }
+
+        // repeated values leave one occurrence at a time
+        stmt.destroy();
+        stmt = epService.getEPAdministrator().createEPL(
+                "select approx_count_distinct(theString) as approx from SupportBean.win:length(3)");
+        stmt.addListener(listener);
+        sendAssert("A", 1L);
+        sendAssert("A", 1L);
+        sendAssert("B", 2L);
+        sendAssert("C", 3L);
+        sendAssert("C", 2L);
+        sendAssert("C", 1L);
+        stmt.destroy();
+    }
+
+    public void testCountDistinctGroupedBatch()
+    {
+        EPStatement stmt = epService.getEPAdministrator().createEPL(
+                "select intPrimitive as grp, approx_count_distinct(theString) as approx from SupportBean.win:length_batch(6) group by intPrimitive order by intPrimitive");
+        stmt.addListener(listener);
+
+        sendBatch(new String[] {"A", "B", "A", "C", "D", "D"}, new int[] {1, 1, 1, 2, 2, 2});
+        assertGroups(new Object[][] {{1, 2L}, {2, 2L}});
+        sendBatch(new String[] {"E", "E", "E", "E", "F", "G"}, new int[] {1, 1, 1, 1, 2, 2});
+        assertGroups(new Object[][] {{1, 1L}, {2, 2L}});
+        stmt.destroy();
+    }
+
+    public void testCountDistinctNamedWindowDelete()
+    {
+        epService.getEPAdministrator().createEPL("create window MyWindow.win:keepall() as SupportBean");
+        epService.getEPAdministrator().createEPL("insert into MyWindow select * from SupportBean");
+        epService.getEPAdministrator().createEPL("on SupportBean_S0 delete from MyWindow where theString = p00");
+        EPStatement stmt = epService.getEPAdministrator().createEPL("select approx_count_distinct(theString) as approx from MyWindow");
+        stmt.addListener(listener);
+
+        sendAssert("A", 1L);
+        sendAssert("B", 2L);
+        sendAssert("C", 3L);
+        sendAssert("B", 3L);
+
+        // delete in an order other than insertion order
+        epService.getEPRuntime().sendEvent(new SupportBean_S0(1, "B"));
+        assertEquals(2L, listener.assertOneGetNewAndReset().get("approx"));
+        epService.getEPRuntime().sendEvent(new SupportBean_S0(2, "A"));
+        assertEquals(1L, listener.assertOneGetNewAndReset().get("approx"));
+        epService.getEPRuntime().sendEvent(new SupportBean_S0(3, "C"));
+        assertEquals(0L, listener.assertOneGetNewAndReset().get("approx"));
+    }
+
+    public void testPercentileAndTopKUnbound()
+    {
+        EPStatement stmt = epService.getEPAdministrator().createEPL(
+                "select approx_percentile(intPrimitive, 50) as median, approx_topk(theString, 2) as top from SupportBean");
+        stmt.addListener(listener);
+        assertEquals(String[].class, stmt.getEventType().getPropertyType("top"));
+
+        sendEvent("A", 10);
+        sendEvent("B", 20);
+        sendEvent("B", 30);
+        EventBean event = listener.getLastNewData()[0];
+        assertEquals(20d, event.get("median"));
+        assertTrue(Arrays.equals(new String[] {"B", "A"}, (String[]) event.get("top")));
+        stmt.destroy();
+    }
+
+    public void testTopKLengthWindow()
+    {
+        EPStatement stmt = epService.getEPAdministrator().createEPL(
+                "select approx_topk(theString, 1) as top from SupportBean.win:length(3)");
+        stmt.addListener(listener);
+
+        sendEvent("A", 0);
+        sendEvent("A", 0);
+        sendEvent("B", 0);
+        assertTrue(Arrays.equals(new String[] {"A"}, (String[]) listener.getLastNewData()[0].get("top")));
+        sendEvent("B", 0);
+        sendEvent("C", 0);
+        assertTrue(Arrays.equals(new String[] {"B"}, (String[]) listener.getLastNewData()[0].get("top")));
+        stmt.destroy();
+    }
+
+    public void testInvalid()
+    {
+        tryInvalid("select approx_percentile(intPrimitive, 50) from SupportBean.win:length(10)", "does not support data windows");
+        tryInvalid("select approx_percentile(intPrimitive, 50) from SupportBean.win:length_batch(10)", "does not support data windows");
+        tryInvalid("select approx_percentile(intPrimitive, 150) from SupportBean", "requires two parameters");
+        tryInvalid("select approx_count_distinct(distinct theString) from SupportBean", "does not support distinct values");
+        tryInvalid("select approx_count_distinct(theString, intPrimitive) from SupportBean", "requires a single parameter");
+        tryInvalid("select approx_topk(theString, intPrimitive) from SupportBean", "positive numeric constant");
+    }
+
+    private void tryInvalid(String epl, String expected)
+    {
+        try
+        {
+            epService.getEPAdministrator().createEPL(epl);
+            fail();
+        }
+        catch (EPStatementException ex)
+        {
+            assertTrue(ex.getMessage(), ex.getMessage().contains(expected));
+        }
+    }
+
+    private void sendAssert(String theString, Long expected)
+    {
+        sendEvent(theString, 0);
+        assertEquals(expected, listener.assertOneGetNewAndReset().get("approx"));
+    }
+
+    private void sendBatch(String[] strings, int[] groups)
+    {
+        for (int i = 0; i < strings.length; i++)
+        {
+            sendEvent(strings[i], groups[i]);
+        }
+    }
+
+    private void assertGroups(Object[][] expected)
+    {
+        EventBean[] events = listener.getLastNewData();
+        assertEquals(expected.length, events.length);
+        for (int i = 0; i < expected.length; i++)
+        {
+            assertEquals(expected[i][0], events[i].get("grp"));
+            assertEquals(expected[i][1], events[i].get("approx"));
+        }
+        listener.reset();
+    }
+
+    private void sendEvent(String theString, int intPrimitive)
+    {
+        epService.getEPRuntime().sendEvent(new SupportBean(theString, intPrimitive));
+    }
+}
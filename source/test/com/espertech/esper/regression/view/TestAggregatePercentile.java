@@ -0,0 +1,185 @@
+/*
+ * *************************************************************************************
+ *  Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ *  http://esper.codehaus.org                                                          *
+ *  http://www.espertech.com                                                           *
+ *  ---------------------------------------------------------------------------------- *
+ *  The software in this package is published under the terms of the GPL license       *
+ *  a copy of which has been included with this distribution in the license.txt file.  *
+ * *************************************************************************************
+ */
+
+package com.espertech.esper.regression.view;
+
+import com.espertech.esper.client.EPException;
+import com.espertech.esper.client.EPServiceProvider;
+import com.espertech.esper.client.EPServiceProviderManager;
+import com.espertech.esper.client.EPStatement;
+import com.espertech.esper.client.EPStatementException;
+import com.espertech.esper.client.EventBean;
+import com.espertech.esper.client.scopetest.SupportUpdateListener;
+import com.espertech.esper.regression.client.MyConcatTwoAggFunctionFactory;
+import com.espertech.esper.regression.client.MySingleRowFunction;
+import com.espertech.esper.support.bean.SupportMarketDataBean;
+import com.espertech.esper.support.client.SupportConfigFactory;
+import junit.framework.TestCase;
+
+import java.util.Arrays;
+
+public class TestAggregatePercentile extends TestCase
+{
+    private EPServiceProvider epService;
+    private SupportUpdateListener listener;
+
+    public void setUp()
+    {
+        listener = new SupportUpdateListener();
+        epService = EPServiceProviderManager.getDefaultProvider(SupportConfigFactory.getConfiguration());
+        epService.initialize();
+        epService.getEPAdministrator().getConfiguration().addEventType("MD", SupportMarketDataBean.class);
+    }
+
+    protected void tearDown() throws Exception {
+        listener = null;
+    }
+
+    public void testPercentileLengthWindow()
+    {
+        EPStatement stmt = epService.getEPAdministrator().createEPL(
+                "select percentile(price, 50) as p50, median(price) as med, percentile(price, 0) as p0, percentile(price, 100) as p100, " +
+                "percentile(volume, 25.0) as p25 from MD.win:length(3)");
+        stmt.addListener(listener);
+        assertEquals(Double.class, stmt.getEventType().getPropertyType("p50"));
+
+        sendEvent("A", 10, 100);
+        assertValues(10d, 10d, 10d, 100d);
+        sendEvent("A", 20, 300);
+        assertValues(15d, 10d, 20d, 150d);
+        sendEvent("A", 0, 200);
+        assertValues(10d, 0d, 20d, 150d);
+
+        // removals from the window
+        sendEvent("A", 40, 0);
+        assertValues(20d, 0d, 40d, 100d);
+        sendEvent("A", 30, 500);
+        assertValues(30d, 0d, 40d, 100d);
+        sendEvent("A", 30, 500);
+        assertValues(30d, 30d, 40d, 250d);
+
+        stmt.destroy();
+    }
+
+    public void testPercentilesGroupedWithRemoval()
+    {
+        EPStatement stmt = epService.getEPAdministrator().createEPL(
+                "select irstream symbol, percentiles(price, 0, 25, 100) as p from MD.win:length(4) group by symbol");
+        stmt.addListener(listener);
+        assertEquals(Double[].class, stmt.getEventType().getPropertyType("p"));
+
+        sendEvent("IBM", 10, 0);
+        assertNewOld("IBM", new Double[] {10d, 10d, 10d}, null);
+        sendEvent("DELL", 100, 0);
+        assertNewOld("DELL", new Double[] {100d, 100d, 100d}, null);
+        sendEvent("IBM", 20, 0);
+        assertNewOld("IBM", new Double[] {10d, 12.5d, 20d}, new Double[] {10d, 10d, 10d});
+        sendEvent("IBM", 30, 0);
+        assertNewOld("IBM", new Double[] {10d, 15d, 30d}, new Double[] {10d, 12.5d, 20d});
+
+        // IBM 10 leaves the window while IBM 50 enters
+        sendEvent("IBM", 50, 0);
+        assertNewOld("IBM", new Double[] {20d, 25d, 50d}, new Double[] {10d, 15d, 30d});
+
+        // DELL 100 leaves the window, leaving the group empty
+        sendEvent("IBM", 60, 0);
+        EventBean[] newEvents = listener.getLastNewData();
+        EventBean[] oldEvents = listener.getLastOldData();
+        assertEquals(2, newEvents.length);
+        assertEquals(2, oldEvents.length);
+        for (int i = 0; i < 2; i++)
+        {
+            if ("DELL".equals(newEvents[i].get("symbol")))
+            {
+                assertNull(newEvents[i].get("p"));
+            }
+            else
+            {
+                assertTrue(Arrays.equals(new Double[] {20d, 27.5d, 60d}, (Double[]) newEvents[i].get("p")));
+            }
+        }
+        listener.reset();
+
+        stmt.destroy();
+    }
+
+    public void testRuntimeDefinitionReplacesBuiltin()
+    {
+        // functions added at runtime take precedence over the built-in functions by the same name
+        epService.getEPAdministrator().getConfiguration().addPlugInAggregationFunctionFactory("percentile", MyConcatTwoAggFunctionFactory.class.getName());
+        epService.getEPAdministrator().getConfiguration().addPlugInSingleRowFunction("percentiles", MySingleRowFunction.class.getName(), "surroundx");
+
+        EPStatement stmt = epService.getEPAdministrator().createEPL("select percentile(symbol) as c0, percentiles(symbol) as c1, median(price) as c2 from MD.win:length(2)");
+        stmt.addListener(listener);
+        sendEvent("A", 10, 100);
+        sendEvent("B", 20, 200);
+        EventBean event = listener.getAndResetLastNewData()[0];
+        assertEquals("A B", event.get("c0"));
+        assertEquals("XBX", event.get("c1"));
+        assertEquals(15d, event.get("c2"));
+
+        stmt.destroy();
+    }
+
+    public void testInvalid()
+    {
+        tryInvalid("select percentile(price) from MD", "requires two parameters");
+        tryInvalid("select percentile(price, 10, 20) from MD", "requires two parameters");
+        tryInvalid("select percentile(price, volume) from MD", "requires two parameters");
+        tryInvalid("select percentile(price, 101) from MD", "requires two parameters");
+        tryInvalid("select percentile(price, -0.5) from MD", "requires two parameters");
+        tryInvalid("select percentile(symbol, 50) from MD", "requires two parameters");
+        tryInvalid("select percentiles(price) from MD", "one or more numeric percentile constants");
+        tryInvalid("select percentiles(price, 10, volume) from MD", "one or more numeric percentile constants");
+        tryInvalid("select percentiles(price, 10, 200) from MD", "one or more numeric percentile constants");
+        tryInvalid("select percentile(distinct price, 50) from MD", "does not support distinct values");
+        tryInvalid("select percentiles(distinct price, 50) from MD", "does not support distinct values");
+    }
+
+    private void tryInvalid(String epl, String expected)
+    {
+        try
+        {
+            epService.getEPAdministrator().createEPL(epl);
+            fail();
+        }
+        catch (EPStatementException ex)
+        {
+            assertTrue(ex.getMessage(), ex.getMessage().contains(expected));
+        }
+    }
+
+    private void assertValues(Double p50, Double p0, Double p100, Double p25)
+    {
+        EventBean event = listener.assertOneGetNewAndReset();
+        assertEquals(p50, event.get("p50"));
+        assertEquals(p50, event.get("med"));
+        assertEquals(p0, event.get("p0"));
+        assertEquals(p100, event.get("p100"));
+        assertEquals(p25, event.get("p25"));
+    }
+
+    private void assertNewOld(String symbol, Double[] newValue, Double[] oldValue)
+    {
+        EventBean newEvent = listener.assertOneGetNew();
+        assertEquals(symbol, newEvent.get("symbol"));
+        assertTrue(Arrays.equals(newValue, (Double[]) newEvent.get("p")));
+        EventBean oldEvent = listener.assertOneGetOld();
+        assertEquals(symbol, oldEvent.get("symbol"));
+        assertTrue(Arrays.equals(oldValue, (Double[]) oldEvent.get("p")));
+        listener.reset();
+    }
+
+    private void sendEvent(String symbol, double price, long volume)
+    {
+        epService.getEPRuntime().sendEvent(new SupportMarketDataBean(symbol, price, volume, null));
+    }
+}
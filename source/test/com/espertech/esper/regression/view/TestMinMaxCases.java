@@ -17,6 +17,8 @@ import junit.framework.TestCase;
 import com.espertech.esper.client.EPServiceProvider;
 import com.espertech.esper.client.EPServiceProviderManager;
 import com.espertech.esper.client.EPStatement;
+import com.espertech.esper.client.EventBean;
+import com.espertech.esper.client.time.CurrentTimeEvent;
 import com.espertech.esper.support.bean.SupportMarketDataBean;
 import com.espertech.esper.support.bean.SupportBean;
 import com.espertech.esper.support.bean.SupportBean_S0;
@@ -24,6 +26,9 @@ import com.espertech.esper.support.client.SupportConfigFactory;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Random;
 
 public class TestMinMaxCases extends TestCase
@@ -99,6 +104,94 @@ public class TestMinMaxCases extends TestCase
          */
     }
 
+    public void testMinMaxLengthWindowGrouped() {
+        String[] fields = "theString,mini,maxi".split(",");
+        String epl = "select theString, min(intPrimitive) as mini, max(intPrimitive) as maxi " +
+                     "from SupportBean.win:length(5) group by theString";
+        epService.getEPAdministrator().createEPL(epl).addListener(listener);
+
+        Random random = new Random(1);
+        LinkedList<SupportBean> window = new LinkedList<SupportBean>();
+        for (int i = 0; i < 500; i++) {
+            SupportBean bean = new SupportBean("G" + random.nextInt(3), random.nextInt(100));
+            window.add(bean);
+            if (window.size() > 5) {
+                window.removeFirst();
+            }
+            epService.getEPRuntime().sendEvent(bean);
+
+            List<Integer> values = new ArrayList<Integer>();
+            for (SupportBean inWindow : window) {
+                if (inWindow.getTheString().equals(bean.getTheString())) {
+                    values.add(inWindow.getIntPrimitive());
+                }
+            }
+            // the group of an expired event may be output as well
+            EventBean result = null;
+            for (EventBean row : listener.getAndResetLastNewData()) {
+                if (row.get("theString").equals(bean.getTheString())) {
+                    result = row;
+                }
+            }
+            EPAssertionUtil.assertProps(result, fields, new Object[]{bean.getTheString(), min(values), max(values)});
+        }
+    }
+
+    public void testMinMaxTimeWindow() {
+        String[] fields = "mini,maxi".split(",");
+        epService.getEPRuntime().sendEvent(new CurrentTimeEvent(0));
+        EPStatement stmt = epService.getEPAdministrator().createEPL("select min(doublePrimitive) as mini, max(doublePrimitive) as maxi from SupportBean.win:time(10 sec)");
+
+        Random random = new Random(1);
+        LinkedList<SupportBean> window = new LinkedList<SupportBean>();
+        for (int i = 1; i < 200; i++) {
+            epService.getEPRuntime().sendEvent(new CurrentTimeEvent(i * 1000));
+            if (window.size() == 10) {
+                window.removeFirst();
+            }
+
+            // some seconds have no events
+            if (random.nextInt(4) != 0) {
+                SupportBean bean = new SupportBean("E", 0);
+                bean.setDoublePrimitive(random.nextInt(1000) / 10d);
+                epService.getEPRuntime().sendEvent(bean);
+                window.add(bean);
+            }
+            else {
+                window.add(null);
+            }
+
+            List<Double> values = new ArrayList<Double>();
+            for (SupportBean inWindow : window) {
+                if (inWindow != null) {
+                    values.add(inWindow.getDoublePrimitive());
+                }
+            }
+            EventBean result = stmt.iterator().next();
+            EPAssertionUtil.assertProps(result, fields, new Object[]{min(values), max(values)});
+        }
+    }
+
+    private static <T extends Comparable<T>> T min(List<T> values) {
+        T result = null;
+        for (T value : values) {
+            if (result == null || value.compareTo(result) < 0) {
+                result = value;
+            }
+        }
+        return result;
+    }
+
+    private static <T extends Comparable<T>> T max(List<T> values) {
+        T result = null;
+        for (T value : values) {
+            if (result == null || value.compareTo(result) > 0) {
+                result = value;
+            }
+        }
+        return result;
+    }
+
     public void testMemoryMinHaving() throws Exception
     {
         String statementText = "select price, min(price) as minPrice " +
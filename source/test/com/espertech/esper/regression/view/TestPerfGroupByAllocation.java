@@ -0,0 +1,132 @@
+/*
+ * *************************************************************************************
+ *  Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ *  http://esper.codehaus.org                                                          *
+ *  http://www.espertech.com                                                           *
+ *  ---------------------------------------------------------------------------------- *
+ *  The software in this package is published under the terms of the GPL license       *
+ *  a copy of which has been included with this distribution in the license.txt file.  *
+ * *************************************************************************************
+ */
+
+
+package com.espertech.esper.regression.view;
+
+import com.espertech.esper.client.Configuration;
+import com.espertech.esper.client.EPServiceProvider;
+import com.espertech.esper.client.EPServiceProviderManager;
+import com.espertech.esper.client.EPStatement;
+import com.espertech.esper.client.EventBean;
+import com.espertech.esper.client.UpdateListener;
+import com.espertech.esper.support.client.SupportConfigFactory;
+import junit.framework.TestCase;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+
+public class TestPerfGroupByAllocation extends TestCase
+{
+    private static final Log log = LogFactory.getLog(TestPerfGroupByAllocation.class);
+
+    private EPServiceProvider epService;
+    private CountingListener listener;
+
+    public void setUp()
+    {
+        Map<String, Object> def = new HashMap<String, Object>();
+        def.put("symbol", String.class);
+        def.put("volume", long.class);
+        Configuration config = SupportConfigFactory.getConfiguration();
+        config.addEventType("MyMapEvent", def);
+        epService = EPServiceProviderManager.getDefaultProvider(config);
+        epService.initialize();
+        listener = new CountingListener();
+    }
+
+    protected void tearDown() throws Exception {
+        listener = null;
+    }
+
+    public void testAllocationPerEvent() throws Exception
+    {
+        // map events so that only engine allocation is measured and not that of bean property access
+        Map[] events = new Map[100];
+        for (int i = 0; i < events.length; i++)
+        {
+            Map<String, Object> event = new HashMap<String, Object>();
+            event.put("symbol", "S" + (i % 10));
+            event.put("volume", (long) i);
+            events[i] = event;
+        }
+
+        String[] epls = new String[] {
+                "select symbol, sum(volume) as vol from MyMapEvent group by symbol",
+                "select symbol, volume, sum(volume) as vol from MyMapEvent group by symbol",
+                "select symbol, sum(volume) as vol from MyMapEvent.win:length(100) group by symbol"};
+        for (String epl : epls)
+        {
+            EPStatement stmt = epService.getEPAdministrator().createEPL(epl);
+            stmt.addListener(listener);
+
+            // warm up, then measure
+            sendEvents(events, 100000);
+            listener.count = 0;
+            long before = getAllocatedBytes();
+            int numEvents = 200000;
+            sendEvents(events, numEvents);
+            long after = getAllocatedBytes();
+            assertEquals(numEvents, listener.count);
+
+            if (before != -1)
+            {
+                long bytesPerEvent = (after - before) / numEvents;
+                log.info("Allocated " + bytesPerEvent + " bytes per event for '" + epl + "'");
+                assertTrue("bytesPerEvent=" + bytesPerEvent, bytesPerEvent < 2000);
+            }
+            stmt.destroy();
+        }
+    }
+
+    private void sendEvents(Map[] events, int numEvents)
+    {
+        for (int i = 0; i < numEvents; i++)
+        {
+            epService.getEPRuntime().sendEvent(events[i % events.length], "MyMapEvent");
+        }
+    }
+
+    private static class CountingListener implements UpdateListener
+    {
+        // counts without retaining events so as not to add to the allocation measured
+        private int count;
+
+        public void update(EventBean[] newEvents, EventBean[] oldEvents)
+        {
+            count++;
+        }
+    }
+
+    private static long getAllocatedBytes() throws Exception
+    {
+        // not all VMs provide per-thread allocation accounting
+        try
+        {
+            Class mxBeanClass = Class.forName("com.sun.management.ThreadMXBean");
+            Object mxBean = ManagementFactory.getThreadMXBean();
+            if (!mxBeanClass.isInstance(mxBean))
+            {
+                return -1;
+            }
+            Method method = mxBeanClass.getMethod("getThreadAllocatedBytes", long.class);
+            return (Long) method.invoke(mxBean, Thread.currentThread().getId());
+        }
+        catch (ClassNotFoundException ex)
+        {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,392 @@
+/*
+ * *************************************************************************************
+ *  Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ *  http://esper.codehaus.org                                                          *
+ *  http://www.espertech.com                                                           *
+ *  ---------------------------------------------------------------------------------- *
+ *  The software in this package is published under the terms of the GPL license       *
+ *  a copy of which has been included with this distribution in the license.txt file.  *
+ * *************************************************************************************
+ */
+
+package com.espertech.esper.schedule;
+
+import com.espertech.esper.support.schedule.SupportScheduleCallback;
+import com.espertech.esper.timer.TimeSourceServiceImpl;
+import com.espertech.esper.type.ScheduleUnit;
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+public class TestSchedulingServiceTimingWheel extends TestCase
+{
+    private SchedulingServiceTimingWheel service;
+    private SchedulingMgmtServiceImpl mgmtService;
+
+    private ScheduleSlot slots[][];
+    private SupportScheduleCallback callbacks[];
+
+    public void setUp()
+    {
+        service = new SchedulingServiceTimingWheel(new TimeSourceServiceImpl());
+        mgmtService = new SchedulingMgmtServiceImpl();
+        SupportScheduleCallback.setCallbackOrderNum(0);
+
+        // 2-by-2 table of buckets and slots
+        ScheduleBucket[] buckets = new ScheduleBucket[3];
+        slots = new ScheduleSlot[buckets.length][2];
+        for (int i = 0; i < buckets.length; i++)
+        {
+            buckets[i] = mgmtService.allocateBucket();
+            slots[i] = new ScheduleSlot[2];
+            for (int j = 0; j < slots[i].length; j++)
+            {
+                slots[i][j] = buckets[i].allocateSlot();
+            }
+        }
+
+        callbacks = new SupportScheduleCallback[5];
+        for (int i= 0; i < callbacks.length; i++)
+        {
+            callbacks[i] = new SupportScheduleCallback();
+        }
+    }
+
+    public void testAddTwice()
+    {
+        service.add(100, callbacks[0], slots[0][0]);
+        assertTrue(service.isScheduled(callbacks[0]));
+        service.add(100, callbacks[0], slots[0][0]);
+
+        service.add(ScheduleComputeHelper.computeNextOccurance(new ScheduleSpec(), service.getTime()), callbacks[1], slots[0][0]);
+        service.add(ScheduleComputeHelper.computeNextOccurance(new ScheduleSpec(), service.getTime()), callbacks[1], slots[0][0]);
+    }
+
+    public void testTrigger()
+    {
+        long startTime = 0;
+
+        service.setTime(0);
+
+        // Add callbacks
+        service.add(20, callbacks[3], slots[1][1]);
+        service.add(20, callbacks[2], slots[1][0]);
+        service.add(20, callbacks[1], slots[0][1]);
+        service.add(21, callbacks[0], slots[0][0]);
+        assertTrue(service.isScheduled(callbacks[3]));
+        assertTrue(service.isScheduled(callbacks[0]));
+
+        // Evaluate before the within time, expect not results
+        startTime += 19;
+        service.setTime(startTime);
+        evaluateSchedule();
+        checkCallbacks(callbacks, new Integer[] {0, 0, 0, 0, 0});
+        assertTrue(service.isScheduled(callbacks[3]));
+
+        // Evaluate exactly on the within time, expect a result
+        startTime += 1;
+        service.setTime(startTime);
+        evaluateSchedule();
+        checkCallbacks(callbacks, new Integer[] {0, 1, 2, 3, 0});
+        assertFalse(service.isScheduled(callbacks[3]));
+
+        // Evaluate after already evaluated once, no result
+        startTime += 1;
+        service.setTime(startTime);
+        evaluateSchedule();
+        checkCallbacks(callbacks, new Integer[] {4, 0, 0, 0, 0});
+        assertFalse(service.isScheduled(callbacks[3]));
+
+        startTime += 1;
+        service.setTime(startTime);
+        evaluateSchedule();
+        assertEquals(0, callbacks[3].clearAndGetOrderTriggered());
+
+        // Adding the same callback more than once should cause an exception
+        service.add(20, callbacks[0], slots[0][0]);
+        service.add(28, callbacks[0], slots[0][0]);
+        service.remove(callbacks[0], slots[0][0]);
+
+        service.add(20, callbacks[2], slots[1][0]);
+        service.add(25, callbacks[1], slots[0][1]);
+        service.remove(callbacks[1], slots[0][1]);
+        service.add(21, callbacks[0], slots[0][0]);
+        service.add(21, callbacks[3], slots[1][1]);
+        service.add(20, callbacks[1], slots[0][1]);
+        SupportScheduleCallback.setCallbackOrderNum(0);
+
+        startTime += 20;
+        service.setTime(startTime);
+        evaluateSchedule();
+        checkCallbacks(callbacks, new Integer[] {0, 1, 2, 0, 0});
+
+        startTime += 1;
+        service.setTime(startTime);
+        evaluateSchedule();
+        checkCallbacks(callbacks, new Integer[] {3, 0, 0, 4, 0});
+
+        service.setTime(startTime + Integer.MAX_VALUE);
+        evaluateSchedule();
+        checkCallbacks(callbacks, new Integer[] {0, 0, 0, 0, 0});
+    }
+
+    public void testWaitAndSpecTogether()
+    {
+        Calendar calendar = Calendar.getInstance();
+        calendar.set(2004, 11, 9, 15, 27, 10);
+        calendar.set(Calendar.MILLISECOND, 500);
+        long startTime = calendar.getTimeInMillis();
+
+        service.setTime(startTime);
+
+        // Add a specification
+        ScheduleSpec spec = new ScheduleSpec();
+        spec.addValue(ScheduleUnit.MONTHS, 12);
+        spec.addValue(ScheduleUnit.DAYS_OF_MONTH, 9);
+        spec.addValue(ScheduleUnit.HOURS, 15);
+        spec.addValue(ScheduleUnit.MINUTES, 27);
+        spec.addValue(ScheduleUnit.SECONDS, 20);
+
+        service.add(ScheduleComputeHelper.computeDeltaNextOccurance(spec, service.getTime()), callbacks[3], slots[1][1]);
+
+        spec.addValue(ScheduleUnit.SECONDS, 15);
+        service.add(ScheduleComputeHelper.computeDeltaNextOccurance(spec, service.getTime()), callbacks[4], slots[2][0]);
+
+        // Add some more callbacks
+        service.add(5000, callbacks[0], slots[0][0]);
+        service.add(10000, callbacks[1], slots[0][1]);
+        service.add(15000, callbacks[2], slots[1][0]);
+
+        // Now send a times reflecting various seconds later and check who got a callback
+        service.setTime(startTime + 1000);
+        SupportScheduleCallback.setCallbackOrderNum(0);
+        evaluateSchedule();
+        checkCallbacks(callbacks, new Integer[] {0, 0, 0, 0, 0});
+
+        service.setTime(startTime + 2000);
+        evaluateSchedule();
+        checkCallbacks(callbacks, new Integer[] {0, 0, 0, 0, 0});
+
+        service.setTime(startTime + 4000);
+        evaluateSchedule();
+        checkCallbacks(callbacks, new Integer[] {0, 0, 0, 0, 0});
+
+        service.setTime(startTime + 5000);
+        evaluateSchedule();
+        checkCallbacks(callbacks, new Integer[] {1, 0, 0, 0, 2});
+
+        service.setTime(startTime + 9000);
+        evaluateSchedule();
+        checkCallbacks(callbacks, new Integer[] {0, 0, 0, 0, 0});
+
+        service.setTime(startTime + 10000);
+        evaluateSchedule();
+        checkCallbacks(callbacks, new Integer[] {0, 3, 0, 4, 0});
+
+        service.setTime(startTime + 11000);
+        evaluateSchedule();
+        checkCallbacks(callbacks, new Integer[] {0, 0, 0, 0, 0});
+
+        service.setTime(startTime + 15000);
+        evaluateSchedule();
+        checkCallbacks(callbacks, new Integer[] {0, 0, 5, 0, 0});
+
+        service.setTime(startTime + Integer.MAX_VALUE);
+        evaluateSchedule();
+        checkCallbacks(callbacks, new Integer[] {0, 0, 0, 0, 0});
+    }
+
+    public void testIncorrectRemove()
+    {
+        SchedulingServiceTimingWheel evaluator = new SchedulingServiceTimingWheel(new TimeSourceServiceImpl());
+        SupportScheduleCallback callback = new SupportScheduleCallback();
+        evaluator.remove(callback, null);
+    }
+
+    public void testSameBucketDifferentLaps()
+    {
+        service.setTime(0);
+
+        // 5, 5 + 256 and 5 + 65536 fall into the same bucket of the lowest level, on different laps
+        service.add(5 + 65536, callbacks[2], slots[1][0]);
+        service.add(5 + 256, callbacks[1], slots[0][1]);
+        service.add(5, callbacks[0], slots[0][0]);
+        assertEquals(3, service.getScheduleHandleCount());
+        assertEquals(5L, (long) service.getNearestTimeHandle());
+        assertEquals(5L + 65536, (long) service.getFurthestTimeHandle());
+
+        SupportScheduleCallback.setCallbackOrderNum(0);
+        service.setTime(5);
+        evaluateSchedule();
+        checkCallbacks(callbacks, new Integer[] {1, 0, 0, 0, 0});
+
+        service.setTime(260);
+        evaluateSchedule();
+        checkCallbacks(callbacks, new Integer[] {0, 0, 0, 0, 0});
+
+        service.setTime(261);
+        evaluateSchedule();
+        checkCallbacks(callbacks, new Integer[] {0, 2, 0, 0, 0});
+
+        // a handle added after the cursor passed the bucket goes into the same bucket on the next lap
+        service.add(256, callbacks[3], slots[1][1]);
+        assertEquals(261L + 256, (long) service.getNearestTimeHandle());
+
+        service.setTime(261 + 255);
+        evaluateSchedule();
+        checkCallbacks(callbacks, new Integer[] {0, 0, 0, 0, 0});
+
+        service.setTime(261 + 256);
+        evaluateSchedule();
+        checkCallbacks(callbacks, new Integer[] {0, 0, 0, 3, 0});
+
+        // a single jump across several laps returns the handle once
+        service.setTime(100000);
+        evaluateSchedule();
+        checkCallbacks(callbacks, new Integer[] {0, 0, 4, 0, 0});
+        assertEquals(0, service.getScheduleHandleCount());
+    }
+
+    public void testSameTimeSlotOrder()
+    {
+        service.setTime(1000);
+
+        // added in reverse slot order and on different levels of the wheel
+        service.add(70000, callbacks[3], slots[1][1]);
+        service.setTime(1000 + 65536);
+        service.add(70000 - 65536, callbacks[2], slots[1][0]);
+        service.add(70000 - 65536, callbacks[1], slots[0][1]);
+        service.add(70000 - 65536, callbacks[0], slots[0][0]);
+
+        SupportScheduleCallback.setCallbackOrderNum(0);
+        service.setTime(71000);
+        evaluateSchedule();
+        checkCallbacks(callbacks, new Integer[] {1, 2, 3, 4, 0});
+    }
+
+    public void testTimeSetBackwards()
+    {
+        service.setTime(1000);
+        service.add(100, callbacks[0], slots[0][0]);
+        service.setTime(1200);
+        SupportScheduleCallback.setCallbackOrderNum(0);
+        evaluateSchedule();
+        checkCallbacks(callbacks, new Integer[] {1, 0, 0, 0, 0});
+
+        // a handle added behind the last evaluated time
+        service.setTime(900);
+        service.add(50, callbacks[1], slots[0][1]);
+        service.add(500, callbacks[2], slots[1][0]);
+        assertTrue(service.isScheduled(callbacks[1]));
+
+        service.setTime(949);
+        evaluateSchedule();
+        checkCallbacks(callbacks, new Integer[] {0, 0, 0, 0, 0});
+
+        service.setTime(950);
+        evaluateSchedule();
+        checkCallbacks(callbacks, new Integer[] {0, 2, 0, 0, 0});
+
+        service.remove(callbacks[2], slots[1][0]);
+        service.setTime(2000);
+        evaluateSchedule();
+        checkCallbacks(callbacks, new Integer[] {0, 0, 0, 0, 0});
+        assertEquals(0, service.getScheduleHandleCount());
+    }
+
+    public void testRandomCompareSortedService()
+    {
+        Random random = new Random(1000);
+        for (int round = 0; round < 50; round++)
+        {
+            long start = random.nextInt(2) == 0 ? 0 : random.nextLong() >> 2;
+            SchedulingServiceImpl sorted = new SchedulingServiceImpl(new TimeSourceServiceImpl());
+            SchedulingServiceTimingWheel wheel = new SchedulingServiceTimingWheel(new TimeSourceServiceImpl());
+            sorted.setTime(start);
+            wheel.setTime(start);
+
+            // each handle has its own slot, as statements allocate them
+            SupportScheduleCallback[] handles = new SupportScheduleCallback[50];
+            ScheduleSlot[] handleSlots = new ScheduleSlot[handles.length];
+            ScheduleBucket bucket = null;
+            for (int i = 0; i < handles.length; i++)
+            {
+                if (i % 5 == 0)
+                {
+                    bucket = mgmtService.allocateBucket();
+                }
+                handles[i] = new SupportScheduleCallback();
+                handleSlots[i] = bucket.allocateSlot();
+            }
+
+            long time = start;
+            for (int op = 0; op < 2000; op++)
+            {
+                int choice = random.nextInt(10);
+                int index = random.nextInt(handles.length);
+                if (choice < 4)
+                {
+                    long after = randomDelta(random);
+                    sorted.add(after, handles[index], handleSlots[index]);
+                    wheel.add(after, handles[index], handleSlots[index]);
+                }
+                else if (choice < 6)
+                {
+                    sorted.remove(handles[index], handleSlots[index]);
+                    wheel.remove(handles[index], handleSlots[index]);
+                }
+                else
+                {
+                    time += randomDelta(random);
+                    sorted.setTime(time);
+                    wheel.setTime(time);
+                    List<ScheduleHandle> expected = new ArrayList<ScheduleHandle>();
+                    List<ScheduleHandle> received = new ArrayList<ScheduleHandle>();
+                    sorted.evaluate(expected);
+                    wheel.evaluate(received);
+                    assertEquals("round " + round + " op " + op, expected, received);
+                }
+                assertEquals(sorted.getScheduleHandleCount(), wheel.getScheduleHandleCount());
+                assertEquals(sorted.getNearestTimeHandle(), wheel.getNearestTimeHandle());
+            }
+        }
+    }
+
+    private long randomDelta(Random random)
+    {
+        switch (random.nextInt(4))
+        {
+            case 0: return random.nextInt(4);
+            case 1: return random.nextInt(512);
+            case 2: return random.nextInt(200000);
+            default: return random.nextInt(Integer.MAX_VALUE);
+        }
+    }
+
+    private void checkCallbacks(SupportScheduleCallback callbacks[], Integer[] results)
+    {
+        assertTrue(callbacks.length == results.length);
+
+        for (int i = 0; i < callbacks.length; i++)
+        {
+            assertEquals((int) results[i], (int) callbacks[i].clearAndGetOrderTriggered());
+        }
+    }
+
+    private void evaluateSchedule()
+    {
+        Collection<ScheduleHandle> handles = new LinkedList<ScheduleHandle>();
+        service.evaluate(handles);
+
+        for (ScheduleHandle handle : handles)
+        {
+            ScheduleHandleCallback cb = (ScheduleHandleCallback) handle;
+            cb.scheduledTrigger(null);
+        }
+    }    
+}
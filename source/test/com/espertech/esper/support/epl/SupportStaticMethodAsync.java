@@ -0,0 +1,112 @@
+/*
+ * *************************************************************************************
+ *  Copyright (C) 2008 EsperTech, Inc. All rights reserved.                            *
+ *  http://esper.codehaus.org                                                          *
+ *  http://www.espertech.com                                                           *
+ *  ---------------------------------------------------------------------------------- *
+ *  The software in this package is published under the terms of the GPL license       *
+ *  a copy of which has been included with this distribution in the license.txt file.  *
+ * *************************************************************************************
+ */
+
+package com.espertech.esper.support.epl;
+
+import com.espertech.esper.support.bean.SupportBean_S1;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SupportStaticMethodAsync
+{
+    private static final AtomicInteger concurrent = new AtomicInteger();
+    private static final AtomicInteger maxConcurrent = new AtomicInteger();
+    private static final List<String> keys = new ArrayList<String>();
+    private static final Set<Thread> invocationThreads = new HashSet<Thread>();
+    private static volatile CountDownLatch latch;
+    private static volatile CountDownLatch concurrentLatch;
+    private static volatile CountDownLatch invokedLatch = new CountDownLatch(1);
+
+    /**
+     * Reset counters.
+     * @param latch latch that invocations await, or null to not wait
+     * @param numConcurrent number of invocations that must be in progress at the same time before any returns, or zero
+     */
+    public static synchronized void reset(CountDownLatch latch, int numConcurrent)
+    {
+        SupportStaticMethodAsync.latch = latch;
+        concurrentLatch = numConcurrent > 0 ? new CountDownLatch(numConcurrent) : null;
+        invokedLatch = new CountDownLatch(1);
+        maxConcurrent.set(0);
+        keys.clear();
+        invocationThreads.clear();
+    }
+
+    public static synchronized int getInvocations()
+    {
+        return keys.size();
+    }
+
+    public static synchronized List<String> getKeys()
+    {
+        return new ArrayList<String>(keys);
+    }
+
+    public static synchronized Set<Thread> getInvocationThreads()
+    {
+        return new HashSet<Thread>(invocationThreads);
+    }
+
+    public static int getMaxConcurrent()
+    {
+        return maxConcurrent.get();
+    }
+
+    public static boolean awaitInvoked() throws InterruptedException
+    {
+        return invokedLatch.await(10, TimeUnit.SECONDS);
+    }
+
+    public static SupportBean_S1 fetchValue(String key) throws InterruptedException
+    {
+        synchronized (SupportStaticMethodAsync.class)
+        {
+            keys.add(key);
+            invocationThreads.add(Thread.currentThread());
+        }
+        invokedLatch.countDown();
+        int current = concurrent.incrementAndGet();
+        try
+        {
+            int max = maxConcurrent.get();
+            while ((current > max) && (!maxConcurrent.compareAndSet(max, current)))
+            {
+                max = maxConcurrent.get();
+            }
+
+            CountDownLatch waitConcurrent = concurrentLatch;
+            if (waitConcurrent != null)
+            {
+                waitConcurrent.countDown();
+                if (!waitConcurrent.await(10, TimeUnit.SECONDS))
+                {
+                    throw new IllegalStateException("Timeout waiting for concurrent invocations");
+                }
+            }
+            CountDownLatch waitLatch = latch;
+            if (waitLatch != null)
+            {
+                waitLatch.await();
+            }
+            return new SupportBean_S1(0, "|" + key + "|");
+        }
+        finally
+        {
+            concurrent.decrementAndGet();
+        }
+    }
+}
@@ -74,6 +74,11 @@ public class SupportStreamTypeSvc1Stream implements StreamTypeService
         return new boolean[10]; 
     }
 
+    public boolean[] getFIFODataWindow()
+    {
+        return new boolean[10];
+    }
+
     public int getStreamNumForStreamName(String streamWildcard)
     {
         return impl.getStreamNumForStreamName(streamWildcard);
@@ -11,6 +11,7 @@
 
 package com.espertech.esper.support.filter;
 
+import com.espertech.esper.filter.FilterServiceGranularLockFactoryReentrant;
 import com.espertech.esper.client.EventBean;
 import com.espertech.esper.client.EventType;
 import com.espertech.esper.filter.*;
@@ -65,7 +66,7 @@ public class IndexTreeBuilderRunnable implements Runnable
         // Add expression
         FilterValueSet filterValues = filterSpec.getValueSet(null, null, null);
         FilterHandle filterCallback = new SupportFilterHandle();
-        IndexTreeBuilder treeBuilder = new IndexTreeBuilder();
+        IndexTreeBuilder treeBuilder = new IndexTreeBuilder(new FilterServiceGranularLockFactoryReentrant());
         IndexTreePath pathAddedTo = treeBuilder.add(filterValues, filterCallback, topNode);
 
         // Fire a no-match
@@ -13,6 +13,7 @@ package com.espertech.esper.support.filter;
 
 import com.espertech.esper.client.EventBean;
 import com.espertech.esper.client.EventType;
+import com.espertech.esper.collection.Pair;
 import com.espertech.esper.filter.*;
 import com.espertech.esper.support.bean.SupportBean;
 import com.espertech.esper.support.event.SupportEventTypeFactory;
@@ -51,6 +52,10 @@ public class SupportFilterParamIndex extends FilterParamIndexLookupableBase
         return null;
     }
 
+    protected void getEntries(Collection<Pair<Object, EventEvaluator>> entries)
+    {
+    }
+
     public void matchEvent(EventBean theEvent, Collection<FilterHandle> matches)
     {
     }
@@ -86,7 +86,7 @@ public class SupportStatementContextFactory
 
         StatementContextEngineServices stmtEngineServices = new StatementContextEngineServices("engURI",
                 SupportEventAdapterService.getService(),
-                new NamedWindowServiceImpl(null, variableService, false, new ManagedReadWriteLock("dummyeplock", true), new ExceptionHandlingService("engURI", Collections.<ExceptionHandler>emptyList(), Collections.<ConditionHandler>emptyList()), false, null),
+                new NamedWindowServiceImpl(null, variableService, false, new ManagedReadWriteLock("dummyeplock", true), new ExceptionHandlingService("engURI", Collections.<ExceptionHandler>emptyList(), Collections.<ConditionHandler>emptyList()), false, null, null),
                 null,
                 new EngineSettingsService(new Configuration().getEngineDefaults(), new URI[0]),
                 new ValueAddEventServiceImpl(),